@@ -0,0 +1,169 @@
+package us.ihmc.atlas.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.vecmath.Point2d;
+import javax.vecmath.Point3d;
+import javax.vecmath.Quat4d;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.ihmc.humanoidRobotics.communication.packets.walking.FootstepDataMessage;
+import us.ihmc.humanoidRobotics.footstep.footstepGenerator.AStarFootstepPlanner;
+import us.ihmc.humanoidRobotics.footstep.footstepGenerator.AStarFootstepPlanner.PlanningResult;
+import us.ihmc.humanoidRobotics.footstep.footstepSnapper.ConvexHullFootstepSnapper;
+import us.ihmc.humanoidRobotics.footstep.footstepSnapper.FootstepSnappingParameters;
+import us.ihmc.humanoidRobotics.footstep.footstepSnapper.GenericFootstepSnappingParameters;
+import us.ihmc.humanoidRobotics.footstep.footstepSnapper.SimpleFootstepValueFunction;
+import us.ihmc.robotics.geometry.RotationTools;
+import us.ihmc.robotics.quadTree.Box;
+import us.ihmc.robotics.quadTree.QuadTreeForGroundParameters;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.sensorProcessing.pointClouds.combinationQuadTreeOctTree.QuadTreeForGroundHeightMap;
+
+/**
+ * A* footstep planning over 10 m of flat ground, stairs up and down, and random blocks, on a quad tree height map like the
+ * one built from the lidar. plan() starts from an empty snapping cache, replan() reuses the snapped footsteps of the
+ * previous plan, like when the operator asks for a new plan on the same map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AStarFootstepPlannerBenchmark
+{
+   private static final double MIN_X = -1.0;
+   private static final double MAX_X = 11.5;
+   private static final double MIN_Y = -1.5;
+   private static final double MAX_Y = 1.5;
+   private static final double POINT_SPACING = 0.025;
+
+   private static final double GOAL_DISTANCE = 10.0;
+   private static final double PLANNER_TIMEOUT = 10.0;
+
+   private static final double STEP_RISE = 0.1;
+   private static final double STEP_RUN = 0.6;
+   private static final int NUMBER_OF_STAIRS = 5;
+   private static final double BLOCK_SIZE = 0.5;
+
+   public enum Terrain
+   {
+      FLAT_GROUND, STAIRS, RANDOM_BLOCKS
+   }
+
+   @Param({"FLAT_GROUND", "STAIRS", "RANDOM_BLOCKS"})
+   public Terrain terrain;
+
+   private AStarFootstepPlanner planner;
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      FootstepSnappingParameters snappingParameters = new GenericFootstepSnappingParameters();
+      ConvexHullFootstepSnapper footstepSnapper = new ConvexHullFootstepSnapper(new SimpleFootstepValueFunction(snappingParameters), snappingParameters);
+
+      planner = new AStarFootstepPlanner(footstepSnapper);
+      planner.setHeightMap(createHeightMap(terrain));
+      planner.setMaxStepUpAndDown(0.25, 0.3);
+      planner.setTimeout(PLANNER_TIMEOUT);
+
+      Quat4d orientation = new Quat4d();
+      RotationTools.convertYawPitchRollToQuaternion(0.0, 0.0, 0.0, orientation);
+      planner.setInitialStanceFoot(new FootstepDataMessage(RobotSide.LEFT, new Point3d(0.0, 0.125, 0.0), orientation));
+      planner.setGoalPose(new Point2d(GOAL_DISTANCE, 0.0), 0.0);
+
+      if (planner.plan() != PlanningResult.GOAL_REACHED)
+         throw new RuntimeException("The planner does not reach the goal on " + terrain);
+   }
+
+   @Benchmark
+   public ArrayList<FootstepDataMessage> plan()
+   {
+      planner.clearSnappingCache();
+      planner.plan();
+      return planner.getFootsteps();
+   }
+
+   @Benchmark
+   public ArrayList<FootstepDataMessage> replan()
+   {
+      planner.plan();
+      return planner.getFootsteps();
+   }
+
+   private static QuadTreeForGroundHeightMap createHeightMap(Terrain terrain)
+   {
+      Box bounds = new Box(MIN_X, MIN_Y, MAX_X, MAX_Y);
+      QuadTreeForGroundParameters quadTreeParameters = new QuadTreeForGroundParameters(0.025, 0.005, 0.02, 20, 0.2, -1);
+      QuadTreeForGroundHeightMap heightMap = new QuadTreeForGroundHeightMap(bounds, quadTreeParameters);
+
+      double[][] blockHeights = createRandomBlockHeights(new Random(1776L));
+
+      for (double x = MIN_X; x < MAX_X; x += POINT_SPACING)
+      {
+         for (double y = MIN_Y; y < MAX_Y; y += POINT_SPACING)
+         {
+            switch (terrain)
+            {
+            case STAIRS:
+               heightMap.addPoint(x, y, stairsHeightAt(x));
+               break;
+            case RANDOM_BLOCKS:
+               heightMap.addPoint(x, y, blockHeights[(int) Math.floor((x - MIN_X) / BLOCK_SIZE)][(int) Math.floor((y - MIN_Y) / BLOCK_SIZE)]);
+               break;
+            default:
+               heightMap.addPoint(x, y, 0.0);
+               break;
+            }
+         }
+      }
+
+      return heightMap;
+   }
+
+   /**
+    * Five 10 cm steps up starting at x = 2 m, and five steps down ending at x = 8 m.
+    */
+   private static double stairsHeightAt(double x)
+   {
+      double stepsUp = Math.floor((x - 2.0) / STEP_RUN) + 1.0;
+      double stepsDown = Math.floor((8.0 - x) / STEP_RUN) + 1.0;
+      double numberOfStepsAtX = Math.max(0.0, Math.min(NUMBER_OF_STAIRS, Math.min(stepsUp, stepsDown)));
+      return STEP_RISE * numberOfStepsAtX;
+   }
+
+   /**
+    * 50 cm by 50 cm blocks up to 10 cm high.
+    */
+   private static double[][] createRandomBlockHeights(Random random)
+   {
+      int numberOfBlocksX = (int) Math.ceil((MAX_X - MIN_X) / BLOCK_SIZE);
+      int numberOfBlocksY = (int) Math.ceil((MAX_Y - MIN_Y) / BLOCK_SIZE);
+      double[][] blockHeights = new double[numberOfBlocksX + 1][numberOfBlocksY + 1];
+
+      for (int i = 0; i <= numberOfBlocksX; i++)
+      {
+         for (int j = 0; j <= numberOfBlocksY; j++)
+         {
+            blockHeights[i][j] = 0.1 * random.nextDouble();
+         }
+      }
+
+      return blockHeights;
+   }
+}
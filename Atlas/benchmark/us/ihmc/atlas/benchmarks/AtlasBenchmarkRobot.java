@@ -0,0 +1,80 @@
+package us.ihmc.atlas.benchmarks;
+
+import java.util.Random;
+
+import us.ihmc.SdfLoader.SDFFullHumanoidRobotModel;
+import us.ihmc.atlas.AtlasRobotModel;
+import us.ihmc.atlas.AtlasRobotVersion;
+import us.ihmc.darpaRoboticsChallenge.drcRobot.DRCRobotModel;
+import us.ihmc.humanoidRobotics.frames.HumanoidReferenceFrames;
+import us.ihmc.robotics.random.RandomTools;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.screwTheory.OneDoFJoint;
+import us.ihmc.robotics.screwTheory.TwistCalculator;
+
+/**
+ * Atlas model in a random configuration, shared by the controller benchmarks.
+ */
+public class AtlasBenchmarkRobot
+{
+   private final DRCRobotModel robotModel;
+   private final SDFFullHumanoidRobotModel fullRobotModel;
+   private final HumanoidReferenceFrames referenceFrames;
+   private final TwistCalculator twistCalculator;
+
+   public AtlasBenchmarkRobot()
+   {
+      robotModel = new AtlasRobotModel(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_HANDS, DRCRobotModel.RobotTarget.SCS, true);
+      fullRobotModel = robotModel.createFullRobotModel();
+      referenceFrames = new HumanoidReferenceFrames(fullRobotModel);
+      twistCalculator = new TwistCalculator(ReferenceFrame.getWorldFrame(), fullRobotModel.getElevator());
+   }
+
+   /**
+    * Put the robot in a random configuration within the joint limits, with random joint velocities and accelerations,
+    * and update the frames and twists.
+    */
+   public void setRandomState(Random random)
+   {
+      fullRobotModel.getRootJoint().setPosition(0.0, 0.0, 0.9);
+
+      OneDoFJoint[] oneDoFJoints = fullRobotModel.getOneDoFJoints();
+      for (OneDoFJoint joint : oneDoFJoints)
+      {
+         double lowerLimit = Math.max(joint.getJointLimitLower(), -Math.PI);
+         double upperLimit = Math.min(joint.getJointLimitUpper(), Math.PI);
+         joint.setQ(RandomTools.generateRandomDouble(random, lowerLimit, upperLimit));
+         joint.setQd(RandomTools.generateRandomDouble(random, 1.0));
+         joint.setQdd(RandomTools.generateRandomDouble(random, 10.0));
+      }
+
+      updateFrames();
+   }
+
+   public void updateFrames()
+   {
+      fullRobotModel.updateFrames();
+      referenceFrames.updateFrames();
+      twistCalculator.compute();
+   }
+
+   public DRCRobotModel getRobotModel()
+   {
+      return robotModel;
+   }
+
+   public SDFFullHumanoidRobotModel getFullRobotModel()
+   {
+      return fullRobotModel;
+   }
+
+   public HumanoidReferenceFrames getReferenceFrames()
+   {
+      return referenceFrames;
+   }
+
+   public TwistCalculator getTwistCalculator()
+   {
+      return twistCalculator;
+   }
+}
@@ -0,0 +1,145 @@
+package us.ihmc.atlas.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControlCoreToolbox;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.HighLevelHumanoidControllerToolbox;
+import us.ihmc.convexOptimization.quadraticProgram.SimpleActiveSetQPStandaloneSolver;
+import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolver;
+import us.ihmc.robotics.random.RandomTools;
+import us.ihmc.robotics.screwTheory.ScrewTools;
+
+/**
+ * Active set QP solvers on a problem shaped like the inverse dynamics QP of Atlas: joint accelerations and contact force
+ * magnitudes (rho) as variables, a least squares cost, the momentum equations as equality constraints and rho >= 0.
+ * The linear cost term changes a little every invocation, like it does from one control tick to the next.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QPSolverBenchmark
+{
+   private static final int numberOfMotionTasks = 60;
+   private static final int numberOfEqualityConstraints = 6;
+
+   @Param({"false", "true"})
+   public boolean useWarmStart;
+
+   private final Random random = new Random(4152L);
+
+   private int problemSize;
+   private DenseMatrix64F quadraticCostMatrix;
+   private DenseMatrix64F linearCostVector;
+   private DenseMatrix64F nominalLinearCostVector;
+   private DenseMatrix64F equalityConstraintMatrix;
+   private DenseMatrix64F equalityConstraintVector;
+   private DenseMatrix64F inequalityConstraintMatrix;
+   private DenseMatrix64F inequalityConstraintVector;
+   private DenseMatrix64F lowerBounds;
+   private DenseMatrix64F upperBounds;
+   private boolean[] standaloneSolverActiveSet;
+
+   private final SimpleEfficientActiveSetQPSolver efficientSolver = new SimpleEfficientActiveSetQPSolver();
+   private final SimpleActiveSetQPStandaloneSolver standaloneSolver = new SimpleActiveSetQPStandaloneSolver();
+   private final DenseMatrix64F solution = new DenseMatrix64F(0, 0);
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      AtlasBenchmarkRobot robot = new AtlasBenchmarkRobot();
+      int numberOfDoFs = ScrewTools.computeDegreesOfFreedom(HighLevelHumanoidControllerToolbox.computeJointsToOptimizeFor(robot.getFullRobotModel()));
+      int rhoSize = WholeBodyControlCoreToolbox.rhoSize;
+      problemSize = numberOfDoFs + rhoSize;
+
+      // Cost: 1/2 |J x - b|^2 + regularization
+      DenseMatrix64F taskJacobian = RandomTools.generateRandomMatrix(random, numberOfMotionTasks, problemSize);
+      DenseMatrix64F taskObjective = RandomTools.generateRandomMatrix(random, numberOfMotionTasks, 1, 10.0);
+      quadraticCostMatrix = new DenseMatrix64F(problemSize, problemSize);
+      CommonOps.multTransA(taskJacobian, taskJacobian, quadraticCostMatrix);
+      for (int i = 0; i < problemSize; i++)
+         quadraticCostMatrix.add(i, i, 1.0e-3);
+      nominalLinearCostVector = new DenseMatrix64F(problemSize, 1);
+      CommonOps.multTransA(-1.0, taskJacobian, taskObjective, nominalLinearCostVector);
+      linearCostVector = new DenseMatrix64F(nominalLinearCostVector);
+
+      equalityConstraintMatrix = RandomTools.generateRandomMatrix(random, numberOfEqualityConstraints, problemSize);
+      equalityConstraintVector = RandomTools.generateRandomMatrix(random, numberOfEqualityConstraints, 1, 100.0);
+
+      // rho >= 0, as variable bounds for the efficient solver and as -rho <= 0 for the standalone solver
+      lowerBounds = new DenseMatrix64F(problemSize, 1);
+      upperBounds = new DenseMatrix64F(problemSize, 1);
+      CommonOps.fill(upperBounds, Double.POSITIVE_INFINITY);
+      inequalityConstraintMatrix = new DenseMatrix64F(rhoSize, problemSize);
+      inequalityConstraintVector = new DenseMatrix64F(rhoSize, 1);
+      for (int i = 0; i < problemSize; i++)
+      {
+         if (i < numberOfDoFs)
+         {
+            lowerBounds.set(i, 0, Double.NEGATIVE_INFINITY);
+         }
+         else
+         {
+            lowerBounds.set(i, 0, 0.0);
+            inequalityConstraintMatrix.set(i - numberOfDoFs, i, -1.0);
+         }
+      }
+      standaloneSolverActiveSet = new boolean[rhoSize];
+
+      efficientSolver.setUseWarmStart(useWarmStart);
+   }
+
+   private void perturbProblem()
+   {
+      for (int i = 0; i < problemSize; i++)
+         linearCostVector.set(i, 0, nominalLinearCostVector.get(i, 0) + RandomTools.generateRandomDouble(random, 0.1));
+   }
+
+   @Benchmark
+   public DenseMatrix64F simpleEfficientActiveSetQPSolver()
+   {
+      perturbProblem();
+
+      efficientSolver.clear();
+      efficientSolver.setQuadraticCostFunction(quadraticCostMatrix, linearCostVector, 0.0);
+      efficientSolver.setLinearEqualityConstraints(equalityConstraintMatrix, equalityConstraintVector);
+      efficientSolver.setVariableBounds(lowerBounds, upperBounds);
+      efficientSolver.solve(solution);
+      return solution;
+   }
+
+   @Benchmark
+   public DenseMatrix64F simpleActiveSetQPStandaloneSolver()
+   {
+      perturbProblem();
+
+      if (!useWarmStart)
+      {
+         for (int i = 0; i < standaloneSolverActiveSet.length; i++)
+            standaloneSolverActiveSet[i] = false;
+      }
+
+      solution.reshape(problemSize, 1);
+      standaloneSolver.solve(quadraticCostMatrix, linearCostVector, equalityConstraintMatrix, equalityConstraintVector, inequalityConstraintMatrix,
+            inequalityConstraintVector, standaloneSolverActiveSet, solution);
+      return solution;
+   }
+}
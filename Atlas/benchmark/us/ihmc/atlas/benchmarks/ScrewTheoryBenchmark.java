@@ -0,0 +1,115 @@
+package us.ihmc.atlas.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ejml.data.DenseMatrix64F;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.ihmc.SdfLoader.SDFFullHumanoidRobotModel;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.screwTheory.CentroidalMomentumMatrix;
+import us.ihmc.robotics.screwTheory.CompositeRigidBodyMassMatrixCalculator;
+import us.ihmc.robotics.screwTheory.GeometricJacobian;
+import us.ihmc.robotics.screwTheory.InverseDynamicsCalculator;
+
+/**
+ * Rigid body dynamics and kinematics computed every control tick, on the Atlas model.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScrewTheoryBenchmark
+{
+   private AtlasBenchmarkRobot robot;
+
+   private InverseDynamicsCalculator inverseDynamicsCalculator;
+   private CompositeRigidBodyMassMatrixCalculator massMatrixCalculator;
+   private CentroidalMomentumMatrix centroidalMomentumMatrix;
+   private GeometricJacobian legJacobian;
+   private GeometricJacobian armJacobian;
+   private GeometricJacobian floatingFootJacobian;
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      robot = new AtlasBenchmarkRobot();
+      robot.setRandomState(new Random(1976L));
+
+      SDFFullHumanoidRobotModel fullRobotModel = robot.getFullRobotModel();
+      ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+
+      inverseDynamicsCalculator = new InverseDynamicsCalculator(robot.getTwistCalculator(), 9.81);
+      massMatrixCalculator = new CompositeRigidBodyMassMatrixCalculator(fullRobotModel.getElevator());
+      centroidalMomentumMatrix = new CentroidalMomentumMatrix(fullRobotModel.getElevator(), robot.getReferenceFrames().getCenterOfMassFrame());
+
+      legJacobian = new GeometricJacobian(fullRobotModel.getPelvis(), fullRobotModel.getFoot(RobotSide.LEFT), fullRobotModel.getFoot(RobotSide.LEFT).getBodyFixedFrame());
+      armJacobian = new GeometricJacobian(fullRobotModel.getChest(), fullRobotModel.getHand(RobotSide.LEFT), fullRobotModel.getHand(RobotSide.LEFT).getBodyFixedFrame());
+      floatingFootJacobian = new GeometricJacobian(fullRobotModel.getElevator(), fullRobotModel.getFoot(RobotSide.RIGHT), worldFrame);
+   }
+
+   @Benchmark
+   public double inverseDynamicsCalculator()
+   {
+      inverseDynamicsCalculator.compute();
+      return robot.getFullRobotModel().getOneDoFJoints()[0].getTau();
+   }
+
+   @Benchmark
+   public DenseMatrix64F compositeRigidBodyMassMatrix()
+   {
+      massMatrixCalculator.compute();
+      return massMatrixCalculator.getMassMatrix();
+   }
+
+   @Benchmark
+   public DenseMatrix64F centroidalMomentumMatrix()
+   {
+      centroidalMomentumMatrix.compute();
+      return centroidalMomentumMatrix.getMatrix();
+   }
+
+   @Benchmark
+   public DenseMatrix64F legJacobian()
+   {
+      legJacobian.compute();
+      return legJacobian.getJacobianMatrix();
+   }
+
+   @Benchmark
+   public DenseMatrix64F armJacobian()
+   {
+      armJacobian.compute();
+      return armJacobian.getJacobianMatrix();
+   }
+
+   @Benchmark
+   public DenseMatrix64F floatingFootJacobian()
+   {
+      floatingFootJacobian.compute();
+      return floatingFootJacobian.getJacobianMatrix();
+   }
+
+   /**
+    * Frame and twist update that precedes the computations above in the controller.
+    */
+   @Benchmark
+   public void updateFramesAndTwists()
+   {
+      robot.updateFrames();
+   }
+}
@@ -0,0 +1,125 @@
+package us.ihmc.atlas.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.ihmc.SdfLoader.SDFFullHumanoidRobotModel;
+import us.ihmc.commonWalkingControlModules.configurations.WalkingControllerParameters;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControlCoreToolbox;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCoreMode;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.ControllerCoreCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.FeedbackControlCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.JointspaceAccelerationCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.MomentumRateCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.PlaneContactStateCommand;
+import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.factories.ContactableBodiesFactory;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.GeometricJacobianHolder;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.HighLevelHumanoidControllerToolbox;
+import us.ihmc.darpaRoboticsChallenge.drcRobot.DRCRobotModel;
+import us.ihmc.humanoidRobotics.bipedSupportPolygons.ContactableFoot;
+import us.ihmc.humanoidRobotics.bipedSupportPolygons.ContactablePlaneBody;
+import us.ihmc.humanoidRobotics.frames.HumanoidReferenceFrames;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.geometry.FramePoint2d;
+import us.ihmc.robotics.geometry.FrameVector;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.robotSide.SideDependentList;
+import us.ihmc.robotics.screwTheory.InverseDynamicsJoint;
+import us.ihmc.robotics.screwTheory.OneDoFJoint;
+import us.ihmc.simulationconstructionset.yoUtilities.graphics.YoGraphicsListRegistry;
+
+/**
+ * One control tick of the whole body controller core in inverse dynamics mode, with Atlas standing in double support:
+ * both feet in contact, a linear momentum rate objective and a jointspace acceleration objective for every joint.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WholeBodyControllerCoreBenchmark
+{
+   private static final double gravityZ = 9.81;
+   private static final double coefficientOfFriction = 0.8;
+
+   private AtlasBenchmarkRobot robot;
+   private WholeBodyControllerCore controllerCore;
+
+   private final ControllerCoreCommand controllerCoreCommand = new ControllerCoreCommand(WholeBodyControllerCoreMode.INVERSE_DYNAMICS);
+   private final SideDependentList<PlaneContactStateCommand> footContactStateCommands = new SideDependentList<>();
+   private final MomentumRateCommand momentumRateCommand = new MomentumRateCommand();
+   private final JointspaceAccelerationCommand jointspaceAccelerationCommand = new JointspaceAccelerationCommand();
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      robot = new AtlasBenchmarkRobot();
+      robot.setRandomState(new Random(1976L));
+
+      DRCRobotModel robotModel = robot.getRobotModel();
+      SDFFullHumanoidRobotModel fullRobotModel = robot.getFullRobotModel();
+      HumanoidReferenceFrames referenceFrames = robot.getReferenceFrames();
+      WalkingControllerParameters walkingControllerParameters = robotModel.getWalkingControllerParameters();
+
+      ContactableBodiesFactory contactableBodiesFactory = robotModel.getContactPointParameters().getContactableBodiesFactory();
+      SideDependentList<ContactableFoot> feet = contactableBodiesFactory.createFootContactableBodies(fullRobotModel, referenceFrames);
+      List<ContactablePlaneBody> contactablePlaneBodies = new ArrayList<>();
+      for (RobotSide robotSide : RobotSide.values)
+         contactablePlaneBodies.add(feet.get(robotSide));
+
+      InverseDynamicsJoint[] jointsToOptimizeFor = HighLevelHumanoidControllerToolbox.computeJointsToOptimizeFor(fullRobotModel);
+      WholeBodyControlCoreToolbox toolbox = new WholeBodyControlCoreToolbox(fullRobotModel, jointsToOptimizeFor,
+            walkingControllerParameters.getMomentumOptimizationSettings(), referenceFrames, robotModel.getControllerDT(), gravityZ,
+            new GeometricJacobianHolder(), robot.getTwistCalculator(), contactablePlaneBodies, new YoGraphicsListRegistry());
+      controllerCore = new WholeBodyControllerCore(toolbox, new FeedbackControlCommandList(), new YoVariableRegistry(getClass().getSimpleName()));
+
+      for (RobotSide robotSide : RobotSide.values)
+      {
+         ContactableFoot foot = feet.get(robotSide);
+         PlaneContactStateCommand footContactStateCommand = new PlaneContactStateCommand();
+         footContactStateCommand.setContactingRigidBody(foot.getRigidBody());
+         footContactStateCommand.setCoefficientOfFriction(coefficientOfFriction);
+         footContactStateCommand.setContactNormal(new FrameVector(foot.getSoleFrame(), 0.0, 0.0, 1.0));
+         for (FramePoint2d contactPoint : foot.getContactPoints2d())
+            footContactStateCommand.addPointInContact(contactPoint);
+         footContactStateCommands.put(robotSide, footContactStateCommand);
+      }
+
+      momentumRateCommand.setLinearMomentumRateOfChange(new FrameVector(referenceFrames.getCenterOfMassFrame(), 0.0, 0.0, 0.0));
+      momentumRateCommand.setWeights(0.0, 1.0);
+
+      for (OneDoFJoint joint : fullRobotModel.getOneDoFJoints())
+         jointspaceAccelerationCommand.addJoint(joint, 0.0);
+      jointspaceAccelerationCommand.setWeight(1.0);
+
+      controllerCore.initialize();
+   }
+
+   @Benchmark
+   public void compute()
+   {
+      for (RobotSide robotSide : RobotSide.values)
+         controllerCoreCommand.addInverseDynamicsCommand(footContactStateCommands.get(robotSide));
+      controllerCoreCommand.addInverseDynamicsCommand(momentumRateCommand);
+      controllerCoreCommand.addInverseDynamicsCommand(jointspaceAccelerationCommand);
+
+      controllerCore.submitControllerCoreCommand(controllerCoreCommand);
+      controllerCore.compute();
+   }
+}
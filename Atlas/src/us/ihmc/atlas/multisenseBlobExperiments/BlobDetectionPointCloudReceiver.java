@@ -1,5 +1,6 @@
 package us.ihmc.atlas.multisenseBlobExperiments;
 
+import us.ihmc.ihmcPerception.depthData.PointCloudBatch;
 import us.ihmc.ihmcPerception.depthData.PointCloudDataReceiverInterface;
 import us.ihmc.ihmcPerception.depthData.PointCloudSource;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
@@ -15,6 +16,11 @@ public class BlobDetectionPointCloudReceiver implements PointCloudDataReceiverIn
       System.out.println(getClass().getSimpleName() + " - receiving point cloud");
    }
 
+   @Override public void receivedPointCloudData(ReferenceFrame scanFrame, ReferenceFrame lidarFrame, PointCloudBatch points, PointCloudSource... sources)
+   {
+      System.out.println(getClass().getSimpleName() + " - receiving point cloud");
+   }
+
    @Override public ReferenceFrame getLidarFrame(String sensorNameInSdf)
    {
       return ReferenceFrame.getWorldFrame();
@@ -16,6 +16,7 @@ import us.ihmc.tools.testing.TestPlanTarget;
    us.ihmc.atlas.controllerAPI.AtlasEndToEndPelvisHeightTrajectoryMessageTest.class,
    us.ihmc.atlas.controllerAPI.AtlasEndToEndPelvisTrajectoryMessageTest.class,
    us.ihmc.atlas.controllerAPI.AtlasEndToEndWholeBodyTrajectoryMessageTest.class,
+   us.ihmc.atlas.controllers.AtlasControllerTickAllocationTest.class,
    us.ihmc.atlas.controllers.AtlasFootstepGeneratorTest.class,
    us.ihmc.atlas.initialSetup.AtlasDrivingInitialSetupTest.class
 })
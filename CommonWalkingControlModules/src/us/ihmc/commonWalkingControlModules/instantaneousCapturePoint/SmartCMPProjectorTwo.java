@@ -18,6 +18,8 @@ public class SmartCMPProjectorTwo extends CMPProjector
    private final FrameVector2d finalDesiredICPToICPDirection = new FrameVector2d(ReferenceFrame.getWorldFrame());
    private final FrameLine2d rayFromICPAwayFromFinalDesiredICP = new FrameLine2d(ReferenceFrame.getWorldFrame(), new Point2d(), new Point2d(1.0, 0.0));
    private final FramePoint2d finalDesiredICPLocation = new FramePoint2d();
+   private final FramePoint2d firstIntersection = new FramePoint2d();
+   private final FramePoint2d secondIntersection = new FramePoint2d();
 
    private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
 
@@ -77,13 +79,13 @@ public class SmartCMPProjectorTwo extends CMPProjector
          return;
 
       icpToCMPLine.setIncludingFrame(capturePoint, desiredCMP);
-      FramePoint2d[] icpToCMPIntersections = supportPolygon.intersectionWithRay(icpToCMPLine);
+      int numberOfICPToCMPIntersections = supportPolygon.intersectionWithRay(icpToCMPLine, firstIntersection, secondIntersection);
 
-      if ((icpToCMPIntersections != null) && (icpToCMPIntersections.length > 0))
+      if (numberOfICPToCMPIntersections > 0)
       {
          cmpProjectedAlongRay.set(true);
 
-         FramePoint2d closestIntersection = findClosestIntersection(icpToCMPIntersections, desiredCMP);
+         FramePoint2d closestIntersection = findClosestIntersection(numberOfICPToCMPIntersections, desiredCMP);
          desiredCMP.set(closestIntersection);
          return;
       }
@@ -97,12 +99,13 @@ public class SmartCMPProjectorTwo extends CMPProjector
          finalDesiredICPToICPDirection.sub(finalDesiredICPLocation);
          rayFromICPAwayFromFinalDesiredICP.setIncludingFrame(capturePoint, finalDesiredICPToICPDirection);
 
-         FramePoint2d[] finalDesiredICPToICPIntersections = supportPolygon.intersectionWith(rayFromICPAwayFromFinalDesiredICP);
+         int numberOfFinalDesiredICPToICPIntersections = supportPolygon.intersectionWith(rayFromICPAwayFromFinalDesiredICP, firstIntersection,
+               secondIntersection);
 
-         if (finalDesiredICPToICPIntersections != null && finalDesiredICPToICPIntersections.length > 1)
+         if (numberOfFinalDesiredICPToICPIntersections > 1)
          {
             cmpProjectedToPushTowardFinalDesiredICP.set(true);
-            FramePoint2d closestIntersection = findClosestIntersection(finalDesiredICPToICPIntersections, capturePoint);
+            FramePoint2d closestIntersection = findClosestIntersection(numberOfFinalDesiredICPToICPIntersections, capturePoint);
             desiredCMP.set(closestIntersection);
             return;
          }
@@ -117,21 +120,15 @@ public class SmartCMPProjectorTwo extends CMPProjector
       supportPolygon.orthogonalProjection(desiredCMP);
    }
 
-   private FramePoint2d findClosestIntersection(FramePoint2d[] potentialIntersections, FramePoint2d closestToPoint)
+   private FramePoint2d findClosestIntersection(int numberOfIntersections, FramePoint2d closestToPoint)
    {
-      FramePoint2d closestIntersection = null;
-      double closestDistanceSquared = Double.POSITIVE_INFINITY;
-      for (FramePoint2d framePoint2d : potentialIntersections)
-      {
-         double distanceSquared = framePoint2d.distanceSquared(closestToPoint);
-         if (distanceSquared < closestDistanceSquared)
-         {
-            closestIntersection = framePoint2d;
-            closestDistanceSquared = distanceSquared;
-         }
-      }
+      if (numberOfIntersections < 2)
+         return firstIntersection;
 
-      return closestIntersection;
+      if (secondIntersection.distanceSquared(closestToPoint) < firstIntersection.distanceSquared(closestToPoint))
+         return secondIntersection;
+      else
+         return firstIntersection;
    }
 
    @Override
@@ -1,10 +1,9 @@
 package us.ihmc.commonWalkingControlModules.momentumBasedController;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+import gnu.trove.map.hash.TLongObjectHashMap;
 import us.ihmc.robotics.nameBasedHashCode.NameBasedHashCodeTools;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 import us.ihmc.robotics.screwTheory.GeometricJacobian;
@@ -22,7 +21,8 @@ public class GeometricJacobianHolder
 {
    public static final long NULL_JACOBIAN_ID = NameBasedHashCodeTools.NULL_HASHCODE;
 
-   private final Map<Long, GeometricJacobian> nameBasedHashCodeToJacobianMap = new HashMap<>();
+   // Primitive keys, the lookups are done every control tick and boxing the ids would allocate
+   private final TLongObjectHashMap<GeometricJacobian> nameBasedHashCodeToJacobianMap = new TLongObjectHashMap<>();
    private final List<GeometricJacobian> geometricJacobians = new ArrayList<GeometricJacobian>();
    private final InverseDynamicsJoint[] temporaryToStoreJointPath = new InverseDynamicsJoint[30];
 
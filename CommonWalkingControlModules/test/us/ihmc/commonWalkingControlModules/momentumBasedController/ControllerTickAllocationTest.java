@@ -0,0 +1,210 @@
+package us.ihmc.commonWalkingControlModules.momentumBasedController;
+
+import java.util.List;
+import java.util.Random;
+
+import javax.vecmath.Vector3d;
+
+import org.junit.Test;
+
+import us.ihmc.commonWalkingControlModules.controllerCore.FeedbackControllerToolbox;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControlCoreToolbox;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.PointFeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.instantaneousCapturePoint.ICPControlGains;
+import us.ihmc.commonWalkingControlModules.instantaneousCapturePoint.ICPProportionalController;
+import us.ihmc.commonWalkingControlModules.instantaneousCapturePoint.SmartCMPProjectorTwo;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.feedbackController.taskspace.PointFeedbackController;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.MotionQPInput;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.MotionQPInputCalculator;
+import us.ihmc.robotics.controllers.PositionPIDGains;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.geometry.FrameConvexPolygon2d;
+import us.ihmc.robotics.geometry.FramePoint;
+import us.ihmc.robotics.geometry.FramePoint2d;
+import us.ihmc.robotics.geometry.FrameVector;
+import us.ihmc.robotics.geometry.FrameVector2d;
+import us.ihmc.robotics.random.RandomTools;
+import us.ihmc.robotics.referenceFrames.CenterOfMassReferenceFrame;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.screwTheory.InverseDynamicsJoint;
+import us.ihmc.robotics.screwTheory.RevoluteJoint;
+import us.ihmc.robotics.screwTheory.RigidBody;
+import us.ihmc.robotics.screwTheory.ScrewTestTools;
+import us.ihmc.robotics.screwTheory.ScrewTools;
+import us.ihmc.robotics.screwTheory.SpatialAccelerationCalculator;
+import us.ihmc.robotics.screwTheory.TwistCalculator;
+import us.ihmc.tools.testing.AllocationTestTools;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+/**
+ * Regression tests making sure the parts of the controller that run every tick do not allocate once warmed up.
+ * When one of these fails, the failure message lists where the tick allocates.
+ * The ticks that need a full robot model, such as the whole body controller core, are tested in DRCControllerTickAllocationTest.
+ */
+public class ControllerTickAllocationTest
+{
+   private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+   private static final int NUMBER_OF_JOINTS = 10;
+   private static final long MAXIMUM_BYTES_PER_TICK = 0;
+
+   @DeployableTestMethod(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testKinematicsUpdateDoesNotAllocate()
+   {
+      Random random = new Random(5641654L);
+      ScrewTestTools.RandomFloatingChain randomFloatingChain = createRandomFloatingChain(random);
+      final List<RevoluteJoint> joints = randomFloatingChain.getRevoluteJoints();
+      final RigidBody elevator = randomFloatingChain.getElevator();
+      RigidBody endEffector = joints.get(joints.size() - 1).getSuccessor();
+
+      final CenterOfMassReferenceFrame centerOfMassFrame = new CenterOfMassReferenceFrame("centerOfMassFrame", worldFrame, elevator);
+      final TwistCalculator twistCalculator = new TwistCalculator(worldFrame, elevator);
+      final SpatialAccelerationCalculator spatialAccelerationCalculator = new SpatialAccelerationCalculator(elevator, twistCalculator, 0.0, true);
+      final GeometricJacobianHolder geometricJacobianHolder = new GeometricJacobianHolder();
+      final long jacobianId = geometricJacobianHolder.getOrCreateGeometricJacobian(elevator, endEffector, elevator.getBodyFixedFrame());
+
+      Runnable tick = new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            perturbJointPositions(joints);
+            elevator.updateFramesRecursively();
+            centerOfMassFrame.update();
+            twistCalculator.compute();
+            spatialAccelerationCalculator.compute();
+            geometricJacobianHolder.compute();
+            geometricJacobianHolder.getJacobian(jacobianId);
+         }
+      };
+
+      AllocationTestTools.assertAllocationsBelow("Kinematics update", tick, MAXIMUM_BYTES_PER_TICK);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 1.5)
+   @Test(timeout = 30000)
+   public void testPointFeedbackControlTickDoesNotAllocate()
+   {
+      Random random = new Random(5641654L);
+      ScrewTestTools.RandomFloatingChain randomFloatingChain = createRandomFloatingChain(random);
+      final List<RevoluteJoint> joints = randomFloatingChain.getRevoluteJoints();
+      final RigidBody elevator = randomFloatingChain.getElevator();
+      RigidBody endEffector = joints.get(joints.size() - 1).getSuccessor();
+      FramePoint bodyFixedPointToControl = FramePoint.generateRandomFramePoint(random, endEffector.getBodyFixedFrame(), 1.0, 1.0, 1.0);
+
+      FramePoint desiredPosition = new FramePoint(worldFrame, 0.3, -0.2, 1.0);
+
+      YoVariableRegistry registry = new YoVariableRegistry("Dummy");
+      ReferenceFrame centerOfMassFrame = new CenterOfMassReferenceFrame("centerOfMassFrame", worldFrame, elevator);
+      final GeometricJacobianHolder geometricJacobianHolder = new GeometricJacobianHolder();
+      final TwistCalculator twistCalculator = new TwistCalculator(worldFrame, elevator);
+      twistCalculator.compute();
+      InverseDynamicsJoint[] jointsToOptimizeFor = ScrewTools.computeSupportAndSubtreeJoints(elevator);
+      double controlDT = 0.004;
+
+      WholeBodyControlCoreToolbox toolbox = new WholeBodyControlCoreToolbox(null, jointsToOptimizeFor, null, null, controlDT, 0.0, geometricJacobianHolder,
+            twistCalculator, null, null);
+      FeedbackControllerToolbox feedbackControllerToolbox = new FeedbackControllerToolbox(registry);
+      final PointFeedbackController pointFeedbackController = new PointFeedbackController(endEffector, toolbox, feedbackControllerToolbox, registry);
+
+      PointFeedbackControlCommand pointFeedbackControlCommand = new PointFeedbackControlCommand();
+      pointFeedbackControlCommand.set(elevator, endEffector);
+      PositionPIDGains gains = new PositionPIDGains();
+      gains.setGains(100.0, 50.0);
+      pointFeedbackControlCommand.setGains(gains);
+      pointFeedbackControlCommand.setBodyFixedPointToControl(bodyFixedPointToControl);
+      pointFeedbackControlCommand.set(desiredPosition, new FrameVector(worldFrame), new FrameVector(worldFrame));
+      pointFeedbackController.submitFeedbackControlCommand(pointFeedbackControlCommand);
+      pointFeedbackController.setEnabled(true);
+
+      int numberOfDoFs = ScrewTools.computeDegreesOfFreedom(jointsToOptimizeFor);
+      final MotionQPInput motionQPInput = new MotionQPInput(numberOfDoFs);
+      final MotionQPInputCalculator motionQPInputCalculator = new MotionQPInputCalculator(centerOfMassFrame, geometricJacobianHolder, twistCalculator,
+            toolbox.getJointIndexHandler(), 0.0, registry);
+
+      Runnable tick = new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            perturbJointPositions(joints);
+            elevator.updateFramesRecursively();
+            twistCalculator.compute();
+            geometricJacobianHolder.compute();
+
+            motionQPInputCalculator.initialize();
+            pointFeedbackController.compute();
+            motionQPInputCalculator.convertPointAccelerationCommand(pointFeedbackController.getOutput(), motionQPInput);
+         }
+      };
+
+      AllocationTestTools.assertAllocationsBelow("Point feedback control tick", tick, MAXIMUM_BYTES_PER_TICK);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testICPProportionalControlTickDoesNotAllocate()
+   {
+      YoVariableRegistry registry = new YoVariableRegistry("Dummy");
+      ICPControlGains gains = new ICPControlGains();
+      gains.setKpParallelToMotion(3.0);
+      gains.setKpOrthogonalToMotion(2.5);
+      gains.setKi(1.5);
+      gains.setKiBleedOff(0.9);
+      double controlDT = 0.004;
+      final ICPProportionalController icpProportionalController = new ICPProportionalController(gains, controlDT, new SmartCMPProjectorTwo(registry), 0.04,
+            registry);
+
+      double[][] supportPolygonVertices = { { 0.15, 0.2 }, { 0.15, -0.2 }, { -0.1, -0.2 }, { -0.1, 0.2 } };
+      final FrameConvexPolygon2d supportPolygon = new FrameConvexPolygon2d(worldFrame, supportPolygonVertices);
+
+      final FramePoint2d capturePoint = new FramePoint2d(worldFrame);
+      final FramePoint2d desiredCapturePoint = new FramePoint2d(worldFrame);
+      final FramePoint2d finalDesiredCapturePoint = new FramePoint2d(worldFrame, 0.1, -0.05);
+      final FrameVector2d desiredCapturePointVelocity = new FrameVector2d(worldFrame);
+      final double omega0 = 3.0;
+      final double[] time = { 0.0 };
+
+      Runnable tick = new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            time[0] += 0.004;
+            // Sweep the capture point in and out of the support polygon, so the CMP gets projected on some of the ticks
+            capturePoint.setIncludingFrame(worldFrame, 0.3 * Math.sin(time[0]), 0.3 * Math.cos(0.7 * time[0]));
+            desiredCapturePoint.setIncludingFrame(worldFrame, 0.05 * Math.sin(time[0]), 0.0);
+            desiredCapturePointVelocity.setIncludingFrame(worldFrame, 0.05 * Math.cos(time[0]), 0.0);
+            finalDesiredCapturePoint.changeFrame(worldFrame);
+            icpProportionalController.doProportionalControl(capturePoint, desiredCapturePoint, finalDesiredCapturePoint, desiredCapturePointVelocity, omega0,
+                  supportPolygon);
+         }
+      };
+
+      AllocationTestTools.assertAllocationsBelow("ICP proportional control tick", tick, MAXIMUM_BYTES_PER_TICK);
+   }
+
+   private static ScrewTestTools.RandomFloatingChain createRandomFloatingChain(Random random)
+   {
+      Vector3d[] jointAxes = new Vector3d[NUMBER_OF_JOINTS];
+      for (int i = 0; i < NUMBER_OF_JOINTS; i++)
+         jointAxes[i] = RandomTools.generateRandomVector(random, 1.0);
+
+      ScrewTestTools.RandomFloatingChain randomFloatingChain = new ScrewTestTools.RandomFloatingChain(random, jointAxes);
+      randomFloatingChain.setRandomPositionsAndVelocities(random);
+      randomFloatingChain.getElevator().updateFramesRecursively();
+      return randomFloatingChain;
+   }
+
+   /**
+    * Moves the joints a little every tick, so the ticks do not all compute the same thing.
+    */
+   private static void perturbJointPositions(List<RevoluteJoint> joints)
+   {
+      for (int i = 0; i < joints.size(); i++)
+      {
+         RevoluteJoint joint = joints.get(i);
+         joint.setQ(Math.sin(joint.getQ() + 0.01));
+      }
+   }
+}
@@ -1,9 +1,11 @@
 package us.ihmc.convexOptimization.quadraticProgram;
 
+import org.ejml.alg.dense.linsol.LinearSolverSafe;
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.factory.LinearSolverFactory;
 import org.ejml.interfaces.linsol.LinearSolver;
 import org.ejml.ops.CommonOps;
+import org.ejml.ops.MatrixFeatures;
 
 import gnu.trove.list.array.TIntArrayList;
 import us.ihmc.robotics.linearAlgebra.MatrixTools;
@@ -20,6 +22,14 @@ import us.ihmc.robotics.linearAlgebra.MatrixTools;
  * "An efficiently solvable quadratic program for stabilizing dynamic locomotion"
  * by Scott Kuindersma, Frank Permenter, and Russ Tedrake.
  * 
+ * When warm starting is enabled (see setUseWarmStart()) the solver is meant to be called every control tick on
+ * problems that change little from one tick to the next:
+ * Q is inverted using a Cholesky decomposition, and only when it changed since the previous solve.
+ * The rows of C*Q^-1 are computed once per solve when an inequality constraint first enters the active set, and
+ * the blocks for the variable bounds are selected from Q^-1 instead of multiplied out.
+ * The active set found in the previous solve is used as initial guess.
+ * If it does not lead to a solution within the maximum number of iterations, the solve starts over from an empty active set.
+ * 
  * @author JerryPratt
  *
  */
@@ -101,12 +111,50 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
 
    private final LinearSolver<DenseMatrix64F> solver = LinearSolverFactory.linear(0);
 
+   private boolean useWarmStart = false;
+   private final LinearSolver<DenseMatrix64F> choleskySolver = new LinearSolverSafe<DenseMatrix64F>(LinearSolverFactory.symmPosDef(0));
+   private final DenseMatrix64F previousQuadraticCostQMatrix = new DenseMatrix64F(0, 0);
+
+   // Rows of C * Q^-1, computed when the inequality constraint first becomes active during a solve
+   private final DenseMatrix64F CQInverse = new DenseMatrix64F(0, 0);
+   private boolean[] isCQInverseRowComputed = new boolean[0];
+   private final DenseMatrix64F inequalityConstraintRow = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F inequalityConstraintRowQInverse = new DenseMatrix64F(0, 0);
+
+   // Problem size of the previous solve. The active set is only reused if it matches.
+   private int previousNumberOfVariables = -1;
+   private int previousNumberOfInequalityConstraints = -1;
+   private int previousNumberOfLowerBoundConstraints = -1;
+   private int previousNumberOfUpperBoundConstraints = -1;
+
    @Override
    public void setMaxNumberOfIterations(int maxNumberOfIterations)
    {
       this.maxNumberOfIterations = maxNumberOfIterations;
    }
 
+   /**
+    * Reuse the active set and the factorization of Q from the previous solve.
+    * The solution is the same as without warm start, but usually found in fewer iterations.
+    */
+   public void setUseWarmStart(boolean useWarmStart)
+   {
+      this.useWarmStart = useWarmStart;
+      previousQuadraticCostQMatrix.reshape(0, 0);
+      resetActiveSet();
+   }
+
+   /**
+    * Forget the active set of the previous solve, the next solve starts with no active inequality constraints.
+    */
+   public void resetActiveSet()
+   {
+      activeInequalityIndices.reset();
+      activeUpperBoundIndices.reset();
+      activeLowerBoundIndices.reset();
+      previousNumberOfVariables = -1;
+   }
+
    @Override
    public void clear()
    {
@@ -325,15 +373,6 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
    public int solve(DenseMatrix64F solutionToPack, DenseMatrix64F lagrangeEqualityConstraintMultipliersToPack, DenseMatrix64F lagrangeInequalityConstraintMultipliersToPack,
          DenseMatrix64F lagrangeLowerBoundConstraintMultipliersToPack, DenseMatrix64F lagrangeUpperBoundConstraintMultipliersToPack)
    {
-      CBar.reshape(0, 0);
-      CHat.reshape(0, 0);
-      DBar.reshape(0, 0);
-      DHat.reshape(0, 0);
-
-      activeInequalityIndices.reset();
-      activeUpperBoundIndices.reset();
-      activeLowerBoundIndices.reset();
-
       int numberOfIterations = 0;
 
       int numberOfVariables = quadraticCostQMatrix.getNumRows();
@@ -342,6 +381,23 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
       int numberOfLowerBoundConstraints = variableLowerBounds.getNumRows();
       int numberOfUpperBoundConstraints = variableUpperBounds.getNumRows();
 
+      boolean warmStart = useWarmStart && numberOfVariables == previousNumberOfVariables && numberOfInequalityConstraints == previousNumberOfInequalityConstraints
+            && numberOfLowerBoundConstraints == previousNumberOfLowerBoundConstraints && numberOfUpperBoundConstraints == previousNumberOfUpperBoundConstraints;
+
+      previousNumberOfVariables = numberOfVariables;
+      previousNumberOfInequalityConstraints = numberOfInequalityConstraints;
+      previousNumberOfLowerBoundConstraints = numberOfLowerBoundConstraints;
+      previousNumberOfUpperBoundConstraints = numberOfUpperBoundConstraints;
+
+      if (warmStart)
+      {
+         computeActiveSetMatrices();
+      }
+      else
+      {
+         clearActiveSet();
+      }
+
       solutionToPack.reshape(numberOfVariables, 1);
       lagrangeEqualityConstraintMultipliersToPack.reshape(numberOfEqualityConstraints, 1);
       lagrangeEqualityConstraintMultipliersToPack.zero();
@@ -354,31 +410,76 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
 
       computeQInverseAndAQInverse();
 
+      if (useWarmStart)
+      {
+         CQInverse.reshape(numberOfInequalityConstraints, numberOfVariables);
+         if (isCQInverseRowComputed.length < numberOfInequalityConstraints)
+            isCQInverseRowComputed = new boolean[numberOfInequalityConstraints];
+         for (int i = 0; i < numberOfInequalityConstraints; i++)
+            isCQInverseRowComputed[i] = false;
+      }
+
       solveEqualityConstrainedSubproblemEfficiently(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack, lagrangeLowerBoundConstraintMultipliersToPack,
             lagrangeUpperBoundConstraintMultipliersToPack);
-      
+
+      if (warmStart && containsNaN(solutionToPack))
+      {
+         // The previous active set does not fit this problem, start over from an empty one.
+         warmStart = false;
+         clearActiveSet();
+         solveEqualityConstrainedSubproblemEfficiently(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack, lagrangeLowerBoundConstraintMultipliersToPack,
+               lagrangeUpperBoundConstraintMultipliersToPack);
+      }
+
 //      System.out.println(numberOfInequalityConstraints + ", " + numberOfLowerBoundConstraints + ", " + numberOfUpperBoundConstraints);
       if ((numberOfInequalityConstraints == 0) && (numberOfLowerBoundConstraints == 0) && (numberOfUpperBoundConstraints == 0))
          return numberOfIterations;
 
       // Test the inequality constraints:
 
-      for (int i = 0; i < maxNumberOfIterations; i++)
+      int numberOfAttempts = warmStart ? 2 : 1;
+      for (int attempt = 0; attempt < numberOfAttempts; attempt++)
       {
-         boolean activeSetWasModified = modifyActiveSetAndTryAgain(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack,
-               lagrangeLowerBoundConstraintMultipliersToPack, lagrangeUpperBoundConstraintMultipliersToPack);
-         numberOfIterations++;
+         if (attempt > 0)
+         {
+            // Starting from the previous active set did not converge, start over from an empty one like a cold solve.
+            clearActiveSet();
+            solveEqualityConstrainedSubproblemEfficiently(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack, lagrangeLowerBoundConstraintMultipliersToPack,
+                  lagrangeUpperBoundConstraintMultipliersToPack);
+         }
+
+         for (int i = 0; i < maxNumberOfIterations; i++)
+         {
+            boolean activeSetWasModified = modifyActiveSetAndTryAgain(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack,
+                  lagrangeLowerBoundConstraintMultipliersToPack, lagrangeUpperBoundConstraintMultipliersToPack);
+            numberOfIterations++;
 
-         if (!activeSetWasModified)
-            return numberOfIterations;
+            if (!activeSetWasModified)
+               return numberOfIterations;
+         }
       }
 
       for (int i=0; i<numberOfVariables; i++)
          solutionToPack.set(i, 0, Double.NaN);
 
+      if (useWarmStart)
+         resetActiveSet();
+
       return numberOfIterations;
    }
 
+   private void clearActiveSet()
+   {
+      CBar.reshape(0, 0);
+      CHat.reshape(0, 0);
+      DBar.reshape(0, 0);
+      DHat.reshape(0, 0);
+
+      activeInequalityIndices.reset();
+      activeUpperBoundIndices.reset();
+      activeLowerBoundIndices.reset();
+   }
+
    private void computeQInverseAndAQInverse()
    {
       int numberOfVariables = quadraticCostQMatrix.getNumRows();
@@ -386,10 +487,33 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
 
       ATranspose.reshape(linearEqualityConstraintsAMatrix.getNumCols(), linearEqualityConstraintsAMatrix.getNumRows());
       CommonOps.transpose(linearEqualityConstraintsAMatrix, ATranspose);
-      QInverse.reshape(numberOfVariables, numberOfVariables);
 
-      solver.setA(quadraticCostQMatrix);
-      solver.invert(QInverse);
+      if (useWarmStart)
+      {
+         if (QInverse.getNumRows() != numberOfVariables || !MatrixFeatures.isIdentical(quadraticCostQMatrix, previousQuadraticCostQMatrix, 0.0))
+         {
+            QInverse.reshape(numberOfVariables, numberOfVariables);
+
+            if (choleskySolver.setA(quadraticCostQMatrix))
+            {
+               choleskySolver.invert(QInverse);
+            }
+            else
+            {
+               // Not positive definite
+               solver.setA(quadraticCostQMatrix);
+               solver.invert(QInverse);
+            }
+            previousQuadraticCostQMatrix.set(quadraticCostQMatrix);
+         }
+      }
+      else
+      {
+         QInverse.reshape(numberOfVariables, numberOfVariables);
+
+         solver.setA(quadraticCostQMatrix);
+         solver.invert(QInverse);
+      }
 
       AQInverse.reshape(numberOfEqualityConstraints, numberOfVariables);
       QInverseATranspose.reshape(numberOfVariables, numberOfEqualityConstraints);
@@ -481,6 +605,134 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
       }
    }
 
+   /**
+    * Same as computeCBarTempMatrices(), using the cached rows of C * Q^-1 and the symmetry of Q^-1.
+    */
+   private void computeCBarTempMatricesFromCachedRows()
+   {
+      int numberOfVariables = quadraticCostQMatrix.getNumRows();
+      int numberOfActiveInequalityConstraints = activeInequalityIndices.size();
+
+      if (numberOfActiveInequalityConstraints > 0)
+      {
+         CBarTranspose.reshape(CBar.getNumCols(), CBar.getNumRows());
+         CommonOps.transpose(CBar, CBarTranspose);
+
+         CBarQInverse.reshape(numberOfActiveInequalityConstraints, numberOfVariables);
+         for (int i = 0; i < numberOfActiveInequalityConstraints; i++)
+         {
+            int inequalityConstraintIndex = activeInequalityIndices.get(i);
+            if (!isCQInverseRowComputed[inequalityConstraintIndex])
+            {
+               inequalityConstraintRow.reshape(1, numberOfVariables);
+               inequalityConstraintRowQInverse.reshape(1, numberOfVariables);
+               CommonOps.extract(linearInequalityConstraintsCMatrixO, inequalityConstraintIndex, inequalityConstraintIndex + 1, 0, numberOfVariables, inequalityConstraintRow, 0, 0);
+               CommonOps.mult(inequalityConstraintRow, QInverse, inequalityConstraintRowQInverse);
+               CommonOps.insert(inequalityConstraintRowQInverse, CQInverse, inequalityConstraintIndex, 0);
+               isCQInverseRowComputed[inequalityConstraintIndex] = true;
+            }
+            CommonOps.extract(CQInverse, inequalityConstraintIndex, inequalityConstraintIndex + 1, 0, numberOfVariables, CBarQInverse, i, 0);
+         }
+
+         QInverseCBarTranspose.reshape(numberOfVariables, numberOfActiveInequalityConstraints);
+         CommonOps.transpose(CBarQInverse, QInverseCBarTranspose);
+
+         CBarQInverseATranspose.reshape(numberOfActiveInequalityConstraints, QInverseATranspose.getNumCols());
+         CommonOps.mult(CBarQInverse, ATranspose, CBarQInverseATranspose);
+
+         AQInverseCBarTranspose.reshape(CBarQInverseATranspose.getNumCols(), numberOfActiveInequalityConstraints);
+         CommonOps.transpose(CBarQInverseATranspose, AQInverseCBarTranspose);
+
+         CBarQInverseCBarTranspose.reshape(numberOfActiveInequalityConstraints, numberOfActiveInequalityConstraints);
+         CommonOps.mult(CBarQInverse, CBarTranspose, CBarQInverseCBarTranspose);
+      }
+      else
+      {
+         CBarTranspose.reshape(0, 0);
+         AQInverseCBarTranspose.reshape(0, 0);
+         CBarQInverseATranspose.reshape(0, 0);
+         CBarQInverse.reshape(0, 0);
+         QInverseCBarTranspose.reshape(0, 0);
+         CBarQInverseCBarTranspose.reshape(0, 0);
+      }
+   }
+
+   /**
+    * Same as computeCHatTempMatrices(). The rows of CHat are unit vectors, so the products are rows and entries of Q^-1.
+    * Assumes computeCBarTempMatricesFromCachedRows() was called first.
+    */
+   private void computeCHatTempMatricesBySelection()
+   {
+      int numberOfVariables = quadraticCostQMatrix.getNumRows();
+      int numberOfOriginalEqualityConstraints = linearEqualityConstraintsAMatrix.getNumRows();
+      int numberOfActiveInequalityConstraints = activeInequalityIndices.size();
+      int numberOfActiveLowerBoundConstraints = activeLowerBoundIndices.size();
+      int numberOfActiveBoundConstraints = numberOfActiveLowerBoundConstraints + activeUpperBoundIndices.size();
+
+      if (numberOfActiveBoundConstraints > 0)
+      {
+         CHatTranspose.reshape(CHat.getNumCols(), CHat.getNumRows());
+         CommonOps.transpose(CHat, CHatTranspose);
+
+         CHatQInverse.reshape(numberOfActiveBoundConstraints, numberOfVariables);
+         CHatQInverseATranspose.reshape(numberOfActiveBoundConstraints, numberOfOriginalEqualityConstraints);
+         CHatQInverseCHatTranspose.reshape(numberOfActiveBoundConstraints, numberOfActiveBoundConstraints);
+         CHatQInverseCBarTranspose.reshape(numberOfActiveBoundConstraints, numberOfActiveInequalityConstraints);
+
+         for (int row = 0; row < numberOfActiveBoundConstraints; row++)
+         {
+            int rowVariableIndex = getActiveBoundVariableIndex(row);
+            double rowSign = getActiveBoundSign(row);
+
+            for (int j = 0; j < numberOfVariables; j++)
+               CHatQInverse.set(row, j, rowSign * QInverse.get(rowVariableIndex, j));
+
+            for (int j = 0; j < numberOfOriginalEqualityConstraints; j++)
+               CHatQInverseATranspose.set(row, j, rowSign * QInverseATranspose.get(rowVariableIndex, j));
+
+            for (int col = 0; col < numberOfActiveBoundConstraints; col++)
+               CHatQInverseCHatTranspose.set(row, col, rowSign * getActiveBoundSign(col) * QInverse.get(rowVariableIndex, getActiveBoundVariableIndex(col)));
+
+            for (int j = 0; j < numberOfActiveInequalityConstraints; j++)
+               CHatQInverseCBarTranspose.set(row, j, rowSign * QInverseCBarTranspose.get(rowVariableIndex, j));
+         }
+
+         QInverseCHatTranspose.reshape(numberOfVariables, numberOfActiveBoundConstraints);
+         CommonOps.transpose(CHatQInverse, QInverseCHatTranspose);
+
+         AQInverseCHatTranspose.reshape(numberOfOriginalEqualityConstraints, numberOfActiveBoundConstraints);
+         CommonOps.transpose(CHatQInverseATranspose, AQInverseCHatTranspose);
+
+         CBarQInverseCHatTranspose.reshape(numberOfActiveInequalityConstraints, numberOfActiveBoundConstraints);
+         CommonOps.transpose(CHatQInverseCBarTranspose, CBarQInverseCHatTranspose);
+      }
+      else
+      {
+         CHatTranspose.reshape(0, 0);
+         AQInverseCHatTranspose.reshape(0, 0);
+         CHatQInverseATranspose.reshape(0, 0);
+         CHatQInverse.reshape(0, 0);
+         QInverseCHatTranspose.reshape(0, 0);
+         CHatQInverseCHatTranspose.reshape(0, 0);
+         CBarQInverseCHatTranspose.reshape(0, 0);
+         CHatQInverseCBarTranspose.reshape(0, 0);
+      }
+   }
+
+   private int getActiveBoundVariableIndex(int rowInCHat)
+   {
+      int numberOfActiveLowerBoundConstraints = activeLowerBoundIndices.size();
+      if (rowInCHat < numberOfActiveLowerBoundConstraints)
+         return activeLowerBoundIndices.get(rowInCHat);
+      else
+         return activeUpperBoundIndices.get(rowInCHat - numberOfActiveLowerBoundConstraints);
+   }
+
+   private double getActiveBoundSign(int rowInCHat)
+   {
+      return rowInCHat < activeLowerBoundIndices.size() ? -1.0 : 1.0;
+   }
+
    private boolean modifyActiveSetAndTryAgain(DenseMatrix64F solutionToPack, DenseMatrix64F lagrangeEqualityConstraintMultipliersToPack, DenseMatrix64F lagrangeInequalityConstraintMultipliersToPack,
          DenseMatrix64F lagrangeLowerBoundConstraintMultipliersToPack, DenseMatrix64F lagrangeUpperBoundConstraintMultipliersToPack)
    {
@@ -598,6 +850,18 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
       activeUpperBoundIndices.addAll(upperBoundIndicesToAddToActiveSet);
       activeUpperBoundIndices.removeAll(upperBoundIndicesToRemoveFromActiveSet);
 
+      computeActiveSetMatrices();
+
+      solveEqualityConstrainedSubproblemEfficiently(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack, lagrangeLowerBoundConstraintMultipliersToPack,
+            lagrangeUpperBoundConstraintMultipliersToPack);
+
+      return true;
+   }
+
+   private void computeActiveSetMatrices()
+   {
+      int numberOfVariables = quadraticCostQMatrix.getNumRows();
+
       // Add active set constraints as equality constraints:
       int sizeOfActiveSet = activeInequalityIndices.size();
 
@@ -642,11 +906,6 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
          DHat.set(row, 0, variableUpperBounds.get(upperBoundsConstraintIndex));
          row++;
       }
-
-      solveEqualityConstrainedSubproblemEfficiently(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack, lagrangeLowerBoundConstraintMultipliersToPack,
-            lagrangeUpperBoundConstraintMultipliersToPack);
-
-      return true;
    }
 
    private boolean containsNaN(DenseMatrix64F solution)
@@ -682,8 +941,16 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
          return;
       }
 
-      computeCBarTempMatrices();
-      computeCHatTempMatrices();
+      if (useWarmStart)
+      {
+         computeCBarTempMatricesFromCachedRows();
+         computeCHatTempMatricesBySelection();
+      }
+      else
+      {
+         computeCBarTempMatrices();
+         computeCHatTempMatrices();
+      }
 
       bigMatrixForLagrangeMultiplierSolution.reshape(numberOfAugmentedEqualityConstraints, numberOfAugmentedEqualityConstraints);
       bigVectorForLagrangeMultiplierSolution.reshape(numberOfAugmentedEqualityConstraints, 1);
@@ -732,8 +999,16 @@ public class SimpleEfficientActiveSetQPSolver implements SimpleActiveSetQPSolver
       }
 
       augmentedLagrangeMultipliers.reshape(numberOfAugmentedEqualityConstraints, 1);
-      solver.setA(bigMatrixForLagrangeMultiplierSolution);
-      solver.solve(bigVectorForLagrangeMultiplierSolution, augmentedLagrangeMultipliers);
+      // The matrix is positive definite as long as the active constraints are linearly independent
+      if (useWarmStart && choleskySolver.setA(bigMatrixForLagrangeMultiplierSolution))
+      {
+         choleskySolver.solve(bigVectorForLagrangeMultiplierSolution, augmentedLagrangeMultipliers);
+      }
+      else
+      {
+         solver.setA(bigMatrixForLagrangeMultiplierSolution);
+         solver.solve(bigVectorForLagrangeMultiplierSolution, augmentedLagrangeMultipliers);
+      }
 
       ATransposeAndCTranspose.reshape(numberOfVariables, numberOfAugmentedEqualityConstraints);
       CommonOps.insert(ATranspose, ATransposeAndCTranspose, 0, 0);
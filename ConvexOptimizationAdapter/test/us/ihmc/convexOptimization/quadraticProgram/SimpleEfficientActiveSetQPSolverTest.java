@@ -1,5 +1,17 @@
 package us.ihmc.convexOptimization.quadraticProgram;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+import org.junit.Test;
+
+import us.ihmc.robotics.random.RandomTools;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
 public class SimpleEfficientActiveSetQPSolverTest extends AbstractSimpleActiveSetQPSolverTest
 {
    @Override
@@ -7,4 +19,108 @@ public class SimpleEfficientActiveSetQPSolverTest extends AbstractSimpleActiveSe
    {
       return new SimpleEfficientActiveSetQPSolver();
    }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testWarmStartGivesSameSolution()
+   {
+      Random random = new Random(2016L);
+
+      SimpleEfficientActiveSetQPSolver coldSolver = new SimpleEfficientActiveSetQPSolver();
+      SimpleEfficientActiveSetQPSolver warmSolver = new SimpleEfficientActiveSetQPSolver();
+      warmSolver.setUseWarmStart(true);
+
+      int numberOfVariables = 20;
+      int numberOfEqualityConstraints = 4;
+      int numberOfInequalityConstraints = 10;
+
+      DenseMatrix64F costQuadraticMatrix = RandomTools.generateRandomMatrix(random, numberOfVariables, numberOfVariables);
+      DenseMatrix64F identity = CommonOps.identity(numberOfVariables, numberOfVariables);
+      CommonOps.scale(numberOfVariables, identity);
+      CommonOps.addEquals(costQuadraticMatrix, identity);
+
+      DenseMatrix64F costLinearVector = RandomTools.generateRandomMatrix(random, numberOfVariables, 1, -10.0, 10.0);
+      DenseMatrix64F linearEqualityConstraintsAMatrix = RandomTools.generateRandomMatrix(random, numberOfEqualityConstraints, numberOfVariables);
+      DenseMatrix64F linearEqualityConstraintsBVector = RandomTools.generateRandomMatrix(random, numberOfEqualityConstraints, 1);
+      DenseMatrix64F linearInequalityConstraintsCMatrix = RandomTools.generateRandomMatrix(random, numberOfInequalityConstraints, numberOfVariables);
+      DenseMatrix64F linearInequalityConstraintsDVector = RandomTools.generateRandomMatrix(random, numberOfInequalityConstraints, 1);
+      DenseMatrix64F variableLowerBounds = RandomTools.generateRandomMatrix(random, numberOfVariables, 1, -5.0, -0.01);
+      DenseMatrix64F variableUpperBounds = RandomTools.generateRandomMatrix(random, numberOfVariables, 1, 0.01, 5.0);
+
+      DenseMatrix64F coldSolution = new DenseMatrix64F(0, 0);
+      DenseMatrix64F warmSolution = new DenseMatrix64F(0, 0);
+
+      int numberOfTicks = 200;
+      int numberOfComparedSolutions = 0;
+      for (int tick = 0; tick < numberOfTicks; tick++)
+      {
+         // Slowly changing problem, like a controller solving a QP every tick
+         for (int i = 0; i < numberOfVariables; i++)
+            costLinearVector.add(i, 0, RandomTools.generateRandomDouble(random, 0.05));
+
+         SimpleEfficientActiveSetQPSolver[] solvers = new SimpleEfficientActiveSetQPSolver[] {coldSolver, warmSolver};
+         for (SimpleEfficientActiveSetQPSolver solver : solvers)
+         {
+            solver.clear();
+            solver.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, 0.0);
+            solver.setLinearEqualityConstraints(linearEqualityConstraintsAMatrix, linearEqualityConstraintsBVector);
+            solver.setLinearInequalityConstraints(linearInequalityConstraintsCMatrix, linearInequalityConstraintsDVector);
+            solver.setVariableBounds(variableLowerBounds, variableUpperBounds);
+         }
+
+         coldSolver.solve(coldSolution);
+         warmSolver.solve(warmSolution);
+
+         if (Double.isNaN(coldSolution.get(0)) || Double.isNaN(warmSolution.get(0)))
+            continue;
+
+         numberOfComparedSolutions++;
+         for (int i = 0; i < numberOfVariables; i++)
+            assertEquals(coldSolution.get(i), warmSolution.get(i), 1e-6);
+
+         // Same problem again, the previous active set is the solution
+         int numberOfIterations = warmSolver.solve(warmSolution);
+         assertEquals(1, numberOfIterations);
+         for (int i = 0; i < numberOfVariables; i++)
+            assertEquals(coldSolution.get(i), warmSolution.get(i), 1e-6);
+      }
+
+      assertTrue(numberOfComparedSolutions > numberOfTicks / 2);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testWarmStartFallsBackToColdStartWhenHittingTheIterationLimit()
+   {
+      SimpleEfficientActiveSetQPSolver solver = new SimpleEfficientActiveSetQPSolver();
+      solver.setUseWarmStart(true);
+      solver.setMaxNumberOfIterations(2);
+
+      // Minimize (x - 2)^2 + (y - 2)^2 in the box [-1, 1] x [-1, 1], the upper bounds are active
+      DenseMatrix64F solution = new DenseMatrix64F(0, 0);
+      solveDistanceToGoalInBox(solver, 2.0, solution);
+      assertEquals(1.0, solution.get(0), 1e-7);
+      assertEquals(1.0, solution.get(1), 1e-7);
+
+      // Goal at (-2, -2). Starting from the active upper bounds takes three iterations: removing the upper bounds, adding the
+      // lower bounds, and checking the solution. Starting from an empty active set only takes two.
+      int numberOfIterations = solveDistanceToGoalInBox(solver, -2.0, solution);
+      assertEquals(-1.0, solution.get(0), 1e-7);
+      assertEquals(-1.0, solution.get(1), 1e-7);
+      assertEquals(4, numberOfIterations);
+
+      // The active set of the fallback is used for the next solve
+      numberOfIterations = solveDistanceToGoalInBox(solver, -2.0, solution);
+      assertEquals(-1.0, solution.get(0), 1e-7);
+      assertEquals(-1.0, solution.get(1), 1e-7);
+      assertEquals(1, numberOfIterations);
+   }
+
+   private static int solveDistanceToGoalInBox(SimpleEfficientActiveSetQPSolver solver, double goal, DenseMatrix64F solutionToPack)
+   {
+      solver.clear();
+      solver.setQuadraticCostFunction(new double[][] {{2.0, 0.0}, {0.0, 2.0}}, new double[] {-2.0 * goal, -2.0 * goal}, 2.0 * goal * goal);
+      solver.setVariableBounds(new double[] {-1.0, -1.0}, new double[] {1.0, 1.0});
+      return solver.solve(solutionToPack);
+   }
 }
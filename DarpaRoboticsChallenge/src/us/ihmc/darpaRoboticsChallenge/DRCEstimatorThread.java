@@ -393,6 +393,17 @@ public class DRCEstimatorThread implements MultiThreadedRobotControlElement
          drcStateEstimator.setExternalPelvisCorrectorSubscriber(externalPelvisPoseSubscriber);
    }
 
+   /**
+    * Send the robot configuration as CompressedRobotConfigurationData. Every client of the controller has to decompress it.
+    */
+   public void enableRobotConfigurationDataCompression(int keyframeInterval)
+   {
+      if (poseCommunicator != null)
+      {
+         poseCommunicator.enableCompression(keyframeInterval);
+      }
+   }
+
    public List<? extends IMUSensorReadOnly> getSimulatedIMUOutput()
    {
       return sensorOutputMapReadOnly.getIMUProcessedOutputs();
@@ -2,6 +2,10 @@ package us.ihmc.darpaRoboticsChallenge;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+
+import javax.vecmath.Point3d;
+import javax.vecmath.Vector3d;
 
 import us.ihmc.SdfLoader.SDFRobot;
 import us.ihmc.communication.net.LocalObjectCommunicator;
@@ -10,11 +14,24 @@ import us.ihmc.communication.packets.SimulatedLidarScanPacket;
 import us.ihmc.graphics3DAdapter.GPULidar;
 import us.ihmc.graphics3DAdapter.GPULidarListener;
 import us.ihmc.graphics3DAdapter.Graphics3DAdapter;
+import us.ihmc.ihmcPerception.depthData.CollisionBoxProvider;
+import us.ihmc.ihmcPerception.depthData.collisionShapes.CollisionBox;
+import us.ihmc.ihmcPerception.depthData.collisionShapes.CollisionCylinder;
+import us.ihmc.ihmcPerception.depthData.collisionShapes.CollisionShape;
+import us.ihmc.ihmcPerception.depthData.collisionShapes.CollisionSphere;
 import us.ihmc.robotics.geometry.RigidBodyTransform;
+import us.ihmc.robotics.geometry.TransformTools;
+import us.ihmc.robotics.geometry.shapes.Box3d;
+import us.ihmc.robotics.geometry.shapes.Cylinder3d;
+import us.ihmc.robotics.geometry.shapes.Shape3d;
+import us.ihmc.robotics.geometry.shapes.Sphere3d;
 import us.ihmc.robotics.lidar.LidarScanParameters;
 import us.ihmc.robotics.time.TimeTools;
 import us.ihmc.sensorProcessing.parameters.DRCRobotLidarParameters;
+import us.ihmc.simulationconstructionset.Joint;
+import us.ihmc.simulationconstructionset.simulatedSensors.CPURayCastLidar;
 import us.ihmc.simulationconstructionset.simulatedSensors.LidarMount;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObject3D;
 import us.ihmc.tools.TimestampProvider;
 import us.ihmc.wholeBodyController.DRCRobotJointMap;
 
@@ -62,6 +79,75 @@ public class DRCLidar
     }
  }
 
+   /**
+    * Sets up a lidar that ray casts on the CPU, for simulations without graphics.
+    * @param terrain terrain the rays are cast against
+    * @param collisionBoxProvider collision shapes of the robot, so the robot hides the terrain behind it. Can be null.
+    */
+   public static CPURayCastLidar setupHeadlessDRCRobotLidar(SDFRobot robot, TerrainObject3D terrain, CollisionBoxProvider collisionBoxProvider,
+         LocalObjectCommunicator objectCommunicator, DRCRobotLidarParameters lidarParams)
+   {
+      LidarMount lidarMount = getSensor(robot, lidarParams.getSensorNameInSdf());
+      LidarScanParameters lidarScanParameters = lidarMount.getLidarScanParameters();
+
+      // Leave some cores to the simulation and the controller
+      int numberOfThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+      DRCLidarCallback callback = new DRCLidarCallback(objectCommunicator, lidarScanParameters, lidarParams.getSensorId());
+      CPURayCastLidar lidar = new CPURayCastLidar(lidarMount.getName(), lidarScanParameters, terrain, numberOfThreads);
+      if (collisionBoxProvider != null)
+         addRobotCollisionShapes(lidar, robot.getRootJoints(), collisionBoxProvider);
+      lidar.addGPULidarListener(callback);
+      lidarMount.setLidar(lidar);
+
+      return lidar;
+   }
+
+   private static void addRobotCollisionShapes(CPURayCastLidar lidar, List<Joint> joints, CollisionBoxProvider collisionBoxProvider)
+   {
+      for (Joint joint : joints)
+      {
+         List<CollisionShape> collisionShapes = collisionBoxProvider.getCollisionMesh(joint.getName());
+
+         if (collisionShapes != null)
+         {
+            for (CollisionShape collisionShape : collisionShapes)
+               lidar.addRobotCollisionShape(joint, convertCollisionShape(collisionShape));
+         }
+
+         addRobotCollisionShapes(lidar, joint.getChildrenJoints(), collisionBoxProvider);
+      }
+   }
+
+   /**
+    * The collision shapes are expressed in the frame after their joint, same as they are used by the depth data filters.
+    */
+   private static Shape3d convertCollisionShape(CollisionShape collisionShape)
+   {
+      RigidBodyTransform pose = collisionShape.getPose();
+
+      if (collisionShape instanceof CollisionBox)
+      {
+         CollisionBox box = (CollisionBox) collisionShape;
+         return new Box3d(pose, 2.0 * box.getxExtent(), 2.0 * box.getyExtent(), 2.0 * box.getzExtent());
+      }
+      else if (collisionShape instanceof CollisionCylinder)
+      {
+         // Collision cylinders are centered on their pose, Cylinder3d starts at the bottom face
+         CollisionCylinder cylinder = (CollisionCylinder) collisionShape;
+         RigidBodyTransform bottomPose = TransformTools.transformLocalZ(pose, -cylinder.getLength() / 2.0);
+         return new Cylinder3d(bottomPose, cylinder.getLength(), cylinder.getRadius());
+      }
+      else if (collisionShape instanceof CollisionSphere)
+      {
+         Vector3d center = new Vector3d();
+         pose.getTranslation(center);
+         return new Sphere3d(new Point3d(center), ((CollisionSphere) collisionShape).getRadius());
+      }
+
+      throw new IllegalArgumentException("Unknown collision shape " + collisionShape.getClass().getSimpleName());
+   }
+
    public static class DRCLidarCallback implements GPULidarListener
    {
       private final ObjectCommunicator objectCommunicator;
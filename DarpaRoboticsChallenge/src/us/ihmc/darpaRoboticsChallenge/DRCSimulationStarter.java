@@ -44,6 +44,7 @@ import us.ihmc.sensorProcessing.parameters.DRCRobotLidarParameters;
 import us.ihmc.sensorProcessing.parameters.DRCRobotSensorInformation;
 import us.ihmc.simulationconstructionset.PlaybackListener;
 import us.ihmc.simulationconstructionset.SimulationConstructionSet;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObject3D;
 import us.ihmc.simulationconstructionset.util.simulationRunner.ControllerFailureListener;
 import us.ihmc.tools.TimestampProvider;
 import us.ihmc.tools.processManagement.JavaProcessSpawner;
@@ -69,6 +70,7 @@ public class DRCSimulationStarter implements AbstractSimulationStarter
 
    private ScriptBasedControllerCommandGenerator scriptBasedControllerCommandGenerator;
    private boolean createSCSSimulatedSensors;
+   private TerrainObject3D headlessLidarTerrain = null;
 
    private boolean deactivateWalkingFallDetector = false;
    
@@ -178,6 +180,15 @@ public class DRCSimulationStarter implements AbstractSimulationStarter
       scsInitialSetup.setRunMultiThreaded(runMultiThreaded);
    }
 
+   /**
+    * Terrain the lidars cast their rays against on the CPU when the simulation has no graphics. Without it, a simulation without graphics has no lidar scans.
+    * The lidars only read the terrain, so it can be the terrain of the environment.
+    */
+   public void setHeadlessLidarTerrain(TerrainObject3D headlessLidarTerrain)
+   {
+      this.headlessLidarTerrain = headlessLidarTerrain;
+   }
+
    public void setupControllerNetworkSubscriber(boolean setup)
    {
       setupControllerNetworkSubscriber = setup;
@@ -448,7 +459,11 @@ public class DRCSimulationStarter implements AbstractSimulationStarter
 
          for (DRCRobotLidarParameters lidarParams : sensorInformation.getLidarParameters())
          {
-            DRCLidar.setupDRCRobotLidar(robot, graphics3dAdapter, scsSensorOutputPacketCommunicator, jointMap, lidarParams, timeStampProvider, true);
+            if (graphics3dAdapter == null && headlessLidarTerrain != null)
+               DRCLidar.setupHeadlessDRCRobotLidar(robot, headlessLidarTerrain, robotModel.getCollisionBoxProvider(), scsSensorOutputPacketCommunicator,
+                                                   lidarParams);
+            else
+               DRCLidar.setupDRCRobotLidar(robot, graphics3dAdapter, scsSensorOutputPacketCommunicator, jointMap, lidarParams, timeStampProvider, true);
          }
       }
 
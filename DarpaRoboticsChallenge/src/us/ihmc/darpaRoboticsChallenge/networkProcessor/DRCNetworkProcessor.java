@@ -7,6 +7,7 @@ import java.util.Map.Entry;
 import us.ihmc.communication.PacketRouter;
 import us.ihmc.communication.configuration.NetworkParameterKeys;
 import us.ihmc.communication.configuration.NetworkParameters;
+import us.ihmc.communication.net.PacketConsumer;
 import us.ihmc.communication.packetCommunicator.PacketCommunicator;
 import us.ihmc.communication.packets.PacketDestination;
 import us.ihmc.communication.packets.TextToSpeechPacket;
@@ -22,6 +23,9 @@ import us.ihmc.humanoidBehaviors.IHMCHumanoidBehaviorManager;
 import us.ihmc.humanoidRobotics.kryo.IHMCCommunicationKryoNetClassList;
 import us.ihmc.multicastLogDataProtocol.modelLoaders.LogModelProvider;
 import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.CompressedRobotConfigurationData;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+import us.ihmc.sensorProcessing.communication.producers.RobotConfigurationDataDecompressor;
 import us.ihmc.sensorProcessing.parameters.DRCRobotSensorInformation;
 import us.ihmc.tools.io.printing.PrintTools;
 
@@ -314,6 +318,17 @@ public class DRCNetworkProcessor
          }
          
          packetRouter.attachPacketCommunicator(PacketDestination.CONTROLLER, controllerPacketCommunicator);
+
+         // When the controller compresses the robot configuration, decompress it once here so the modules and the UI keep receiving RobotConfigurationData
+         packetRouter.disableRouting(CompressedRobotConfigurationData.class);
+         controllerPacketCommunicator.attachListener(CompressedRobotConfigurationData.class, new RobotConfigurationDataDecompressor(new PacketConsumer<RobotConfigurationData>()
+         {
+            @Override
+            public void receivedPacket(RobotConfigurationData packet)
+            {
+               packetRouter.routePacket(PacketDestination.CONTROLLER, packet);
+            }
+         }));
          controllerPacketCommunicator.connect();
 
          String methodName = "setupControllerCommunicator ";
@@ -1,111 +1,102 @@
 package us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator;
 
 import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.vecmath.AxisAngle4d;
-import javax.vecmath.Matrix3d;
 import javax.vecmath.Vector3d;
 
-import org.ejml.data.DenseMatrix64F;
-import org.ejml.ops.CommonOps;
-
+import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.ReachabilitySphereMapWorker.VoxelResult;
 import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.voxelPrimitiveShapes.SphereVoxelShape;
 import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
 import us.ihmc.graphics3DAdapter.graphics.Graphics3DObject;
 import us.ihmc.graphics3DAdapter.graphics.appearances.AppearanceDefinition;
 import us.ihmc.graphics3DAdapter.graphics.appearances.YoAppearance;
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
-import us.ihmc.robotics.geometry.FrameOrientation;
 import us.ihmc.robotics.geometry.FramePoint;
-import us.ihmc.robotics.geometry.FrameVector;
 import us.ihmc.robotics.geometry.RigidBodyTransform;
-import us.ihmc.robotics.kinematics.NumericalInverseKinematicsCalculator;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
-import us.ihmc.robotics.screwTheory.GeometricJacobian;
 import us.ihmc.robotics.screwTheory.OneDoFJoint;
-import us.ihmc.robotics.screwTheory.ScrewTestTools;
-import us.ihmc.robotics.screwTheory.SpatialMotionVector;
 import us.ihmc.simulationconstructionset.SimulationConstructionSet;
-
+import us.ihmc.tools.thread.ThreadTools;
+
+/**
+ * Computes the reachability map of an arm by solving the inverse kinematics for a set of poses in each voxel of a grid.
+ *
+ * The voxels are computed in parallel by a pool of workers, each with its own copy of the arm and its own inverse kinematics solvers, and their results are
+ * registered in the order x, y, z with z varying the fastest. The random numbers used for a voxel are seeded by the index of the voxel, so the map does not
+ * depend on the number of threads. The map can be checkpointed in a binary file while it is being computed, and the computation can be resumed from such file.
+ */
 public class ReachabilitySphereMapCalculator
 {
-   private static final boolean DEBUG = false;
+   private static final long RANDOM_SEED = 645216L;
+   private static final int NUMBER_OF_PENDING_VOXELS_PER_THREAD = 4;
+
    private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
-   private final NumericalInverseKinematicsCalculator spatialInverseKinematicsCalculator;
-   private final NumericalInverseKinematicsCalculator linearInverseKinematicsCalculator;
    private final Voxel3DGrid voxel3dGrid;
    private final SphereVoxelShape sphereVoxelShape;
 
    private final SimulationConstructionSet scs;
    private final OneDoFJoint[] robotArmJoints;
    private final OneDoFJoint lastJoint;
-   private final int gridSizeInNumberOfVoxels = 50;
-   private final double voxelSize = 0.05;
-   private final int numberOfRays = 100;
-   private final int numberOfRotationsAroundRay = 20;
+   private final int gridSizeInNumberOfVoxels;
    private final FramePoint voxelLocation = new FramePoint();
-   private final FramePoint modifiableVoxelLocation = new FramePoint();
-   private final RigidBodyTransform desiredEndEffectorPose = new RigidBodyTransform();
    private final RigidBodyTransform endEffectorToControlFrameOffset = new RigidBodyTransform();
-   private final GeometricJacobian jacobian;
-   private final Random random = new Random(645216L);
    private final ArrayList<ReachabilityMapListener> reachabilityMapListeners = new ArrayList<>();
 
+   private int numberOfThreads = Runtime.getRuntime().availableProcessors();
    private ReachabilityMapFileWriter reachabilityMapFileWriter;
+   private File binaryFile;
+   private boolean compressBinaryFile;
+   private int numberOfVoxelsBetweenCheckpoints;
+   private int numberOfComputedVoxels = 0;
 
    public ReachabilitySphereMapCalculator(OneDoFJoint[] robotArmJoints, SimulationConstructionSet scs)
+   {
+      this(robotArmJoints, scs, 50, 0.05, 100, 20);
+   }
+
+   /**
+    * @param scs used to visualize the map while it is computed, can be null to compute the map without visualization
+    */
+   public ReachabilitySphereMapCalculator(OneDoFJoint[] robotArmJoints, SimulationConstructionSet scs, int gridSizeInNumberOfVoxels, double voxelSize,
+         int numberOfRays, int numberOfRotationsAroundRay)
    {
       this.robotArmJoints = robotArmJoints;
       this.scs = scs;
+      this.gridSizeInNumberOfVoxels = gridSizeInNumberOfVoxels;
       lastJoint = robotArmJoints[robotArmJoints.length - 1];
-      jacobian = new GeometricJacobian(robotArmJoints, lastJoint.getSuccessor().getBodyFixedFrame());
-      int maxIterations = 500;
-
-      spatialInverseKinematicsCalculator = createNumericalInverseKinematicsCalculator(jacobian, maxIterations, true);
-      linearInverseKinematicsCalculator = createNumericalInverseKinematicsCalculator(jacobian, maxIterations, false);
 
       ReferenceFrame frameBeforeRootJoint = robotArmJoints[0].getFrameBeforeJoint();
       RigidBodyTransform gridTransformToParent = new RigidBodyTransform(new AxisAngle4d(), new Vector3d(gridSizeInNumberOfVoxels * voxelSize / 3.0, 0.0, 0.0));
       ReferenceFrame gridFrame = ReferenceFrame.constructFrameWithUnchangingTransformToParent("gridFrame", frameBeforeRootJoint, gridTransformToParent);
-      Graphics3DObject gridFrameViz = new Graphics3DObject();
-      gridFrameViz.transform(gridFrame.getTransformToDesiredFrame(ReferenceFrame.getWorldFrame()));
-      gridFrameViz.addCoordinateSystem(1.0, YoAppearance.Blue());
-      scs.addStaticLinkGraphics(gridFrameViz);
       sphereVoxelShape = new SphereVoxelShape(gridFrame, voxelSize, numberOfRays, numberOfRotationsAroundRay, SphereVoxelType.graspOrigin);
       voxel3dGrid = new Voxel3DGrid(gridFrame, sphereVoxelShape, gridSizeInNumberOfVoxels, voxelSize);
+      numberOfVoxelsBetweenCheckpoints = gridSizeInNumberOfVoxels * gridSizeInNumberOfVoxels;
 
-      scs.addYoVariableRegistry(registry);
-   }
-
-   private NumericalInverseKinematicsCalculator createNumericalInverseKinematicsCalculator(GeometricJacobian jacobian, int maxIterations, boolean doOrientation)
-   {
-      double tolerance = 1e-8;
-      double maxStepSize = 0.2;
-      double lambdaLeastSquares = 0.0009;
-      double minRandomSearchScalar = 0.01;
-      double maxRandomSearchScalar = 0.8;
-      DenseMatrix64F selectionMatrix;
-      if (doOrientation)
-         selectionMatrix = CommonOps.identity(SpatialMotionVector.SIZE);
-      else
+      if (scs != null)
       {
-         selectionMatrix = new DenseMatrix64F(3, SpatialMotionVector.SIZE);
-         selectionMatrix.set(0, 3, 1.0);
-         selectionMatrix.set(1, 4, 1.0);
-         selectionMatrix.set(2, 5, 1.0);
+         Graphics3DObject gridFrameViz = new Graphics3DObject();
+         gridFrameViz.transform(gridFrame.getTransformToDesiredFrame(ReferenceFrame.getWorldFrame()));
+         gridFrameViz.addCoordinateSystem(1.0, YoAppearance.Blue());
+         scs.addStaticLinkGraphics(gridFrameViz);
+         scs.addYoVariableRegistry(registry);
       }
-
-      NumericalInverseKinematicsCalculator numericalInverseKinematicsCalculator = new NumericalInverseKinematicsCalculator(jacobian, lambdaLeastSquares,
-            tolerance, maxIterations, maxStepSize, minRandomSearchScalar, maxRandomSearchScalar);
-      numericalInverseKinematicsCalculator.setSelectionMatrix(selectionMatrix);
-      return numericalInverseKinematicsCalculator;
    }
 
    public void setControlFrameFixedInEndEffector(ReferenceFrame controlFrame)
    {
-      controlFrame.getTransformToDesiredFrame(endEffectorToControlFrameOffset, jacobian.getEndEffectorFrame());
+      controlFrame.getTransformToDesiredFrame(endEffectorToControlFrameOffset, lastJoint.getSuccessor().getBodyFixedFrame());
       endEffectorToControlFrameOffset.invert();
    }
 
@@ -120,6 +111,16 @@ public class ReachabilitySphereMapCalculator
       endEffectorToControlFrameOffset.invert();
    }
 
+   /**
+    * Sets the number of voxels computed in parallel, by default the number of available processors.
+    */
+   public void setNumberOfThreads(int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new RuntimeException("Need at least one thread, was: " + numberOfThreads);
+      this.numberOfThreads = numberOfThreads;
+   }
+
    public void setupCalculatorToRecordInFile(String robotName, Class<?> classForFilePath)
    {
       if (robotName == null || robotName.isEmpty())
@@ -130,112 +131,97 @@ public class ReachabilitySphereMapCalculator
       reachabilityMapFileWriter = new ReachabilityMapFileWriter(robotName, robotArmJoints, voxel3dGrid, classForFilePath);
    }
 
+   /**
+    * Saves the map in the given binary file every time a slice of the grid along x has been computed, and once the map is complete.
+    * See {@link Voxel3DGridFileTools}.
+    */
+   public void setupCalculatorToRecordInBinaryFile(File binaryFile, boolean compress)
+   {
+      this.binaryFile = binaryFile;
+      this.compressBinaryFile = compress;
+   }
+
+   /**
+    * Loads the voxels computed so far from a binary file saved by a previous computation with the same grid, so
+    * {@link #buildReachabilitySpace()} only computes the remaining voxels. Only the remaining voxels are recorded in the xls file.
+    */
+   public void resumeFromBinaryFile(File binaryFile) throws IOException
+   {
+      numberOfComputedVoxels = Voxel3DGridFileTools.loadInto(binaryFile, voxel3dGrid);
+   }
+
    public void attachReachabilityMapListener(ReachabilityMapListener listener)
    {
       reachabilityMapListeners.add(listener);
    }
 
+   public Voxel3DGrid getVoxel3DGrid()
+   {
+      return voxel3dGrid;
+   }
+
    public void buildReachabilitySpace()
    {
-      int numberOfTrials = 10;
-      int counter = 0;
+      if (scs != null)
+      {
+         for (double z = 0; z <= 0.7; z += 0.7 * 0.1)
+         {
+            AppearanceDefinition appearance = YoAppearance.RGBColorFromHex(Color.HSBtoRGB((float) z, 1.0f, 1.0f));
+            Graphics3DObject voxelViz = new Graphics3DObject();
+            voxelViz.translate(-1.0, -1.0, 0.1 + z);
+            voxelViz.addSphere(0.025, appearance);
+            scs.addStaticLinkGraphics(voxelViz);
+         }
+      }
 
-      for (double z = 0; z <= 0.7; z += 0.7 * 0.1)
+      updateRobotFrames();
+      final BlockingQueue<ReachabilitySphereMapWorker> availableWorkers = new ArrayBlockingQueue<>(numberOfThreads);
+      for (int i = 0; i < numberOfThreads; i++)
       {
-         AppearanceDefinition appearance = YoAppearance.RGBColorFromHex(Color.HSBtoRGB((float) z, 1.0f, 1.0f));
-         Graphics3DObject voxelViz = new Graphics3DObject();
-         voxelLocation.changeFrame(ReferenceFrame.getWorldFrame());
-         voxelViz.translate(-1.0, -1.0, 0.1 + z);
-         voxelViz.addSphere(0.025, appearance);
-         scs.addStaticLinkGraphics(voxelViz);
+         availableWorkers.add(new ReachabilitySphereMapWorker("Worker" + i, robotArmJoints, voxel3dGrid, endEffectorToControlFrameOffset));
       }
 
-      FrameVector translationFromVoxelOrigin = new FrameVector();
-      FrameOrientation orientation = new FrameOrientation();
-      Matrix3d rotationMatrix = new Matrix3d();
-      Vector3d positionError = new Vector3d();
-      Vector3d orientationErrorAsVector = new Vector3d();
-      AxisAngle4d orientationError = new AxisAngle4d();
+      ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.getNamedThreadFactory(getClass().getSimpleName()));
+      ArrayDeque<Future<VoxelResult>> pendingVoxels = new ArrayDeque<>();
+      int totalNumberOfVoxels = voxel3dGrid.getTotalNumberOfVoxels();
+      int nextVoxelIndex = numberOfComputedVoxels;
 
-      for (int xIndex = 0; xIndex < gridSizeInNumberOfVoxels; xIndex++)
+      try
       {
-         for (int yIndex = 0; yIndex < gridSizeInNumberOfVoxels; yIndex++)
+         while (numberOfComputedVoxels < totalNumberOfVoxels)
          {
-            for (int zIndex = 0; zIndex < gridSizeInNumberOfVoxels; zIndex++)
+            while (nextVoxelIndex < totalNumberOfVoxels && pendingVoxels.size() < NUMBER_OF_PENDING_VOXELS_PER_THREAD * numberOfThreads)
             {
-               if (!isPositionReachable(numberOfTrials, xIndex, yIndex, zIndex))
-                  continue;
-
-               for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
-               {
-                  ScrewTestTools.setRandomPositionsWithinJointLimits(robotArmJoints, random);
-                  updateRobotFrames();
-                  jacobian.compute();
-                  voxel3dGrid.getVoxel(voxelLocation, xIndex, yIndex, zIndex);
-                  counter = 0;
-
-                  for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
-                  {
-                     modifiableVoxelLocation.setIncludingFrame(voxelLocation);
-                     sphereVoxelShape.getPose(translationFromVoxelOrigin, orientation, rayIndex, rotationAroundRayIndex);
-                     modifiableVoxelLocation.add(translationFromVoxelOrigin);
-                     modifiableVoxelLocation.changeFrame(jacobian.getBaseFrame());
-                     orientation.changeFrame(jacobian.getBaseFrame());
-                     orientation.getMatrix3d(rotationMatrix);
-
-                     desiredEndEffectorPose.setRotation(rotationMatrix);
-                     desiredEndEffectorPose.setTranslation(modifiableVoxelLocation.getX(), modifiableVoxelLocation.getY(), modifiableVoxelLocation.getZ());
-                     desiredEndEffectorPose.multiply(endEffectorToControlFrameOffset);
-                     boolean success = spatialInverseKinematicsCalculator.solve(desiredEndEffectorPose);
-
-                     updateRobotFrames();
-
-                     if (success)
-                     {
-                        voxel3dGrid.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
-                        if (reachabilityMapFileWriter != null)
-                           reachabilityMapFileWriter.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
-                        if (DEBUG)
-                        {
-                           orientation.changeFrame(jacobian.getEndEffectorFrame());
-                           orientation.getAxisAngle(orientationError);
-                           orientationErrorAsVector.set(orientationError.x, orientationError.y, orientationError.z);
-                           orientationErrorAsVector.scale(orientationError.angle);
-                           modifiableVoxelLocation.changeFrame(jacobian.getEndEffectorFrame());
-                           modifiableVoxelLocation.get(positionError);
-
-                           System.out.println("Position error: " + positionError + ", orientation error: " + orientationErrorAsVector);
-                        }
-
-                        for (int i = 0; i < reachabilityMapListeners.size(); i++)
-                        {
-                           reachabilityMapListeners.get(i).hasReachedNewConfiguration();
-                        }
-
-                        scs.tickAndUpdate();
-                        break;
-                     }
-                     else if (counter <= numberOfTrials)
-                     {
-                        ScrewTestTools.setRandomPositionsWithinJointLimits(robotArmJoints, random);
-                        updateRobotFrames();
-                        jacobian.compute();
-
-                        counter++;
-                        rotationAroundRayIndex--;
-                     }
-                  }
-               }
-
-               double reachabilityValue = voxel3dGrid.getD(xIndex, yIndex, zIndex);
-
-               if (reachabilityValue > 1e-3)
-               {
-                  Graphics3DObject voxelViz = sphereVoxelShape.createVisualization(voxelLocation, 0.25, reachabilityValue);
-                  scs.addStaticLinkGraphics(voxelViz);
-               }
+               pendingVoxels.add(executor.submit(createVoxelTask(availableWorkers, nextVoxelIndex)));
+               nextVoxelIndex++;
             }
+
+            registerVoxelResult(pendingVoxels.poll().get());
+            numberOfComputedVoxels++;
+
+            if (binaryFile != null && numberOfComputedVoxels % numberOfVoxelsBetweenCheckpoints == 0)
+               Voxel3DGridFileTools.save(binaryFile, voxel3dGrid, numberOfComputedVoxels, compressBinaryFile);
          }
+
+         if (binaryFile != null && numberOfComputedVoxels % numberOfVoxelsBetweenCheckpoints != 0)
+            Voxel3DGridFileTools.save(binaryFile, voxel3dGrid, numberOfComputedVoxels, compressBinaryFile);
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException(e.getCause());
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+      finally
+      {
+         executor.shutdownNow();
       }
 
       if (reachabilityMapFileWriter != null)
@@ -243,37 +229,75 @@ public class ReachabilitySphereMapCalculator
       System.out.println("Done!");
    }
 
-   private void updateRobotFrames()
+   private Callable<VoxelResult> createVoxelTask(final BlockingQueue<ReachabilitySphereMapWorker> availableWorkers, final int voxelIndex)
    {
-      robotArmJoints[0].getPredecessor().updateFramesRecursively();
+      final int xIndex = voxelIndex / (gridSizeInNumberOfVoxels * gridSizeInNumberOfVoxels);
+      final int yIndex = (voxelIndex / gridSizeInNumberOfVoxels) % gridSizeInNumberOfVoxels;
+      final int zIndex = voxelIndex % gridSizeInNumberOfVoxels;
+
+      return new Callable<VoxelResult>()
+      {
+         @Override
+         public VoxelResult call() throws Exception
+         {
+            ReachabilitySphereMapWorker worker = availableWorkers.take();
+            try
+            {
+               return worker.computeVoxel(xIndex, yIndex, zIndex, RANDOM_SEED + voxelIndex);
+            }
+            finally
+            {
+               availableWorkers.put(worker);
+            }
+         }
+      };
    }
 
-   private boolean isPositionReachable(int numberOfTrials, int xIndex, int yIndex, int zIndex)
+   private void registerVoxelResult(VoxelResult voxelResult)
    {
-      boolean success = false;
-      int counter = 0;
+      int xIndex = voxelResult.getXIndex();
+      int yIndex = voxelResult.getYIndex();
+      int zIndex = voxelResult.getZIndex();
 
-      ScrewTestTools.setRandomPositionsWithinJointLimits(robotArmJoints, random);
-      updateRobotFrames();
-      voxel3dGrid.getVoxel(voxelLocation, xIndex, yIndex, zIndex);
-
-      modifiableVoxelLocation.setIncludingFrame(voxelLocation);
-      modifiableVoxelLocation.changeFrame(jacobian.getBaseFrame());
-      desiredEndEffectorPose.setTranslation(modifiableVoxelLocation.getX(), modifiableVoxelLocation.getY(), modifiableVoxelLocation.getZ());
-
-      while (counter < numberOfTrials)
+      for (int rayIndex = 0; rayIndex < voxelResult.getNumberOfRays(); rayIndex++)
       {
-         success = linearInverseKinematicsCalculator.solve(desiredEndEffectorPose);
+         if (!voxelResult.isRayReached(rayIndex))
+            continue;
+
+         int rotationAroundRayIndex = voxelResult.getReachedRotationAroundRayIndex(rayIndex);
+         voxel3dGrid.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+         if (reachabilityMapFileWriter != null)
+            reachabilityMapFileWriter.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
 
-         if (success)
-            break;
+         if (reachabilityMapListeners.isEmpty() && scs == null)
+            continue;
 
-         ScrewTestTools.setRandomPositionsWithinJointLimits(robotArmJoints, random);
+         double[] jointAngles = voxelResult.getJointAngles(rayIndex);
+         for (int i = 0; i < robotArmJoints.length; i++)
+            robotArmJoints[i].setQ(jointAngles[i]);
          updateRobotFrames();
 
-         counter++;
+         for (int i = 0; i < reachabilityMapListeners.size(); i++)
+         {
+            reachabilityMapListeners.get(i).hasReachedNewConfiguration();
+         }
+
+         if (scs != null)
+            scs.tickAndUpdate();
+      }
+
+      double reachabilityValue = voxel3dGrid.getD(xIndex, yIndex, zIndex);
+
+      if (scs != null && reachabilityValue > 1e-3)
+      {
+         voxel3dGrid.getVoxel(voxelLocation, xIndex, yIndex, zIndex);
+         Graphics3DObject voxelViz = sphereVoxelShape.createVisualization(voxelLocation, 0.25, reachabilityValue);
+         scs.addStaticLinkGraphics(voxelViz);
       }
+   }
 
-      return success;
+   private void updateRobotFrames()
+   {
+      robotArmJoints[0].getPredecessor().updateFramesRecursively();
    }
 }
@@ -0,0 +1,289 @@
+package us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.vecmath.Matrix3d;
+import javax.vecmath.Point3d;
+import javax.vecmath.Vector3d;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+
+import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.voxelPrimitiveShapes.SphereVoxelShape;
+import us.ihmc.robotics.geometry.FrameOrientation;
+import us.ihmc.robotics.geometry.FramePoint;
+import us.ihmc.robotics.geometry.FrameVector;
+import us.ihmc.robotics.geometry.RigidBodyTransform;
+import us.ihmc.robotics.kinematics.NumericalInverseKinematicsCalculator;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.screwTheory.GeometricJacobian;
+import us.ihmc.robotics.screwTheory.OneDoFJoint;
+import us.ihmc.robotics.screwTheory.RevoluteJoint;
+import us.ihmc.robotics.screwTheory.RigidBody;
+import us.ihmc.robotics.screwTheory.ScrewTestTools;
+import us.ihmc.robotics.screwTheory.ScrewTools;
+import us.ihmc.robotics.screwTheory.SpatialMotionVector;
+
+/**
+ * Computes the reachable poses of one voxel at a time on its own copy of the arm, so several workers can compute different voxels at the same time.
+ *
+ * The copy of the arm is attached to its own root frame, which stands for the parent frame of the frame before the first arm joint. The voxel poses are
+ * transformed to that frame with a transform computed once from the original robot, so a worker never touches the frames of the original robot.
+ * The random numbers used for a voxel only depend on the seed given for that voxel, so the result of a voxel does not depend on the worker computing it.
+ */
+class ReachabilitySphereMapWorker
+{
+   private static final int NUMBER_OF_TRIALS = 10;
+   private static final int MAX_ITERATIONS = 500;
+
+   private final OneDoFJoint[] armJoints;
+   private final RigidBody armBase;
+   private final GeometricJacobian jacobian;
+   private final NumericalInverseKinematicsCalculator spatialInverseKinematicsCalculator;
+   private final NumericalInverseKinematicsCalculator linearInverseKinematicsCalculator;
+   private final Voxel3DGrid voxel3dGrid;
+   private final SphereVoxelShape sphereVoxelShape;
+
+   private final RigidBodyTransform gridToArmBase = new RigidBodyTransform();
+   private final RigidBodyTransform endEffectorToControlFrameOffset = new RigidBodyTransform();
+
+   private final Random random = new Random();
+   private final FramePoint voxelLocation = new FramePoint();
+   private final FrameVector translationFromVoxelOrigin = new FrameVector();
+   private final FrameOrientation orientation = new FrameOrientation();
+   private final Matrix3d rotationMatrix = new Matrix3d();
+   private final Vector3d translation = new Vector3d();
+   private final Point3d positionInArmBase = new Point3d();
+   private final RigidBodyTransform desiredPoseInGrid = new RigidBodyTransform();
+   private final RigidBodyTransform desiredEndEffectorPose = new RigidBodyTransform();
+
+   /**
+    * @param robotArmJoints the joints of the original arm, only revolute joints are supported
+    * @param voxel3dGrid the grid being computed, only used to get the voxel locations
+    * @param endEffectorToControlFrameOffset transform applied to the voxel poses to get the desired poses of the end effector
+    */
+   ReachabilitySphereMapWorker(String name, OneDoFJoint[] robotArmJoints, Voxel3DGrid voxel3dGrid, RigidBodyTransform endEffectorToControlFrameOffset)
+   {
+      this.voxel3dGrid = voxel3dGrid;
+      this.sphereVoxelShape = voxel3dGrid.getSphereVoxelShape();
+      this.endEffectorToControlFrameOffset.set(endEffectorToControlFrameOffset);
+
+      ReferenceFrame armBaseFrame = robotArmJoints[0].getFrameBeforeJoint().getParent();
+      voxel3dGrid.getReferenceFrame().getTransformToDesiredFrame(gridToArmBase, armBaseFrame);
+
+      armBase = new RigidBody(name + "ArmBase", ReferenceFrame.constructARootFrame(name + "ArmBaseFrame"));
+      armJoints = cloneArm(robotArmJoints, armBase, name);
+      RigidBody endEffector = armJoints[armJoints.length - 1].getSuccessor();
+      jacobian = new GeometricJacobian(armJoints, endEffector.getBodyFixedFrame());
+
+      spatialInverseKinematicsCalculator = createNumericalInverseKinematicsCalculator(jacobian, MAX_ITERATIONS, true);
+      linearInverseKinematicsCalculator = createNumericalInverseKinematicsCalculator(jacobian, MAX_ITERATIONS, false);
+   }
+
+   /**
+    * Copies the arm such that the end effector of the copy has the same body fixed frame as the original one, with respect to the frame after the last joint.
+    */
+   private static OneDoFJoint[] cloneArm(OneDoFJoint[] robotArmJoints, RigidBody armBase, String suffix)
+   {
+      OneDoFJoint[] clonedJoints = new OneDoFJoint[robotArmJoints.length];
+      RigidBody predecessor = armBase;
+
+      for (int i = 0; i < robotArmJoints.length; i++)
+      {
+         if (!(robotArmJoints[i] instanceof RevoluteJoint))
+            throw new RuntimeException("Not implemented for joints of the type: " + robotArmJoints[i].getClass().getSimpleName());
+
+         RevoluteJoint originalJoint = (RevoluteJoint) robotArmJoints[i];
+         Vector3d jointAxis = originalJoint.getJointAxis().getVectorCopy();
+         RevoluteJoint clonedJoint = ScrewTools.addRevoluteJoint(originalJoint.getName() + suffix, predecessor, originalJoint.getOffsetTransform3D(), jointAxis);
+         clonedJoint.setJointLimitLower(originalJoint.getJointLimitLower());
+         clonedJoint.setJointLimitUpper(originalJoint.getJointLimitUpper());
+
+         RigidBody originalSuccessor = originalJoint.getSuccessor();
+         RigidBodyTransform inertiaPose = originalSuccessor.getBodyFixedFrame().getTransformToDesiredFrame(originalJoint.getFrameAfterJoint());
+         Matrix3d momentOfInertia = originalSuccessor.getInertia().getMassMomentOfInertiaPartCopy();
+         double mass = originalSuccessor.getInertia().getMass();
+         predecessor = ScrewTools.addRigidBody(originalSuccessor.getName() + suffix, clonedJoint, momentOfInertia, mass, inertiaPose);
+
+         clonedJoints[i] = clonedJoint;
+      }
+
+      return clonedJoints;
+   }
+
+   private static NumericalInverseKinematicsCalculator createNumericalInverseKinematicsCalculator(GeometricJacobian jacobian, int maxIterations,
+         boolean doOrientation)
+   {
+      double tolerance = 1e-8;
+      double maxStepSize = 0.2;
+      double lambdaLeastSquares = 0.0009;
+      double minRandomSearchScalar = 0.01;
+      double maxRandomSearchScalar = 0.8;
+      DenseMatrix64F selectionMatrix;
+      if (doOrientation)
+         selectionMatrix = CommonOps.identity(SpatialMotionVector.SIZE);
+      else
+      {
+         selectionMatrix = new DenseMatrix64F(3, SpatialMotionVector.SIZE);
+         selectionMatrix.set(0, 3, 1.0);
+         selectionMatrix.set(1, 4, 1.0);
+         selectionMatrix.set(2, 5, 1.0);
+      }
+
+      NumericalInverseKinematicsCalculator numericalInverseKinematicsCalculator = new NumericalInverseKinematicsCalculator(jacobian, lambdaLeastSquares,
+            tolerance, maxIterations, maxStepSize, minRandomSearchScalar, maxRandomSearchScalar);
+      numericalInverseKinematicsCalculator.setSelectionMatrix(selectionMatrix);
+      return numericalInverseKinematicsCalculator;
+   }
+
+   /**
+    * Tries every ray of the voxel, and for each ray the rotations around it until one of them is reached.
+    */
+   VoxelResult computeVoxel(int xIndex, int yIndex, int zIndex, long seed)
+   {
+      random.setSeed(seed);
+      spatialInverseKinematicsCalculator.setRandomSeed(seed);
+      linearInverseKinematicsCalculator.setRandomSeed(seed);
+
+      int numberOfRays = sphereVoxelShape.getNumberOfRays();
+      int numberOfRotationsAroundRay = sphereVoxelShape.getNumberOfRotationsAroundRay();
+      VoxelResult result = new VoxelResult(xIndex, yIndex, zIndex, numberOfRays);
+
+      if (!isPositionReachable(xIndex, yIndex, zIndex))
+         return result;
+
+      for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+      {
+         setRandomJointPositions();
+         int counter = 0;
+
+         for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
+         {
+            computeDesiredEndEffectorPose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+            boolean success = spatialInverseKinematicsCalculator.solve(desiredEndEffectorPose);
+
+            if (success)
+            {
+               result.registerReachedPose(rayIndex, rotationAroundRayIndex, armJoints);
+               break;
+            }
+            else if (counter <= NUMBER_OF_TRIALS)
+            {
+               setRandomJointPositions();
+               counter++;
+               rotationAroundRayIndex--;
+            }
+         }
+      }
+
+      return result;
+   }
+
+   private boolean isPositionReachable(int xIndex, int yIndex, int zIndex)
+   {
+      setRandomJointPositions();
+
+      voxel3dGrid.getVoxel(voxelLocation, xIndex, yIndex, zIndex);
+      voxelLocation.get(positionInArmBase);
+      gridToArmBase.transform(positionInArmBase);
+      desiredEndEffectorPose.setIdentity();
+      desiredEndEffectorPose.setTranslation(positionInArmBase.getX(), positionInArmBase.getY(), positionInArmBase.getZ());
+
+      for (int counter = 0; counter < NUMBER_OF_TRIALS; counter++)
+      {
+         if (linearInverseKinematicsCalculator.solve(desiredEndEffectorPose))
+            return true;
+
+         setRandomJointPositions();
+      }
+
+      return false;
+   }
+
+   private void computeDesiredEndEffectorPose(int xIndex, int yIndex, int zIndex, int rayIndex, int rotationAroundRayIndex)
+   {
+      voxel3dGrid.getVoxel(voxelLocation, xIndex, yIndex, zIndex);
+      sphereVoxelShape.getPose(translationFromVoxelOrigin, orientation, rayIndex, rotationAroundRayIndex);
+      voxelLocation.add(translationFromVoxelOrigin);
+      voxelLocation.get(translation);
+      orientation.getMatrix3d(rotationMatrix);
+
+      desiredPoseInGrid.setRotation(rotationMatrix);
+      desiredPoseInGrid.setTranslation(translation);
+      desiredEndEffectorPose.multiply(gridToArmBase, desiredPoseInGrid);
+      desiredEndEffectorPose.multiply(endEffectorToControlFrameOffset);
+   }
+
+   private void setRandomJointPositions()
+   {
+      ScrewTestTools.setRandomPositionsWithinJointLimits(armJoints, random);
+      armBase.updateFramesRecursively();
+   }
+
+   /**
+    * Rays and rotations reached for one voxel, with the joint angles reaching them.
+    */
+   static class VoxelResult
+   {
+      private final int xIndex, yIndex, zIndex;
+      private final int[] reachedRotationAroundRayIndices;
+      private final double[][] jointAngles;
+
+      VoxelResult(int xIndex, int yIndex, int zIndex, int numberOfRays)
+      {
+         this.xIndex = xIndex;
+         this.yIndex = yIndex;
+         this.zIndex = zIndex;
+         reachedRotationAroundRayIndices = new int[numberOfRays];
+         Arrays.fill(reachedRotationAroundRayIndices, -1);
+         jointAngles = new double[numberOfRays][];
+      }
+
+      private void registerReachedPose(int rayIndex, int rotationAroundRayIndex, OneDoFJoint[] armJoints)
+      {
+         reachedRotationAroundRayIndices[rayIndex] = rotationAroundRayIndex;
+         jointAngles[rayIndex] = new double[armJoints.length];
+         for (int i = 0; i < armJoints.length; i++)
+            jointAngles[rayIndex][i] = armJoints[i].getQ();
+      }
+
+      int getXIndex()
+      {
+         return xIndex;
+      }
+
+      int getYIndex()
+      {
+         return yIndex;
+      }
+
+      int getZIndex()
+      {
+         return zIndex;
+      }
+
+      int getNumberOfRays()
+      {
+         return reachedRotationAroundRayIndices.length;
+      }
+
+      boolean isRayReached(int rayIndex)
+      {
+         return reachedRotationAroundRayIndices[rayIndex] >= 0;
+      }
+
+      int getReachedRotationAroundRayIndex(int rayIndex)
+      {
+         return reachedRotationAroundRayIndices[rayIndex];
+      }
+
+      /**
+       * @return the angles of the arm joints reaching the pose of the ray, in the order of the arm joints
+       */
+      double[] getJointAngles(int rayIndex)
+      {
+         return jointAngles[rayIndex];
+      }
+   }
+}
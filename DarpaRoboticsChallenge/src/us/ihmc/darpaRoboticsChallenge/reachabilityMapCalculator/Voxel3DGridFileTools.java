@@ -0,0 +1,274 @@
+package us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.voxelPrimitiveShapes.SphereVoxelShape;
+import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+
+/**
+ * Saves and loads a {@link Voxel3DGrid} to and from a compact binary file, so a reachability map is computed once and then loaded quickly.
+ *
+ * The file starts with a header describing the layout of the grid and how many voxels have been computed, in the order x, y, z with z varying the fastest.
+ * Only the voxels that have at least one reachable ray or pose are written, each one as its linear index followed by its reachable rays and poses packed
+ * as bits. The file can optionally be compressed with GZIP, which is detected when loading.
+ */
+public class Voxel3DGridFileTools
+{
+   private static final int MAGIC_NUMBER = 0x56584C47;
+   private static final int VERSION = 1;
+   private static final int GZIP_MAGIC_NUMBER = 0x8b1f;
+
+   public static void save(File file, Voxel3DGrid voxel3dGrid, boolean compress) throws IOException
+   {
+      save(file, voxel3dGrid, voxel3dGrid.getTotalNumberOfVoxels(), compress);
+   }
+
+   /**
+    * Writes the grid to a temporary file first and then moves it in place, so a reachability map being checkpointed is never left half written.
+    * @param numberOfComputedVoxels number of voxels, in the order x, y, z with z varying the fastest, that have been computed so far
+    */
+   public static void save(File file, Voxel3DGrid voxel3dGrid, int numberOfComputedVoxels, boolean compress) throws IOException
+   {
+      SphereVoxelShape sphereVoxelShape = voxel3dGrid.getSphereVoxelShape();
+      int numberOfVoxelsPerDimension = voxel3dGrid.getNumberOfVoxelsPerDimension();
+      int numberOfRays = sphereVoxelShape.getNumberOfRays();
+      int numberOfRotationsAroundRay = sphereVoxelShape.getNumberOfRotationsAroundRay();
+      byte[] rayBits = new byte[computeNumberOfBytes(numberOfRays)];
+      byte[] poseBits = new byte[computeNumberOfBytes(numberOfRays * numberOfRotationsAroundRay)];
+
+      File temporaryFile = new File(file.getAbsolutePath() + ".tmp");
+      OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(temporaryFile));
+      if (compress)
+         outputStream = new GZIPOutputStream(outputStream);
+      DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+
+      try
+      {
+         dataOutputStream.writeInt(MAGIC_NUMBER);
+         dataOutputStream.writeInt(VERSION);
+         dataOutputStream.writeInt(numberOfVoxelsPerDimension);
+         dataOutputStream.writeDouble(voxel3dGrid.getVoxelSize());
+         dataOutputStream.writeInt(numberOfRays);
+         dataOutputStream.writeInt(numberOfRotationsAroundRay);
+         dataOutputStream.writeInt(sphereVoxelShape.getType().ordinal());
+         dataOutputStream.writeInt(numberOfComputedVoxels);
+
+         int numberOfNonEmptyVoxels = 0;
+         for (int voxelIndex = 0; voxelIndex < voxel3dGrid.getTotalNumberOfVoxels(); voxelIndex++)
+         {
+            if (packVoxel(voxel3dGrid, voxelIndex, rayBits, poseBits))
+               numberOfNonEmptyVoxels++;
+         }
+
+         dataOutputStream.writeInt(numberOfNonEmptyVoxels);
+
+         for (int voxelIndex = 0; voxelIndex < voxel3dGrid.getTotalNumberOfVoxels(); voxelIndex++)
+         {
+            if (packVoxel(voxel3dGrid, voxelIndex, rayBits, poseBits))
+            {
+               dataOutputStream.writeInt(voxelIndex);
+               dataOutputStream.write(rayBits);
+               dataOutputStream.write(poseBits);
+            }
+         }
+      }
+      finally
+      {
+         dataOutputStream.close();
+      }
+
+      try
+      {
+         Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (AtomicMoveNotSupportedException e)
+      {
+         Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+   }
+
+   /**
+    * Creates a new grid attached to the given frame with the layout stored in the file and fills it with the reachable rays and poses of the file.
+    */
+   public static Voxel3DGrid load(File file, ReferenceFrame gridFrame) throws IOException
+   {
+      DataInputStream dataInputStream = openFile(file);
+
+      try
+      {
+         readHeader(dataInputStream);
+         int numberOfVoxelsPerDimension = dataInputStream.readInt();
+         double voxelSize = dataInputStream.readDouble();
+         int numberOfRays = dataInputStream.readInt();
+         int numberOfRotationsAroundRay = dataInputStream.readInt();
+         SphereVoxelType type = SphereVoxelType.values()[dataInputStream.readInt()];
+         dataInputStream.readInt(); // Number of computed voxels
+
+         SphereVoxelShape sphereVoxelShape = new SphereVoxelShape(gridFrame, voxelSize, numberOfRays, numberOfRotationsAroundRay, type);
+         Voxel3DGrid voxel3dGrid = new Voxel3DGrid(gridFrame, sphereVoxelShape, numberOfVoxelsPerDimension, voxelSize);
+         readVoxels(dataInputStream, voxel3dGrid);
+         return voxel3dGrid;
+      }
+      finally
+      {
+         dataInputStream.close();
+      }
+   }
+
+   /**
+    * Registers the reachable rays and poses of the file in the given grid, which has to have the same layout as the grid that was saved.
+    * @return the number of voxels, in the order x, y, z with z varying the fastest, that had been computed when the file was saved
+    */
+   public static int loadInto(File file, Voxel3DGrid voxel3dGridToPack) throws IOException
+   {
+      DataInputStream dataInputStream = openFile(file);
+
+      try
+      {
+         readHeader(dataInputStream);
+         SphereVoxelShape sphereVoxelShape = voxel3dGridToPack.getSphereVoxelShape();
+         boolean isLayoutMatching = dataInputStream.readInt() == voxel3dGridToPack.getNumberOfVoxelsPerDimension();
+         isLayoutMatching &= dataInputStream.readDouble() == voxel3dGridToPack.getVoxelSize();
+         isLayoutMatching &= dataInputStream.readInt() == sphereVoxelShape.getNumberOfRays();
+         isLayoutMatching &= dataInputStream.readInt() == sphereVoxelShape.getNumberOfRotationsAroundRay();
+         isLayoutMatching &= dataInputStream.readInt() == sphereVoxelShape.getType().ordinal();
+
+         if (!isLayoutMatching)
+            throw new RuntimeException("The grid saved in " + file + " does not have the same layout as the given grid");
+
+         int numberOfComputedVoxels = dataInputStream.readInt();
+         readVoxels(dataInputStream, voxel3dGridToPack);
+         return numberOfComputedVoxels;
+      }
+      finally
+      {
+         dataInputStream.close();
+      }
+   }
+
+   private static DataInputStream openFile(File file) throws IOException
+   {
+      InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+      inputStream.mark(2);
+      int gzipMagicNumber = inputStream.read() | (inputStream.read() << 8);
+      inputStream.reset();
+
+      if (gzipMagicNumber == GZIP_MAGIC_NUMBER)
+         inputStream = new GZIPInputStream(inputStream);
+
+      return new DataInputStream(inputStream);
+   }
+
+   private static void readHeader(DataInputStream dataInputStream) throws IOException
+   {
+      if (dataInputStream.readInt() != MAGIC_NUMBER)
+         throw new IOException("Not a voxel grid file");
+
+      int version = dataInputStream.readInt();
+      if (version != VERSION)
+         throw new IOException("Unsupported voxel grid file version: " + version);
+   }
+
+   private static void readVoxels(DataInputStream dataInputStream, Voxel3DGrid voxel3dGrid) throws IOException
+   {
+      int numberOfVoxelsPerDimension = voxel3dGrid.getNumberOfVoxelsPerDimension();
+      int numberOfRays = voxel3dGrid.getSphereVoxelShape().getNumberOfRays();
+      int numberOfRotationsAroundRay = voxel3dGrid.getSphereVoxelShape().getNumberOfRotationsAroundRay();
+      byte[] rayBits = new byte[computeNumberOfBytes(numberOfRays)];
+      byte[] poseBits = new byte[computeNumberOfBytes(numberOfRays * numberOfRotationsAroundRay)];
+
+      int numberOfNonEmptyVoxels = dataInputStream.readInt();
+
+      for (int i = 0; i < numberOfNonEmptyVoxels; i++)
+      {
+         int voxelIndex = dataInputStream.readInt();
+         dataInputStream.readFully(rayBits);
+         dataInputStream.readFully(poseBits);
+
+         int xIndex = voxelIndex / (numberOfVoxelsPerDimension * numberOfVoxelsPerDimension);
+         int yIndex = (voxelIndex / numberOfVoxelsPerDimension) % numberOfVoxelsPerDimension;
+         int zIndex = voxelIndex % numberOfVoxelsPerDimension;
+
+         for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+         {
+            if (isBitSet(rayBits, rayIndex))
+               voxel3dGrid.registerReachableRay(xIndex, yIndex, zIndex, rayIndex);
+
+            for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
+            {
+               if (isBitSet(poseBits, rayIndex * numberOfRotationsAroundRay + rotationAroundRayIndex))
+                  voxel3dGrid.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+            }
+         }
+      }
+   }
+
+   /**
+    * @return true if the voxel has at least one reachable ray or pose
+    */
+   private static boolean packVoxel(Voxel3DGrid voxel3dGrid, int voxelIndex, byte[] rayBitsToPack, byte[] poseBitsToPack)
+   {
+      int numberOfVoxelsPerDimension = voxel3dGrid.getNumberOfVoxelsPerDimension();
+      int numberOfRays = voxel3dGrid.getSphereVoxelShape().getNumberOfRays();
+      int numberOfRotationsAroundRay = voxel3dGrid.getSphereVoxelShape().getNumberOfRotationsAroundRay();
+
+      int xIndex = voxelIndex / (numberOfVoxelsPerDimension * numberOfVoxelsPerDimension);
+      int yIndex = (voxelIndex / numberOfVoxelsPerDimension) % numberOfVoxelsPerDimension;
+      int zIndex = voxelIndex % numberOfVoxelsPerDimension;
+
+      boolean isEmpty = true;
+      Arrays.fill(rayBitsToPack, (byte) 0);
+      Arrays.fill(poseBitsToPack, (byte) 0);
+
+      for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+      {
+         if (voxel3dGrid.isRayReachable(xIndex, yIndex, zIndex, rayIndex))
+         {
+            setBit(rayBitsToPack, rayIndex);
+            isEmpty = false;
+         }
+
+         for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
+         {
+            if (voxel3dGrid.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex))
+            {
+               setBit(poseBitsToPack, rayIndex * numberOfRotationsAroundRay + rotationAroundRayIndex);
+               isEmpty = false;
+            }
+         }
+      }
+
+      return !isEmpty;
+   }
+
+   private static int computeNumberOfBytes(int numberOfBits)
+   {
+      return (numberOfBits + 7) / 8;
+   }
+
+   private static void setBit(byte[] bits, int bitIndex)
+   {
+      bits[bitIndex / 8] |= 1 << (bitIndex % 8);
+   }
+
+   private static boolean isBitSet(byte[] bits, int bitIndex)
+   {
+      return (bits[bitIndex / 8] & (1 << (bitIndex % 8))) != 0;
+   }
+}
@@ -61,6 +61,11 @@ public class SphereVoxelShape
       return numberOfRotationsAroundRay;
    }
 
+   public SphereVoxelType getType()
+   {
+      return type;
+   }
+
    public void getRay(Vector3d rayToPack, int rayIndex)
    {
       MathTools.checkIfInRange(rayIndex, 0, numberOfRays - 1);
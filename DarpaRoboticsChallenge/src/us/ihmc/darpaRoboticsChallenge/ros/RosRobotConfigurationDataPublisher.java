@@ -23,7 +23,9 @@ import us.ihmc.robotics.robotSide.SideDependentList;
 import us.ihmc.robotics.screwTheory.OneDoFJoint;
 import us.ihmc.robotics.sensors.ForceSensorDefinition;
 import us.ihmc.robotics.sensors.IMUDefinition;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.CompressedRobotConfigurationData;
 import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+import us.ihmc.sensorProcessing.communication.producers.RobotConfigurationDataDecompressor;
 import us.ihmc.sensorProcessing.parameters.DRCRobotSensorInformation;
 import us.ihmc.tools.io.printing.PrintTools;
 import us.ihmc.utilities.ros.RosMainNode;
@@ -131,6 +133,7 @@ public class RosRobotConfigurationDataPublisher implements PacketConsumer<RobotC
       }
       
       rosModulePacketCommunicator.attachListener(RobotConfigurationData.class, this);
+      rosModulePacketCommunicator.attachListener(CompressedRobotConfigurationData.class, new RobotConfigurationDataDecompressor(this));
 
       Thread t = new Thread(this, "RosRobotJointStatePublisher");
       t.start();
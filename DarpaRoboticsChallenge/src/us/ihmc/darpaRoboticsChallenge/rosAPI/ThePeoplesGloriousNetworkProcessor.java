@@ -22,7 +22,9 @@ import us.ihmc.humanoidRobotics.communication.packets.walking.CapturabilityBased
 import us.ihmc.humanoidRobotics.communication.subscribers.HumanoidRobotDataReceiver;
 import us.ihmc.ihmcPerception.IHMCProntoRosLocalizationUpdateSubscriber;
 import us.ihmc.ihmcPerception.RosLocalizationPoseCorrectionSubscriber;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.CompressedRobotConfigurationData;
 import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+import us.ihmc.sensorProcessing.communication.producers.RobotConfigurationDataDecompressor;
 import us.ihmc.sensorProcessing.parameters.DRCRobotLidarParameters;
 import us.ihmc.sensorProcessing.parameters.DRCRobotSensorInformation;
 import us.ihmc.tools.thread.ThreadTools;
@@ -93,6 +95,8 @@ public class ThePeoplesGloriousNetworkProcessor
       HumanoidRobotDataReceiver robotDataReceiver = new HumanoidRobotDataReceiver(fullRobotModel, null);
       rosAPI_communicator.attachListener(RobotConfigurationData.class, robotDataReceiver);
       rosAPI_communicator.attachListener(RobotConfigurationData.class, ppsOffsetProvider);
+      rosAPI_communicator.attachListener(CompressedRobotConfigurationData.class, new RobotConfigurationDataDecompressor(robotDataReceiver));
+      rosAPI_communicator.attachListener(CompressedRobotConfigurationData.class, new RobotConfigurationDataDecompressor(ppsOffsetProvider));
       rosAPI_communicator.attachListener(HighLevelStateChangeStatusMessage.class, new PeriodicRosHighLevelStatePublisher(rosMainNode, namespace));
       rosAPI_communicator.attachListener(CapturabilityBasedStatus.class, new RosCapturabilityBasedStatusPublisher(rosMainNode, namespace));
 
@@ -0,0 +1,142 @@
+package us.ihmc.darpaRoboticsChallenge.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.SdfLoader.SDFFullHumanoidRobotModel;
+import us.ihmc.commonWalkingControlModules.configurations.WalkingControllerParameters;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControlCoreToolbox;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCoreMode;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.ControllerCoreCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.FeedbackControlCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.JointspaceAccelerationCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.MomentumRateCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.PlaneContactStateCommand;
+import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.factories.ContactableBodiesFactory;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.GeometricJacobianHolder;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.HighLevelHumanoidControllerToolbox;
+import us.ihmc.darpaRoboticsChallenge.MultiRobotTestInterface;
+import us.ihmc.darpaRoboticsChallenge.drcRobot.DRCRobotModel;
+import us.ihmc.humanoidRobotics.bipedSupportPolygons.ContactableFoot;
+import us.ihmc.humanoidRobotics.bipedSupportPolygons.ContactablePlaneBody;
+import us.ihmc.humanoidRobotics.frames.HumanoidReferenceFrames;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.geometry.FramePoint2d;
+import us.ihmc.robotics.geometry.FrameVector;
+import us.ihmc.robotics.random.RandomTools;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.robotSide.SideDependentList;
+import us.ihmc.robotics.screwTheory.InverseDynamicsJoint;
+import us.ihmc.robotics.screwTheory.OneDoFJoint;
+import us.ihmc.robotics.screwTheory.TwistCalculator;
+import us.ihmc.simulationconstructionset.yoUtilities.graphics.YoGraphicsListRegistry;
+import us.ihmc.tools.testing.AllocationTestTools;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+/**
+ * Same as ControllerTickAllocationTest, for the parts of the controller that need a full robot model.
+ */
+public abstract class DRCControllerTickAllocationTest implements MultiRobotTestInterface
+{
+   private static final long MAXIMUM_BYTES_PER_TICK = 0;
+   private static final double gravityZ = 9.81;
+   private static final double coefficientOfFriction = 0.8;
+
+   @DeployableTestMethod(estimatedDuration = 3.0)
+   @Test(timeout = 60000)
+   public void testWholeBodyControllerCoreTickDoesNotAllocate()
+   {
+      Random random = new Random(1976L);
+      DRCRobotModel robotModel = getRobotModel();
+      WalkingControllerParameters walkingControllerParameters = robotModel.getWalkingControllerParameters();
+      final SDFFullHumanoidRobotModel fullRobotModel = robotModel.createFullRobotModel();
+      final HumanoidReferenceFrames referenceFrames = new HumanoidReferenceFrames(fullRobotModel);
+      final TwistCalculator twistCalculator = new TwistCalculator(ReferenceFrame.getWorldFrame(), fullRobotModel.getElevator());
+      final GeometricJacobianHolder geometricJacobianHolder = new GeometricJacobianHolder();
+
+      final OneDoFJoint[] oneDoFJoints = fullRobotModel.getOneDoFJoints();
+      fullRobotModel.getRootJoint().setPosition(0.0, 0.0, 0.9);
+      for (OneDoFJoint joint : oneDoFJoints)
+      {
+         double lowerLimit = Math.max(joint.getJointLimitLower(), -Math.PI);
+         double upperLimit = Math.min(joint.getJointLimitUpper(), Math.PI);
+         joint.setQ(RandomTools.generateRandomDouble(random, lowerLimit, upperLimit));
+         joint.setQd(RandomTools.generateRandomDouble(random, 1.0));
+      }
+      fullRobotModel.updateFrames();
+      referenceFrames.updateFrames();
+      twistCalculator.compute();
+
+      ContactableBodiesFactory contactableBodiesFactory = robotModel.getContactPointParameters().getContactableBodiesFactory();
+      SideDependentList<ContactableFoot> feet = contactableBodiesFactory.createFootContactableBodies(fullRobotModel, referenceFrames);
+      List<ContactablePlaneBody> contactablePlaneBodies = new ArrayList<>();
+      for (RobotSide robotSide : RobotSide.values)
+         contactablePlaneBodies.add(feet.get(robotSide));
+
+      InverseDynamicsJoint[] jointsToOptimizeFor = HighLevelHumanoidControllerToolbox.computeJointsToOptimizeFor(fullRobotModel);
+      WholeBodyControlCoreToolbox toolbox = new WholeBodyControlCoreToolbox(fullRobotModel, jointsToOptimizeFor,
+            walkingControllerParameters.getMomentumOptimizationSettings(), referenceFrames, robotModel.getControllerDT(), gravityZ, geometricJacobianHolder,
+            twistCalculator, contactablePlaneBodies, new YoGraphicsListRegistry());
+      final WholeBodyControllerCore controllerCore = new WholeBodyControllerCore(toolbox, new FeedbackControlCommandList(),
+            new YoVariableRegistry("Dummy"));
+
+      // Double support: both feet in contact, a linear momentum rate objective and a jointspace acceleration objective for every joint.
+      final SideDependentList<PlaneContactStateCommand> footContactStateCommands = new SideDependentList<>();
+      for (RobotSide robotSide : RobotSide.values)
+      {
+         ContactableFoot foot = feet.get(robotSide);
+         PlaneContactStateCommand footContactStateCommand = new PlaneContactStateCommand();
+         footContactStateCommand.setContactingRigidBody(foot.getRigidBody());
+         footContactStateCommand.setCoefficientOfFriction(coefficientOfFriction);
+         footContactStateCommand.setContactNormal(new FrameVector(foot.getSoleFrame(), 0.0, 0.0, 1.0));
+         for (FramePoint2d contactPoint : foot.getContactPoints2d())
+            footContactStateCommand.addPointInContact(contactPoint);
+         footContactStateCommands.put(robotSide, footContactStateCommand);
+      }
+
+      final MomentumRateCommand momentumRateCommand = new MomentumRateCommand();
+      momentumRateCommand.setLinearMomentumRateOfChange(new FrameVector(referenceFrames.getCenterOfMassFrame(), 0.0, 0.0, 0.0));
+      momentumRateCommand.setWeights(0.0, 1.0);
+
+      final JointspaceAccelerationCommand jointspaceAccelerationCommand = new JointspaceAccelerationCommand();
+      for (OneDoFJoint joint : oneDoFJoints)
+         jointspaceAccelerationCommand.addJoint(joint, 0.0);
+      jointspaceAccelerationCommand.setWeight(1.0);
+
+      final ControllerCoreCommand controllerCoreCommand = new ControllerCoreCommand(WholeBodyControllerCoreMode.INVERSE_DYNAMICS);
+      controllerCore.initialize();
+
+      Runnable tick = new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            // Move the joints a little every tick, so the ticks do not all compute the same thing.
+            for (int i = 0; i < oneDoFJoints.length; i++)
+            {
+               OneDoFJoint joint = oneDoFJoints[i];
+               joint.setQ(joint.getQ() + 0.001 * Math.sin(joint.getQ()));
+            }
+            fullRobotModel.updateFrames();
+            referenceFrames.updateFrames();
+            twistCalculator.compute();
+            geometricJacobianHolder.compute();
+
+            for (RobotSide robotSide : RobotSide.values)
+               controllerCoreCommand.addInverseDynamicsCommand(footContactStateCommands.get(robotSide));
+            controllerCoreCommand.addInverseDynamicsCommand(momentumRateCommand);
+            controllerCoreCommand.addInverseDynamicsCommand(jointspaceAccelerationCommand);
+
+            controllerCore.submitControllerCoreCommand(controllerCoreCommand);
+            controllerCore.compute();
+         }
+      };
+
+      AllocationTestTools.assertAllocationsBelow("Whole body controller core tick", tick, MAXIMUM_BYTES_PER_TICK);
+   }
+}
@@ -19,6 +19,8 @@ import us.ihmc.tools.testing.TestPlanTarget;
    us.ihmc.darpaRoboticsChallenge.frictionCompensation.JointFrictionModelsHolderTest.class,
    us.ihmc.darpaRoboticsChallenge.networkProcessor.depthData.WheelRotationEstimatorTest.class,
    us.ihmc.darpaRoboticsChallenge.odometry.IcpCloud3DTest.class,
+   us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.ReachabilitySphereMapCalculatorTest.class,
+   us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.Voxel3DGridFileToolsTest.class,
    us.ihmc.darpaRoboticsChallenge.ros.IHMCROSTranslationRuntimeToolsTest.class,
    us.ihmc.darpaRoboticsChallenge.stateEstimationEndToEndTests.PelvisPoseHistoryCorrectionUsingSimpleRobotTest.class,
    us.ihmc.utilities.ros.ROSMessageFileCreatorTest.class
@@ -0,0 +1,161 @@
+package us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.vecmath.Matrix3d;
+import javax.vecmath.Vector3d;
+
+import org.junit.Test;
+
+import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.voxelPrimitiveShapes.SphereVoxelShape;
+import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.screwTheory.OneDoFJoint;
+import us.ihmc.robotics.screwTheory.RevoluteJoint;
+import us.ihmc.robotics.screwTheory.RigidBody;
+import us.ihmc.robotics.screwTheory.ScrewTools;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class ReachabilitySphereMapCalculatorTest
+{
+   private static final int GRID_SIZE_IN_NUMBER_OF_VOXELS = 2;
+   private static final double VOXEL_SIZE = 0.2;
+   private static final int NUMBER_OF_RAYS = 3;
+   private static final int NUMBER_OF_ROTATIONS_AROUND_RAY = 2;
+
+   @DeployableTestMethod(estimatedDuration = 5.0)
+   @Test(timeout = 30000)
+   public void testMapDoesNotDependOnNumberOfThreads()
+   {
+      OneDoFJoint[] armJoints = createArm();
+
+      Voxel3DGrid singleThreadedGrid = buildReachabilitySpace(armJoints, 1);
+      Voxel3DGrid multiThreadedGrid = buildReachabilitySpace(armJoints, 3);
+
+      assertTrue(countReachablePoses(singleThreadedGrid) > 0);
+      Voxel3DGridFileToolsTest.assertGridsEqual(singleThreadedGrid, multiThreadedGrid);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 5.0)
+   @Test(timeout = 30000)
+   public void testResumeFromBinaryFile() throws IOException
+   {
+      OneDoFJoint[] armJoints = createArm();
+
+      File completeMapFile = Voxel3DGridFileToolsTest.createTemporaryFile();
+      ReachabilitySphereMapCalculator calculator = createCalculator(armJoints, 2);
+      calculator.setupCalculatorToRecordInBinaryFile(completeMapFile, true);
+      calculator.buildReachabilitySpace();
+      Voxel3DGrid expectedGrid = calculator.getVoxel3DGrid();
+      Voxel3DGridFileToolsTest.assertGridsEqual(expectedGrid, Voxel3DGridFileTools.load(completeMapFile, ReferenceFrame.getWorldFrame()));
+
+      // Save only the first voxels, as if the computation had been stopped
+      int numberOfComputedVoxels = expectedGrid.getTotalNumberOfVoxels() / 2;
+      ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+      SphereVoxelType type = SphereVoxelType.graspOrigin;
+      SphereVoxelShape sphereVoxelShape = new SphereVoxelShape(worldFrame, VOXEL_SIZE, NUMBER_OF_RAYS, NUMBER_OF_ROTATIONS_AROUND_RAY, type);
+      Voxel3DGrid partialGrid = new Voxel3DGrid(worldFrame, sphereVoxelShape, GRID_SIZE_IN_NUMBER_OF_VOXELS, VOXEL_SIZE);
+      copyFirstVoxels(expectedGrid, partialGrid, numberOfComputedVoxels);
+      File partialMapFile = Voxel3DGridFileToolsTest.createTemporaryFile();
+      Voxel3DGridFileTools.save(partialMapFile, partialGrid, numberOfComputedVoxels, false);
+
+      ReachabilitySphereMapCalculator resumedCalculator = createCalculator(armJoints, 2);
+      resumedCalculator.resumeFromBinaryFile(partialMapFile);
+      resumedCalculator.buildReachabilitySpace();
+
+      Voxel3DGridFileToolsTest.assertGridsEqual(expectedGrid, resumedCalculator.getVoxel3DGrid());
+   }
+
+   private static Voxel3DGrid buildReachabilitySpace(OneDoFJoint[] armJoints, int numberOfThreads)
+   {
+      ReachabilitySphereMapCalculator calculator = createCalculator(armJoints, numberOfThreads);
+      calculator.buildReachabilitySpace();
+      return calculator.getVoxel3DGrid();
+   }
+
+   private static ReachabilitySphereMapCalculator createCalculator(OneDoFJoint[] armJoints, int numberOfThreads)
+   {
+      ReachabilitySphereMapCalculator calculator = new ReachabilitySphereMapCalculator(armJoints, null, GRID_SIZE_IN_NUMBER_OF_VOXELS, VOXEL_SIZE,
+            NUMBER_OF_RAYS, NUMBER_OF_ROTATIONS_AROUND_RAY);
+      calculator.setNumberOfThreads(numberOfThreads);
+      return calculator;
+   }
+
+   /**
+    * Arm with a spherical shoulder, an elbow and a two degrees of freedom wrist, with all the joints limited to [-pi, pi].
+    */
+   private static OneDoFJoint[] createArm()
+   {
+      Vector3d[] jointAxes = {new Vector3d(0.0, 0.0, 1.0), new Vector3d(0.0, 1.0, 0.0), new Vector3d(1.0, 0.0, 0.0), new Vector3d(0.0, 1.0, 0.0),
+            new Vector3d(1.0, 0.0, 0.0), new Vector3d(0.0, 1.0, 0.0)};
+      double[] linkLengths = {0.0, 0.0, 0.0, 0.3, 0.3, 0.0};
+
+      RigidBody elevator = new RigidBody("elevator", ReferenceFrame.constructARootFrame("elevator"));
+      RigidBody predecessor = elevator;
+      OneDoFJoint[] joints = new OneDoFJoint[jointAxes.length];
+
+      for (int i = 0; i < jointAxes.length; i++)
+      {
+         RevoluteJoint joint = ScrewTools.addRevoluteJoint("joint" + i, predecessor, new Vector3d(linkLengths[i], 0.0, 0.0), jointAxes[i]);
+         joint.setJointLimitLower(-Math.PI);
+         joint.setJointLimitUpper(Math.PI);
+         Matrix3d momentOfInertia = new Matrix3d();
+         momentOfInertia.setIdentity();
+         predecessor = ScrewTools.addRigidBody("body" + i, joint, momentOfInertia, 1.0, new Vector3d(0.05, 0.0, 0.0));
+         joints[i] = joint;
+      }
+
+      elevator.updateFramesRecursively();
+      return joints;
+   }
+
+   private static void copyFirstVoxels(Voxel3DGrid source, Voxel3DGrid destination, int numberOfVoxels)
+   {
+      int n = source.getNumberOfVoxelsPerDimension();
+
+      for (int voxelIndex = 0; voxelIndex < numberOfVoxels; voxelIndex++)
+      {
+         int xIndex = voxelIndex / (n * n);
+         int yIndex = (voxelIndex / n) % n;
+         int zIndex = voxelIndex % n;
+
+         for (int rayIndex = 0; rayIndex < NUMBER_OF_RAYS; rayIndex++)
+         {
+            for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < NUMBER_OF_ROTATIONS_AROUND_RAY; rotationAroundRayIndex++)
+            {
+               if (source.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex))
+                  destination.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+            }
+         }
+      }
+   }
+
+   private static int countReachablePoses(Voxel3DGrid voxel3dGrid)
+   {
+      int n = voxel3dGrid.getNumberOfVoxelsPerDimension();
+      int count = 0;
+
+      for (int xIndex = 0; xIndex < n; xIndex++)
+      {
+         for (int yIndex = 0; yIndex < n; yIndex++)
+         {
+            for (int zIndex = 0; zIndex < n; zIndex++)
+            {
+               for (int rayIndex = 0; rayIndex < NUMBER_OF_RAYS; rayIndex++)
+               {
+                  for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < NUMBER_OF_ROTATIONS_AROUND_RAY; rotationAroundRayIndex++)
+                  {
+                     if (voxel3dGrid.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex))
+                        count++;
+                  }
+               }
+            }
+         }
+      }
+
+      return count;
+   }
+}
@@ -0,0 +1,152 @@
+package us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.voxelPrimitiveShapes.SphereVoxelShape;
+import us.ihmc.darpaRoboticsChallenge.reachabilityMapCalculator.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class Voxel3DGridFileToolsTest
+{
+   private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+
+   @DeployableTestMethod(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testSaveAndLoadUncompressed() throws IOException
+   {
+      testSaveAndLoad(false);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testSaveAndLoadCompressed() throws IOException
+   {
+      testSaveAndLoad(true);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testCompressedFileIsSmallerForSparseGrid() throws IOException
+   {
+      Voxel3DGrid voxel3dGrid = createRandomGrid(new Random(6541L), SphereVoxelType.graspOrigin, 0.01);
+
+      File uncompressedFile = createTemporaryFile();
+      File compressedFile = createTemporaryFile();
+      Voxel3DGridFileTools.save(uncompressedFile, voxel3dGrid, false);
+      Voxel3DGridFileTools.save(compressedFile, voxel3dGrid, true);
+
+      assertTrue(compressedFile.length() < uncompressedFile.length());
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000, expected = RuntimeException.class)
+   public void testLoadIntoGridWithDifferentLayoutFails() throws IOException
+   {
+      Voxel3DGrid voxel3dGrid = createRandomGrid(new Random(6542L), SphereVoxelType.graspOrigin, 0.1);
+      File file = createTemporaryFile();
+      Voxel3DGridFileTools.save(file, voxel3dGrid, false);
+
+      SphereVoxelShape otherSphereVoxelShape = new SphereVoxelShape(worldFrame, 0.1, 11, 4, SphereVoxelType.graspOrigin);
+      Voxel3DGridFileTools.loadInto(file, new Voxel3DGrid(worldFrame, otherSphereVoxelShape, 5, 0.1));
+   }
+
+   private void testSaveAndLoad(boolean compress) throws IOException
+   {
+      Random random = new Random(6540L);
+
+      for (SphereVoxelType type : SphereVoxelType.values())
+      {
+         Voxel3DGrid expectedGrid = createRandomGrid(random, type, 0.1);
+         int numberOfComputedVoxels = random.nextInt(expectedGrid.getTotalNumberOfVoxels());
+
+         File file = createTemporaryFile();
+         Voxel3DGridFileTools.save(file, expectedGrid, numberOfComputedVoxels, compress);
+
+         Voxel3DGrid loadedGrid = Voxel3DGridFileTools.load(file, worldFrame);
+         assertEquals(type, loadedGrid.getSphereVoxelShape().getType());
+         assertGridsEqual(expectedGrid, loadedGrid);
+
+         SphereVoxelShape sphereVoxelShape = new SphereVoxelShape(worldFrame, expectedGrid.getVoxelSize(), 10, 4, type);
+         Voxel3DGrid gridToPack = new Voxel3DGrid(worldFrame, sphereVoxelShape, expectedGrid.getNumberOfVoxelsPerDimension(), expectedGrid.getVoxelSize());
+         assertEquals(numberOfComputedVoxels, Voxel3DGridFileTools.loadInto(file, gridToPack));
+         assertGridsEqual(expectedGrid, gridToPack);
+      }
+   }
+
+   private static Voxel3DGrid createRandomGrid(Random random, SphereVoxelType type, double probabilityOfReachingPose)
+   {
+      SphereVoxelShape sphereVoxelShape = new SphereVoxelShape(worldFrame, 0.1, 10, 4, type);
+      Voxel3DGrid voxel3dGrid = new Voxel3DGrid(worldFrame, sphereVoxelShape, 5, 0.1);
+
+      for (int xIndex = 0; xIndex < 5; xIndex++)
+      {
+         for (int yIndex = 0; yIndex < 5; yIndex++)
+         {
+            for (int zIndex = 0; zIndex < 5; zIndex++)
+            {
+               for (int rayIndex = 0; rayIndex < 10; rayIndex++)
+               {
+                  if (random.nextDouble() < probabilityOfReachingPose)
+                     voxel3dGrid.registerReachableRay(xIndex, yIndex, zIndex, rayIndex);
+
+                  for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < 4; rotationAroundRayIndex++)
+                  {
+                     if (random.nextDouble() < probabilityOfReachingPose)
+                        voxel3dGrid.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+                  }
+               }
+            }
+         }
+      }
+
+      return voxel3dGrid;
+   }
+
+   static void assertGridsEqual(Voxel3DGrid expected, Voxel3DGrid actual)
+   {
+      int numberOfVoxelsPerDimension = expected.getNumberOfVoxelsPerDimension();
+      int numberOfRays = expected.getSphereVoxelShape().getNumberOfRays();
+      int numberOfRotationsAroundRay = expected.getSphereVoxelShape().getNumberOfRotationsAroundRay();
+
+      assertEquals(numberOfVoxelsPerDimension, actual.getNumberOfVoxelsPerDimension());
+      assertEquals(expected.getVoxelSize(), actual.getVoxelSize(), 0.0);
+      assertEquals(numberOfRays, actual.getSphereVoxelShape().getNumberOfRays());
+      assertEquals(numberOfRotationsAroundRay, actual.getSphereVoxelShape().getNumberOfRotationsAroundRay());
+
+      for (int xIndex = 0; xIndex < numberOfVoxelsPerDimension; xIndex++)
+      {
+         for (int yIndex = 0; yIndex < numberOfVoxelsPerDimension; yIndex++)
+         {
+            for (int zIndex = 0; zIndex < numberOfVoxelsPerDimension; zIndex++)
+            {
+               for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+               {
+                  assertEquals(expected.isRayReachable(xIndex, yIndex, zIndex, rayIndex), actual.isRayReachable(xIndex, yIndex, zIndex, rayIndex));
+
+                  for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
+                  {
+                     boolean expectedPose = expected.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+                     boolean actualPose = actual.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+                     assertEquals(expectedPose, actualPose);
+                  }
+               }
+            }
+         }
+      }
+   }
+
+   static File createTemporaryFile() throws IOException
+   {
+      File file = File.createTempFile("Voxel3DGrid", ".bin");
+      file.deleteOnExit();
+      return file;
+   }
+}
@@ -8,6 +8,7 @@ import us.ihmc.tools.io.printing.PrintTools;
 
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 
 public class PacketRouter<T extends Enum<T>> 
 {
@@ -25,6 +26,7 @@ public class PacketRouter<T extends Enum<T>>
 
    private final EnumMap<T, GlobalPacketConsumer> consumers;
    private final EnumMap<T, T> redirects;
+   private final HashSet<Class<?>> packetTypesNotToRoute = new HashSet<>();
    
    public PacketRouter(Class<T> destinationType)
    {
@@ -88,6 +90,11 @@ public class PacketRouter<T extends Enum<T>>
     */
    private void processPacketRouting(PacketCommunicator sourceCommunicator, Packet<?> packet)
    {
+      if (packetTypesNotToRoute.contains(packet.getClass()))
+      {
+         return;
+      }
+
       T source = communicatorDestinations.get(sourceCommunicator);
 
       if (shouldPrintDebugStatement(sourceCommunicator, packet.getDestination(), packet.getClass()))
@@ -117,6 +124,29 @@ public class PacketRouter<T extends Enum<T>>
       
    }
 
+   /**
+    * Stops routing packets of the given type, for example because they are translated on arrival and routed with {@link #routePacket}.
+    * Call before connecting the communicators.
+    */
+   public void disableRouting(Class<? extends Packet<?>> packetType)
+   {
+      packetTypesNotToRoute.add(packetType);
+   }
+
+   /**
+    * Routes a packet as if it was received by the communicator attached to source. Used to route packets that are
+    * translated on arrival, for example decompressed packets.
+    */
+   public void routePacket(T source, Packet<?> packet)
+   {
+      PacketCommunicator sourceCommunicator = communicators.get(source);
+      if (sourceCommunicator == null)
+      {
+         throw new IllegalArgumentException("No communicator attached for " + source);
+      }
+      processPacketRouting(sourceCommunicator, packet);
+   }
+
    private boolean isBroadcast(T destination)
    {
       return destination.ordinal() == BROADCAST;
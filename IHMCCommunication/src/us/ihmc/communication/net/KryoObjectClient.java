@@ -7,6 +7,7 @@ import java.net.UnknownHostException;
 import us.ihmc.tools.io.printing.PrintTools;
 import us.ihmc.tools.thread.ThreadTools;
 
+import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryonet.Client;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.KryoSerialization;
@@ -111,6 +112,12 @@ public class KryoObjectClient extends KryoObjectCommunicator
       return client.sendTCP(object);
    }
 
+   @Override
+   protected Kryo getKryo()
+   {
+      return client.getKryo();
+   }
+
    @Override
    public boolean isConnected()
    {
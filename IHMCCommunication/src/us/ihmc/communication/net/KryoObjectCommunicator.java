@@ -15,6 +15,7 @@ import javax.swing.table.DefaultTableModel;
 import us.ihmc.tools.FormattingTools;
 import us.ihmc.tools.thread.ThreadTools;
 
+import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.EndPoint;
 import com.esotericsoftware.kryonet.FrameworkMessage.KeepAlive;
@@ -30,6 +31,9 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    private final ArrayList<NetStateListener> stateListeners = new ArrayList<NetStateListener>();
    
    private final ArrayList<GlobalObjectConsumer> globalListeners = new ArrayList<GlobalObjectConsumer>();
+
+   private KryoPooledReceiver pooledReceiver = null;
+   private boolean connectCalled = false;
    
    // Stuff for data count table 
    private DefaultTableModel dataRateTable;
@@ -81,6 +85,34 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
 	   }
    }
    
+   /**
+    * Receive packets into pooled instances and dispatch them from a few threads through preallocated ring buffers,
+    * instead of allocating a packet and a Runnable per received object and running a thread per packet class.
+    *
+    * Listeners must not keep references to received packets, the instances are reused after all listeners are called.
+    * Has to be called before connect(), because it replaces the instantiators in the Kryo instance that the receiving thread
+    * uses. The dispatch threads are started by connect(), so a server that fails to bind does not leave them running.
+    *
+    * @param numberOfDispatchThreads Number of threads calling the listeners. All packets of a class are handled by the same thread.
+    * @param ringCapacity Number of received packets that can be queued per dispatch thread before packets are dropped
+    * @param poolSize Number of preallocated instances per packet class
+    */
+   public void enablePooledReceive(int numberOfDispatchThreads, int ringCapacity, int poolSize)
+   {
+      if (pooledReceiver != null)
+      {
+         throw new RuntimeException("Pooled receive is already enabled");
+      }
+      if (connectCalled)
+      {
+         throw new RuntimeException("Pooled receive has to be enabled before connecting");
+      }
+
+      ArrayList<Class<?>> packetClasses = new ArrayList<Class<?>>(listenerExecutors.keySet());
+      pooledReceiver = new KryoPooledReceiver(this, numberOfDispatchThreads, ringCapacity, poolSize);
+      pooledReceiver.registerWithKryo(getKryo(), packetClasses);
+   }
+
    @Override
    public void attachStateListener(NetStateListener stateListener)
    {
@@ -176,9 +208,18 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       Listener listener = new Listener()
       {
          @Override
-         @SuppressWarnings("unchecked")
          public void received(Connection connection, final Object object)
          {
+            KryoPooledReceiver pooledReceiver = KryoObjectCommunicator.this.pooledReceiver;
+            if (pooledReceiver != null)
+            {
+               if (!pooledReceiver.dispatch(object) && !(object instanceof KeepAlive))
+               {
+                  System.err.println("Received unkown object of class " + object.getClass());
+               }
+               return;
+            }
+
             final Class<? extends Object> classType = object.getClass();
             ExecutorService executorService = listenerExecutors.get(classType);
             if(executorService != null)
@@ -189,21 +230,7 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
                   @Override
                   public void run()
                   {
-                     for(int i = 0; i < globalListeners.size(); i++)
-                     {
-                        globalListeners.get(i).consumeObject(object);
-                     }
-                     
-                     ArrayList<ObjectConsumer<?>> objectListeners = listeners.get(classType);
-                     if (objectListeners != null)
-                     {
-                        for (int i = 0; i < objectListeners.size(); i++)
-                        {
-                           @SuppressWarnings("rawtypes")
-                           ObjectConsumer listener = objectListeners.get(i);
-                           listener.consumeObject(object);
-                        }
-                     }
+                     notifyListeners(object);
                   }
                });
             }
@@ -247,10 +274,37 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       endPoint.addListener(listener);
    }
 
+   @SuppressWarnings("unchecked")
+   final void notifyListeners(Object object)
+   {
+      for(int i = 0; i < globalListeners.size(); i++)
+      {
+         globalListeners.get(i).consumeObject(object);
+      }
+      
+      ArrayList<ObjectConsumer<?>> objectListeners = listeners.get(object.getClass());
+      if (objectListeners != null)
+      {
+         for (int i = 0; i < objectListeners.size(); i++)
+         {
+            @SuppressWarnings("rawtypes")
+            ObjectConsumer listener = objectListeners.get(i);
+            listener.consumeObject(object);
+         }
+      }
+   }
+
    @Override
    public final void connect() throws IOException
    {
+      // openConnection() starts the receiving thread, even when binding fails afterwards
+      connectCalled = true;
       openConnection();
+
+      if (pooledReceiver != null)
+      {
+         pooledReceiver.start();
+      }
    }
    
    @Override
@@ -261,6 +315,10 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       {
          executor.shutdownNow();
       }
+      if (pooledReceiver != null)
+      {
+         pooledReceiver.stop();
+      }
    }
    
    protected abstract void openConnection() throws IOException;
@@ -268,6 +326,11 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    protected abstract int sendUDP(Object object);
 
    protected abstract int sendTCP(Object object);
+
+   /**
+    * @return the Kryo instance used to deserialize received objects
+    */
+   protected abstract Kryo getKryo();
    
    @Override
    public abstract boolean isConnected();
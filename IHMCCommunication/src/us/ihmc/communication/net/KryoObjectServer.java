@@ -129,6 +129,12 @@ public class KryoObjectServer extends KryoObjectCommunicator
       return bytesSend;
    }
 
+   @Override
+   protected Kryo getKryo()
+   {
+      return server.getKryo();
+   }
+
    @Override
    public boolean isConnected()
    {
@@ -0,0 +1,237 @@
+package us.ihmc.communication.net;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import org.objenesis.instantiator.ObjectInstantiator;
+
+import us.ihmc.concurrent.Builder;
+import us.ihmc.concurrent.ConcurrentRingBuffer;
+import us.ihmc.tools.io.printing.PrintTools;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
+
+/**
+ * Allocation free receive path for the KryoObjectCommunicator.
+ *
+ * Kryo deserializes packets into instances taken from a per class pool instead of allocating a new packet per message.
+ * Received packets are handed to a small number of dispatch threads through preallocated ring buffers. All packets of
+ * a class go to the same dispatch thread, so listeners see them in the order they were received. After all listeners
+ * are called the packet goes back to its pool.
+ *
+ * Listeners must not hold on to received packets, copy the data instead. Fields of variable length (arrays, strings,
+ * lists) are still allocated by Kryo.
+ */
+class KryoPooledReceiver
+{
+   private final KryoObjectCommunicator communicator;
+   private final int poolSize;
+
+   private final HashMap<Class<?>, ArrayBlockingQueue<Object>> pools = new HashMap<Class<?>, ArrayBlockingQueue<Object>>();
+   private final HashMap<Class<?>, DispatchThread> dispatchThreadsByClass = new HashMap<Class<?>, DispatchThread>();
+   private final DispatchThread[] dispatchThreads;
+   private boolean started = false;
+
+   /**
+    * @param numberOfDispatchThreads Number of threads calling the listeners
+    * @param ringCapacity Number of received packets that can be queued per dispatch thread
+    * @param poolSize Number of preallocated instances per packet class
+    */
+   KryoPooledReceiver(KryoObjectCommunicator communicator, int numberOfDispatchThreads, int ringCapacity, int poolSize)
+   {
+      if (numberOfDispatchThreads < 1)
+      {
+         throw new IllegalArgumentException("Need at least one dispatch thread");
+      }
+
+      this.communicator = communicator;
+      this.poolSize = poolSize;
+
+      dispatchThreads = new DispatchThread[numberOfDispatchThreads];
+      for (int i = 0; i < numberOfDispatchThreads; i++)
+      {
+         dispatchThreads[i] = new DispatchThread("KryoPooledReceiver" + i, ringCapacity);
+      }
+   }
+
+   /**
+    * Replace the instantiators of the packet classes with pooled instantiators and assign the classes to the dispatch threads.
+    * Kryo is not thread safe, so this has to be called before the thread that receives with this Kryo instance is started.
+    */
+   void registerWithKryo(Kryo kryo, ArrayList<Class<?>> packetClasses)
+   {
+      for (int i = 0; i < packetClasses.size(); i++)
+      {
+         Class<?> clazz = packetClasses.get(i);
+         dispatchThreadsByClass.put(clazz, dispatchThreads[i % dispatchThreads.length]);
+
+         try
+         {
+            ArrayBlockingQueue<Object> pool = new ArrayBlockingQueue<Object>(poolSize);
+            for (int p = 0; p < poolSize; p++)
+            {
+               pool.offer(kryo.newInstance(clazz));
+            }
+
+            // Kryo creates the instantiator of a class when the first instance is requested
+            Registration registration = kryo.getRegistration(clazz);
+            registration.setInstantiator(new PooledInstantiator(pool, registration.getInstantiator()));
+            pools.put(clazz, pool);
+         }
+         catch (KryoException e)
+         {
+            PrintTools.warn(this, "Cannot pool instances of " + clazz.getSimpleName() + ", received objects will be allocated. " + e.getMessage());
+         }
+      }
+   }
+
+   /**
+    * Start the dispatch threads. Only the first call starts them, so reconnecting does not restart them.
+    */
+   void start()
+   {
+      if (started)
+      {
+         return;
+      }
+      started = true;
+
+      for (int i = 0; i < dispatchThreads.length; i++)
+      {
+         dispatchThreads[i].start();
+      }
+   }
+
+   void stop()
+   {
+      for (int i = 0; i < dispatchThreads.length; i++)
+      {
+         dispatchThreads[i].running = false;
+         LockSupport.unpark(dispatchThreads[i]);
+      }
+   }
+
+   /**
+    * Queue a received object for its dispatch thread. Called from the Kryo update thread.
+    *
+    * @return false if the class of the object is not registered
+    */
+   boolean dispatch(Object object)
+   {
+      DispatchThread dispatchThread = dispatchThreadsByClass.get(object.getClass());
+      if (dispatchThread == null)
+      {
+         return false;
+      }
+
+      ReceivedObject receivedObject = dispatchThread.ringBuffer.next();
+      if (receivedObject == null)
+      {
+         PrintTools.error(this, "Dropping the object of " + object.getClass() + ", because the listeners cannot keep up");
+         release(object);
+         return true;
+      }
+
+      receivedObject.object = object;
+      dispatchThread.ringBuffer.commit();
+      LockSupport.unpark(dispatchThread);
+      return true;
+   }
+
+   private void release(Object object)
+   {
+      ArrayBlockingQueue<Object> pool = pools.get(object.getClass());
+      if (pool != null)
+      {
+         pool.offer(object);
+      }
+   }
+
+   private static class ReceivedObject
+   {
+      private Object object;
+   }
+
+   private static class ReceivedObjectBuilder implements Builder<ReceivedObject>
+   {
+      @Override
+      public ReceivedObject newInstance()
+      {
+         return new ReceivedObject();
+      }
+   }
+
+   @SuppressWarnings("rawtypes")
+   private static class PooledInstantiator implements ObjectInstantiator
+   {
+      private final ArrayBlockingQueue<Object> pool;
+      private final ObjectInstantiator instantiator;
+
+      private PooledInstantiator(ArrayBlockingQueue<Object> pool, ObjectInstantiator instantiator)
+      {
+         this.pool = pool;
+         this.instantiator = instantiator;
+      }
+
+      @Override
+      public Object newInstance()
+      {
+         Object object = pool.poll();
+         if (object == null)
+         {
+            // All instances are in flight. Instances that do not fit in the pool on release are left to the GC.
+            object = instantiator.newInstance();
+         }
+         return object;
+      }
+   }
+
+   private class DispatchThread extends Thread
+   {
+      private final ConcurrentRingBuffer<ReceivedObject> ringBuffer;
+      private volatile boolean running = true;
+
+      private DispatchThread(String name, int ringCapacity)
+      {
+         super(name);
+         setDaemon(true);
+         ringBuffer = new ConcurrentRingBuffer<ReceivedObject>(new ReceivedObjectBuilder(), ringCapacity);
+      }
+
+      @Override
+      public void run()
+      {
+         while (running)
+         {
+            if (ringBuffer.poll())
+            {
+               ReceivedObject receivedObject;
+               while ((receivedObject = ringBuffer.read()) != null)
+               {
+                  Object object = receivedObject.object;
+                  receivedObject.object = null;
+                  try
+                  {
+                     communicator.notifyListeners(object);
+                  }
+                  catch (Throwable throwable)
+                  {
+                     throwable.printStackTrace();
+                  }
+                  release(object);
+               }
+               ringBuffer.flush();
+            }
+            else
+            {
+               // Woken up by dispatch() or stop(). An unpark() that comes before park() is not lost, park() returns right away.
+               LockSupport.park(this);
+            }
+         }
+      }
+   }
+}
@@ -1,5 +1,6 @@
 package us.ihmc.communication.streamingData;
 
+import us.ihmc.communication.net.NetStateListener;
 import us.ihmc.communication.net.PacketConsumer;
 import us.ihmc.communication.packetCommunicator.PacketCommunicator;
 import us.ihmc.communication.packets.ControllerCrashNotificationPacket;
@@ -37,6 +38,11 @@ public class GlobalDataProducer
       communicator.attachListener(clazz, lastPacketHolder);
    }
 
+   public void attachStateListener(NetStateListener stateListener)
+   {
+      communicator.attachStateListener(stateListener);
+   }
+
    public void queueDataToSend(Packet<?> packet)
    {
       queuedData.offer(packet);
@@ -313,6 +313,81 @@ public class KryoObjectCommunicatorTest
       
    }
 
+	@DeployableTestMethod
+	@Test(timeout=300000)
+   public void testPooledSendAndReceive() throws IOException, InterruptedException
+   {
+      int TCP_PORT = 49152 + (int)(Math.random() * (65535 - 49152));
+      Log.set(Log.LEVEL_ERROR);
+      int objectsToSend = 1000;
+      final CountDownLatch latch = new CountDownLatch(objectsToSend * 2);
+      
+      NetClassList netClassList = new NetClassList();
+      netClassList.registerPacketClass(TypeA.class);
+      netClassList.registerPacketClass(TypeB.class);
+      netClassList.registerPacketField(Vector3d.class);
+      KryoObjectServer server;
+      KryoObjectClient client;
+      
+      boolean connected = false;
+      do
+      {
+         server = new KryoObjectServer(TCP_PORT, netClassList);
+         client = new KryoObjectClient("127.0.0.1", TCP_PORT, netClassList);
+         server.enablePooledReceive(2, 4096, 16);
+         try
+         {
+            server.connect();
+            client.connect();
+            connected = true;
+         }
+         catch (BindException e)
+         {
+            server.close();
+            TCP_PORT = 49152 + (int)(Math.random() * (65535 - 49152)); //should find free port
+         }
+      }while(!connected);
+      
+      final TypeA aObjectToSend = new TypeA();
+      aObjectToSend.a = "@!aedsf";
+      aObjectToSend.b = 1;
+      aObjectToSend.c = 0.2;
+      aObjectToSend.testVector = new Vector3d(3.2, 1.1, 2.2);
+      
+      final TypeB bObjectToSend = new TypeB();
+      bObjectToSend.a = 0.23;
+      bObjectToSend.b = 2;
+      bObjectToSend.c = 23.0f;
+      
+      server.attachListener(TypeA.class, new ObjectConsumer<TypeA>()
+      {
+         public void consumeObject(TypeA object)
+         {
+            assertTrue(aObjectToSend.equals(object));
+            latch.countDown();
+         }
+      });
+      server.attachListener(TypeB.class, new ObjectConsumer<TypeB>()
+      {
+         public void consumeObject(TypeB object)
+         {
+            assertTrue(bObjectToSend.equals(object));
+            latch.countDown();
+         }
+      });
+      
+      for(int i = 0; i < objectsToSend; i++)
+      {
+         client.consumeObject(aObjectToSend);
+         client.consumeObject(bObjectToSend);
+      }
+      
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      
+      client.close();
+      server.close();
+   }
+
    // Member classes need to be static in order for deserialization to work
    private static class TypeA
    {
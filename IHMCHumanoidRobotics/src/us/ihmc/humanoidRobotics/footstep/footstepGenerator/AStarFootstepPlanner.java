@@ -0,0 +1,566 @@
+package us.ihmc.humanoidRobotics.footstep.footstepGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+import javax.vecmath.Point2d;
+import javax.vecmath.Point3d;
+import javax.vecmath.Quat4d;
+
+import us.ihmc.humanoidRobotics.communication.packets.walking.FootstepDataMessage;
+import us.ihmc.humanoidRobotics.footstep.Footstep.FootstepType;
+import us.ihmc.humanoidRobotics.footstep.footstepSnapper.ConvexHullFootstepSnapper;
+import us.ihmc.robotics.dataStructures.HeightMapWithPoints;
+import us.ihmc.robotics.geometry.AngleTools;
+import us.ihmc.robotics.geometry.RotationTools;
+import us.ihmc.robotics.quadTree.QuadTreeForGround;
+import us.ihmc.robotics.quadTree.QuadTreeForGroundSnapshot;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+/**
+ * Weighted A* footstep planner searching over a lattice of discretized foot poses (x, y, yaw, side).
+ * <p>
+ * Candidate steps are generated from a fixed set of step lengths, step widths and yaw changes expressed in the stance foot frame.
+ * A candidate is only snapped to the height map with the {@link ConvexHullFootstepSnapper} when it is taken out of the open set,
+ * so most of the candidates never pay for a snap. Snapping results are cached per lattice cell and kept across calls to
+ * {@link #plan()} until the height map is changed or {@link #clearSnappingCache()} is called.
+ * A plan queries a single snapshot of the height map when it is a {@link QuadTreeForGround}, so points put while planning neither change
+ * the terrain under the search nor make the search wait for the tree.
+ * <p>
+ * When the time budget runs out, the planner returns the steps leading to the expanded node that is the closest to the goal.
+ */
+public class AStarFootstepPlanner
+{
+   public enum PlanningResult
+   {
+      GOAL_REACHED, TIMED_OUT, NO_PATH
+   }
+
+   private static final boolean DEBUG = false;
+
+   private static final int INDEX_OFFSET = 1 << 23;
+
+   private final ConvexHullFootstepSnapper footstepSnapper;
+   private HeightMapWithPoints heightMap;
+   /** The height map, or its snapshot, queried by the current plan. */
+   private HeightMapWithPoints heightMapForPlanning;
+
+   private double gridResolution = 0.05;
+   private int numberOfYawBins = 16;
+   private double yawResolution = 2.0 * Math.PI / numberOfYawBins;
+   private int maxYawChangeInBins = 1;
+   private double[] stepLengths = {-0.15, 0.0, 0.1, 0.2, 0.3, 0.4};
+   private double[] stepWidths = {0.2, 0.25, 0.3};
+   private double nominalStepWidth = 0.25;
+   private double maxStepUp = 0.25;
+   private double maxStepDown = 0.3;
+
+   private double heuristicWeight = 2.0;
+   private double distanceWeight = 1.0;
+   private double costPerStep = 0.2;
+   private double yawWeight = 0.1;
+   private double heightChangeWeight = 1.0;
+   private double partialFootstepPenalty = 0.3;
+
+   private double goalDistanceTolerance = 0.1;
+   private double goalYawTolerance = yawResolution;
+   private double timeout = 0.5;
+
+   private final HashMap<Long, SnappingResult> snappingCache = new HashMap<>();
+
+   private FootstepDataMessage initialStanceFoot;
+   private final Point2d goalPosition = new Point2d();
+   private double goalYaw;
+
+   private final ArrayList<FootstepDataMessage> footsteps = new ArrayList<>();
+   private PlanningResult planningResult;
+   private int numberOfExpandedNodes;
+   private int numberOfSnappedFootsteps;
+   private double planningTime;
+
+   public AStarFootstepPlanner(ConvexHullFootstepSnapper footstepSnapper)
+   {
+      this.footstepSnapper = footstepSnapper;
+   }
+
+   public void setHeightMap(HeightMapWithPoints heightMap)
+   {
+      this.heightMap = heightMap;
+      clearSnappingCache();
+   }
+
+   /**
+    * Needs to be called when the height map has been modified since the last plan.
+    */
+   public void clearSnappingCache()
+   {
+      snappingCache.clear();
+   }
+
+   /**
+    * @param initialStanceFoot the foot the robot is standing on when starting to walk. The first step is taken with the other foot.
+    */
+   public void setInitialStanceFoot(FootstepDataMessage initialStanceFoot)
+   {
+      this.initialStanceFoot = new FootstepDataMessage(initialStanceFoot);
+   }
+
+   /**
+    * @param midFootPosition position of the point halfway between the feet at the end of the plan.
+    * @param yaw heading of the robot at the end of the plan.
+    */
+   public void setGoalPose(Point2d midFootPosition, double yaw)
+   {
+      goalPosition.set(midFootPosition);
+      goalYaw = yaw;
+   }
+
+   public void setTimeout(double timeoutInSeconds)
+   {
+      timeout = timeoutInSeconds;
+   }
+
+   /**
+    * A weight of 1.0 gives the regular A*. Larger weights expand fewer nodes at the price of plans that may cost up to that factor more.
+    */
+   public void setHeuristicWeight(double heuristicWeight)
+   {
+      this.heuristicWeight = heuristicWeight;
+   }
+
+   public void setGridResolution(double gridResolution)
+   {
+      this.gridResolution = gridResolution;
+      clearSnappingCache();
+   }
+
+   public void setNumberOfYawBins(int numberOfYawBins)
+   {
+      this.numberOfYawBins = numberOfYawBins;
+      yawResolution = 2.0 * Math.PI / numberOfYawBins;
+      goalYawTolerance = yawResolution;
+      clearSnappingCache();
+   }
+
+   public void setMaxYawChangeInBins(int maxYawChangeInBins)
+   {
+      this.maxYawChangeInBins = maxYawChangeInBins;
+   }
+
+   /**
+    * @param stepLengths forward distances from the stance foot to the swing foot, in the stance foot frame.
+    */
+   public void setStepLengths(double... stepLengths)
+   {
+      this.stepLengths = stepLengths.clone();
+   }
+
+   /**
+    * @param stepWidths lateral distances from the stance foot to the swing foot, in the stance foot frame.
+    */
+   public void setStepWidths(double... stepWidths)
+   {
+      this.stepWidths = stepWidths.clone();
+   }
+
+   public void setNominalStepWidth(double nominalStepWidth)
+   {
+      this.nominalStepWidth = nominalStepWidth;
+   }
+
+   public void setMaxStepUpAndDown(double maxStepUp, double maxStepDown)
+   {
+      this.maxStepUp = maxStepUp;
+      this.maxStepDown = maxStepDown;
+   }
+
+   public void setCostWeights(double distanceWeight, double costPerStep, double yawWeight, double heightChangeWeight, double partialFootstepPenalty)
+   {
+      this.distanceWeight = distanceWeight;
+      this.costPerStep = costPerStep;
+      this.yawWeight = yawWeight;
+      this.heightChangeWeight = heightChangeWeight;
+      this.partialFootstepPenalty = partialFootstepPenalty;
+   }
+
+   public void setGoalTolerances(double goalDistanceTolerance, double goalYawTolerance)
+   {
+      this.goalDistanceTolerance = goalDistanceTolerance;
+      this.goalYawTolerance = goalYawTolerance;
+   }
+
+   public PlanningResult plan()
+   {
+      if (heightMap == null)
+         throw new RuntimeException("The height map has not been set.");
+      if (initialStanceFoot == null)
+         throw new RuntimeException("The initial stance foot has not been set.");
+
+      long startTime = System.nanoTime();
+      long timeoutInNanoseconds = (long) (timeout * 1.0e9);
+      heightMapForPlanning = QuadTreeForGroundSnapshot.getSnapshotIfAvailable(heightMap);
+
+      footsteps.clear();
+      numberOfExpandedNodes = 0;
+      numberOfSnappedFootsteps = 0;
+
+      PriorityQueue<PlanningNode> openSet = new PriorityQueue<>(1024, nodeComparator);
+      HashMap<Long, Double> bestCostsFromStart = new HashMap<>();
+      HashSet<Long> closedSet = new HashSet<>();
+
+      PlanningNode startNode = createStartNode();
+      openSet.add(startNode);
+      bestCostsFromStart.put(startNode.key, 0.0);
+
+      PlanningNode closestNodeToGoal = startNode;
+      planningResult = PlanningResult.NO_PATH;
+
+      while (!openSet.isEmpty())
+      {
+         if (System.nanoTime() - startTime > timeoutInNanoseconds)
+         {
+            planningResult = PlanningResult.TIMED_OUT;
+            break;
+         }
+
+         PlanningNode node = openSet.poll();
+
+         if (closedSet.contains(node.key))
+            continue;
+
+         if (node.footstep == null)
+         {
+            SnappingResult snappingResult = snap(node.key, node.xIndex, node.yIndex, node.yawIndex, node.robotSide);
+
+            if (snappingResult.footstepType == FootstepType.BAD_FOOTSTEP)
+            {
+               closedSet.add(node.key);
+               continue;
+            }
+
+            double heightChange = snappingResult.footstep.getLocation().getZ() - node.parent.footstep.getLocation().getZ();
+
+            if (heightChange > maxStepUp || -heightChange > maxStepDown)
+            {
+               // Another stance foot may still reach this cell
+               Double bestCostFromStart = bestCostsFromStart.get(node.key);
+               if (bestCostFromStart != null && bestCostFromStart.doubleValue() == node.costFromStart)
+                  bestCostsFromStart.remove(node.key);
+               continue;
+            }
+
+            node.footstep = snappingResult.footstep;
+            double additionalCost = heightChangeWeight * Math.abs(heightChange);
+            if (snappingResult.footstepType == FootstepType.PARTIAL_FOOTSTEP)
+               additionalCost += partialFootstepPenalty;
+
+            if (additionalCost > 0.0)
+            {
+               node.costFromStart += additionalCost;
+               node.totalCost += additionalCost;
+
+               if (!openSet.isEmpty() && nodeComparator.compare(node, openSet.peek()) > 0)
+               {
+                  openSet.add(node);
+                  continue;
+               }
+            }
+         }
+
+         closedSet.add(node.key);
+         numberOfExpandedNodes++;
+
+         if (node.costToGoal < closestNodeToGoal.costToGoal)
+            closestNodeToGoal = node;
+
+         if (isCloseToGoal(node))
+         {
+            FootstepDataMessage squareUpFootstep = computeSquareUpFootstep(node);
+
+            if (squareUpFootstep != null)
+            {
+               extractFootsteps(node);
+               footsteps.add(squareUpFootstep);
+               planningResult = PlanningResult.GOAL_REACHED;
+               break;
+            }
+         }
+
+         expand(node, openSet, bestCostsFromStart, closedSet);
+      }
+
+      if (planningResult != PlanningResult.GOAL_REACHED)
+         extractFootsteps(closestNodeToGoal);
+
+      planningTime = (System.nanoTime() - startTime) * 1.0e-9;
+
+      if (DEBUG)
+      {
+         System.out.println(getClass().getSimpleName() + ": " + planningResult + " in " + planningTime + " s, expanded nodes: " + numberOfExpandedNodes
+               + ", snapped footsteps: " + numberOfSnappedFootsteps + ", number of steps: " + footsteps.size());
+      }
+
+      return planningResult;
+   }
+
+   private void expand(PlanningNode stanceNode, PriorityQueue<PlanningNode> openSet, HashMap<Long, Double> bestCostsFromStart, HashSet<Long> closedSet)
+   {
+      RobotSide swingSide = stanceNode.robotSide.getOppositeSide();
+      double stanceX = stanceNode.xIndex * gridResolution;
+      double stanceY = stanceNode.yIndex * gridResolution;
+      double stanceYaw = stanceNode.yawIndex * yawResolution;
+      double cosYaw = Math.cos(stanceYaw);
+      double sinYaw = Math.sin(stanceYaw);
+
+      for (double stepLength : stepLengths)
+      {
+         for (double stepWidth : stepWidths)
+         {
+            double stepY = swingSide.negateIfRightSide(stepWidth);
+            int xIndex = discretize(stanceX + cosYaw * stepLength - sinYaw * stepY);
+            int yIndex = discretize(stanceY + sinYaw * stepLength + cosYaw * stepY);
+
+            for (int yawChange = -maxYawChangeInBins; yawChange <= maxYawChangeInBins; yawChange++)
+            {
+               int yawIndex = wrapYawIndex(stanceNode.yawIndex + yawChange);
+               long key = computeKey(xIndex, yIndex, yawIndex, swingSide);
+
+               if (closedSet.contains(key))
+                  continue;
+
+               double stepCost = distanceWeight * (Math.abs(stepLength) + Math.abs(stepWidth - nominalStepWidth)) + costPerStep
+                     + yawWeight * Math.abs(yawChange) * yawResolution;
+               double costFromStart = stanceNode.costFromStart + stepCost;
+
+               Double bestCostFromStart = bestCostsFromStart.get(key);
+               if (bestCostFromStart != null && bestCostFromStart.doubleValue() <= costFromStart)
+                  continue;
+
+               bestCostsFromStart.put(key, costFromStart);
+
+               PlanningNode node = new PlanningNode(key, xIndex, yIndex, yawIndex, swingSide);
+               node.parent = stanceNode;
+               node.costFromStart = costFromStart;
+               node.costToGoal = computeHeuristic(node);
+               node.totalCost = costFromStart + heuristicWeight * node.costToGoal;
+               openSet.add(node);
+            }
+         }
+      }
+   }
+
+   private PlanningNode createStartNode()
+   {
+      Point3d location = initialStanceFoot.getLocation();
+      double yaw = RotationTools.computeYaw(initialStanceFoot.getOrientation());
+      int xIndex = discretize(location.getX());
+      int yIndex = discretize(location.getY());
+      int yawIndex = wrapYawIndex((int) Math.round(yaw / yawResolution));
+      RobotSide robotSide = initialStanceFoot.getRobotSide();
+
+      PlanningNode startNode = new PlanningNode(computeKey(xIndex, yIndex, yawIndex, robotSide), xIndex, yIndex, yawIndex, robotSide);
+      startNode.footstep = initialStanceFoot;
+      startNode.costToGoal = computeHeuristic(startNode);
+      startNode.totalCost = heuristicWeight * startNode.costToGoal;
+      return startNode;
+   }
+
+   private double computeHeuristic(PlanningNode node)
+   {
+      double distanceToGoal = computeDistanceToGoalFoot(node);
+      double yawToGoal = Math.abs(AngleTools.computeAngleDifferenceMinusPiToPi(goalYaw, node.yawIndex * yawResolution));
+      double maxStepLength = getMaxStepLength();
+
+      return distanceToGoal * (distanceWeight + costPerStep / maxStepLength) + yawWeight * yawToGoal;
+   }
+
+   private boolean isCloseToGoal(PlanningNode node)
+   {
+      double distanceToGoal = computeDistanceToGoalFoot(node);
+      double yawToGoal = Math.abs(AngleTools.computeAngleDifferenceMinusPiToPi(goalYaw, node.yawIndex * yawResolution));
+
+      return distanceToGoal <= goalDistanceTolerance && yawToGoal <= goalYawTolerance;
+   }
+
+   /**
+    * Places the other foot next to the last step at the goal, returns null if that foot cannot be placed there.
+    */
+   private FootstepDataMessage computeSquareUpFootstep(PlanningNode stanceNode)
+   {
+      RobotSide robotSide = stanceNode.robotSide.getOppositeSide();
+      double stanceYaw = stanceNode.yawIndex * yawResolution;
+      double stanceX = stanceNode.xIndex * gridResolution;
+      double stanceY = stanceNode.yIndex * gridResolution;
+      double stepY = robotSide.negateIfRightSide(nominalStepWidth);
+
+      Quat4d orientation = new Quat4d();
+      RotationTools.convertYawPitchRollToQuaternion(stanceYaw, 0.0, 0.0, orientation);
+      Point3d location = new Point3d(stanceX - Math.sin(stanceYaw) * stepY, stanceY + Math.cos(stanceYaw) * stepY, 0.0);
+      FootstepDataMessage squareUpFootstep = new FootstepDataMessage(robotSide, location, orientation);
+
+      if (footstepSnapper.snapFootstep(squareUpFootstep, heightMapForPlanning) == FootstepType.BAD_FOOTSTEP)
+         return null;
+
+      double heightChange = squareUpFootstep.getLocation().getZ() - stanceNode.footstep.getLocation().getZ();
+      if (heightChange > maxStepUp || -heightChange > maxStepDown)
+         return null;
+
+      return squareUpFootstep;
+   }
+
+   private SnappingResult snap(long key, int xIndex, int yIndex, int yawIndex, RobotSide robotSide)
+   {
+      SnappingResult snappingResult = snappingCache.get(key);
+
+      if (snappingResult == null)
+      {
+         Quat4d orientation = new Quat4d();
+         RotationTools.convertYawPitchRollToQuaternion(yawIndex * yawResolution, 0.0, 0.0, orientation);
+         Point3d location = new Point3d(xIndex * gridResolution, yIndex * gridResolution, 0.0);
+         FootstepDataMessage footstep = new FootstepDataMessage(robotSide, location, orientation);
+         FootstepType footstepType = footstepSnapper.snapFootstep(footstep, heightMapForPlanning);
+
+         snappingResult = new SnappingResult(footstep, footstepType);
+         snappingCache.put(key, snappingResult);
+         numberOfSnappedFootsteps++;
+      }
+
+      return snappingResult;
+   }
+
+   private void extractFootsteps(PlanningNode lastNode)
+   {
+      footsteps.clear();
+
+      for (PlanningNode node = lastNode; node.parent != null; node = node.parent)
+         footsteps.add(new FootstepDataMessage(node.footstep));
+
+      Collections.reverse(footsteps);
+   }
+
+   private double computeDistanceToGoalFoot(PlanningNode node)
+   {
+      double dx = computeGoalFootX(node.robotSide) - node.xIndex * gridResolution;
+      double dy = computeGoalFootY(node.robotSide) - node.yIndex * gridResolution;
+      return Math.sqrt(dx * dx + dy * dy);
+   }
+
+   private double computeGoalFootX(RobotSide robotSide)
+   {
+      return goalPosition.getX() - Math.sin(goalYaw) * robotSide.negateIfRightSide(0.5 * nominalStepWidth);
+   }
+
+   private double computeGoalFootY(RobotSide robotSide)
+   {
+      return goalPosition.getY() + Math.cos(goalYaw) * robotSide.negateIfRightSide(0.5 * nominalStepWidth);
+   }
+
+   private double getMaxStepLength()
+   {
+      double maxStepLength = 0.0;
+      for (double stepLength : stepLengths)
+         maxStepLength = Math.max(maxStepLength, Math.abs(stepLength));
+      return maxStepLength;
+   }
+
+   private int discretize(double value)
+   {
+      return (int) Math.round(value / gridResolution);
+   }
+
+   private int wrapYawIndex(int yawIndex)
+   {
+      int wrappedIndex = yawIndex % numberOfYawBins;
+      return wrappedIndex < 0 ? wrappedIndex + numberOfYawBins : wrappedIndex;
+   }
+
+   private static long computeKey(int xIndex, int yIndex, int yawIndex, RobotSide robotSide)
+   {
+      long key = (long) (xIndex + INDEX_OFFSET) << 33 | (long) (yIndex + INDEX_OFFSET) << 9 | (long) yawIndex << 1;
+      return robotSide == RobotSide.LEFT ? key : key | 1L;
+   }
+
+   /**
+    * @return the footsteps of the last plan, not including the initial stance foot. When the goal has not been reached, the footsteps lead to
+    * the explored pose the closest to the goal.
+    */
+   public ArrayList<FootstepDataMessage> getFootsteps()
+   {
+      return footsteps;
+   }
+
+   public PlanningResult getPlanningResult()
+   {
+      return planningResult;
+   }
+
+   public int getNumberOfExpandedNodes()
+   {
+      return numberOfExpandedNodes;
+   }
+
+   /**
+    * @return the number of footsteps snapped during the last plan, footsteps found in the cache are not counted.
+    */
+   public int getNumberOfSnappedFootsteps()
+   {
+      return numberOfSnappedFootsteps;
+   }
+
+   public double getPlanningTime()
+   {
+      return planningTime;
+   }
+
+   private final Comparator<PlanningNode> nodeComparator = new Comparator<PlanningNode>()
+   {
+      @Override
+      public int compare(PlanningNode nodeA, PlanningNode nodeB)
+      {
+         int comparison = Double.compare(nodeA.totalCost, nodeB.totalCost);
+         if (comparison != 0)
+            return comparison;
+         return Double.compare(nodeA.costToGoal, nodeB.costToGoal);
+      }
+   };
+
+   private static class PlanningNode
+   {
+      private final long key;
+      private final int xIndex;
+      private final int yIndex;
+      private final int yawIndex;
+      private final RobotSide robotSide;
+
+      private PlanningNode parent;
+      private FootstepDataMessage footstep;
+      private double costFromStart;
+      private double costToGoal;
+      private double totalCost;
+
+      private PlanningNode(long key, int xIndex, int yIndex, int yawIndex, RobotSide robotSide)
+      {
+         this.key = key;
+         this.xIndex = xIndex;
+         this.yIndex = yIndex;
+         this.yawIndex = yawIndex;
+         this.robotSide = robotSide;
+      }
+   }
+
+   private static class SnappingResult
+   {
+      private final FootstepDataMessage footstep;
+      private final FootstepType footstepType;
+
+      private SnappingResult(FootstepDataMessage footstep, FootstepType footstepType)
+      {
+         this.footstep = footstep;
+         this.footstepType = footstepType;
+      }
+   }
+}
@@ -17,6 +17,7 @@ import us.ihmc.robotics.geometry.FramePose2d;
 import us.ihmc.robotics.geometry.InsufficientDataException;
 import us.ihmc.robotics.geometry.RigidBodyTransform;
 import us.ihmc.robotics.geometry.RotationTools;
+import us.ihmc.robotics.quadTree.QuadTreeForGroundSnapshot;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 import us.ihmc.robotics.robotSide.RobotSide;
 import us.ihmc.robotics.screwTheory.RigidBody;
@@ -142,6 +143,7 @@ public class AdjustingFootstepSnapper implements FootstepSnapper
    @Override
    public Footstep.FootstepType snapFootstep(FootstepDataMessage footstep, HeightMapWithPoints heightMap)
    {
+      heightMap = QuadTreeForGroundSnapshot.getSnapshotIfAvailable(heightMap); // all the queries of this snap see the same state of the tree
       Footstep.FootstepType footstepFound = convexHullFootstepSnapper.snapFootstep(footstep, heightMap);
 
       if (footstepFound != Footstep.FootstepType.BAD_FOOTSTEP)
@@ -31,6 +31,7 @@ import us.ihmc.robotics.geometry.QuickHull3dWrapper;
 import us.ihmc.robotics.geometry.RigidBodyTransform;
 import us.ihmc.robotics.geometry.RotationTools;
 import us.ihmc.robotics.geometry.shapes.Plane3d;
+import us.ihmc.robotics.quadTree.QuadTreeForGroundSnapshot;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 import us.ihmc.robotics.robotSide.RobotSide;
 import us.ihmc.robotics.screwTheory.RigidBody;
@@ -216,6 +217,7 @@ public class ConvexHullFootstepSnapper implements FootstepSnapper
    @Override
    public Footstep.FootstepType snapFootstep(FootstepDataMessage footstep, HeightMapWithPoints heightMap)
    {
+      heightMap = QuadTreeForGroundSnapshot.getSnapshotIfAvailable(heightMap); // all the queries of this snap see the same state of the tree
       FootstepDataMessage originalFootstepFound = new FootstepDataMessage(footstep);
       Point3d position = originalFootstepFound.getLocation();
       double yaw = RotationTools.computeYaw(originalFootstepFound.getOrientation());
@@ -20,6 +20,7 @@ import us.ihmc.robotics.geometry.PlaneFitter;
 import us.ihmc.robotics.geometry.RigidBodyTransform;
 import us.ihmc.robotics.geometry.RotationTools;
 import us.ihmc.robotics.geometry.shapes.Plane3d;
+import us.ihmc.robotics.quadTree.QuadTreeForGroundSnapshot;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 import us.ihmc.robotics.robotSide.RobotSide;
 import us.ihmc.robotics.screwTheory.RigidBody;
@@ -95,6 +96,7 @@ public class SimpleFootstepSnapper implements FootstepSnapper
    @Override
    public Footstep.FootstepType snapFootstep(FootstepDataMessage footstep, HeightMapWithPoints heightMap)
    {
+      heightMap = QuadTreeForGroundSnapshot.getSnapshotIfAvailable(heightMap); // all the queries of this snap see the same state of the tree
       Quat4d orientation = footstep.getOrientation();
       Point3d position = footstep.getLocation();
       double yaw = RotationTools.computeYaw(orientation);
@@ -138,6 +140,7 @@ public class SimpleFootstepSnapper implements FootstepSnapper
            throws InsufficientDataException
    {
       Point2d position = new Point2d(footPose2d.getX(), footPose2d.getY());
+      heightMap = QuadTreeForGroundSnapshot.getSnapshotIfAvailable(heightMap); // all the queries of this snap see the same state of the tree
       if (!useMask)
       {
          pointList = heightMap.getAllPointsWithinArea(footPose2d.getX(), footPose2d.getY(), searchWidth, searchLength);
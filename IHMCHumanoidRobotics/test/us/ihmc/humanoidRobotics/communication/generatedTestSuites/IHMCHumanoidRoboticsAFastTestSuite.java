@@ -15,6 +15,7 @@ import us.ihmc.tools.testing.TestPlanTarget;
    us.ihmc.humanoidRobotics.communication.packets.walking.CapturabilityBasedStatusTest.class,
    us.ihmc.humanoidRobotics.communication.packets.wholebody.JointAnglesPacketTest.class,
    us.ihmc.humanoidRobotics.communication.subscribers.TimeStampedTransformBufferTest.class,
+   us.ihmc.humanoidRobotics.footstep.footstepGenerator.AStarFootstepPlannerTest.class,
    us.ihmc.humanoidRobotics.footstep.footstepGenerator.FootstepGeneratorsTest.class,
    us.ihmc.humanoidRobotics.footstep.footstepGenerator.overheadPath.OverheadPathTest.class,
    us.ihmc.humanoidRobotics.footstep.footstepSnapper.ConvexHullFootstepSnapperTest.class,
@@ -0,0 +1,255 @@
+package us.ihmc.humanoidRobotics.footstep.footstepGenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import javax.vecmath.Point2d;
+import javax.vecmath.Point3d;
+import javax.vecmath.Quat4d;
+
+import org.junit.Test;
+
+import us.ihmc.humanoidRobotics.communication.packets.walking.FootstepDataMessage;
+import us.ihmc.humanoidRobotics.footstep.footstepGenerator.AStarFootstepPlanner.PlanningResult;
+import us.ihmc.humanoidRobotics.footstep.footstepSnapper.ConvexHullFootstepSnapper;
+import us.ihmc.humanoidRobotics.footstep.footstepSnapper.FootstepSnappingParameters;
+import us.ihmc.humanoidRobotics.footstep.footstepSnapper.GenericFootstepSnappingParameters;
+import us.ihmc.humanoidRobotics.footstep.footstepSnapper.SimpleFootstepValueFunction;
+import us.ihmc.robotics.geometry.RotationTools;
+import us.ihmc.robotics.quadTree.Box;
+import us.ihmc.robotics.quadTree.QuadTreeForGroundParameters;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.sensorProcessing.pointClouds.combinationQuadTreeOctTree.QuadTreeForGroundHeightMap;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class AStarFootstepPlannerTest
+{
+   private static final double MIN_X = -1.0;
+   private static final double MAX_X = 11.5;
+   private static final double MIN_Y = -1.5;
+   private static final double MAX_Y = 1.5;
+   private static final double POINT_SPACING = 0.025;
+
+   private static final double GOAL_DISTANCE = 10.0;
+   // Long enough for a loaded build machine, the planning time is measured in AStarFootstepPlannerBenchmark
+   private static final double PLANNER_TIMEOUT = 10.0;
+
+   private static final double MAX_STEP_UP = 0.25;
+   private static final double MAX_STEP_DOWN = 0.3;
+
+   private interface TerrainHeightFunction
+   {
+      public double heightAt(double x, double y);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 3.0)
+   @Test(timeout = 30000)
+   public void testFlatGround()
+   {
+      TerrainHeightFunction flatGround = new TerrainHeightFunction()
+      {
+         @Override
+         public double heightAt(double x, double y)
+         {
+            return 0.0;
+         }
+      };
+
+      planAndAssertGoalReached("flat ground", flatGround);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 3.0)
+   @Test(timeout = 30000)
+   public void testStairsUpAndDown()
+   {
+      TerrainHeightFunction stairs = new TerrainHeightFunction()
+      {
+         private final double stepRise = 0.1;
+         private final double stepRun = 0.6;
+         private final int numberOfSteps = 5;
+
+         @Override
+         public double heightAt(double x, double y)
+         {
+            double stepsUp = Math.floor((x - 2.0) / stepRun) + 1.0;
+            double stepsDown = Math.floor((8.0 - x) / stepRun) + 1.0;
+            double numberOfStepsAtX = Math.max(0.0, Math.min(numberOfSteps, Math.min(stepsUp, stepsDown)));
+            return stepRise * numberOfStepsAtX;
+         }
+      };
+
+      planAndAssertGoalReached("stairs", stairs);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 3.0)
+   @Test(timeout = 30000)
+   public void testRandomBlocks()
+   {
+      final double blockSize = 0.5;
+      final int numberOfBlocksX = (int) Math.ceil((MAX_X - MIN_X) / blockSize);
+      final int numberOfBlocksY = (int) Math.ceil((MAX_Y - MIN_Y) / blockSize);
+      final double[][] blockHeights = new double[numberOfBlocksX + 1][numberOfBlocksY + 1];
+      Random random = new Random(1776L);
+
+      for (int i = 0; i <= numberOfBlocksX; i++)
+      {
+         for (int j = 0; j <= numberOfBlocksY; j++)
+         {
+            blockHeights[i][j] = 0.1 * random.nextDouble();
+         }
+      }
+
+      TerrainHeightFunction randomBlocks = new TerrainHeightFunction()
+      {
+         @Override
+         public double heightAt(double x, double y)
+         {
+            int i = (int) Math.floor((x - MIN_X) / blockSize);
+            int j = (int) Math.floor((y - MIN_Y) / blockSize);
+            return blockHeights[i][j];
+         }
+      };
+
+      planAndAssertGoalReached("random blocks", randomBlocks);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testTimeoutWhenGoalIsOutsideOfHeightMap()
+   {
+      TerrainHeightFunction flatGround = new TerrainHeightFunction()
+      {
+         @Override
+         public double heightAt(double x, double y)
+         {
+            return 0.0;
+         }
+      };
+
+      AStarFootstepPlanner planner = createPlanner(createHeightMap(flatGround));
+      planner.setTimeout(0.5);
+      planner.setInitialStanceFoot(createInitialStanceFoot());
+      planner.setGoalPose(new Point2d(MAX_X + 5.0, 0.0), 0.0);
+
+      PlanningResult planningResult = planner.plan();
+
+      assertEquals(PlanningResult.TIMED_OUT, planningResult);
+
+      ArrayList<FootstepDataMessage> footsteps = planner.getFootsteps();
+      assertFalse(footsteps.isEmpty());
+      assertStepsAreFeasible(createInitialStanceFoot(), footsteps);
+      assertTrue(footsteps.get(footsteps.size() - 1).getLocation().getX() > 1.0);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 2.0)
+   @Test(timeout = 30000)
+   public void testSnappingCacheIsReusedAcrossPlans()
+   {
+      TerrainHeightFunction flatGround = new TerrainHeightFunction()
+      {
+         @Override
+         public double heightAt(double x, double y)
+         {
+            return 0.0;
+         }
+      };
+
+      AStarFootstepPlanner planner = createPlanner(createHeightMap(flatGround));
+      planner.setInitialStanceFoot(createInitialStanceFoot());
+      planner.setGoalPose(new Point2d(3.0, 0.0), 0.0);
+
+      assertEquals(PlanningResult.GOAL_REACHED, planner.plan());
+      assertTrue(planner.getNumberOfSnappedFootsteps() > 0);
+      ArrayList<FootstepDataMessage> firstPlan = new ArrayList<>(planner.getFootsteps());
+
+      assertEquals(PlanningResult.GOAL_REACHED, planner.plan());
+      assertEquals(0, planner.getNumberOfSnappedFootsteps());
+      assertEquals(firstPlan.size(), planner.getFootsteps().size());
+
+      planner.clearSnappingCache();
+      assertEquals(PlanningResult.GOAL_REACHED, planner.plan());
+      assertTrue(planner.getNumberOfSnappedFootsteps() > 0);
+   }
+
+   private void planAndAssertGoalReached(String terrainName, TerrainHeightFunction terrain)
+   {
+      AStarFootstepPlanner planner = createPlanner(createHeightMap(terrain));
+      FootstepDataMessage initialStanceFoot = createInitialStanceFoot();
+      planner.setInitialStanceFoot(initialStanceFoot);
+      planner.setGoalPose(new Point2d(GOAL_DISTANCE, 0.0), 0.0);
+
+      PlanningResult planningResult = planner.plan();
+
+      assertEquals("Planning on " + terrainName, PlanningResult.GOAL_REACHED, planningResult);
+
+      ArrayList<FootstepDataMessage> footsteps = planner.getFootsteps();
+      assertStepsAreFeasible(initialStanceFoot, footsteps);
+
+      Point3d lastStep = footsteps.get(footsteps.size() - 1).getLocation();
+      Point3d secondToLastStep = footsteps.get(footsteps.size() - 2).getLocation();
+      double midFootX = 0.5 * (lastStep.getX() + secondToLastStep.getX());
+      double midFootY = 0.5 * (lastStep.getY() + secondToLastStep.getY());
+      assertEquals(GOAL_DISTANCE, midFootX, 0.15);
+      assertEquals(0.0, midFootY, 0.15);
+   }
+
+   private static void assertStepsAreFeasible(FootstepDataMessage initialStanceFoot, ArrayList<FootstepDataMessage> footsteps)
+   {
+      FootstepDataMessage stanceFoot = initialStanceFoot;
+
+      for (FootstepDataMessage footstep : footsteps)
+      {
+         assertEquals(stanceFoot.getRobotSide().getOppositeSide(), footstep.getRobotSide());
+
+         double stepReach = Math.hypot(footstep.getLocation().getX() - stanceFoot.getLocation().getX(),
+               footstep.getLocation().getY() - stanceFoot.getLocation().getY());
+         assertTrue(stepReach < 0.55);
+
+         double heightChange = footstep.getLocation().getZ() - stanceFoot.getLocation().getZ();
+         assertTrue(heightChange <= MAX_STEP_UP + 1.0e-7);
+         assertTrue(-heightChange <= MAX_STEP_DOWN + 1.0e-7);
+
+         stanceFoot = footstep;
+      }
+   }
+
+   private static AStarFootstepPlanner createPlanner(QuadTreeForGroundHeightMap heightMap)
+   {
+      FootstepSnappingParameters snappingParameters = new GenericFootstepSnappingParameters();
+      ConvexHullFootstepSnapper footstepSnapper = new ConvexHullFootstepSnapper(new SimpleFootstepValueFunction(snappingParameters), snappingParameters);
+
+      AStarFootstepPlanner planner = new AStarFootstepPlanner(footstepSnapper);
+      planner.setHeightMap(heightMap);
+      planner.setMaxStepUpAndDown(MAX_STEP_UP, MAX_STEP_DOWN);
+      planner.setTimeout(PLANNER_TIMEOUT);
+      return planner;
+   }
+
+   private static FootstepDataMessage createInitialStanceFoot()
+   {
+      Quat4d orientation = new Quat4d();
+      RotationTools.convertYawPitchRollToQuaternion(0.0, 0.0, 0.0, orientation);
+      return new FootstepDataMessage(RobotSide.LEFT, new Point3d(0.0, 0.125, 0.0), orientation);
+   }
+
+   private static QuadTreeForGroundHeightMap createHeightMap(TerrainHeightFunction terrain)
+   {
+      Box bounds = new Box(MIN_X, MIN_Y, MAX_X, MAX_Y);
+      QuadTreeForGroundParameters quadTreeParameters = new QuadTreeForGroundParameters(0.025, 0.005, 0.02, 20, 0.2, -1);
+      QuadTreeForGroundHeightMap heightMap = new QuadTreeForGroundHeightMap(bounds, quadTreeParameters);
+
+      for (double x = MIN_X; x < MAX_X; x += POINT_SPACING)
+      {
+         for (double y = MIN_Y; y < MAX_Y; y += POINT_SPACING)
+         {
+            heightMap.addPoint(x, y, terrain.heightAt(x, y));
+         }
+      }
+
+      return heightMap;
+   }
+}
@@ -1,6 +1,7 @@
 package us.ihmc.tools.compression;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.xerial.snappy.Snappy;
 
@@ -24,4 +25,16 @@ public class SnappyLibrary
    {
       return Snappy.uncompress(input, inputOffset, inputLength, output, outputOffset);
    }
+
+   /**
+    * Uncompress between direct ByteBuffers without copying to a byte array. 
+    * 
+    * The positions of input and output are not changed.
+    * 
+    * @return uncompressed size
+    */
+   public int uncompress(ByteBuffer input, ByteBuffer output) throws IOException
+   {
+      return Snappy.uncompress(input, output);
+   }
 }
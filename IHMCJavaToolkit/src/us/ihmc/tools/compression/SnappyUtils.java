@@ -91,13 +91,25 @@ public class SnappyUtils
    /**
     * Uncompress Snappy compressed data packet. 
     * 
-    * @param input Snappy compressed data, faster if HeapByteBuffer
-    * @param output Decompressed data, faster if HeapByteBuffer
+    * @param input Snappy compressed data, faster if HeapByteBuffer or if both input and output are direct
+    * @param output Decompressed data, faster if HeapByteBuffer or if both input and output are direct
     * @throws IllegalArgumentException
     * @throws IOException 
     */
    public static void uncompress(ByteBuffer input, ByteBuffer output) throws IllegalArgumentException, IOException
    {
+      if (input.isDirect() && output.isDirect() && !DISABLE_COMPRESSION)
+      {
+         // Decompress directly, for example from a memory mapped file, without intermediate byte arrays
+         int outputPosition = output.position();
+         int outputLimit = output.limit();
+         int uncompressedSize = snappyLibrary.uncompress(input, output);
+         input.position(input.limit());
+         output.limit(outputLimit);
+         output.position(outputPosition + uncompressedSize);
+         return;
+      }
+      
       byte[] in;
       int inOffset, inLength;
       if(!input.hasArray())
@@ -56,6 +56,26 @@ public class AsyncPointCloudReceiver implements PointCloudDataReceiverInterface
       }
    }
 
+   @Override
+   public void receivedPointCloudData(ReferenceFrame scanFrame, ReferenceFrame lidarFrame, PointCloudBatch points, PointCloudSource... sources)
+   {
+      if (points.size() == 0)
+         return;
+
+      // The points are handed out as a list that is replaced on every scan, so they have to be unpacked here
+      ArrayList<Point3d> pointList = new ArrayList<Point3d>(points.size());
+      long[] timestamps = new long[points.size()];
+      for (int i = 0; i < points.size(); i++)
+      {
+         Point3d point = new Point3d();
+         points.getPoint(i, point);
+         pointList.add(point);
+         timestamps[i] = points.getTimestamp(i);
+      }
+
+      receivedPointCloudData(scanFrame, lidarFrame, timestamps, pointList, sources);
+   }
+
    @Override
    public ReferenceFrame getLidarFrame(String sensorNameInSdf)
    {
@@ -11,6 +11,8 @@ public class DepthDataFilter extends DepthDataStore
    // See DRCManualLidarTransform and DRCLidarVisualizationManager. This is a bit of a hack but less likely to have unintended consequences.
    private final RigidBodyTransform worldToCorrected = new RigidBodyTransform();
 
+   private final Point3d nearScanCenter = new Point3d();
+
 
    public DepthDataFilter()
    {
@@ -71,8 +73,8 @@ public class DepthDataFilter extends DepthDataStore
       boolean valid = true;
       valid &= point.z < lidarOrigin.z + parameters.nearScanZMaxAboveHead;
 
-      Point3d center = new Point3d(lidarOrigin.x, lidarOrigin.y, point.z);
-      valid &= point.distance(center) < parameters.nearScanRadius;
+      nearScanCenter.set(lidarOrigin.x, lidarOrigin.y, point.z);
+      valid &= point.distance(nearScanCenter) < parameters.nearScanRadius;
 
 
       return valid;
@@ -0,0 +1,154 @@
+package us.ihmc.ihmcPerception.depthData;
+
+import java.util.List;
+
+import javax.vecmath.Point3d;
+
+/**
+ * Packed point cloud: the coordinates are stored as x0, y0, z0, x1, y1, z1, ... in a float array, with one timestamp per point.
+ * Used to hand scans over to the {@link PointCloudDataReceiver} without creating an object per point. The arrays only grow, so a batch
+ * can be cleared and refilled every scan without allocating.
+ */
+public class PointCloudBatch
+{
+   private float[] xyz;
+   private long[] timestamps;
+   private int size = 0;
+
+   public PointCloudBatch()
+   {
+      this(1024);
+   }
+
+   public PointCloudBatch(int initialCapacity)
+   {
+      xyz = new float[3 * initialCapacity];
+      timestamps = new long[initialCapacity];
+   }
+
+   public void clear()
+   {
+      size = 0;
+   }
+
+   public void ensureCapacity(int capacity)
+   {
+      if (timestamps.length >= capacity)
+         return;
+
+      int newCapacity = Math.max(capacity, 2 * timestamps.length);
+      float[] newXYZ = new float[3 * newCapacity];
+      long[] newTimestamps = new long[newCapacity];
+      System.arraycopy(xyz, 0, newXYZ, 0, 3 * size);
+      System.arraycopy(timestamps, 0, newTimestamps, 0, size);
+      xyz = newXYZ;
+      timestamps = newTimestamps;
+   }
+
+   public void add(float x, float y, float z, long timestamp)
+   {
+      ensureCapacity(size + 1);
+      int index = 3 * size;
+      xyz[index] = x;
+      xyz[index + 1] = y;
+      xyz[index + 2] = z;
+      timestamps[size] = timestamp;
+      size++;
+   }
+
+   public void add(double x, double y, double z, long timestamp)
+   {
+      add((float) x, (float) y, (float) z, timestamp);
+   }
+
+   /**
+    * Replaces the content of this batch with packed points that all have the same timestamp.
+    * @param xyz packed coordinates, only the first 3 * numberOfPoints values are used
+    */
+   public void set(float[] xyz, int numberOfPoints, long timestamp)
+   {
+      ensureCapacity(numberOfPoints);
+      System.arraycopy(xyz, 0, this.xyz, 0, 3 * numberOfPoints);
+      for (int i = 0; i < numberOfPoints; i++)
+         timestamps[i] = timestamp;
+      size = numberOfPoints;
+   }
+
+   public void set(List<Point3d> points, long[] timestamps)
+   {
+      if (timestamps.length != points.size())
+      {
+         throw new RuntimeException("Number of timestamps does not match number of points");
+      }
+
+      clear();
+      ensureCapacity(points.size());
+      for (int i = 0; i < points.size(); i++)
+      {
+         Point3d point = points.get(i);
+         add(point.getX(), point.getY(), point.getZ(), timestamps[i]);
+      }
+   }
+
+   public void set(PointCloudBatch other)
+   {
+      ensureCapacity(other.size);
+      System.arraycopy(other.xyz, 0, xyz, 0, 3 * other.size);
+      System.arraycopy(other.timestamps, 0, timestamps, 0, other.size);
+      size = other.size;
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public float getX(int i)
+   {
+      return xyz[3 * i];
+   }
+
+   public float getY(int i)
+   {
+      return xyz[3 * i + 1];
+   }
+
+   public float getZ(int i)
+   {
+      return xyz[3 * i + 2];
+   }
+
+   public long getTimestamp(int i)
+   {
+      return timestamps[i];
+   }
+
+   public void getPoint(int i, Point3d pointToPack)
+   {
+      int index = 3 * i;
+      pointToPack.set(xyz[index], xyz[index + 1], xyz[index + 2]);
+   }
+
+   /**
+    * @return the index after the last point that has the same timestamp as the point at startIndex
+    */
+   public int findEndOfTimestampRun(int startIndex)
+   {
+      long timestamp = timestamps[startIndex];
+      int endIndex = startIndex + 1;
+      while (endIndex < size && timestamps[endIndex] == timestamp)
+         endIndex++;
+      return endIndex;
+   }
+
+   public Point3d[] toPoint3dArray()
+   {
+      Point3d[] points = new Point3d[size];
+      for (int i = 0; i < size; i++)
+      {
+         points[i] = new Point3d();
+         getPoint(i, points[i]);
+      }
+      return points;
+   }
+}
@@ -2,6 +2,7 @@ package us.ihmc.ihmcPerception.depthData;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -45,6 +46,8 @@ public class PointCloudDataReceiver extends Thread implements NetStateListener,
 
    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
    private final LinkedBlockingQueue<PointCloudData> dataQueue = new LinkedBlockingQueue<PointCloudData>();
+   /** Processed scans are kept here and refilled with the next ones, so receiving a scan does not allocate once the pool is warm. */
+   private final ConcurrentLinkedQueue<PointCloudData> unusedDataPool = new ConcurrentLinkedQueue<PointCloudData>();
    private final AtomicBoolean sendData = new AtomicBoolean(false);
    private volatile boolean running = true;
 
@@ -130,8 +133,7 @@ public class PointCloudDataReceiver extends Thread implements NetStateListener,
                {
                   if(cloudSource == PointCloudSource.NEARSCAN)
                   {
-                     Point3d[] points = new Point3d[data.points.size()];
-                     points = data.points.toArray(points);
+                     Point3d[] points = data.points.toPoint3dArray();
                      MultisenseMocapExperimentPacket packet = new MultisenseMocapExperimentPacket();
                      packet.setPointCloud(points, MultisenseTest.NEAR_SCAN_IN_POINT_CLOUD_DATA_RECEIVER);
                      sensorSuitePacketCommunicator.send(packet);
@@ -166,71 +168,105 @@ public class PointCloudDataReceiver extends Thread implements NetStateListener,
 
             if (data != null && sendData.get())
             {
-               long prevTimestamp = -1;
+               addPointsToDepthDataFilter(data);
+            }
+            readWriteLock.writeLock().unlock();
 
-               RigidBodyTransform scanFrameToWorld = new RigidBodyTransform();
-               for (int i = 0; i < data.points.size(); i++)
-               {
-                  long nextTimestamp = ppsTimestampOffsetProvider.adjustTimeStampToRobotClock(data.timestamps[i]);
-                  if (nextTimestamp != prevTimestamp)
-                  {
-                     if (robotConfigurationDataBuffer.updateFullRobotModel(true, nextTimestamp, fullRobotModel, null) == -1)
-                     {
-                        continue;
-                     }
-                     if (collisionBoxNode != null)
-                     {
-                        collisionBoxNode.update();
-                     }
-                     prevTimestamp = nextTimestamp;
-                  }
+            unusedDataPool.offer(data);
+         }
+         catch (InterruptedException e)
+         {
+            continue;
+         }
 
-                  Point3d pointInWorld;
-                  if (!data.scanFrame.isWorldFrame())
-                  {
-                     data.scanFrame.getTransformToDesiredFrame(scanFrameToWorld, ReferenceFrame.getWorldFrame());
+      }
+   }
 
-                     pointInWorld = data.points.get(i);
-                     scanFrameToWorld.transform(pointInWorld);
-                  }
-                  else
-                  {
-                     pointInWorld = data.points.get(i);
-                  }
+   private final RigidBodyTransform scanFrameToWorld = new RigidBodyTransform();
+   private final Point3d pointInWorld = new Point3d();
+   private final Point3d lidarOrigin = new Point3d();
 
-                  Point3d origin = new Point3d();
-                  data.lidarFrame.getTransformToWorldFrame().transform(origin);
-                  if (collisionBoxNode == null || !collisionBoxNode.contains(pointInWorld) || depthDataFilter.getParameters().boundingBoxScale<=0)                  
-                  {
-                     for (PointCloudSource cloudSource : data.sources)
-                     {
-                        switch (cloudSource)
-                        {
-                        case NEARSCAN:
-                           depthDataFilter.addNearScanPoint(pointInWorld, origin);
-                           break;
-                        case QUADTREE:
-                           depthDataFilter.addQuatreePoint(pointInWorld, origin);
-                           break;
-                        default:
-                           System.out.println(getClass().getSimpleName() + " unrecognized cloud source " + cloudSource.name());
-                        }
-                     }
-                  }
-               }
+   /**
+    * Goes through the scan one run of points with the same timestamp at a time: the robot model, the scan frame transform and the lidar origin
+    * only change between runs. The range check is done here on squared distances before anything else, as it rejects most of the points.
+    */
+   private void addPointsToDepthDataFilter(PointCloudData data)
+   {
+      PointCloudBatch points = data.points;
+
+      double minRange = depthDataFilter.getParameters().minRange;
+      double maxRange = depthDataFilter.getParameters().maxRange;
+      double minRangeSquared = minRange > 0.0 ? minRange * minRange : -1.0;
+      double maxRangeSquared = maxRange > 0.0 ? maxRange * maxRange : -1.0;
+      boolean checkCollisions = collisionBoxNode != null && depthDataFilter.getParameters().boundingBoxScale > 0;
+
+      long prevTimestamp = -1;
+      int runStart = 0;
+
+      while (runStart < points.size())
+      {
+         int runEnd = points.findEndOfTimestampRun(runStart);
+
+         long nextTimestamp = ppsTimestampOffsetProvider.adjustTimeStampToRobotClock(points.getTimestamp(runStart));
+         if (nextTimestamp != prevTimestamp)
+         {
+            if (robotConfigurationDataBuffer.updateFullRobotModel(true, nextTimestamp, fullRobotModel, null) == -1)
+            {
+               runStart = runEnd;
+               continue;
             }
-            readWriteLock.writeLock().unlock();
+            if (collisionBoxNode != null)
+            {
+               collisionBoxNode.update();
+            }
+            prevTimestamp = nextTimestamp;
          }
-         catch (InterruptedException e)
+
+         if (!data.scanFrame.isWorldFrame())
+            data.scanFrame.getTransformToDesiredFrame(scanFrameToWorld, ReferenceFrame.getWorldFrame());
+         else
+            scanFrameToWorld.setIdentity();
+
+         lidarOrigin.set(0.0, 0.0, 0.0);
+         data.lidarFrame.getTransformToWorldFrame().transform(lidarOrigin);
+
+         for (int i = runStart; i < runEnd; i++)
          {
-            continue;
+            points.getPoint(i, pointInWorld);
+            scanFrameToWorld.transform(pointInWorld);
+
+            double dx = pointInWorld.getX() - lidarOrigin.getX();
+            double dy = pointInWorld.getY() - lidarOrigin.getY();
+            double dz = pointInWorld.getZ() - lidarOrigin.getZ();
+            double distanceSquared = dx * dx + dy * dy + dz * dz;
+            if (distanceSquared <= minRangeSquared || distanceSquared >= maxRangeSquared)
+               continue;
+
+            if (checkCollisions && collisionBoxNode.contains(pointInWorld))
+               continue;
+
+            for (PointCloudSource cloudSource : data.sources)
+            {
+               switch (cloudSource)
+               {
+               case NEARSCAN:
+                  depthDataFilter.addNearScanPoint(pointInWorld, lidarOrigin);
+                  break;
+               case QUADTREE:
+                  depthDataFilter.addQuatreePoint(pointInWorld, lidarOrigin);
+                  break;
+               default:
+                  System.out.println(getClass().getSimpleName() + " unrecognized cloud source " + cloudSource.name());
+               }
+            }
          }
 
+         runStart = runEnd;
       }
    }
 
    /**
-    * Receive new data. Data is stored in a queue, so do not reuse!
+    * Receive new data. The points are copied, so the list can be reused by the caller.
     * @param scanFrame
     * @param lidarFrame
     * @param timestamps
@@ -241,12 +277,34 @@ public class PointCloudDataReceiver extends Thread implements NetStateListener,
    public void receivedPointCloudData(ReferenceFrame scanFrame, ReferenceFrame lidarFrame, long[] timestamps, ArrayList<Point3d> points,
          PointCloudSource... sources)
    {
-      if (timestamps.length != points.size())
-      {
-         throw new RuntimeException("Number of timestamps does not match number of points");
-      }
+      PointCloudData data = getUnusedPointCloudData();
+      data.points.set(points, timestamps);
+      data.set(scanFrame, lidarFrame, sources);
+      dataQueue.offer(data);
+   }
+
+   /**
+    * Receive new data. The points are copied, so the batch can be reused by the caller.
+    * @param scanFrame
+    * @param lidarFrame
+    * @param points
+    * @param sources
+    */
+   @Override
+   public void receivedPointCloudData(ReferenceFrame scanFrame, ReferenceFrame lidarFrame, PointCloudBatch points, PointCloudSource... sources)
+   {
+      PointCloudData data = getUnusedPointCloudData();
+      data.points.set(points);
+      data.set(scanFrame, lidarFrame, sources);
+      dataQueue.offer(data);
+   }
 
-      dataQueue.offer(new PointCloudData(scanFrame, lidarFrame, timestamps, points, sources));
+   private PointCloudData getUnusedPointCloudData()
+   {
+      PointCloudData data = unusedDataPool.poll();
+      if (data == null)
+         data = new PointCloudData();
+      return data;
    }
 
    @Override
@@ -356,15 +414,12 @@ public class PointCloudDataReceiver extends Thread implements NetStateListener,
       public PointCloudSource[] sources;
       private ReferenceFrame scanFrame;
       private ReferenceFrame lidarFrame;
-      private long[] timestamps;
-      private ArrayList<Point3d> points;
+      private final PointCloudBatch points = new PointCloudBatch();
 
-      public PointCloudData(ReferenceFrame scanFrame, ReferenceFrame lidarFrame, long[] timestamps, ArrayList<Point3d> points, PointCloudSource[] sources)
+      public void set(ReferenceFrame scanFrame, ReferenceFrame lidarFrame, PointCloudSource[] sources)
       {
          this.scanFrame = scanFrame;
          this.lidarFrame = lidarFrame;
-         this.timestamps = timestamps;
-         this.points = points;
          this.sources = sources;
       }
 
@@ -10,5 +10,7 @@ public interface PointCloudDataReceiverInterface
 {
    void receivedPointCloudData(ReferenceFrame scanFrame, ReferenceFrame lidarFrame, long[] timestamps, ArrayList<Point3d> points, PointCloudSource... sources);
 
+   void receivedPointCloudData(ReferenceFrame scanFrame, ReferenceFrame lidarFrame, PointCloudBatch points, PointCloudSource... sources);
+
    ReferenceFrame getLidarFrame(String sensorNameInSdf);
 }
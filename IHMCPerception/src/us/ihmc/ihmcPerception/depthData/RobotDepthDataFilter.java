@@ -13,6 +13,12 @@ public class RobotDepthDataFilter extends DepthDataFilter
 {
    private final FullHumanoidRobotModel fullRobotModel;
 
+   // Points are filtered one at a time at a high rate, so nothing is allocated per point
+   private final RigidBodyTransform tempTransform = new RigidBodyTransform();
+   private final Point3d leftFootPoint = new Point3d();
+   private final Point3d midFootPoint = new Point3d();
+   private final Point3d pointInPelvisFrame = new Point3d();
+
 
    public RobotDepthDataFilter(SDFFullHumanoidRobotModel fullRobotModel)
    {
@@ -60,41 +66,41 @@ public class RobotDepthDataFilter extends DepthDataFilter
       return (point.z - footZ) < maxHeight;
    }
 
+   /**
+    * The returned point is reused by the next call.
+    */
    private Point3d getMidFootPoint()
    {
-      RigidBodyTransform temp = new RigidBodyTransform();
-      Point3d left = new Point3d();
-      Point3d avg = new Point3d();
+      leftFootPoint.set(0.0, 0.0, 0.0);
+      midFootPoint.set(0.0, 0.0, 0.0);
 
-      fullRobotModel.getFoot(RobotSide.LEFT).getBodyFixedFrame().getTransformToDesiredFrame(temp, ReferenceFrame.getWorldFrame());
-      temp.transform(left);
-      fullRobotModel.getFoot(RobotSide.RIGHT).getBodyFixedFrame().getTransformToDesiredFrame(temp, ReferenceFrame.getWorldFrame());
-      temp.transform(avg);
+      fullRobotModel.getFoot(RobotSide.LEFT).getBodyFixedFrame().getTransformToDesiredFrame(tempTransform, ReferenceFrame.getWorldFrame());
+      tempTransform.transform(leftFootPoint);
+      fullRobotModel.getFoot(RobotSide.RIGHT).getBodyFixedFrame().getTransformToDesiredFrame(tempTransform, ReferenceFrame.getWorldFrame());
+      tempTransform.transform(midFootPoint);
 
-      avg.add(left);
-      avg.scale(0.5);
+      midFootPoint.add(leftFootPoint);
+      midFootPoint.scale(0.5);
 
-      return avg;
+      return midFootPoint;
    }
 
    private boolean isAheadOfPelvis(Point3d point)
    {
-      RigidBodyTransform tf = new RigidBodyTransform();
-      ReferenceFrame.getWorldFrame().getTransformToDesiredFrame(tf, fullRobotModel.getPelvis().getBodyFixedFrame());
-      Point3d tfPoint = new Point3d(point);
-      tf.transform(tfPoint);
+      ReferenceFrame.getWorldFrame().getTransformToDesiredFrame(tempTransform, fullRobotModel.getPelvis().getBodyFixedFrame());
+      pointInPelvisFrame.set(point);
+      tempTransform.transform(pointInPelvisFrame);
 
-      return tfPoint.x > parameters.xCutoffPelvis;
+      return pointInPelvisFrame.x > parameters.xCutoffPelvis;
    }
 
    private double getAngleToPelvis(Point3d point, Point3d lidarOrigin)
    {
-      RigidBodyTransform tf = new RigidBodyTransform();
-      ReferenceFrame.getWorldFrame().getTransformToDesiredFrame(tf, fullRobotModel.getPelvis().getBodyFixedFrame());
-      Point3d tfPoint = new Point3d(point);
-      tf.transform(tfPoint);
+      ReferenceFrame.getWorldFrame().getTransformToDesiredFrame(tempTransform, fullRobotModel.getPelvis().getBodyFixedFrame());
+      pointInPelvisFrame.set(point);
+      tempTransform.transform(pointInPelvisFrame);
 
-      return Math.atan2(tfPoint.y, tfPoint.x);
+      return Math.atan2(pointInPelvisFrame.y, pointInPelvisFrame.x);
    }
 
    @Override
@@ -7,10 +7,6 @@ import us.ihmc.tools.time.Timer;
 import us.ihmc.utilities.ros.RosMainNode;
 import us.ihmc.utilities.ros.subscriber.RosPointCloudSubscriber;
 
-import javax.vecmath.Point3d;
-import java.util.ArrayList;
-import java.util.Arrays;
-
 public class RosPointCloudReceiver extends RosPointCloudSubscriber
 {
    private final boolean DEBUG = false;
@@ -26,6 +22,9 @@ public class RosPointCloudReceiver extends RosPointCloudSubscriber
    private final ReferenceFrame sensorframe;
    private final PointCloudSource[] pointCloudSource;
 
+   private final PointCloudBatch pointCloudBatch = new PointCloudBatch();
+   private float[] xyz = null;
+
    public RosPointCloudReceiver(String sensorNameInSdf, String rosTopic, RosMainNode rosMainNode, ReferenceFrame cloudFrame,
          PointCloudDataReceiverInterface pointCloudDataReceiver, PointCloudSource... pointCloudSource)
    {
@@ -59,12 +58,9 @@ public class RosPointCloudReceiver extends RosPointCloudSubscriber
          timer.lap();
       }
 
-      UnpackedPointCloud pointCloudData = unpackPointsAndIntensities(pointCloud);
-		Point3d[] points = pointCloudData.getPoints();
-		ArrayList<Point3d> pointsAsArrayList = new ArrayList<Point3d>(Arrays.asList(points));
-	   long[] timestamps = new long[points.length];
-	   long time = pointCloud.getHeader().getStamp().totalNsecs();
-	   Arrays.fill(timestamps, time);
-		pointCloudDataReceiver.receivedPointCloudData(cloudFrame, sensorframe, timestamps, pointsAsArrayList, pointCloudSource);
+      xyz = unpackPoints(pointCloud, xyz);
+      long time = pointCloud.getHeader().getStamp().totalNsecs();
+      pointCloudBatch.set(xyz, pointCloud.getWidth() * pointCloud.getHeight(), time);
+      pointCloudDataReceiver.receivedPointCloudData(cloudFrame, sensorframe, pointCloudBatch, pointCloudSource);
 	}
 }
@@ -1,8 +1,5 @@
 package us.ihmc.ihmcPerception.depthData;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-
 import javax.vecmath.Point3d;
 
 import us.ihmc.communication.net.ObjectCommunicator;
@@ -20,6 +17,7 @@ public class SCSPointCloudLidarReceiver implements ObjectConsumer<SimulatedLidar
 
    private final ReferenceFrame lidarScanFrame;
    private final RigidBodyTransform identityTransform = new RigidBodyTransform();
+   private final PointCloudBatch pointCloudBatch = new PointCloudBatch();
 
    public SCSPointCloudLidarReceiver(String lidarName, ObjectCommunicator scsSensorsCommunicator, PointCloudDataReceiver pointCloudDataReceiver)
    {
@@ -40,12 +38,14 @@ public class SCSPointCloudLidarReceiver implements ObjectConsumer<SimulatedLidar
       LidarScan scan = new LidarScan(packet.getLidarScanParameters(), packet.getRanges(), packet.getSensorId());
       // Set the world transforms to nothing, so points are in lidar scan frame
       scan.setWorldTransforms(identityTransform, identityTransform);
-      ArrayList<Point3d> points = scan.getAllPoints();
-
-      long[] timestamps = new long[points.size()];
-      Arrays.fill(timestamps, packet.getScanStartTime());
-
-      pointCloudDataReceiver.receivedPointCloudData(lidarScanFrame, lidarFrame, timestamps, points, PointCloudSource.NEARSCAN,PointCloudSource.QUADTREE);
+      pointCloudBatch.clear();
+      for (int i = 0; i < scan.size(); i++)
+      {
+         Point3d point = scan.getPoint(i);
+         pointCloudBatch.add(point.getX(), point.getY(), point.getZ(), packet.getScanStartTime());
+      }
+
+      pointCloudDataReceiver.receivedPointCloudData(lidarScanFrame, lidarFrame, pointCloudBatch, PointCloudSource.NEARSCAN,PointCloudSource.QUADTREE);
    }
 
    public void connect()
@@ -0,0 +1,71 @@
+package us.ihmc.ihmcPerception.depthData;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import javax.vecmath.Point3d;
+
+import org.junit.Test;
+
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class PointCloudBatchTest
+{
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testSetFromListAndCopy()
+   {
+      Random random = new Random(4271L);
+      int numberOfPoints = 5000;
+
+      ArrayList<Point3d> points = new ArrayList<Point3d>();
+      long[] timestamps = new long[numberOfPoints];
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         points.add(new Point3d(random.nextFloat(), random.nextFloat(), random.nextFloat()));
+         timestamps[i] = i / 100;
+      }
+
+      PointCloudBatch batch = new PointCloudBatch(10);
+      batch.set(points, timestamps);
+      PointCloudBatch copy = new PointCloudBatch(10);
+      copy.set(batch);
+
+      assertEquals(numberOfPoints, copy.size());
+      Point3d point = new Point3d();
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         copy.getPoint(i, point);
+         assertEquals(points.get(i).getX(), point.getX(), 1e-7);
+         assertEquals(points.get(i).getY(), point.getY(), 1e-7);
+         assertEquals(points.get(i).getZ(), point.getZ(), 1e-7);
+         assertEquals(timestamps[i], copy.getTimestamp(i));
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testTimestampRuns()
+   {
+      PointCloudBatch batch = new PointCloudBatch(1);
+      long[] timestamps = {3, 3, 3, 5, 3, 7, 7};
+      for (int i = 0; i < timestamps.length; i++)
+         batch.add(i, 0.0, 0.0, timestamps[i]);
+
+      assertEquals(3, batch.findEndOfTimestampRun(0));
+      assertEquals(3, batch.findEndOfTimestampRun(1));
+      assertEquals(4, batch.findEndOfTimestampRun(3));
+      assertEquals(5, batch.findEndOfTimestampRun(4));
+      assertEquals(7, batch.findEndOfTimestampRun(5));
+
+      float[] xyz = {1.0f, 2.0f, 3.0f, 4.0f, 5.0f, 6.0f, 7.0f};
+      batch.set(xyz, 2, 11L);
+      assertEquals(2, batch.size());
+      assertEquals(2, batch.findEndOfTimestampRun(0));
+      assertEquals(4.0f, batch.getX(1), 0.0);
+      assertEquals(6.0f, batch.getZ(1), 0.0);
+      assertEquals(11L, batch.getTimestamp(1));
+   }
+}
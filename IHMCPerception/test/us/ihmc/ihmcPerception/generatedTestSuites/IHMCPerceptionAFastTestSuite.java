@@ -15,6 +15,7 @@ import us.ihmc.tools.testing.TestPlanTarget;
    us.ihmc.ihmcPerception.depthData.collisionShapes.CollisionBoxTest.class,
    us.ihmc.ihmcPerception.depthData.collisionShapes.CollisionCylinderTest.class,
    us.ihmc.ihmcPerception.depthData.collisionShapes.CollisionSphereTest.class,
+   us.ihmc.ihmcPerception.depthData.PointCloudBatchTest.class,
    us.ihmc.ihmcPerception.depthData.PointCloudWorldPacketGeneratorTest.class
 })
 
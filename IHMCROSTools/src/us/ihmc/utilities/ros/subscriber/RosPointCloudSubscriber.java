@@ -197,6 +197,40 @@ public abstract class RosPointCloudSubscriber extends AbstractRosTopicSubscriber
       return packet;
    }
 
+   /**
+    * Unpacks only the coordinates, as x0, y0, z0, x1, ... without creating an object per point.
+    * @param xyzToPack used if it can hold all the points, a new array is returned otherwise
+    * @return the array holding the coordinates, the number of points is width * height of the point cloud
+    */
+   protected float[] unpackPoints(PointCloud2 pointCloud, float[] xyzToPack)
+   {
+      int numberOfPoints = pointCloud.getWidth() * pointCloud.getHeight();
+      if (xyzToPack == null || xyzToPack.length < 3 * numberOfPoints)
+         xyzToPack = new float[3 * numberOfPoints];
+
+      int offset = pointCloud.getData().arrayOffset();
+      int pointStep = pointCloud.getPointStep();
+
+      byte[] array = pointCloud.getData().array();
+      ByteBuffer byteBuffer = ByteBuffer.wrap(array, offset, numberOfPoints * pointStep);
+
+      if (pointCloud.getIsBigendian())
+         byteBuffer.order(ByteOrder.BIG_ENDIAN);
+      else
+         byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+      int index = 0;
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         int pointStart = i * pointStep + offset;
+         xyzToPack[index++] = byteBuffer.getFloat(pointStart);
+         xyzToPack[index++] = byteBuffer.getFloat(pointStart + 4);
+         xyzToPack[index++] = byteBuffer.getFloat(pointStart + 8);
+      }
+
+      return xyzToPack;
+   }
+
    private int byteToUnsignedInt(byte b)
    {
       return ((int) b) & 0xff;
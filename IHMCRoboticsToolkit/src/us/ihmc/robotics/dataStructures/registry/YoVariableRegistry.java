@@ -13,6 +13,7 @@ import us.ihmc.robotics.dataStructures.listener.RewoundListener;
 import us.ihmc.robotics.dataStructures.listener.YoVariableRegistryChangedListener;
 import us.ihmc.robotics.dataStructures.variable.YoVariable;
 import us.ihmc.robotics.dataStructures.variable.YoVariableList;
+import us.ihmc.robotics.dataStructures.variable.YoVariableStorage;
 
 public class YoVariableRegistry implements YoVariableHolder
 {
@@ -32,6 +33,8 @@ public class YoVariableRegistry implements YoVariableHolder
    private boolean isLogged = false;
    private boolean isSent = false;
 
+   private YoVariableStorage variableStorage = null;
+
    private static final Pattern illegalCharacters = Pattern.compile("[ .*?@#$%/^&()<>,:{}'\"\\\\]");
 
    protected static void checkForIllegalCharacters(String name)
@@ -139,9 +142,55 @@ public class YoVariableRegistry implements YoVariableHolder
       controlVarsHashMap.put(variableName, variable);
       controlVars.add(variable);
 
+      if (variableStorage != null)
+      {
+         variableStorage.addVariable(variable);
+      }
+
       notifyListenersYoVariableWasRegistered(variable);
    }
 
+   /**
+    * Back the values of all variables in this registry and its descendants by one contiguous YoVariableStorage.
+    * Variables and child registries added later are added to the storage as well.
+    *
+    * The variables keep working as before, but snapshotting all their values becomes a single array copy
+    * with YoVariableStorage.getValues().
+    */
+   public void setVariableStorage(YoVariableStorage variableStorage)
+   {
+      if (this.variableStorage != null && this.variableStorage != variableStorage)
+      {
+         throw new RuntimeException("Registry " + name + " is already backed by another YoVariableStorage");
+      }
+
+      this.variableStorage = variableStorage;
+      variableStorage.addVariables(controlVars);
+
+      for (int i = 0; i < children.size(); i++)
+      {
+         children.get(i).setVariableStorage(variableStorage);
+      }
+   }
+
+   /**
+    * Create a new YoVariableStorage and back this registry and its descendants with it.
+    */
+   public YoVariableStorage createVariableStorage()
+   {
+      YoVariableStorage variableStorage = new YoVariableStorage();
+      setVariableStorage(variableStorage);
+      return variableStorage;
+   }
+
+   /**
+    * @return the YoVariableStorage backing the variables of this registry, null if the variables store their own values
+    */
+   public YoVariableStorage getVariableStorage()
+   {
+      return variableStorage;
+   }
+
    public ArrayList<YoVariable<?>> getAllVariablesInThisListOnly()
    {
       ArrayList<YoVariable<?>> ret = new ArrayList<YoVariable<?>>();
@@ -382,6 +431,11 @@ public class YoVariableRegistry implements YoVariableHolder
       child.setParent(this);
       children.add(child);
 
+      if (variableStorage != null)
+      {
+         child.setVariableStorage(variableStorage);
+      }
+
       if (notifyListeners) notifyListenersYoVariableRegistryWasAdded(child);
    }
 
@@ -28,7 +28,7 @@ public class BooleanYoVariable extends YoVariable<BooleanYoVariable>
     */
    public boolean valueEquals(boolean value)
    {
-      return (this.val == value);
+      return (getBooleanValue() == value);
    }
 
    /**
@@ -37,7 +37,7 @@ public class BooleanYoVariable extends YoVariable<BooleanYoVariable>
     */
    public boolean getBooleanValue()
    {
-      return val;
+      return valueBuffer == null ? val : valueBuffer[valueIndex] != 0;
    }
 
    /**
@@ -51,9 +51,17 @@ public class BooleanYoVariable extends YoVariable<BooleanYoVariable>
 
    public boolean set(boolean value, boolean notifyListeners)
    {
-      if (val != value)
+      if (getBooleanValue() != value)
       {
-         this.val = value;
+         if (valueBuffer == null)
+         {
+            val = value;
+         }
+         else
+         {
+            valueBuffer[valueIndex] = value ? 1 : 0;
+         }
+
          if (notifyListeners)
          {
             notifyVariableChangedListeners();
@@ -105,7 +113,7 @@ public class BooleanYoVariable extends YoVariable<BooleanYoVariable>
     */
    public void getValueString(StringBuffer stringBuffer)
    {
-      stringBuffer.append(val);
+      stringBuffer.append(getBooleanValue());
    }
 
    public void getValueStringFromDouble(StringBuffer stringBuffer, double doubleValue)
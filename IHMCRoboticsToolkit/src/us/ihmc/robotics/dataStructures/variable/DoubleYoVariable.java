@@ -90,7 +90,7 @@ public class DoubleYoVariable extends YoVariable<DoubleYoVariable>
 
    public boolean isNaN()
    {
-      return Double.isNaN(val);
+      return Double.isNaN(getDoubleValue());
    }
 
    public void add(DoubleYoVariable variable)
@@ -132,7 +132,7 @@ public class DoubleYoVariable extends YoVariable<DoubleYoVariable>
     */
    public boolean valueEquals(double value)
    {
-      return (val == value);
+      return (getDoubleValue() == value);
    }
 
    /**
@@ -142,7 +142,7 @@ public class DoubleYoVariable extends YoVariable<DoubleYoVariable>
     */
    public double getDoubleValue()
    {
-      return val;
+      return valueBuffer == null ? val : Double.longBitsToDouble(valueBuffer[valueIndex]);
    }
 
    /**
@@ -154,9 +154,17 @@ public class DoubleYoVariable extends YoVariable<DoubleYoVariable>
     */
    public boolean set(double value, boolean notifyListeners)
    {
-      if (val != value)
+      if (getDoubleValue() != value)
       {
-         val = value;
+         if (valueBuffer == null)
+         {
+            val = value;
+         }
+         else
+         {
+            valueBuffer[valueIndex] = Double.doubleToLongBits(value);
+         }
+
          if (notifyListeners)
          {
             notifyVariableChangedListeners();
@@ -231,7 +239,7 @@ public class DoubleYoVariable extends YoVariable<DoubleYoVariable>
     */
    public void getValueString(StringBuffer stringBuffer)
    {
-      getValueStringFromDouble(stringBuffer, val);
+      getValueStringFromDouble(stringBuffer, getDoubleValue());
    }
 
    public void getValueStringFromDouble(StringBuffer stringBuffer, double doubleValue)
@@ -252,7 +260,7 @@ public class DoubleYoVariable extends YoVariable<DoubleYoVariable>
    @Override
    public long getValueAsLongBits()
    {
-      return Double.doubleToLongBits(val);
+      return valueBuffer == null ? Double.doubleToLongBits(val) : valueBuffer[valueIndex];
    }
 
    @Override
@@ -265,7 +273,7 @@ public class DoubleYoVariable extends YoVariable<DoubleYoVariable>
    public DoubleYoVariable duplicate(YoVariableRegistry newRegistry)
    {
       DoubleYoVariable retVar = new DoubleYoVariable(getName(), getDescription(), newRegistry, getManualScalingMin(), getManualScalingMax());
-      retVar.set(val);
+      retVar.set(getDoubleValue());
       return retVar;
    }
 
@@ -118,10 +118,10 @@ public class EnumYoVariable<T extends Enum<T>> extends YoVariable<EnumYoVariable
    public boolean valueEquals(T value)
    {
       checkIfBackedByEnum();
-      if (valueOrdinal == NULL_VALUE)
+      if (getOrdinal() == NULL_VALUE)
          return value == null;
 
-      return (value.ordinal() == valueOrdinal);
+      return (value.ordinal() == getOrdinal());
    }
 
    public Class<T> getEnumType()
@@ -161,11 +161,11 @@ public class EnumYoVariable<T extends Enum<T>> extends YoVariable<EnumYoVariable
    {
       checkBounds(ordinal);
       
-      if (valueOrdinal != NULL_VALUE)
+      if (getOrdinal() != NULL_VALUE)
       {
-         if (!(valueOrdinal == ordinal))
+         if (!(getOrdinal() == ordinal))
          {
-            valueOrdinal = ordinal;
+            setOrdinalValue(ordinal);
             if (notifyListeners)
             {
                notifyVariableChangedListeners();
@@ -175,7 +175,7 @@ public class EnumYoVariable<T extends Enum<T>> extends YoVariable<EnumYoVariable
       }
       else
       {
-         valueOrdinal = ordinal;
+         setOrdinalValue(ordinal);
          if (notifyListeners)
          {
             notifyVariableChangedListeners();
@@ -219,18 +219,18 @@ public class EnumYoVariable<T extends Enum<T>> extends YoVariable<EnumYoVariable
    public T getEnumValue()
    {
       checkIfBackedByEnum();
-      return valueOrdinal == NULL_VALUE? null : enumValues[valueOrdinal];
+      return getOrdinal() == NULL_VALUE? null : enumValues[getOrdinal()];
    }
 
    public String getStringValue()
    {
-      if(valueOrdinal == NULL_VALUE)
+      if(getOrdinal() == NULL_VALUE)
       {
          return "null";
       }
       else
       {
-         return enumValuesAsString[valueOrdinal];
+         return enumValuesAsString[getOrdinal()];
       }
    }
    
@@ -249,7 +249,7 @@ public class EnumYoVariable<T extends Enum<T>> extends YoVariable<EnumYoVariable
 
    public double getValueAsDouble()
    {
-      return valueOrdinal;
+      return getOrdinal();
    }
 
    public String toString()
@@ -289,7 +289,7 @@ public class EnumYoVariable<T extends Enum<T>> extends YoVariable<EnumYoVariable
    @Override
    public long getValueAsLongBits()
    {
-      return valueOrdinal;
+      return getOrdinal();
    }
 
    @Override
@@ -314,7 +314,19 @@ public class EnumYoVariable<T extends Enum<T>> extends YoVariable<EnumYoVariable
    
    public int getOrdinal()
    {
-      return valueOrdinal;
+      return valueBuffer == null ? valueOrdinal : (int) valueBuffer[valueIndex];
+   }
+
+   private void setOrdinalValue(int ordinal)
+   {
+      if (valueBuffer == null)
+      {
+         valueOrdinal = ordinal;
+      }
+      else
+      {
+         valueBuffer[valueIndex] = ordinal;
+      }
    }
    
    public int getEnumSize()
@@ -40,9 +40,17 @@ public class IntegerYoVariable extends YoVariable<IntegerYoVariable>
    
    public boolean set(int value, boolean notifyListeners)
    {
-      if (val != value)
+      if (getIntegerValue() != value)
       {
-         val = value;
+         if (valueBuffer == null)
+         {
+            val = value;
+         }
+         else
+         {
+            valueBuffer[valueIndex] = value;
+         }
+
          if(notifyListeners)
          {
             notifyVariableChangedListeners();
@@ -81,7 +89,7 @@ public class IntegerYoVariable extends YoVariable<IntegerYoVariable>
    {
 //      if (val != Math.round(val))
 //         System.err.println("IntegerYoVariable: returning a different value than what it used to be.");
-      return val;
+      return valueBuffer == null ? val : (int) valueBuffer[valueIndex];
    }
 
    /**
@@ -93,7 +101,7 @@ public class IntegerYoVariable extends YoVariable<IntegerYoVariable>
     */
    public boolean valueEquals(int value)
    {
-      return val == value;
+      return getIntegerValue() == value;
    }
 
    public void setValueFromDouble(double doubleValue, boolean notifyListeners)
@@ -110,7 +118,7 @@ public class IntegerYoVariable extends YoVariable<IntegerYoVariable>
 
    public double getValueAsDouble()
    {
-      return val;
+      return getIntegerValue();
 
    }
 
@@ -131,7 +139,7 @@ public class IntegerYoVariable extends YoVariable<IntegerYoVariable>
     */
    public void getValueString(StringBuffer stringBuffer)
    {
-      stringBuffer.append(val);
+      stringBuffer.append(getIntegerValue());
 
    }
    
@@ -143,7 +151,7 @@ public class IntegerYoVariable extends YoVariable<IntegerYoVariable>
    @Override
    public long getValueAsLongBits()
    {
-      return val;
+      return getIntegerValue();
    }
 
    @Override
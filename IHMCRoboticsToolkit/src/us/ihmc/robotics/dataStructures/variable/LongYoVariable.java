@@ -42,9 +42,17 @@ public class LongYoVariable extends YoVariable<LongYoVariable>
    
    public boolean set(long value, boolean notifyListeners)
    {
-      if (val != value)
+      if (getLongValue() != value)
       {
-         val = value;
+         if (valueBuffer == null)
+         {
+            val = value;
+         }
+         else
+         {
+            valueBuffer[valueIndex] = value;
+         }
+
          if(notifyListeners)
          {
             notifyVariableChangedListeners();
@@ -81,7 +89,7 @@ public class LongYoVariable extends YoVariable<LongYoVariable>
     */
    public long getLongValue()
    {
-      return val;
+      return valueBuffer == null ? val : valueBuffer[valueIndex];
    }
 
    /**
@@ -93,7 +101,7 @@ public class LongYoVariable extends YoVariable<LongYoVariable>
     */
    public boolean valueEquals(long value)
    {
-      return val == value;
+      return getLongValue() == value;
    }
 
    public void setValueFromDouble(double doubleValue, boolean notifyListeners)
@@ -108,7 +116,7 @@ public class LongYoVariable extends YoVariable<LongYoVariable>
 
    public double getValueAsDouble()
    {
-      return val;
+      return getLongValue();
    }
 
    public String toString()
@@ -128,7 +136,7 @@ public class LongYoVariable extends YoVariable<LongYoVariable>
     */
    public void getValueString(StringBuffer stringBuffer)
    {
-      stringBuffer.append(val);
+      stringBuffer.append(getLongValue());
    }
    
    public void getValueStringFromDouble(StringBuffer stringBuffer, double doubleValue)
@@ -139,7 +147,7 @@ public class LongYoVariable extends YoVariable<LongYoVariable>
    @Override
    public long getValueAsLongBits()
    {
-      return val;
+      return getLongValue();
    }
 
    @Override
@@ -39,6 +39,11 @@ public abstract class YoVariable<T extends YoVariable<T>>
    private String description;
    private YoVariableType type;
    private YoVariableRegistry registry;
+
+   // Set when the value is stored in a YoVariableStorage, the value field of the subclass is used otherwise
+   long[] valueBuffer = null;
+   int valueIndex = -1;
+   private YoVariableStorage storage = null;
    
    public YoVariable(YoVariableType type, String name, String description, YoVariableRegistry registry)
    {
@@ -107,6 +112,29 @@ public abstract class YoVariable<T extends YoVariable<T>>
       }
    }
 
+   final void bindToStorage(YoVariableStorage storage, long[] valueBuffer, int valueIndex)
+   {
+      this.storage = storage;
+      this.valueBuffer = valueBuffer;
+      this.valueIndex = valueIndex;
+   }
+
+   /**
+    * @return the YoVariableStorage backing the value of this variable, null if this variable stores its own value
+    */
+   public YoVariableStorage getStorage()
+   {
+      return storage;
+   }
+
+   /**
+    * @return index of the value of this variable in its YoVariableStorage
+    */
+   public int getStorageIndex()
+   {
+      return valueIndex;
+   }
+
    public YoVariableRegistry getYoVariableRegistry()
    {
       return registry;
@@ -0,0 +1,171 @@
+package us.ihmc.robotics.dataStructures.variable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contiguous backing store for the values of YoVariables.
+ *
+ * <p>Normally each YoVariable keeps its value in a plain field. When a variable is added to a YoVariableStorage its
+ * value is moved into a shared long[] as long bits (see YoVariable.getValueAsLongBits()) and the variable becomes a
+ * view on that slot. Snapshotting all values of a registry tree is then a single array copy
+ * instead of a virtual call per variable.</p>
+ *
+ * <p>Slots are handed out in registration order and never reused. Variables cannot be moved from one storage to
+ * another.</p>
+ *
+ * <p>Like the YoVariables themselves, this class is not thread safe.</p>
+ */
+public class YoVariableStorage
+{
+   public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+   private final ArrayList<YoVariable<?>> variables = new ArrayList<YoVariable<?>>();
+   private long[] values;
+
+   public YoVariableStorage()
+   {
+      this(DEFAULT_INITIAL_CAPACITY);
+   }
+
+   /**
+    * @param initialCapacity Number of variables that fit before the backing array has to be reallocated
+    */
+   public YoVariableStorage(int initialCapacity)
+   {
+      values = new long[Math.max(1, initialCapacity)];
+   }
+
+   /**
+    * Move the value of variable into this storage. Does nothing if the variable is already stored here.
+    */
+   public void addVariable(YoVariable<?> variable)
+   {
+      if (variable.getStorage() == this)
+      {
+         return;
+      }
+      if (variable.getStorage() != null)
+      {
+         throw new RuntimeException(variable.getName() + " is already backed by another YoVariableStorage");
+      }
+
+      int index = variables.size();
+      if (index == values.length)
+      {
+         long[] newValues = new long[2 * values.length];
+         System.arraycopy(values, 0, newValues, 0, values.length);
+         values = newValues;
+
+         for (int i = 0; i < variables.size(); i++)
+         {
+            variables.get(i).bindToStorage(this, values, i);
+         }
+      }
+
+      values[index] = variable.getValueAsLongBits();
+      variables.add(variable);
+      variable.bindToStorage(this, values, index);
+   }
+
+   public void addVariables(List<YoVariable<?>> variablesToAdd)
+   {
+      for (int i = 0; i < variablesToAdd.size(); i++)
+      {
+         addVariable(variablesToAdd.get(i));
+      }
+   }
+
+   public int getNumberOfVariables()
+   {
+      return variables.size();
+   }
+
+   public YoVariable<?> getVariable(int index)
+   {
+      return variables.get(index);
+   }
+
+   /**
+    * @return index of the slot of variable in this storage, -1 if the variable is not stored here
+    */
+   public int getIndex(YoVariable<?> variable)
+   {
+      if (variable.getStorage() != this)
+      {
+         return -1;
+      }
+      return variable.getStorageIndex();
+   }
+
+   /**
+    * Check if variables are stored in consecutive slots of this storage, in list order.
+    *
+    * @return index of the slot of the first variable if they are, -1 otherwise
+    */
+   public int getStartIndexIfContiguous(List<YoVariable<?>> variablesToCheck)
+   {
+      if (variablesToCheck.isEmpty())
+      {
+         return -1;
+      }
+
+      int start = getIndex(variablesToCheck.get(0));
+      if (start == -1)
+      {
+         return -1;
+      }
+
+      for (int i = 1; i < variablesToCheck.size(); i++)
+      {
+         if (getIndex(variablesToCheck.get(i)) != start + i)
+         {
+            return -1;
+         }
+      }
+      return start;
+   }
+
+   /**
+    * Copy the long bits of all variables in this storage to destination.
+    */
+   public void getValues(long[] destination)
+   {
+      getValues(0, destination, 0, variables.size());
+   }
+
+   /**
+    * Copy the long bits of the variables in the slots [start, start + length) to destination.
+    */
+   public void getValues(int start, long[] destination, int destinationOffset, int length)
+   {
+      System.arraycopy(values, start, destination, destinationOffset, length);
+   }
+
+   /**
+    * Overwrite the values of all variables in this storage without notifying listeners.
+    *
+    * @param source long bits of the variables, as returned by getValues()
+    */
+   public void setValues(long[] source)
+   {
+      System.arraycopy(source, 0, values, 0, variables.size());
+   }
+
+   /**
+    * Overwrite the values of all variables in this storage and notify the listeners of the variables that changed.
+    *
+    * @param source long bits of the variables, as returned by getValues()
+    */
+   public void setValuesAndNotifyListeners(long[] source)
+   {
+      for (int i = 0; i < variables.size(); i++)
+      {
+         if (values[i] != source[i])
+         {
+            values[i] = source[i];
+            variables.get(i).notifyVariableChangedListeners();
+         }
+      }
+   }
+}
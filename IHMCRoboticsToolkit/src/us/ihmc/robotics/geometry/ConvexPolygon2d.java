@@ -771,11 +771,22 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
    }
 
    public Point2d getClosestVertexCopy(Line2d line)
+   {
+      Point2d ret = new Point2d();
+      boolean success = getClosestVertex(ret, line);
+
+      if (!success)
+         return null;
+      else
+         return ret;
+   }
+
+   public boolean getClosestVertex(Point2d closestVertexToPack, Line2d line)
    {
       checkIfUpToDate();
       // O(n) for now, maybe there's a faster way?
 
-      Point2d ret = null;
+      Point2d closestVertex = null;
       double minDistanceSquared = Double.POSITIVE_INFINITY;
 
       for (int i = 0; i < numberOfVertices; i++)
@@ -784,18 +795,19 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
          double distanceSquared = line.distanceSquared(vertex);
          if (distanceSquared < minDistanceSquared)
          {
-            ret = vertex;
+            closestVertex = vertex;
             minDistanceSquared = distanceSquared;
          }
       }
 
-      if (ret == null)
+      if (closestVertex == null)
       {
          System.err.println(this.getClass().getSimpleName() + ": Distance squared to vertex 0: " + line.distanceSquared(getVertex(0)));
-         return null;
+         return false;
       }
-      else
-         return new Point2d(ret);
+
+      closestVertexToPack.set(closestVertex);
+      return true;
    }
 
    public Point2d getClosestVertexWithRayCopy(Line2d ray, boolean throwAwayVerticesOutsideRay)
@@ -1386,13 +1398,30 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
 
    private int[] getNearestEdgeIndices(Point2d pointToProject)
    {
-      // First find the line of sight vertices. If inside the Polygon, then return null.
-      int[] indices = getLineOfSightVerticesIndices(pointToProject);
-      if ((indices == null) || (indices.length < 2))
+      int numberOfNearestEdges = getNearestEdgeIndices(pointToProject, tempNearestEdgeIndices);
+      if (numberOfNearestEdges == 0)
          return null;
+      if (numberOfNearestEdges == 1)
+         return new int[] { tempNearestEdgeIndices[0] };
+      return new int[] { tempNearestEdgeIndices[0], tempNearestEdgeIndices[1] };
+   }
+
+   private final int[] tempLineOfSightIndices = new int[2];
+   private final int[] tempLeavingEdgeIndices = new int[2];
+   private final int[] tempNearestEdgeIndices = new int[2];
+
+   /**
+    * Same as getNearestEdgeIndices(Point2d) without allocating.
+    * @return the number of nearest edges packed in nearestEdgeIndicesToPack, 0 if the point is inside the polygon
+    */
+   private int getNearestEdgeIndices(Point2d pointToProject, int[] nearestEdgeIndicesToPack)
+   {
+      // First find the line of sight vertices. If inside the Polygon, then return 0.
+      if (!getLineOfSightVerticesIndices(pointToProject, tempLineOfSightIndices))
+         return 0;
 
-      int leftEdge = (indices[0] - 1 + numberOfVertices) % numberOfVertices;
-      int rightEdge = indices[1];
+      int leftEdge = (tempLineOfSightIndices[0] - 1 + numberOfVertices) % numberOfVertices;
+      int rightEdge = tempLineOfSightIndices[1];
 
       // Binary search maintaining nearest left and nearest right vertices until they are adjacent: //TODO remove the q from maintaining
       while ((rightEdge != leftEdge) && (getNextVertexIndex(rightEdge) != leftEdge))
@@ -1409,13 +1438,17 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
          }
          else
          {
-            return new int[] { testEdge };
+            nearestEdgeIndicesToPack[0] = testEdge;
+            return 1;
          }
       }
 
       // If edges are the same, then just return one,
       if (leftEdge == rightEdge)
-         return new int[] { leftEdge };
+      {
+         nearestEdgeIndicesToPack[0] = leftEdge;
+         return 1;
+      }
 
       // Otherwise check if left is fully to the left or right is fully to the right:
       boolean leftEdgeIsFullyLeft = isEdgeFullyToTheLeftOfObserver(leftEdge, pointToProject);
@@ -1428,11 +1461,19 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
       }
 
       if (!leftEdgeIsFullyLeft)
-         return new int[] { leftEdge };
+      {
+         nearestEdgeIndicesToPack[0] = leftEdge;
+         return 1;
+      }
       if (!rightEdgeIsFullyRight)
-         return new int[] { rightEdge };
+      {
+         nearestEdgeIndicesToPack[0] = rightEdge;
+         return 1;
+      }
 
-      return new int[] { leftEdge, rightEdge };
+      nearestEdgeIndicesToPack[0] = leftEdge;
+      nearestEdgeIndicesToPack[1] = rightEdge;
+      return 2;
 
    }
 
@@ -1488,11 +1529,11 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
       return crossProduct < 0.0;
    }
 
-   private int[] getFirstCrossedEdgeFromInsideLineIndices(Point2d lineStart, Vector2d lineDirection)
+   private boolean getFirstCrossedEdgeFromInsideLineIndices(Point2d lineStart, Vector2d lineDirection, int[] verticesIndicesToPack)
    {
       if (!hasAtLeastOneVertex())
       {
-         return null;
+         return false;
       }
 
       // At any time we'll hold onto 4 vertex indices. -1 signifies not found yet:
@@ -1571,7 +1612,9 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
          }
       }
 
-      return new int[] { forwardLeftVertex, forwardRightVertex };
+      verticesIndicesToPack[0] = forwardLeftVertex;
+      verticesIndicesToPack[1] = forwardRightVertex;
+      return true;
    }
 
    private boolean isVertexToTheLeftOrStraightOn(int index, Point2d lineStart, Vector2d lineDirection)
@@ -1764,138 +1807,194 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
 
    @Override
    public Point2d[] intersectionWith(Line2d line)
+   {
+      Point2d firstIntersection = new Point2d();
+      Point2d secondIntersection = new Point2d();
+      int numberOfIntersections = intersectionWith(line, firstIntersection, secondIntersection);
+
+      return packIntersectionsInArray(numberOfIntersections, firstIntersection, secondIntersection);
+   }
+
+   /**
+    * Same as {@link #intersectionWith(Line2d)} but packs the intersections instead of allocating them.
+    * @return the number of intersections that were packed: 0, 1, or 2.
+    */
+   public int intersectionWith(Line2d line, Point2d firstIntersectionToPack, Point2d secondIntersectionToPack)
    {
       checkIfUpToDate();
-      Point2d[] intersectionWithRay1 = intersectionWithRay(line);
+      int numberOfIntersections = intersectionWithRay(line, firstIntersectionToPack, secondIntersectionToPack);
 
-      if ((intersectionWithRay1 == null) || (intersectionWithRay1.length == 0))
+      if (numberOfIntersections == 0)
       {
-         Line2d oppositeDirection = new Line2d(line);
-         oppositeDirection.negateDirection();
+         tempLine2d.set(line);
+         tempLine2d.negateDirection();
 
-         return intersectionWithRay(oppositeDirection);
+         return intersectionWithRay(tempLine2d, firstIntersectionToPack, secondIntersectionToPack);
       }
 
-      if (intersectionWithRay1.length == 2)
+      if (numberOfIntersections == 2)
       {
-         return intersectionWithRay1;
+         return 2;
       }
 
-      else if (intersectionWithRay1.length == 1) // Must have been inside or on the polygon. See what we get with the ray the other direction from the outside
-      {
-         Point2d newPoint = new Point2d();
-         line.getPoint(newPoint);
-         Vector2d vectorHeadingTheOtherWay = new Vector2d();
-         line.getNormalizedVector(vectorHeadingTheOtherWay);
+      // Must have been inside or on the polygon. See what we get with the ray the other direction from the outside
+      line.getPoint(tempLineStart);
+      line.getNormalizedVector(tempLineDirection);
 
-         newPoint.add(vectorHeadingTheOtherWay);
-         vectorHeadingTheOtherWay.negate();
+      tempLineStart.add(tempLineDirection);
+      tempLineDirection.negate();
 
-         Line2d backwardLineWithADifferentStartingPoint = new Line2d(newPoint, vectorHeadingTheOtherWay);
+      tempLine2d.set(tempLineStart, tempLineDirection);
 
-         Point2d[] newIntersections = intersectionWithRay(backwardLineWithADifferentStartingPoint);
-         if ((newIntersections == null) || (!(newIntersections.length >= 1)))
-         {
-            return intersectionWithRay1; // Kindof a bug. Should fix this later, and then throw the exception as follows...
+      int numberOfNewIntersections = intersectionWithRay(tempLine2d, tempIntersection0, tempIntersection1);
+      if (numberOfNewIntersections == 0)
+      {
+         return 1; // Kindof a bug. Should fix this later, and then throw the exception as follows...
 
-            //          throw new RuntimeException("Bug. Should find at least one intersection if the ray the other way found one!");
-         }
+         //          throw new RuntimeException("Bug. Should find at least one intersection if the ray the other way found one!");
+      }
 
-         if (newIntersections.length == 2)
-            return newIntersections;
-         else
-         {
-            return new Point2d[] { intersectionWithRay1[0], newIntersections[0] }; // definitely causes line intersections to be incorrect
-         }
+      if (numberOfNewIntersections == 2)
+      {
+         firstIntersectionToPack.set(tempIntersection0);
+         secondIntersectionToPack.set(tempIntersection1);
       }
       else
       {
-         throw new RuntimeException("Should never get here");
+         secondIntersectionToPack.set(tempIntersection0); // definitely causes line intersections to be incorrect
       }
-
+      return 2;
    }
 
    public Point2d[] intersectionWithRay(Line2d ray)
+   {
+      Point2d firstIntersection = new Point2d();
+      Point2d secondIntersection = new Point2d();
+      int numberOfIntersections = intersectionWithRay(ray, firstIntersection, secondIntersection);
+
+      return packIntersectionsInArray(numberOfIntersections, firstIntersection, secondIntersection);
+   }
+
+   /**
+    * Same as {@link #intersectionWithRay(Line2d)} but packs the intersections instead of allocating them.
+    * @return the number of intersections that were packed: 0, 1, or 2.
+    */
+   public int intersectionWithRay(Line2d ray, Point2d firstIntersectionToPack, Point2d secondIntersectionToPack)
    {
       checkIfUpToDate();
       if (ray == null || ray.containsNaN())
-         return null;
+         return 0;
 
-      LineSegment2d[] intersectingEdges = getIntersectingEdges(ray);
-      if (intersectingEdges == null)
-         return null;
+      int numberOfIntersectingEdges = getIntersectingEdges(ray, tempIntersectingEdge0, tempIntersectingEdge1);
+      if (numberOfIntersectingEdges == 0)
+         return 0;
 
-      Point2d[] ret = new Point2d[intersectingEdges.length];
+      Point2d intersection = tempIntersectingEdge0.intersectionWith(ray);
+      if (intersection == null)
+         return getClosestVertex(firstIntersectionToPack, ray) ? 1 : 0;
+      firstIntersectionToPack.set(intersection);
 
-      for (int i = 0; i < intersectingEdges.length; i++)
-      {
-         ret[i] = intersectingEdges[i].intersectionWith(ray);
-         if (ret[i] == null)
-            return new Point2d[] { this.getClosestVertexCopy(ray) };
+      if (numberOfIntersectingEdges == 1)
+         return 1;
 
-         //       if (ret[i] == null) throw new RuntimeException("Shouldn't be null! line2d = " + line2d + ", intersectingEdges[" + i + "] = " + intersectingEdges[i]);
-      }
+      intersection = tempIntersectingEdge1.intersectionWith(ray);
+      if (intersection == null)
+         return getClosestVertex(firstIntersectionToPack, ray) ? 1 : 0;
+      secondIntersectionToPack.set(intersection);
 
-      if (hasExactlyTwoVertices() && ret.length == 2 && ret[0].equals(ret[1]))
-         ret = new Point2d[] { ret[0] };
+      if (hasExactlyTwoVertices() && firstIntersectionToPack.equals(secondIntersectionToPack))
+         return 1;
 
-      return ret;
+      return 2;
+   }
+
+   private static Point2d[] packIntersectionsInArray(int numberOfIntersections, Point2d firstIntersection, Point2d secondIntersection)
+   {
+      switch (numberOfIntersections)
+      {
+      case 1:
+         return new Point2d[] { firstIntersection };
+      case 2:
+         return new Point2d[] { firstIntersection, secondIntersection };
+      default:
+         return null;
+      }
    }
 
    public LineSegment2d[] getIntersectingEdges(Line2d line2d)
+   {
+      LineSegment2d firstEdge = new LineSegment2d();
+      LineSegment2d secondEdge = new LineSegment2d();
+      int numberOfIntersectingEdges = getIntersectingEdges(line2d, firstEdge, secondEdge);
+
+      switch (numberOfIntersectingEdges)
+      {
+      case 1:
+         return new LineSegment2d[] { firstEdge };
+      case 2:
+         return new LineSegment2d[] { firstEdge, secondEdge };
+      default:
+         return null;
+      }
+   }
+
+   /**
+    * Packs the edges intersecting the line: the entering and the leaving edge, or only the leaving edge when the line starts inside the polygon.
+    * @return the number of edges that were packed: 0, 1, or 2.
+    */
+   private int getIntersectingEdges(Line2d line2d, LineSegment2d firstEdgeToPack, LineSegment2d secondEdgeToPack)
    {
       checkIfUpToDate();
       if (!hasAtLeastTwoVertices())
       {
-         return null;
+         return 0;
       }
 
       else if (!hasAtLeastThreeVertices())
       {
-         LineSegment2d polygonAsSegment = new LineSegment2d(getVertex(0), getVertex(1));
-         LineSegment2d polygonAsSegmentReversed = new LineSegment2d(getVertex(1), getVertex(0));
-         if (polygonAsSegment.intersectionWith(line2d) != null)
+         firstEdgeToPack.set(getVertex(0), getVertex(1));
+         if (firstEdgeToPack.intersectionWith(line2d) != null)
          {
-            return new LineSegment2d[] { polygonAsSegment, polygonAsSegmentReversed };
+            secondEdgeToPack.set(getVertex(1), getVertex(0));
+            return 2;
          }
          else
          {
-            return null;
+            return 0;
          }
       }
 
       // First find the indices of the two line of sight vertices:
-      Point2d lineStart = new Point2d();
+      Point2d lineStart = tempLineStart;
       line2d.getPoint(lineStart);
-      Vector2d lineDirection = new Vector2d();
+      Vector2d lineDirection = tempLineDirection;
       line2d.getNormalizedVector(lineDirection);
 
-      int[] lineOfSightVertices = getLineOfSightVerticesIndices(lineStart);
       int leftLineOfSightVertex, rightLineOfSightVertex;
 
-      if (lineOfSightVertices == null) // Means the line starts inside the Polygon! Only worry about the leaving vertices and not the entering vertices!
+      if (!getLineOfSightVerticesIndices(lineStart, tempLineOfSightIndices)) // Means the line starts inside the Polygon! Only worry about the leaving vertices and not the entering vertices!
       {
-         int[] leavingEdgeVertices = getFirstCrossedEdgeFromInsideLineIndices(lineStart, lineDirection);
-         int firstLeavingVertex = leavingEdgeVertices[0];
-         int secondLeavingVertex = leavingEdgeVertices[1];
+         getFirstCrossedEdgeFromInsideLineIndices(lineStart, lineDirection, tempLeavingEdgeIndices);
+         int firstLeavingVertex = tempLeavingEdgeIndices[0];
+         int secondLeavingVertex = tempLeavingEdgeIndices[1];
 
          if (getNextVertexIndex(firstLeavingVertex) != secondLeavingVertex)
          {
             throw new RuntimeException("!areAdjacentInClockwiseOrder");
          }
 
-         LineSegment2d leavingEdge = new LineSegment2d(getVertex(firstLeavingVertex), getVertex(secondLeavingVertex));
+         firstEdgeToPack.set(getVertex(firstLeavingVertex), getVertex(secondLeavingVertex));
 
-         return new LineSegment2d[] { leavingEdge };
+         return 1;
 
       }
 
-      leftLineOfSightVertex = lineOfSightVertices[0];
-      rightLineOfSightVertex = lineOfSightVertices[1];
+      leftLineOfSightVertex = tempLineOfSightIndices[0];
+      rightLineOfSightVertex = tempLineOfSightIndices[1];
 
       // Check if line is between the vertices or not:
       if (!isLineStrictlyBetweenVertices(lineStart, lineDirection, leftLineOfSightVertex, rightLineOfSightVertex))
-         return null;
+         return 0;
 
       // Now binary search between them to find the entering edge.
       int leftEnteringVertex = leftLineOfSightVertex;
@@ -1952,10 +2051,10 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
 
       // Now we have adjacent vertices. Return the first ones to signify the edges:
 
-      LineSegment2d enteringEdge = new LineSegment2d(getVertex(rightEnteringVertex), getVertex(leftEnteringVertex));
-      LineSegment2d leavingEdge = new LineSegment2d(getVertex(leftLeavingVertex), getVertex(rightLeavingVertex));
+      firstEdgeToPack.set(getVertex(rightEnteringVertex), getVertex(leftEnteringVertex));
+      secondEdgeToPack.set(getVertex(leftLeavingVertex), getVertex(rightLeavingVertex));
 
-      return new LineSegment2d[] { enteringEdge, leavingEdge };
+      return 2;
 
    }
 
@@ -2015,28 +2114,38 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
    public boolean getClosestEdge(LineSegment2d closestEdgeToPack, Point2d point)
    {
       checkIfUpToDate();
-      if (!hasAtLeastTwoVertices())
+      if (!getClosestEdgeVertexIndicesInClockwiseOrderedList(point, tempClosestEdgeVertexIndices))
       {
          return false;
       }
 
-      int[] closestEdgeVertices = getClosestEdgeVertexIndicesInClockwiseOrderedList(point);
-
-      Point2d prevP = getVertex(closestEdgeVertices[0]);
-      Point2d p = getVertex(closestEdgeVertices[1]);
+      Point2d prevP = getVertex(tempClosestEdgeVertexIndices[0]);
+      Point2d p = getVertex(tempClosestEdgeVertexIndices[1]);
       closestEdgeToPack.set(prevP, p);
 
       return true;
    }
 
    private final LineSegment2d tempEdge = new LineSegment2d();
+   private final int[] tempClosestEdgeVertexIndices = new int[2];
 
    protected int[] getClosestEdgeVertexIndicesInClockwiseOrderedList(Point2d point)
+   {
+      int[] closestEdgeVertexIndicesInClockwiseOrderedList = new int[2];
+      if (!getClosestEdgeVertexIndicesInClockwiseOrderedList(point, closestEdgeVertexIndicesInClockwiseOrderedList))
+      {
+         return null;
+      }
+
+      return closestEdgeVertexIndicesInClockwiseOrderedList;
+   }
+
+   private boolean getClosestEdgeVertexIndicesInClockwiseOrderedList(Point2d point, int[] closestEdgeVertexIndicesInClockwiseOrderedList)
    {
       checkIfUpToDate();
       if (!hasAtLeastTwoVertices())
       {
-         return null;
+         return false;
       }
 
       // TODO: Create a more efficient algorithm to find this distance
@@ -2044,7 +2153,6 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
 
       int prevIndex = getNumberOfVertices() - 1;
 
-      int[] closestEdgeVertexIndicesInClockwiseOrderedList = new int[2];
       closestEdgeVertexIndicesInClockwiseOrderedList[0] = prevIndex;
       closestEdgeVertexIndicesInClockwiseOrderedList[1] = 0;
 
@@ -2064,7 +2172,7 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
          prevIndex = index;
       }
 
-      return closestEdgeVertexIndicesInClockwiseOrderedList;
+      return true;
    }
 
    @Override
@@ -2437,6 +2545,15 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
 
 
    private final Point2d tempPoint2d = new Point2d();
+   private final Vector2d tempVector2d = new Vector2d();
+   private final Vector2d tempEdgeVector2d = new Vector2d();
+   private final Point2d tempLineStart = new Point2d();
+   private final Vector2d tempLineDirection = new Vector2d();
+   private final Line2d tempLine2d = new Line2d();
+   private final Point2d tempIntersection0 = new Point2d();
+   private final Point2d tempIntersection1 = new Point2d();
+   private final LineSegment2d tempIntersectingEdge0 = new LineSegment2d();
+   private final LineSegment2d tempIntersectingEdge1 = new LineSegment2d();
 
    /**
     * Compute the orthogonal projection of the given point and modify it to store the result.
@@ -2453,21 +2570,21 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
       }
 
       tempPoint2d.set(point2d);
-      int[] nearestEdges = getNearestEdgeIndices(tempPoint2d);
-      if (nearestEdges == null)
+      int numberOfNearestEdges = getNearestEdgeIndices(tempPoint2d, tempNearestEdgeIndices);
+      if (numberOfNearestEdges == 0)
          return; // point2d must be inside polygon, so leave it as it is.
 
       int leftEdge, rightEdge;
 
-      if (nearestEdges.length == 1)
+      if (numberOfNearestEdges == 1)
       {
-         leftEdge = rightEdge = nearestEdges[0];
+         leftEdge = rightEdge = tempNearestEdgeIndices[0];
       }
 
       else
       {
-         leftEdge = nearestEdges[0];
-         rightEdge = nearestEdges[1];
+         leftEdge = tempNearestEdgeIndices[0];
+         rightEdge = tempNearestEdgeIndices[1];
       }
 
       // Two adjacent edges. Return the left vertex:
@@ -2479,10 +2596,12 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
       Point2d firstEdgeVertex = getVertex(leftEdge);
       Point2d secondEdgeVertex = getNextVertex(leftEdge);
 
-      Vector2d firstVertexToPoint = new Vector2d(point2d);
+      Vector2d firstVertexToPoint = tempVector2d;
+      firstVertexToPoint.set(point2d);
       firstVertexToPoint.sub(firstEdgeVertex);
 
-      Vector2d edgeVector = new Vector2d(secondEdgeVertex);
+      Vector2d edgeVector = tempEdgeVector2d;
+      edgeVector.set(secondEdgeVertex);
       edgeVector.sub(firstEdgeVertex);
 
       if (edgeVector.lengthSquared() < 1e-10)
@@ -2504,13 +2623,15 @@ public class ConvexPolygon2d implements Geometry2d<ConvexPolygon2d>
 
       edgeVector.scale(alpha);
 
-      Point2d ret = new Point2d(firstEdgeVertex);
+      Point2d ret = tempPoint2d;
+      ret.set(firstEdgeVertex);
       ret.add(edgeVector);
 
       // Make sure the returned point is inside the polygon by nudging it a little toward the centroid.
       // This will all but guarantee that projections are then inside.
 
-      Vector2d retToCentroid = new Vector2d(centroid);
+      Vector2d retToCentroid = tempVector2d;
+      retToCentroid.set(centroid);
       retToCentroid.sub(ret);
       retToCentroid.scale(1.0e-12);
 
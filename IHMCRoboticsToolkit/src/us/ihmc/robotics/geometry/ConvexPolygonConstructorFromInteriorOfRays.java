@@ -112,6 +112,7 @@ public class ConvexPolygonConstructorFromInteriorOfRays
 
                   previousIndexToCheck = evenMorePreviousIndexToCheck;
                   
+                  removeIntersectionPoint(intersectionPoints, rayIndex);
                   intersection = getAndRemovePointFromPool();
                   foundIntersection = ray.intersectionWith(intersection, evenMorePreviousRayToCheck);
                   if (!foundIntersection)
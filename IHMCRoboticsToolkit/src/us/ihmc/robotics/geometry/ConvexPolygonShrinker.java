@@ -138,7 +138,7 @@ public class ConvexPolygonShrinker
       framePolygonToPack.clear(polygonQ.getReferenceFrame());
       framePolygonToPack.update();
       ConvexPolygon2d polygon2dToPack = framePolygonToPack.getConvexPolygon2d();
-      shrinkConstantDistanceInto(polygonQ.getConvexPolygon2dCopy(), distance, polygon2dToPack);
+      shrinkConstantDistanceInto(polygonQ.getConvexPolygon2d(), distance, polygon2dToPack);
 //      framePolygonToPack.updateFramePoints();
       framePolygonToPack.update();
    }
@@ -1145,6 +1145,18 @@ public class FrameConvexPolygon2d extends FrameGeometry2d<FrameConvexPolygon2d,
       return ret;
    }
 
+   /**
+    * Same as {@link #intersectionWith(FrameLine2d)} but packs the intersections instead of allocating them.
+    * @return the number of intersections that were packed: 0, 1, or 2.
+    */
+   public int intersectionWith(FrameLine2d line, FramePoint2d firstIntersectionToPack, FramePoint2d secondIntersectionToPack)
+   {
+      checkReferenceFrameMatch(line);
+      firstIntersectionToPack.setToZero(referenceFrame);
+      secondIntersectionToPack.setToZero(referenceFrame);
+      return convexPolygon.intersectionWith(line.getLine2d(), firstIntersectionToPack.getPoint(), secondIntersectionToPack.getPoint());
+   }
+
    public FramePoint2d[] intersectionWithRay(FrameLine2d ray)
    {
       checkReferenceFrameMatch(ray);
@@ -1161,6 +1173,18 @@ public class FrameConvexPolygon2d extends FrameGeometry2d<FrameConvexPolygon2d,
       return ret;
    }
 
+   /**
+    * Same as {@link #intersectionWithRay(FrameLine2d)} but packs the intersections instead of allocating them.
+    * @return the number of intersections that were packed: 0, 1, or 2.
+    */
+   public int intersectionWithRay(FrameLine2d ray, FramePoint2d firstIntersectionToPack, FramePoint2d secondIntersectionToPack)
+   {
+      checkReferenceFrameMatch(ray);
+      firstIntersectionToPack.setToZero(referenceFrame);
+      secondIntersectionToPack.setToZero(referenceFrame);
+      return convexPolygon.intersectionWithRay(ray.getLine2d(), firstIntersectionToPack.getPoint(), secondIntersectionToPack.getPoint());
+   }
+
    @Override
    public FramePoint2d[] intersectionWith(FrameLineSegment2d lineSegment)
    {
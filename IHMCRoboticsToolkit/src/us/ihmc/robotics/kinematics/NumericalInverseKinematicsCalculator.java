@@ -119,6 +119,14 @@ public class NumericalInverseKinematicsCalculator implements InverseKinematicsCa
       this.limitJointAngles = limitJointAngles;
    }
    
+   /**
+    * Resets the random number generator used to scale the joint angle corrections, so that the next solves are repeatable.
+    */
+   public void setRandomSeed(long seed)
+   {
+      random.setSeed(seed);
+   }
+
    public void setSelectionMatrix(DenseMatrix64F selectionMatrix)
    {
       if (selectionMatrix.getNumCols() != SpatialMotionVector.SIZE)
@@ -25,6 +25,10 @@ public class QuadTreeForGround
    private final QuadTreeForGroundParameters quadTreeParameters;
    private final Point3d nearestPointForHeightAt = new Point3d();
    private final QuadTreeForGroundPointLimiter pointLimiter;
+
+   private volatile QuadTreeForGroundSnapshot snapshot;
+   private int putsBetweenSnapshots = 0;
+   private int putsSinceLastSnapshot = 0;
    
    
    public QuadTreeForGround(double minX, double minY, double maxX, double maxY, double resolution, double heightThreshold,
@@ -49,6 +53,7 @@ public class QuadTreeForGround
          pointLimiter = null;
       }
       this.root = new QuadTreeForGroundNode("root", bounds, quadTreeParameters, pointLimiter, null, Double.NaN, listeners);
+      this.snapshot = new QuadTreeForGroundSnapshot(root, bounds, quadTreeParameters);
    }
 
    public int getNumberOfPoints()
@@ -105,7 +110,48 @@ public class QuadTreeForGround
          listener.RawPointAdded((float) x, (float) y, (float) z);
       }
 
-      return root.put(x, y, z);
+      QuadTreeForGroundPutResult result = root.put(x, y, z);
+      putsSinceLastSnapshot++;
+
+      if ((putsBetweenSnapshots > 0) && (putsSinceLastSnapshot >= putsBetweenSnapshots))
+         publishSnapshot();
+
+      return result;
+   }
+
+   /**
+    * Makes {@link #put(double, double, double)} publish a new snapshot every putsBetweenSnapshots puts, and {@link #clear()} publish one after clearing the tree.
+    * The threads putting points pay for the copies, so the readers never wait for them. Publishing only copies the nodes that changed since the last snapshot.
+    *
+    * @param putsBetweenSnapshots number of puts between two snapshots, zero or less to only publish snapshots with {@link #publishSnapshot()}
+    */
+   public synchronized void setPutsBetweenSnapshots(int putsBetweenSnapshots)
+   {
+      this.putsBetweenSnapshots = putsBetweenSnapshots;
+
+      if ((putsBetweenSnapshots > 0) && (putsSinceLastSnapshot >= putsBetweenSnapshots))
+         publishSnapshot();
+   }
+
+   /**
+    * Copies the current state of the tree into an immutable snapshot that {@link #getSnapshot()} returns from now on.
+    * The sub trees that did not change since the last snapshot are shared with it, so this takes time proportional to the changes, not to the size of the tree.
+    */
+   public synchronized QuadTreeForGroundSnapshot publishSnapshot()
+   {
+      putsSinceLastSnapshot = 0;
+      snapshot = new QuadTreeForGroundSnapshot(root, bounds, quadTreeParameters);
+
+      return snapshot;
+   }
+
+   /**
+    * Returns the last published snapshot without locking the tree, so readers are never held up by the threads putting points.
+    * The snapshot can be behind the tree by less than the number of puts between snapshots. Before the first publish, it is the empty tree.
+    */
+   public QuadTreeForGroundSnapshot getSnapshot()
+   {
+      return snapshot;
    }
    
    public boolean isEmpty()
@@ -116,6 +162,9 @@ public class QuadTreeForGround
    public synchronized void clear()
    {
       root.clear();
+
+      if (putsBetweenSnapshots > 0)
+         publishSnapshot();
    }
 
 
@@ -184,9 +233,12 @@ public class QuadTreeForGround
       return root;
    }
    
-   public void setDefaultHeightWhenNoPoints(double defaultHeightWhenNoPonts)
+   public synchronized void setDefaultHeightWhenNoPoints(double defaultHeightWhenNoPonts)
    {
       root.setDefaultHeightWhenNoPoints(defaultHeightWhenNoPonts);
+
+      if (putsBetweenSnapshots > 0)
+         publishSnapshot();
    }
    
    protected double getDefaultHeightWhenNoPoints()
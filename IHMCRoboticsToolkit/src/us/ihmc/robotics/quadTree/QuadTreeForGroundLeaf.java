@@ -214,6 +214,7 @@ public class QuadTreeForGroundLeaf
    // This is a callback from the decay, no need to call decay.remove again
    public void removePoint(QuadTreeForGroundPoint quadTreeForGroundPoint)
    {
+      node.invalidateSnapshotNode();
       points.remove(quadTreeForGroundPoint);
       if(points.size() == 0)
       {
@@ -23,6 +23,9 @@ public class QuadTreeForGroundNode
    
    private final QuadTreeForGroundNode parent;
 
+   /** Copy of this sub tree for the snapshots of the tree, null when the sub tree changed since the last snapshot. */
+   private QuadTreeForGroundSnapshot.SnapshotNode snapshotNode = null;
+
    public QuadTreeForGroundNode(String id, double minX, double minY, double maxX, double maxY, QuadTreeForGroundParameters parameters, QuadTreeForGroundPointLimiter decay, QuadTreeForGroundNode parent, double defaultHeightWhenNoPonts, 
                              ArrayList<QuadTreeForGroundListener> listeners)
    {
@@ -144,6 +147,7 @@ public class QuadTreeForGroundNode
 
       else if (this.leaf == null)
       {
+         invalidateSnapshotNode();
          QuadTreeForGroundLeaf leaf = new QuadTreeForGroundLeaf(this, pointLimiter);
          leaf.addPoint(point);
          setLeaf(leaf);
@@ -220,7 +224,7 @@ public class QuadTreeForGroundNode
       return id;
    }
 
-   private boolean isAtSmallestResolution()
+   boolean isAtSmallestResolution()
    {
       return Math.abs(bounds.maxX - bounds.minX) < parameters.getResolution();
    }
@@ -239,6 +243,8 @@ public class QuadTreeForGroundNode
 
    public void clear()
    {
+      invalidateSnapshotNode();
+
       if (this.hasChildren)
       {
          this.NW.clear();
@@ -388,6 +394,8 @@ public class QuadTreeForGroundNode
 
    private void divide()
    {
+      invalidateSnapshotNode();
+
       for (QuadTreeForGroundListener listener : listeners)
       {
          listener.nodeRemoved(id);
@@ -525,6 +533,8 @@ public class QuadTreeForGroundNode
 
    private void updateLeafValue(QuadTreeForGroundPoint point)
    {
+      invalidateSnapshotNode();
+
       if (leaf.getNumberOfPoints() < parameters.getMaxSameHeightPointsPerNode())
       {
          leaf.addPoint(point);
@@ -588,6 +598,8 @@ public class QuadTreeForGroundNode
 
    public void merge()
    {
+      invalidateSnapshotNode();
+
       if(hasChildren)
       {
          if(NE.isEmpty() && NW.isEmpty() && SE.isEmpty() && SW.isEmpty())
@@ -614,4 +626,28 @@ public class QuadTreeForGroundNode
       return put(point);
    }
 
+   /**
+    * Returns the copy of this sub tree for a snapshot, copying only the nodes that changed since the last snapshot.
+    * Must be called while holding the lock of the tree.
+    */
+   QuadTreeForGroundSnapshot.SnapshotNode getSnapshotNode()
+   {
+      if (snapshotNode == null)
+         snapshotNode = new QuadTreeForGroundSnapshot.SnapshotNode(this);
+
+      return snapshotNode;
+   }
+
+   /**
+    * Drops the copies of this node and its ancestors, they are copied again for the next snapshot.
+    * The ancestors of a node without a copy have no copy either, so this stops at the first node without one.
+    */
+   void invalidateSnapshotNode()
+   {
+      for (QuadTreeForGroundNode node = this; (node != null) && (node.snapshotNode != null); node = node.parent)
+      {
+         node.snapshotNode = null;
+      }
+   }
+
 }
@@ -0,0 +1,404 @@
+package us.ihmc.robotics.quadTree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.vecmath.Point3d;
+
+import us.ihmc.robotics.dataStructures.HeightMapWithPoints;
+import us.ihmc.robotics.geometry.InclusionFunction;
+
+/**
+ * Immutable copy of a {@link QuadTreeForGround}, published by the tree so that readers can query it without blocking the threads that put points.
+ *
+ * The queries give the same answers as the tree they were copied from at the time of the copy: the leaves at the smallest resolution are represented
+ * by the average of their points, the other leaves by their closest point with the average height of the leaf.
+ * The points returned by the queries belong to the snapshot and must not be modified.
+ *
+ * Consecutive snapshots share the copies of the sub trees that did not change in between, so publishing a snapshot only copies what changed.
+ */
+public class QuadTreeForGroundSnapshot implements HeightMapWithPoints
+{
+   private final Box bounds;
+   private final double resolution;
+   private final double maxAllowableXYDistanceForAPointToBeConsideredClose;
+   private final double defaultHeightWhenNoPoints;
+   private final SnapshotNode root;
+
+   QuadTreeForGroundSnapshot(QuadTreeForGroundNode root, Box bounds, QuadTreeForGroundParameters quadTreeParameters)
+   {
+      this.bounds = bounds;
+      this.resolution = quadTreeParameters.getResolution();
+      this.maxAllowableXYDistanceForAPointToBeConsideredClose = quadTreeParameters.getMaxAllowableXYDistanceForAPointToBeConsideredClose();
+      this.defaultHeightWhenNoPoints = root.getDefaultHeightWhenNoPoints();
+      this.root = root.getSnapshotNode();
+   }
+
+   /**
+    * Readers that do several queries for one result, like the footstep snappers, use this so all their queries see the same state of the tree.
+    *
+    * @return the snapshot of the height map if it is a {@link QuadTreeForGround}, the height map itself otherwise
+    */
+   public static HeightMapWithPoints getSnapshotIfAvailable(HeightMapWithPoints heightMap)
+   {
+      if (heightMap instanceof QuadTreeForGround)
+         return ((QuadTreeForGround) heightMap).getSnapshot();
+
+      return heightMap;
+   }
+
+   public boolean isEmpty()
+   {
+      return root.isEmpty();
+   }
+
+   @Override
+   public double getHeightAtPoint(double x, double y)
+   {
+      if (!bounds.containsOrEquals(x, y))
+         return Double.NaN;
+
+      PointAndDistance pointAndDistance = new PointAndDistance(new Point3d(Double.NaN, Double.NaN, Double.NaN),
+                                             maxAllowableXYDistanceForAPointToBeConsideredClose);
+      root.getClosestPointAndDistance(x, y, pointAndDistance);
+
+      double heightToReturn = pointAndDistance.getPoint().getZ();
+
+      if (Double.isNaN(heightToReturn))
+      {
+         heightToReturn = defaultHeightWhenNoPoints;
+      }
+      return heightToReturn;
+   }
+
+   public void getClosestPoint(double xQuery, double yQuery, Point3d pointToPack)
+   {
+      PointAndDistance pointAndDistance = new PointAndDistance(pointToPack, Double.POSITIVE_INFINITY);
+      root.getClosestPointAndDistance(xQuery, yQuery, pointAndDistance);
+   }
+
+   public void getAllPointsWithinDistance(double x, double y, double distance, ArrayList<Point3d> pointsWithinDistanceToPack)
+   {
+      root.getAllPointsWithinDistance(x, y, distance, pointsWithinDistanceToPack);
+   }
+
+   public void getAllPointsWithinBounds(Box bounds, ArrayList<Point3d> pointsWithinBoundsToPack)
+   {
+      root.getAllPointsWithinBounds(bounds, pointsWithinBoundsToPack);
+   }
+
+   public void getStoredPoints(Collection<Point3d> points)
+   {
+      root.getAllSubTreePoints(points);
+   }
+
+   public void getCellAverageStoredPoints(Collection<Point3d> points)
+   {
+      root.getCellAverageSubTreePoints(points);
+   }
+
+   /**
+    * Same as the height maps built on {@link QuadTreeForGround}, a point is reported as contained when there is no height for it.
+    */
+   @Override
+   public boolean containsPoint(double x, double y)
+   {
+      return Double.isNaN(getHeightAtPoint(x, y));
+   }
+
+   @Override
+   public List<Point3d> getAllPointsWithinArea(double xCenter, double yCenter, double xExtent, double yExtent)
+   {
+      return getAllPointsWithinArea(xCenter, yCenter, xExtent, yExtent, null);
+   }
+
+   /**
+    * Returns the stored points in the area, or the heights sampled at the resolution of the tree when there are not more than 10 stored points.
+    */
+   @Override
+   public List<Point3d> getAllPointsWithinArea(double xCenter, double yCenter, double xExtent, double yExtent, InclusionFunction<Point3d> maskFunctionAboutCenter)
+   {
+      ArrayList<Point3d> pointsWithinBounds = new ArrayList<Point3d>();
+      ArrayList<Point3d> filteredPoints = new ArrayList<Point3d>();
+
+      Box areaBounds = new Box(xCenter - xExtent, yCenter - yExtent, xCenter + xExtent, yCenter + yExtent);
+      root.getAllPointsWithinBounds(areaBounds, pointsWithinBounds);
+      maskList(pointsWithinBounds, maskFunctionAboutCenter, filteredPoints);
+
+      // TODO: Magic number 10. Get rid of it somehow...
+      if (filteredPoints.size() > 10)
+         return filteredPoints;
+
+      // If not enough raw points, then use the heightAt function to do the best you can
+      filteredPoints.clear();
+      ArrayList<Point3d> pointsAtGridResolution = getPointsAtGridResolution(xCenter, yCenter, xExtent, yExtent);
+      maskList(pointsAtGridResolution, maskFunctionAboutCenter, filteredPoints);
+      return filteredPoints;
+   }
+
+   private ArrayList<Point3d> getPointsAtGridResolution(double centerX, double centerY, double extentX, double extentY)
+   {
+      ArrayList<Point3d> points = new ArrayList<Point3d>();
+
+      for (double x = centerX - extentX; x <= centerX + extentX; x += resolution)
+      {
+         for (double y = centerY - extentY; y <= centerY + extentY; y += resolution)
+         {
+            double height = getHeightAtPoint(x, y);
+            if (!Double.isNaN(height))
+               points.add(new Point3d(x, y, height));
+         }
+      }
+
+      return points;
+   }
+
+   private static void maskList(ArrayList<Point3d> originalPoints, InclusionFunction<Point3d> maskFunctionAboutCenter, ArrayList<Point3d> maskedPointsToPack)
+   {
+      if (maskFunctionAboutCenter == null)
+      {
+         maskedPointsToPack.addAll(originalPoints);
+         return;
+      }
+
+      for (Point3d point : originalPoints)
+      {
+         if (maskFunctionAboutCenter.isIncluded(point))
+            maskedPointsToPack.add(point);
+      }
+   }
+
+   /**
+    * A snapshot is immutable, points can only be added to the tree it was copied from.
+    */
+   @Override
+   public boolean addPoint(double x, double y, double z)
+   {
+      throw new UnsupportedOperationException("A snapshot is immutable, add points to the QuadTreeForGround instead.");
+   }
+
+   /**
+    * A snapshot is immutable, only the tree it was copied from can be cleared.
+    */
+   @Override
+   public void clear()
+   {
+      throw new UnsupportedOperationException("A snapshot is immutable, clear the QuadTreeForGround instead.");
+   }
+
+   /**
+    * Copy of a node and its sub tree. The tree keeps the copy of each node until the sub tree of the node changes, so it can be shared between snapshots.
+    */
+   static class SnapshotNode
+   {
+      private final Box bounds;
+
+      /** Children in the order NW, NE, SE, SW, null for a leaf. */
+      private final SnapshotNode[] children;
+      /** Order the tree visits the children in for the closest point and sub tree queries: NE, NW, SE, SW. */
+      private static final int[] visitOrder = {1, 0, 2, 3};
+
+      /** Points of the leaf, null if the node has children or no points. */
+      private final Point3d[] points;
+      private final Point3d averagePoint;
+      private final boolean isAtSmallestResolution;
+
+      /**
+       * Copies the node, reusing the copies the children already have.
+       */
+      SnapshotNode(QuadTreeForGroundNode node)
+      {
+         bounds = node.getBounds();
+         isAtSmallestResolution = node.isAtSmallestResolution();
+
+         if (node.hasChildren())
+         {
+            ArrayList<QuadTreeForGroundNode> childNodes = new ArrayList<QuadTreeForGroundNode>(4);
+            node.getChildrenNodes(childNodes);
+
+            children = new SnapshotNode[childNodes.size()];
+            for (int i = 0; i < children.length; i++)
+               children[i] = childNodes.get(i).getSnapshotNode();
+
+            points = null;
+            averagePoint = null;
+         }
+         else if ((node.getLeaf() != null) && (node.getLeaf().getNumberOfPoints() > 0))
+         {
+            QuadTreeForGroundLeaf leaf = node.getLeaf();
+            ArrayList<QuadTreeForGroundPoint> leafPoints = leaf.getPoints();
+
+            children = null;
+            points = new Point3d[leafPoints.size()];
+            for (int i = 0; i < points.length; i++)
+               points[i] = new Point3d(leafPoints.get(i));
+            averagePoint = new Point3d(leaf.getAveragePoint());
+         }
+         else
+         {
+            children = null;
+            points = null;
+            averagePoint = null;
+         }
+      }
+
+      private boolean isEmpty()
+      {
+         return (children == null) && (points == null);
+      }
+
+      private SnapshotNode getChild(double x, double y)
+      {
+         if (x < bounds.centreX)
+         {
+            if (y < bounds.centreY)
+               return children[3];
+
+            return children[0];
+         }
+
+         if (y < bounds.centreY)
+            return children[2];
+
+         return children[1];
+      }
+
+      private void getClosestPointAndDistance(double x, double y, PointAndDistance bestSoFarToUpdate)
+      {
+         // exclude node if point is farther away than best distance in either axis
+         double bestDistance = bestSoFarToUpdate.getDistance();
+         if ((x < bounds.minX - bestDistance) || (x > bounds.maxX + bestDistance) || (y < bounds.minY - bestDistance) || (y > bounds.maxY + bestDistance))
+         {
+            return;
+         }
+
+         if (children != null)
+         {
+            SnapshotNode childAtXY = getChild(x, y);
+            childAtXY.getClosestPointAndDistance(x, y, bestSoFarToUpdate);
+
+            for (int childIndex : visitOrder)
+            {
+               if (children[childIndex] != childAtXY)
+                  children[childIndex].getClosestPointAndDistance(x, y, bestSoFarToUpdate);
+            }
+         }
+         else if (points != null)
+         {
+            double bestDistanceSquared = bestDistance * bestDistance;
+
+            if (isAtSmallestResolution)
+            {
+               double distanceSquared = distanceXYSquared(x, y, averagePoint);
+               if (distanceSquared < bestDistanceSquared)
+               {
+                  bestSoFarToUpdate.setPoint(averagePoint);
+                  bestSoFarToUpdate.setDistance(Math.sqrt(distanceSquared));
+               }
+            }
+            else
+            {
+               Point3d betterPoint = null;
+               for (Point3d point : points)
+               {
+                  double distanceSquared = distanceXYSquared(x, y, point);
+                  if (distanceSquared < bestDistanceSquared)
+                  {
+                     betterPoint = point;
+                     bestDistanceSquared = distanceSquared;
+                  }
+               }
+
+               if (betterPoint != null)
+               {
+                  bestSoFarToUpdate.setPoint(betterPoint);
+                  bestSoFarToUpdate.setPointZ(averagePoint.getZ());
+                  bestSoFarToUpdate.setDistance(Math.sqrt(bestDistanceSquared));
+               }
+            }
+         }
+      }
+
+      private void getAllPointsWithinDistance(double x, double y, double maxDistance, ArrayList<Point3d> pointsWithinDistanceToPack)
+      {
+         if (maxDistance < 0.0)
+            return;
+
+         if (children != null)
+         {
+            for (SnapshotNode child : children)
+            {
+               if (child.bounds.calcDist(x, y) <= maxDistance)
+                  child.getAllPointsWithinDistance(x, y, maxDistance, pointsWithinDistanceToPack);
+            }
+         }
+         else if (points != null)
+         {
+            double maxDistanceSquared = maxDistance * maxDistance;
+
+            for (Point3d point : points)
+            {
+               if (distanceXYSquared(x, y, point) < maxDistanceSquared)
+                  pointsWithinDistanceToPack.add(point);
+            }
+         }
+      }
+
+      private void getAllPointsWithinBounds(Box bounds, ArrayList<Point3d> pointsWithinBoundsToPack)
+      {
+         if (children != null)
+         {
+            for (SnapshotNode child : children)
+            {
+               if (child.bounds.intersects(bounds))
+                  child.getAllPointsWithinBounds(bounds, pointsWithinBoundsToPack);
+            }
+         }
+         else if (points != null)
+         {
+            boolean allInside = bounds.containsOrEquals(this.bounds);
+
+            for (Point3d point : points)
+            {
+               if (allInside || bounds.containsOrEquals(point.getX(), point.getY()))
+                  pointsWithinBoundsToPack.add(point);
+            }
+         }
+      }
+
+      private void getAllSubTreePoints(Collection<Point3d> pointsToPack)
+      {
+         if (children != null)
+         {
+            for (int childIndex : visitOrder)
+               children[childIndex].getAllSubTreePoints(pointsToPack);
+         }
+         else if (points != null)
+         {
+            for (Point3d point : points)
+               pointsToPack.add(point);
+         }
+      }
+
+      private void getCellAverageSubTreePoints(Collection<Point3d> pointsToPack)
+      {
+         if (children != null)
+         {
+            for (int childIndex : visitOrder)
+               children[childIndex].getCellAverageSubTreePoints(pointsToPack);
+         }
+         else if (averagePoint != null)
+         {
+            pointsToPack.add(averagePoint);
+         }
+      }
+
+      private static double distanceXYSquared(double x, double y, Point3d point)
+      {
+         double dx = x - point.getX();
+         double dy = y - point.getY();
+         return dx * dx + dy * dy;
+      }
+   }
+}
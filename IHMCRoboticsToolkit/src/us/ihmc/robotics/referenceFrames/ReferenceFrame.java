@@ -2,6 +2,7 @@ package us.ihmc.robotics.referenceFrames;
 
 import java.io.Serializable;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.vecmath.AxisAngle4d;
 import javax.vecmath.Matrix3d;
@@ -37,7 +38,8 @@ public abstract class ReferenceFrame implements Serializable, NameBasedHashCodeH
    private final RigidBodyTransform transformToParent;
 
    // These need to be longs instead of integers or they'll role over too soon. With longs, you get at least 100 years of runtime.
-   protected static long nextTransformToRootID = 1;
+   // Atomic so that the IDs keep increasing when frame trees are updated on several threads.
+   protected static final AtomicLong nextTransformToRootID = new AtomicLong(1);
    private long transformToRootID = Long.MIN_VALUE;
    private final RigidBodyTransform transformToRoot;
    private final RigidBodyTransform inverseTransformToRoot;
@@ -546,6 +548,7 @@ public abstract class ReferenceFrame implements Serializable, NameBasedHashCodeH
 
       boolean updateFromHereOnOut = false;
       long previousUpdateId = 0;
+      long updateId = 0;
 
       for (int i = 0; i < chainLength; i++)
       {
@@ -556,7 +559,7 @@ public abstract class ReferenceFrame implements Serializable, NameBasedHashCodeH
             if (referenceFrame.transformToRootID < previousUpdateId)
             {
                updateFromHereOnOut = true;
-               nextTransformToRootID++;
+               updateId = nextTransformToRootID.incrementAndGet();
             }
          }
 
@@ -589,7 +592,7 @@ public abstract class ReferenceFrame implements Serializable, NameBasedHashCodeH
                referenceFrame.transformToRoot.normalize();
                referenceFrame.inverseTransformToRoot.invert(referenceFrame.transformToRoot);
 
-               referenceFrame.transformToRootID = nextTransformToRootID;
+               referenceFrame.transformToRootID = updateId;
             }
          }
 
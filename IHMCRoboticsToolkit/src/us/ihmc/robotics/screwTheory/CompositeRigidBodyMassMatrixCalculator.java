@@ -5,14 +5,11 @@ import us.ihmc.robotics.linearAlgebra.MatrixTools;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 
 import java.util.ArrayList;
-import java.util.List;
 
 public class CompositeRigidBodyMassMatrixCalculator implements MassMatrixCalculator
 {
-   private final RigidBody rootBody;
    private final RigidBody[] allRigidBodiesInOrder;
    private final InverseDynamicsJoint[] jointsInOrder;
-   private final ArrayList<InverseDynamicsJoint> jointsToIgnore;
    private final CompositeRigidBodyInertia[] crbInertiasInOrder;
    private final int[] parentMap;
    private final int[] massMatrixIndices;
@@ -21,30 +18,56 @@ public class CompositeRigidBodyMassMatrixCalculator implements MassMatrixCalcula
    private final Twist tempTwist = new Twist();
    private int nMomentaInUse = 0;
 
+   /**
+    * Computes the mass matrix of the subtree of rootBody. If rootBody has a parent joint, for instance the floating joint of a robot,
+    * that joint is part of the mass matrix and is the first of {@link #getJointsInOrder()}, so that the joints in order always match the
+    * rows and columns of the mass matrix.
+    */
    public CompositeRigidBodyMassMatrixCalculator(RigidBody rootBody, ArrayList<InverseDynamicsJoint> jointsToIgnore)
    {
-      this.rootBody = rootBody;
-      this.jointsToIgnore = new ArrayList<InverseDynamicsJoint>(jointsToIgnore);
-      
-      ArrayList<RigidBody> rigidBodiesInOrderList = new ArrayList<RigidBody>();
-      ArrayList<InverseDynamicsJoint> jointsInOrderList = new ArrayList<InverseDynamicsJoint>();
-      populateMapsAndLists(jointsInOrderList, rigidBodiesInOrderList);
-      allRigidBodiesInOrder = rigidBodiesInOrderList.toArray(new RigidBody[0]);
-      jointsInOrder = jointsInOrderList.toArray(new InverseDynamicsJoint[0]);
-      
-      crbInertiasInOrder = createCrbInertiasInOrder(allRigidBodiesInOrder.length);
-      parentMap = ScrewTools.createParentMap(allRigidBodiesInOrder);
-      massMatrixIndices = createMassMatrixIndices(allRigidBodiesInOrder);
-      int size = determineSize(allRigidBodiesInOrder);
-      massMatrix = new DenseMatrix64F(size, size);
-      unitMomenta = createMomenta();
+      this(new MultiBodyTopology(rootBody, jointsToIgnore), rootBody);
    }
 
    public CompositeRigidBodyMassMatrixCalculator(RigidBody rootBody)
    {
       this(rootBody, new ArrayList<InverseDynamicsJoint>());
    }
-   
+
+   /**
+    * Computes the mass matrix of all the joints of the topology, in the order of its bodies.
+    */
+   public CompositeRigidBodyMassMatrixCalculator(MultiBodyTopology topology)
+   {
+      this(topology, topology.getRootBody());
+   }
+
+   private CompositeRigidBodyMassMatrixCalculator(MultiBodyTopology topology, RigidBody rootBody)
+   {
+      // The topology is created from rootBody, so its subtree directly follows it. The parent joint of rootBody is part of the mass matrix if it has one.
+      int firstBodyIndex = rootBody.isRootBody() ? 1 : topology.getBodyIndex(rootBody);
+      int numberOfBodies = topology.getNumberOfBodies() - firstBodyIndex;
+
+      allRigidBodiesInOrder = new RigidBody[numberOfBodies];
+      jointsInOrder = new InverseDynamicsJoint[numberOfBodies];
+      parentMap = new int[numberOfBodies];
+      massMatrixIndices = new int[numberOfBodies];
+      int firstDoFIndex = numberOfBodies > 0 ? topology.getJointOffset(firstBodyIndex) : topology.getNumberOfDegreesOfFreedom();
+
+      for (int i = 0; i < numberOfBodies; i++)
+      {
+         int bodyIndex = firstBodyIndex + i;
+         allRigidBodiesInOrder[i] = topology.getBody(bodyIndex);
+         jointsInOrder[i] = topology.getParentJoint(bodyIndex);
+         parentMap[i] = Math.max(topology.getParentIndex(bodyIndex) - firstBodyIndex, -1);
+         massMatrixIndices[i] = topology.getJointOffset(bodyIndex) - firstDoFIndex;
+      }
+
+      crbInertiasInOrder = createCrbInertiasInOrder(allRigidBodiesInOrder.length);
+      int size = topology.getNumberOfDegreesOfFreedom() - firstDoFIndex;
+      massMatrix = new DenseMatrix64F(size, size);
+      unitMomenta = createMomenta();
+   }
+
    public void compute()
    {
       MatrixTools.setToZero(massMatrix);
@@ -167,31 +190,6 @@ public class CompositeRigidBodyMassMatrixCalculator implements MassMatrixCalcula
       return ret;
    }
 
-   private static int[] createMassMatrixIndices(RigidBody[] rigidBodiesInOrder)
-   {
-      int[] ret = new int[rigidBodiesInOrder.length];
-      int currentIndex = 0;
-      for (int i = 0; i < rigidBodiesInOrder.length; i++)
-      {
-         RigidBody rigidBody = rigidBodiesInOrder[i];
-         ret[i] = currentIndex;
-         currentIndex += rigidBody.getParentJoint().getDegreesOfFreedom();
-      }
-
-      return ret;
-   }
-
-   private static int determineSize(RigidBody[] rigidBodiesInOrder)
-   {
-      int ret = 0;
-      for (RigidBody rigidBody : rigidBodiesInOrder)
-      {
-         ret += rigidBody.getParentJoint().getDegreesOfFreedom();
-      }
-
-      return ret;
-   }
-
    private static Momentum[] createMomenta()
    {
       Momentum[] ret = new Momentum[InverseDynamicsJoint.maxDoF];
@@ -207,46 +205,4 @@ public class CompositeRigidBodyMassMatrixCalculator implements MassMatrixCalcula
    {
       return parentIndex >= 0;
    }
-
-   // TODO: Use ScrewTools
-   private void populateMapsAndLists(ArrayList<InverseDynamicsJoint> jointsInOrderListToPack, ArrayList<RigidBody> rigidBodiesInOrderListToPack)
-   {
-      ArrayList<RigidBody> morgue = new ArrayList<RigidBody>();
-      
-      morgue.add(rootBody);
-
-      while (!morgue.isEmpty())
-      {
-         RigidBody currentBody = morgue.get(0);
-
-         if (!currentBody.isRootBody())
-         {
-            rigidBodiesInOrderListToPack.add(currentBody);
-         }
-
-         if (currentBody.hasChildrenJoints())
-         {
-            List<InverseDynamicsJoint> childrenJoints = currentBody.getChildrenJoints();
-            for (InverseDynamicsJoint joint : childrenJoints)
-            {
-               if (!jointsToIgnore.contains(joint))
-               {
-                  RigidBody successor = joint.getSuccessor();
-                  if (successor != null)
-                  {
-                     if (rigidBodiesInOrderListToPack.contains(successor))
-                     {
-                        throw new RuntimeException("This algorithm doesn't do loops.");
-                     }
-
-                     jointsInOrderListToPack.add(joint);
-                     morgue.add(successor);
-                  }
-               }
-            }
-         }
-
-         morgue.remove(currentBody);
-      }
-   }
 }
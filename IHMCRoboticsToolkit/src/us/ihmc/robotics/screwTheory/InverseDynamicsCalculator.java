@@ -17,16 +17,18 @@ import java.util.List;
 public class InverseDynamicsCalculator
 {
    private final RigidBody rootBody;
+   private final MultiBodyTopology topology;
    private final ArrayList<RigidBody> listOfBodiesWithExternalWrenches = new ArrayList<>();
    private final LinkedHashMap<RigidBody, Wrench> externalWrenches;
-   private final ArrayList<InverseDynamicsJoint> jointsToIgnore;
 
-   private final ArrayList<RigidBody> allBodiesExceptRoot = new ArrayList<RigidBody>();
-   private final ArrayList<InverseDynamicsJoint> allJoints = new ArrayList<InverseDynamicsJoint>();
-   private final LinkedHashMap<RigidBody, Wrench> netWrenches = new LinkedHashMap<RigidBody, Wrench>();
-   private final LinkedHashMap<InverseDynamicsJoint, Wrench> jointWrenches = new LinkedHashMap<InverseDynamicsJoint, Wrench>();
+   // Indexed by the bodies of the topology, the joint wrench of a body is the wrench of its parent joint
+   private final Wrench[] externalWrenchesByIndex;
+   private final Wrench[] netWrenches;
+   private final Wrench[] jointWrenches;
    private final TwistCalculator twistCalculator;
    private final SpatialAccelerationCalculator spatialAccelerationCalculator;
+   private final int[] twistCalculatorBodyIndices;
+   private final int[] spatialAccelerationCalculatorBodyIndices;
 
    private final SpatialAccelerationVector tempAcceleration = new SpatialAccelerationVector();
    private final Twist tempTwist = new Twist();
@@ -58,15 +60,20 @@ public class InverseDynamicsCalculator
          SpatialAccelerationCalculator spatialAccelerationCalculator, TwistCalculator twistCalculator, boolean doVelocityTerms)
    {
       this.rootBody = twistCalculator.getRootBody();
+      this.topology = new MultiBodyTopology(rootBody, jointsToIgnore);
       this.externalWrenches = new LinkedHashMap<RigidBody, Wrench>(externalWrenches);
-      this.jointsToIgnore = new ArrayList<InverseDynamicsJoint>(jointsToIgnore);
       this.twistCalculator = twistCalculator;
       this.spatialAccelerationCalculator = spatialAccelerationCalculator;
+      this.twistCalculatorBodyIndices = topology.computeBodyIndicesIn(twistCalculator.getTopology());
+      this.spatialAccelerationCalculatorBodyIndices = topology.computeBodyIndicesIn(spatialAccelerationCalculator.getTopology());
 
       this.doVelocityTerms = doVelocityTerms;
 
+      int numberOfBodies = topology.getNumberOfBodies();
+      externalWrenchesByIndex = new Wrench[numberOfBodies];
+      netWrenches = new Wrench[numberOfBodies];
+      jointWrenches = new Wrench[numberOfBodies];
       populateMapsAndLists();
-
    }
 
    public void setRootAcceleration(SpatialAccelerationVector newRootAcceleration)
@@ -115,14 +122,14 @@ public class InverseDynamicsCalculator
 
    private void computeNetWrenches()
    {
-      for (int bodyIndex = 0; bodyIndex < allBodiesExceptRoot.size(); bodyIndex++)
+      for (int bodyIndex = 1; bodyIndex < netWrenches.length; bodyIndex++)
       {
-         RigidBody body = allBodiesExceptRoot.get(bodyIndex);
-         Wrench netWrench = netWrenches.get(body);
-         twistCalculator.getTwistOfBody(tempTwist, body);
+         RigidBody body = topology.getBody(bodyIndex);
+         Wrench netWrench = netWrenches[bodyIndex];
+         twistCalculator.getTwistOfBody(tempTwist, twistCalculatorBodyIndices[bodyIndex]);
          if (!doVelocityTerms)
             tempTwist.setToZero();
-         spatialAccelerationCalculator.getAccelerationOfBody(tempAcceleration, body);
+         spatialAccelerationCalculator.getAccelerationOfBody(tempAcceleration, spatialAccelerationCalculatorBodyIndices[bodyIndex]);
          body.getInertia().computeDynamicWrenchInBodyCoordinates(netWrench, tempAcceleration, tempTwist);
       }
    }
@@ -131,34 +138,30 @@ public class InverseDynamicsCalculator
 
    private void computeJointWrenchesAndTorques()
    {
-      for (int jointIndex = allJoints.size() - 1; jointIndex >= 0; jointIndex--)
+      for (int bodyIndex = jointWrenches.length - 1; bodyIndex >= 1; bodyIndex--)
       {
-         InverseDynamicsJoint joint = allJoints.get(jointIndex);
+         InverseDynamicsJoint joint = topology.getParentJoint(bodyIndex);
 
-         RigidBody successor = joint.getSuccessor();
+         RigidBody successor = topology.getBody(bodyIndex);
 
-         Wrench jointWrench = jointWrenches.get(joint);
-         jointWrench.set(netWrenches.get(successor));
+         Wrench jointWrench = jointWrenches[bodyIndex];
+         jointWrench.set(netWrenches[bodyIndex]);
 
-         Wrench externalWrench = externalWrenches.get(successor);
+         Wrench externalWrench = externalWrenchesByIndex[bodyIndex];
          jointWrench.sub(externalWrench);
 
-         List<InverseDynamicsJoint> childrenJoints = successor.getChildrenJoints();
+         int[] childIndices = topology.getChildIndices(bodyIndex);
 
-         for (int childIndex = 0; childIndex < childrenJoints.size(); childIndex++)
+         for (int i = 0; i < childIndices.length; i++)
          {
-            InverseDynamicsJoint child = childrenJoints.get(childIndex);
-            if (!jointsToIgnore.contains(child))
-            {
-               Wrench wrenchExertedOnChild = jointWrenches.get(child);
-               ReferenceFrame successorFrame = successor.getBodyFixedFrame();
-
-               wrenchExertedByChild.set(wrenchExertedOnChild);
-               wrenchExertedByChild.changeBodyFrameAttachedToSameBody(successorFrame);
-               wrenchExertedByChild.scale(-1.0); // Action = -reaction
-               wrenchExertedByChild.changeFrame(jointWrench.getExpressedInFrame());
-               jointWrench.sub(wrenchExertedByChild);
-            }
+            Wrench wrenchExertedOnChild = jointWrenches[childIndices[i]];
+            ReferenceFrame successorFrame = successor.getBodyFixedFrame();
+
+            wrenchExertedByChild.set(wrenchExertedOnChild);
+            wrenchExertedByChild.changeBodyFrameAttachedToSameBody(successorFrame);
+            wrenchExertedByChild.scale(-1.0); // Action = -reaction
+            wrenchExertedByChild.changeFrame(jointWrench.getExpressedInFrame());
+            jointWrench.sub(wrenchExertedByChild);
          }
 
          joint.setTorqueFromWrench(jointWrench);
@@ -167,50 +170,19 @@ public class InverseDynamicsCalculator
 
    private void populateMapsAndLists()
    {
-      ArrayList<RigidBody> morgue = new ArrayList<RigidBody>();
-      morgue.add(rootBody);
-
-      while (!morgue.isEmpty())
+      for (int bodyIndex = 1; bodyIndex < topology.getNumberOfBodies(); bodyIndex++)
       {
-         RigidBody currentBody = morgue.get(0);
-
-         ReferenceFrame bodyFixedFrame = currentBody.getBodyFixedFrame();
-
-         if (!currentBody.isRootBody())
-         {
-            allBodiesExceptRoot.add(currentBody);
-            netWrenches.put(currentBody, new Wrench(bodyFixedFrame, bodyFixedFrame));
-            if (externalWrenches.get(currentBody) == null)
-            {
-               listOfBodiesWithExternalWrenches.add(currentBody);
-               externalWrenches.put(currentBody, new Wrench(bodyFixedFrame, bodyFixedFrame));
-            }
-         }
+         RigidBody body = topology.getBody(bodyIndex);
+         ReferenceFrame bodyFixedFrame = body.getBodyFixedFrame();
 
-         if (currentBody.hasChildrenJoints())
+         netWrenches[bodyIndex] = new Wrench(bodyFixedFrame, bodyFixedFrame);
+         if (externalWrenches.get(body) == null)
          {
-            List<InverseDynamicsJoint> childrenJoints = currentBody.getChildrenJoints();
-            for (InverseDynamicsJoint joint : childrenJoints)
-            {
-               if (!jointsToIgnore.contains(joint))
-               {
-                  RigidBody successor = joint.getSuccessor();
-                  if (successor != null)
-                  {
-                     if (allBodiesExceptRoot.contains(successor))
-                     {
-                        throw new RuntimeException("This algorithm doesn't do loops.");
-                     }
-
-                     allJoints.add(joint);
-                     jointWrenches.put(joint, new Wrench());
-                     morgue.add(successor);
-                  }
-               }
-            }
+            listOfBodiesWithExternalWrenches.add(body);
+            externalWrenches.put(body, new Wrench(bodyFixedFrame, bodyFixedFrame));
          }
-
-         morgue.remove(currentBody);
+         externalWrenchesByIndex[bodyIndex] = externalWrenches.get(body);
+         jointWrenches[bodyIndex] = new Wrench();
       }
    }
 
@@ -241,6 +213,11 @@ public class InverseDynamicsCalculator
 
    public void getJointWrench(InverseDynamicsJoint joint, Wrench wrenchToPack)
    {
-      wrenchToPack.set(jointWrenches.get(joint));
+      wrenchToPack.set(jointWrenches[topology.getBodyIndex(joint.getSuccessor())]);
+   }
+
+   public MultiBodyTopology getTopology()
+   {
+      return topology;
    }
 }
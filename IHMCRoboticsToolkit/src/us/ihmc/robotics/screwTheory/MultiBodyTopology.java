@@ -0,0 +1,203 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+/**
+ * Precompiled topology of a tree of rigid bodies, so that the recursive calculators can walk the tree with integer indices instead of map lookups.
+ *
+ * The bodies are numbered from the root body, which has index 0, such that a body always has a higher index than its parent. A forward pass over the tree is
+ * then a loop over increasing indices, and a backward pass a loop over decreasing indices. The topology contains the path from the root body to the body it is
+ * created from, followed by the subtree of that body in breadth-first order. The calculators keep their per-body state in arrays indexed the same way.
+ *
+ * The map from bodies to indices is only meant to be used when setting up a calculator or when answering queries about a given body.
+ */
+public class MultiBodyTopology
+{
+   public static final int NO_INDEX = -1;
+
+   private final RigidBody rootBody;
+   private final RigidBody[] bodies;
+   private final InverseDynamicsJoint[] parentJoints;
+   private final int[] parentIndices;
+   private final int[][] childIndices;
+   private final int[] jointOffsets;
+   private final int numberOfDegreesOfFreedom;
+   private final TObjectIntHashMap<RigidBody> bodyIndices = new TObjectIntHashMap<RigidBody>();
+
+   public MultiBodyTopology(RigidBody body)
+   {
+      this(body, new ArrayList<InverseDynamicsJoint>());
+   }
+
+   /**
+    * @param body the bodies on the path from the root body to this body and its subtree are part of the topology
+    * @param jointsToIgnore the subtrees after these joints are left out of the topology
+    */
+   public MultiBodyTopology(RigidBody body, List<? extends InverseDynamicsJoint> jointsToIgnore)
+   {
+      ArrayList<RigidBody> bodyList = new ArrayList<RigidBody>();
+      ArrayList<InverseDynamicsJoint> jointList = new ArrayList<InverseDynamicsJoint>();
+
+      ArrayList<InverseDynamicsJoint> jointsTillRootBody = new ArrayList<InverseDynamicsJoint>();
+      RigidBody currentBody = body;
+      while (currentBody.getParentJoint() != null)
+      {
+         jointsTillRootBody.add(currentBody.getParentJoint());
+         currentBody = currentBody.getParentJoint().getPredecessor();
+      }
+
+      rootBody = currentBody;
+      addBody(rootBody, null, bodyList, jointList);
+
+      for (int i = jointsTillRootBody.size() - 1; i >= 0; i--)
+      {
+         InverseDynamicsJoint joint = jointsTillRootBody.get(i);
+         addBody(joint.getSuccessor(), joint, bodyList, jointList);
+      }
+
+      // The body list is used as the queue of the breadth-first search
+      for (int queueIndex = bodyIndices.get(body); queueIndex < bodyList.size(); queueIndex++)
+      {
+         List<InverseDynamicsJoint> childrenJoints = bodyList.get(queueIndex).getChildrenJoints();
+         for (int childIndex = 0; childIndex < childrenJoints.size(); childIndex++)
+         {
+            InverseDynamicsJoint joint = childrenJoints.get(childIndex);
+            if (joint.getSuccessor() != null && !jointsToIgnore.contains(joint))
+            {
+               if (bodyIndices.containsKey(joint.getSuccessor()))
+               {
+                  throw new RuntimeException("This algorithm doesn't do loops.");
+               }
+
+               addBody(joint.getSuccessor(), joint, bodyList, jointList);
+            }
+         }
+      }
+
+      int numberOfBodies = bodyList.size();
+      bodies = bodyList.toArray(new RigidBody[numberOfBodies]);
+      parentJoints = jointList.toArray(new InverseDynamicsJoint[numberOfBodies]);
+      parentIndices = new int[numberOfBodies];
+      jointOffsets = new int[numberOfBodies];
+
+      TIntArrayList[] childIndexLists = new TIntArrayList[numberOfBodies];
+      int currentOffset = 0;
+      for (int bodyIndex = 0; bodyIndex < numberOfBodies; bodyIndex++)
+      {
+         childIndexLists[bodyIndex] = new TIntArrayList();
+         jointOffsets[bodyIndex] = currentOffset;
+
+         if (parentJoints[bodyIndex] == null)
+         {
+            parentIndices[bodyIndex] = NO_INDEX;
+         }
+         else
+         {
+            int parentIndex = bodyIndices.get(parentJoints[bodyIndex].getPredecessor());
+            parentIndices[bodyIndex] = parentIndex;
+            childIndexLists[parentIndex].add(bodyIndex);
+            currentOffset += parentJoints[bodyIndex].getDegreesOfFreedom();
+         }
+      }
+
+      numberOfDegreesOfFreedom = currentOffset;
+      childIndices = new int[numberOfBodies][];
+      for (int bodyIndex = 0; bodyIndex < numberOfBodies; bodyIndex++)
+      {
+         childIndices[bodyIndex] = childIndexLists[bodyIndex].toArray();
+      }
+   }
+
+   private void addBody(RigidBody body, InverseDynamicsJoint parentJoint, ArrayList<RigidBody> bodyList, ArrayList<InverseDynamicsJoint> jointList)
+   {
+      bodyIndices.put(body, bodyList.size());
+      bodyList.add(body);
+      jointList.add(parentJoint);
+   }
+
+   public RigidBody getRootBody()
+   {
+      return rootBody;
+   }
+
+   public int getNumberOfBodies()
+   {
+      return bodies.length;
+   }
+
+   public RigidBody getBody(int bodyIndex)
+   {
+      return bodies[bodyIndex];
+   }
+
+   /**
+    * @return the joint through which the body is reached from its parent, null for the root body
+    */
+   public InverseDynamicsJoint getParentJoint(int bodyIndex)
+   {
+      return parentJoints[bodyIndex];
+   }
+
+   /**
+    * @return the index of the parent of the body, {@link #NO_INDEX} for the root body
+    */
+   public int getParentIndex(int bodyIndex)
+   {
+      return parentIndices[bodyIndex];
+   }
+
+   /**
+    * @return the indices of the children of the body, in the order of {@link RigidBody#getChildrenJoints()}. Do not modify the returned array.
+    */
+   public int[] getChildIndices(int bodyIndex)
+   {
+      return childIndices[bodyIndex];
+   }
+
+   /**
+    * @return the index of the first degree of freedom of the parent joint of the body, when the degrees of freedom of all the parent joints are stacked in the
+    * order of the bodies
+    */
+   public int getJointOffset(int bodyIndex)
+   {
+      return jointOffsets[bodyIndex];
+   }
+
+   public int getNumberOfDegreesOfFreedom()
+   {
+      return numberOfDegreesOfFreedom;
+   }
+
+   public boolean containsBody(RigidBody body)
+   {
+      return bodyIndices.containsKey(body);
+   }
+
+   public int getBodyIndex(RigidBody body)
+   {
+      if (!bodyIndices.containsKey(body))
+      {
+         throw new RuntimeException("Body " + body + " is not part of the topology with root body " + rootBody);
+      }
+
+      return bodyIndices.get(body);
+   }
+
+   /**
+    * @return for each body of this topology, its index in the other topology or {@link #NO_INDEX} if it is not part of the other topology
+    */
+   public int[] computeBodyIndicesIn(MultiBodyTopology other)
+   {
+      int[] ret = new int[bodies.length];
+      for (int bodyIndex = 0; bodyIndex < bodies.length; bodyIndex++)
+      {
+         ret[bodyIndex] = other.containsBody(bodies[bodyIndex]) ? other.bodyIndices.get(bodies[bodyIndex]) : NO_INDEX;
+      }
+
+      return ret;
+   }
+}
@@ -4,20 +4,18 @@ import us.ihmc.robotics.geometry.FramePoint;
 import us.ihmc.robotics.geometry.FrameVector;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-
 public class SpatialAccelerationCalculator
 {
+   private final MultiBodyTopology topology;
    private final RigidBody rootBody;
    private final SpatialAccelerationVector rootAcceleration;
    private final TwistCalculator twistCalculator;
+   private final int[] twistCalculatorBodyIndices;
    private final boolean doVelocityTerms;
    private final boolean doAccelerationTerms;
    private final boolean useDesireds;
 
-   private final LinkedHashMap<RigidBody, SpatialAccelerationVector> accelerations = new LinkedHashMap<RigidBody, SpatialAccelerationVector>();
-   private final ArrayList<InverseDynamicsJoint> allJoints = new ArrayList<InverseDynamicsJoint>();
+   private final SpatialAccelerationVector[] accelerations;
    private final Twist tempJointTwist = new Twist();
    private final Twist tempTwistFromWorld = new Twist();
    private final SpatialAccelerationVector tempJointAcceleration = new SpatialAccelerationVector();
@@ -32,16 +30,27 @@ public class SpatialAccelerationCalculator
    public SpatialAccelerationCalculator(RigidBody body, ReferenceFrame inertialFrame, SpatialAccelerationVector rootAcceleration,
            TwistCalculator twistCalculator, boolean doVelocityTerms, boolean doAccelerationTerms, boolean useDesireds)
    {
-      this.rootBody = addAllPrecedingJoints(inertialFrame, body);
+      this(new MultiBodyTopology(body), inertialFrame, rootAcceleration, twistCalculator, doVelocityTerms, doAccelerationTerms, useDesireds);
+   }
+
+   public SpatialAccelerationCalculator(MultiBodyTopology topology, ReferenceFrame inertialFrame, SpatialAccelerationVector rootAcceleration,
+           TwistCalculator twistCalculator, boolean doVelocityTerms, boolean doAccelerationTerms, boolean useDesireds)
+   {
+      this.topology = topology;
+      this.rootBody = topology.getRootBody();
       this.rootAcceleration = new SpatialAccelerationVector(rootAcceleration);
       this.twistCalculator = twistCalculator;
+      this.twistCalculatorBodyIndices = topology.computeBodyIndicesIn(twistCalculator.getTopology());
       this.doVelocityTerms = doVelocityTerms;
       this.doAccelerationTerms = doAccelerationTerms;
       this.useDesireds = useDesireds;
       this.inertialFrame = inertialFrame;
 
-      addAllSuccedingJoints(inertialFrame, body);
-      populateMapsAndLists();
+      accelerations = new SpatialAccelerationVector[topology.getNumberOfBodies()];
+      for (int bodyIndex = 0; bodyIndex < accelerations.length; bodyIndex++)
+      {
+         accelerations[bodyIndex] = new SpatialAccelerationVector();
+      }
    }
 
    public void setRootAcceleration(SpatialAccelerationVector newRootAcceleration)
@@ -49,37 +58,6 @@ public class SpatialAccelerationCalculator
       rootAcceleration.checkReferenceFramesMatch(newRootAcceleration.getBodyFrame(), newRootAcceleration.getBaseFrame(), newRootAcceleration.getExpressedInFrame());
       this.rootAcceleration.set(newRootAcceleration);
    }
-   
-   private void addAllSuccedingJoints(ReferenceFrame inertialFrame, RigidBody body)
-   {
-      for (InverseDynamicsJoint inverseDynamicsJoint : body.getChildrenJoints())
-      {
-         if (inverseDynamicsJoint.getSuccessor() != null)
-         {
-            allJoints.add(inverseDynamicsJoint);
-            addAllSuccedingJoints(inertialFrame, inverseDynamicsJoint.getSuccessor());
-         }
-      }
-   }
-
-   private RigidBody addAllPrecedingJoints(ReferenceFrame inertialFrame, RigidBody body)
-   {
-      ArrayList<InverseDynamicsJoint> jointsTillRootBody = new ArrayList<InverseDynamicsJoint>();
-
-      RigidBody currentBody = body;
-      while (currentBody.getParentJoint() != null)
-      {
-         jointsTillRootBody.add(currentBody.getParentJoint());
-         currentBody = currentBody.getParentJoint().getPredecessor();
-      }
-
-      for (int i = jointsTillRootBody.size() - 1; i >= 0; i--)
-      {
-         allJoints.add(jointsTillRootBody.get(i));
-      }
-
-      return currentBody;
-   }
 
    public SpatialAccelerationCalculator(RigidBody rootBody, TwistCalculator twistCalculator, double gravity, boolean useDesireds)
    {
@@ -88,20 +66,19 @@ public class SpatialAccelerationCalculator
 
    public void compute()
    {
-      accelerations.get(rootBody).set(rootAcceleration);
+      accelerations[0].set(rootAcceleration);
 
-      for (int jointIndex = 0; jointIndex < allJoints.size(); jointIndex++)
+      for (int bodyIndex = 1; bodyIndex < accelerations.length; bodyIndex++)
       {
-         InverseDynamicsJoint joint = allJoints.get(jointIndex);
-         computeSuccessorAcceleration(joint);
+         computeSuccessorAcceleration(bodyIndex);
       }
    }
 
-   private void computeSuccessorAcceleration(InverseDynamicsJoint joint)
+   private void computeSuccessorAcceleration(int bodyIndex)
    {
-      RigidBody predecessor = joint.getPredecessor();
-      RigidBody successor = joint.getSuccessor();
-      ReferenceFrame successorFrame = successor.getBodyFixedFrame();
+      InverseDynamicsJoint joint = topology.getParentJoint(bodyIndex);
+      int predecessorIndex = topology.getParentIndex(bodyIndex);
+      ReferenceFrame successorFrame = topology.getBody(bodyIndex).getBodyFixedFrame();
       joint.getPredecessorTwist(tempJointTwist);
       if (!doVelocityTerms)
          tempJointTwist.setToZero();
@@ -113,18 +90,26 @@ public class SpatialAccelerationCalculator
       if (!doAccelerationTerms)
          tempJointAcceleration.setToZero();
       
-      twistCalculator.getTwistOfBody(tempTwistFromWorld, predecessor);
+      twistCalculator.getTwistOfBody(tempTwistFromWorld, twistCalculatorBodyIndices[predecessorIndex]);
       if (!doVelocityTerms)
          tempTwistFromWorld.setToZero();
-      SpatialAccelerationVector successorAcceleration = accelerations.get(successor);
-      successorAcceleration.set(accelerations.get(predecessor));
+      SpatialAccelerationVector successorAcceleration = accelerations[bodyIndex];
+      successorAcceleration.set(accelerations[predecessorIndex]);
       successorAcceleration.changeFrame(successorFrame, tempJointTwist, tempTwistFromWorld);
       successorAcceleration.add(tempJointAcceleration);
    }
 
    public void getAccelerationOfBody(SpatialAccelerationVector spatialAccelerationToPack, RigidBody rigidBody)
    {
-      spatialAccelerationToPack.set(accelerations.get(rigidBody));
+      getAccelerationOfBody(spatialAccelerationToPack, topology.getBodyIndex(rigidBody));
+   }
+
+   /**
+    * @param bodyIndex index of the body in {@link #getTopology()}
+    */
+   public void getAccelerationOfBody(SpatialAccelerationVector spatialAccelerationToPack, int bodyIndex)
+   {
+      spatialAccelerationToPack.set(accelerations[bodyIndex]);
    }
 
    private final Twist twistOfCurrentWithRespectToNew = new Twist();
@@ -171,18 +156,9 @@ public class SpatialAccelerationCalculator
       return rootBody;
    }
 
-   
-   private void populateMapsAndLists()
+   public MultiBodyTopology getTopology()
    {
-      accelerations.put(rootBody, new SpatialAccelerationVector());
-      
-      for (InverseDynamicsJoint joint : allJoints)
-      {
-         if (joint.getSuccessor() != null)
-         {
-            accelerations.put(joint.getSuccessor(), new SpatialAccelerationVector());
-         }
-      }
+      return topology;
    }
 
    public ReferenceFrame getInertialFrame()
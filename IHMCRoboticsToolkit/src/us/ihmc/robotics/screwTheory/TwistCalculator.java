@@ -2,91 +2,68 @@ package us.ihmc.robotics.screwTheory;
 
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-
 public class TwistCalculator 
 {
+   private final MultiBodyTopology topology;
    private final RigidBody rootBody;
    private final Twist rootTwist;
 
-   private final LinkedHashMap<RigidBody, Twist> twists = new LinkedHashMap<RigidBody, Twist>();
-   private final ArrayList<InverseDynamicsJoint> allJoints = new ArrayList<InverseDynamicsJoint>();
+   private final Twist[] twists;
    private final Twist tempTwist = new Twist();
 
    public TwistCalculator(ReferenceFrame inertialFrame, RigidBody body)
    {
-      this.rootBody = addAllPrecedingJoints(inertialFrame, body);
-      this.rootTwist = new Twist(rootBody.getBodyFixedFrame(), inertialFrame, rootBody.getBodyFixedFrame());
-      addAllSucceedingJoints(inertialFrame, body);
-      populateMapsAndLists(inertialFrame);
-   }
-
-   private void addAllSucceedingJoints(ReferenceFrame inertialFrame, RigidBody body)
-   {
-      for (InverseDynamicsJoint inverseDynamicsJoint : body.getChildrenJoints())
-      {
-         if (inverseDynamicsJoint.getSuccessor() != null)
-         {
-            allJoints.add(inverseDynamicsJoint);
-            addAllSucceedingJoints(inertialFrame, inverseDynamicsJoint.getSuccessor());
-         }
-      }
+      this(inertialFrame, new MultiBodyTopology(body));
    }
 
-   private RigidBody addAllPrecedingJoints(ReferenceFrame inertialFrame, RigidBody body)
+   public TwistCalculator(ReferenceFrame inertialFrame, MultiBodyTopology topology)
    {
-      ArrayList<InverseDynamicsJoint> jointsTillRootBody = new ArrayList<InverseDynamicsJoint>();
-
-      RigidBody currentBody = body;
-      while (currentBody.getParentJoint() != null)
-      {
-         jointsTillRootBody.add(currentBody.getParentJoint());
-         currentBody = currentBody.getParentJoint().getPredecessor();
-      }
-
-      for (int i = jointsTillRootBody.size() - 1; i >= 0; i--)
-      {
-         allJoints.add(jointsTillRootBody.get(i));
-      }
-
-      return currentBody;
+      this.topology = topology;
+      this.rootBody = topology.getRootBody();
+      this.rootTwist = new Twist(rootBody.getBodyFixedFrame(), inertialFrame, rootBody.getBodyFixedFrame());
+      this.twists = createTwists(inertialFrame, topology);
    }
 
    public void compute()
    {
-      twists.get(rootBody).set(rootTwist);
+      twists[0].set(rootTwist);
 
-      for (int jointIndex = 0; jointIndex < allJoints.size(); jointIndex++)
+      for (int bodyIndex = 1; bodyIndex < twists.length; bodyIndex++)
       {
-         InverseDynamicsJoint joint = allJoints.get(jointIndex);
-         computeSuccessorTwist(joint);
+         computeSuccessorTwist(bodyIndex);
       }
    }
 
-   private void computeSuccessorTwist(InverseDynamicsJoint joint)
+   private void computeSuccessorTwist(int bodyIndex)
    {
-      RigidBody predecessor = joint.getPredecessor();
-      RigidBody successor = joint.getSuccessor();
-      ReferenceFrame successorFrame = successor.getBodyFixedFrame();
+      InverseDynamicsJoint joint = topology.getParentJoint(bodyIndex);
+      ReferenceFrame successorFrame = topology.getBody(bodyIndex).getBodyFixedFrame();
 
       joint.getSuccessorTwist(tempTwist);
 
-      Twist successorTwist = twists.get(successor);
-      successorTwist.set(twists.get(predecessor));
+      Twist successorTwist = twists[bodyIndex];
+      successorTwist.set(twists[topology.getParentIndex(bodyIndex)]);
       successorTwist.changeFrame(successorFrame);
       successorTwist.add(tempTwist);
    }
 
    public void getTwistOfBody(Twist twistToPack, RigidBody rigidBody)
    {
-      twistToPack.set(twists.get(rigidBody));
+      getTwistOfBody(twistToPack, topology.getBodyIndex(rigidBody));
+   }
+
+   /**
+    * @param bodyIndex index of the body in {@link #getTopology()}
+    */
+   public void getTwistOfBody(Twist twistToPack, int bodyIndex)
+   {
+      twistToPack.set(twists[bodyIndex]);
    }
 
    public void getRelativeTwist(Twist twistToPack, RigidBody base, RigidBody body)
    {
-      twistToPack.set(twists.get(body));
-      tempTwist.set(twists.get(base));
+      twistToPack.set(twists[topology.getBodyIndex(body)]);
+      tempTwist.set(twists[topology.getBodyIndex(base)]);
       tempTwist.changeFrame(twistToPack.getExpressedInFrame());
       twistToPack.sub(tempTwist);
    }
@@ -96,32 +73,30 @@ public class TwistCalculator
       return rootBody;
    }
 
+   public MultiBodyTopology getTopology()
+   {
+      return topology;
+   }
+
    public void changeTwistBaseFrameNoRelativeTwist(RigidBody body, ReferenceFrame baseFrame)
    {
-      twists.get(body).changeBaseFrameNoRelativeTwist(baseFrame);
+      twists[topology.getBodyIndex(body)].changeBaseFrameNoRelativeTwist(baseFrame);
    }
    
    public void changeTwistchangeBodyFrameNoRelativeTwist(RigidBody body, ReferenceFrame bodyFrame)
    {
-      twists.get(body).changeBodyFrameNoRelativeTwist(bodyFrame);
+      twists[topology.getBodyIndex(body)].changeBodyFrameNoRelativeTwist(bodyFrame);
    }
    
-   private void populateMapsAndLists(ReferenceFrame inertialFrame)
+   private static Twist[] createTwists(ReferenceFrame inertialFrame, MultiBodyTopology topology)
    {
-      addTwist(inertialFrame, rootBody);
-      
-      for (InverseDynamicsJoint joint : allJoints)
+      Twist[] ret = new Twist[topology.getNumberOfBodies()];
+      for (int bodyIndex = 0; bodyIndex < ret.length; bodyIndex++)
       {
-         if (joint.getSuccessor() != null)
-         {
-            addTwist(inertialFrame, joint.getSuccessor());
-         }
+         ReferenceFrame bodyFixedFrame = topology.getBody(bodyIndex).getBodyFixedFrame();
+         ret[bodyIndex] = new Twist(bodyFixedFrame, inertialFrame, bodyFixedFrame);
       }
-   }
-   
-   private void addTwist(ReferenceFrame inertialFrame, RigidBody body)
-   {
-   	ReferenceFrame bodyFixedFrame = body.getBodyFixedFrame();
-      twists.put(body, new Twist(bodyFixedFrame, inertialFrame, bodyFixedFrame));
+
+      return ret;
    }
 }
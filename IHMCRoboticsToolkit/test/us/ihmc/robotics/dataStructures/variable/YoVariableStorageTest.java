@@ -0,0 +1,157 @@
+package us.ihmc.robotics.dataStructures.variable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.robotics.dataStructures.listener.VariableChangedListener;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class YoVariableStorageTest
+{
+   private enum TestEnum
+   {
+      A, B, C
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testValuesAreKeptWhenMovedToStorage()
+   {
+      YoVariableRegistry registry = new YoVariableRegistry("root");
+      DoubleYoVariable doubleYoVariable = new DoubleYoVariable("double", registry);
+      IntegerYoVariable integerYoVariable = new IntegerYoVariable("integer", registry);
+      LongYoVariable longYoVariable = new LongYoVariable("long", registry);
+      BooleanYoVariable booleanYoVariable = new BooleanYoVariable("boolean", registry);
+      EnumYoVariable<TestEnum> enumYoVariable = EnumYoVariable.create("enum", TestEnum.class, registry);
+
+      doubleYoVariable.set(-1.5);
+      integerYoVariable.set(-42);
+      longYoVariable.set(Long.MAX_VALUE - 3);
+      booleanYoVariable.set(true);
+      enumYoVariable.set(TestEnum.C);
+
+      assertNull(doubleYoVariable.getStorage());
+      YoVariableStorage storage = registry.createVariableStorage();
+      assertEquals(5, storage.getNumberOfVariables());
+      assertTrue(storage == doubleYoVariable.getStorage());
+
+      assertEquals(-1.5, doubleYoVariable.getDoubleValue(), 0.0);
+      assertEquals(-42, integerYoVariable.getIntegerValue());
+      assertEquals(Long.MAX_VALUE - 3, longYoVariable.getLongValue());
+      assertTrue(booleanYoVariable.getBooleanValue());
+      assertEquals(TestEnum.C, enumYoVariable.getEnumValue());
+
+      long[] values = new long[storage.getNumberOfVariables()];
+      storage.getValues(values);
+      ArrayList<YoVariable<?>> variables = registry.getAllVariablesIncludingDescendants();
+      for (int i = 0; i < variables.size(); i++)
+      {
+         assertEquals(variables.get(i).getValueAsLongBits(), values[i]);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testStorageGrowsAndFollowsChildren()
+   {
+      Random random = new Random(4523L);
+      YoVariableRegistry root = new YoVariableRegistry("root");
+      YoVariableStorage storage = new YoVariableStorage(2);
+      root.setVariableStorage(storage);
+
+      YoVariableRegistry child = new YoVariableRegistry("child");
+      DoubleYoVariable[] childVariables = new DoubleYoVariable[10];
+      for (int i = 0; i < childVariables.length; i++)
+      {
+         childVariables[i] = new DoubleYoVariable("childVariable" + i, child);
+         childVariables[i].set(random.nextDouble());
+      }
+      root.addChild(child);
+
+      DoubleYoVariable[] rootVariables = new DoubleYoVariable[100];
+      for (int i = 0; i < rootVariables.length; i++)
+      {
+         rootVariables[i] = new DoubleYoVariable("rootVariable" + i, root);
+         rootVariables[i].set(random.nextDouble());
+      }
+
+      assertTrue(child.getVariableStorage() == storage);
+      assertEquals(110, storage.getNumberOfVariables());
+
+      long[] values = new long[storage.getNumberOfVariables()];
+      storage.getValues(values);
+      for (int i = 0; i < storage.getNumberOfVariables(); i++)
+      {
+         YoVariable<?> variable = storage.getVariable(i);
+         assertEquals(i, storage.getIndex(variable));
+         assertEquals(variable.getValueAsLongBits(), values[i]);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testSetValues()
+   {
+      YoVariableRegistry registry = new YoVariableRegistry("root");
+      YoVariableStorage storage = registry.createVariableStorage();
+      DoubleYoVariable a = new DoubleYoVariable("a", registry);
+      DoubleYoVariable b = new DoubleYoVariable("b", registry);
+      a.set(1.0);
+      b.set(2.0);
+
+      long[] snapshot = new long[storage.getNumberOfVariables()];
+      storage.getValues(snapshot);
+
+      a.set(3.0);
+      b.set(4.0);
+      storage.setValues(snapshot);
+      assertEquals(1.0, a.getDoubleValue(), 0.0);
+      assertEquals(2.0, b.getDoubleValue(), 0.0);
+
+      final int[] numberOfChanges = new int[1];
+      b.addVariableChangedListener(new VariableChangedListener()
+      {
+         @Override
+         public void variableChanged(YoVariable<?> v)
+         {
+            numberOfChanges[0]++;
+         }
+      });
+
+      b.set(5.0, false);
+      storage.setValuesAndNotifyListeners(snapshot);
+      assertEquals(2.0, b.getDoubleValue(), 0.0);
+      assertEquals(1, numberOfChanges[0]);
+
+      storage.setValuesAndNotifyListeners(snapshot);
+      assertEquals(1, numberOfChanges[0]);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testContiguousRange()
+   {
+      YoVariableRegistry root = new YoVariableRegistry("root");
+      YoVariableRegistry child = new YoVariableRegistry("child");
+      root.addChild(child);
+      new DoubleYoVariable("a", root);
+      new DoubleYoVariable("b", child);
+      YoVariableStorage storage = root.createVariableStorage();
+
+      assertEquals(0, storage.getStartIndexIfContiguous(root.getAllVariablesIncludingDescendants()));
+      assertEquals(1, storage.getStartIndexIfContiguous(child.getAllVariablesIncludingDescendants()));
+
+      // Registered after the child, breaks the registry order
+      new DoubleYoVariable("c", root);
+      assertEquals(-1, storage.getStartIndexIfContiguous(root.getAllVariablesIncludingDescendants()));
+      assertFalse(storage.getIndex(root.getVariable("c")) == -1);
+   }
+}
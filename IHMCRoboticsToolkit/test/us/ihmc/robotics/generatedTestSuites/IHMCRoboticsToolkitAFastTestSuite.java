@@ -30,6 +30,7 @@ import us.ihmc.tools.testing.TestPlanTarget;
    us.ihmc.robotics.dataStructures.variable.IntegerYoVariableTest.class,
    us.ihmc.robotics.dataStructures.variable.LongYoVariableTest.class,
    us.ihmc.robotics.dataStructures.variable.YoVariableListTest.class,
+   us.ihmc.robotics.dataStructures.variable.YoVariableStorageTest.class,
    us.ihmc.robotics.dataStructures.variable.YoVariableTest.class,
    us.ihmc.robotics.filters.GlitchFilterForDataSetTest.class,
    us.ihmc.robotics.filters.ZeroLagLowPassFilterTest.class,
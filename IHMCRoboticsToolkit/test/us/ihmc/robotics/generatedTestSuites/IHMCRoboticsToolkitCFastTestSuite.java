@@ -55,6 +55,8 @@ import us.ihmc.tools.testing.TestPlanTarget;
    us.ihmc.robotics.screwTheory.GeometricJacobianTest.class,
    us.ihmc.robotics.screwTheory.MomentumCalculatorTest.class,
    us.ihmc.robotics.screwTheory.MomentumTest.class,
+   us.ihmc.robotics.screwTheory.MultiBodyTopologyTest.class,
+   us.ihmc.robotics.screwTheory.OriginalDynamicallyConsistentNullspaceCalculatorTest.class,
    us.ihmc.robotics.screwTheory.PassiveRevoluteJointTest.class,
    us.ihmc.robotics.screwTheory.PointJacobianTest.class,
    us.ihmc.robotics.screwTheory.RigidBodyInertiaTest.class,
@@ -15,9 +15,12 @@ import javax.vecmath.Point2d;
 import javax.vecmath.Vector2d;
 import javax.vecmath.Vector3d;
 
+import org.junit.Assume;
 import org.junit.Test;
 
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.tools.testing.AllocationReport;
+import us.ihmc.tools.testing.AllocationTestTools;
 import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
 
 public class ConvexPolygon2dTest
@@ -2565,6 +2568,116 @@ public class ConvexPolygon2dTest
       }
    }
 
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testPackingMethodsDoNotAllocate()
+   {
+      final ConvexPolygon2d polygon = new ConvexPolygon2d(new double[][] { { 0.0, 0.0 }, { 1.0, 0.0 }, { 1.0, 1.0 }, { 0.0, 1.0 }, { 0.5, 1.3 } });
+      final Random random = new Random(1177L);
+      final Point2d point = new Point2d();
+      final Point2d pointToPack = new Point2d();
+      final LineSegment2d edgeToPack = new LineSegment2d();
+      final BoundingBox2d boundingBoxToPack = new BoundingBox2d();
+      final Line2d line = new Line2d();
+      final Vector2d direction = new Vector2d();
+      final Point2d secondPointToPack = new Point2d();
+
+      Runnable tick = new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            point.set(3.0 * random.nextDouble() - 1.0, 3.0 * random.nextDouble() - 1.0);
+            pointToPack.set(point);
+            polygon.orthogonalProjection(pointToPack);
+            polygon.getClosestEdge(edgeToPack, point);
+            polygon.getBoundingBox(boundingBoxToPack);
+            polygon.getCentroid(pointToPack);
+            polygon.isPointInside(point);
+
+            direction.set(random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+            line.set(point, direction);
+            polygon.intersectionWithRay(line, pointToPack, secondPointToPack);
+            polygon.intersectionWith(line, pointToPack, secondPointToPack);
+            polygon.getClosestVertex(pointToPack, line);
+         }
+      };
+
+      AllocationTestTools.assertAllocationsBelow("ConvexPolygon2d packing methods", tick, 0);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testPackedIntersectionsWithLine()
+   {
+      Random random = new Random(1178L);
+      ConvexPolygon2d polygon = new ConvexPolygon2d(new double[][] { { 0.0, 0.0 }, { 1.0, 0.0 }, { 1.0, 1.0 }, { 0.0, 1.0 }, { 0.5, 1.3 } });
+      ConvexPolygon2d lineSegmentPolygon = new ConvexPolygon2d(new double[][] { { 0.0, 0.0 }, { 1.0, 0.5 } });
+      Point2d[] intersections = { new Point2d(), new Point2d() };
+
+      for (int i = 0; i < 1000; i++)
+      {
+         Point2d point = new Point2d(3.0 * random.nextDouble() - 1.0, 3.0 * random.nextDouble() - 1.0);
+         Vector2d direction = new Vector2d(random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+         Line2d line = new Line2d(point, direction);
+
+         for (ConvexPolygon2d convexPolygon : new ConvexPolygon2d[] { polygon, lineSegmentPolygon })
+         {
+            int numberOfIntersections = convexPolygon.intersectionWithRay(line, intersections[0], intersections[1]);
+            Point2d[] expectedIntersections = convexPolygon.intersectionWithRay(line);
+            assertEquals(expectedIntersections == null ? 0 : expectedIntersections.length, numberOfIntersections);
+            assertIntersectionsOnLineAndBoundary(convexPolygon, line, intersections, numberOfIntersections);
+
+            numberOfIntersections = convexPolygon.intersectionWith(line, intersections[0], intersections[1]);
+            expectedIntersections = convexPolygon.intersectionWith(line);
+            assertEquals(expectedIntersections == null ? 0 : expectedIntersections.length, numberOfIntersections);
+            assertIntersectionsOnLineAndBoundary(convexPolygon, line, intersections, numberOfIntersections);
+         }
+      }
+   }
+
+   private static void assertIntersectionsOnLineAndBoundary(ConvexPolygon2d polygon, Line2d line, Point2d[] intersections, int numberOfIntersections)
+   {
+      for (int i = 0; i < numberOfIntersections; i++)
+      {
+         assertEquals(0.0, line.distance(intersections[i]), 1.0e-10);
+
+         double distanceToBoundary = Double.POSITIVE_INFINITY;
+         for (int j = 0; j < polygon.getNumberOfVertices(); j++)
+         {
+            LineSegment2d edge = new LineSegment2d(polygon.getVertex(j), polygon.getNextVertex(j));
+            distanceToBoundary = Math.min(distanceToBoundary, edge.distance(intersections[i]));
+         }
+         assertEquals(0.0, distanceToBoundary, 1.0e-10);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testCopyMethodsAllocate()
+   {
+      Assume.assumeTrue(AllocationTestTools.isAllocationMeasurementSupported());
+
+      // The *Copy methods return new objects, so they should stay off the control thread. Make sure the allocation tests catch them.
+      final ConvexPolygon2d polygon = new ConvexPolygon2d(new double[][] { { 0.0, 0.0 }, { 1.0, 0.0 }, { 1.0, 1.0 }, { 0.0, 1.0 } });
+      final Point2d point = new Point2d(2.0, 0.5);
+      final Object[] copies = new Object[3];
+
+      Runnable tick = new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            copies[0] = polygon.orthogonalProjectionCopy(point);
+            copies[1] = polygon.getClosestEdgeCopy(point);
+            copies[2] = polygon.getBoundingBoxCopy();
+         }
+      };
+
+      AllocationReport report = AllocationTestTools.measureAllocations(tick, 20000, 100);
+      assertEquals(100, report.getNumberOfAllocatingTicks());
+   }
+
    private void assertEqualsInEitherOrder(Line2d expected0, Line2d expected1, Line2d actual0, Line2d actual1)
    {
       if ((expected0.getSlope() == actual0.getSlope()) && (expected0.getPoint().equals(actual0.getPoint())))
@@ -542,4 +542,155 @@ public class QuadTreeForGroundTest
       return ((x - point.getX()) * (x - point.getX()) + (y - point.getY()) * (y - point.getY()));
    }
 
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testSnapshotMatchesTree()
+   {
+      Random random = new Random(1492L);
+      Box bounds = new Box(-5.0, -5.0, 5.0, 5.0);
+      QuadTreeForGroundParameters quadTreeParameters = new QuadTreeForGroundParameters(0.1, 0.1, 0.2, 5, 0.3, -1);
+      QuadTreeForGround quadTree = new QuadTreeForGround(bounds, quadTreeParameters);
+      quadTree.setPutsBetweenSnapshots(100);
+
+      for (int i = 0; i < 1000; i++)
+      {
+         double x = RandomTools.generateRandomDouble(random, -4.0, 4.0);
+         double y = RandomTools.generateRandomDouble(random, -4.0, 4.0);
+         quadTree.put(x, y, 0.1 * Math.sin(x) + 0.05 * y);
+      }
+
+      // 1000 puts with a snapshot every 100, so the snapshot is published now and is up to date
+      QuadTreeForGroundSnapshot snapshot = quadTree.getSnapshot();
+
+      ArrayList<Point3d> treePoints = new ArrayList<Point3d>();
+      ArrayList<Point3d> snapshotPoints = new ArrayList<Point3d>();
+      quadTree.getStoredPoints(treePoints);
+      snapshot.getStoredPoints(snapshotPoints);
+      assertEquals(treePoints.size(), snapshotPoints.size());
+      for (int i = 0; i < treePoints.size(); i++)
+         JUnitTools.assertTuple3dEquals(treePoints.get(i), snapshotPoints.get(i), 0.0);
+
+      Point3d treeClosestPoint = new Point3d();
+      Point3d snapshotClosestPoint = new Point3d();
+
+      for (int i = 0; i < 500; i++)
+      {
+         double x = RandomTools.generateRandomDouble(random, -5.5, 5.5);
+         double y = RandomTools.generateRandomDouble(random, -5.5, 5.5);
+
+         assertEquals(quadTree.getHeightAtPoint(x, y), snapshot.getHeightAtPoint(x, y), 1e-12);
+
+         quadTree.getClosestPoint(x, y, treeClosestPoint);
+         snapshot.getClosestPoint(x, y, snapshotClosestPoint);
+         JUnitTools.assertTuple3dEquals(treeClosestPoint, snapshotClosestPoint, 1e-12);
+
+         treePoints.clear();
+         snapshotPoints.clear();
+         quadTree.getAllPointsWithinDistance(x, y, 0.5, treePoints);
+         snapshot.getAllPointsWithinDistance(x, y, 0.5, snapshotPoints);
+         assertEquals(treePoints.size(), snapshotPoints.size());
+
+         Box queryBounds = new Box(x - 0.4, y - 0.3, x + 0.4, y + 0.3);
+         treePoints.clear();
+         snapshotPoints.clear();
+         quadTree.getAllPointsWithinBounds(queryBounds, treePoints);
+         snapshot.getAllPointsWithinBounds(queryBounds, snapshotPoints);
+         assertEquals(treePoints.size(), snapshotPoints.size());
+      }
+
+      // The snapshot does not change when more points are put, until the next one is published
+      quadTree.put(4.5, 4.5, 2.0);
+      assertTrue(quadTree.getSnapshot() == snapshot);
+      quadTree.clear();
+      assertTrue(quadTree.getSnapshot().isEmpty());
+      assertFalse(snapshot.isEmpty());
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testIncrementalSnapshotsMatchTree()
+   {
+      Random random = new Random(1861L);
+      Box bounds = new Box(-5.0, -5.0, 5.0, 5.0);
+      // Limit the number of points so old points get removed from leaves that are not being put to
+      QuadTreeForGroundParameters quadTreeParameters = new QuadTreeForGroundParameters(0.1, 0.1, 0.2, 5, 0.3, 500);
+      QuadTreeForGround quadTree = new QuadTreeForGround(bounds, quadTreeParameters);
+      quadTree.setPutsBetweenSnapshots(50);
+
+      ArrayList<Point3d> treePoints = new ArrayList<Point3d>();
+      ArrayList<Point3d> snapshotPoints = new ArrayList<Point3d>();
+
+      for (int i = 0; i < 2000; i++)
+      {
+         double x = RandomTools.generateRandomDouble(random, -4.0, 4.0);
+         double y = RandomTools.generateRandomDouble(random, -4.0, 4.0);
+         quadTree.put(x, y, RandomTools.generateRandomDouble(random, -0.5, 0.5));
+
+         if (i % 50 == 49)
+         {
+            QuadTreeForGroundSnapshot snapshot = quadTree.getSnapshot();
+
+            treePoints.clear();
+            snapshotPoints.clear();
+            quadTree.getStoredPoints(treePoints);
+            snapshot.getStoredPoints(snapshotPoints);
+            assertEquals(treePoints.size(), snapshotPoints.size());
+            for (int j = 0; j < treePoints.size(); j++)
+               JUnitTools.assertTuple3dEquals(treePoints.get(j), snapshotPoints.get(j), 0.0);
+
+            for (int j = 0; j < 20; j++)
+            {
+               double xQuery = RandomTools.generateRandomDouble(random, -5.0, 5.0);
+               double yQuery = RandomTools.generateRandomDouble(random, -5.0, 5.0);
+               assertEquals(quadTree.getHeightAtPoint(xQuery, yQuery), snapshot.getHeightAtPoint(xQuery, yQuery), 1e-12);
+            }
+         }
+      }
+
+      // Without puts in between, publishing again gives the same answers
+      QuadTreeForGroundSnapshot snapshot = quadTree.getSnapshot();
+      QuadTreeForGroundSnapshot republishedSnapshot = quadTree.publishSnapshot();
+      assertTrue(snapshot != republishedSnapshot);
+      treePoints.clear();
+      snapshotPoints.clear();
+      snapshot.getStoredPoints(treePoints);
+      republishedSnapshot.getStoredPoints(snapshotPoints);
+      assertEquals(treePoints, snapshotPoints);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testSnapshotsArePublishedByPutsAndReadWithoutLocking() throws InterruptedException
+   {
+      Box bounds = new Box(-5.0, -5.0, 5.0, 5.0);
+      QuadTreeForGroundParameters quadTreeParameters = new QuadTreeForGroundParameters(0.1, 0.1, 0.2, 5, 0.3, -1);
+      final QuadTreeForGround quadTree = new QuadTreeForGround(bounds, quadTreeParameters);
+      assertTrue(quadTree.getSnapshot().isEmpty());
+
+      quadTree.setPutsBetweenSnapshots(1);
+      quadTree.put(1.0, 1.0, 0.3);
+      final QuadTreeForGroundSnapshot snapshot = quadTree.getSnapshot();
+      assertFalse(snapshot.isEmpty());
+      assertEquals(0.3, snapshot.getHeightAtPoint(1.0, 1.0), 1e-12);
+
+      // A reader gets the snapshot while the tree is locked, like while a point is being put
+      final QuadTreeForGroundSnapshot[] snapshotReadWhileLocked = new QuadTreeForGroundSnapshot[1];
+      Thread reader = new Thread(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            snapshotReadWhileLocked[0] = quadTree.getSnapshot();
+         }
+      });
+
+      synchronized (quadTree)
+      {
+         reader.start();
+         reader.join(10000);
+         assertFalse(reader.isAlive());
+      }
+
+      assertTrue(snapshotReadWhileLocked[0] == snapshot);
+   }
 }
@@ -15,6 +15,7 @@ import javax.vecmath.Matrix4d;
 import javax.vecmath.Point3d;
 import javax.vecmath.Vector3d;
 
+import org.junit.Assume;
 import org.junit.Test;
 
 import us.ihmc.robotics.Axis;
@@ -24,6 +25,8 @@ import us.ihmc.robotics.geometry.RigidBodyTransform;
 import us.ihmc.robotics.geometry.RigidBodyTransformTest;
 import us.ihmc.robotics.random.RandomTools;
 import us.ihmc.tools.MemoryTools;
+import us.ihmc.tools.testing.AllocationReport;
+import us.ihmc.tools.testing.AllocationTestTools;
 import us.ihmc.tools.testing.JUnitTools;
 import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
 
@@ -666,6 +669,67 @@ public class ReferenceFrameTest
 
    }
 
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testPackingGettersDoNotAllocate()
+   {
+      ReferenceFrame world = ReferenceFrame.getWorldFrame();
+      final PoseReferenceFrame pelvisFrame = new PoseReferenceFrame("pelvis", world);
+      final PoseReferenceFrame chestFrame = new PoseReferenceFrame("chest", pelvisFrame);
+      final PoseReferenceFrame footFrame = new PoseReferenceFrame("foot", world);
+      final FramePoint pelvisPosition = new FramePoint(world);
+      final RigidBodyTransform transformToPack = new RigidBodyTransform();
+
+      Runnable tick = new Runnable()
+      {
+         private double time = 0.0;
+
+         @Override
+         public void run()
+         {
+            time += 0.001;
+            pelvisPosition.set(0.1 * Math.sin(time), 0.0, 1.0);
+            pelvisFrame.setPositionAndUpdate(pelvisPosition);
+
+            chestFrame.getTransformToDesiredFrame(transformToPack, footFrame);
+            chestFrame.getTransformToParent(transformToPack);
+            chestFrame.getTransformToRoot();
+            chestFrame.getInverseTransformToRoot();
+            chestFrame.getRootFrame();
+            chestFrame.verifySameRoots(footFrame);
+         }
+      };
+
+      AllocationTestTools.assertAllocationsBelow("ReferenceFrame packing getters", tick, 0);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testReturningGettersAllocate()
+   {
+      Assume.assumeTrue(AllocationTestTools.isAllocationMeasurementSupported());
+
+      // These getters return a new transform, so they should stay off the control thread. Make sure the allocation tests catch them.
+      final ReferenceFrame world = ReferenceFrame.getWorldFrame();
+      final PoseReferenceFrame pelvisFrame = new PoseReferenceFrame("pelvis", world);
+      final PoseReferenceFrame chestFrame = new PoseReferenceFrame("chest", pelvisFrame);
+      final RigidBodyTransform[] transforms = new RigidBodyTransform[3];
+
+      Runnable tick = new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            transforms[0] = chestFrame.getTransformToDesiredFrame(world);
+            transforms[1] = chestFrame.getTransformToWorldFrame();
+            transforms[2] = chestFrame.getTransformToParent();
+         }
+      };
+
+      AllocationReport report = AllocationTestTools.measureAllocations(tick, 20000, 100);
+      assertEquals(100, report.getNumberOfAllocatingTicks());
+   }
+
    private void updateARandomFrame(Random random)
    {
       ReferenceFrame frame = selectARandomFrame(random);
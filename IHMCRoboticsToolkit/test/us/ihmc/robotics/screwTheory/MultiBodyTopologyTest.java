@@ -0,0 +1,204 @@
+package us.ihmc.robotics.screwTheory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import javax.vecmath.Vector3d;
+
+import org.junit.Test;
+
+import us.ihmc.robotics.geometry.RigidBodyTransform;
+import us.ihmc.robotics.random.RandomTools;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class MultiBodyTopologyTest
+{
+   private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testTopologyOfRandomTree()
+   {
+      Random random = new Random(1986L);
+      RigidBody elevator = createElevator();
+      ArrayList<RevoluteJoint> joints = new ArrayList<RevoluteJoint>();
+      ScrewTestTools.createRandomTreeRobot(joints, elevator, 30, random);
+
+      MultiBodyTopology topology = new MultiBodyTopology(elevator);
+
+      assertEquals(joints.size() + 1, topology.getNumberOfBodies());
+      assertEquals(joints.size(), topology.getNumberOfDegreesOfFreedom());
+      assertTrue(elevator == topology.getRootBody());
+      assertTrue(elevator == topology.getBody(0));
+      assertEquals(MultiBodyTopology.NO_INDEX, topology.getParentIndex(0));
+
+      int numberOfChildren = 0;
+      for (int bodyIndex = 0; bodyIndex < topology.getNumberOfBodies(); bodyIndex++)
+      {
+         RigidBody body = topology.getBody(bodyIndex);
+         assertEquals(bodyIndex, topology.getBodyIndex(body));
+
+         if (bodyIndex > 0)
+         {
+            int parentIndex = topology.getParentIndex(bodyIndex);
+            assertTrue(parentIndex < bodyIndex);
+            assertTrue(body.getParentJoint() == topology.getParentJoint(bodyIndex));
+            assertTrue(body.getParentJoint().getPredecessor() == topology.getBody(parentIndex));
+            assertEquals(bodyIndex - 1, topology.getJointOffset(bodyIndex));
+         }
+
+         int[] childIndices = topology.getChildIndices(bodyIndex);
+         assertEquals(body.getChildrenJoints().size(), childIndices.length);
+         for (int i = 0; i < childIndices.length; i++)
+         {
+            assertTrue(body.getChildrenJoints().get(i).getSuccessor() == topology.getBody(childIndices[i]));
+         }
+         numberOfChildren += childIndices.length;
+      }
+
+      assertEquals(joints.size(), numberOfChildren);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testTopologyContainsSupportAndSubtree()
+   {
+      Random random = new Random(1987L);
+      RigidBody elevator = createElevator();
+      ArrayList<RevoluteJoint> joints = new ArrayList<RevoluteJoint>();
+      ScrewTestTools.createRandomTreeRobot(joints, elevator, 30, random);
+
+      for (RevoluteJoint joint : joints)
+      {
+         RigidBody body = joint.getSuccessor();
+         MultiBodyTopology topology = new MultiBodyTopology(body);
+
+         RigidBody[] supportAndSubtree = ScrewTools.computeSupportAndSubtreeSuccessors(body);
+         assertEquals(supportAndSubtree.length + 1, topology.getNumberOfBodies());
+         for (RigidBody expectedBody : supportAndSubtree)
+         {
+            assertTrue(topology.containsBody(expectedBody));
+         }
+
+         for (RevoluteJoint otherJoint : joints)
+         {
+            RigidBody otherBody = otherJoint.getSuccessor();
+            boolean expectedToBeInTopology = ScrewTools.isAncestor(body, otherBody) || ScrewTools.isAncestor(otherBody, body);
+            assertEquals(expectedToBeInTopology, topology.containsBody(otherBody));
+         }
+      }
+
+      MultiBodyTopology topologyWithoutFirstJoint = new MultiBodyTopology(elevator, joints.subList(0, 1));
+      assertFalse(topologyWithoutFirstJoint.containsBody(joints.get(0).getSuccessor()));
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testTwistsMatchRecursiveComputation()
+   {
+      Random random = new Random(1988L);
+      RigidBody elevator = createElevator();
+      ArrayList<RevoluteJoint> joints = new ArrayList<RevoluteJoint>();
+      ScrewTestTools.createRandomTreeRobot(joints, elevator, 30, random);
+      ScrewTestTools.setRandomPositions(joints, random);
+      ScrewTestTools.setRandomVelocities(joints, random);
+      elevator.updateFramesRecursively();
+
+      TwistCalculator twistCalculator = new TwistCalculator(worldFrame, elevator);
+      twistCalculator.compute();
+
+      LinkedHashMap<RigidBody, Twist> expectedTwists = new LinkedHashMap<RigidBody, Twist>();
+      ReferenceFrame elevatorFrame = elevator.getBodyFixedFrame();
+      expectedTwists.put(elevator, new Twist(elevatorFrame, worldFrame, elevatorFrame));
+      computeTwistsRecursively(elevator, expectedTwists);
+
+      Twist twist = new Twist();
+      for (RigidBody body : expectedTwists.keySet())
+      {
+         twistCalculator.getTwistOfBody(twist, body);
+         assertTwistsExactlyEqual(expectedTwists.get(body), twist);
+
+         twistCalculator.getTwistOfBody(twist, twistCalculator.getTopology().getBodyIndex(body));
+         assertTwistsExactlyEqual(expectedTwists.get(body), twist);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testMassMatrixOfFloatingBodySubtreeMatchesMassMatrixOfElevatorSubtree()
+   {
+      Random random = new Random(1989L);
+      int numberOfJoints = 10;
+      Vector3d[] jointAxes = new Vector3d[numberOfJoints];
+      for (int i = 0; i < numberOfJoints; i++)
+         jointAxes[i] = RandomTools.generateRandomVector(random, 1.0);
+
+      ScrewTestTools.RandomFloatingChain randomFloatingChain = new ScrewTestTools.RandomFloatingChain(random, jointAxes);
+      randomFloatingChain.setRandomPositionsAndVelocities(random);
+
+      RigidBody elevator = randomFloatingChain.getElevator();
+      CompositeRigidBodyMassMatrixCalculator fromElevator = new CompositeRigidBodyMassMatrixCalculator(elevator);
+      CompositeRigidBodyMassMatrixCalculator fromFloatingBody = new CompositeRigidBodyMassMatrixCalculator(randomFloatingChain.getRootJoint().getSuccessor());
+      CompositeRigidBodyMassMatrixCalculator fromTopology = new CompositeRigidBodyMassMatrixCalculator(new MultiBodyTopology(elevator));
+
+      fromElevator.compute();
+      fromFloatingBody.compute();
+      fromTopology.compute();
+
+      assertArrayEquals(fromElevator.getJointsInOrder(), fromFloatingBody.getJointsInOrder());
+      assertArrayEquals(fromElevator.getJointsInOrder(), fromTopology.getJointsInOrder());
+      assertEquals(6 + numberOfJoints, fromElevator.getMassMatrix().getNumRows());
+      assertArrayEquals(fromElevator.getMassMatrix().getData(), fromFloatingBody.getMassMatrix().getData(), 0.0);
+      assertArrayEquals(fromElevator.getMassMatrix().getData(), fromTopology.getMassMatrix().getData(), 0.0);
+   }
+
+   /**
+    * Straightforward depth-first version of the twist recursion, using a map from the bodies to their twists.
+    */
+   private static void computeTwistsRecursively(RigidBody predecessor, LinkedHashMap<RigidBody, Twist> twists)
+   {
+      List<InverseDynamicsJoint> childrenJoints = predecessor.getChildrenJoints();
+      for (int i = 0; i < childrenJoints.size(); i++)
+      {
+         InverseDynamicsJoint joint = childrenJoints.get(i);
+         RigidBody successor = joint.getSuccessor();
+
+         Twist jointTwist = new Twist();
+         joint.getSuccessorTwist(jointTwist);
+
+         Twist successorTwist = new Twist(twists.get(predecessor));
+         successorTwist.changeFrame(successor.getBodyFixedFrame());
+         successorTwist.add(jointTwist);
+         twists.put(successor, successorTwist);
+
+         computeTwistsRecursively(successor, twists);
+      }
+   }
+
+   private static void assertTwistsExactlyEqual(Twist expected, Twist actual)
+   {
+      assertTrue(expected.getBodyFrame() == actual.getBodyFrame());
+      assertTrue(expected.getBaseFrame() == actual.getBaseFrame());
+      assertTrue(expected.getExpressedInFrame() == actual.getExpressedInFrame());
+
+      double[] expectedArray = new double[Twist.SIZE];
+      double[] actualArray = new double[Twist.SIZE];
+      expected.getArray(expectedArray, 0);
+      actual.getArray(actualArray, 0);
+      assertArrayEquals(expectedArray, actualArray, 0.0);
+   }
+
+   private static RigidBody createElevator()
+   {
+      ReferenceFrame elevatorFrame = ReferenceFrame.constructFrameWithUnchangingTransformToParent("elevator", worldFrame, new RigidBodyTransform());
+      return new RigidBody("elevator", elevatorFrame);
+   }
+}
@@ -0,0 +1,94 @@
+package us.ihmc.robotics.screwTheory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import javax.vecmath.Vector3d;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+import org.junit.Test;
+
+import us.ihmc.robotics.random.RandomTools;
+import us.ihmc.tools.testing.JUnitTools;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class OriginalDynamicallyConsistentNullspaceCalculatorTest
+{
+   private static final int numberOfJoints = 10;
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testNullspaceIncludesTheFloatingJoint()
+   {
+      Random random = new Random(1990L);
+      ScrewTestTools.RandomFloatingChain randomFloatingChain = createRandomFloatingChain(random);
+      SixDoFJoint rootJoint = randomFloatingChain.getRootJoint();
+      RigidBody leafBody = randomFloatingChain.getLeafBody();
+
+      OriginalDynamicallyConsistentNullspaceCalculator nullspaceCalculator = new OriginalDynamicallyConsistentNullspaceCalculator(rootJoint, false);
+      nullspaceCalculator.addConstraint(leafBody, CommonOps.identity(SpatialMotionVector.SIZE));
+      nullspaceCalculator.compute();
+      DenseMatrix64F nullspace = nullspaceCalculator.getDynamicallyConsistentNullspace();
+
+      int nDegreesOfFreedom = rootJoint.getDegreesOfFreedom() + numberOfJoints;
+      assertEquals(nDegreesOfFreedom, nullspace.getNumRows());
+      assertEquals(nDegreesOfFreedom, nullspace.getNumCols());
+
+      // The joint path of the constraint Jacobian starts with the floating joint, like the joints of the mass matrix
+      GeometricJacobian constraintJacobian = new GeometricJacobian(rootJoint.getPredecessor(), leafBody, rootJoint.getFrameAfterJoint());
+      constraintJacobian.compute();
+      DenseMatrix64F jacobianTimesNullspace = new DenseMatrix64F(SpatialMotionVector.SIZE, nDegreesOfFreedom);
+      CommonOps.mult(constraintJacobian.getJacobianMatrix(), nullspace, jacobianTimesNullspace);
+      JUnitTools.assertMatrixEquals(new DenseMatrix64F(SpatialMotionVector.SIZE, nDegreesOfFreedom), jacobianTimesNullspace, 1e-8);
+
+      DenseMatrix64F nullspaceSquared = new DenseMatrix64F(nDegreesOfFreedom, nDegreesOfFreedom);
+      CommonOps.mult(nullspace, nullspace, nullspaceSquared);
+      JUnitTools.assertMatrixEquals(nullspace, nullspaceSquared, 1e-8);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testSNsBarIsARightInverseOfSNs()
+   {
+      Random random = new Random(1991L);
+      ScrewTestTools.RandomFloatingChain randomFloatingChain = createRandomFloatingChain(random);
+      SixDoFJoint rootJoint = randomFloatingChain.getRootJoint();
+      List<RevoluteJoint> revoluteJoints = randomFloatingChain.getRevoluteJoints();
+
+      OriginalDynamicallyConsistentNullspaceCalculator nullspaceCalculator = new OriginalDynamicallyConsistentNullspaceCalculator(rootJoint, true);
+      nullspaceCalculator.addConstraint(randomFloatingChain.getLeafBody(), CommonOps.identity(SpatialMotionVector.SIZE));
+      for (RevoluteJoint revoluteJoint : revoluteJoints)
+         nullspaceCalculator.addActuatedJoint(revoluteJoint);
+      nullspaceCalculator.compute();
+
+      int nDegreesOfFreedom = rootJoint.getDegreesOfFreedom() + numberOfJoints;
+      DenseMatrix64F SNsBar = nullspaceCalculator.getSNsBar();
+      assertEquals(nDegreesOfFreedom, SNsBar.getNumRows());
+      assertEquals(numberOfJoints, SNsBar.getNumCols());
+
+      // The floating joint comes first and is not actuated
+      DenseMatrix64F S = new DenseMatrix64F(numberOfJoints, nDegreesOfFreedom);
+      for (int i = 0; i < numberOfJoints; i++)
+         S.set(i, rootJoint.getDegreesOfFreedom() + i, 1.0);
+
+      DenseMatrix64F SNs = new DenseMatrix64F(numberOfJoints, nDegreesOfFreedom);
+      CommonOps.mult(S, nullspaceCalculator.getDynamicallyConsistentNullspace(), SNs);
+      DenseMatrix64F SNsTimesSNsBar = new DenseMatrix64F(numberOfJoints, numberOfJoints);
+      CommonOps.mult(SNs, SNsBar, SNsTimesSNsBar);
+      JUnitTools.assertMatrixEquals(CommonOps.identity(numberOfJoints), SNsTimesSNsBar, 1e-6);
+   }
+
+   private static ScrewTestTools.RandomFloatingChain createRandomFloatingChain(Random random)
+   {
+      Vector3d[] jointAxes = new Vector3d[numberOfJoints];
+      for (int i = 0; i < numberOfJoints; i++)
+         jointAxes[i] = RandomTools.generateRandomVector(random, 1.0);
+
+      ScrewTestTools.RandomFloatingChain randomFloatingChain = new ScrewTestTools.RandomFloatingChain(random, jointAxes);
+      randomFloatingChain.setRandomPositionsAndVelocities(random);
+      return randomFloatingChain;
+   }
+}
@@ -0,0 +1,129 @@
+package us.ihmc.tools.testing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of {@link AllocationTestTools#measureAllocations(Runnable, int, int)}: how many bytes the measured ticks allocated and, when sampled, where.
+ */
+public class AllocationReport
+{
+   private final int numberOfTicks;
+   private final long totalAllocatedBytes;
+   private final long maximumAllocatedBytesInOneTick;
+   private final int numberOfAllocatingTicks;
+   private final List<AllocationSite> allocationSites = new ArrayList<AllocationSite>();
+
+   AllocationReport(int numberOfTicks, long totalAllocatedBytes, long maximumAllocatedBytesInOneTick, int numberOfAllocatingTicks)
+   {
+      this.numberOfTicks = numberOfTicks;
+      this.totalAllocatedBytes = totalAllocatedBytes;
+      this.maximumAllocatedBytesInOneTick = maximumAllocatedBytesInOneTick;
+      this.numberOfAllocatingTicks = numberOfAllocatingTicks;
+   }
+
+   void setAllocationSites(List<AllocationSite> allocationSites)
+   {
+      this.allocationSites.clear();
+      this.allocationSites.addAll(allocationSites);
+      Collections.sort(this.allocationSites);
+   }
+
+   public int getNumberOfTicks()
+   {
+      return numberOfTicks;
+   }
+
+   public long getTotalAllocatedBytes()
+   {
+      return totalAllocatedBytes;
+   }
+
+   public double getAverageAllocatedBytesPerTick()
+   {
+      return numberOfTicks == 0 ? 0.0 : (double) totalAllocatedBytes / numberOfTicks;
+   }
+
+   public long getMaximumAllocatedBytesInOneTick()
+   {
+      return maximumAllocatedBytesInOneTick;
+   }
+
+   public int getNumberOfAllocatingTicks()
+   {
+      return numberOfAllocatingTicks;
+   }
+
+   /**
+    * @return the sampled allocation sites, most frequent first. Empty if the sites have not been sampled.
+    */
+   public List<AllocationSite> getAllocationSites()
+   {
+      return Collections.unmodifiableList(allocationSites);
+   }
+
+   @Override
+   public String toString()
+   {
+      StringBuilder builder = new StringBuilder();
+      builder.append(totalAllocatedBytes).append(" bytes allocated in ").append(numberOfTicks).append(" ticks (");
+      builder.append(String.format("%.1f", getAverageAllocatedBytesPerTick())).append(" bytes per tick, at most ");
+      builder.append(maximumAllocatedBytesInOneTick).append(" bytes in one tick, ");
+      builder.append(numberOfAllocatingTicks).append(" ticks allocated)");
+
+      for (int i = 0; i < allocationSites.size(); i++)
+      {
+         builder.append("\n").append(allocationSites.get(i));
+      }
+
+      return builder.toString();
+   }
+
+   /**
+    * Stack of the ticking thread captured just after its allocated bytes counter increased, with the number of times it was captured.
+    */
+   public static class AllocationSite implements Comparable<AllocationSite>
+   {
+      private final StackTraceElement[] stackTrace;
+      private int numberOfSamples;
+
+      AllocationSite(StackTraceElement[] stackTrace)
+      {
+         this.stackTrace = stackTrace;
+      }
+
+      void addSample()
+      {
+         numberOfSamples++;
+      }
+
+      public StackTraceElement[] getStackTrace()
+      {
+         return stackTrace.clone();
+      }
+
+      public int getNumberOfSamples()
+      {
+         return numberOfSamples;
+      }
+
+      @Override
+      public int compareTo(AllocationSite other)
+      {
+         return Integer.compare(other.numberOfSamples, numberOfSamples);
+      }
+
+      @Override
+      public String toString()
+      {
+         StringBuilder builder = new StringBuilder();
+         builder.append(numberOfSamples).append(" samples:");
+         for (StackTraceElement element : stackTrace)
+         {
+            builder.append("\n   at ").append(element);
+         }
+         return builder.toString();
+      }
+   }
+}
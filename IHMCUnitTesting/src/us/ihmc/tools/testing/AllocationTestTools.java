@@ -0,0 +1,223 @@
+package us.ihmc.tools.testing;
+
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assume;
+
+import us.ihmc.tools.testing.AllocationReport.AllocationSite;
+
+/**
+ * Verifies that code run on a control thread, such as one controller tick, does not allocate.
+ *
+ * The tick is first run warmupTicks times so the JIT compiles it and escape analysis removes the allocations it can, and is then measured tick by tick with
+ * the allocated bytes counter the JVM keeps for every thread. When a tick allocates more than its budget, the tick is run again on a separate thread while
+ * the counter of that thread is polled, and the stack of the thread is captured every time the counter increases. The most frequent stacks are reported as
+ * the allocation sites. The stacks are sampled after the allocation, so the top frame can be a few instructions past the allocating call.
+ *
+ * Requires a JVM that implements com.sun.management.ThreadMXBean, the tests are skipped on other JVMs.
+ */
+public class AllocationTestTools
+{
+   public static final int DEFAULT_NUMBER_OF_WARMUP_TICKS = 20000;
+   public static final int DEFAULT_NUMBER_OF_TICKS = 1000;
+   public static final long DEFAULT_SAMPLING_TIME_IN_MILLISECONDS = 2000;
+
+   private static final int MAXIMUM_STACK_DEPTH = 10;
+   private static final int MAXIMUM_NUMBER_OF_REPORTED_SITES = 10;
+
+   /**
+    * Runs the tick and fails with a report of the allocation sites if one tick allocates more than maximumBytesPerTick once warmed up.
+    */
+   public static void assertAllocationsBelow(String tickName, Runnable tick, long maximumBytesPerTick)
+   {
+      assertAllocationsBelow(tickName, tick, DEFAULT_NUMBER_OF_WARMUP_TICKS, DEFAULT_NUMBER_OF_TICKS, maximumBytesPerTick);
+   }
+
+   public static void assertAllocationsBelow(String tickName, Runnable tick, int warmupTicks, int numberOfTicks, long maximumBytesPerTick)
+   {
+      Assume.assumeTrue("The JVM does not measure the allocated bytes per thread", isAllocationMeasurementSupported());
+
+      AllocationReport report = measureAllocations(tick, warmupTicks, numberOfTicks);
+      if (report.getMaximumAllocatedBytesInOneTick() > maximumBytesPerTick)
+      {
+         report.setAllocationSites(sampleAllocationSites(tick, DEFAULT_SAMPLING_TIME_IN_MILLISECONDS));
+         fail(tickName + " allocates more than " + maximumBytesPerTick + " bytes per tick: " + report);
+      }
+   }
+
+   public static boolean isAllocationMeasurementSupported()
+   {
+      java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      if (!(threadMXBean instanceof com.sun.management.ThreadMXBean))
+         return false;
+
+      return ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported();
+   }
+
+   /**
+    * Runs the tick warmupTicks times, then measures the bytes allocated by each of the next numberOfTicks ticks on the calling thread.
+    */
+   public static AllocationReport measureAllocations(Runnable tick, int warmupTicks, int numberOfTicks)
+   {
+      com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+      long threadId = Thread.currentThread().getId();
+
+      for (int i = 0; i < warmupTicks; i++)
+      {
+         tick.run();
+      }
+
+      long measurementOverhead = computeMeasurementOverhead(threadMXBean, threadId);
+
+      long totalAllocatedBytes = 0;
+      long maximumAllocatedBytesInOneTick = 0;
+      int numberOfAllocatingTicks = 0;
+
+      for (int i = 0; i < numberOfTicks; i++)
+      {
+         long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+         tick.run();
+         long bytesAfter = threadMXBean.getThreadAllocatedBytes(threadId);
+
+         long allocatedBytes = Math.max(0, bytesAfter - bytesBefore - measurementOverhead);
+         totalAllocatedBytes += allocatedBytes;
+         maximumAllocatedBytesInOneTick = Math.max(maximumAllocatedBytesInOneTick, allocatedBytes);
+         if (allocatedBytes > 0)
+            numberOfAllocatingTicks++;
+      }
+
+      return new AllocationReport(numberOfTicks, totalAllocatedBytes, maximumAllocatedBytesInOneTick, numberOfAllocatingTicks);
+   }
+
+   /**
+    * Runs the tick repeatedly on a new thread for samplingTimeInMilliseconds and captures the stack of that thread every time its allocated bytes counter
+    * increases.
+    * @return the captured stacks, trimmed to the frames of the tick, most frequent first
+    */
+   public static List<AllocationSite> sampleAllocationSites(final Runnable tick, long samplingTimeInMilliseconds)
+   {
+      com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+
+      final AtomicBoolean stop = new AtomicBoolean(false);
+      final RuntimeException[] tickException = new RuntimeException[1];
+      Thread tickThread = new Thread(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            try
+            {
+               while (!stop.get())
+               {
+                  tick.run();
+               }
+            }
+            catch (RuntimeException e)
+            {
+               tickException[0] = e;
+            }
+         }
+      }, AllocationTestTools.class.getSimpleName() + "Sampler");
+
+      HashMap<List<StackTraceElement>, AllocationSite> sites = new HashMap<List<StackTraceElement>, AllocationSite>();
+
+      tickThread.start();
+      long threadId = tickThread.getId();
+      long previousAllocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+      long stopTime = System.currentTimeMillis() + samplingTimeInMilliseconds;
+
+      while (tickThread.isAlive())
+      {
+         if (System.currentTimeMillis() > stopTime)
+            stop.set(true);
+
+         long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+         if (allocatedBytes > previousAllocatedBytes)
+         {
+            StackTraceElement[] stackTrace = trimStackTrace(tickThread.getStackTrace());
+            if (stackTrace.length > 0)
+            {
+               List<StackTraceElement> key = Arrays.asList(stackTrace);
+               AllocationSite site = sites.get(key);
+               if (site == null)
+               {
+                  site = new AllocationSite(stackTrace);
+                  sites.put(key, site);
+               }
+               site.addSample();
+            }
+         }
+         previousAllocatedBytes = allocatedBytes;
+      }
+
+      try
+      {
+         tickThread.join();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+
+      if (tickException[0] != null)
+         throw tickException[0];
+
+      List<AllocationSite> sortedSites = new ArrayList<AllocationSite>(sites.values());
+      Collections.sort(sortedSites);
+      if (sortedSites.size() > MAXIMUM_NUMBER_OF_REPORTED_SITES)
+         sortedSites = new ArrayList<AllocationSite>(sortedSites.subList(0, MAXIMUM_NUMBER_OF_REPORTED_SITES));
+      return sortedSites;
+   }
+
+   /**
+    * Keeps the frames above the tick loop of this class, at most MAXIMUM_STACK_DEPTH of them.
+    */
+   private static StackTraceElement[] trimStackTrace(StackTraceElement[] stackTrace)
+   {
+      String className = AllocationTestTools.class.getName();
+      int depth = 0;
+      while (depth < stackTrace.length)
+      {
+         String frameClassName = stackTrace[depth].getClassName();
+         if (frameClassName.equals(className) || frameClassName.startsWith(className + "$"))
+            break;
+         depth++;
+      }
+
+      return Arrays.copyOf(stackTrace, Math.min(depth, MAXIMUM_STACK_DEPTH));
+   }
+
+   /**
+    * Some JVMs allocate when reading the counter, so two consecutive reads do not differ by zero.
+    */
+   private static long computeMeasurementOverhead(com.sun.management.ThreadMXBean threadMXBean, long threadId)
+   {
+      long overhead = Long.MAX_VALUE;
+      for (int i = 0; i < 100; i++)
+      {
+         long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+         long bytesAfter = threadMXBean.getThreadAllocatedBytes(threadId);
+         overhead = Math.min(overhead, bytesAfter - bytesBefore);
+      }
+      return overhead;
+   }
+
+   private static com.sun.management.ThreadMXBean getThreadMXBean()
+   {
+      if (!isAllocationMeasurementSupported())
+         throw new UnsupportedOperationException("The JVM does not measure the allocated bytes per thread");
+
+      com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      if (!threadMXBean.isThreadAllocatedMemoryEnabled())
+         threadMXBean.setThreadAllocatedMemoryEnabled(true);
+      return threadMXBean;
+   }
+}
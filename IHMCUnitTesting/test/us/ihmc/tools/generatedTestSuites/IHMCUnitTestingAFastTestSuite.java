@@ -12,6 +12,7 @@ import us.ihmc.tools.testing.TestPlanTarget;
 @TestSuiteTarget(TestPlanTarget.Fast)
 @SuiteClasses
 ({
+   us.ihmc.tools.testing.AllocationTestToolsTest.class,
    us.ihmc.tools.testing.JUnitToolsTest.class
 })
 
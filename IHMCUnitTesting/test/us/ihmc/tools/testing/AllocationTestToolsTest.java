@@ -0,0 +1,102 @@
+package us.ihmc.tools.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import us.ihmc.tools.testing.AllocationReport.AllocationSite;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class AllocationTestToolsTest
+{
+   private static final int ALLOCATED_ARRAY_LENGTH = 64;
+
+   private final double[] data = new double[100];
+   private Object allocatedObject;
+
+   private final Runnable nonAllocatingTick = new Runnable()
+   {
+      @Override
+      public void run()
+      {
+         for (int i = 0; i < data.length; i++)
+            data[i] = 0.5 * data[i] + 1.0;
+      }
+   };
+
+   private final Runnable allocatingTick = new Runnable()
+   {
+      @Override
+      public void run()
+      {
+         allocatedObject = new double[ALLOCATED_ARRAY_LENGTH];
+         nonAllocatingTick.run();
+      }
+   };
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testNonAllocatingTick()
+   {
+      Assume.assumeTrue(AllocationTestTools.isAllocationMeasurementSupported());
+
+      AllocationReport report = AllocationTestTools.measureAllocations(nonAllocatingTick, 20000, 1000);
+      assertEquals(1000, report.getNumberOfTicks());
+      assertEquals(0, report.getTotalAllocatedBytes());
+      assertEquals(0, report.getNumberOfAllocatingTicks());
+
+      AllocationTestTools.assertAllocationsBelow("nonAllocatingTick", nonAllocatingTick, 0);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testAllocatingTickIsMeasured()
+   {
+      Assume.assumeTrue(AllocationTestTools.isAllocationMeasurementSupported());
+
+      AllocationReport report = AllocationTestTools.measureAllocations(allocatingTick, 20000, 1000);
+      assertEquals(1000, report.getNumberOfAllocatingTicks());
+      assertTrue(report.getMaximumAllocatedBytesInOneTick() >= ALLOCATED_ARRAY_LENGTH * 8);
+      assertTrue(report.getAverageAllocatedBytesPerTick() >= ALLOCATED_ARRAY_LENGTH * 8);
+      assertTrue(allocatedObject != null);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.6)
+   @Test(timeout = 30000)
+   public void testAllocationSitesAreSampled()
+   {
+      Assume.assumeTrue(AllocationTestTools.isAllocationMeasurementSupported());
+
+      List<AllocationSite> sites = AllocationTestTools.sampleAllocationSites(allocatingTick, 500);
+      assertFalse(sites.isEmpty());
+
+      StackTraceElement topFrame = sites.get(0).getStackTrace()[0];
+      assertTrue(topFrame.getClassName().startsWith(getClass().getName()));
+   }
+
+   @DeployableTestMethod(estimatedDuration = 2.1)
+   @Test(timeout = 30000)
+   public void testAssertionReportsTheAllocationSites()
+   {
+      Assume.assumeTrue(AllocationTestTools.isAllocationMeasurementSupported());
+
+      try
+      {
+         AllocationTestTools.assertAllocationsBelow("allocatingTick", allocatingTick, 16);
+      }
+      catch (AssertionError e)
+      {
+         assertTrue(e.getMessage().startsWith("allocatingTick allocates more than 16 bytes per tick"));
+         assertTrue(e.getMessage().contains(getClass().getName()));
+         return;
+      }
+
+      fail("The allocations of the tick were not detected");
+   }
+}
@@ -2,6 +2,10 @@ package us.ihmc.utilities.parameterOptimization;
 
 public abstract class IndividualToEvaluate
 {   
+   private static final long EVALUATION_DONE_CHECK_PERIOD_MILLIS = 10;
+
+   private final Object evaluationDoneLock = new Object();
+
    private boolean fitnessAlreadyComputed = false;
    private double cachedFitness = -1.0;
    private String name = "notNamed";
@@ -16,6 +20,32 @@ public abstract class IndividualToEvaluate
    public abstract boolean isEvaluationDone();
 
    public abstract double computeFitness();
+
+   /**
+    * Blocks until {@link #isEvaluationDone()} returns true. Implementations that finish their evaluation in another thread
+    * should call {@link #notifyEvaluationDone()} to wake up the waiting threads right away, otherwise the evaluation is checked periodically.
+    */
+   public void waitUntilEvaluationDone() throws InterruptedException
+   {
+      synchronized (evaluationDoneLock)
+      {
+         while (!isEvaluationDone())
+         {
+            evaluationDoneLock.wait(EVALUATION_DONE_CHECK_PERIOD_MILLIS);
+         }
+      }
+   }
+
+   /**
+    * To be called once {@link #isEvaluationDone()} returns true when the evaluation finishes in another thread.
+    */
+   protected void notifyEvaluationDone()
+   {
+      synchronized (evaluationDoneLock)
+      {
+         evaluationDoneLock.notifyAll();
+      }
+   }
    
    public String getName()
    {
@@ -60,7 +90,10 @@ public abstract class IndividualToEvaluate
       return cachedFitness;
    }
    
-   protected synchronized void setFitness(double fitness)
+   /**
+    * Sets the fitness without evaluating this individual, for instance when an individual with the same parameters has already been evaluated.
+    */
+   public synchronized void setFitness(double fitness)
    {
       fitnessAlreadyComputed = true;
       cachedFitness = fitness;
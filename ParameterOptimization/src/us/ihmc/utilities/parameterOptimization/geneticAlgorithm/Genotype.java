@@ -1,5 +1,6 @@
 package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
 
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -168,6 +169,24 @@ public class Genotype
       return ret;
    }
 
+   @Override
+   public boolean equals(Object object)
+   {
+      if (this == object)
+         return true;
+      if (!(object instanceof Genotype))
+         return false;
+
+      Genotype other = (Genotype) object;
+      return Arrays.equals(DNA, other.DNA) && Arrays.equals(bitsPerGene, other.bitsPerGene);
+   }
+
+   @Override
+   public int hashCode()
+   {
+      return 31 * Arrays.hashCode(DNA) + Arrays.hashCode(bitsPerGene);
+   }
+
    public int[] getBits()
    {
       return DNA;
@@ -34,6 +34,15 @@ public class Population
    private final int popNumber;
 
    private final Comparator<GeneticAlgorithmIndividualToEvaluate> comparator;
+   private final PopulationEvaluator evaluator;
+   private final EvaluatedIndividualListener evaluatedIndividualNotifier = new EvaluatedIndividualListener()
+   {
+      @Override
+      public void evaluatedIndividual(IndividualToEvaluate individual)
+      {
+         notifyEvaluatedIndividualListeners(individual);
+      }
+   };
    
    private boolean allIndividualsEvaluated = false;
 
@@ -57,6 +66,7 @@ public class Population
       this.popName = name;
       this.popNumber = popNumber;
       this.comparator = comparator;
+      this.evaluator = new PopulationEvaluator(name, populationParameters.getNumberOfEvaluationThreads(), populationParameters.getCacheFitnessOfGenotypes());
       
       generation = new GeneticAlgorithmIndividualToEvaluate[numIndividuals];
 
@@ -112,13 +122,15 @@ public class Population
 //      // evaluateAllIndividuals();
 //   }
 
-   private Population(Random random, int numberOfIndividuals, Comparator<GeneticAlgorithmIndividualToEvaluate> comparator, String name, int popNumber)
+   private Population(Random random, int numberOfIndividuals, Comparator<GeneticAlgorithmIndividualToEvaluate> comparator, String name, int popNumber,
+         PopulationEvaluator evaluator)
    {
       this.random = random;
       
       this.popName = name;
       this.popNumber = popNumber;
       this.comparator = comparator;
+      this.evaluator = evaluator;
       
       generation = new GeneticAlgorithmIndividualToEvaluate[numberOfIndividuals];
 
@@ -147,30 +159,7 @@ public class Population
       if (allIndividualsEvaluated)
          return;
 
-      // System.out.println("Starting the Evals");
-      for (int i = 0; i < generation.length; i++)
-      {
-         if (!generation[i].isEvaluationDone())
-            generation[i].startEvaluation();
-      }
-
-      // System.out.println("Waiting for the Evals to finish");
-      for (int i = 0; i < generation.length; i++)
-      {
-         while (!generation[i].isEvaluationDone())
-         {
-            try
-            {
-               Thread.sleep(1000);
-            }
-            catch (InterruptedException e)
-            {
-            }
-         }
-         
-         
-         notifyEvaluatedIndividualListeners(generation[i].getIndividualToEvaluate());  
-      }
+      evaluator.evaluate(generation, evaluatedIndividualNotifier);
 
       allIndividualsEvaluated = true;
    }
@@ -199,7 +188,7 @@ public class Population
 
    public Population breed(double crossoverRate, double mutationRate)
    {
-      Population retPop = new Population(this.random, generation.length, this.comparator, this.popName, this.popNumber + 1);
+      Population retPop = new Population(this.random, generation.length, this.comparator, this.popName, this.popNumber + 1, this.evaluator);
 
       GeneticAlgorithmIndividualToEvaluate parent1, parent2;
       GeneticAlgorithmIndividualToEvaluate[] children = new GeneticAlgorithmIndividualToEvaluate[2];
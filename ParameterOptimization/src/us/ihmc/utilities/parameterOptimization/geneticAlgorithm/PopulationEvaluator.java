@@ -0,0 +1,170 @@
+package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import us.ihmc.utilities.parameterOptimization.EvaluatedIndividualListener;
+import us.ihmc.utilities.parameterOptimization.IndividualToEvaluate;
+
+/**
+ * Evaluates the individuals of a {@link Population} on a bounded pool of threads.
+ * Each evaluation is started and waited for by one thread, and the listener is notified in the calling thread as soon as an evaluation is done.
+ *
+ * Optionally, the fitness of every evaluated genotype is remembered so that individuals with the same genotype, in the same generation or in later ones,
+ * are not evaluated again.
+ */
+public class PopulationEvaluator
+{
+   private final ExecutorService executor;
+   private final ConcurrentHashMap<Genotype, Double> fitnessOfEvaluatedGenotypes;
+
+   public PopulationEvaluator(final String name, int numberOfThreads, boolean cacheFitnessOfGenotypes)
+   {
+      executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory()
+      {
+         private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+         @Override
+         public Thread newThread(Runnable runnable)
+         {
+            Thread thread = new Thread(runnable, name + "Evaluation-thread-" + threadNumber.getAndIncrement());
+            // The populations are never disposed of, so the threads must not keep the JVM alive
+            thread.setDaemon(true);
+            return thread;
+         }
+      });
+
+      if (cacheFitnessOfGenotypes)
+         fitnessOfEvaluatedGenotypes = new ConcurrentHashMap<Genotype, Double>();
+      else
+         fitnessOfEvaluatedGenotypes = null;
+   }
+
+   /**
+    * Evaluates all the individuals and blocks until they are all done.
+    * @param listener notified once per individual, in the order the evaluations finish. Can be null.
+    */
+   public void evaluate(GeneticAlgorithmIndividualToEvaluate[] individuals, EvaluatedIndividualListener listener)
+   {
+      CompletionService<GeneticAlgorithmIndividualToEvaluate> completionService = new ExecutorCompletionService<GeneticAlgorithmIndividualToEvaluate>(executor);
+
+      // Individuals that get the fitness of an evaluated individual: itself, and the individuals that are the same object or have the same genotype
+      IdentityHashMap<GeneticAlgorithmIndividualToEvaluate, ArrayList<GeneticAlgorithmIndividualToEvaluate>> individualsSharingEvaluation = new IdentityHashMap<>();
+      IdentityHashMap<GeneticAlgorithmIndividualToEvaluate, GeneticAlgorithmIndividualToEvaluate> evaluatedIndividuals = new IdentityHashMap<>();
+      HashMap<Genotype, GeneticAlgorithmIndividualToEvaluate> genotypesBeingEvaluated = new HashMap<>();
+      int numberOfEvaluations = 0;
+
+      for (GeneticAlgorithmIndividualToEvaluate individual : individuals)
+      {
+         GeneticAlgorithmIndividualToEvaluate evaluatedIndividual = evaluatedIndividuals.get(individual);
+         Genotype genotype = individual.getGenotype();
+
+         if (evaluatedIndividual == null && fitnessOfEvaluatedGenotypes != null && genotype != null)
+         {
+            Double cachedFitness = fitnessOfEvaluatedGenotypes.get(genotype);
+            if (cachedFitness != null)
+            {
+               individual.getIndividualToEvaluate().setFitness(cachedFitness);
+               notifyListener(listener, individual);
+               continue;
+            }
+
+            evaluatedIndividual = genotypesBeingEvaluated.get(genotype);
+         }
+
+         if (evaluatedIndividual == null)
+         {
+            evaluatedIndividual = individual;
+            individualsSharingEvaluation.put(individual, new ArrayList<GeneticAlgorithmIndividualToEvaluate>());
+            if (fitnessOfEvaluatedGenotypes != null && genotype != null)
+               genotypesBeingEvaluated.put(new Genotype(genotype), individual);
+
+            completionService.submit(new EvaluationTask(individual));
+            numberOfEvaluations++;
+         }
+
+         evaluatedIndividuals.put(individual, evaluatedIndividual);
+         individualsSharingEvaluation.get(evaluatedIndividual).add(individual);
+      }
+
+      for (int i = 0; i < numberOfEvaluations; i++)
+      {
+         GeneticAlgorithmIndividualToEvaluate evaluatedIndividual = takeNextEvaluatedIndividual(completionService);
+         double fitness = evaluatedIndividual.getFitness();
+
+         Genotype genotype = evaluatedIndividual.getGenotype();
+         if (fitnessOfEvaluatedGenotypes != null && genotype != null)
+            fitnessOfEvaluatedGenotypes.put(new Genotype(genotype), fitness);
+
+         for (GeneticAlgorithmIndividualToEvaluate individual : individualsSharingEvaluation.get(evaluatedIndividual))
+         {
+            if (individual != evaluatedIndividual)
+               individual.getIndividualToEvaluate().setFitness(fitness);
+            notifyListener(listener, individual);
+         }
+      }
+   }
+
+   private static GeneticAlgorithmIndividualToEvaluate takeNextEvaluatedIndividual(CompletionService<GeneticAlgorithmIndividualToEvaluate> completionService)
+   {
+      try
+      {
+         return completionService.take().get();
+      }
+      catch (InterruptedException e)
+      {
+         throw new RuntimeException("Interrupted while waiting for the evaluations", e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException("Evaluation failed", e.getCause());
+      }
+   }
+
+   private static void notifyListener(EvaluatedIndividualListener listener, GeneticAlgorithmIndividualToEvaluate individual)
+   {
+      if (listener != null)
+         listener.evaluatedIndividual(individual.getIndividualToEvaluate());
+   }
+
+   public int getNumberOfCachedGenotypes()
+   {
+      return fitnessOfEvaluatedGenotypes == null ? 0 : fitnessOfEvaluatedGenotypes.size();
+   }
+
+   private static class EvaluationTask implements Callable<GeneticAlgorithmIndividualToEvaluate>
+   {
+      private final GeneticAlgorithmIndividualToEvaluate individual;
+
+      private EvaluationTask(GeneticAlgorithmIndividualToEvaluate individual)
+      {
+         this.individual = individual;
+      }
+
+      @Override
+      public GeneticAlgorithmIndividualToEvaluate call() throws Exception
+      {
+         IndividualToEvaluate individualToEvaluate = individual.getIndividualToEvaluate();
+
+         if (!individualToEvaluate.isEvaluationDone())
+            individualToEvaluate.startEvaluation();
+
+         individualToEvaluate.waitUntilEvaluationDone();
+
+         // Computing the fitness can be expensive as well, do it in the evaluation thread
+         individualToEvaluate.getFitness();
+
+         return individual;
+      }
+   }
+}
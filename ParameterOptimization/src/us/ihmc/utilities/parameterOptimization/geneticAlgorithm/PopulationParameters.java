@@ -17,6 +17,9 @@ public class PopulationParameters
    
    private int numberOfSeedIndividualsToCopyIntoFirstPopulation = 0;
    private double mutationRateForCopiedIndividuals = 0.0;
+
+   private int numberOfEvaluationThreads = Runtime.getRuntime().availableProcessors();
+   private boolean cacheFitnessOfGenotypes = false;
    
    public PopulationParameters(String name, Random random, int populationSize)
    {
@@ -75,6 +78,37 @@ public class PopulationParameters
    {
       return random;
    }
+
+   public int getNumberOfEvaluationThreads()
+   {
+      return numberOfEvaluationThreads;
+   }
+
+   /**
+    * Maximum number of individuals evaluated at the same time. Each evaluation keeps a thread busy from its start until it is done,
+    * so for individuals that are evaluated somewhere else, this is the number of evaluations that are dispatched at once.
+    */
+   public void setNumberOfEvaluationThreads(int numberOfEvaluationThreads)
+   {
+      if (numberOfEvaluationThreads < 1)
+         throw new RuntimeException("Need at least one evaluation thread");
+
+      this.numberOfEvaluationThreads = numberOfEvaluationThreads;
+   }
+
+   public boolean getCacheFitnessOfGenotypes()
+   {
+      return cacheFitnessOfGenotypes;
+   }
+
+   /**
+    * When enabled, an individual whose genotype has already been evaluated gets the same fitness without being evaluated again.
+    * Only use it when the evaluation gives the same fitness every time for the same parameters.
+    */
+   public void setCacheFitnessOfGenotypes(boolean cacheFitnessOfGenotypes)
+   {
+      this.cacheFitnessOfGenotypes = cacheFitnessOfGenotypes;
+   }
   
 
 }
@@ -5,11 +5,15 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+import us.ihmc.utilities.parameterOptimization.EvaluatedIndividualListener;
+import us.ihmc.utilities.parameterOptimization.IndividualToEvaluate;
 
 public class PopulationTest
 {
@@ -92,4 +96,91 @@ public class PopulationTest
       assertTrue("bestFitness = " + bestFitness, bestFitness > 13.0);
    }
 
+
+	@DeployableTestMethod(estimatedDuration = 0.5)
+	@Test(timeout = 30000)
+   public void testParallelEvaluationWithFitnessCache()
+   {
+      Random random = new Random(1984L);
+      int populationSize = 200;
+
+      PopulationParameters populationParameters = new PopulationParameters("test", random, populationSize);
+      populationParameters.setComparator(new MaximizationIndividualComparator());
+      populationParameters.setSeedIndividualToEvaluate(new AsynchronousIndividualToEvaluate());
+      populationParameters.setNumberOfEvaluationThreads(4);
+      populationParameters.setCacheFitnessOfGenotypes(true);
+
+      Population population = new Population(populationParameters, 0);
+
+      final AtomicInteger numberOfNotifications = new AtomicInteger();
+      population.attachEvaluatedIndividualListener(new EvaluatedIndividualListener()
+      {
+         @Override
+         public void evaluatedIndividual(IndividualToEvaluate individual)
+         {
+            assertTrue(individual.isEvaluationDone());
+            numberOfNotifications.incrementAndGet();
+         }
+      });
+
+      population.evaluateAndSortByFitness();
+      assertTrue(population.allIndividualsEvaluated());
+      assertEquals(populationSize, numberOfNotifications.get());
+
+      HashSet<Genotype> evaluatedGenotypes = new HashSet<Genotype>();
+      for (GeneticAlgorithmIndividualToEvaluate individual : population.getAllIndividuals())
+         evaluatedGenotypes.add(new Genotype(individual.getGenotype()));
+      assertEquals(evaluatedGenotypes.size(), AsynchronousIndividualToEvaluate.numberOfEvaluations.get());
+
+      for (int i = 0; i < 50; i++)
+      {
+         population = population.breed(0.6, 0.002);
+         population.evaluateAndSortByFitness();
+
+         for (GeneticAlgorithmIndividualToEvaluate individual : population.getAllIndividuals())
+         {
+            // The cached fitness has to be the one the individual would have computed
+            assertEquals(individual.getIndividualToEvaluate().computeFitness(), individual.getFitness(), 1e-7);
+            evaluatedGenotypes.add(new Genotype(individual.getGenotype()));
+         }
+      }
+
+      // Every genotype is evaluated only once
+      assertEquals(evaluatedGenotypes.size(), AsynchronousIndividualToEvaluate.numberOfEvaluations.get());
+   }
+
+   private static class AsynchronousIndividualToEvaluate extends ExampleIndividualToEvaluateOne
+   {
+      private static final AtomicInteger numberOfEvaluations = new AtomicInteger();
+
+      private volatile boolean evaluationDone = false;
+
+      @Override
+      public IndividualToEvaluate createNewIndividual()
+      {
+         return new AsynchronousIndividualToEvaluate();
+      }
+
+      @Override
+      public void startEvaluation()
+      {
+         numberOfEvaluations.incrementAndGet();
+
+         new Thread(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               evaluationDone = true;
+               notifyEvaluationDone();
+            }
+         }).start();
+      }
+
+      @Override
+      public boolean isEvaluationDone()
+      {
+         return evaluationDone;
+      }
+   }
 }
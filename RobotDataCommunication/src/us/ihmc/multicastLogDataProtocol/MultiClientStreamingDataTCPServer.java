@@ -72,12 +72,23 @@ public class MultiClientStreamingDataTCPServer extends Thread
    }
 
    public void send(ByteBuffer data)
+   {
+      send(data, false);
+   }
+
+   /**
+    * Send data to all connected clients
+    * 
+    * @param data data to send
+    * @param sendToAllClients If true, also send to clients that only requested every n-th tick
+    */
+   public void send(ByteBuffer data, boolean sendToAllClients)
    {
       for (int i = 0; i < handlers.length; i++)
       {
          ClientHandler handler = handlers[i];
          data.mark();
-         handler.send(data);
+         handler.send(data, sendToAllClients);
          data.reset();
       }
    }
@@ -303,12 +314,12 @@ public class MultiClientStreamingDataTCPServer extends Thread
          return !internalActive;
       }
 
-      public void send(ByteBuffer dataToSend)
+      public void send(ByteBuffer dataToSend, boolean ignoreSendEveryNTicks)
       {
          if (active)
          {
 
-            if (count % sendEveryNTicks == 0)
+            if (ignoreSendEveryNTicks || count % sendEveryNTicks == 0)
             {
                ByteBuffer nextData = data.next();
 
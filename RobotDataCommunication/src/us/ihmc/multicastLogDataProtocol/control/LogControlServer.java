@@ -18,6 +18,9 @@ import us.ihmc.tools.thread.ThreadTools;
 
 public class LogControlServer
 {
+   private static final int RECEIVE_RING_CAPACITY = 128;
+   private static final int RECEIVE_POOL_SIZE = 16;
+
    private int port = LogDataProtocolSettings.LOG_DATA_PORT_RANGE_START;
    private KryoObjectServer server;
 
@@ -44,6 +47,10 @@ public class LogControlServer
          do
          {
             server = new KryoObjectServer(port, new LogControlClassList());
+
+            // The listeners copy the requests, so the requests can be received into pooled instances. This keeps the
+            // receive path from allocating in the controller process.
+            server.enablePooledReceive(1, RECEIVE_RING_CAPACITY, RECEIVE_POOL_SIZE);
             try
             {
                server.connect();
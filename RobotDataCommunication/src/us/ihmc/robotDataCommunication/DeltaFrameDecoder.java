@@ -0,0 +1,47 @@
+package us.ihmc.robotDataCommunication;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Restores frames encoded by {@link DeltaFrameEncoder}.
+ */
+public class DeltaFrameDecoder
+{
+   private final ByteBuffer keyframe;
+   private long keyframeUid = -1;
+
+   public DeltaFrameDecoder(int bufferSize)
+   {
+      keyframe = ByteBuffer.allocate(bufferSize);
+   }
+
+   /**
+    * Decodes the frame in place. Full frames are stored as keyframe for the following delta frames.
+    *
+    * @param header header of the frame
+    * @param frame decompressed frame, from position 0 till the limit of the buffer
+    * @return false if the keyframe needed to decode this frame has not been received. The frame is left untouched in that case.
+    */
+   public boolean decode(LogDataHeader header, ByteBuffer frame)
+   {
+      if (header.isDeltaFrame())
+      {
+         if (frame.getLong(0) != keyframeUid)
+         {
+            return false;
+         }
+
+         frame.putLong(0, header.getTimestamp());
+         for (int i = 8; i < frame.limit(); i += 8)
+         {
+            frame.putLong(i, frame.getLong(i) ^ keyframe.getLong(i));
+         }
+      }
+      else
+      {
+         System.arraycopy(frame.array(), frame.arrayOffset(), keyframe.array(), keyframe.arrayOffset(), frame.limit());
+         keyframeUid = header.getUid();
+      }
+      return true;
+   }
+}
@@ -0,0 +1,83 @@
+package us.ihmc.robotDataCommunication;
+
+import java.nio.ByteBuffer;
+
+/**
+ * XOR encodes YoVariable frames against a periodic keyframe.
+ *
+ * The first long of a frame is the timestamp. The timestamp slot of a delta frame holds the uid of the keyframe
+ * it is encoded against, so receivers that missed that keyframe can detect it. The timestamp itself travels in the {@link LogDataHeader}.
+ *
+ * Frames are encoded against the last keyframe rather than the previous frame, so a dropped delta frame does not corrupt later frames.
+ */
+public class DeltaFrameEncoder
+{
+   private final int keyframeInterval;
+   private final ByteBuffer keyframeBuffer;
+   private final ByteBuffer deltaBuffer;
+
+   private int framesSinceKeyframe = 0;
+   private long keyframeUid = -1;
+   private boolean keyframe = true;
+
+   /**
+    * @param bufferSize size of a frame in bytes
+    * @param keyframeInterval send a full frame every keyframeInterval frames. Has to be larger than 1.
+    */
+   public DeltaFrameEncoder(int bufferSize, int keyframeInterval)
+   {
+      if (keyframeInterval < 2)
+      {
+         throw new IllegalArgumentException("Keyframe interval has to be larger than 1, got " + keyframeInterval);
+      }
+      this.keyframeInterval = keyframeInterval;
+      keyframeBuffer = ByteBuffer.allocate(bufferSize);
+      deltaBuffer = ByteBuffer.allocate(bufferSize);
+   }
+
+   /**
+    * Stores the frame as keyframe or XOR encodes it against the last keyframe. The frame is left untouched.
+    *
+    * @param frame frame to encode, from position 0 till the capacity of the buffer
+    * @param uid uid of the frame
+    * @return the frame itself if it is a keyframe, an internal buffer holding the delta frame otherwise
+    */
+   public ByteBuffer encode(ByteBuffer frame, long uid)
+   {
+      keyframe = framesSinceKeyframe == 0;
+      framesSinceKeyframe = (framesSinceKeyframe + 1) % keyframeInterval;
+
+      if (keyframe)
+      {
+         System.arraycopy(frame.array(), frame.arrayOffset(), keyframeBuffer.array(), keyframeBuffer.arrayOffset(), frame.capacity());
+         keyframeUid = uid;
+         return frame;
+      }
+      else
+      {
+         deltaBuffer.putLong(0, keyframeUid);
+         for (int i = 8; i < frame.capacity(); i += 8)
+         {
+            deltaBuffer.putLong(i, frame.getLong(i) ^ keyframeBuffer.getLong(i));
+         }
+         deltaBuffer.clear();
+         return deltaBuffer;
+      }
+   }
+
+   /**
+    * @return true if the last encoded frame is a keyframe
+    */
+   public boolean isKeyframe()
+   {
+      return keyframe;
+   }
+
+   /**
+    * Make the next encoded frame a keyframe, for example after a keyframe could not be sent.
+    */
+   public void requestKeyframe()
+   {
+      framesSinceKeyframe = 0;
+   }
+}
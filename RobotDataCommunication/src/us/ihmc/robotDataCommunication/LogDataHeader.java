@@ -7,14 +7,21 @@ public class LogDataHeader
    @Override
    public String toString()
    {
-      return "LogDataHeader [uid=" + uid + ", timestamp=" + timestamp + ", dataSize=" + dataSize + ", crc32=" + crc32 + "]";
+      return "LogDataHeader [uid=" + uid + ", timestamp=" + timestamp + ", dataSize=" + dataSize + ", crc32=" + crc32 + ", deltaFrame=" + deltaFrame + "]";
    }
 
    public static final short HEADER = 0x7A7A;
+   
+   /**
+    * Header for frames that are XOR encoded against the last full frame (keyframe) in the stream
+    */
+   public static final short DELTA_HEADER = 0x7A7B;
+   
    private long uid;
    private long timestamp;
    private int dataSize;
    private int crc32;
+   private boolean deltaFrame;
 
    public static int length()
    {
@@ -23,7 +30,16 @@ public class LogDataHeader
 
    public boolean readBuffer(ByteBuffer buffer)
    {
-      if (buffer.getShort() != HEADER)
+      short header = buffer.getShort();
+      if (header == HEADER)
+      {
+         deltaFrame = false;
+      }
+      else if (header == DELTA_HEADER)
+      {
+         deltaFrame = true;
+      }
+      else
       {
          return false;
       }
@@ -40,7 +56,7 @@ public class LogDataHeader
 
    public void writeBuffer(int pos, ByteBuffer buffer)
    {
-      buffer.putShort(pos, HEADER);
+      buffer.putShort(pos, deltaFrame ? DELTA_HEADER : HEADER);
       buffer.putLong(pos + 2, uid);
       buffer.putLong(pos + 10, timestamp);
       buffer.putInt(pos + 18, dataSize);
@@ -87,4 +103,17 @@ public class LogDataHeader
       this.crc32 = crc32;
    }
 
+   /**
+    * @return true if the data is XOR encoded against the last full frame
+    */
+   public boolean isDeltaFrame()
+   {
+      return deltaFrame;
+   }
+
+   public void setDeltaFrame(boolean deltaFrame)
+   {
+      this.deltaFrame = deltaFrame;
+   }
+
 }
@@ -0,0 +1,64 @@
+package us.ihmc.robotDataCommunication;
+
+/**
+ * Detects skipped and out of order packets for a client that receives every n-th packet of the stream.
+ *
+ * When the stream is delta encoded, the server also sends keyframes to the client that are not on the client's schedule.
+ * These keyframes do not move the schedule, so they do not cause skip or skew reports for the packets after them.
+ */
+public class LogPacketSequenceChecker
+{
+   public enum PacketSequence
+   {
+      IN_SEQUENCE, SKIPPED, SKEWED, OFF_SCHEDULE_KEYFRAME
+   }
+
+   private final int displayOneInNPackets;
+   private long previous = 0;
+   private long skippedPackets = 0;
+   private boolean deltaEncodedStream = false;
+
+   public LogPacketSequenceChecker(int displayOneInNPackets)
+   {
+      this.displayOneInNPackets = displayOneInNPackets;
+   }
+
+   public PacketSequence update(LogDataHeader header)
+   {
+      long uid = header.getUid();
+      if (header.isDeltaFrame())
+      {
+         deltaEncodedStream = true;
+      }
+      else if (deltaEncodedStream && uid > previous && uid < previous + displayOneInNPackets)
+      {
+         return PacketSequence.OFF_SCHEDULE_KEYFRAME;
+      }
+
+      PacketSequence sequence;
+      if (uid > previous + displayOneInNPackets)
+      {
+         skippedPackets = uid - previous - displayOneInNPackets;
+         sequence = PacketSequence.SKIPPED;
+      }
+      else if (uid <= previous)
+      {
+         sequence = PacketSequence.SKEWED;
+      }
+      else
+      {
+         sequence = PacketSequence.IN_SEQUENCE;
+      }
+
+      previous = uid;
+      return sequence;
+   }
+
+   /**
+    * @return the number of packets skipped before the last packet reported as {@link PacketSequence#SKIPPED}
+    */
+   public long getSkippedPackets()
+   {
+      return skippedPackets;
+   }
+}
@@ -4,6 +4,7 @@ import java.nio.LongBuffer;
 import java.util.List;
 
 import us.ihmc.robotics.dataStructures.variable.YoVariable;
+import us.ihmc.robotics.dataStructures.variable.YoVariableStorage;
 
 public class RegistryBuffer
 {
@@ -12,6 +13,10 @@ public class RegistryBuffer
    private final long[] data;
    private final YoVariable<?>[] variables;
 
+   // Set when all variables are stored consecutively in one YoVariableStorage, update() is a single copy then
+   private final YoVariableStorage storage;
+   private final int storageOffset;
+
    private long timestamp;
    
    public RegistryBuffer(int variableOffset, List<YoVariable<?>> variables)
@@ -19,11 +24,21 @@ public class RegistryBuffer
       this.variableOffset = variableOffset;
       this.data = new long[variables.size()];
       this.variables = variables.toArray(new YoVariable[variables.size()]);
+
+      YoVariableStorage storage = variables.isEmpty() ? null : variables.get(0).getStorage();
+      this.storageOffset = storage == null ? -1 : storage.getStartIndexIfContiguous(variables);
+      this.storage = storageOffset == -1 ? null : storage;
    }
    
    public void update(long timestamp)
    {
       this.timestamp = timestamp;
+      if (storage != null)
+      {
+         storage.getValues(storageOffset, data, 0, variables.length);
+         return;
+      }
+
       for(int i = 0; i < variables.length; i++)
       {
          data[i] = variables[i].getValueAsLongBits();
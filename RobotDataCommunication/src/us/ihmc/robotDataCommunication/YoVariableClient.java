@@ -37,8 +37,10 @@ public class YoVariableClient implements LogPacketHandler
    private final List<JointState<?>> jointStates;
    private final int displayOneInNPackets;
    
+   private final LogPacketSequenceChecker packetSequenceChecker;
+   
    private ByteBuffer decompressed;
-   private long previous;
+   private DeltaFrameDecoder deltaFrameDecoder;
    private ClientState state = ClientState.WAITING;
 
    private enum ClientState
@@ -60,6 +62,7 @@ public class YoVariableClient implements LogPacketHandler
    {      
       this.yoVariablesUpdatedListener = yoVariablesUpdatedListener;
       displayOneInNPackets = this.yoVariablesUpdatedListener.getDisplayOneInNPackets();
+      packetSequenceChecker = new LogPacketSequenceChecker(displayOneInNPackets);
 
       InetAddress inetAddress;
       try
@@ -85,16 +88,18 @@ public class YoVariableClient implements LogPacketHandler
    @Override
    public void newDataAvailable(LogDataHeader header, ByteBuffer buf)
    {
-      if (header.getUid() > previous + displayOneInNPackets)
-      {
-         System.err.println("Skipped " + (header.getUid() - previous - displayOneInNPackets) + " packets");
-      }
-      else if (header.getUid() <= previous)
+      switch (packetSequenceChecker.update(header))
       {
+      case SKIPPED:
+         System.err.println("Skipped " + packetSequenceChecker.getSkippedPackets() + " packets");
+         break;
+      case SKEWED:
          System.err.println("Packet skew detected " + header.getUid());
+         break;
+      default:
+         break;
       }
 
-      previous = header.getUid();
       decompressed.clear();
       buf.clear();
 
@@ -119,6 +124,12 @@ public class YoVariableClient implements LogPacketHandler
          return;
       }
 
+      if (!deltaFrameDecoder.decode(header, decompressed))
+      {
+         System.err.println("[" + getClass().getSimpleName() + "] Missing keyframe for packet " + header.getUid() + ". Waiting for next keyframe.");
+         return;
+      }
+
       long timestamp = decompressed.getLong();
       LongBuffer data = decompressed.asLongBuffer();
 
@@ -211,6 +222,7 @@ public class YoVariableClient implements LogPacketHandler
       }
 
       decompressed = ByteBuffer.allocate(handshakeParser.getBufferSize());
+      deltaFrameDecoder = new DeltaFrameDecoder(handshakeParser.getBufferSize());
 
       threadedLogPacketHandler.start();
       streamingDataTCPClient.start();
@@ -28,6 +28,8 @@ public class YoVariableProducer implements Runnable
    private final LongBuffer writeBuffer;
    private final ByteBuffer compressedBuffer;
    private final ByteBuffer compressedBufferDirect;
+   
+   private final DeltaFrameEncoder deltaFrameEncoder;
 
    private final int jointStateOffset;
 
@@ -40,9 +42,21 @@ public class YoVariableProducer implements Runnable
    private final LogDataHeader logDataHeader = new LogDataHeader();
    private final CRC32 crc32 = new CRC32();
 
-   @SuppressWarnings("unchecked")
    public YoVariableProducer(PeriodicThreadScheduler scheduler, LogSessionBroadcaster session, YoVariableHandShakeBuilder handshakeBuilder, LogModelProvider logModelProvider,
          ConcurrentRingBuffer<FullStateBuffer> mainBuffer, Collection<ConcurrentRingBuffer<RegistryBuffer>> buffers)
+   {
+      this(scheduler, session, handshakeBuilder, logModelProvider, mainBuffer, buffers, 0);
+   }
+
+   /**
+    * Create a new producer
+    * 
+    * @param keyframeInterval When larger than 1, only every keyframeInterval-th frame is send in full. All other frames are XOR encoded 
+    * against the last full frame before compression, which makes unchanged variables compress to nearly nothing. Set to 0 or 1 to send every frame in full.
+    */
+   @SuppressWarnings("unchecked")
+   public YoVariableProducer(PeriodicThreadScheduler scheduler, LogSessionBroadcaster session, YoVariableHandShakeBuilder handshakeBuilder, LogModelProvider logModelProvider,
+         ConcurrentRingBuffer<FullStateBuffer> mainBuffer, Collection<ConcurrentRingBuffer<RegistryBuffer>> buffers, int keyframeInterval)
    {
       this.scheduler = scheduler;
       this.mainBuffer = mainBuffer;
@@ -60,6 +74,15 @@ public class YoVariableProducer implements Runnable
       compressedBackingArray = new byte[SnappyUtils.maxCompressedLength(bufferSize) + LogDataHeader.length()];
       compressedBuffer = ByteBuffer.wrap(compressedBackingArray);
       compressedBufferDirect = ByteBuffer.allocateDirect(compressedBuffer.capacity());
+      
+      if (keyframeInterval > 1)
+      {
+         deltaFrameEncoder = new DeltaFrameEncoder(bufferSize, keyframeInterval);
+      }
+      else
+      {
+         deltaFrameEncoder = null;
+      }
       this.session = session;
    }
 
@@ -81,6 +104,11 @@ public class YoVariableProducer implements Runnable
       }
    }
 
+   private boolean isDeltaEncoding()
+   {
+      return deltaFrameEncoder != null;
+   }
+
    public void start()
    {
       try
@@ -113,16 +141,30 @@ public class YoVariableProducer implements Runnable
             updateBuffers(fullStateBuffer.getTimestamp());
 
             byteWriteBuffer.clear();
+            
+            boolean keyframe = true;
+            ByteBuffer frame = byteWriteBuffer;
+            if (isDeltaEncoding())
+            {
+               // The write buffer is left untouched, because registry buffers that did not update this tick rely on the previous data in there.
+               frame = deltaFrameEncoder.encode(byteWriteBuffer, fullStateBuffer.getUid());
+               keyframe = deltaFrameEncoder.isKeyframe();
+            }
+            
             compressedBuffer.clear();
             compressedBuffer.position(LogDataHeader.length());
             try
             {
-               SnappyUtils.compress(byteWriteBuffer, compressedBuffer);
+               SnappyUtils.compress(frame, compressedBuffer);
                compressedBuffer.flip();
             }
             catch (IllegalArgumentException | IOException e)
             {
                e.printStackTrace();
+               if (isDeltaEncoding())
+               {
+                  deltaFrameEncoder.requestKeyframe();
+               }
                continue;
             }
 
@@ -133,11 +175,14 @@ public class YoVariableProducer implements Runnable
             logDataHeader.setTimestamp(fullStateBuffer.getTimestamp());
             logDataHeader.setDataSize(dataSize);
             logDataHeader.setCrc32((int) crc32.getValue());
+            logDataHeader.setDeltaFrame(!keyframe);
             logDataHeader.writeBuffer(0, compressedBuffer);
             compressedBufferDirect.clear();
             compressedBufferDirect.put(compressedBuffer);
             compressedBufferDirect.flip();
-            server.send(compressedBufferDirect);
+            
+            // Keyframes are needed to decode the following delta frames, so send them to clients that only receive every n-th tick as well
+            server.send(compressedBufferDirect, keyframe && isDeltaEncoding());
          }
          mainBuffer.flush();
       }
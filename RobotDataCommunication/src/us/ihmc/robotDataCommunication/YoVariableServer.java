@@ -64,6 +64,8 @@ public class YoVariableServer implements RobotVisualizer
    
    private long uid = 0; 
    
+   private int keyframeInterval = 0;
+   
    
    public YoVariableServer(Class<?> mainClazz, PeriodicThreadScheduler scheduler, LogModelProvider logModelProvider, LogSettings logSettings, double dt)
    {
@@ -89,7 +91,7 @@ public class YoVariableServer implements RobotVisualizer
       InetSocketAddress controlAddress = new InetSocketAddress(bindAddress, controlServer.getPort());
       sessionBroadcaster = new LogSessionBroadcaster(controlAddress, bindAddress, mainClazz, logSettings);
       producer = new YoVariableProducer(scheduler, sessionBroadcaster, handshakeBuilder, logModelProvider, mainBuffer,
-            buffers.values());
+            buffers.values(), keyframeInterval);
             
       sessionBroadcaster.requestPort();
       producer.start();
@@ -123,6 +125,23 @@ public class YoVariableServer implements RobotVisualizer
       return jointHolders;
    }
 
+   /**
+    * Enable XOR encoding of frames against a periodic full keyframe before compression. 
+    * 
+    * Most variables do not change between ticks, so encoded frames compress a lot better than full frames. 
+    * Clients that miss a keyframe skip frames till the next keyframe arrives. Has to be called before start().
+    * 
+    * @param keyframeInterval Send a full keyframe every keyframeInterval ticks. 0 or 1 disables delta encoding.
+    */
+   public synchronized void setKeyframeInterval(int keyframeInterval)
+   {
+      if(started)
+      {
+         throw new RuntimeException("Cannot change keyframe interval after the server is started");
+      }
+      this.keyframeInterval = keyframeInterval;
+   }
+
    public synchronized void close()
    {
       if(started)
@@ -1,191 +1,145 @@
 package us.ihmc.robotDataCommunication.compressor;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.tukaani.xz.LZMA2Options;
 import org.tukaani.xz.XZOutputStream;
 
 import us.ihmc.robotDataCommunication.logger.LogProperties;
 import us.ihmc.robotDataCommunication.logger.LogPropertiesReader;
-import us.ihmc.robotDataCommunication.logger.YoVariableLogReader;
 import us.ihmc.robotDataCommunication.logger.YoVariableLoggerListener;
-
-public class LogFileCompressor extends YoVariableLogReader
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline;
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline.BatchConsumer;
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline.BatchProcessor;
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline.ProgressListener;
+import us.ihmc.robotDataCommunication.logger.converters.LogFrameBatch;
+import us.ihmc.robotDataCommunication.logger.util.FileSelectionDialog;
+
+/**
+ * Recompresses the variable data of a log to XZ files, one file per block of entries, with the data of each block stored per variable.
+ */
+public class LogFileCompressor extends LogConversionPipeline
 {
-   public static final int NUMBER_OF_THREADS = 8;
    public static final int MAX_BUFFER_SIZE_IN_BYTE = 100000000;
+   public static final long MAX_MEMORY_IN_BYTE = 500000000L;
    public static final int COMPRESSION_LEVEL = 3;
 
-   public static final String out = "/home/jesper/scratch/";
-
-   private int bufferedElements;
-
-   private final ExecutorService threadPool = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
-   private final LinkedBlockingQueue<DataBuffer> availableBuffers = new LinkedBlockingQueue<>();
-   private final LinkedBlockingQueue<DataBuffer> writableBuffers = new LinkedBlockingQueue<>();
+   private final File outputDirectory;
 
-   public LogFileCompressor(File logDirectory, LogProperties logProperties) throws IOException
+   public LogFileCompressor(File logDirectory, LogProperties logProperties, File outputDirectory, int numberOfThreads) throws IOException
    {
-      super(logDirectory, logProperties);
-      initialize();
+      super(logDirectory, logProperties, numberOfThreads, 1);
+      this.outputDirectory = outputDirectory;
+   }
 
+   /**
+    * Size the batches after the log is opened, one output file per batch of at most MAX_BUFFER_SIZE_IN_BYTE. 
+    * The number of batches in flight is limited so all batches together stay under MAX_MEMORY_IN_BYTE.
+    */
+   private void setBatchSizeFromNumberOfVariables()
+   {
       int maxBufferedElements = MAX_BUFFER_SIZE_IN_BYTE / 8;
+      int batchSize = Math.max(1, Math.min(getNumberOfEntries(), maxBufferedElements / getNumberOfVariables()));
+      setBatchSize(batchSize);
 
-      bufferedElements = maxBufferedElements / getNumberOfVariables();
+      long batchSizeInBytes = (long) batchSize * getFrameSize();
+      int batchesInFlight = (int) Math.max(1, Math.min(getNumberOfThreads() + 2, MAX_MEMORY_IN_BYTE / batchSizeInBytes));
+      setMaximumBatchesInFlight(batchesInFlight);
+   }
+
+   public void compress() throws IOException
+   {
+      open();
+      setBatchSizeFromNumberOfVariables();
 
       System.out.println("Reading " + getNumberOfEntries() + " entries.");
       System.out.println("Found " + getNumberOfVariables() + " variables.");
-      System.out.println("Writing " + bufferedElements + " data points at a time");
-      System.out.println("Total space " + (getNumberOfEntries() * getNumberOfVariables() * 8) / (1024 * 1024) + " MB.");
+      System.out.println("Writing " + getBatchSize() + " data points at a time using " + getNumberOfThreads() + " threads and " + getMaximumBatchesInFlight()
+            + " buffers");
+      System.out.println("Total space " + ((long) getNumberOfEntries() * getNumberOfVariables() * 8) / (1024 * 1024) + " MB.");
 
-      if (bufferedElements > getNumberOfEntries())
+      if (!outputDirectory.exists() && !outputDirectory.mkdirs())
       {
-         System.out.println("Reading all elements into buffer");
-         bufferedElements = getNumberOfEntries();
+         throw new IOException("Cannot create " + outputDirectory);
       }
 
-      for (int i = 0; i < NUMBER_OF_THREADS; i++)
+      final int numberOfVariables = getNumberOfVariables();
+      run(new BatchProcessor<byte[]>()
       {
-         try
+         @Override
+         public byte[] process(LogFrameBatch batch) throws IOException
          {
-            availableBuffers.put(new DataBuffer(getNumberOfVariables(), bufferedElements * 8));
-         }
-         catch (InterruptedException e)
-         {
-            throw new RuntimeException(e);
-         }
-      }
-
-      decompressData();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            XZOutputStream xzOutputStream = new XZOutputStream(compressed, new LZMA2Options(COMPRESSION_LEVEL));
 
-      close();
-   }
-
-   private void decompressData() throws IOException
-   {
-
-      int currentFile = 0;
-      int currentFileEntry = 0;
-
-      DataBuffer buffer = getFreeDataBuffer(currentFile);
+            byte[] variableData = new byte[batch.getNumberOfFrames() * 8];
+            for (int e = 0; e < numberOfVariables; e++)
+            {
+               for (int i = 0; i < batch.getNumberOfFrames(); i++)
+               {
+                  long value = batch.getLong(i, e);
+                  for (int b = 0; b < 8; b++)
+                  {
+                     variableData[i * 8 + b] = (byte) (value >>> (56 - 8 * b));
+                  }
+               }
+               xzOutputStream.write(variableData);
+            }
+            xzOutputStream.close();
 
-      for (int i = 0; i < getNumberOfEntries(); i++)
+            return compressed.toByteArray();
+         }
+      }, new BatchConsumer<byte[]>()
       {
-         ByteBuffer dataLine = readData(i);
+         private int currentFile = 0;
 
-         for (int e = 0; e < getNumberOfVariables(); e++)
+         @Override
+         public void consume(LogFrameBatch batch, byte[] result) throws IOException
          {
-            buffer.data[e][currentFileEntry * 8] = dataLine.get();
-            buffer.data[e][currentFileEntry * 8 + 1] = dataLine.get();
-            buffer.data[e][currentFileEntry * 8 + 2] = dataLine.get();
-            buffer.data[e][currentFileEntry * 8 + 3] = dataLine.get();
-            buffer.data[e][currentFileEntry * 8 + 4] = dataLine.get();
-            buffer.data[e][currentFileEntry * 8 + 5] = dataLine.get();
-            buffer.data[e][currentFileEntry * 8 + 6] = dataLine.get();
-            buffer.data[e][currentFileEntry * 8 + 7] = dataLine.get();
-         }
+            FileOutputStream logOutputStream = new FileOutputStream(new File(outputDirectory, "robotData." + currentFile + ".xz"));
+            logOutputStream.write(result);
+            logOutputStream.close();
+            currentFile++;
 
-         currentFileEntry++;
-         if (currentFileEntry >= bufferedElements)
+            System.out.println("Wrote " + result.length / (1024 * 1024) + " MB");
+         }
+      }, new ProgressListener()
+      {
+         @Override
+         public void progress(int framesDone, int totalFrames)
          {
-            try
-            {
-               writableBuffers.put(buffer);
-               threadPool.execute(new DataWriter());
-            }
-            catch (InterruptedException e)
-            {
-               throw new RuntimeException(e);
-            }
-            buffer = getFreeDataBuffer(currentFile);
-            currentFileEntry = 0;
-            currentFile++;
+            System.out.println("Compressed " + framesDone + "/" + totalFrames + " entries");
          }
-      }
+      });
 
-      System.out.println("All data read");
-      threadPool.shutdown();
+      System.out.println("All data written");
 
-      copyMetaData(new File(out));
+      copyMetaData(outputDirectory);
+      close();
    }
 
-   private DataBuffer getFreeDataBuffer(int currentFile)
+   public static void main(String[] args) throws IOException
    {
-      try
+      File logDirectory;
+      if (args.length < 1)
       {
-         DataBuffer dataBuffers = availableBuffers.take();
-
-         dataBuffers.fileID = currentFile;
-         return dataBuffers;
+         logDirectory = FileSelectionDialog.loadDirectoryWithFileNamed(YoVariableLoggerListener.propertyFile);
       }
-      catch (InterruptedException e1)
+      else
       {
-         throw new RuntimeException(e1);
+         logDirectory = new File(args[0]);
       }
-   }
 
-   private class DataBuffer
-   {
-      private final byte[][] data;
-      private int fileID;
-
-      public DataBuffer(int variables, int elements)
-      {
-         data = new byte[variables][elements];
-      }
-   }
-
-   private class DataWriter implements Runnable
-   {
-
-      @Override
-      public void run()
-      {
-         try
-         {
-            DataBuffer buffer = writableBuffers.take();
-            int currentFile = buffer.fileID;
-            byte[][] dataBuffers = buffer.data;
-
-            FileOutputStream logOutputStream = new FileOutputStream(new File(out + "robotData." + currentFile + ".xz"));
-            XZOutputStream xzOutputStream = new XZOutputStream(logOutputStream, new LZMA2Options(COMPRESSION_LEVEL));
-            int writtenLength = 0;
-            for (int i = 0; i < getNumberOfVariables(); i++)
-            {
-               writtenLength += dataBuffers[i].length;
-               xzOutputStream.write(dataBuffers[i]);
-            }
-
-            System.out.println("Wrote " + writtenLength / (1024 * 1024) + " MB");
-
-            xzOutputStream.close();
-            logOutputStream.close();
-            availableBuffers.put(buffer);
-         }
-         catch (IOException | InterruptedException e)
-         {
-            e.printStackTrace();
-         }
-
-      }
-
-   }
-
-   public static void main(String[] args) throws IOException
-   {
-      //      File logDirectory = FileSelectionDialog.loadDirectoryWithFileNamed(YoVariableLoggerListener.propertyFile);
-      File logDirectory = new File("/home/jesper/robotLogs/20160520_130501_Atlas_WalkOnStraightLinesFallStanding_Step/");
       if (logDirectory != null)
       {
-         LogPropertiesReader logProperties = new LogPropertiesReader(new File(logDirectory, YoVariableLoggerListener.propertyFile));
+         File outputDirectory = args.length < 2 ? new File(logDirectory, "xz") : new File(args[1]);
+         int numberOfThreads = args.length < 3 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[2]);
 
-         new LogFileCompressor(logDirectory, logProperties);
+         LogPropertiesReader logProperties = new LogPropertiesReader(new File(logDirectory, YoVariableLoggerListener.propertyFile));
+         new LogFileCompressor(logDirectory, logProperties, outputDirectory, numberOfThreads).compress();
       }
    }
 }
@@ -205,4 +205,35 @@ public abstract class LogProperties extends Properties
    {
       setProperty("variables.timestamped", String.valueOf(timestamped));
    }
+   
+   public void setColumnarDataFile(String filename)
+   {
+      setProperty("variables.columnar.data", filename);
+   }
+   
+   public String getColumnarDataFile()
+   {
+      return getProperty("variables.columnar.data");
+   }
+   
+   public void setColumnarIndexFile(String filename)
+   {
+      setProperty("variables.columnar.index", filename);
+   }
+   
+   public String getColumnarIndexFile()
+   {
+      return getProperty("variables.columnar.index");
+   }
+   
+   public boolean hasColumnarData()
+   {
+      return getColumnarDataFile() != null && getColumnarIndexFile() != null;
+   }
+   
+   public void clearColumnarData()
+   {
+      remove("variables.columnar.data");
+      remove("variables.columnar.index");
+   }
 }
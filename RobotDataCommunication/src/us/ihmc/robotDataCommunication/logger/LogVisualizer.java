@@ -32,6 +32,7 @@ import us.ihmc.simulationconstructionset.yoUtilities.graphics.YoGraphicsListRegi
 public class LogVisualizer
 {
    private static final boolean PRINT_OUT_YOVARIABLE_NAMES = false;
+   private static final boolean MEMORY_MAP_LOG_DATA = true;
 
    private final SimulationConstructionSet scs;
    private YoVariableLogPlaybackRobot robot;
@@ -131,7 +132,8 @@ public class LogVisualizer
       }
 
 
-      robot = new YoVariableLogPlaybackRobot(selectedFile, generalizedSDFRobotModel, parser.getJointStates(), parser.getYoVariablesList(), logProperties ,scs);
+      robot = new YoVariableLogPlaybackRobot(selectedFile, generalizedSDFRobotModel, parser.getJointStates(), parser.getYoVariablesList(), logProperties, scs,
+            MEMORY_MAP_LOG_DATA);
       scs.setTimeVariableName(robot.getRobotsYoVariableRegistry().getName() + ".robotTime");
 
       double dt = parser.getDt();
@@ -0,0 +1,218 @@
+package us.ihmc.robotDataCommunication.logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import us.ihmc.robotDataCommunication.LogIndex;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Random access to the compressed variable data of a log through memory mapped segments of the data file.
+ *
+ * Files larger than 2GB are mapped in segments. Each segment overlaps the next one by the largest compressed frame,
+ * so every frame is contained in the segment its start offset falls in.
+ *
+ * Decompressed frames are kept in a bounded LRU cache, so scrubbing back and forth does not decompress the same frames again.
+ * The cache is sized by memory, not by number of frames, see {@link #getFrameCacheSize(int)}.
+ *
+ * One instance can be shared between the playback robot and the log converters, so the file is mapped and cached only once.
+ * All methods are thread safe. After close() is called, reading throws an IOException.
+ *
+ * The mapped segments are never unmapped explicitly. Unmapping while another user still holds a view on a segment crashes the
+ * JVM, so close() only drops the references and the garbage collector releases the mappings, like the mapping of the LogIndex.
+ */
+public class MemoryMappedLogData
+{
+   public static final long FRAME_CACHE_SIZE_IN_BYTES = 64L * 1024L * 1024L;
+   public static final int MINIMUM_FRAME_CACHE_SIZE = 16;
+   public static final int MAXIMUM_FRAME_CACHE_SIZE = 1024;
+   private static final long SEGMENT_SIZE = 1L << 30;
+
+   private final FileInputStream dataStream;
+   private final FileChannel dataChannel;
+   private final LogIndex logIndex;
+   private final int frameSize;
+
+   private final MappedByteBuffer[] segments;
+
+   private final ArrayList<ByteBuffer> freeFrames = new ArrayList<>();
+   private final LinkedHashMap<Integer, ByteBuffer> frameCache;
+
+   private boolean closed = false;
+
+   /**
+    * Memory map the data file with a frame cache of {@link #getFrameCacheSize(int)} frames.
+    */
+   public MemoryMappedLogData(File dataFile, LogIndex logIndex, int frameSize) throws IOException
+   {
+      this(dataFile, logIndex, frameSize, getFrameCacheSize(frameSize));
+   }
+
+   /**
+    * @param dataFile Compressed variable data
+    * @param logIndex Index for the data file
+    * @param frameSize Size of a decompressed frame in bytes
+    * @param frameCacheSize Maximum number of decompressed frames to keep
+    */
+   @SuppressWarnings("serial")
+   public MemoryMappedLogData(File dataFile, LogIndex logIndex, int frameSize, final int frameCacheSize) throws IOException
+   {
+      this.logIndex = logIndex;
+      this.frameSize = frameSize;
+
+      dataStream = new FileInputStream(dataFile);
+      dataChannel = dataStream.getChannel();
+
+      long size = dataChannel.size();
+      long overlap = logIndex.getMaximumCompressedSize();
+      int numberOfSegments = (int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+
+      segments = new MappedByteBuffer[numberOfSegments];
+      for (int i = 0; i < numberOfSegments; i++)
+      {
+         long start = i * SEGMENT_SIZE;
+         long length = Math.min(size - start, SEGMENT_SIZE + overlap);
+         segments[i] = dataChannel.map(MapMode.READ_ONLY, start, length);
+      }
+
+      frameCache = new LinkedHashMap<Integer, ByteBuffer>(frameCacheSize, 0.75f, true)
+      {
+         @Override
+         protected boolean removeEldestEntry(Entry<Integer, ByteBuffer> eldest)
+         {
+            if (size() > frameCacheSize)
+            {
+               freeFrames.add(eldest.getValue());
+               return true;
+            }
+            return false;
+         }
+      };
+   }
+
+   /**
+    * Number of decompressed frames that fit in {@link #FRAME_CACHE_SIZE_IN_BYTES}, so logs with many variables do not
+    * exhaust direct memory.
+    *
+    * @param frameSize Size of a decompressed frame in bytes, 8 bytes per variable
+    */
+   public static int getFrameCacheSize(int frameSize)
+   {
+      long frames = FRAME_CACHE_SIZE_IN_BYTES / Math.max(frameSize, 1);
+      return (int) Math.max(MINIMUM_FRAME_CACHE_SIZE, Math.min(MAXIMUM_FRAME_CACHE_SIZE, frames));
+   }
+
+   public int getNumberOfEntries()
+   {
+      return logIndex.getNumberOfEntries();
+   }
+
+   public int getFrameSize()
+   {
+      return frameSize;
+   }
+
+   /**
+    * Get the compressed data of a frame, without copying it out of the mapped file.
+    *
+    * @return view on the mapped data. It keeps its segment mapped, also after close().
+    */
+   public synchronized ByteBuffer getCompressedFrame(int position) throws IOException
+   {
+      checkOpen();
+      long offset = logIndex.dataOffsets[position];
+      int segment = (int) (offset / SEGMENT_SIZE);
+      int start = (int) (offset - segment * SEGMENT_SIZE);
+
+      ByteBuffer view = segments[segment].duplicate();
+      view.limit(start + logIndex.compressedSizes[position]);
+      view.position(start);
+      return view;
+   }
+
+   /**
+    * Copy the decompressed frame at position to destination.
+    *
+    * The frame is written at the start of destination, after this call position is 0 and limit is the frame size.
+    */
+   public synchronized void readFrame(int position, ByteBuffer destination) throws IOException
+   {
+      checkOpen();
+      ByteBuffer frame = getFrame(position);
+      destination.clear();
+      destination.put(frame);
+      destination.flip();
+   }
+
+   private ByteBuffer getFrame(int position) throws IOException
+   {
+      ByteBuffer frame = frameCache.get(position);
+      if (frame == null)
+      {
+         if (freeFrames.isEmpty())
+         {
+            frame = ByteBuffer.allocateDirect(frameSize);
+         }
+         else
+         {
+            frame = freeFrames.remove(freeFrames.size() - 1);
+         }
+
+         frame.clear();
+         SnappyUtils.uncompress(getCompressedFrame(position), frame);
+         frame.flip();
+         frameCache.put(position, frame);
+      }
+
+      frame.rewind();
+      return frame;
+   }
+
+   private void checkOpen() throws IOException
+   {
+      if (closed)
+      {
+         throw new IOException("Memory mapped log data is closed");
+      }
+   }
+
+   /**
+    * Stop reading from the log and drop the mapped segments and the cached frames, so the garbage collector can release them.
+    * Views returned by {@link #getCompressedFrame(int)} keep their segment alive and stay valid.
+    */
+   public synchronized void close()
+   {
+      if (closed)
+      {
+         return;
+      }
+      closed = true;
+
+      frameCache.clear();
+      freeFrames.clear();
+
+      for (int i = 0; i < segments.length; i++)
+      {
+         segments[i] = null;
+      }
+
+      try
+      {
+         // Closing the channel does not invalidate the mappings
+         dataChannel.close();
+         dataStream.close();
+      }
+      catch (IOException e)
+      {
+         // Nothing to do here
+      }
+   }
+}
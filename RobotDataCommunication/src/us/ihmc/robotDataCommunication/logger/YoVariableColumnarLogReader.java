@@ -0,0 +1,214 @@
+package us.ihmc.robotDataCommunication.logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Reader for the columnar variable data layout written by ColumnarLogConverter.
+ *
+ * The data file stores chunks of chunkSize ticks per column. Column 0 is the timestamp, column 1 + n is the n-th variable,
+ * followed by the joint states, the same order as a row in the row based data file. Each chunk is XOR encoded against
+ * the previous value in the column and Snappy compressed.
+ *
+ * The index file starts with a header followed by (offset, compressed size) entries ordered by column, then by chunk,
+ * so all entries for a column can be read at once.
+ */
+public class YoVariableColumnarLogReader
+{
+   public static final int MAGIC = 0x59434F4C; // "YCOL"
+   public static final int VERSION = 1;
+   public static final int HEADER_LENGTH = 5 * 4;
+   public static final int INDEX_ENTRY_LENGTH = 8 + 4;
+
+   private final FileInputStream dataStream;
+   private final FileChannel dataChannel;
+   private final FileInputStream indexStream;
+   private final FileChannel indexChannel;
+
+   private final int numberOfColumns;
+   private final int chunkSize;
+   private final int numberOfTicks;
+   private final int numberOfChunks;
+
+   private final ByteBuffer compressedChunk;
+   private final ByteBuffer uncompressedChunk;
+
+   public YoVariableColumnarLogReader(File logDirectory, LogProperties logProperties) throws IOException
+   {
+      if (!logProperties.hasColumnarData())
+      {
+         throw new RuntimeException("Log " + logDirectory + " does not have columnar variable data");
+      }
+
+      File data = new File(logDirectory, logProperties.getColumnarDataFile());
+      if (!data.exists())
+      {
+         throw new RuntimeException("Cannot find " + logProperties.getColumnarDataFile());
+      }
+      File index = new File(logDirectory, logProperties.getColumnarIndexFile());
+      if (!index.exists())
+      {
+         throw new RuntimeException("Cannot find " + logProperties.getColumnarIndexFile());
+      }
+
+      dataStream = new FileInputStream(data);
+      dataChannel = dataStream.getChannel();
+      indexStream = new FileInputStream(index);
+      indexChannel = indexStream.getChannel();
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      readFully(indexChannel, header, 0);
+      header.flip();
+      if (header.getInt() != MAGIC)
+      {
+         close();
+         throw new IOException(index + " is not a columnar log index");
+      }
+      int version = header.getInt();
+      if (version != VERSION)
+      {
+         close();
+         throw new IOException("Unsupported columnar log version " + version);
+      }
+      numberOfColumns = header.getInt();
+      chunkSize = header.getInt();
+      numberOfTicks = header.getInt();
+      numberOfChunks = getNumberOfChunks(numberOfTicks, chunkSize);
+
+      compressedChunk = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(chunkSize * 8));
+      uncompressedChunk = ByteBuffer.allocate(chunkSize * 8);
+   }
+
+   public static int getNumberOfChunks(int numberOfTicks, int chunkSize)
+   {
+      return (numberOfTicks + chunkSize - 1) / chunkSize;
+   }
+
+   public static long getIndexEntryPosition(int column, int chunk, int numberOfChunks)
+   {
+      return HEADER_LENGTH + ((long) column * numberOfChunks + chunk) * INDEX_ENTRY_LENGTH;
+   }
+
+   public int getNumberOfColumns()
+   {
+      return numberOfColumns;
+   }
+
+   public int getNumberOfTicks()
+   {
+      return numberOfTicks;
+   }
+
+   public int getChunkSize()
+   {
+      return chunkSize;
+   }
+
+   /**
+    * @return timestamps for ticks [startTick, endTick]
+    */
+   public long[] readTimestamps(int startTick, int endTick) throws IOException
+   {
+      return readColumn(0, startTick, endTick);
+   }
+
+   /**
+    * Read the raw long bits of a variable
+    *
+    * @param variableOffset Offset of the variable in the handshake variable list
+    * @return data for ticks [startTick, endTick]
+    */
+   public long[] readVariable(int variableOffset, int startTick, int endTick) throws IOException
+   {
+      return readColumn(variableOffset + 1, startTick, endTick);
+   }
+
+   /**
+    * Read a column of the log. Only the chunks covering [startTick, endTick] are read from disk.
+    *
+    * @param column Column in the log line, 0 is the timestamp
+    * @return data for ticks [startTick, endTick]
+    */
+   public synchronized long[] readColumn(int column, int startTick, int endTick) throws IOException
+   {
+      if (column < 0 || column >= numberOfColumns)
+      {
+         throw new IndexOutOfBoundsException("Column " + column + " is out of bounds [0, " + numberOfColumns + ")");
+      }
+      if (startTick < 0 || endTick >= numberOfTicks || startTick > endTick)
+      {
+         throw new IndexOutOfBoundsException("Invalid tick range [" + startTick + ", " + endTick + "] for log with " + numberOfTicks + " ticks");
+      }
+
+      int firstChunk = startTick / chunkSize;
+      int lastChunk = endTick / chunkSize;
+
+      ByteBuffer indexEntries = ByteBuffer.allocate((lastChunk - firstChunk + 1) * INDEX_ENTRY_LENGTH);
+      readFully(indexChannel, indexEntries, getIndexEntryPosition(column, firstChunk, numberOfChunks));
+      indexEntries.flip();
+
+      long[] result = new long[endTick - startTick + 1];
+      for (int chunk = firstChunk; chunk <= lastChunk; chunk++)
+      {
+         long offset = indexEntries.getLong();
+         int compressedSize = indexEntries.getInt();
+
+         compressedChunk.clear();
+         compressedChunk.limit(compressedSize);
+         readFully(dataChannel, compressedChunk, offset);
+         compressedChunk.flip();
+
+         uncompressedChunk.clear();
+         SnappyUtils.uncompress(compressedChunk, uncompressedChunk);
+         uncompressedChunk.flip();
+
+         int chunkStart = chunk * chunkSize;
+         int ticksInChunk = uncompressedChunk.remaining() / 8;
+         long value = 0;
+         for (int i = 0; i < ticksInChunk; i++)
+         {
+            value ^= uncompressedChunk.getLong(i * 8);
+            int tick = chunkStart + i;
+            if (tick >= startTick && tick <= endTick)
+            {
+               result[tick - startTick] = value;
+            }
+         }
+      }
+
+      return result;
+   }
+
+   private static void readFully(FileChannel channel, ByteBuffer destination, long position) throws IOException
+   {
+      while (destination.hasRemaining())
+      {
+         int read = channel.read(destination, position);
+         if (read == -1)
+         {
+            throw new IOException("Unexpected end of file");
+         }
+         position += read;
+      }
+   }
+
+   public void close()
+   {
+      try
+      {
+         dataChannel.close();
+         dataStream.close();
+         indexChannel.close();
+         indexStream.close();
+      }
+      catch (IOException e)
+      {
+         // Nothing to do here
+      }
+   }
+}
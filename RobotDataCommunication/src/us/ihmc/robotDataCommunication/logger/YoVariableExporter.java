@@ -2,8 +2,6 @@ package us.ihmc.robotDataCommunication.logger;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,6 +12,8 @@ import com.jmatio.types.MLInt32;
 import com.jmatio.types.MLInt64;
 import com.jmatio.types.MLNumericArray;
 
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline;
+import us.ihmc.robotDataCommunication.logger.converters.LogFrameBatch;
 import us.ihmc.robotDataCommunication.logger.util.CustomProgressMonitor;
 import us.ihmc.robotics.dataStructures.variable.BooleanYoVariable;
 import us.ihmc.robotics.dataStructures.variable.DoubleYoVariable;
@@ -27,14 +27,16 @@ import us.ihmc.simulationconstructionset.dataBuffer.DataEntry;
 import us.ihmc.simulationconstructionset.gui.StandardSimulationGUI;
 import us.ihmc.simulationconstructionset.gui.YoGraph;
 
-public class YoVariableExporter extends YoVariableLogReader
+public class YoVariableExporter extends LogConversionPipeline
 {
+   private final File logDirectory;
    private final StandardSimulationGUI gui;
    private final List<YoVariable<?>> variables;
 
    public YoVariableExporter(SimulationConstructionSet scs, File logDirectory, LogProperties logProperties, List<YoVariable<?>> variables)
    {
       super(logDirectory, logProperties);
+      this.logDirectory = logDirectory;
       this.gui = scs.getGUI();
       this.variables = variables;
    }
@@ -77,35 +79,13 @@ public class YoVariableExporter extends YoVariableLogReader
             }
          }
          
-         int step = elements / 90;
-         
-         long firstTimestamp = -1;
-         for (int i = startPosition; i <= endPosition; i++)
+         if (logProperties.hasColumnarData())
          {
-            if((i - startPosition) % step == 0) 
-            {
-               monitor.setProgress((i - startPosition) / step);
-            }
-            
-            ByteBuffer data = readData(i);
-            LongBuffer dataAsLong = data.asLongBuffer();
-
-            
-            long entryTimestamp = dataAsLong.get();
-            
-            if(firstTimestamp == -1)
-            {
-               firstTimestamp = entryTimestamp;
-            }
-            
-            timestamp.setReal(entryTimestamp, i - startPosition);
-            robotTime.setReal(TimeTools.nanoSecondstoSeconds(entryTimestamp - firstTimestamp), i - startPosition);
-            
-            for (int dh = 0; dh < dataHolders.size(); dh++)
-            {
-               DataHolder<?> dataHolder = dataHolders.get(dh);
-               dataHolder.addEntry(dataAsLong);
-            }
+            readColumns(monitor, startPosition, endPosition, timestamp, robotTime, dataHolders);
+         }
+         else
+         {
+            readRows(monitor, startPosition, endPosition, timestamp, robotTime, dataHolders);
          }
          
          monitor.setNote("Writing data to disk");
@@ -129,6 +109,92 @@ public class YoVariableExporter extends YoVariableLogReader
       }
    }
 
+   /**
+    * Decompresses the rows in parallel and copies the exported variables in log order
+    */
+   private void readRows(final CustomProgressMonitor monitor, final int startPosition, int endPosition, final MLInt64 timestamp, final MLDouble robotTime,
+         final ArrayList<DataHolder<?>> dataHolders) throws IOException
+   {
+      run(startPosition, endPosition, new BatchProcessor<long[][]>()
+      {
+         @Override
+         public long[][] process(LogFrameBatch batch)
+         {
+            long[][] values = new long[dataHolders.size()][batch.getNumberOfFrames()];
+            for (int dh = 0; dh < dataHolders.size(); dh++)
+            {
+               int offset = dataHolders.get(dh).getOffset();
+               for (int i = 0; i < batch.getNumberOfFrames(); i++)
+               {
+                  values[dh][i] = batch.getLong(i, offset);
+               }
+            }
+            return values;
+         }
+      }, new BatchConsumer<long[][]>()
+      {
+         private long firstTimestamp = -1;
+
+         @Override
+         public void consume(LogFrameBatch batch, long[][] values)
+         {
+            for (int i = 0; i < batch.getNumberOfFrames(); i++)
+            {
+               long entryTimestamp = batch.getTimestamp(i);
+               if (firstTimestamp == -1)
+               {
+                  firstTimestamp = entryTimestamp;
+               }
+
+               int index = batch.getFirstPosition() + i - startPosition;
+               timestamp.setReal(entryTimestamp, index);
+               robotTime.setReal(TimeTools.nanoSecondstoSeconds(entryTimestamp - firstTimestamp), index);
+            }
+
+            for (int dh = 0; dh < dataHolders.size(); dh++)
+            {
+               dataHolders.get(dh).addEntries(values[dh]);
+            }
+         }
+      }, new ProgressListener()
+      {
+         @Override
+         public void progress(int framesDone, int totalFrames)
+         {
+            monitor.setProgress((int) ((90L * framesDone) / totalFrames));
+         }
+      });
+   }
+
+   /**
+    * Only reads the columns of the exported variables from the columnar data
+    */
+   private void readColumns(CustomProgressMonitor monitor, int startPosition, int endPosition, MLInt64 timestamp, MLDouble robotTime,
+         ArrayList<DataHolder<?>> dataHolders) throws IOException
+   {
+      YoVariableColumnarLogReader columnarReader = new YoVariableColumnarLogReader(logDirectory, logProperties);
+      try
+      {
+         long[] timestamps = columnarReader.readTimestamps(startPosition, endPosition);
+         for (int i = 0; i < timestamps.length; i++)
+         {
+            timestamp.setReal(timestamps[i], i);
+            robotTime.setReal(TimeTools.nanoSecondstoSeconds(timestamps[i] - timestamps[0]), i);
+         }
+
+         for (int dh = 0; dh < dataHolders.size(); dh++)
+         {
+            monitor.setProgress((dh * 90) / dataHolders.size());
+            DataHolder<?> dataHolder = dataHolders.get(dh);
+            dataHolder.addEntries(columnarReader.readColumn(dataHolder.getOffset(), startPosition, endPosition));
+         }
+      }
+      finally
+      {
+         columnarReader.close();
+      }
+   }
+
    private DataHolder<?> createDataHolder(int offset, int elements, YoVariable<?> variable)
    {
       int[] dims = { elements, 1 };
@@ -217,11 +283,18 @@ public class YoVariableExporter extends YoVariableLogReader
          this.offset = offset;
       }
 
-      public void addEntry(LongBuffer dataAsLong)
+      public void addEntries(long[] entriesAsLong)
+      {
+         for (int i = 0; i < entriesAsLong.length; i++)
+         {
+            set(entriesAsLong[i]);
+            index++;
+         }
+      }
+
+      public int getOffset()
       {
-         long entryAsLong = dataAsLong.get(offset);
-         set(entryAsLong);
-         index++;
+         return offset;
       }
 
       public abstract void set(long entryAsLong);
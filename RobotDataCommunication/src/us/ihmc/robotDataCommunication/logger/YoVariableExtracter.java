@@ -29,6 +29,10 @@ import javax.swing.text.BadLocationException;
 
 import us.ihmc.robotDataCommunication.YoVariableHandshakeParser;
 import us.ihmc.robotDataCommunication.jointState.JointState;
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline;
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline.BatchConsumer;
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline.BatchProcessor;
+import us.ihmc.robotDataCommunication.logger.converters.LogFrameBatch;
 import us.ihmc.robotDataCommunication.logger.util.FileSelectionDialog;
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
 import us.ihmc.robotics.dataStructures.variable.YoVariable;
@@ -52,6 +56,19 @@ public class YoVariableExtracter
       YoVariableHandshakeParser parser = new YoVariableHandshakeParser("logged", true);
       parser.parseFrom(handshakeData);
       YoVariableRegistry registry = parser.getRootRegistry();
+      List<YoVariable<?>> variables = parser.getYoVariablesList();
+
+      if (logProperties.hasColumnarData())
+      {
+         new YoVariableDialog(new YoVariableColumnarLogReader(logFile, logProperties), variables, registry);
+         return;
+      }
+
+      if (logProperties.getCompressed())
+      {
+         new YoVariableDialog(new LogConversionPipeline(logFile, logProperties), variables, registry);
+         return;
+      }
 
       File logdata = new File(logFile, logProperties.getVariableDataFile());
       if(!logdata.exists())
@@ -61,7 +78,6 @@ public class YoVariableExtracter
       @SuppressWarnings("resource")
       final FileChannel logChannel = new FileInputStream(logdata).getChannel();
 
-      List<YoVariable<?>> variables = parser.getYoVariablesList();
       int jointStateOffset = variables.size();
       int numberOfJointStates = JointState.getNumberOfJointStates(parser.getJointStates());
       int bufferSize = (1 + jointStateOffset + numberOfJointStates) * 8;
@@ -69,6 +85,85 @@ public class YoVariableExtracter
       new YoVariableDialog(bufferSize, logChannel, variables, registry);
    }
 
+   /**
+    * Extract variables from a compressed log as a Matlab script. The frames are decompressed in parallel by the pipeline,
+    * the values are formatted in log order.
+    *
+    * @param variables All variables in the log, in log order
+    * @param selectedVariables Variables to extract
+    * @return Matlab script defining t and a vector for each selected variable
+    */
+   public static String extractVariables(LogConversionPipeline reader, List<YoVariable<?>> variables, final List<YoVariable<?>> selectedVariables)
+         throws IOException
+   {
+      final int[] offsets = new int[selectedVariables.size()];
+      final StringBuffer result[] = new StringBuffer[selectedVariables.size()];
+      for (int i = 0; i < selectedVariables.size(); i++)
+      {
+         YoVariable<?> variable = selectedVariables.get(i);
+         result[i] = new StringBuffer();
+         result[i].append(variable.getName());
+         result[i].append(" = [");
+         offsets[i] = 1 + variables.indexOf(variable);
+      }
+      final StringBuffer t = new StringBuffer();
+      t.append("t = [");
+
+      reader.run(new BatchProcessor<long[][]>()
+      {
+         @Override
+         public long[][] process(LogFrameBatch batch)
+         {
+            long[][] values = new long[offsets.length][batch.getNumberOfFrames()];
+            for (int v = 0; v < offsets.length; v++)
+            {
+               for (int i = 0; i < batch.getNumberOfFrames(); i++)
+               {
+                  values[v][i] = batch.getLong(i, offsets[v]);
+               }
+            }
+            return values;
+         }
+      }, new BatchConsumer<long[][]>()
+      {
+         @Override
+         public void consume(LogFrameBatch batch, long[][] values)
+         {
+            for (int i = 0; i < batch.getNumberOfFrames(); i++)
+            {
+               t.append(batch.getLong(i, 0));
+               t.append(",");
+            }
+
+            // YoVariables are not thread safe, format the values on the consumer thread
+            for (int v = 0; v < offsets.length; v++)
+            {
+               YoVariable<?> variable = selectedVariables.get(v);
+               for (int i = 0; i < values[v].length; i++)
+               {
+                  variable.setValueFromLongBits(values[v][i], false);
+                  variable.getValueString(result[v]);
+                  result[v].append(",");
+               }
+            }
+         }
+      }, null);
+
+      StringBuffer combine = new StringBuffer();
+      t.deleteCharAt(t.length() - 1);
+      t.append("];");
+      t.append(System.lineSeparator());
+      combine.append(t);
+      for (int i = 0; i < selectedVariables.size(); i++)
+      {
+         result[i].deleteCharAt(result[i].length() - 1);
+         result[i].append("];");
+         result[i].append(System.lineSeparator());
+         combine.append(result[i]);
+      }
+      return combine.toString();
+   }
+
    public static void main(String[] args) throws IOException
    {
             File file = FileSelectionDialog.loadDirectoryWithFileNamed("robotData.log");
@@ -89,11 +184,35 @@ public class YoVariableExtracter
       private final List<YoVariable<?>> variables;
       
       private final FileChannel logChannel;
+      private final YoVariableColumnarLogReader columnarReader;
+      private final LogConversionPipeline pipeline;
       private final int bufferSize;
       private final ByteBuffer logLine;
       private final LongBuffer logLongArray;
 
       public YoVariableDialog(int bufferSize, FileChannel logChannel, List<YoVariable<?>> variables, YoVariableRegistry registry)
+      {
+         this(bufferSize, logChannel, null, null, variables, registry);
+      }
+
+      /**
+       * Extract variables from compressed data, decompressing the frames in parallel
+       */
+      public YoVariableDialog(LogConversionPipeline pipeline, List<YoVariable<?>> variables, YoVariableRegistry registry)
+      {
+         this(0, null, null, pipeline, variables, registry);
+      }
+
+      /**
+       * Extract variables from the columnar data, only reading the columns of the selected variables
+       */
+      public YoVariableDialog(YoVariableColumnarLogReader columnarReader, List<YoVariable<?>> variables, YoVariableRegistry registry)
+      {
+         this(0, null, columnarReader, null, variables, registry);
+      }
+
+      private YoVariableDialog(int bufferSize, FileChannel logChannel, YoVariableColumnarLogReader columnarReader, LogConversionPipeline pipeline,
+            List<YoVariable<?>> variables, YoVariableRegistry registry)
       {
          super();
          setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -104,6 +223,8 @@ public class YoVariableExtracter
          this.bufferSize = bufferSize;
          this.registry = registry;
          this.logChannel = logChannel;
+         this.columnarReader = columnarReader;
+         this.pipeline = pipeline;
          this.variables = variables;
          
          searchField = new JTextField();
@@ -175,7 +296,79 @@ public class YoVariableExtracter
       {
          List<YoVariable<?>> results = result.getSelectedValuesList();
          
-         printVariable(results);
+         if (columnarReader != null)
+         {
+            printVariableFromColumns(results);
+         }
+         else if (pipeline != null)
+         {
+            printVariableFromPipeline(results);
+         }
+         else
+         {
+            printVariable(results);
+         }
+      }
+
+      private void printVariableFromColumns(List<YoVariable<?>> variables)
+      {
+         StringBuffer combine = new StringBuffer();
+         try
+         {
+            int endTick = columnarReader.getNumberOfTicks() - 1;
+            
+            long[] timestamps = columnarReader.readTimestamps(0, endTick);
+            combine.append("t = [");
+            for (int tick = 0; tick < timestamps.length; tick++)
+            {
+               combine.append(timestamps[tick]);
+               combine.append(",");
+            }
+            combine.deleteCharAt(combine.length() - 1);
+            combine.append("];");
+            combine.append(System.lineSeparator());
+
+            for (int i = 0; i < variables.size(); i++)
+            {
+               YoVariable<?> variable = variables.get(i);
+               long[] data = columnarReader.readVariable(this.variables.indexOf(variable), 0, endTick);
+               
+               combine.append(variable.getName());
+               combine.append(" = [");
+               for (int tick = 0; tick < data.length; tick++)
+               {
+                  variable.setValueFromLongBits(data[tick], false);
+                  variable.getValueString(combine);
+                  combine.append(",");
+               }
+               combine.deleteCharAt(combine.length() - 1);
+               combine.append("];");
+               combine.append(System.lineSeparator());
+            }
+            
+            Path path = Paths.get(variables.get(0).getName() + ".m");
+            Files.write(path, combine.toString().getBytes());
+            System.out.println("Wrote " + variables.get(0) + " to " + path);
+         }
+         catch (IOException e)
+         {
+            throw new RuntimeException(e);
+         }
+      }
+
+      private void printVariableFromPipeline(List<YoVariable<?>> variables)
+      {
+         try
+         {
+            String combine = extractVariables(pipeline, this.variables, variables);
+            Path path = Paths.get(variables.get(0).getName() + ".m");
+            Files.write(path, combine.getBytes());
+            System.out.println("Wrote " + variables.get(0) + " to " + path);
+         }
+         catch (IOException e)
+         {
+            throw new RuntimeException(e);
+         }
       }
 
       private void printVariable(List<YoVariable<?>> variables)
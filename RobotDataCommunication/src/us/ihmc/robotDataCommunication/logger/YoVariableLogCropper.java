@@ -6,9 +6,11 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline;
+import us.ihmc.robotDataCommunication.logger.converters.LogFrameBatch;
 import us.ihmc.robotDataCommunication.logger.util.CustomProgressMonitor;
 
-public class YoVariableLogCropper extends YoVariableLogReader
+public class YoVariableLogCropper extends LogConversionPipeline
 {
    private final MultiVideoDataPlayer player;
 
@@ -20,12 +22,15 @@ public class YoVariableLogCropper extends YoVariableLogReader
       super(logDirectory, logProperties);
       this.player = player;
       
+      // Cropping copies the compressed frames as is
+      setDecompress(false);
+      
       
    }
 
    public synchronized void crop(File destination, long inStamp, long outStamp)
    {
-      CustomProgressMonitor monitor = new CustomProgressMonitor("Cropping data file", "Initializing cropper", 0, 100);
+      final CustomProgressMonitor monitor = new CustomProgressMonitor("Cropping data file", "Initializing cropper", 0, 100);
 
       if (!initialize())
       {
@@ -67,31 +72,54 @@ public class YoVariableLogCropper extends YoVariableLogReader
 
          File outputFile = new File(destination, logProperties.getVariableDataFile());
          FileOutputStream fileOutputStream = new FileOutputStream(outputFile);
-         FileChannel outputChannel = fileOutputStream.getChannel();
+         final FileChannel outputChannel = fileOutputStream.getChannel();
 
          File indexFile = new File(destination, logProperties.getVariablesIndexFile());
          FileOutputStream indexStream = new FileOutputStream(indexFile);
-         FileChannel indexChannel = indexStream.getChannel();
+         final FileChannel indexChannel = indexStream.getChannel();
 
          int startPosition = getPosition(inStamp);
          int endPosition = getPosition(outStamp);
 
          monitor.setNote("Writing variable data");
 
-         ByteBuffer indexBuffer = ByteBuffer.allocateDirect(16);
-         for (int i = startPosition; i <= endPosition; i++)
+         final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(16);
+         run(startPosition, endPosition, new BatchProcessor<Void>()
          {
-            
-            ByteBuffer compressedData = readCompressedData(i);
-
-            indexBuffer.clear();
-            indexBuffer.putLong(getTimestamp(i));
-            indexBuffer.putLong(outputChannel.position());
-            indexBuffer.flip();
-            indexChannel.write(indexBuffer);
-
-            outputChannel.write(compressedData);
-         }
+            @Override
+            public Void process(LogFrameBatch batch)
+            {
+               return null;
+            }
+         }, new BatchConsumer<Void>()
+         {
+            @Override
+            public void consume(LogFrameBatch batch, Void result) throws IOException
+            {
+               for (int i = 0; i < batch.getNumberOfFrames(); i++)
+               {
+                  ByteBuffer compressedData = batch.getCompressedFrame(i);
+                  
+                  indexBuffer.clear();
+                  indexBuffer.putLong(batch.getTimestamp(i));
+                  indexBuffer.putLong(outputChannel.position());
+                  indexBuffer.flip();
+                  indexChannel.write(indexBuffer);
+                  
+                  while (compressedData.hasRemaining())
+                  {
+                     outputChannel.write(compressedData);
+                  }
+               }
+            }
+         }, new ProgressListener()
+         {
+            @Override
+            public void progress(int framesDone, int totalFrames)
+            {
+               monitor.setProgress(10 + (int) ((80L * framesDone) / totalFrames));
+            }
+         });
 
          outputChannel.close();
          fileOutputStream.close();
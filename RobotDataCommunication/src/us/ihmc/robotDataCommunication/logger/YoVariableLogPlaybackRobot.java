@@ -21,11 +21,12 @@ import us.ihmc.robotics.dataStructures.variable.IntegerYoVariable;
 import us.ihmc.robotics.dataStructures.variable.LongYoVariable;
 import us.ihmc.robotics.dataStructures.variable.YoVariable;
 import us.ihmc.robotics.time.TimeTools;
+import us.ihmc.simulationconstructionset.ExitActionListener;
 import us.ihmc.simulationconstructionset.Joint;
 import us.ihmc.simulationconstructionset.SimulationConstructionSet;
 import us.ihmc.tools.compression.SnappyUtils;
 
-public class YoVariableLogPlaybackRobot extends VisualizerRobot implements RewoundListener
+public class YoVariableLogPlaybackRobot extends VisualizerRobot implements RewoundListener, ExitActionListener
 {
    
    private final SimulationConstructionSet scs;
@@ -38,6 +39,7 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
    private final boolean compressed;
    private final LogIndex logIndex;
    private final ByteBuffer compressedBuffer;
+   private final MemoryMappedLogData memoryMappedLogData;
    private int index = 0;
 
    private final List<JointState<? extends Joint>> jointStates;
@@ -59,6 +61,16 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
    public YoVariableLogPlaybackRobot(File selectedFile, GeneralizedSDFRobotModel generalizedSDFRobotModel,
          List<JointState<? extends Joint>> jointStates, List<YoVariable<?>> variables, LogPropertiesReader logProperties, SimulationConstructionSet scs)
          throws IOException
+   {
+      this(selectedFile, generalizedSDFRobotModel, jointStates, variables, logProperties, scs, false);
+   }
+
+   /**
+    * @param memoryMapped Memory map compressed variable data and cache recently decompressed frames. Makes seeking back and forth a lot cheaper.
+    */
+   public YoVariableLogPlaybackRobot(File selectedFile, GeneralizedSDFRobotModel generalizedSDFRobotModel,
+         List<JointState<? extends Joint>> jointStates, List<YoVariable<?>> variables, LogPropertiesReader logProperties, SimulationConstructionSet scs,
+         boolean memoryMapped) throws IOException
    {
       super(generalizedSDFRobotModel, null);
       
@@ -93,12 +105,22 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
          logIndex = new LogIndex(indexData, logChannel.size());
          compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
          numberOfEntries = logIndex.getNumberOfEntries();
+         
+         if (memoryMapped)
+         {
+            memoryMappedLogData = new MemoryMappedLogData(logdata, logIndex, bufferSize);
+         }
+         else
+         {
+            memoryMappedLogData = null;
+         }
       }
       else
       {
          numberOfEntries = (int) (logChannel.size() / bufferSize) - 1;
          logIndex = null;
          compressedBuffer = null;
+         memoryMappedLogData = null;
       }
 
       JointUpdater.getJointUpdaterList(getRootJoints(), jointStates, jointUpdaters);
@@ -129,6 +151,16 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
 
       scs.setRobot(this);
       scs.attachSimulationRewoundListener(this);
+      scs.attachExitActionListener(this);
+   }
+
+   @Override
+   public void exitActionPerformed()
+   {
+      if (memoryMappedLogData != null)
+      {
+         memoryMappedLogData.close();
+      }
    }
 
 
@@ -243,7 +275,7 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       if (compressed)
       {
          index = position;
-         if(index < logIndex.dataOffsets.length)
+         if(memoryMappedLogData == null && index < logIndex.dataOffsets.length)
          {
             logChannel.position(logIndex.dataOffsets[position]);            
          }
@@ -254,6 +286,19 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       }
    }
    
+   public boolean isMemoryMapped()
+   {
+      return memoryMappedLogData != null;
+   }
+
+   /**
+    * @return the memory mapped data of this log, to share with the log converters. null if the log is not memory mapped.
+    */
+   public MemoryMappedLogData getMemoryMappedLogData()
+   {
+      return memoryMappedLogData;
+   }
+
    public long getTimestamp(int position)
    {
       if(!compressed)
@@ -275,6 +320,14 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
          {
             return false;
          }
+         
+         if (memoryMappedLogData != null)
+         {
+            memoryMappedLogData.readFrame(index, logLine);
+            ++index;
+            return true;
+         }
+         
          int size = logIndex.compressedSizes[index];
          compressedBuffer.clear();
          compressedBuffer.limit(size);
@@ -3,6 +3,7 @@ package us.ihmc.robotDataCommunication.logger;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
@@ -32,6 +33,8 @@ public class YoVariableLogReader
    private ByteBuffer uncompressedData;
    private FileInputStream logInputStream;
    
+   private MemoryMappedLogData memoryMappedLogData;
+   
    protected final File properties;
    private final File model;
    private final File resourceBundle;
@@ -103,6 +106,11 @@ public class YoVariableLogReader
             compressedData = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
             uncompressedData = ByteBuffer.allocate(bufferSize);
             
+            if (memoryMappedLogData != null && memoryMappedLogData.getFrameSize() != bufferSize)
+            {
+               throw new RuntimeException("Memory mapped log data has a frame size of " + memoryMappedLogData.getFrameSize() + ", expected " + bufferSize);
+            }
+            
             numberOfEntries = logIndex.getNumberOfEntries();
             initialized = true;
          }
@@ -114,6 +122,20 @@ public class YoVariableLogReader
       return initialized;
    }
 
+   /**
+    * Read the variable data from an already memory mapped log, for example the one of the playback robot, instead of
+    * reading every frame through the file channel. The memory mapped data is shared, it is not closed by this reader.
+    * Has to be called before the data is first accessed.
+    */
+   public void setMemoryMappedLogData(MemoryMappedLogData memoryMappedLogData)
+   {
+      if (initialized)
+      {
+         throw new RuntimeException("Cannot change memory mapping after the log is opened");
+      }
+      this.memoryMappedLogData = memoryMappedLogData;
+   }
+
    public int getNumberOfVariables()
    {
       return logLineLength;
@@ -159,6 +181,11 @@ public class YoVariableLogReader
    
    protected ByteBuffer readCompressedData(int position) throws IOException
    {
+      if (memoryMappedLogData != null)
+      {
+         return memoryMappedLogData.getCompressedFrame(position);
+      }
+      
       int size = getCompressedSize(position);
       long startOffset = getDataOffset(position);
       logChannel.position(startOffset);
@@ -173,6 +200,12 @@ public class YoVariableLogReader
    
    protected ByteBuffer readData(int position) throws IOException
    {
+      if (memoryMappedLogData != null)
+      {
+         memoryMappedLogData.readFrame(position, uncompressedData);
+         return uncompressedData;
+      }
+      
       ByteBuffer compressedData = readCompressedData(position);
       uncompressedData.clear();
       SnappyUtils.uncompress(compressedData, uncompressedData);
@@ -184,6 +217,16 @@ public class YoVariableLogReader
    {
       File propertiesDestination = new File(destination, YoVariableLoggerListener.propertyFile);
       Files.copy(properties, propertiesDestination);
+      
+      if (logProperties.hasColumnarData())
+      {
+         // Columnar data is not copied, regenerate with ColumnarLogConverter if needed
+         LogPropertiesReader destinationProperties = new LogPropertiesReader(propertiesDestination);
+         destinationProperties.clearColumnarData();
+         FileWriter writer = new FileWriter(propertiesDestination);
+         destinationProperties.store(writer, "Columnar data removed from copy");
+         writer.close();
+      }
    
       File handShakeDestination = new File(destination, logProperties.getHandshakeFile());
       Files.copy(handshake, handShakeDestination);
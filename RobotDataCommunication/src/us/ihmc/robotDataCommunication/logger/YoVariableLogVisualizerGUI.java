@@ -58,8 +58,10 @@ public class YoVariableLogVisualizerGUI extends JPanel
       
       if(properties.getCompressed())
       {
-         yoVariableLogCropper = new YoVariableLogCropper(player, directory, properties);         
+         yoVariableLogCropper = new YoVariableLogCropper(player, directory, properties);
+         yoVariableLogCropper.setMemoryMappedLogData(robot.getMemoryMappedLogData());
          exporter = new YoVariableExporter(scs, directory, properties, parser.getYoVariablesList());
+         exporter.setMemoryMappedLogData(robot.getMemoryMappedLogData());
       }
       else
       {
@@ -0,0 +1,189 @@
+package us.ihmc.robotDataCommunication.logger.converters;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import us.ihmc.robotDataCommunication.logger.LogProperties;
+import us.ihmc.robotDataCommunication.logger.LogPropertiesReader;
+import us.ihmc.robotDataCommunication.logger.YoVariableColumnarLogReader;
+import us.ihmc.robotDataCommunication.logger.YoVariableLoggerListener;
+import us.ihmc.robotDataCommunication.logger.util.CustomProgressMonitor;
+import us.ihmc.robotDataCommunication.logger.util.FileSelectionDialog;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Adds a columnar copy of the variable data to a log, so single variables can be extracted without
+ * decompressing every row of the log. The row based data and index are left in place for playback.
+ *
+ * See YoVariableColumnarLogReader for the file layout.
+ */
+public class ColumnarLogConverter extends LogConversionPipeline
+{
+   public static final int DEFAULT_CHUNK_SIZE = 256;
+
+   private static final String columnarDataFilename = "robotData.col";
+   private static final String columnarIndexFilename = "robotData.cix";
+
+   private final File logDirectory;
+
+   /**
+    * @param chunkSize Number of ticks per column chunk
+    * @param numberOfThreads Number of threads compressing chunks
+    */
+   public ColumnarLogConverter(File logDirectory, LogProperties logProperties, int chunkSize, int numberOfThreads)
+   {
+      super(logDirectory, logProperties, numberOfThreads, chunkSize);
+      this.logDirectory = logDirectory;
+   }
+
+   public void convert() throws IOException
+   {
+      if (logProperties.hasColumnarData())
+      {
+         System.err.println("Log already has columnar data: " + logDirectory);
+         return;
+      }
+
+      open();
+
+      final int chunkSize = getBatchSize();
+      final int numberOfColumns = getNumberOfVariables();
+      int numberOfTicks = getNumberOfEntries();
+      final int numberOfChunks = YoVariableColumnarLogReader.getNumberOfChunks(numberOfTicks, chunkSize);
+
+      File dataFile = new File(logDirectory, columnarDataFilename);
+      File indexFile = new File(logDirectory, columnarIndexFilename);
+      FileOutputStream dataStream = new FileOutputStream(dataFile);
+      final FileChannel dataChannel = dataStream.getChannel();
+      FileOutputStream indexStream = new FileOutputStream(indexFile);
+      final FileChannel indexChannel = indexStream.getChannel();
+
+      ByteBuffer header = ByteBuffer.allocate(YoVariableColumnarLogReader.HEADER_LENGTH);
+      header.putInt(YoVariableColumnarLogReader.MAGIC);
+      header.putInt(YoVariableColumnarLogReader.VERSION);
+      header.putInt(numberOfColumns);
+      header.putInt(chunkSize);
+      header.putInt(numberOfTicks);
+      header.flip();
+      writeFully(indexChannel, header, 0);
+
+      final CustomProgressMonitor monitor = new CustomProgressMonitor("Converting " + logProperties.getLogName() + " to columnar format",
+            "Transposing variable data", 0, numberOfTicks);
+
+      final ByteBuffer indexEntry = ByteBuffer.allocate(YoVariableColumnarLogReader.INDEX_ENTRY_LENGTH);
+
+      try
+      {
+         // Every batch is one chunk. Workers transpose and compress the columns, the consumer writes them in order.
+         run(new BatchProcessor<ByteBuffer[]>()
+         {
+            @Override
+            public ByteBuffer[] process(LogFrameBatch batch) throws IOException
+            {
+               ByteBuffer columnBuffer = ByteBuffer.allocate(batch.getNumberOfFrames() * 8);
+               ByteBuffer[] compressedColumns = new ByteBuffer[numberOfColumns];
+               for (int column = 0; column < numberOfColumns; column++)
+               {
+                  // Most variables change slowly, XOR against the previous value leaves mostly zero bits for Snappy
+                  long previous = 0;
+                  columnBuffer.clear();
+                  for (int i = 0; i < batch.getNumberOfFrames(); i++)
+                  {
+                     long value = batch.getLong(i, column);
+                     columnBuffer.putLong(value ^ previous);
+                     previous = value;
+                  }
+                  columnBuffer.flip();
+
+                  ByteBuffer compressedColumn = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(columnBuffer.remaining()));
+                  SnappyUtils.compress(columnBuffer, compressedColumn);
+                  compressedColumn.flip();
+                  compressedColumns[column] = compressedColumn;
+               }
+               return compressedColumns;
+            }
+         }, new BatchConsumer<ByteBuffer[]>()
+         {
+            @Override
+            public void consume(LogFrameBatch batch, ByteBuffer[] compressedColumns) throws IOException
+            {
+               int chunkIndex = batch.getFirstPosition() / chunkSize;
+               for (int column = 0; column < numberOfColumns; column++)
+               {
+                  ByteBuffer compressedColumn = compressedColumns[column];
+
+                  indexEntry.clear();
+                  indexEntry.putLong(dataChannel.position());
+                  indexEntry.putInt(compressedColumn.remaining());
+                  indexEntry.flip();
+                  writeFully(indexChannel, indexEntry, YoVariableColumnarLogReader.getIndexEntryPosition(column, chunkIndex, numberOfChunks));
+
+                  while (compressedColumn.hasRemaining())
+                  {
+                     dataChannel.write(compressedColumn);
+                  }
+               }
+            }
+         }, new ProgressListener()
+         {
+            @Override
+            public void progress(int framesDone, int totalFrames)
+            {
+               monitor.setProgress(framesDone);
+            }
+         });
+      }
+      finally
+      {
+         dataChannel.close();
+         dataStream.close();
+         indexChannel.close();
+         indexStream.close();
+         close();
+         monitor.close();
+      }
+
+      logProperties.setColumnarDataFile(columnarDataFilename);
+      logProperties.setColumnarIndexFile(columnarIndexFilename);
+
+      FileWriter writer = new FileWriter(new File(logDirectory, YoVariableLoggerListener.propertyFile));
+      logProperties.store(writer, "Columnar data added by ColumnarLogConverter");
+      writer.close();
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer source, long position) throws IOException
+   {
+      while (source.hasRemaining())
+      {
+         position += channel.write(source, position);
+      }
+   }
+
+   public static void main(String[] args) throws IOException
+   {
+      File directory;
+      if (args.length < 1)
+      {
+         directory = FileSelectionDialog.loadDirectoryWithFileNamed(YoVariableLoggerListener.propertyFile);
+         if (directory == null)
+         {
+            return;
+         }
+      }
+      else
+      {
+         directory = new File(args[0]);
+      }
+
+      int chunkSize = args.length < 2 ? DEFAULT_CHUNK_SIZE : Integer.parseInt(args[1]);
+      int numberOfThreads = args.length < 3 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[2]);
+
+      LogPropertiesReader properties = new LogPropertiesReader(new File(directory, YoVariableLoggerListener.propertyFile));
+      new ColumnarLogConverter(directory, properties, chunkSize, numberOfThreads).convert();
+      System.out.println("Added columnar data to " + directory);
+   }
+}
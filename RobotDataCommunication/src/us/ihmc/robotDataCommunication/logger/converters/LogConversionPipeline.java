@@ -0,0 +1,323 @@
+package us.ihmc.robotDataCommunication.logger.converters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import us.ihmc.robotDataCommunication.logger.LogProperties;
+import us.ihmc.robotDataCommunication.logger.YoVariableLogReader;
+import us.ihmc.tools.thread.ThreadTools;
+
+/**
+ * Batch pipeline for log converters.
+ *
+ * A reader thread reads the compressed frames of a range of the log sequentially and groups them in batches.
+ * A pool of workers decompresses the batches and runs the BatchProcessor on them in parallel. The BatchConsumer is
+ * called on the thread calling run(), with the batches in log order.
+ *
+ * The number of batches in flight is bounded, so memory use is about batchesInFlight * batchSize * frame size. By default
+ * numberOfThreads + 2 batches are in flight, converters with large batches should lower that with setMaximumBatchesInFlight().
+ */
+public class LogConversionPipeline extends YoVariableLogReader
+{
+   public static final int DEFAULT_BATCH_SIZE = 64;
+
+   public interface BatchProcessor<T>
+   {
+      /**
+       * Process a batch of frames. Called in parallel from the worker threads.
+       *
+       * @return result passed to the BatchConsumer. Must not hold on to the batch, it is reused after the consumer is done.
+       */
+      public T process(LogFrameBatch batch) throws IOException;
+   }
+
+   public interface BatchConsumer<T>
+   {
+      /**
+       * Called for every batch in log order, from the thread that called run().
+       */
+      public void consume(LogFrameBatch batch, T result) throws IOException;
+   }
+
+   public interface ProgressListener
+   {
+      public void progress(int framesDone, int totalFrames);
+   }
+
+   private final int numberOfThreads;
+   private int batchSize;
+   private int maximumBatchesInFlight;
+   private boolean decompress = true;
+
+   /**
+    * @param numberOfThreads Number of worker threads. Use Runtime.getRuntime().availableProcessors() to use all cores.
+    * @param batchSize Number of frames processed by a worker at once
+    */
+   public LogConversionPipeline(File logDirectory, LogProperties logProperties, int numberOfThreads, int batchSize)
+   {
+      super(logDirectory, logProperties);
+      if (numberOfThreads < 1)
+      {
+         throw new IllegalArgumentException("Need at least one worker thread");
+      }
+      if (batchSize < 1)
+      {
+         throw new IllegalArgumentException("Batch size has to be at least one");
+      }
+      this.numberOfThreads = numberOfThreads;
+      this.batchSize = batchSize;
+      // Enough batches to keep all workers busy while the reader fills one and the consumer drains another
+      this.maximumBatchesInFlight = numberOfThreads + 2;
+   }
+
+   public LogConversionPipeline(File logDirectory, LogProperties logProperties)
+   {
+      this(logDirectory, logProperties, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+   }
+
+   /**
+    * Converters that only copy compressed frames (e.g. cropping) can skip decompression.
+    */
+   public void setDecompress(boolean decompress)
+   {
+      this.decompress = decompress;
+   }
+
+   public int getNumberOfThreads()
+   {
+      return numberOfThreads;
+   }
+
+   public int getBatchSize()
+   {
+      return batchSize;
+   }
+
+   /**
+    * Change the number of frames in a batch, for example to a size based on the number of variables after open() is called.
+    */
+   public void setBatchSize(int batchSize)
+   {
+      if (batchSize < 1)
+      {
+         throw new IllegalArgumentException("Batch size has to be at least one");
+      }
+      this.batchSize = batchSize;
+   }
+
+   public int getMaximumBatchesInFlight()
+   {
+      return maximumBatchesInFlight;
+   }
+
+   /**
+    * Limit the number of batches allocated at once. Less than numberOfThreads + 2 batches leaves workers idle, 
+    * but bounds the memory use for large batches.
+    */
+   public void setMaximumBatchesInFlight(int maximumBatchesInFlight)
+   {
+      if (maximumBatchesInFlight < 1)
+      {
+         throw new IllegalArgumentException("Need at least one batch in flight");
+      }
+      this.maximumBatchesInFlight = maximumBatchesInFlight;
+   }
+
+   public int getFrameSize()
+   {
+      return getNumberOfVariables() * 8;
+   }
+
+   /**
+    * Open the log. Called by run(), can be called earlier to get the number of variables and entries.
+    */
+   public void open() throws IOException
+   {
+      if (!initialize())
+      {
+         throw new IOException("Cannot open log");
+      }
+   }
+
+   /**
+    * @return position of the first log entry with a timestamp at or after timestamp
+    */
+   public int getPositionOfTimestamp(long timestamp) throws IOException
+   {
+      open();
+      return getPosition(timestamp);
+   }
+
+   public <T> void run(BatchProcessor<T> processor, BatchConsumer<T> consumer, ProgressListener progressListener) throws IOException
+   {
+      open();
+      run(0, getNumberOfEntries() - 1, processor, consumer, progressListener);
+   }
+
+   /**
+    * Run the pipeline over the frames [startPosition, endPosition]
+    *
+    * @param progressListener Optional, can be null
+    */
+   public <T> void run(final int startPosition, final int endPosition, final BatchProcessor<T> processor, BatchConsumer<T> consumer,
+         ProgressListener progressListener) throws IOException
+   {
+      open();
+
+      int numberOfBatches = maximumBatchesInFlight;
+      final ArrayBlockingQueue<LogFrameBatch> freeBatches = new ArrayBlockingQueue<>(numberOfBatches);
+      for (int i = 0; i < numberOfBatches; i++)
+      {
+         freeBatches.add(new LogFrameBatch(batchSize, getFrameSize()));
+      }
+
+      // One extra slot for the end of data marker
+      final ArrayBlockingQueue<Future<BatchResult<T>>> inFlight = new ArrayBlockingQueue<>(numberOfBatches + 1);
+      final ExecutorService workers = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.getNamedThreadFactory(getClass().getSimpleName() + "Worker"));
+
+      Thread reader = new Thread(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            readBatches(startPosition, endPosition, processor, freeBatches, inFlight, workers);
+         }
+      }, getClass().getSimpleName() + "Reader");
+      reader.start();
+
+      int totalFrames = endPosition - startPosition + 1;
+      int framesDone = 0;
+      try
+      {
+         while (true)
+         {
+            BatchResult<T> result = inFlight.take().get();
+            if (result == null)
+            {
+               break;
+            }
+
+            consumer.consume(result.batch, result.result);
+            framesDone += result.batch.getNumberOfFrames();
+            freeBatches.put(result.batch);
+
+            if (progressListener != null)
+            {
+               progressListener.progress(framesDone, totalFrames);
+            }
+         }
+      }
+      catch (InterruptedException e)
+      {
+         throw new IOException("Interrupted while converting log", e);
+      }
+      catch (ExecutionException e)
+      {
+         if (e.getCause() instanceof IOException)
+         {
+            throw (IOException) e.getCause();
+         }
+         throw new IOException(e.getCause());
+      }
+      finally
+      {
+         reader.interrupt();
+         workers.shutdownNow();
+      }
+   }
+
+   private <T> void readBatches(int startPosition, int endPosition, final BatchProcessor<T> processor, ArrayBlockingQueue<LogFrameBatch> freeBatches,
+         ArrayBlockingQueue<Future<BatchResult<T>>> inFlight, ExecutorService workers)
+   {
+      try
+      {
+         try
+         {
+            int position = startPosition;
+            while (position <= endPosition)
+            {
+               final LogFrameBatch batch = freeBatches.take();
+               batch.reset(position);
+               while (!batch.isFull() && position <= endPosition)
+               {
+                  ByteBuffer compressedFrame = readCompressedData(position);
+                  batch.addCompressedFrame(getTimestamp(position), compressedFrame);
+                  position++;
+               }
+
+               inFlight.put(workers.submit(new Callable<BatchResult<T>>()
+               {
+                  @Override
+                  public BatchResult<T> call() throws IOException
+                  {
+                     if (decompress)
+                     {
+                        batch.decompress();
+                     }
+                     return new BatchResult<T>(batch, processor.process(batch));
+                  }
+               }));
+            }
+            inFlight.put(completedFuture(new Callable<BatchResult<T>>()
+            {
+               @Override
+               public BatchResult<T> call()
+               {
+                  return null;
+               }
+            }));
+         }
+         catch (InterruptedException e)
+         {
+            throw e;
+         }
+         catch (final Throwable e)
+         {
+            // Post every failure, the consumer waits for the next batch till it gets one
+            inFlight.put(completedFuture(new Callable<BatchResult<T>>()
+            {
+               @Override
+               public BatchResult<T> call() throws Exception
+               {
+                  if (e instanceof Exception)
+                  {
+                     throw (Exception) e;
+                  }
+                  throw (Error) e;
+               }
+            }));
+         }
+      }
+      catch (InterruptedException e)
+      {
+         // Consumer stopped
+      }
+   }
+
+   private static <T> Future<T> completedFuture(Callable<T> callable)
+   {
+      FutureTask<T> future = new FutureTask<>(callable);
+      future.run();
+      return future;
+   }
+
+   private static class BatchResult<T>
+   {
+      private final LogFrameBatch batch;
+      private final T result;
+
+      private BatchResult(LogFrameBatch batch, T result)
+      {
+         this.batch = batch;
+         this.result = result;
+      }
+   }
+}
@@ -0,0 +1,149 @@
+package us.ihmc.robotDataCommunication.logger.converters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * A consecutive range of log frames handed through the LogConversionPipeline.
+ *
+ * The compressed frames are filled in by the reader stage. Workers decompress them with decompress(), after which
+ * getFrame() gives access to the raw log lines. Batches are recycled after the writer stage is done with them.
+ */
+public class LogFrameBatch
+{
+   private final int frameSize;
+   private final int capacity;
+
+   private ByteBuffer compressedData;
+   private final int[] compressedOffsets;
+   private final int[] compressedSizes;
+   private final long[] timestamps;
+
+   private final ByteBuffer frames;
+
+   private int firstPosition;
+   private int numberOfFrames;
+   private boolean decompressed;
+
+   public LogFrameBatch(int capacity, int frameSize)
+   {
+      this.capacity = capacity;
+      this.frameSize = frameSize;
+
+      // Compressed frames are a lot smaller than the raw data, grow when needed
+      compressedData = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(frameSize));
+      compressedOffsets = new int[capacity];
+      compressedSizes = new int[capacity];
+      timestamps = new long[capacity];
+      frames = ByteBuffer.allocate(capacity * frameSize);
+   }
+
+   void reset(int firstPosition)
+   {
+      this.firstPosition = firstPosition;
+      this.numberOfFrames = 0;
+      this.decompressed = false;
+      compressedData.clear();
+   }
+
+   boolean isFull()
+   {
+      return numberOfFrames == capacity;
+   }
+
+   void addCompressedFrame(long timestamp, ByteBuffer compressedFrame)
+   {
+      compressedOffsets[numberOfFrames] = compressedData.position();
+      compressedSizes[numberOfFrames] = compressedFrame.remaining();
+      if (compressedData.remaining() < compressedFrame.remaining())
+      {
+         int newCapacity = Math.max(2 * compressedData.capacity(), compressedData.position() + compressedFrame.remaining());
+         ByteBuffer newCompressedData = ByteBuffer.allocate(newCapacity);
+         compressedData.flip();
+         newCompressedData.put(compressedData);
+         compressedData = newCompressedData;
+      }
+      timestamps[numberOfFrames] = timestamp;
+      compressedData.put(compressedFrame);
+      numberOfFrames++;
+   }
+
+   /**
+    * Decompress all frames in this batch. Called by the pipeline workers before the batch is processed.
+    */
+   void decompress() throws IOException
+   {
+      if (decompressed)
+      {
+         return;
+      }
+
+      for (int i = 0; i < numberOfFrames; i++)
+      {
+         ByteBuffer compressedFrame = getCompressedFrame(i);
+         frames.limit((i + 1) * frameSize);
+         frames.position(i * frameSize);
+         SnappyUtils.uncompress(compressedFrame, frames);
+      }
+      frames.clear();
+      decompressed = true;
+   }
+
+   /**
+    * @return log position of the first frame in this batch
+    */
+   public int getFirstPosition()
+   {
+      return firstPosition;
+   }
+
+   public int getNumberOfFrames()
+   {
+      return numberOfFrames;
+   }
+
+   public int getFrameSize()
+   {
+      return frameSize;
+   }
+
+   public long getTimestamp(int frame)
+   {
+      return timestamps[frame];
+   }
+
+   /**
+    * @return view on the compressed data of a frame in this batch
+    */
+   public ByteBuffer getCompressedFrame(int frame)
+   {
+      ByteBuffer compressedFrame = compressedData.duplicate();
+      compressedFrame.limit(compressedOffsets[frame] + compressedSizes[frame]);
+      compressedFrame.position(compressedOffsets[frame]);
+      return compressedFrame;
+   }
+
+   /**
+    * Get a single long of a decompressed frame
+    *
+    * @param frame frame in this batch
+    * @param index index in the log line, 0 is the timestamp
+    */
+   public long getLong(int frame, int index)
+   {
+      return frames.getLong(frame * frameSize + index * 8);
+   }
+
+   /**
+    * @return view on the decompressed log line of a frame in this batch
+    */
+   public ByteBuffer getFrame(int frame)
+   {
+      ByteBuffer view = frames.duplicate();
+      view.limit((frame + 1) * frameSize);
+      view.position(frame * frameSize);
+      return view.slice();
+   }
+}
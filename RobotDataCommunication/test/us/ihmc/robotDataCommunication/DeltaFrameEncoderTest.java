@@ -0,0 +1,163 @@
+package us.ihmc.robotDataCommunication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class DeltaFrameEncoderTest
+{
+   private static final int NUMBER_OF_VARIABLES = 50;
+   private static final int BUFFER_SIZE = (1 + NUMBER_OF_VARIABLES) * 8;
+   private static final int KEYFRAME_INTERVAL = 5;
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRoundTrip()
+   {
+      Random random = new Random(4519L);
+      DeltaFrameEncoder encoder = new DeltaFrameEncoder(BUFFER_SIZE, KEYFRAME_INTERVAL);
+      DeltaFrameDecoder decoder = new DeltaFrameDecoder(BUFFER_SIZE);
+      ByteBuffer frame = ByteBuffer.allocate(BUFFER_SIZE);
+
+      for (int uid = 0; uid < 4 * KEYFRAME_INTERVAL; uid++)
+      {
+         fillRandomFrame(random, frame, uid);
+         ByteBuffer received = encodeAndTransmit(encoder, frame, uid);
+         LogDataHeader header = createHeader(encoder, frame, uid);
+         assertEquals(uid % KEYFRAME_INTERVAL != 0, header.isDeltaFrame());
+         assertTrue(decoder.decode(header, received));
+         assertFramesEqual(frame, received);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testDroppedDeltaFrameDoesNotCorruptLaterFrames()
+   {
+      Random random = new Random(4520L);
+      DeltaFrameEncoder encoder = new DeltaFrameEncoder(BUFFER_SIZE, KEYFRAME_INTERVAL);
+      DeltaFrameDecoder decoder = new DeltaFrameDecoder(BUFFER_SIZE);
+      ByteBuffer frame = ByteBuffer.allocate(BUFFER_SIZE);
+
+      for (int uid = 0; uid < 3 * KEYFRAME_INTERVAL; uid++)
+      {
+         fillRandomFrame(random, frame, uid);
+         ByteBuffer received = encodeAndTransmit(encoder, frame, uid);
+         LogDataHeader header = createHeader(encoder, frame, uid);
+
+         // Drop every second delta frame
+         if (header.isDeltaFrame() && uid % 2 == 1)
+         {
+            continue;
+         }
+
+         assertTrue(decoder.decode(header, received));
+         assertFramesEqual(frame, received);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testDeltaFramesAreRejectedUntilNextKeyframeAfterDroppedKeyframe()
+   {
+      Random random = new Random(4521L);
+      DeltaFrameEncoder encoder = new DeltaFrameEncoder(BUFFER_SIZE, KEYFRAME_INTERVAL);
+      DeltaFrameDecoder decoder = new DeltaFrameDecoder(BUFFER_SIZE);
+      ByteBuffer frame = ByteBuffer.allocate(BUFFER_SIZE);
+
+      for (int uid = 0; uid < 3 * KEYFRAME_INTERVAL; uid++)
+      {
+         fillRandomFrame(random, frame, uid);
+         ByteBuffer received = encodeAndTransmit(encoder, frame, uid);
+         LogDataHeader header = createHeader(encoder, frame, uid);
+
+         // Drop the second keyframe
+         if (uid == KEYFRAME_INTERVAL)
+         {
+            continue;
+         }
+
+         boolean decoded = decoder.decode(header, received);
+         if (uid > KEYFRAME_INTERVAL && uid < 2 * KEYFRAME_INTERVAL)
+         {
+            assertFalse(decoded);
+         }
+         else
+         {
+            assertTrue(decoded);
+            assertFramesEqual(frame, received);
+         }
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRequestKeyframe()
+   {
+      Random random = new Random(4522L);
+      DeltaFrameEncoder encoder = new DeltaFrameEncoder(BUFFER_SIZE, KEYFRAME_INTERVAL);
+      ByteBuffer frame = ByteBuffer.allocate(BUFFER_SIZE);
+
+      fillRandomFrame(random, frame, 0);
+      encoder.encode(frame, 0);
+      assertTrue(encoder.isKeyframe());
+      encoder.encode(frame, 1);
+      assertFalse(encoder.isKeyframe());
+
+      encoder.requestKeyframe();
+      encoder.encode(frame, 2);
+      assertTrue(encoder.isKeyframe());
+      encoder.encode(frame, 3);
+      assertFalse(encoder.isKeyframe());
+   }
+
+   /**
+    * @return a copy of the encoded frame, as the decompressed buffer on the client would hold it
+    */
+   private static ByteBuffer encodeAndTransmit(DeltaFrameEncoder encoder, ByteBuffer frame, long uid)
+   {
+      ByteBuffer encoded = encoder.encode(frame, uid);
+      ByteBuffer received = ByteBuffer.allocate(BUFFER_SIZE);
+      received.put(encoded.array(), encoded.arrayOffset(), BUFFER_SIZE);
+      received.flip();
+      return received;
+   }
+
+   private static LogDataHeader createHeader(DeltaFrameEncoder encoder, ByteBuffer frame, long uid)
+   {
+      LogDataHeader header = new LogDataHeader();
+      header.setUid(uid);
+      header.setTimestamp(frame.getLong(0));
+      header.setDeltaFrame(!encoder.isKeyframe());
+      return header;
+   }
+
+   private static void fillRandomFrame(Random random, ByteBuffer frame, long timestamp)
+   {
+      frame.putLong(0, 1000 + timestamp);
+      for (int i = 1; i <= NUMBER_OF_VARIABLES; i++)
+      {
+         // Most variables do not change between ticks
+         if (random.nextDouble() < 0.2 || timestamp == 0)
+         {
+            frame.putLong(i * 8, random.nextLong());
+         }
+      }
+      frame.clear();
+   }
+
+   private static void assertFramesEqual(ByteBuffer expected, ByteBuffer actual)
+   {
+      for (int i = 0; i < BUFFER_SIZE; i += 8)
+      {
+         assertEquals(expected.getLong(i), actual.getLong(i));
+      }
+   }
+}
@@ -0,0 +1,66 @@
+package us.ihmc.robotDataCommunication;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import us.ihmc.robotDataCommunication.LogPacketSequenceChecker.PacketSequence;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class LogPacketSequenceCheckerTest
+{
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testForcedKeyframesDoNotCauseSkipOrSkewReports()
+   {
+      LogPacketSequenceChecker checker = new LogPacketSequenceChecker(10);
+
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(10, false)));
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(20, true)));
+      // Keyframe every 7 ticks, sent to the client out of schedule
+      assertEquals(PacketSequence.OFF_SCHEDULE_KEYFRAME, checker.update(createHeader(21, false)));
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(30, true)));
+      assertEquals(PacketSequence.OFF_SCHEDULE_KEYFRAME, checker.update(createHeader(35, false)));
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(40, true)));
+      // Keyframe on schedule
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(50, false)));
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(60, true)));
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testSkippedAndSkewedPackets()
+   {
+      LogPacketSequenceChecker checker = new LogPacketSequenceChecker(10);
+
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(10, false)));
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(20, true)));
+      assertEquals(PacketSequence.OFF_SCHEDULE_KEYFRAME, checker.update(createHeader(24, false)));
+      // Dropped delta frame at 30
+      assertEquals(PacketSequence.SKIPPED, checker.update(createHeader(40, true)));
+      assertEquals(10, checker.getSkippedPackets());
+      assertEquals(PacketSequence.SKEWED, checker.update(createHeader(35, true)));
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testFullFramesWithoutDeltaEncoding()
+   {
+      LogPacketSequenceChecker checker = new LogPacketSequenceChecker(10);
+
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(10, false)));
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(17, false)));
+      assertEquals(PacketSequence.IN_SEQUENCE, checker.update(createHeader(27, false)));
+      assertEquals(PacketSequence.SKIPPED, checker.update(createHeader(47, false)));
+      assertEquals(10, checker.getSkippedPackets());
+   }
+
+   private static LogDataHeader createHeader(long uid, boolean deltaFrame)
+   {
+      LogDataHeader header = new LogDataHeader();
+      header.setUid(uid);
+      header.setTimestamp(uid * 1000);
+      header.setDeltaFrame(deltaFrame);
+      return header;
+   }
+}
@@ -0,0 +1,150 @@
+package us.ihmc.robotDataCommunication.logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import us.ihmc.robotDataCommunication.LogIndex;
+import us.ihmc.tools.compression.SnappyUtils;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class MemoryMappedLogDataTest
+{
+   private static final int NUMBER_OF_ENTRIES = 500;
+   private static final int NUMBER_OF_VARIABLES = 20;
+   private static final int FRAME_SIZE = 8 * NUMBER_OF_VARIABLES;
+   private static final int FRAME_CACHE_SIZE = 16;
+
+   private File logDirectory;
+   private File dataFile;
+   private File indexFile;
+
+   @Before
+   public void writeLog() throws IOException
+   {
+      logDirectory = Files.createTempDirectory("memoryMappedLogData").toFile();
+      dataFile = new File(logDirectory, "robotData.bsz");
+      indexFile = new File(logDirectory, "robotData.dat");
+
+      FileOutputStream dataStream = new FileOutputStream(dataFile);
+      FileOutputStream indexStream = new FileOutputStream(indexFile);
+      FileChannel dataChannel = dataStream.getChannel();
+      FileChannel indexChannel = indexStream.getChannel();
+
+      ByteBuffer frame = ByteBuffer.allocate(FRAME_SIZE);
+      ByteBuffer compressedFrame = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(FRAME_SIZE));
+      ByteBuffer indexEntry = ByteBuffer.allocate(16);
+      for (int i = 0; i < NUMBER_OF_ENTRIES; i++)
+      {
+         fillFrame(i, frame);
+
+         compressedFrame.clear();
+         SnappyUtils.compress(frame, compressedFrame);
+         compressedFrame.flip();
+
+         indexEntry.clear();
+         indexEntry.putLong(i);
+         indexEntry.putLong(dataChannel.position());
+         indexEntry.flip();
+
+         indexChannel.write(indexEntry);
+         dataChannel.write(compressedFrame);
+      }
+      dataStream.close();
+      indexStream.close();
+   }
+
+   @After
+   public void deleteLog()
+   {
+      dataFile.delete();
+      indexFile.delete();
+      logDirectory.delete();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRandomAccess() throws IOException
+   {
+      MemoryMappedLogData logData = createLogData();
+      assertEquals(NUMBER_OF_ENTRIES, logData.getNumberOfEntries());
+
+      Random random = new Random(1992L);
+      ByteBuffer frame = ByteBuffer.allocate(FRAME_SIZE);
+      ByteBuffer expectedFrame = ByteBuffer.allocate(FRAME_SIZE);
+      for (int i = 0; i < 10 * NUMBER_OF_ENTRIES; i++)
+      {
+         // Mostly the next frame like during playback, sometimes anywhere like when scrubbing
+         int position = random.nextInt(10) == 0 ? random.nextInt(NUMBER_OF_ENTRIES) : i % NUMBER_OF_ENTRIES;
+         logData.readFrame(position, frame);
+         fillFrame(position, expectedFrame);
+         assertEquals(expectedFrame, frame);
+      }
+
+      logData.close();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testViewsStayValidAndReadsFailAfterClose() throws IOException
+   {
+      MemoryMappedLogData logData = createLogData();
+      ByteBuffer compressedFrame = logData.getCompressedFrame(42);
+      logData.close();
+      logData.close();
+
+      ByteBuffer frame = ByteBuffer.allocate(FRAME_SIZE);
+      SnappyUtils.uncompress(compressedFrame, frame);
+      frame.flip();
+      ByteBuffer expectedFrame = ByteBuffer.allocate(FRAME_SIZE);
+      fillFrame(42, expectedFrame);
+      assertEquals(expectedFrame, frame);
+
+      try
+      {
+         logData.readFrame(42, frame);
+         fail("Reading after close should throw an IOException");
+      }
+      catch (IOException e)
+      {
+         // Expected
+      }
+
+      try
+      {
+         logData.getCompressedFrame(42);
+         fail("Reading after close should throw an IOException");
+      }
+      catch (IOException e)
+      {
+         // Expected
+      }
+   }
+
+   private MemoryMappedLogData createLogData() throws IOException
+   {
+      LogIndex logIndex = new LogIndex(indexFile, dataFile.length());
+      return new MemoryMappedLogData(dataFile, logIndex, FRAME_SIZE, FRAME_CACHE_SIZE);
+   }
+
+   private static void fillFrame(int position, ByteBuffer frame)
+   {
+      frame.clear();
+      for (int v = 0; v < NUMBER_OF_VARIABLES; v++)
+      {
+         frame.putLong(31L * position + v);
+      }
+      frame.flip();
+   }
+}
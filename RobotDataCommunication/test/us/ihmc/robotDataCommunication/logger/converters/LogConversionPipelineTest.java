@@ -0,0 +1,272 @@
+package us.ihmc.robotDataCommunication.logger.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import us.ihmc.robotDataCommunication.YoVariableHandShakeBuilder;
+import us.ihmc.robotDataCommunication.logger.LogPropertiesReader;
+import us.ihmc.robotDataCommunication.logger.LogPropertiesWriter;
+import us.ihmc.robotDataCommunication.logger.YoVariableExtracter;
+import us.ihmc.robotDataCommunication.logger.YoVariableLoggerListener;
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline.BatchConsumer;
+import us.ihmc.robotDataCommunication.logger.converters.LogConversionPipeline.BatchProcessor;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.dataStructures.variable.DoubleYoVariable;
+import us.ihmc.robotics.dataStructures.variable.IntegerYoVariable;
+import us.ihmc.robotics.dataStructures.variable.YoVariable;
+import us.ihmc.tools.compression.SnappyUtils;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class LogConversionPipelineTest
+{
+   private static final int NUMBER_OF_ENTRIES = 1000;
+   private static final long INITIAL_TIMESTAMP = 1000000L;
+   private static final long DT_IN_NANOSECONDS = 1000000L;
+
+   private File logDirectory;
+   private List<YoVariable<?>> variables;
+
+   @Before
+   public void writeLog() throws IOException
+   {
+      logDirectory = Files.createTempDirectory("logConversionPipeline").toFile();
+
+      YoVariableRegistry registry = new YoVariableRegistry("root");
+      DoubleYoVariable position = new DoubleYoVariable("position", registry);
+      IntegerYoVariable counter = new IntegerYoVariable("counter", registry);
+
+      YoVariableHandShakeBuilder handshakeBuilder = new YoVariableHandShakeBuilder(null, 0.001);
+      variables = new ArrayList<>();
+      handshakeBuilder.addRegistry(registry, variables);
+
+      LogPropertiesWriter logProperties = new LogPropertiesWriter(new File(logDirectory, YoVariableLoggerListener.propertyFile));
+      logProperties.setHandshakeFile("handshake.proto");
+      logProperties.setVariableDataFile("robotData.bsz");
+      logProperties.setVariablesIndexFile("robotData.dat");
+      logProperties.setCompressed(true);
+      logProperties.setTimestampedIndex(true);
+      logProperties.store();
+
+      FileOutputStream handshakeStream = new FileOutputStream(new File(logDirectory, "handshake.proto"));
+      handshakeStream.write(handshakeBuilder.toByteArray());
+      handshakeStream.close();
+
+      FileOutputStream dataStream = new FileOutputStream(new File(logDirectory, "robotData.bsz"));
+      FileOutputStream indexStream = new FileOutputStream(new File(logDirectory, "robotData.dat"));
+      FileChannel dataChannel = dataStream.getChannel();
+      FileChannel indexChannel = indexStream.getChannel();
+
+      ByteBuffer frame = ByteBuffer.allocate((1 + variables.size()) * 8);
+      ByteBuffer compressedFrame = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(frame.capacity()));
+      ByteBuffer indexEntry = ByteBuffer.allocate(16);
+      for (int i = 0; i < NUMBER_OF_ENTRIES; i++)
+      {
+         position.set(0.5 * i);
+         counter.set(i);
+
+         frame.clear();
+         frame.putLong(getTimestamp(i));
+         for (int v = 0; v < variables.size(); v++)
+         {
+            frame.putLong(variables.get(v).getValueAsLongBits());
+         }
+         frame.flip();
+
+         compressedFrame.clear();
+         SnappyUtils.compress(frame, compressedFrame);
+         compressedFrame.flip();
+
+         indexEntry.clear();
+         indexEntry.putLong(getTimestamp(i));
+         indexEntry.putLong(dataChannel.position());
+         indexEntry.flip();
+
+         indexChannel.write(indexEntry);
+         dataChannel.write(compressedFrame);
+      }
+      dataStream.close();
+      indexStream.close();
+   }
+
+   @After
+   public void deleteLog()
+   {
+      for (File file : logDirectory.listFiles())
+      {
+         file.delete();
+      }
+      logDirectory.delete();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testFramesArriveInLogOrder() throws IOException
+   {
+      LogConversionPipeline pipeline = createPipeline();
+      pipeline.setMaximumBatchesInFlight(2);
+
+      final int[] nextPosition = { 0 };
+      pipeline.run(new BatchProcessor<long[]>()
+      {
+         @Override
+         public long[] process(LogFrameBatch batch)
+         {
+            long[] counters = new long[batch.getNumberOfFrames()];
+            for (int i = 0; i < batch.getNumberOfFrames(); i++)
+            {
+               counters[i] = batch.getLong(i, 1 + getVariableIndex("counter"));
+            }
+            return counters;
+         }
+      }, new BatchConsumer<long[]>()
+      {
+         @Override
+         public void consume(LogFrameBatch batch, long[] counters)
+         {
+            assertEquals(nextPosition[0], batch.getFirstPosition());
+            for (int i = 0; i < batch.getNumberOfFrames(); i++)
+            {
+               int position = batch.getFirstPosition() + i;
+               assertEquals(getTimestamp(position), batch.getTimestamp(i));
+               assertEquals(getTimestamp(position), batch.getLong(i, 0));
+               assertEquals(position, counters[i]);
+               assertEquals(0.5 * position, Double.longBitsToDouble(batch.getLong(i, 1 + getVariableIndex("position"))), 0.0);
+            }
+            nextPosition[0] += batch.getNumberOfFrames();
+         }
+      }, null);
+      pipeline.close();
+
+      assertEquals(NUMBER_OF_ENTRIES, nextPosition[0]);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testRange() throws IOException
+   {
+      LogConversionPipeline pipeline = createPipeline();
+      int startPosition = 100;
+      int endPosition = 555;
+
+      final int[] frames = { 0 };
+      pipeline.run(startPosition, endPosition, new BatchProcessor<Void>()
+      {
+         @Override
+         public Void process(LogFrameBatch batch)
+         {
+            return null;
+         }
+      }, new BatchConsumer<Void>()
+      {
+         @Override
+         public void consume(LogFrameBatch batch, Void result)
+         {
+            for (int i = 0; i < batch.getNumberOfFrames(); i++)
+            {
+               assertEquals(getTimestamp(batch.getFirstPosition() + i), batch.getLong(i, 0));
+            }
+            assertEquals(100 + frames[0], batch.getFirstPosition());
+            frames[0] += batch.getNumberOfFrames();
+         }
+      }, null);
+      pipeline.close();
+
+      assertEquals(endPosition - startPosition + 1, frames[0]);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testReaderFailureIsPassedToTheConsumerThread() throws IOException
+   {
+      LogConversionPipeline pipeline = createPipeline();
+
+      // Reading past the end of the log throws a RuntimeException on the reader thread
+      try
+      {
+         pipeline.run(0, NUMBER_OF_ENTRIES + 10, new BatchProcessor<Void>()
+         {
+            @Override
+            public Void process(LogFrameBatch batch)
+            {
+               return null;
+            }
+         }, new BatchConsumer<Void>()
+         {
+            @Override
+            public void consume(LogFrameBatch batch, Void result)
+            {
+            }
+         }, null);
+         fail("The pipeline should fail when the reader fails");
+      }
+      catch (IOException e)
+      {
+         assertTrue(e.getCause() instanceof RuntimeException);
+      }
+      pipeline.close();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testExtractVariables() throws IOException
+   {
+      LogConversionPipeline pipeline = createPipeline();
+      List<YoVariable<?>> selectedVariables = new ArrayList<>();
+      selectedVariables.add(variables.get(getVariableIndex("counter")));
+
+      String script = YoVariableExtracter.extractVariables(pipeline, variables, selectedVariables);
+      pipeline.close();
+
+      String[] lines = script.split(System.lineSeparator());
+      assertEquals(2, lines.length);
+      assertTrue(lines[0].startsWith("t = [" + getTimestamp(0) + "," + getTimestamp(1) + ","));
+      assertTrue(lines[0].endsWith("," + getTimestamp(NUMBER_OF_ENTRIES - 1) + "];"));
+
+      String prefix = "counter = [";
+      assertTrue(lines[1].startsWith(prefix));
+      assertTrue(lines[1].endsWith("];"));
+      String[] values = lines[1].substring(prefix.length(), lines[1].length() - 2).split(",");
+      assertEquals(NUMBER_OF_ENTRIES, values.length);
+      for (int i = 0; i < NUMBER_OF_ENTRIES; i++)
+      {
+         assertEquals(i, Integer.parseInt(values[i]));
+      }
+   }
+
+   private LogConversionPipeline createPipeline() throws IOException
+   {
+      LogPropertiesReader logProperties = new LogPropertiesReader(new File(logDirectory, YoVariableLoggerListener.propertyFile));
+      return new LogConversionPipeline(logDirectory, logProperties, 3, 7);
+   }
+
+   private int getVariableIndex(String name)
+   {
+      for (int i = 0; i < variables.size(); i++)
+      {
+         if (variables.get(i).getName().equals(name))
+         {
+            return i;
+         }
+      }
+      throw new RuntimeException("Cannot find " + name);
+   }
+
+   private static long getTimestamp(int position)
+   {
+      return INITIAL_TIMESTAMP + position * DT_IN_NANOSECONDS;
+   }
+}
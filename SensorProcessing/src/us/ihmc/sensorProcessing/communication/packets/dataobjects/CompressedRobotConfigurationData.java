@@ -0,0 +1,182 @@
+package us.ihmc.sensorProcessing.communication.packets.dataobjects;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoCopyable;
+import com.esotericsoftware.kryo.KryoSerializable;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import us.ihmc.communication.packets.Packet;
+import us.ihmc.sensorProcessing.model.RobotMotionStatus;
+
+/**
+ * Compact wire encoding of a {@link RobotConfigurationData}.
+ *
+ * All the floating point state is quantized and stored in data as zigzag varints. Keyframes hold the quantized values themselves, the other packets hold the
+ * difference with the quantized values of the keyframe given by keyframeId. Packets are encoded against their keyframe rather than the previous packet, so a
+ * dropped packet only loses itself; a dropped keyframe loses the packets up to the next keyframe.
+ *
+ * Only the first length bytes of data are used and serialized, so the sender can keep one data array of the maximum encoded size instead of allocating one
+ * for every packet.
+ *
+ * Use RobotConfigurationDataCompressor and RobotConfigurationDataDecompressor to convert from and to RobotConfigurationData.
+ */
+public class CompressedRobotConfigurationData extends Packet<CompressedRobotConfigurationData>
+      implements KryoSerializable, KryoCopyable<CompressedRobotConfigurationData>
+{
+   public long timestamp;
+   public long sensorHeadPPSTimestamp;
+   public int jointNameHash;
+
+   public int numberOfJoints;
+   public int numberOfForceSensors;
+   public int numberOfIMUSensors;
+
+   public boolean isKeyframe;
+   public int keyframeId;
+   public byte[] data;
+   public int length;
+
+   public RobotMotionStatus robotMotionStatus;
+   public AuxiliaryRobotData auxiliaryRobotData;
+
+   public int lastReceivedPacketTypeID;
+   public long lastReceivedPacketUniqueId;
+   public long lastReceivedPacketRobotTimestamp;
+
+   public CompressedRobotConfigurationData()
+   {
+      // empty constructor for serialization
+   }
+
+   public long getTimestamp()
+   {
+      return timestamp;
+   }
+
+   public int getJointNameHash()
+   {
+      return jointNameHash;
+   }
+
+   public boolean isKeyframe()
+   {
+      return isKeyframe;
+   }
+
+   public int getKeyframeId()
+   {
+      return keyframeId;
+   }
+
+   @Override
+   public boolean epsilonEquals(CompressedRobotConfigurationData other, double epsilon)
+   {
+      if (timestamp != other.timestamp || sensorHeadPPSTimestamp != other.sensorHeadPPSTimestamp || jointNameHash != other.jointNameHash)
+         return false;
+      if (numberOfJoints != other.numberOfJoints || numberOfForceSensors != other.numberOfForceSensors || numberOfIMUSensors != other.numberOfIMUSensors)
+         return false;
+      if (isKeyframe != other.isKeyframe || keyframeId != other.keyframeId)
+         return false;
+
+      if (length != other.length)
+         return false;
+
+      for (int i = 0; i < length; i++)
+      {
+         if (data[i] != other.data[i])
+            return false;
+      }
+
+      return true;
+   }
+
+   @Override
+   public void write(Kryo kryo, Output output)
+   {
+      output.writeLong(uniqueId);
+      output.writeByte(destination);
+      output.writeString(notes);
+
+      output.writeLong(timestamp);
+      output.writeLong(sensorHeadPPSTimestamp);
+      output.writeInt(jointNameHash);
+
+      output.writeInt(numberOfJoints, true);
+      output.writeInt(numberOfForceSensors, true);
+      output.writeInt(numberOfIMUSensors, true);
+
+      output.writeBoolean(isKeyframe);
+      output.writeInt(keyframeId);
+      output.writeInt(length, true);
+      if (length > 0)
+         output.writeBytes(data, 0, length);
+
+      kryo.writeObjectOrNull(output, robotMotionStatus, RobotMotionStatus.class);
+      kryo.writeClassAndObject(output, auxiliaryRobotData);
+
+      output.writeInt(lastReceivedPacketTypeID);
+      output.writeLong(lastReceivedPacketUniqueId);
+      output.writeLong(lastReceivedPacketRobotTimestamp);
+   }
+
+   @Override
+   public void read(Kryo kryo, Input input)
+   {
+      uniqueId = input.readLong();
+      destination = input.readByte();
+      notes = input.readString();
+
+      timestamp = input.readLong();
+      sensorHeadPPSTimestamp = input.readLong();
+      jointNameHash = input.readInt();
+
+      numberOfJoints = input.readInt(true);
+      numberOfForceSensors = input.readInt(true);
+      numberOfIMUSensors = input.readInt(true);
+
+      isKeyframe = input.readBoolean();
+      keyframeId = input.readInt();
+      length = input.readInt(true);
+      data = input.readBytes(length);
+
+      robotMotionStatus = kryo.readObjectOrNull(input, RobotMotionStatus.class);
+      auxiliaryRobotData = (AuxiliaryRobotData) kryo.readClassAndObject(input);
+
+      lastReceivedPacketTypeID = input.readInt();
+      lastReceivedPacketUniqueId = input.readLong();
+      lastReceivedPacketRobotTimestamp = input.readLong();
+   }
+
+   @Override
+   public CompressedRobotConfigurationData copy(Kryo kryo)
+   {
+      CompressedRobotConfigurationData copy = new CompressedRobotConfigurationData();
+      copy.uniqueId = uniqueId;
+      copy.destination = destination;
+      copy.notes = notes;
+
+      copy.timestamp = timestamp;
+      copy.sensorHeadPPSTimestamp = sensorHeadPPSTimestamp;
+      copy.jointNameHash = jointNameHash;
+
+      copy.numberOfJoints = numberOfJoints;
+      copy.numberOfForceSensors = numberOfForceSensors;
+      copy.numberOfIMUSensors = numberOfIMUSensors;
+
+      copy.isKeyframe = isKeyframe;
+      copy.keyframeId = keyframeId;
+      copy.length = length;
+      copy.data = new byte[length];
+      if (length > 0)
+         System.arraycopy(data, 0, copy.data, 0, length);
+
+      copy.robotMotionStatus = robotMotionStatus;
+      copy.auxiliaryRobotData = kryo.copy(auxiliaryRobotData);
+
+      copy.lastReceivedPacketTypeID = lastReceivedPacketTypeID;
+      copy.lastReceivedPacketUniqueId = lastReceivedPacketUniqueId;
+      copy.lastReceivedPacketRobotTimestamp = lastReceivedPacketRobotTimestamp;
+      return copy;
+   }
+}
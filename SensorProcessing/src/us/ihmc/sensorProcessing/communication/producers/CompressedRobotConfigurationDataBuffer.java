@@ -0,0 +1,300 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import us.ihmc.SdfLoader.models.FullRobotModel;
+import us.ihmc.communication.net.PacketConsumer;
+import us.ihmc.robotics.sensors.ForceSensorDataHolder;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.CompressedRobotConfigurationData;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+
+/**
+ * Variant of {@link RobotConfigurationDataBuffer} for CompressedRobotConfigurationData.
+ *
+ * Instead of keeping a RobotConfigurationData per entry, the buffer keeps the timestamp and the encoded bytes of every packet in primitive arrays and the
+ * quantized values of the last keyframes. The configuration of an entry is only reconstructed when a full robot model is updated with it. Make sure not to
+ * share full robot models between threads.
+ *
+ * The buffer keeps enough keyframes for all entries when the stream has a keyframe every keyframeInterval packets. Keyframes requested on top of that, for
+ * example when a client connects, can push out the keyframes of the oldest entries; those entries are then skipped as if they were evicted.
+ */
+public class CompressedRobotConfigurationDataBuffer implements PacketConsumer<CompressedRobotConfigurationData>
+{
+   final static int BUFFER_SIZE = RobotConfigurationDataBuffer.BUFFER_SIZE;
+
+   private final long[] timestamps = new long[BUFFER_SIZE];
+   private final boolean[] isKeyframe = new boolean[BUFFER_SIZE];
+   private final int[] keyframeIds = new int[BUFFER_SIZE];
+   private final byte[][] encodedData = new byte[BUFFER_SIZE][];
+   private final int[] encodedLengths = new int[BUFFER_SIZE];
+   private int numberOfEntries = 0;
+   private int currentIndex = -1;
+
+   private final int numberOfKeyframes;
+   private final int[][] keyframeValues;
+   private final int[] keyframeIdsInSlots;
+   private final boolean[] keyframeSlotIsValid;
+
+   private RobotConfigurationDataQuantizer quantizer;
+   private int jointNameHash;
+
+   private final ReentrantLock updateLock = new ReentrantLock();
+   private final Condition timestampCondition = updateLock.newCondition();
+
+   private final RobotConfigurationDataModelUpdater modelUpdater = new RobotConfigurationDataModelUpdater();
+   private final ThreadLocal<ReconstructionBuffer> reconstructionBuffer = new ThreadLocal<ReconstructionBuffer>();
+
+   public CompressedRobotConfigurationDataBuffer()
+   {
+      this(RobotConfigurationDataCompressor.DEFAULT_KEYFRAME_INTERVAL);
+   }
+
+   /**
+    * @param keyframeInterval keyframe interval of the RobotConfigurationDataCompressor that produces the stream
+    */
+   public CompressedRobotConfigurationDataBuffer(int keyframeInterval)
+   {
+      if (keyframeInterval < 1)
+         throw new IllegalArgumentException("The keyframe interval has to be at least 1");
+
+      // BUFFER_SIZE consecutive packets span at most this many keyframe intervals
+      numberOfKeyframes = (BUFFER_SIZE - 1) / keyframeInterval + 2;
+      keyframeValues = new int[numberOfKeyframes][];
+      keyframeIdsInSlots = new int[numberOfKeyframes];
+      keyframeSlotIsValid = new boolean[numberOfKeyframes];
+   }
+
+   public void update(CompressedRobotConfigurationData data)
+   {
+      updateLock.lock();
+      try
+      {
+         if (quantizer == null || !quantizer.hasLayout(data.numberOfJoints, data.numberOfForceSensors, data.numberOfIMUSensors)
+               || jointNameHash != data.jointNameHash)
+         {
+            quantizer = new RobotConfigurationDataQuantizer(data.numberOfJoints, data.numberOfForceSensors, data.numberOfIMUSensors);
+            jointNameHash = data.jointNameHash;
+            clear();
+         }
+
+         int keyframeSlot = getKeyframeSlot(data.keyframeId);
+         if (data.isKeyframe)
+         {
+            if (keyframeValues[keyframeSlot] == null)
+               keyframeValues[keyframeSlot] = new int[quantizer.getNumberOfValues()];
+            quantizer.decode(data.data, data.length, null, keyframeValues[keyframeSlot]);
+            keyframeIdsInSlots[keyframeSlot] = data.keyframeId;
+            keyframeSlotIsValid[keyframeSlot] = true;
+         }
+         else if (!hasKeyframe(data.keyframeId))
+         {
+            // The keyframe of this packet was lost, it cannot be reconstructed
+            return;
+         }
+
+         int index = currentIndex + 1;
+         if (index >= BUFFER_SIZE)
+         {
+            index = 0;
+         }
+
+         timestamps[index] = data.timestamp;
+         isKeyframe[index] = data.isKeyframe;
+         keyframeIds[index] = data.keyframeId;
+         if (data.isKeyframe)
+         {
+            encodedLengths[index] = 0;
+         }
+         else
+         {
+            if (encodedData[index] == null || encodedData[index].length < data.length)
+               encodedData[index] = new byte[data.length];
+            System.arraycopy(data.data, 0, encodedData[index], 0, data.length);
+            encodedLengths[index] = data.length;
+         }
+
+         currentIndex = index;
+         numberOfEntries = Math.min(numberOfEntries + 1, BUFFER_SIZE);
+
+         timestampCondition.signalAll();
+      }
+      finally
+      {
+         updateLock.unlock();
+      }
+   }
+
+   void waitForTimestamp(long timestamp)
+   {
+      updateLock.lock();
+      try
+      {
+         while (getNewestTimestamp() < timestamp)
+         {
+            try
+            {
+               timestampCondition.await();
+            }
+            catch (InterruptedException e)
+            {
+            }
+         }
+      }
+      finally
+      {
+         updateLock.unlock();
+      }
+   }
+
+   private long getNewestTimestamp()
+   {
+      if (numberOfEntries == 0)
+      {
+         return -1;
+      }
+      return timestamps[currentIndex];
+   }
+
+   /**
+    * Update a full robot model with data from timestamp. Optionally update force sensors
+    *
+    * @param waitForTimestamp Will block if no timestamp is not received yet
+    * @param timestamp Timestamp to get. Will return the data for the last received that is smaller or equal to timestamp.
+    * @param model Model to update. Will call updateFramesRecursively()
+    * @param forceSensorDataHolder. Optional, update force sensor data holders
+    *
+    * @return the timestamp of the data the model is updated with, -1 if the model is not updated
+    */
+   public long updateFullRobotModel(boolean waitForTimestamp, long timestamp, FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder)
+   {
+      if (waitForTimestamp)
+      {
+         waitForTimestamp(timestamp);
+      }
+
+      RobotConfigurationData robotConfigurationData = reconstruct(timestamp);
+      if (robotConfigurationData == null)
+      {
+         return -1;
+      }
+      modelUpdater.updateFullRobotModel(robotConfigurationData, model, forceSensorDataHolder);
+      return robotConfigurationData.getTimestamp();
+   }
+
+   public boolean updateFullRobotModelWithNewestData(FullRobotModel fullRobotModel, ForceSensorDataHolder forceSensorDataHolder)
+   {
+      RobotConfigurationData robotConfigurationData = reconstruct(Long.MAX_VALUE);
+      if (robotConfigurationData == null)
+      {
+         return false;
+      }
+
+      modelUpdater.updateFullRobotModel(robotConfigurationData, fullRobotModel, forceSensorDataHolder);
+      return true;
+   }
+
+   /**
+    * Reconstructs the newest entry with a timestamp smaller or equal to key in the buffer of the calling thread.
+    */
+   RobotConfigurationData reconstruct(long key)
+   {
+      updateLock.lock();
+      try
+      {
+         int index = floorIndex(key);
+         if (index < 0)
+         {
+            return null;
+         }
+
+         int keyframeSlot = getKeyframeSlot(keyframeIds[index]);
+         if (!hasKeyframe(keyframeIds[index]))
+         {
+            // The keyframe has been overwritten by newer keyframes
+            return null;
+         }
+
+         ReconstructionBuffer buffer = reconstructionBuffer.get();
+         if (buffer == null || buffer.quantizer != quantizer)
+         {
+            buffer = new ReconstructionBuffer(quantizer);
+            reconstructionBuffer.set(buffer);
+         }
+
+         if (isKeyframe[index])
+            System.arraycopy(keyframeValues[keyframeSlot], 0, buffer.values, 0, buffer.values.length);
+         else
+            quantizer.decode(encodedData[index], encodedLengths[index], keyframeValues[keyframeSlot], buffer.values);
+
+         quantizer.dequantize(buffer.values, buffer.data);
+         buffer.data.timestamp = timestamps[index];
+         buffer.data.jointNameHash = jointNameHash;
+         return buffer.data;
+      }
+      finally
+      {
+         updateLock.unlock();
+      }
+   }
+
+   private int floorIndex(long key)
+   {
+      for (int i = 0; i < numberOfEntries; i++)
+      {
+         int index = currentIndex - i;
+         if (index < 0)
+         {
+            index += BUFFER_SIZE;
+         }
+
+         if (timestamps[index] <= key)
+         {
+            return index;
+         }
+      }
+      return -1;
+   }
+
+   private boolean hasKeyframe(int keyframeId)
+   {
+      int keyframeSlot = getKeyframeSlot(keyframeId);
+      return keyframeSlotIsValid[keyframeSlot] && keyframeIdsInSlots[keyframeSlot] == keyframeId;
+   }
+
+   private int getKeyframeSlot(int keyframeId)
+   {
+      return (keyframeId % numberOfKeyframes + numberOfKeyframes) % numberOfKeyframes;
+   }
+
+   private void clear()
+   {
+      numberOfEntries = 0;
+      currentIndex = -1;
+      for (int i = 0; i < numberOfKeyframes; i++)
+      {
+         keyframeValues[i] = null;
+         keyframeSlotIsValid[i] = false;
+      }
+   }
+
+   @Override
+   public void receivedPacket(CompressedRobotConfigurationData packet)
+   {
+      update(packet);
+   }
+
+   private static class ReconstructionBuffer
+   {
+      private final RobotConfigurationDataQuantizer quantizer;
+      private final int[] values;
+      private final RobotConfigurationData data;
+
+      private ReconstructionBuffer(RobotConfigurationDataQuantizer quantizer)
+      {
+         this.quantizer = quantizer;
+         values = new int[quantizer.getNumberOfValues()];
+         data = quantizer.createRobotConfigurationData();
+      }
+   }
+}
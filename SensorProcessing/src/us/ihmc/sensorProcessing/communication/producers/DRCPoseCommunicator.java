@@ -9,6 +9,7 @@ import javax.vecmath.Vector3f;
 
 import us.ihmc.SdfLoader.models.FullRobotModel;
 import us.ihmc.communication.net.NetClassList;
+import us.ihmc.communication.net.NetStateListener;
 import us.ihmc.communication.packets.IMUPacket;
 import us.ihmc.communication.streamingData.AtomicLastPacketHolder.LastPacket;
 import us.ihmc.communication.streamingData.GlobalDataProducer;
@@ -21,6 +22,7 @@ import us.ihmc.robotics.robotSide.SideDependentList;
 import us.ihmc.robotics.screwTheory.OneDoFJoint;
 import us.ihmc.robotics.sensors.ForceSensorDefinition;
 import us.ihmc.robotics.sensors.IMUDefinition;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.CompressedRobotConfigurationData;
 import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
 import us.ihmc.sensorProcessing.model.RobotMotionStatusHolder;
 import us.ihmc.sensorProcessing.parameters.DRCRobotSensorInformation;
@@ -61,6 +63,9 @@ public class DRCPoseCommunicator implements RawOutputWriter
 
    private final ConcurrentRingBuffer<RobotConfigurationData> robotConfigurationDataRingBuffer;
 
+   private volatile RobotConfigurationDataCompressor robotConfigurationDataCompressor = null;
+   private final CompressedRobotConfigurationData compressedRobotConfigurationData = new CompressedRobotConfigurationData();
+
    public DRCPoseCommunicator(FullRobotModel estimatorModel, JointConfigurationGatherer jointConfigurationGathererAndProducer, AuxiliaryRobotDataProvider auxiliaryRobotDataProvider,
          GlobalDataProducer dataProducer, SensorTimestampHolder sensorTimestampHolder, SensorRawOutputMapReadOnly sensorRawOutputMapReadOnly,
          RobotMotionStatusHolder robotMotionStatusFromController, DRCRobotSensorInformation sensorInformation, PeriodicThreadScheduler scheduler, NetClassList netClassList)
@@ -131,6 +136,7 @@ public class DRCPoseCommunicator implements RawOutputWriter
    private void startWriterThread()
    {
       dataProducer.registerPacketToSkipQueue(RobotConfigurationData.class);
+      dataProducer.registerPacketToSkipQueue(CompressedRobotConfigurationData.class);
       scheduler.schedule(new Runnable()
       {
          @Override
@@ -143,7 +149,16 @@ public class DRCPoseCommunicator implements RawOutputWriter
                   RobotConfigurationData robotConfigData;
                   while ((robotConfigData = robotConfigurationDataRingBuffer.read()) != null)
                   {
-                     dataProducer.skipQueueAndSend(robotConfigData);
+                     RobotConfigurationDataCompressor compressor = robotConfigurationDataCompressor;
+                     if (compressor != null)
+                     {
+                        compressor.compress(robotConfigData, compressedRobotConfigurationData);
+                        dataProducer.skipQueueAndSend(compressedRobotConfigurationData);
+                     }
+                     else
+                     {
+                        dataProducer.skipQueueAndSend(robotConfigData);
+                     }
                   }
                   robotConfigurationDataRingBuffer.flush();
                }
@@ -159,6 +174,34 @@ public class DRCPoseCommunicator implements RawOutputWriter
 
    }
 
+   /**
+    * Send CompressedRobotConfigurationData instead of RobotConfigurationData, with a keyframe every keyframeInterval packets.
+    * Receivers have to attach a RobotConfigurationDataDecompressor or a CompressedRobotConfigurationDataBuffer.
+    * A keyframe is sent whenever a client connects, so new clients do not wait for the next scheduled keyframe.
+    */
+   public void enableCompression(int keyframeInterval)
+   {
+      boolean attachStateListener = robotConfigurationDataCompressor == null;
+      robotConfigurationDataCompressor = new RobotConfigurationDataCompressor(keyframeInterval);
+
+      if (attachStateListener)
+      {
+         dataProducer.attachStateListener(new NetStateListener()
+         {
+            @Override
+            public void connected()
+            {
+               robotConfigurationDataCompressor.requestKeyframe();
+            }
+
+            @Override
+            public void disconnected()
+            {
+            }
+         });
+      }
+   }
+
    @Override
    public void initialize()
    {
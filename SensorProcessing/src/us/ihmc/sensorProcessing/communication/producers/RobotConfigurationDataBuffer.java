@@ -1,19 +1,11 @@
 package us.ihmc.sensorProcessing.communication.producers;
 
-import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
-import javax.vecmath.Quat4f;
-import javax.vecmath.Vector3f;
-
-import us.ihmc.SdfLoader.models.FullHumanoidRobotModel;
 import us.ihmc.SdfLoader.models.FullRobotModel;
-import us.ihmc.SdfLoader.models.FullRobotModelUtils;
 import us.ihmc.communication.net.PacketConsumer;
-import us.ihmc.robotics.screwTheory.OneDoFJoint;
-import us.ihmc.robotics.screwTheory.SixDoFJoint;
 import us.ihmc.robotics.sensors.ForceSensorDataHolder;
 import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
 
@@ -34,15 +26,7 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
    private final ReentrantLock updateLock = new ReentrantLock();
    private final Condition timestampCondition = updateLock.newCondition();
 
-   private final ThreadLocal<HashMap<FullRobotModel, FullRobotModelCache>> fullRobotModelsCache = new ThreadLocal<HashMap<FullRobotModel, FullRobotModelCache>>()
-   {
-      @Override
-      protected HashMap<FullRobotModel, FullRobotModelCache> initialValue()
-      {
-         return new HashMap<>();
-      }
-   };
-
+   private final RobotConfigurationDataModelUpdater modelUpdater = new RobotConfigurationDataModelUpdater();
 
    public void update(RobotConfigurationData data)
    {
@@ -97,7 +81,7 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
       }
    }
 
-   private RobotConfigurationData floorIndex(long key)
+   RobotConfigurationData floorIndex(long key)
    {
       int currentIndex = this.currentIndex.get();
       for (int i = currentIndex; i >= -BUFFER_SIZE + currentIndex; i--)
@@ -140,7 +124,7 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
       {
          return -1;
       }
-      updateFullRobotModel(robotConfigurationData, model, forceSensorDataHolder);
+      modelUpdater.updateFullRobotModel(robotConfigurationData, model, forceSensorDataHolder);
       return robotConfigurationData.getTimestamp();
    }
 
@@ -159,73 +143,10 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
          return false;
       }
 
-      updateFullRobotModel(robotConfigurationData, fullRobotModel, forceSensorDataHolder);
+      modelUpdater.updateFullRobotModel(robotConfigurationData, fullRobotModel, forceSensorDataHolder);
       return true;
    }
 
-   private void updateFullRobotModel(RobotConfigurationData robotConfigurationData, FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder)
-   {
-      FullRobotModelCache fullRobotModelCache = getFullRobotModelCache(model);
-
-      SixDoFJoint rootJoint = model.getRootJoint();
-      if (robotConfigurationData.jointNameHash != fullRobotModelCache.jointNameHash)
-      {
-         System.out.println(robotConfigurationData.jointNameHash);
-         System.out.println(fullRobotModelCache.jointNameHash);
-         throw new RuntimeException("Joint names do not match for RobotConfigurationData");
-      }
-
-      float[] newJointAngles = robotConfigurationData.getJointAngles();
-      for (int i = 0; i < newJointAngles.length; i++)
-      {
-         fullRobotModelCache.allJoints[i].setQ(newJointAngles[i]);
-      }
-
-      Vector3f translation = robotConfigurationData.getPelvisTranslation();
-      rootJoint.setPosition(translation.x, translation.y, translation.z);
-      Quat4f orientation = robotConfigurationData.getPelvisOrientation();
-      rootJoint.setRotation(orientation.x, orientation.y, orientation.z, orientation.w);
-      rootJoint.getPredecessor().updateFramesRecursively();
-
-      if (forceSensorDataHolder != null)
-      {
-         for (int i = 0; i < forceSensorDataHolder.getForceSensorDefinitions().size(); i++)
-         {
-            forceSensorDataHolder.get(forceSensorDataHolder.getForceSensorDefinitions().get(i)).setWrench(
-                  robotConfigurationData.getMomentAndForceVectorForSensor(i));
-         }
-      }
-   }
-
-   private FullRobotModelCache getFullRobotModelCache(FullRobotModel fullRobotModel)
-   {
-      HashMap<FullRobotModel, FullRobotModelCache> cache = fullRobotModelsCache.get();
-      FullRobotModelCache fullRobotModelCache = cache.get(fullRobotModel);
-      if (fullRobotModelCache == null)
-      {
-         fullRobotModelCache = new FullRobotModelCache(fullRobotModel);
-         cache.put(fullRobotModel, fullRobotModelCache);
-      }
-
-      return fullRobotModelCache;
-
-   }
-
-   private static class FullRobotModelCache
-   {
-      private final OneDoFJoint[] allJoints;
-      private final long jointNameHash;
-
-      private FullRobotModelCache(FullRobotModel fullRobotModel)
-      {
-         if(fullRobotModel instanceof FullHumanoidRobotModel)
-            allJoints = FullRobotModelUtils.getAllJointsExcludingHands((FullHumanoidRobotModel) fullRobotModel);
-         else
-            allJoints = fullRobotModel.getOneDoFJoints();
-         jointNameHash = RobotConfigurationData.calculateJointNameHash(allJoints, fullRobotModel.getForceSensorDefinitions(), fullRobotModel.getIMUDefinitions());
-      }
-   }
-
    @Override
    public void receivedPacket(RobotConfigurationData packet)
    {
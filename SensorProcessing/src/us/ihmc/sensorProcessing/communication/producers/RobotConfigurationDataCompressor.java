@@ -0,0 +1,111 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.CompressedRobotConfigurationData;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+
+/**
+ * Encodes a stream of RobotConfigurationData as CompressedRobotConfigurationData.
+ *
+ * Every keyframeInterval-th packet is a keyframe, the packets in between are delta encoded against the last keyframe. Joint positions, velocities and
+ * torques change little between keyframes, so most deltas fit in one or two bytes instead of the four bytes of a float.
+ *
+ * The packets are encoded in a data array of the maximum encoded size that is reused from packet to packet, so compressing does not allocate once the
+ * layout of the robot is known.
+ *
+ * Not thread safe except for requestKeyframe(), use one compressor per stream.
+ */
+public class RobotConfigurationDataCompressor
+{
+   public static final int DEFAULT_KEYFRAME_INTERVAL = 50;
+
+   private final int keyframeInterval;
+
+   private RobotConfigurationDataQuantizer quantizer;
+   private int[] values;
+   private int[] keyframeValues;
+
+   private int jointNameHash;
+   private int keyframeId = -1;
+   private int packetsSinceKeyframe;
+   private final AtomicBoolean keyframeRequested = new AtomicBoolean(true);
+
+   public RobotConfigurationDataCompressor()
+   {
+      this(DEFAULT_KEYFRAME_INTERVAL);
+   }
+
+   public RobotConfigurationDataCompressor(int keyframeInterval)
+   {
+      if (keyframeInterval < 1)
+         throw new IllegalArgumentException("The keyframe interval has to be at least 1");
+
+      this.keyframeInterval = keyframeInterval;
+   }
+
+   /**
+    * Makes the next packet a keyframe, for example when a new client connects. Can be called from any thread.
+    */
+   public void requestKeyframe()
+   {
+      keyframeRequested.set(true);
+   }
+
+   public void compress(RobotConfigurationData data, CompressedRobotConfigurationData compressedDataToPack)
+   {
+      int numberOfJoints = data.jointAngles == null ? 0 : data.jointAngles.length;
+      int numberOfForceSensors = data.momentAndForceDataAllForceSensors == null ? 0 : data.momentAndForceDataAllForceSensors.length;
+      int numberOfIMUSensors = data.imuSensorData == null ? 0 : data.imuSensorData.length;
+
+      if (quantizer == null || !quantizer.hasLayout(numberOfJoints, numberOfForceSensors, numberOfIMUSensors))
+      {
+         quantizer = new RobotConfigurationDataQuantizer(numberOfJoints, numberOfForceSensors, numberOfIMUSensors);
+         values = new int[quantizer.getNumberOfValues()];
+         keyframeValues = new int[quantizer.getNumberOfValues()];
+         keyframeRequested.set(true);
+      }
+
+      if (data.jointNameHash != jointNameHash)
+      {
+         jointNameHash = data.jointNameHash;
+         keyframeRequested.set(true);
+      }
+
+      quantizer.quantize(data, values);
+
+      if (compressedDataToPack.data == null || compressedDataToPack.data.length < quantizer.getMaximumEncodedSize())
+         compressedDataToPack.data = new byte[quantizer.getMaximumEncodedSize()];
+
+      boolean isKeyframe = keyframeRequested.getAndSet(false) || packetsSinceKeyframe >= keyframeInterval - 1;
+      if (isKeyframe)
+      {
+         compressedDataToPack.length = quantizer.encode(values, null, compressedDataToPack.data);
+         System.arraycopy(values, 0, keyframeValues, 0, values.length);
+         keyframeId++;
+         packetsSinceKeyframe = 0;
+      }
+      else
+      {
+         compressedDataToPack.length = quantizer.encode(values, keyframeValues, compressedDataToPack.data);
+         packetsSinceKeyframe++;
+      }
+
+      compressedDataToPack.isKeyframe = isKeyframe;
+      compressedDataToPack.keyframeId = keyframeId;
+      compressedDataToPack.numberOfJoints = numberOfJoints;
+      compressedDataToPack.numberOfForceSensors = numberOfForceSensors;
+      compressedDataToPack.numberOfIMUSensors = numberOfIMUSensors;
+
+      compressedDataToPack.timestamp = data.timestamp;
+      compressedDataToPack.sensorHeadPPSTimestamp = data.sensorHeadPPSTimestamp;
+      compressedDataToPack.jointNameHash = data.jointNameHash;
+      compressedDataToPack.robotMotionStatus = data.robotMotionStatus;
+      compressedDataToPack.auxiliaryRobotData = data.auxiliaryRobotData;
+      compressedDataToPack.lastReceivedPacketTypeID = data.lastReceivedPacketTypeID;
+      compressedDataToPack.lastReceivedPacketUniqueId = data.lastReceivedPacketUniqueId;
+      compressedDataToPack.lastReceivedPacketRobotTimestamp = data.lastReceivedPacketRobotTimestamp;
+      compressedDataToPack.setUniqueId(data.getUniqueId());
+      compressedDataToPack.setDestination(data.getDestination());
+   }
+}
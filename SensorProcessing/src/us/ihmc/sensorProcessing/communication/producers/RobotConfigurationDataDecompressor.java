@@ -0,0 +1,133 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import us.ihmc.communication.net.PacketConsumer;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.CompressedRobotConfigurationData;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+
+/**
+ * Decodes a stream of CompressedRobotConfigurationData made by a RobotConfigurationDataCompressor.
+ *
+ * Packets that refer to a keyframe that has not been received are dropped until the next keyframe. When constructed with a consumer, this class can be
+ * attached as listener for CompressedRobotConfigurationData and forwards a new RobotConfigurationData for every packet it can decode, so existing
+ * RobotConfigurationData consumers work unchanged on the compressed stream.
+ *
+ * Not thread safe, use one decompressor per stream.
+ */
+public class RobotConfigurationDataDecompressor implements PacketConsumer<CompressedRobotConfigurationData>
+{
+   private final PacketConsumer<RobotConfigurationData> consumer;
+
+   private RobotConfigurationDataQuantizer quantizer;
+   private int[] values;
+   private int[] keyframeValues;
+   private int keyframeId;
+   private boolean hasKeyframe = false;
+
+   public RobotConfigurationDataDecompressor()
+   {
+      this(null);
+   }
+
+   public RobotConfigurationDataDecompressor(PacketConsumer<RobotConfigurationData> consumer)
+   {
+      this.consumer = consumer;
+   }
+
+   /**
+    * Decodes compressedData in a new RobotConfigurationData.
+    * @return the decoded data, or null if the keyframe of compressedData has not been received
+    */
+   public RobotConfigurationData decompress(CompressedRobotConfigurationData compressedData)
+   {
+      if (!update(compressedData))
+         return null;
+
+      RobotConfigurationData data = quantizer.createRobotConfigurationData();
+      unpack(compressedData, data);
+      return data;
+   }
+
+   /**
+    * Decodes compressedData in dataToPack. The arrays of dataToPack are reallocated if they do not match the layout of compressedData.
+    * @return false if the keyframe of compressedData has not been received, dataToPack is not modified in that case
+    */
+   public boolean decompress(CompressedRobotConfigurationData compressedData, RobotConfigurationData dataToPack)
+   {
+      if (!update(compressedData))
+         return false;
+
+      if (!hasLayout(dataToPack))
+      {
+         RobotConfigurationData allocated = quantizer.createRobotConfigurationData();
+         dataToPack.jointAngles = allocated.jointAngles;
+         dataToPack.jointVelocities = allocated.jointVelocities;
+         dataToPack.jointTorques = allocated.jointTorques;
+         dataToPack.momentAndForceDataAllForceSensors = allocated.momentAndForceDataAllForceSensors;
+         dataToPack.imuSensorData = allocated.imuSensorData;
+      }
+
+      unpack(compressedData, dataToPack);
+      return true;
+   }
+
+   @Override
+   public void receivedPacket(CompressedRobotConfigurationData packet)
+   {
+      RobotConfigurationData data = decompress(packet);
+      if (data != null && consumer != null)
+      {
+         consumer.receivedPacket(data);
+      }
+   }
+
+   private boolean update(CompressedRobotConfigurationData compressedData)
+   {
+      if (quantizer == null || !quantizer.hasLayout(compressedData.numberOfJoints, compressedData.numberOfForceSensors, compressedData.numberOfIMUSensors))
+      {
+         quantizer = new RobotConfigurationDataQuantizer(compressedData.numberOfJoints, compressedData.numberOfForceSensors, compressedData.numberOfIMUSensors);
+         values = new int[quantizer.getNumberOfValues()];
+         keyframeValues = new int[quantizer.getNumberOfValues()];
+         hasKeyframe = false;
+      }
+
+      if (compressedData.isKeyframe)
+      {
+         quantizer.decode(compressedData.data, compressedData.length, null, keyframeValues);
+         System.arraycopy(keyframeValues, 0, values, 0, values.length);
+         keyframeId = compressedData.keyframeId;
+         hasKeyframe = true;
+         return true;
+      }
+
+      if (!hasKeyframe || compressedData.keyframeId != keyframeId)
+         return false;
+
+      quantizer.decode(compressedData.data, compressedData.length, keyframeValues, values);
+      return true;
+   }
+
+   private boolean hasLayout(RobotConfigurationData data)
+   {
+      return data.jointAngles != null && data.jointAngles.length == quantizer.getNumberOfJoints() && data.jointVelocities != null
+            && data.jointVelocities.length == quantizer.getNumberOfJoints() && data.jointTorques != null
+            && data.jointTorques.length == quantizer.getNumberOfJoints() && data.momentAndForceDataAllForceSensors != null
+            && data.momentAndForceDataAllForceSensors.length == quantizer.getNumberOfForceSensors() && data.imuSensorData != null
+            && data.imuSensorData.length == quantizer.getNumberOfIMUSensors();
+   }
+
+   private void unpack(CompressedRobotConfigurationData compressedData, RobotConfigurationData dataToPack)
+   {
+      quantizer.dequantize(values, dataToPack);
+
+      dataToPack.timestamp = compressedData.timestamp;
+      dataToPack.sensorHeadPPSTimestamp = compressedData.sensorHeadPPSTimestamp;
+      dataToPack.jointNameHash = compressedData.jointNameHash;
+      dataToPack.robotMotionStatus = compressedData.robotMotionStatus;
+      dataToPack.auxiliaryRobotData = compressedData.auxiliaryRobotData;
+      dataToPack.lastReceivedPacketTypeID = compressedData.lastReceivedPacketTypeID;
+      dataToPack.lastReceivedPacketUniqueId = compressedData.lastReceivedPacketUniqueId;
+      dataToPack.lastReceivedPacketRobotTimestamp = compressedData.lastReceivedPacketRobotTimestamp;
+      dataToPack.setUniqueId(compressedData.getUniqueId());
+      dataToPack.setDestination(compressedData.getDestination());
+   }
+}
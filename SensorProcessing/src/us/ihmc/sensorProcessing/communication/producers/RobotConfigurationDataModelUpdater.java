@@ -0,0 +1,93 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import java.util.HashMap;
+
+import javax.vecmath.Quat4f;
+import javax.vecmath.Vector3f;
+
+import us.ihmc.SdfLoader.models.FullHumanoidRobotModel;
+import us.ihmc.SdfLoader.models.FullRobotModel;
+import us.ihmc.SdfLoader.models.FullRobotModelUtils;
+import us.ihmc.robotics.screwTheory.OneDoFJoint;
+import us.ihmc.robotics.screwTheory.SixDoFJoint;
+import us.ihmc.robotics.sensors.ForceSensorDataHolder;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+
+/**
+ * Sets the state of full robot models from RobotConfigurationData. Keeps the joint order of every model per thread, so do not share full robot models
+ * between threads.
+ */
+class RobotConfigurationDataModelUpdater
+{
+   private final ThreadLocal<HashMap<FullRobotModel, FullRobotModelCache>> fullRobotModelsCache = new ThreadLocal<HashMap<FullRobotModel, FullRobotModelCache>>()
+   {
+      @Override
+      protected HashMap<FullRobotModel, FullRobotModelCache> initialValue()
+      {
+         return new HashMap<>();
+      }
+   };
+
+   void updateFullRobotModel(RobotConfigurationData robotConfigurationData, FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder)
+   {
+      FullRobotModelCache fullRobotModelCache = getFullRobotModelCache(model);
+
+      SixDoFJoint rootJoint = model.getRootJoint();
+      if (robotConfigurationData.jointNameHash != fullRobotModelCache.jointNameHash)
+      {
+         System.out.println(robotConfigurationData.jointNameHash);
+         System.out.println(fullRobotModelCache.jointNameHash);
+         throw new RuntimeException("Joint names do not match for RobotConfigurationData");
+      }
+
+      float[] newJointAngles = robotConfigurationData.getJointAngles();
+      for (int i = 0; i < newJointAngles.length; i++)
+      {
+         fullRobotModelCache.allJoints[i].setQ(newJointAngles[i]);
+      }
+
+      Vector3f translation = robotConfigurationData.getPelvisTranslation();
+      rootJoint.setPosition(translation.x, translation.y, translation.z);
+      Quat4f orientation = robotConfigurationData.getPelvisOrientation();
+      rootJoint.setRotation(orientation.x, orientation.y, orientation.z, orientation.w);
+      rootJoint.getPredecessor().updateFramesRecursively();
+
+      if (forceSensorDataHolder != null)
+      {
+         for (int i = 0; i < forceSensorDataHolder.getForceSensorDefinitions().size(); i++)
+         {
+            forceSensorDataHolder.get(forceSensorDataHolder.getForceSensorDefinitions().get(i)).setWrench(
+                  robotConfigurationData.getMomentAndForceVectorForSensor(i));
+         }
+      }
+   }
+
+   private FullRobotModelCache getFullRobotModelCache(FullRobotModel fullRobotModel)
+   {
+      HashMap<FullRobotModel, FullRobotModelCache> cache = fullRobotModelsCache.get();
+      FullRobotModelCache fullRobotModelCache = cache.get(fullRobotModel);
+      if (fullRobotModelCache == null)
+      {
+         fullRobotModelCache = new FullRobotModelCache(fullRobotModel);
+         cache.put(fullRobotModel, fullRobotModelCache);
+      }
+
+      return fullRobotModelCache;
+
+   }
+
+   private static class FullRobotModelCache
+   {
+      private final OneDoFJoint[] allJoints;
+      private final long jointNameHash;
+
+      private FullRobotModelCache(FullRobotModel fullRobotModel)
+      {
+         if(fullRobotModel instanceof FullHumanoidRobotModel)
+            allJoints = FullRobotModelUtils.getAllJointsExcludingHands((FullHumanoidRobotModel) fullRobotModel);
+         else
+            allJoints = fullRobotModel.getOneDoFJoints();
+         jointNameHash = RobotConfigurationData.calculateJointNameHash(allJoints, fullRobotModel.getForceSensorDefinitions(), fullRobotModel.getIMUDefinitions());
+      }
+   }
+}
@@ -0,0 +1,266 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import javax.vecmath.Quat4f;
+import javax.vecmath.Tuple3f;
+
+import us.ihmc.communication.packets.IMUPacket;
+import us.ihmc.robotics.screwTheory.Wrench;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+
+/**
+ * Maps the floating point state of a RobotConfigurationData to a flat array of quantized values, and encodes differences between two such arrays as zigzag
+ * varints.
+ *
+ * The values are ordered as joint angles, joint velocities, joint torques, root translation, root orientation, pelvis linear velocity, pelvis angular
+ * velocity, pelvis linear acceleration, the wrench of every force sensor and the linear acceleration, orientation and angular velocity of every IMU.
+ *
+ * NaN is quantized to {@link #NAN_VALUE} and dequantized back to NaN, so a sensor that reports NaN is not mistaken for a sensor that reads zero. Values
+ * out of the range of int are clamped, the negative ones to NAN_VALUE + 1.
+ */
+class RobotConfigurationDataQuantizer
+{
+   static final float JOINT_ANGLE_RESOLUTION = 1.0e-4f;
+   static final float JOINT_VELOCITY_RESOLUTION = 1.0e-3f;
+   static final float JOINT_TORQUE_RESOLUTION = 1.0e-2f;
+   static final float POSITION_RESOLUTION = 1.0e-4f;
+   static final float ORIENTATION_RESOLUTION = 1.0e-5f;
+   static final float LINEAR_VELOCITY_RESOLUTION = 1.0e-3f;
+   static final float ANGULAR_VELOCITY_RESOLUTION = 1.0e-4f;
+   static final float LINEAR_ACCELERATION_RESOLUTION = 1.0e-3f;
+   static final float WRENCH_RESOLUTION = 1.0e-2f;
+
+   /** Quantized value of NaN */
+   static final int NAN_VALUE = Integer.MIN_VALUE;
+
+   /** Largest size of a varint encoded 64 bit value */
+   static final int MAXIMUM_BYTES_PER_VALUE = 10;
+
+   private final int numberOfJoints;
+   private final int numberOfForceSensors;
+   private final int numberOfIMUSensors;
+   private final int numberOfValues;
+
+   RobotConfigurationDataQuantizer(int numberOfJoints, int numberOfForceSensors, int numberOfIMUSensors)
+   {
+      this.numberOfJoints = numberOfJoints;
+      this.numberOfForceSensors = numberOfForceSensors;
+      this.numberOfIMUSensors = numberOfIMUSensors;
+      numberOfValues = 3 * numberOfJoints + 16 + Wrench.SIZE * numberOfForceSensors + 10 * numberOfIMUSensors;
+   }
+
+   boolean hasLayout(int numberOfJoints, int numberOfForceSensors, int numberOfIMUSensors)
+   {
+      return this.numberOfJoints == numberOfJoints && this.numberOfForceSensors == numberOfForceSensors && this.numberOfIMUSensors == numberOfIMUSensors;
+   }
+
+   int getNumberOfJoints()
+   {
+      return numberOfJoints;
+   }
+
+   int getNumberOfForceSensors()
+   {
+      return numberOfForceSensors;
+   }
+
+   int getNumberOfIMUSensors()
+   {
+      return numberOfIMUSensors;
+   }
+
+   int getNumberOfValues()
+   {
+      return numberOfValues;
+   }
+
+   int getMaximumEncodedSize()
+   {
+      return numberOfValues * MAXIMUM_BYTES_PER_VALUE;
+   }
+
+   void quantize(RobotConfigurationData data, int[] valuesToPack)
+   {
+      int index = 0;
+      index = quantize(data.jointAngles, JOINT_ANGLE_RESOLUTION, valuesToPack, index);
+      index = quantize(data.jointVelocities, JOINT_VELOCITY_RESOLUTION, valuesToPack, index);
+      index = quantize(data.jointTorques, JOINT_TORQUE_RESOLUTION, valuesToPack, index);
+
+      index = quantize(data.rootTranslation, POSITION_RESOLUTION, valuesToPack, index);
+      index = quantize(data.rootOrientation, valuesToPack, index);
+      index = quantize(data.pelvisLinearVelocity, LINEAR_VELOCITY_RESOLUTION, valuesToPack, index);
+      index = quantize(data.pelvisAngularVelocity, ANGULAR_VELOCITY_RESOLUTION, valuesToPack, index);
+      index = quantize(data.pelvisLinearAcceleration, LINEAR_ACCELERATION_RESOLUTION, valuesToPack, index);
+
+      for (int i = 0; i < numberOfForceSensors; i++)
+         index = quantize(data.momentAndForceDataAllForceSensors[i], WRENCH_RESOLUTION, valuesToPack, index);
+
+      for (int i = 0; i < numberOfIMUSensors; i++)
+      {
+         IMUPacket imuPacket = data.imuSensorData[i];
+         index = quantize(imuPacket.linearAcceleration, LINEAR_ACCELERATION_RESOLUTION, valuesToPack, index);
+         index = quantize(imuPacket.orientation, valuesToPack, index);
+         index = quantize(imuPacket.angularVelocity, ANGULAR_VELOCITY_RESOLUTION, valuesToPack, index);
+      }
+   }
+
+   /**
+    * Sets the floating point state of data from the quantized values. The arrays of data have to be allocated with the layout of this quantizer.
+    */
+   void dequantize(int[] values, RobotConfigurationData dataToPack)
+   {
+      int index = 0;
+      index = dequantize(values, index, JOINT_ANGLE_RESOLUTION, dataToPack.jointAngles);
+      index = dequantize(values, index, JOINT_VELOCITY_RESOLUTION, dataToPack.jointVelocities);
+      index = dequantize(values, index, JOINT_TORQUE_RESOLUTION, dataToPack.jointTorques);
+
+      index = dequantize(values, index, POSITION_RESOLUTION, dataToPack.rootTranslation);
+      index = dequantize(values, index, dataToPack.rootOrientation);
+      index = dequantize(values, index, LINEAR_VELOCITY_RESOLUTION, dataToPack.pelvisLinearVelocity);
+      index = dequantize(values, index, ANGULAR_VELOCITY_RESOLUTION, dataToPack.pelvisAngularVelocity);
+      index = dequantize(values, index, LINEAR_ACCELERATION_RESOLUTION, dataToPack.pelvisLinearAcceleration);
+
+      for (int i = 0; i < numberOfForceSensors; i++)
+         index = dequantize(values, index, WRENCH_RESOLUTION, dataToPack.momentAndForceDataAllForceSensors[i]);
+
+      for (int i = 0; i < numberOfIMUSensors; i++)
+      {
+         IMUPacket imuPacket = dataToPack.imuSensorData[i];
+         index = dequantize(values, index, LINEAR_ACCELERATION_RESOLUTION, imuPacket.linearAcceleration);
+         index = dequantize(values, index, imuPacket.orientation);
+         index = dequantize(values, index, ANGULAR_VELOCITY_RESOLUTION, imuPacket.angularVelocity);
+      }
+   }
+
+   /**
+    * Allocates a RobotConfigurationData with the layout of this quantizer.
+    */
+   RobotConfigurationData createRobotConfigurationData()
+   {
+      RobotConfigurationData data = new RobotConfigurationData();
+      data.jointAngles = new float[numberOfJoints];
+      data.jointVelocities = new float[numberOfJoints];
+      data.jointTorques = new float[numberOfJoints];
+      data.momentAndForceDataAllForceSensors = new float[numberOfForceSensors][Wrench.SIZE];
+      data.imuSensorData = new IMUPacket[numberOfIMUSensors];
+      for (int i = 0; i < numberOfIMUSensors; i++)
+         data.imuSensorData[i] = new IMUPacket();
+      return data;
+   }
+
+   /**
+    * Writes values - reference as zigzag varints. A null reference encodes the values themselves.
+    * @return the number of bytes written
+    */
+   int encode(int[] values, int[] reference, byte[] bufferToPack)
+   {
+      int position = 0;
+      for (int i = 0; i < numberOfValues; i++)
+      {
+         long delta = reference == null ? values[i] : (long) values[i] - (long) reference[i];
+         long zigzag = (delta << 1) ^ (delta >> 63);
+
+         while ((zigzag & ~0x7FL) != 0L)
+         {
+            bufferToPack[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+         }
+         bufferToPack[position++] = (byte) zigzag;
+      }
+      return position;
+   }
+
+   /**
+    * Inverse of {@link #encode(int[], int[], byte[])}, reads the first length bytes of buffer.
+    */
+   void decode(byte[] buffer, int length, int[] reference, int[] valuesToPack)
+   {
+      int position = 0;
+      for (int i = 0; i < numberOfValues; i++)
+      {
+         long zigzag = 0L;
+         int shift = 0;
+         byte b;
+         do
+         {
+            if (position >= length)
+               throw new RuntimeException("Compressed robot configuration data is truncated");
+            b = buffer[position++];
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+         }
+         while ((b & 0x80) != 0);
+
+         long delta = (zigzag >>> 1) ^ -(zigzag & 1L);
+         valuesToPack[i] = (int) (reference == null ? delta : reference[i] + delta);
+      }
+   }
+
+   private static int quantize(float value, float resolution)
+   {
+      if (Float.isNaN(value))
+         return NAN_VALUE;
+
+      // Math.round clamps to the range of int, keep NAN_VALUE for NaN
+      return Math.max(Math.round(value / resolution), NAN_VALUE + 1);
+   }
+
+   private static float dequantize(int value, float resolution)
+   {
+      if (value == NAN_VALUE)
+         return Float.NaN;
+
+      return value * resolution;
+   }
+
+   private static int quantize(float[] array, float resolution, int[] valuesToPack, int index)
+   {
+      for (int i = 0; i < array.length; i++)
+         valuesToPack[index++] = quantize(array[i], resolution);
+      return index;
+   }
+
+   private static int quantize(Tuple3f tuple, float resolution, int[] valuesToPack, int index)
+   {
+      valuesToPack[index++] = quantize(tuple.x, resolution);
+      valuesToPack[index++] = quantize(tuple.y, resolution);
+      valuesToPack[index++] = quantize(tuple.z, resolution);
+      return index;
+   }
+
+   private static int quantize(Quat4f quaternion, int[] valuesToPack, int index)
+   {
+      valuesToPack[index++] = quantize(quaternion.x, ORIENTATION_RESOLUTION);
+      valuesToPack[index++] = quantize(quaternion.y, ORIENTATION_RESOLUTION);
+      valuesToPack[index++] = quantize(quaternion.z, ORIENTATION_RESOLUTION);
+      valuesToPack[index++] = quantize(quaternion.w, ORIENTATION_RESOLUTION);
+      return index;
+   }
+
+   private static int dequantize(int[] values, int index, float resolution, float[] arrayToPack)
+   {
+      for (int i = 0; i < arrayToPack.length; i++)
+         arrayToPack[i] = dequantize(values[index++], resolution);
+      return index;
+   }
+
+   private static int dequantize(int[] values, int index, float resolution, Tuple3f tupleToPack)
+   {
+      tupleToPack.x = dequantize(values[index++], resolution);
+      tupleToPack.y = dequantize(values[index++], resolution);
+      tupleToPack.z = dequantize(values[index++], resolution);
+      return index;
+   }
+
+   private static int dequantize(int[] values, int index, Quat4f quaternionToPack)
+   {
+      quaternionToPack.x = dequantize(values[index++], ORIENTATION_RESOLUTION);
+      quaternionToPack.y = dequantize(values[index++], ORIENTATION_RESOLUTION);
+      quaternionToPack.z = dequantize(values[index++], ORIENTATION_RESOLUTION);
+      quaternionToPack.w = dequantize(values[index++], ORIENTATION_RESOLUTION);
+
+      // Undo the quantization error on the norm
+      if (quaternionToPack.x != 0.0f || quaternionToPack.y != 0.0f || quaternionToPack.z != 0.0f || quaternionToPack.w != 0.0f)
+         quaternionToPack.normalize();
+      return index;
+   }
+}
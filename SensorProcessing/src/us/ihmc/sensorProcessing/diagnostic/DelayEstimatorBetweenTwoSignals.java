@@ -1,6 +1,5 @@
 package us.ihmc.sensorProcessing.diagnostic;
 
-import org.apache.commons.math3.stat.regression.SimpleRegression;
 import org.ejml.data.DenseMatrix64F;
 
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
@@ -14,6 +13,11 @@ import us.ihmc.robotics.math.filters.AlphaFilteredYoVariable;
  * It is achieved by finding the maximum cross-correlation between the two signals by shifting one with respect to the other.
  * For each iteration, an initial guess for the delay is used as a seed to find the local maximum for the cross-correlation.
  * However this estimated delay has a useful meaning only if there is sufficient correlation between the two signals.
+ * <p>
+ * The correlation for each offset is computed from running sums that are updated with the samples entering and leaving the observation window,
+ * so a tick costs O(number of offsets) instead of O(number of offsets * number of observations).
+ * To prevent round-off errors from accumulating, the sums of one offset are recomputed from scratch every tick, going through all the offsets in turn.
+ * </p>
  * @author Sylvain
  *
  */
@@ -31,7 +35,20 @@ public class DelayEstimatorBetweenTwoSignals implements DiagnosticUpdatable
 
    private final DenseMatrix64F referenceSignalBuffer;
    private final DenseMatrix64F delayedSignalBuffer;
-   private final SimpleRegression correlationCalculator = new SimpleRegression();
+
+   /**
+    * Running sums used to compute the correlation for each offset.
+    * The samples are shifted by the mean of the window at the time the sums were last recomputed to limit cancellation errors.
+    */
+   private double[] shiftX = new double[0];
+   private double[] shiftY = new double[0];
+   private double[] sumX = new double[0];
+   private double[] sumY = new double[0];
+   private double[] sumXX = new double[0];
+   private double[] sumYY = new double[0];
+   private double[] sumXY = new double[0];
+   private boolean haveCorrelationSumsBeenInitialized = false;
+   private int nextOffsetIndexToRecompute = 0;
    private final DoubleYoVariable correlationForDelay;
    private final DoubleYoVariable maxCorrelation;
    private final IntegerYoVariable nTicksOfDelay;
@@ -77,14 +94,15 @@ public class DelayEstimatorBetweenTwoSignals implements DiagnosticUpdatable
       numberOfObservations = new IntegerYoVariable(namePrefix + "_nObservationsForDelayEstimation", registry);
       numberOfObservations.set(DEFAULT_NUMBER_OF_OBSERVATIONS);
 
-      int bufferSize = numberOfObservations.getIntegerValue() + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue();
-      referenceSignalBuffer = new DenseMatrix64F(bufferSize, 1);
-      delayedSignalBuffer = new DenseMatrix64F(bufferSize, 1);
+      referenceSignalBuffer = new DenseMatrix64F(0, 1);
+      delayedSignalBuffer = new DenseMatrix64F(0, 1);
 
       correlationAlpha = new DoubleYoVariable(namePrefix + "CorrelationApha", registry);
       correlationAlpha.set(AlphaFilteredYoVariable.computeAlphaGivenBreakFrequencyProperly(0.16, dt));
-      correlationBuffer = new DenseMatrix64F(1 + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue(), 1);
-      filteredCorrelationBuffer = new DenseMatrix64F(1 + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue(), 1);
+      correlationBuffer = new DenseMatrix64F(0, 1);
+      filteredCorrelationBuffer = new DenseMatrix64F(0, 1);
+
+      resizeBuffers();
    }
 
    @Override
@@ -111,12 +129,7 @@ public class DelayEstimatorBetweenTwoSignals implements DiagnosticUpdatable
       maxLagInTicks.set(maxAbsoluteLagInTicks);
       this.numberOfObservations.set(numberOfObservations);
 
-      int bufferSize = this.numberOfObservations.getIntegerValue() + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue();
-      referenceSignalBuffer.reshape(bufferSize, 1);
-      delayedSignalBuffer.reshape(bufferSize, 1);
-
-      correlationBuffer.reshape(1 + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue(), 1);
-      filteredCorrelationBuffer.reshape(1 + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue(), 1);
+      resizeBuffers();
    }
 
    public void setEstimationParameters(double maxAbsoluteLead, double maxAbsoluteLag, double observationWindow)
@@ -125,12 +138,32 @@ public class DelayEstimatorBetweenTwoSignals implements DiagnosticUpdatable
       maxLagInTicks.set((int) (maxAbsoluteLag / dt));
       this.numberOfObservations.set((int) (observationWindow / dt));
 
-      int bufferSize = this.numberOfObservations.getIntegerValue() + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue();
+      resizeBuffers();
+   }
+
+   private void resizeBuffers()
+   {
+      // One more sample than the observation window and the offsets need, it is the sample leaving the window of the largest lag.
+      int bufferSize = numberOfObservations.getIntegerValue() + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue() + 1;
       referenceSignalBuffer.reshape(bufferSize, 1);
       delayedSignalBuffer.reshape(bufferSize, 1);
 
-      correlationBuffer.reshape(1 + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue(), 1);
-      filteredCorrelationBuffer.reshape(1 + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue(), 1);
+      int numberOfOffsets = 1 + maxLeadInTicks.getIntegerValue() + maxLagInTicks.getIntegerValue();
+      correlationBuffer.reshape(numberOfOffsets, 1);
+      filteredCorrelationBuffer.reshape(numberOfOffsets, 1);
+
+      if (sumX.length < numberOfOffsets)
+      {
+         shiftX = new double[numberOfOffsets];
+         shiftY = new double[numberOfOffsets];
+         sumX = new double[numberOfOffsets];
+         sumY = new double[numberOfOffsets];
+         sumXX = new double[numberOfOffsets];
+         sumYY = new double[numberOfOffsets];
+         sumXY = new double[numberOfOffsets];
+      }
+
+      haveCorrelationSumsBeenInitialized = false;
    }
 
    public void reset()
@@ -138,6 +171,7 @@ public class DelayEstimatorBetweenTwoSignals implements DiagnosticUpdatable
       bufferPosition = 0;
       hasBufferBeenFilled = false;
       firstEstimationTick = true;
+      haveCorrelationSumsBeenInitialized = false;
    }
 
    @Override
@@ -179,23 +213,21 @@ public class DelayEstimatorBetweenTwoSignals implements DiagnosticUpdatable
    private void updateCorrelationBuffer()
    {
       double maxCorr = Double.NEGATIVE_INFINITY;
+      int numberOfOffsets = maxLagInTicks.getIntegerValue() + maxLeadInTicks.getIntegerValue() + 1;
+
+      if (nextOffsetIndexToRecompute >= numberOfOffsets)
+         nextOffsetIndexToRecompute = 0;
 
       for (int offset = -maxLagInTicks.getIntegerValue(); offset <= maxLeadInTicks.getIntegerValue(); offset++)
       {
          int index = offset + maxLagInTicks.getIntegerValue();
-         correlationCalculator.clear();
 
-         for (int i = 1; i <= numberOfObservations.getIntegerValue(); i++)
-         {
-            int indexX = (bufferPosition + i + offset + maxLagInTicks.getIntegerValue()) % referenceSignalBuffer.getNumRows();
-            double x = referenceSignalBuffer.get(indexX, 0);
-            int indexY = (bufferPosition + i + maxLagInTicks.getIntegerValue()) % delayedSignalBuffer.getNumRows();
-            double y = delayedSignalBuffer.get(indexY, 0);
-
-            correlationCalculator.addData(x, y);
-         }
+         if (!haveCorrelationSumsBeenInitialized || index == nextOffsetIndexToRecompute)
+            recomputeCorrelationSums(offset);
+         else
+            updateCorrelationSums(offset);
 
-         double currentCorrelation = correlationCalculator.getR();
+         double currentCorrelation = computeCorrelation(index);
          correlationBuffer.set(index, 0, currentCorrelation);
          if (Double.isNaN(currentCorrelation))
             currentCorrelation = 0.0;
@@ -214,10 +246,107 @@ public class DelayEstimatorBetweenTwoSignals implements DiagnosticUpdatable
          maxCorr = Math.max(maxCorr, currentFilteredCorrelation);
       }
 
+      haveCorrelationSumsBeenInitialized = true;
+      nextOffsetIndexToRecompute++;
+
       firstEstimationTick = false;
       maxCorrelation.set(maxCorr);
    }
 
+   /**
+    * The i-th sample of the window of the reference signal for the given offset, i in [1, numberOfObservations].
+    * i = 0 is the sample that just left the window.
+    */
+   private double getReferenceSignal(int offset, int i)
+   {
+      int index = (bufferPosition + i + offset + maxLagInTicks.getIntegerValue()) % referenceSignalBuffer.getNumRows();
+      return referenceSignalBuffer.get(index, 0);
+   }
+
+   /**
+    * The i-th sample of the window of the delayed signal, i in [1, numberOfObservations].
+    * i = 0 is the sample that just left the window.
+    */
+   private double getDelayedSignal(int i)
+   {
+      int index = (bufferPosition + i + maxLagInTicks.getIntegerValue()) % delayedSignalBuffer.getNumRows();
+      return delayedSignalBuffer.get(index, 0);
+   }
+
+   private void recomputeCorrelationSums(int offset)
+   {
+      int index = offset + maxLagInTicks.getIntegerValue();
+      int n = numberOfObservations.getIntegerValue();
+
+      double meanX = 0.0;
+      double meanY = 0.0;
+
+      for (int i = 1; i <= n; i++)
+      {
+         meanX += getReferenceSignal(offset, i);
+         meanY += getDelayedSignal(i);
+      }
+
+      meanX /= n;
+      meanY /= n;
+
+      double sX = 0.0, sY = 0.0, sXX = 0.0, sYY = 0.0, sXY = 0.0;
+
+      for (int i = 1; i <= n; i++)
+      {
+         double x = getReferenceSignal(offset, i) - meanX;
+         double y = getDelayedSignal(i) - meanY;
+         sX += x;
+         sY += y;
+         sXX += x * x;
+         sYY += y * y;
+         sXY += x * y;
+      }
+
+      shiftX[index] = meanX;
+      shiftY[index] = meanY;
+      sumX[index] = sX;
+      sumY[index] = sY;
+      sumXX[index] = sXX;
+      sumYY[index] = sYY;
+      sumXY[index] = sXY;
+   }
+
+   private void updateCorrelationSums(int offset)
+   {
+      int index = offset + maxLagInTicks.getIntegerValue();
+      int n = numberOfObservations.getIntegerValue();
+
+      double xIn = getReferenceSignal(offset, n) - shiftX[index];
+      double yIn = getDelayedSignal(n) - shiftY[index];
+      double xOut = getReferenceSignal(offset, 0) - shiftX[index];
+      double yOut = getDelayedSignal(0) - shiftY[index];
+
+      sumX[index] += xIn - xOut;
+      sumY[index] += yIn - yOut;
+      sumXX[index] += xIn * xIn - xOut * xOut;
+      sumYY[index] += yIn * yIn - yOut * yOut;
+      sumXY[index] += xIn * yIn - xOut * yOut;
+   }
+
+   /**
+    * @return the Pearson correlation coefficient for the offset, or NaN if one of the two signals is constant over the window.
+    */
+   private double computeCorrelation(int index)
+   {
+      int n = numberOfObservations.getIntegerValue();
+
+      double covariance = n * sumXY[index] - sumX[index] * sumY[index];
+      double varianceX = n * sumXX[index] - sumX[index] * sumX[index];
+      double varianceY = n * sumYY[index] - sumY[index] * sumY[index];
+
+      if (varianceX <= 0.0 || varianceY <= 0.0)
+         return Double.NaN;
+
+      double correlation = covariance / Math.sqrt(varianceX * varianceY);
+      return Math.max(-1.0, Math.min(1.0, correlation));
+   }
+
    private void findDelayFromInitialGuess()
    {
       int initialOffsetGuess = -nTicksOfDelay.getIntegerValue();
@@ -277,6 +406,14 @@ public class DelayEstimatorBetweenTwoSignals implements DiagnosticUpdatable
       correlationForDelay.set(maxCorrelationCoefficient);
    }
 
+   /**
+    * @return the correlation between the two signals for the given offset computed at the last update, before filtering.
+    */
+   double getCorrelation(int offset)
+   {
+      return correlationBuffer.get(offset + maxLagInTicks.getIntegerValue(), 0);
+   }
+
    public boolean isEstimatingDelay()
    {
       return hasBufferBeenFilled;
@@ -96,6 +96,22 @@ public class DiagnosticParameters
       }
    }
 
+   /**
+    * Whether the Fourier analysis updates the spectrum with a sliding DFT, which is cheaper per tick than running a full FFT every tick.
+    */
+   public boolean useSlidingDFTForFFT()
+   {
+      switch (diagnosticEnvironment)
+      {
+      case RUNTIME_CONTROLLER:
+         return true;
+      case OFFLINE_LOG:
+      case RUNTIME_EXTERNAL_MODULE:
+      default:
+         return false;
+      }
+   }
+
    public double getCheckUpOscillationPositionAmplitude()
    {
       return 0.05;
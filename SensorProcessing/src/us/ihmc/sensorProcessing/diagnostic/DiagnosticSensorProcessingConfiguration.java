@@ -53,6 +53,7 @@ public class DiagnosticSensorProcessingConfiguration implements SensorProcessing
 
       List<String> jointsToIgnore = diagnosticParameters.getJointsToIgnoreDuringDiagnostic();
       double fftObservationWindow = diagnosticParameters.getFFTObservationWindow();
+      boolean useSlidingDFT = diagnosticParameters.useSlidingDFTForFFT();
 
       jointSensorValidityCheckers = sensorProcessing.addJointSensorValidityCheckers(enableLogging, jointsToIgnore);
       imuSensorValidityCheckers = sensorProcessing.addIMUSensorValidityCheckers(enableLogging);
@@ -62,7 +63,7 @@ public class DiagnosticSensorProcessingConfiguration implements SensorProcessing
       imuOrientationAngularVelocityConsistencyCheckers = sensorProcessing.addIMUOrientationAngularVelocityConsistencyCheckers();
 
       jointForceTrackingDelayEstimators = sensorProcessing.addJointForceTrackingDelayEstimators(jointsToIgnore);
-      jointFourierAnalysisMap = sensorProcessing.addJointFourierAnalysis(fftObservationWindow, jointsToIgnore);
+      jointFourierAnalysisMap = sensorProcessing.addJointFourierAnalysis(fftObservationWindow, useSlidingDFT, jointsToIgnore);
 
       double delayEstimatorFilterBreakFrequency = diagnosticParameters.getDelayEstimatorFilterBreakFrequency();
       double delayEstimatorIntputSignalsSMAWindow = diagnosticParameters.getDelayEstimatorIntputSignalsSMAWindow();
@@ -23,10 +23,21 @@ public class OneDoFJointFourierAnalysis implements DiagnosticUpdatable
 
    public OneDoFJointFourierAnalysis(OneDoFJoint joint, double estimationWindow, double dt, YoVariableRegistry parentRegistry)
    {
-      this(joint, estimationWindow, dt, null, null, null, parentRegistry);
+      this(joint, estimationWindow, dt, false, parentRegistry);
+   }
+
+   public OneDoFJointFourierAnalysis(OneDoFJoint joint, double estimationWindow, double dt, boolean useSlidingDFT, YoVariableRegistry parentRegistry)
+   {
+      this(joint, estimationWindow, dt, useSlidingDFT, null, null, null, parentRegistry);
    }
 
    public OneDoFJointFourierAnalysis(OneDoFJoint joint, double estimationWindow, double dt, DoubleYoVariable velocity, DoubleYoVariable tau, DoubleYoVariable tauDesired, YoVariableRegistry parentRegistry)
+   {
+      this(joint, estimationWindow, dt, false, velocity, tau, tauDesired, parentRegistry);
+   }
+
+   public OneDoFJointFourierAnalysis(OneDoFJoint joint, double estimationWindow, double dt, boolean useSlidingDFT, DoubleYoVariable velocity, DoubleYoVariable tau,
+         DoubleYoVariable tauDesired, YoVariableRegistry parentRegistry)
    {
       this.joint = joint;
       String jointName = joint.getName();
@@ -34,9 +45,9 @@ public class OneDoFJointFourierAnalysis implements DiagnosticUpdatable
       registry = new YoVariableRegistry(jointName + "FourierAnalysis");
       parentRegistry.addChild(registry);
 
-      velocityFourierAnalysis = new Online1DSignalFourierAnalysis(jointName + "Velocity", estimationWindow, dt, registry);
-      tauFourierAnalysis = new Online1DSignalFourierAnalysis(jointName + "Tau", estimationWindow, dt, registry);
-      tauDesiredFourierAnalysis = new Online1DSignalFourierAnalysis(jointName + "TauDesired", estimationWindow, dt, registry);
+      velocityFourierAnalysis = new Online1DSignalFourierAnalysis(jointName + "Velocity", estimationWindow, dt, useSlidingDFT, registry);
+      tauFourierAnalysis = new Online1DSignalFourierAnalysis(jointName + "Tau", estimationWindow, dt, useSlidingDFT, registry);
+      tauDesiredFourierAnalysis = new Online1DSignalFourierAnalysis(jointName + "TauDesired", estimationWindow, dt, useSlidingDFT, registry);
 
       if (velocity == null || tau == null || tauDesired == null)
       {
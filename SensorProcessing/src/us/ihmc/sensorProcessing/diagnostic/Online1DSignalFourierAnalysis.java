@@ -31,6 +31,16 @@ public class Online1DSignalFourierAnalysis
    private final DoubleFFT_1D fft;
    private final double[] signalBuffer;
    private final double[] fftOuput;
+
+   /**
+    * When true, the spectrum is updated with a sliding DFT: every new sample updates each bin in constant time instead of running a full FFT.
+    * The bins are recomputed with a full FFT every time the buffer wraps around to get rid of the accumulated round-off errors.
+    */
+   private final boolean useSlidingDFT;
+   /** Spectrum updated by the sliding DFT, packed the same way as the output of {@link DoubleFFT_1D#realForward(double[])}. */
+   private final double[] slidingDFTOutput;
+   private final double[] slidingDFTCos;
+   private final double[] slidingDFTSin;
    private final double[] frequencies;
    private final double[] magnitudes;
    private final double[] filteredMagnitudes;
@@ -46,8 +56,17 @@ public class Online1DSignalFourierAnalysis
    private final double dt;
 
    public Online1DSignalFourierAnalysis(String namePrefix, double estimationWindow, double dt, YoVariableRegistry parentRegistry)
+   {
+      this(namePrefix, estimationWindow, dt, false, parentRegistry);
+   }
+
+   /**
+    * @param useSlidingDFT when true, the spectrum is updated in O(n) per sample with a sliding DFT instead of an O(n log(n)) FFT.
+    */
+   public Online1DSignalFourierAnalysis(String namePrefix, double estimationWindow, double dt, boolean useSlidingDFT, YoVariableRegistry parentRegistry)
    {
       this.dt = dt;
+      this.useSlidingDFT = useSlidingDFT;
 
       registry = new YoVariableRegistry(namePrefix + "FrequencyAnalysis");
       parentRegistry.addChild(registry);
@@ -82,6 +101,26 @@ public class Online1DSignalFourierAnalysis
 
       for (int i = 0; i < numberOfObservations / 2; i++)
          frequencies[i] = i / observationDuration;
+
+      if (useSlidingDFT)
+      {
+         slidingDFTOutput = new double[numberOfObservations];
+         slidingDFTCos = new double[numberOfObservations / 2];
+         slidingDFTSin = new double[numberOfObservations / 2];
+
+         for (int k = 0; k < numberOfObservations / 2; k++)
+         {
+            double angle = 2.0 * Math.PI * k / numberOfObservations;
+            slidingDFTCos[k] = Math.cos(angle);
+            slidingDFTSin[k] = Math.sin(angle);
+         }
+      }
+      else
+      {
+         slidingDFTOutput = null;
+         slidingDFTCos = null;
+         slidingDFTSin = null;
+      }
    }
 
    public void enable()
@@ -118,10 +157,13 @@ public class Online1DSignalFourierAnalysis
       if (!enabled.getBooleanValue())
          return;
 
+      double oldestSignalValue = signalBuffer[bufferPosition];
       signalBuffer[bufferPosition] = currentSignalValue;
       bufferPosition++;
 
-      if (bufferPosition >= numberOfObservations)
+      boolean hasBufferWrapped = bufferPosition >= numberOfObservations;
+
+      if (hasBufferWrapped)
       {
          bufferPosition = 0;
          hasBufferBeenFilled = true;
@@ -130,7 +172,19 @@ public class Online1DSignalFourierAnalysis
       if (!hasBufferBeenFilled)
          return;
 
-      computeFFT();
+      if (!useSlidingDFT)
+      {
+         computeFFT();
+         computeMagnitudes(fftOuput);
+      }
+      else
+      {
+         if (hasBufferWrapped)
+            resetSlidingDFT();
+         else
+            updateSlidingDFT(currentSignalValue - oldestSignalValue);
+         computeMagnitudes(slidingDFTOutput);
+      }
 
       findPrincipalOscillations();
    }
@@ -143,15 +197,47 @@ public class Online1DSignalFourierAnalysis
       }
 
       fft.realForward(fftOuput);
+   }
+
+   /**
+    * Computes the spectrum of the current window from scratch, the oldest sample being the first.
+    */
+   private void resetSlidingDFT()
+   {
+      for (int i = 0; i < numberOfObservations; i++)
+      {
+         slidingDFTOutput[i] = signalBuffer[(bufferPosition + i) % numberOfObservations];
+      }
+
+      fft.realForward(slidingDFTOutput);
+   }
 
+   /**
+    * Slides the window by one sample: X_k = (X_k + x_new - x_oldest) * exp(2 pi j k / n).
+    * @param signalDifference difference between the new sample and the sample it replaced in the window.
+    */
+   private void updateSlidingDFT(double signalDifference)
+   {
+      for (int k = 1; k < numberOfObservations / 2; k++)
+      {
+         double real = slidingDFTOutput[2 * k] + signalDifference;
+         double imag = slidingDFTOutput[2 * k + 1];
+
+         slidingDFTOutput[2 * k] = real * slidingDFTCos[k] - imag * slidingDFTSin[k];
+         slidingDFTOutput[2 * k + 1] = real * slidingDFTSin[k] + imag * slidingDFTCos[k];
+      }
+   }
+
+   private void computeMagnitudes(double[] spectrum)
+   {
       for (int k = 1; k < numberOfObservations / 2; k++)
       {
          double magnitude;
 
          if (k >= minFrequencyIndex.getIntegerValue())
          {
-            double real = fftOuput[2 * k];
-            double imag = fftOuput[2 * k + 1];
+            double real = spectrum[2 * k];
+            double imag = spectrum[2 * k + 1];
 
             magnitude = Math.sqrt(real * real + imag * imag) / (0.5 * numberOfObservations);
          }
@@ -19,9 +19,14 @@ public class QuadTreeForGroundHeightMap extends QuadTreeForGround implements Qua
    
    private QuadTreeForGroundReaderAndWriter readerAndWriter = null;
    
+   /**
+    * The height queries are answered by the snapshot of the tree. Every put publishes a new snapshot, copying the nodes it changed,
+    * so the queries always see all the points and never wait for the tree.
+    */
    public QuadTreeForGroundHeightMap(Box bounds, QuadTreeForGroundParameters quadTreeParameters)
    {
       super(bounds, quadTreeParameters);
+      setPutsBetweenSnapshots(1);
    }
    
    public void setupTreeForGroundReaderAndWriter(QuadTreeForGroundReaderAndWriter readerAndWriter)
@@ -55,86 +60,28 @@ public class QuadTreeForGroundHeightMap extends QuadTreeForGround implements Qua
    }
 
    @Override
-   public boolean containsPoint(double x, double y)
+   public double getHeightAtPoint(double x, double y)
    {
-      double zValue = getHeightAtPoint(x, y);
-      if ((Double.isNaN(zValue)))
-         return true;
+      return getSnapshot().getHeightAtPoint(x, y);
+   }
 
-      return false;
+   @Override
+   public boolean containsPoint(double x, double y)
+   {
+      return getSnapshot().containsPoint(x, y);
    }
 
    @Override
    public List<Point3d> getAllPointsWithinArea(double xCenter, double yCenter, double xExtent, double yExtent)
    {
-      return getAllPointsWithinArea(xCenter, yCenter, xExtent, yExtent, null);
+      return getSnapshot().getAllPointsWithinArea(xCenter, yCenter, xExtent, yExtent);
    }
 
    @Override
    public List<Point3d> getAllPointsWithinArea(double xCenter, double yCenter, double xExtent, double yExtent,
            InclusionFunction<Point3d> maskFunctionAboutCenter)
    {
-      ArrayList<Point3d> pointsWithinBoundsToPack = new ArrayList<Point3d>();
-      ArrayList<Point3d> filteredPoints = new ArrayList<Point3d>();
-
-      lock();
-      Box bounds = new Box(xCenter - xExtent, yCenter - yExtent, xCenter + xExtent, yCenter + yExtent);
-      super.getAllPointsWithinBounds(bounds, pointsWithinBoundsToPack);
-      maskList(pointsWithinBoundsToPack, maskFunctionAboutCenter, filteredPoints);
-
-      // TODO: Magic number 10. Get rid of it somehow...
-      if (filteredPoints.size() > 10)
-      {
-         unlock();
-         return filteredPoints;
-      }
-
-      // If not enough raw points, then use the heightAt function to do the best you can
-      filteredPoints.clear();
-      ArrayList<Point3d> pointsAtGridResolution = getPointsAtGridResolution(xCenter, yCenter, xExtent, yExtent);
-      maskList(pointsAtGridResolution, maskFunctionAboutCenter, filteredPoints);
-      unlock();
-      return filteredPoints;
-   }
-
-   private ArrayList<Point3d> getPointsAtGridResolution(double centerX, double centerY, double extentX, double extentY)
-   {
-      ArrayList<Point3d> points = new ArrayList<Point3d>();
-
-      lock();
-      for (double x = centerX - extentX; x <= centerX + extentX; x += getQuadTreeParameters().getResolution())
-      {
-         for (double y = centerY - extentY; y <= centerY + extentY; y += getQuadTreeParameters().getResolution())
-         {
-            double height = getHeightAtPoint(x, y);
-            if (!Double.isNaN(height))
-            {
-               points.add(new Point3d(x, y, height));
-            }
-         }
-      }
-      unlock();
-
-      return points;
-   }
-
-   private static void maskList(ArrayList<Point3d> originalPoints, InclusionFunction<Point3d> maskFunctionAboutCenter, ArrayList<Point3d> maskedPointsToPack)
-   {
-      if (maskFunctionAboutCenter == null)
-      {
-         maskedPointsToPack.addAll(originalPoints);
-      }
-
-      else
-      {
-         for (Point3d point : originalPoints)
-         {
-            if (maskFunctionAboutCenter.isIncluded(point))
-            {
-               maskedPointsToPack.add(point);
-            }
-         }
-      }
+      return getSnapshot().getAllPointsWithinArea(xCenter, yCenter, xExtent, yExtent, maskFunctionAboutCenter);
    }
 
    ArrayList<HyperCubeTreeListener<GroundAirDescriptor, GroundOnlyQuadTreeData>> hyperCubeTreeListeners = new ArrayList<HyperCubeTreeListener<GroundAirDescriptor,GroundOnlyQuadTreeData>>();
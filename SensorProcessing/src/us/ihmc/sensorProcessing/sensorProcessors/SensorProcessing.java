@@ -1061,6 +1061,11 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
    }
 
    public Map<OneDoFJoint, OneDoFJointFourierAnalysis> addJointFourierAnalysis(double estimationWindow, List<String> jointsToIgnore)
+   {
+      return addJointFourierAnalysis(estimationWindow, false, jointsToIgnore);
+   }
+
+   public Map<OneDoFJoint, OneDoFJointFourierAnalysis> addJointFourierAnalysis(double estimationWindow, boolean useSlidingDFT, List<String> jointsToIgnore)
    {
       LinkedHashMap<OneDoFJoint, OneDoFJointFourierAnalysis> jointFourierAnalysisMap = new LinkedHashMap<>();
 
@@ -1071,7 +1076,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          if (jointsToIgnore.contains(jointToCheck.getName()))
             continue;
 
-         OneDoFJointFourierAnalysis jointFourierAnalysis = new OneDoFJointFourierAnalysis(jointToCheck, estimationWindow, updateDT, registry);
+         OneDoFJointFourierAnalysis jointFourierAnalysis = new OneDoFJointFourierAnalysis(jointToCheck, estimationWindow, updateDT, useSlidingDFT, registry);
          jointFourierAnalysisMap.put(jointToCheck, jointFourierAnalysis);
          diagnosticModules.add(jointFourierAnalysis);
       }
@@ -0,0 +1,210 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.communication.packets.IMUPacket;
+import us.ihmc.robotics.screwTheory.Wrench;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.CompressedRobotConfigurationData;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class CompressedRobotConfigurationDataBufferTest
+{
+   private static final int BUFFER_SIZE = RobotConfigurationDataBuffer.BUFFER_SIZE;
+   private static final int NUMBER_OF_JOINTS = 20;
+   private static final int NUMBER_OF_FORCE_SENSORS = 2;
+   private static final int NUMBER_OF_IMUS = 1;
+   private static final long DT = 1000000L;
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testMatchesRobotConfigurationDataBufferWithShortKeyframeIntervals()
+   {
+      int[] keyframeIntervals = { 1, 2, 7, 10, 15 };
+      for (int keyframeInterval : keyframeIntervals)
+      {
+         compareWithRobotConfigurationDataBuffer(keyframeInterval);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testMatchesRobotConfigurationDataBufferWithLongKeyframeIntervals()
+   {
+      int[] keyframeIntervals = { 16, 50, 333, BUFFER_SIZE, 2 * BUFFER_SIZE };
+      for (int keyframeInterval : keyframeIntervals)
+      {
+         compareWithRobotConfigurationDataBuffer(keyframeInterval);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testEmptyBuffer()
+   {
+      CompressedRobotConfigurationDataBuffer buffer = new CompressedRobotConfigurationDataBuffer(10);
+      assertNull(buffer.reconstruct(Long.MAX_VALUE));
+      assertEquals(-1, buffer.updateFullRobotModel(false, Long.MAX_VALUE, null, null));
+      assertEquals(false, buffer.updateFullRobotModelWithNewestData(null, null));
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testDeltasOfALostKeyframeAreSkipped()
+   {
+      Random random = new Random(1980L);
+      RobotConfigurationDataCompressor compressor = new RobotConfigurationDataCompressor(5);
+      CompressedRobotConfigurationDataBuffer buffer = new CompressedRobotConfigurationDataBuffer(5);
+      CompressedRobotConfigurationData compressedData = new CompressedRobotConfigurationData();
+
+      for (int tick = 0; tick < 15; tick++)
+      {
+         compressor.compress(createRobotConfigurationData(tick, random), compressedData);
+         if (tick != 5)
+         {
+            buffer.update(compressedData);
+         }
+      }
+
+      for (int tick = 0; tick < 15; tick++)
+      {
+         // Packets 5 to 9 are lost with their keyframe, so their timestamps resolve to packet 4
+         long expectedTimestamp = tick >= 5 && tick < 10 ? 4 * DT : tick * DT;
+         assertEquals(expectedTimestamp, buffer.reconstruct(tick * DT).timestamp);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRequestedKeyframes()
+   {
+      Random random = new Random(1981L);
+      RobotConfigurationDataCompressor compressor = new RobotConfigurationDataCompressor(10);
+      CompressedRobotConfigurationDataBuffer buffer = new CompressedRobotConfigurationDataBuffer(10);
+      CompressedRobotConfigurationData compressedData = new CompressedRobotConfigurationData();
+
+      int numberOfPackets = 3 * BUFFER_SIZE;
+      for (int tick = 0; tick < numberOfPackets; tick++)
+      {
+         if (tick % 3 == 0)
+         {
+            compressor.requestKeyframe();
+         }
+
+         RobotConfigurationData data = createRobotConfigurationData(tick, random);
+         compressor.compress(data, compressedData);
+         buffer.update(compressedData);
+
+         RobotConfigurationData reconstructedData = buffer.reconstruct(tick * DT);
+         assertNotNull(reconstructedData);
+         assertEquals(tick * DT, reconstructedData.timestamp);
+         assertEquals(data.jointAngles[0], reconstructedData.jointAngles[0], RobotConfigurationDataQuantizer.JOINT_ANGLE_RESOLUTION);
+      }
+
+      // Requested keyframes can push out the keyframes of the oldest entries, but never the ones of the newest keyframe interval
+      for (int tick = numberOfPackets - 10; tick < numberOfPackets; tick++)
+      {
+         assertEquals(tick * DT, buffer.reconstruct(tick * DT).timestamp);
+      }
+   }
+
+   private static void compareWithRobotConfigurationDataBuffer(int keyframeInterval)
+   {
+      Random random = new Random(keyframeInterval);
+      RobotConfigurationDataCompressor compressor = new RobotConfigurationDataCompressor(keyframeInterval);
+      CompressedRobotConfigurationDataBuffer compressedBuffer = new CompressedRobotConfigurationDataBuffer(keyframeInterval);
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+      CompressedRobotConfigurationData compressedData = new CompressedRobotConfigurationData();
+
+      int numberOfPackets = 5 * BUFFER_SIZE / 2;
+      for (int tick = 0; tick < numberOfPackets; tick++)
+      {
+         RobotConfigurationData data = createRobotConfigurationData(tick, random);
+         compressor.compress(data, compressedData);
+         compressedBuffer.update(compressedData);
+         buffer.update(data);
+
+         if (tick % 97 == 0)
+         {
+            assertSameEntry(buffer, compressedBuffer, tick * DT);
+         }
+      }
+
+      // Before the first packet, the evicted packets, the kept packets, in between packets and after the last packet
+      for (int tick = -1; tick <= numberOfPackets; tick++)
+      {
+         assertSameEntry(buffer, compressedBuffer, tick * DT);
+         assertSameEntry(buffer, compressedBuffer, tick * DT + DT / 2);
+      }
+      assertSameEntry(buffer, compressedBuffer, Long.MAX_VALUE);
+      assertNull(compressedBuffer.reconstruct((numberOfPackets - BUFFER_SIZE - 1) * DT));
+      assertNotNull(compressedBuffer.reconstruct((numberOfPackets - BUFFER_SIZE) * DT));
+   }
+
+   private static void assertSameEntry(RobotConfigurationDataBuffer buffer, CompressedRobotConfigurationDataBuffer compressedBuffer, long key)
+   {
+      RobotConfigurationData expected = buffer.floorIndex(key);
+      RobotConfigurationData actual = compressedBuffer.reconstruct(key);
+
+      if (expected == null)
+      {
+         assertNull(actual);
+         return;
+      }
+
+      assertNotNull(actual);
+      assertEquals(expected.timestamp, actual.timestamp);
+      assertEquals(expected.jointNameHash, actual.jointNameHash);
+
+      for (int i = 0; i < NUMBER_OF_JOINTS; i++)
+      {
+         assertEquals(expected.jointAngles[i], actual.jointAngles[i], RobotConfigurationDataQuantizer.JOINT_ANGLE_RESOLUTION);
+         assertEquals(expected.jointVelocities[i], actual.jointVelocities[i], RobotConfigurationDataQuantizer.JOINT_VELOCITY_RESOLUTION);
+         assertEquals(expected.jointTorques[i], actual.jointTorques[i], RobotConfigurationDataQuantizer.JOINT_TORQUE_RESOLUTION);
+      }
+
+      for (int i = 0; i < NUMBER_OF_FORCE_SENSORS; i++)
+      {
+         for (int j = 0; j < Wrench.SIZE; j++)
+         {
+            assertEquals(expected.momentAndForceDataAllForceSensors[i][j], actual.momentAndForceDataAllForceSensors[i][j],
+                         RobotConfigurationDataQuantizer.WRENCH_RESOLUTION);
+         }
+      }
+   }
+
+   private static RobotConfigurationData createRobotConfigurationData(int tick, Random random)
+   {
+      RobotConfigurationData data = new RobotConfigurationData();
+      data.jointNameHash = 4321;
+      data.timestamp = tick * DT;
+      data.jointAngles = new float[NUMBER_OF_JOINTS];
+      data.jointVelocities = new float[NUMBER_OF_JOINTS];
+      data.jointTorques = new float[NUMBER_OF_JOINTS];
+      data.momentAndForceDataAllForceSensors = new float[NUMBER_OF_FORCE_SENSORS][Wrench.SIZE];
+      data.imuSensorData = new IMUPacket[NUMBER_OF_IMUS];
+      for (int i = 0; i < NUMBER_OF_IMUS; i++)
+         data.imuSensorData[i] = new IMUPacket();
+
+      double time = tick * 0.001;
+      for (int i = 0; i < NUMBER_OF_JOINTS; i++)
+      {
+         data.jointAngles[i] = (float) (Math.sin(time + i) + 1.0e-5 * random.nextGaussian());
+         data.jointVelocities[i] = (float) (Math.cos(time + i) + 1.0e-3 * random.nextGaussian());
+         data.jointTorques[i] = (float) (50.0 * Math.sin(time + 0.5 * i) + 0.05 * random.nextGaussian());
+      }
+
+      for (int i = 0; i < NUMBER_OF_FORCE_SENSORS; i++)
+      {
+         for (int j = 0; j < Wrench.SIZE; j++)
+            data.momentAndForceDataAllForceSensors[i][j] = (float) (100.0 * Math.sin(time + j) + 0.1 * random.nextGaussian());
+      }
+      return data;
+   }
+}
@@ -0,0 +1,282 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import javax.vecmath.Quat4f;
+
+import org.junit.Test;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import us.ihmc.communication.packets.IMUPacket;
+import us.ihmc.robotics.screwTheory.Wrench;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.CompressedRobotConfigurationData;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationData;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class RobotConfigurationDataCompressorTest
+{
+   private static final int NUMBER_OF_JOINTS = 30;
+   private static final int NUMBER_OF_FORCE_SENSORS = 2;
+   private static final int NUMBER_OF_IMUS = 2;
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRoundTripIsWithinTheResolution()
+   {
+      Random random = new Random(1976L);
+      RobotConfigurationDataCompressor compressor = new RobotConfigurationDataCompressor(10);
+      RobotConfigurationDataDecompressor decompressor = new RobotConfigurationDataDecompressor();
+      CompressedRobotConfigurationData compressedData = new CompressedRobotConfigurationData();
+      RobotConfigurationData data = createRobotConfigurationData();
+      RobotConfigurationData decompressedData = new RobotConfigurationData();
+
+      for (int tick = 0; tick < 100; tick++)
+      {
+         setState(data, tick, random);
+         compressor.compress(data, compressedData);
+
+         assertEquals(tick % 10 == 0, compressedData.isKeyframe());
+         assertEquals(tick / 10, compressedData.getKeyframeId());
+
+         assertTrue(decompressor.decompress(compressedData, decompressedData));
+         assertEquals(data.timestamp, decompressedData.timestamp);
+         assertEquals(data.jointNameHash, decompressedData.jointNameHash);
+         assertEquals(data.lastReceivedPacketUniqueId, decompressedData.lastReceivedPacketUniqueId);
+
+         for (int i = 0; i < NUMBER_OF_JOINTS; i++)
+         {
+            assertEquals(data.jointAngles[i], decompressedData.jointAngles[i], RobotConfigurationDataQuantizer.JOINT_ANGLE_RESOLUTION);
+            assertEquals(data.jointVelocities[i], decompressedData.jointVelocities[i], RobotConfigurationDataQuantizer.JOINT_VELOCITY_RESOLUTION);
+            assertEquals(data.jointTorques[i], decompressedData.jointTorques[i], RobotConfigurationDataQuantizer.JOINT_TORQUE_RESOLUTION);
+         }
+
+         assertTrue(data.rootTranslation.epsilonEquals(decompressedData.rootTranslation, RobotConfigurationDataQuantizer.POSITION_RESOLUTION));
+         assertTrue(data.rootOrientation.epsilonEquals(decompressedData.rootOrientation, 5.0f * RobotConfigurationDataQuantizer.ORIENTATION_RESOLUTION));
+         assertTrue(data.pelvisLinearVelocity.epsilonEquals(decompressedData.pelvisLinearVelocity, RobotConfigurationDataQuantizer.LINEAR_VELOCITY_RESOLUTION));
+
+         for (int i = 0; i < NUMBER_OF_FORCE_SENSORS; i++)
+         {
+            for (int j = 0; j < Wrench.SIZE; j++)
+            {
+               assertEquals(data.momentAndForceDataAllForceSensors[i][j], decompressedData.momentAndForceDataAllForceSensors[i][j],
+                            RobotConfigurationDataQuantizer.WRENCH_RESOLUTION);
+            }
+         }
+
+         for (int i = 0; i < NUMBER_OF_IMUS; i++)
+         {
+            assertTrue(data.imuSensorData[i].epsilonEquals(decompressedData.imuSensorData[i], RobotConfigurationDataQuantizer.LINEAR_ACCELERATION_RESOLUTION));
+         }
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testDeltasAreSmallerThanKeyframes()
+   {
+      Random random = new Random(1977L);
+      RobotConfigurationDataCompressor compressor = new RobotConfigurationDataCompressor(50);
+      CompressedRobotConfigurationData compressedData = new CompressedRobotConfigurationData();
+      RobotConfigurationData data = createRobotConfigurationData();
+
+      setState(data, 0, random);
+      compressor.compress(data, compressedData);
+      assertTrue(compressedData.isKeyframe());
+      int keyframeSize = compressedData.length;
+
+      setState(data, 1, random);
+      compressor.compress(data, compressedData);
+      assertFalse(compressedData.isKeyframe());
+
+      int uncompressedSize = 4 * (3 * NUMBER_OF_JOINTS + 16 + Wrench.SIZE * NUMBER_OF_FORCE_SENSORS + 10 * NUMBER_OF_IMUS);
+      assertTrue(keyframeSize < uncompressedSize);
+      assertTrue(compressedData.length < keyframeSize);
+      assertTrue(compressedData.length < uncompressedSize / 3);
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testDataArrayIsReusedAndOnlyItsLengthIsSerialized()
+   {
+      Random random = new Random(1980L);
+      RobotConfigurationDataCompressor compressor = new RobotConfigurationDataCompressor(10);
+      RobotConfigurationDataDecompressor decompressor = new RobotConfigurationDataDecompressor();
+      CompressedRobotConfigurationData compressedData = new CompressedRobotConfigurationData();
+      RobotConfigurationData data = createRobotConfigurationData();
+      RobotConfigurationData decompressedData = new RobotConfigurationData();
+      Kryo kryo = new Kryo();
+      Output output = new Output(4096);
+
+      setState(data, 0, random);
+      compressor.compress(data, compressedData);
+      assertTrue(decompressor.decompress(compressedData, decompressedData));
+      byte[] dataArray = compressedData.data;
+
+      for (int tick = 1; tick < 20; tick++)
+      {
+         setState(data, tick, random);
+         compressor.compress(data, compressedData);
+         assertTrue(compressedData.data == dataArray);
+         assertTrue(compressedData.length < dataArray.length);
+
+         output.clear();
+         kryo.writeObject(output, compressedData);
+         assertTrue(output.position() < compressedData.length + 100);
+
+         CompressedRobotConfigurationData receivedData = kryo.readObject(new Input(output.getBuffer(), 0, output.position()),
+                                                                         CompressedRobotConfigurationData.class);
+         assertEquals(compressedData.length, receivedData.data.length);
+         assertTrue(compressedData.epsilonEquals(receivedData, 0.0));
+         assertTrue(compressedData.epsilonEquals(kryo.copy(compressedData), 0.0));
+
+         assertTrue(decompressor.decompress(receivedData, decompressedData));
+         assertEquals(data.timestamp, decompressedData.timestamp);
+         assertEquals(data.lastReceivedPacketUniqueId, decompressedData.lastReceivedPacketUniqueId);
+         assertEquals(data.jointAngles[7], decompressedData.jointAngles[7], RobotConfigurationDataQuantizer.JOINT_ANGLE_RESOLUTION);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testNaNIsNotDecompressedAsZero()
+   {
+      Random random = new Random(1981L);
+      RobotConfigurationDataCompressor compressor = new RobotConfigurationDataCompressor(10);
+      RobotConfigurationDataDecompressor decompressor = new RobotConfigurationDataDecompressor();
+      CompressedRobotConfigurationData compressedData = new CompressedRobotConfigurationData();
+      RobotConfigurationData data = createRobotConfigurationData();
+      RobotConfigurationData decompressedData = new RobotConfigurationData();
+
+      for (int tick = 0; tick < 3; tick++)
+      {
+         setState(data, tick, random);
+         data.jointTorques[4] = tick == 1 ? 0.0f : Float.NaN;
+         data.pelvisLinearVelocity.y = Float.NaN;
+         data.jointAngles[2] = Float.NEGATIVE_INFINITY;
+         compressor.compress(data, compressedData);
+
+         assertTrue(decompressor.decompress(compressedData, decompressedData));
+         assertEquals(data.jointTorques[4], decompressedData.jointTorques[4], 0.0);
+         assertTrue(Float.isNaN(decompressedData.pelvisLinearVelocity.y));
+         assertFalse(Float.isNaN(decompressedData.jointAngles[2]));
+         assertTrue(decompressedData.jointAngles[2] < -1.0e5f);
+         assertEquals(data.jointTorques[5], decompressedData.jointTorques[5], RobotConfigurationDataQuantizer.JOINT_TORQUE_RESOLUTION);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testPacketsAreDroppedUntilTheNextKeyframeWhenAKeyframeIsLost()
+   {
+      Random random = new Random(1978L);
+      RobotConfigurationDataCompressor compressor = new RobotConfigurationDataCompressor(5);
+      RobotConfigurationDataDecompressor decompressor = new RobotConfigurationDataDecompressor();
+      RobotConfigurationData data = createRobotConfigurationData();
+
+      for (int tick = 0; tick < 20; tick++)
+      {
+         setState(data, tick, random);
+         CompressedRobotConfigurationData compressedData = new CompressedRobotConfigurationData();
+         compressor.compress(data, compressedData);
+
+         if (tick == 5)
+         {
+            // Lose the second keyframe
+            continue;
+         }
+
+         RobotConfigurationData decompressedData = decompressor.decompress(compressedData);
+         if (tick > 5 && tick < 10)
+         {
+            assertNull(decompressedData);
+         }
+         else
+         {
+            assertNotNull(decompressedData);
+            assertEquals(data.timestamp, decompressedData.timestamp);
+            assertEquals(data.jointAngles[3], decompressedData.jointAngles[3], RobotConfigurationDataQuantizer.JOINT_ANGLE_RESOLUTION);
+         }
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRequestedKeyframe()
+   {
+      Random random = new Random(1979L);
+      RobotConfigurationDataCompressor compressor = new RobotConfigurationDataCompressor(100);
+      CompressedRobotConfigurationData compressedData = new CompressedRobotConfigurationData();
+      RobotConfigurationData data = createRobotConfigurationData();
+
+      setState(data, 0, random);
+      compressor.compress(data, compressedData);
+      assertTrue(compressedData.isKeyframe());
+
+      setState(data, 1, random);
+      compressor.compress(data, compressedData);
+      assertFalse(compressedData.isKeyframe());
+
+      compressor.requestKeyframe();
+      setState(data, 2, random);
+      compressor.compress(data, compressedData);
+      assertTrue(compressedData.isKeyframe());
+      assertEquals(1, compressedData.getKeyframeId());
+   }
+
+   private static RobotConfigurationData createRobotConfigurationData()
+   {
+      RobotConfigurationData data = new RobotConfigurationData();
+      data.jointNameHash = 1234;
+      data.jointAngles = new float[NUMBER_OF_JOINTS];
+      data.jointVelocities = new float[NUMBER_OF_JOINTS];
+      data.jointTorques = new float[NUMBER_OF_JOINTS];
+      data.momentAndForceDataAllForceSensors = new float[NUMBER_OF_FORCE_SENSORS][Wrench.SIZE];
+      data.imuSensorData = new IMUPacket[NUMBER_OF_IMUS];
+      for (int i = 0; i < NUMBER_OF_IMUS; i++)
+         data.imuSensorData[i] = new IMUPacket();
+      return data;
+   }
+
+   /**
+    * Slowly varying state with a bit of noise, like a robot sending its state at 1 kHz.
+    */
+   private static void setState(RobotConfigurationData data, int tick, Random random)
+   {
+      double time = tick * 0.001;
+      data.timestamp = tick * 1000000L;
+      data.lastReceivedPacketUniqueId = tick;
+
+      for (int i = 0; i < NUMBER_OF_JOINTS; i++)
+      {
+         data.jointAngles[i] = (float) (Math.sin(time + i) + 1.0e-5 * random.nextGaussian());
+         data.jointVelocities[i] = (float) (Math.cos(time + i) + 1.0e-3 * random.nextGaussian());
+         data.jointTorques[i] = (float) (50.0 * Math.sin(time + 0.5 * i) + 0.05 * random.nextGaussian());
+      }
+
+      data.rootTranslation.set((float) (0.1 * time), 0.2f, 0.9f);
+      data.rootOrientation.set(new Quat4f(0.0f, 0.0f, (float) Math.sin(0.5 * time), (float) Math.cos(0.5 * time)));
+      data.pelvisLinearVelocity.set(0.1f, (float) (0.01 * random.nextGaussian()), 0.0f);
+
+      for (int i = 0; i < NUMBER_OF_FORCE_SENSORS; i++)
+      {
+         for (int j = 0; j < Wrench.SIZE; j++)
+            data.momentAndForceDataAllForceSensors[i][j] = (float) (100.0 * Math.sin(time + j) + 0.1 * random.nextGaussian());
+      }
+
+      for (int i = 0; i < NUMBER_OF_IMUS; i++)
+      {
+         data.imuSensorData[i].linearAcceleration.set((float) (0.1 * random.nextGaussian()), 0.0f, 9.81f);
+         data.imuSensorData[i].orientation.set(data.rootOrientation);
+         data.imuSensorData[i].angularVelocity.set(0.0f, 0.0f, 0.5f);
+      }
+   }
+}
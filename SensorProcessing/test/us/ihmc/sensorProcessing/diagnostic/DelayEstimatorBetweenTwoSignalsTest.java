@@ -5,6 +5,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Random;
 
+import org.apache.commons.math3.stat.regression.SimpleRegression;
 import org.junit.Test;
 
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
@@ -141,4 +142,53 @@ public class DelayEstimatorBetweenTwoSignalsTest
          }
       }
    }
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testRunningSumsMatchBruteForceCorrelation() throws Exception
+   {
+      Random random = new Random(4135L);
+      YoVariableRegistry registry = new YoVariableRegistry("Blop");
+      double dt = 0.001;
+
+      int maxLeadInTicks = 5;
+      int maxLagInTicks = 10;
+      int numberOfObservations = 40;
+      DelayEstimatorBetweenTwoSignals delayEstimatorBetweenTwoSignals = new DelayEstimatorBetweenTwoSignals("delayedSignal", dt, registry);
+      delayEstimatorBetweenTwoSignals.setEstimationParameters(maxLeadInTicks, maxLagInTicks, numberOfObservations);
+      delayEstimatorBetweenTwoSignals.enable();
+
+      // Several full wraps of the buffer, so the running sums go through many samples entering and leaving the window and every offset is recomputed
+      int bufferSize = numberOfObservations + maxLeadInTicks + maxLagInTicks + 1;
+      int numberOfTicks = 10 * bufferSize;
+      double[] referenceSignal = new double[numberOfTicks];
+      double[] delayedSignal = new double[numberOfTicks];
+      SimpleRegression regression = new SimpleRegression();
+
+      for (int tick = 0; tick < numberOfTicks; tick++)
+      {
+         // Random walks far from zero, so cancellation in the running sums would show
+         double previousReference = tick == 0 ? 100.0 : referenceSignal[tick - 1];
+         double previousDelayed = tick == 0 ? -50.0 : delayedSignal[tick - 1];
+         referenceSignal[tick] = previousReference + random.nextDouble() - 0.5;
+         delayedSignal[tick] = previousDelayed + random.nextDouble() - 0.5;
+
+         delayEstimatorBetweenTwoSignals.update(referenceSignal[tick], delayedSignal[tick]);
+
+         if (!delayEstimatorBetweenTwoSignals.isEstimatingDelay())
+            continue;
+
+         // The window of the delayed signal ends maxLeadInTicks before the last tick, the one of the reference signal is moved by the offset
+         int lastTickOfWindow = tick - maxLeadInTicks;
+
+         for (int offset = -maxLagInTicks; offset <= maxLeadInTicks; offset++)
+         {
+            regression.clear();
+            for (int i = lastTickOfWindow - numberOfObservations + 1; i <= lastTickOfWindow; i++)
+               regression.addData(referenceSignal[i + offset], delayedSignal[i]);
+
+            assertEquals("tick " + tick + ", offset " + offset, regression.getR(), delayEstimatorBetweenTwoSignals.getCorrelation(offset), 1.0e-9);
+         }
+      }
+   }
 }
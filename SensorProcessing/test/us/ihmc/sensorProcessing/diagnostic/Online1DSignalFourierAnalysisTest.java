@@ -0,0 +1,75 @@
+package us.ihmc.sensorProcessing.diagnostic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class Online1DSignalFourierAnalysisTest
+{
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testSlidingDFTMatchesFFT() throws Exception
+   {
+      double epsilon = 1.0e-9;
+
+      YoVariableRegistry registry = new YoVariableRegistry("Blop");
+      double dt = 0.001;
+      double estimationWindow = 0.2;
+      Random random = new Random(6541L);
+
+      Online1DSignalFourierAnalysis fftAnalysis = new Online1DSignalFourierAnalysis("fft", estimationWindow, dt, false, registry);
+      Online1DSignalFourierAnalysis slidingDFTAnalysis = new Online1DSignalFourierAnalysis("slidingDFT", estimationWindow, dt, true, registry);
+      fftAnalysis.enable();
+      slidingDFTAnalysis.enable();
+
+      int outputSize = fftAnalysis.getOutputSize();
+      assertEquals(outputSize, slidingDFTAnalysis.getOutputSize());
+      double[] fftMagnitudes = new double[outputSize];
+      double[] slidingDFTMagnitudes = new double[outputSize];
+
+      for (int i = 0; i < 1000; i++)
+      {
+         double time = i * dt;
+         double signal = Math.sin(2.0 * Math.PI * 25.0 * time) + 0.3 * Math.cos(2.0 * Math.PI * 70.0 * time) + 0.01 * random.nextGaussian();
+
+         fftAnalysis.update(signal);
+         slidingDFTAnalysis.update(signal);
+
+         assertEquals(fftAnalysis.hasAnalysisStarted(), slidingDFTAnalysis.hasAnalysisStarted());
+
+         if (fftAnalysis.hasAnalysisStarted())
+         {
+            fftAnalysis.getMagnitudes(fftMagnitudes);
+            slidingDFTAnalysis.getMagnitudes(slidingDFTMagnitudes);
+
+            for (int k = 0; k < outputSize; k++)
+               assertEquals(fftMagnitudes[k], slidingDFTMagnitudes[k], epsilon);
+         }
+      }
+
+      assertTrue(slidingDFTAnalysis.hasAnalysisStarted());
+
+      // Restarting the analysis gives the same results as well
+      fftAnalysis.reset();
+      slidingDFTAnalysis.reset();
+
+      for (int i = 0; i < 500; i++)
+      {
+         double signal = random.nextDouble();
+         fftAnalysis.update(signal);
+         slidingDFTAnalysis.update(signal);
+      }
+
+      fftAnalysis.getMagnitudes(fftMagnitudes);
+      slidingDFTAnalysis.getMagnitudes(slidingDFTMagnitudes);
+
+      for (int k = 0; k < outputSize; k++)
+         assertEquals(fftMagnitudes[k], slidingDFTMagnitudes[k], epsilon);
+   }
+}
@@ -13,10 +13,13 @@ import us.ihmc.tools.testing.TestPlanTarget;
 @SuiteClasses
 ({
    us.ihmc.controlFlow.ControlFlowTest.class,
+   us.ihmc.sensorProcessing.communication.producers.CompressedRobotConfigurationDataBufferTest.class,
+   us.ihmc.sensorProcessing.communication.producers.RobotConfigurationDataCompressorTest.class,
    us.ihmc.sensorProcessing.controlFlowPorts.YoFramePointControlFlowOutputPortTest.class,
    us.ihmc.sensorProcessing.controlFlowPorts.YoFrameQuaternionControlFlowOutputPortTest.class,
    us.ihmc.sensorProcessing.controlFlowPorts.YoFrameVectorControlFlowOutputPortTest.class,
    us.ihmc.sensorProcessing.diagnostic.DelayEstimatorBetweenTwoSignalsTest.class,
+   us.ihmc.sensorProcessing.diagnostic.Online1DSignalFourierAnalysisTest.class,
    us.ihmc.sensorProcessing.encoder.SimulatedEncoderTest.class,
    us.ihmc.sensorProcessing.pointClouds.combinationQuadTreeOctTree.GroundOnlyQuadTreeTest.class,
    us.ihmc.sensorProcessing.pointClouds.combinationQuadTreeOctTree.QuadTreeForGroundHeightMapTest.class,
@@ -1,5 +1,6 @@
 package us.ihmc.simulationconstructionset;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 
@@ -28,7 +29,8 @@ public class DataBuffer extends YoVariableHolderImplementation
    private static final long serialVersionUID = 6736812894819363756L;
    private int inPoint = 0;
 
-   private int index = 0;
+   /** Written last when recording a tick, so a reader that sees a new index also sees the data recorded at that index. */
+   private volatile int index = 0;
    private int maxBufferSize = 16384;
    private int outPoint = 0;
    private ArrayList<RewoundListener> simulationRewoundListeners = null;
@@ -48,6 +50,20 @@ public class DataBuffer extends YoVariableHolderImplementation
 
    private boolean safeToManualyChangeIndex = true;
 
+   private File spillDirectory = null;
+   private int ticksPerSpilledChunk;
+   private DataBufferSpillStore spillStore = null;
+   /** Ticks that are still in the buffer but were already spilled, they start at spilledAheadStartSlot. */
+   private int spilledAheadStartSlot = 0;
+   private int numberOfSpilledAheadTicks = 0;
+
+   private boolean showingSpilledTicks = false;
+   private long firstPagedInTick;
+   private int numberOfChunksBeforePageIn;
+   private long newestTicksStartBeforePageIn;
+   private int newestTicksLengthBeforePageIn;
+   private int indexBeforePageIn;
+
    public DataBuffer()
    {
       entries = new ArrayList<DataBufferEntry>();
@@ -55,6 +71,8 @@ public class DataBuffer extends YoVariableHolderImplementation
 
    public void closeAndDispose()
    {
+      disableSpillToDisk();
+
       dataBufferListeners.clear();
       dataBufferListeners = null;
 
@@ -293,6 +311,294 @@ public class DataBuffer extends YoVariableHolderImplementation
       this.wrapBuffer = newWrapBuffer;
    }
 
+   /**
+    * Enables spilling to disk. Once the buffer is full, the oldest ticks are written to compressed chunk files instead of being lost when they get overwritten.
+    * The buffer keeps the newest ticks. Stepping back past the in point pages older ticks back in, and so does {@link #pageInSpilledTicks(long)}.
+    * {@link DataFileWriter} exports the spilled ticks followed by the ticks between the in and out point.
+    * Cropping drops the spilled ticks, they are outside of the cropped ticks. Cutting and thinning rewrite the spilled ticks and show the newest ticks afterwards.
+    * Clearing the buffer discards the spilled ticks. Variables must not be added once ticks have been spilled.
+    *
+    * @param directory Directory for the chunk files, they are deleted when spilling is disabled.
+    * @param ticksPerChunk Number of ticks written to disk at once.
+    */
+   public void enableSpillToDisk(File directory, int ticksPerChunk)
+   {
+      disableSpillToDisk();
+
+      this.spillDirectory = directory;
+      this.ticksPerSpilledChunk = ticksPerChunk;
+   }
+
+   public void disableSpillToDisk()
+   {
+      if (showingSpilledTicks)
+         restoreNewestTicks();
+
+      if (spillStore != null)
+      {
+         spillStore.close();
+         spillStore = null;
+      }
+
+      spillDirectory = null;
+      numberOfSpilledAheadTicks = 0;
+   }
+
+   public boolean isSpillingToDisk()
+   {
+      return spillDirectory != null;
+   }
+
+   /**
+    * @return The number of ticks that were recorded before the newest ticks and are only on disk.
+    */
+   public long getNumberOfSpilledTicks()
+   {
+      if (spillStore == null)
+         return 0;
+      if (showingSpilledTicks)
+         return newestTicksStartBeforePageIn;
+
+      return spillStore.getNumberOfTicks() - numberOfSpilledAheadTicks;
+   }
+
+   public boolean isShowingSpilledTicks()
+   {
+      return showingSpilledTicks;
+   }
+
+   /**
+    * Replaces the content of the buffer with the recorded ticks starting at firstTick, counting from the first tick ever recorded.
+    * The newest ticks are saved to disk first, {@link #restoreNewestTicks()} brings them back. Recording a new tick restores them as well.
+    * Note that the newest ticks are restored in the buffer, but the simulation continues from the state of the variables.
+    *
+    * @param firstTick First tick to show, the buffer is filled with as many ticks as fit.
+    */
+   public void pageInSpilledTicks(long firstTick)
+   {
+      if (getNumberOfSpilledTicks() == 0)
+         throw new RuntimeException("No ticks were spilled to disk");
+
+      pageIn(firstTick);
+      setIndex(0);
+   }
+
+   private void pageIn(long firstTick)
+   {
+      spillNewestTicks();
+
+      long numberOfTicks = newestTicksStartBeforePageIn + newestTicksLengthBeforePageIn;
+      firstTick = Math.max(0, Math.min(firstTick, numberOfTicks - 1));
+      int length = (int) Math.min(bufferSize, numberOfTicks - firstTick);
+
+      spillStore.read(firstTick, length, entries);
+
+      this.firstPagedInTick = firstTick;
+      this.inPoint = 0;
+      this.outPoint = length - 1;
+   }
+
+   /**
+    * Writes the newest ticks that are not on disk yet to the spill store, so that it holds the whole recorded history.
+    */
+   private void spillNewestTicks()
+   {
+      if (showingSpilledTicks)
+         return;
+
+      packData();
+
+      numberOfChunksBeforePageIn = spillStore.getNumberOfChunks();
+      newestTicksStartBeforePageIn = spillStore.getNumberOfTicks() - numberOfSpilledAheadTicks;
+      newestTicksLengthBeforePageIn = Math.min(getBufferInOutLength(), bufferSize);
+      indexBeforePageIn = index;
+
+      for (int slot = numberOfSpilledAheadTicks; slot < newestTicksLengthBeforePageIn; slot += ticksPerSpilledChunk)
+         spillStore.append(entries, slot, Math.min(ticksPerSpilledChunk, newestTicksLengthBeforePageIn - slot));
+
+      showingSpilledTicks = true;
+      firstPagedInTick = newestTicksStartBeforePageIn;
+   }
+
+   /**
+    * Moves the newest ticks of the spill store back to the buffer, after ticks were removed from it. Recording continues after them.
+    */
+   private void showNewestTicksOfSpillStore()
+   {
+      long numberOfTicks = spillStore.getNumberOfTicks();
+      int length = (int) Math.min(bufferSize, numberOfTicks);
+      spillStore.read(numberOfTicks - length, length, entries);
+      spillStore.removeTicks(numberOfTicks - length, length);
+
+      this.inPoint = 0;
+      this.outPoint = length - 1;
+      this.index = 0;
+      this.numberOfSpilledAheadTicks = 0;
+      showingSpilledTicks = false;
+   }
+
+   /**
+    * @return The recorded tick in the given slot of the buffer, counting from the first tick ever recorded.
+    */
+   private long getRecordedTick(int slot)
+   {
+      long bufferStartTick = showingSpilledTicks ? firstPagedInTick : getNumberOfSpilledTicks();
+      return bufferStartTick + ((slot - inPoint + bufferSize) % bufferSize);
+   }
+
+   /**
+    * Brings back the newest ticks after {@link #pageInSpilledTicks(long)}.
+    */
+   public void restoreNewestTicks()
+   {
+      if (!showingSpilledTicks)
+         return;
+
+      readBackNewestTicks();
+      setIndex(index);
+   }
+
+   private void readBackNewestTicks()
+   {
+      spillStore.read(newestTicksStartBeforePageIn, newestTicksLengthBeforePageIn, entries);
+      spillStore.truncate(numberOfChunksBeforePageIn);
+
+      this.inPoint = 0;
+      this.outPoint = newestTicksLengthBeforePageIn - 1;
+      this.index = indexBeforePageIn;
+      this.spilledAheadStartSlot = 0;
+      showingSpilledTicks = false;
+   }
+
+   /**
+    * @return The number of ticks exported by {@link DataFileWriter}: the spilled ticks followed by the ticks between the in and out point.
+    * While older ticks are paged in, this is the whole recorded history.
+    */
+   public long getNumberOfExportedTicks()
+   {
+      if (showingSpilledTicks)
+         return newestTicksStartBeforePageIn + newestTicksLengthBeforePageIn;
+
+      return getNumberOfSpilledTicks() + getBufferInOutLength();
+   }
+
+   /**
+    * Reads exported ticks, from disk and from the buffer, without paging them in.
+    *
+    * @param firstTick First tick to read, counting from the first exported tick.
+    * @param numberOfTicks Number of ticks to read, firstTick + numberOfTicks cannot be more than {@link #getNumberOfExportedTicks()}.
+    * @param entryIndices Indices in {@link #getEntries()} of the entries to read.
+    * @param dataToPack One array per entry, filled starting at index 0.
+    */
+   public void readExportedTicks(long firstTick, int numberOfTicks, int[] entryIndices, double[][] dataToPack)
+   {
+      if (firstTick < 0 || firstTick + numberOfTicks > getNumberOfExportedTicks())
+         throw new IndexOutOfBoundsException("Ticks " + firstTick + " to " + (firstTick + numberOfTicks) + " are not all exported, there are "
+               + getNumberOfExportedTicks());
+
+      long numberOfTicksOnDisk = showingSpilledTicks ? getNumberOfExportedTicks() : getNumberOfSpilledTicks();
+      int ticksFromDisk = (int) Math.max(0, Math.min(numberOfTicks, numberOfTicksOnDisk - firstTick));
+
+      if (ticksFromDisk > 0)
+      {
+         spillStore.read(firstTick, ticksFromDisk, entryIndices, dataToPack);
+      }
+
+      int ticksFromBuffer = numberOfTicks - ticksFromDisk;
+      if (ticksFromBuffer > 0)
+      {
+         int startSlot = (int) ((inPoint + firstTick + ticksFromDisk - numberOfTicksOnDisk) % bufferSize);
+
+         for (int i = 0; i < entryIndices.length; i++)
+         {
+            double[] data = entries.get(entryIndices[i]).getData();
+            int slot = startSlot;
+
+            for (int tick = ticksFromDisk; tick < numberOfTicks; tick++)
+            {
+               dataToPack[i][tick] = data[slot];
+               slot++;
+               if (slot >= bufferSize)
+                  slot = 0;
+            }
+         }
+      }
+   }
+
+   /**
+    * Pages in the ticks around the one n ticks away from the index, when that tick is recorded but not in the buffer.
+    *
+    * @return true if ticks were paged in and the index moved to the requested tick.
+    */
+   private boolean pageInForTick(int n)
+   {
+      if (getNumberOfSpilledTicks() == 0)
+         return false;
+
+      long currentTick;
+      if (showingSpilledTicks)
+         currentTick = firstPagedInTick + index;
+      else
+         currentTick = getNumberOfSpilledTicks() + ((index - inPoint + bufferSize) % bufferSize);
+
+      long bufferStartTick = showingSpilledTicks ? firstPagedInTick : getNumberOfSpilledTicks();
+      long bufferEndTick = bufferStartTick + getBufferInOutLength();
+      long numberOfRecordedTicks = showingSpilledTicks ? getNumberOfExportedTicks() : bufferEndTick;
+      long requestedTick = Math.max(0, Math.min(currentTick + n, numberOfRecordedTicks - 1));
+
+      if (requestedTick >= bufferStartTick && requestedTick < bufferEndTick)
+         return false;
+
+      if (showingSpilledTicks && requestedTick >= newestTicksStartBeforePageIn)
+      {
+         readBackNewestTicks();
+         index = (int) (requestedTick - newestTicksStartBeforePageIn);
+      }
+      else
+      {
+         // Center the requested tick in the buffer, so scrubbing in either direction does not page in right away
+         pageIn(Math.max(0, requestedTick - bufferSize / 2));
+         index = (int) (requestedTick - firstPagedInTick);
+      }
+
+      return true;
+   }
+
+   /**
+    * Called when the tick in the given slot is about to be overwritten. Spills it with the next ticks, unless it was spilled already.
+    */
+   private void spillTickAboutToBeOverwritten(int slot)
+   {
+      if ((numberOfSpilledAheadTicks > 0) && (slot == spilledAheadStartSlot))
+      {
+         numberOfSpilledAheadTicks--;
+         spilledAheadStartSlot = (slot + 1) % bufferSize;
+
+         return;
+      }
+
+      if (spillStore == null)
+      {
+         spillStore = new DataBufferSpillStore(spillDirectory, entries.size(), ticksPerSpilledChunk);
+      }
+
+      // The buffer is full, every slot but the one of the newest tick can go in the chunk
+      int numberOfTicks = Math.max(1, Math.min(ticksPerSpilledChunk, bufferSize - 1));
+      spillStore.append(entries, slot, numberOfTicks);
+
+      spilledAheadStartSlot = (slot + 1) % bufferSize;
+      numberOfSpilledAheadTicks = numberOfTicks - 1;
+   }
+
+   private void discardSpilledTicks()
+   {
+      if (spillStore != null)
+         spillStore.clear();
+
+      numberOfSpilledAheadTicks = 0;
+      showingSpilledTicks = false;
+   }
+
    public void resetDataBuffer()
    {
       clearAll(getBufferSize());
@@ -313,6 +619,8 @@ public class DataBuffer extends YoVariableHolderImplementation
 
    public void clearAll(int nPoints)
    {
+      discardSpilledTicks();
+
       double[] blankData;
 
       for (int i = 0; i < entries.size(); i++)
@@ -412,6 +720,8 @@ public class DataBuffer extends YoVariableHolderImplementation
          this.index = 0;
       }
 
+      spilledAheadStartSlot = ((spilledAheadStartSlot - start + bufferSize) % bufferSize);
+
       // Move the inPoint to the new beginning and the outPoint to the end
       this.inPoint = 0;    // this.inPoint - start;
       this.outPoint = ((this.outPoint - start + bufferSize) % bufferSize);
@@ -442,6 +752,12 @@ public class DataBuffer extends YoVariableHolderImplementation
          return;    // -1; //SimulationConstructionSet.NUM_POINTS;
       }
 
+      // The cropped ticks are all in the buffer, the ticks that are only on disk come before or after them
+      if (spillStore != null)
+      {
+         discardSpilledTicks();
+      }
+
       if (entries.isEmpty())
       {
          bufferSize = DataBufferEntry.computeBufferSizeAfterCrop(start, end, bufferSize);
@@ -501,6 +817,12 @@ public class DataBuffer extends YoVariableHolderImplementation
          return;
       }
 
+      if (getNumberOfSpilledTicks() > 0)
+      {
+         cutSpilledData(start, end);
+         return;
+      }
+
       if (entries.isEmpty())
       {
          bufferSize = DataBufferEntry.computeBufferSizeAfterCut(start, end, bufferSize);
@@ -543,6 +865,12 @@ public class DataBuffer extends YoVariableHolderImplementation
 
    public void thinData(int keepEveryNthPoint)
    {
+      if (getNumberOfSpilledTicks() > 0)
+      {
+         thinSpilledData(keepEveryNthPoint);
+         return;
+      }
+
       packData();
 
       this.inPoint = 0;
@@ -569,6 +897,40 @@ public class DataBuffer extends YoVariableHolderImplementation
       this.gotoInPoint();
    }
 
+   /**
+    * Removes the ticks in the given slots from the whole recorded history. The buffer keeps its size and shows the newest ticks afterwards,
+    * at the tick before the cut if that one is in the buffer and at the in point otherwise.
+    */
+   private void cutSpilledData(int start, int end)
+   {
+      long firstTick = getRecordedTick(start);
+      long lastTick = getRecordedTick(end);
+      if (firstTick > lastTick)
+         return;
+
+      spillNewestTicks();
+      spillStore.removeTicks(firstTick, lastTick - firstTick + 1);
+      showNewestTicksOfSpillStore();
+
+      long firstTickInBuffer = getNumberOfSpilledTicks();
+      if (firstTick - 1 >= firstTickInBuffer)
+         this.index = (int) (firstTick - 1 - firstTickInBuffer);
+
+      this.tick(0);
+   }
+
+   /**
+    * Keeps every nth tick of the whole recorded history, counting from the first tick ever recorded. The buffer keeps its size and shows the newest ticks afterwards.
+    */
+   private void thinSpilledData(int keepEveryNthPoint)
+   {
+      spillNewestTicks();
+      spillStore.keepEveryNthTick(keepEveryNthPoint);
+      showNewestTicksOfSpillStore();
+
+      this.gotoInPoint();
+   }
+
    public double computeAverage(YoVariable<?> variable)
    {
       DataBufferEntry entry = this.getEntry(variable);
@@ -741,6 +1103,13 @@ public class DataBuffer extends YoVariableHolderImplementation
    {
       if (safeToManualyChangeIndex)
       {
+         if ((spillStore != null) && pageInForTick(n))
+         {
+            setIndex(this.index, notifySimulationRewoundListeners);
+
+            return false;
+         }
+
          int newIndex = this.index + n;
 
          boolean rolledOver = !isIndexBetweenInAndOutPoint(newIndex);
@@ -794,12 +1163,19 @@ public class DataBuffer extends YoVariableHolderImplementation
    }
 
    public void setDataAtIndexToYoVariableValues()
+   {
+      recordYoVariableValues(this.index);
+   }
+
+   /**
+    * Snapshots all the variables at the given index in a single pass, without taking the lock of each entry.
+    */
+   private void recordYoVariableValues(int index)
    {
       //noinspection ForLoopReplaceableByForEach (iterators use memory, runs in tight loop)
       for (int j = 0; j < entries.size(); j++)
       {
-         DataBufferEntry entry = entries.get(j);
-         entry.setDataAtIndexToYoVariableValue(this.index);
+         entries.get(j).recordYoVariableValue(index);
       }
    }
 
@@ -807,13 +1183,18 @@ public class DataBuffer extends YoVariableHolderImplementation
    {
       if (!clearing)
       {
-         this.index = this.index + 1;
+         if (showingSpilledTicks)
+         {
+            readBackNewestTicks();
+         }
 
-         if (this.index >= bufferSize)
+         int newIndex = this.index + 1;
+
+         if (newIndex >= bufferSize)
          {
             if (wrapBuffer || (bufferSize >= maxBufferSize))
             {
-               this.index = 0;
+               newIndex = 0;
             }
             else    // Expand the buffer, it just overflowed and there's room to grow...
             {
@@ -828,15 +1209,23 @@ public class DataBuffer extends YoVariableHolderImplementation
             }
          }
 
-         if (this.index < 0)
+         if (newIndex < 0)
          {
-            this.index = 0;
+            newIndex = 0;
          }
 
-         // Out point should always be the last recorded tick...
-         this.outPoint = this.index;
+         boolean overwritingInPoint = (newIndex == this.inPoint);
 
-         if (this.outPoint == this.inPoint)
+         if (overwritingInPoint && (spillDirectory != null))
+         {
+            spillTickAboutToBeOverwritten(this.inPoint);
+         }
+
+         keyPoints.removeKeyPoint(newIndex);
+         recordYoVariableValues(newIndex);
+
+         // Publish the tick once it is fully recorded
+         if (overwritingInPoint)
          {
             this.inPoint = this.inPoint + 1;
 
@@ -846,8 +1235,10 @@ public class DataBuffer extends YoVariableHolderImplementation
             }
          }
 
-         keyPoints.removeKeyPoint(index);
-         setDataAtIndexToYoVariableValues();
+         // Out point should always be the last recorded tick...
+         this.outPoint = newIndex;
+         this.index = newIndex;
+
          notifyIndexChangedListeners();
       }
       else
@@ -5,9 +5,24 @@ import us.ihmc.simulationconstructionset.dataBuffer.DataEntry;
 
 public class DataBufferEntry implements DataEntry
 {
+   /**
+    * The min and max are kept in a pyramid: level 0 holds the min and max of chunks of 256 points, and each coarser level groups four blocks of the level below.
+    * This costs about 1% on top of the data. Range queries scan the points of the partial chunks at their ends.
+    * Recording a point only marks its chunk, dirty chunks are scanned when the min and max are queried.
+    */
+   private static final int MIN_MAX_CHUNK_SHIFT = 8;
+   private static final int MIN_MAX_CHUNK_SIZE = 1 << MIN_MAX_CHUNK_SHIFT;
+   private static final int PYRAMID_LEVEL_SHIFT = 2;
+
    private final YoVariable<?> variable;
    private double[] data;
 
+   private double[][] pyramidMin = new double[0][];
+   private double[][] pyramidMax = new double[0][];
+   private int pyramidLength = -1;
+   private boolean[] dirtyChunks = new boolean[0];
+   private boolean hasDirtyChunks = false;
+
    private boolean inverted = false;
    
    private double min, max;
@@ -217,7 +232,9 @@ public class DataBufferEntry implements DataEntry
          
          oldDataIndex = oldDataIndex + keepEveryNthPoint;
       }
-      
+
+      reCalcMinMax();
+
       return newNumberOfPoints;
    }
 
@@ -264,34 +281,18 @@ public class DataBufferEntry implements DataEntry
 
    public synchronized void setDataAtIndexToYoVariableValue(int index)
    {
-      double newVal = variable.getValueAsDouble();
-      double oldVal = data[index];
-
-      data[index] = newVal;
-
-      if (newVal < this.min)
-      {
-         this.min = newVal;
-         setMinMaxChanged();
-      }
-
-      if (newVal > this.max)
-      {
-         this.max = newVal;
-         setMinMaxChanged();
-      }
-
-      if (oldVal >= this.max)
-      {
-         setMinMaxChanged();
-         minMaxStale = true;
-      } // reCalcMinMax();
+      recordYoVariableValue(index);
+   }
 
-      if (oldVal <= this.min)
-      {
-         setMinMaxChanged();
-         minMaxStale = true;
-      } // reCalcMinMax();
+   /**
+    * Stores the value of the variable at the given index without locking. The min and max of the chunk holding the index are recomputed the next time they are queried.
+    * Used by the {@link DataBuffer} recording path, which publishes the index once all the entries have been recorded.
+    */
+   protected void recordYoVariableValue(int index)
+   {
+      data[index] = variable.getValueAsDouble();
+      dirtyChunks[index >> MIN_MAX_CHUNK_SHIFT] = true;
+      hasDirtyChunks = true;
    }
 
    protected void setYoVariableValueToDataAtIndex(int index)
@@ -301,68 +302,228 @@ public class DataBufferEntry implements DataEntry
    }
 
    public synchronized void resetMinMaxChanged()
-
-   // public void resetMinMaxChanged()
    {
+      updateDirtyChunks();
       minMaxChanged = false;
    }
 
-   private synchronized void setMinMaxChanged()
-
-   // private void setMinMaxChanged()
-   {
-      minMaxChanged = true;
-   }
-
    public synchronized boolean minMaxChanged()
-
-   // public boolean minMaxChanged()
    {
+      updateDirtyChunks();
       return minMaxChanged;
    }
 
-   // private boolean reCalcMinMax()
    private synchronized boolean reCalcMinMax()
    {
-      boolean ret = false;
-
       if (data == null)
          return false;
 
+      if (pyramidLength != data.length)
+         allocatePyramid();
+
+      int numberOfChunks = dirtyChunks.length;
+
+      for (int chunk = 0; chunk < numberOfChunks; chunk++)
+         dirtyChunks[chunk] = true;
+      hasDirtyChunks = true;
+
       minMaxChanged = true;
+      boolean ret = updateDirtyChunks();
+      minMaxStale = false;
+
+      return ret;
+   }
+
+   private void allocatePyramid()
+   {
+      pyramidLength = data.length;
+      dirtyChunks = new boolean[(data.length + MIN_MAX_CHUNK_SIZE - 1) >> MIN_MAX_CHUNK_SHIFT];
+
+      // The chunk level, then coarser levels until a single block covers all the data
+      int numberOfLevels = 1;
+      while ((data.length >> getBlockShift(numberOfLevels)) > 0)
+         numberOfLevels++;
 
-      double newMin = Double.POSITIVE_INFINITY; // data[0];
-      double newMax = Double.NEGATIVE_INFINITY; // data[0];
+      pyramidMin = new double[numberOfLevels][];
+      pyramidMax = new double[numberOfLevels][];
 
-      for (int i = 1; i < data.length; i++)
+      for (int level = 0; level < numberOfLevels; level++)
       {
-         if (!Double.isNaN(data[i]) && data[i] < newMin)
-            newMin = data[i];
-         if (!Double.isNaN(data[i]) && data[i] > newMax)
-            newMax = data[i];
+         int blockShift = getBlockShift(level);
+         int numberOfBlocks = (data.length + (1 << blockShift) - 1) >> blockShift;
+         pyramidMin[level] = new double[numberOfBlocks];
+         pyramidMax[level] = new double[numberOfBlocks];
       }
-      
+   }
+
+   /**
+    * Recomputes the blocks of the chunks that were written since the last update, then the coarser levels and the overall min and max.
+    * A chunk is marked clean before it is scanned, so a point recorded concurrently is at worst scanned again at the next update.
+    */
+   private synchronized boolean updateDirtyChunks()
+   {
+      if (!hasDirtyChunks || data == null)
+         return false;
+
+      hasDirtyChunks = false;
+
+      for (int chunk = 0; chunk < dirtyChunks.length; chunk++)
+      {
+         if (!dirtyChunks[chunk])
+            continue;
+
+         dirtyChunks[chunk] = false;
+
+         updateChunk(chunk);
+      }
+
+      for (int level = 1; level < pyramidMin.length; level++)
+         updateLevelFromFinerLevel(level, 0, pyramidMin[level].length);
+
+      double[] topMin = pyramidMin[pyramidMin.length - 1];
+      double[] topMax = pyramidMax[pyramidMax.length - 1];
+      double newMin = Double.POSITIVE_INFINITY;
+      double newMax = Double.NEGATIVE_INFINITY;
+
+      for (int block = 0; block < topMin.length; block++)
+      {
+         if (topMin[block] < newMin)
+            newMin = topMin[block];
+         if (topMax[block] > newMax)
+            newMax = topMax[block];
+      }
+
       if (newMin > newMax)
       {
          newMin = 0.0;
          newMax = 0.0;
       }
 
+      boolean ret = false;
       if ((min != newMin) || (max != newMax))
+      {
          ret = true;
+         minMaxChanged = true;
+      }
 
       min = newMin;
       max = newMax;
 
-      minMaxStale = false;
-
       return ret;
    }
 
+   private void updateChunk(int chunk)
+   {
+      double chunkMin = Double.POSITIVE_INFINITY;
+      double chunkMax = Double.NEGATIVE_INFINITY;
+      int chunkStart = chunk << MIN_MAX_CHUNK_SHIFT;
+      int chunkEnd = Math.min(data.length, chunkStart + MIN_MAX_CHUNK_SIZE);
+
+      for (int i = chunkStart; i < chunkEnd; i++)
+      {
+         double value = data[i];
+         if (!Double.isNaN(value) && value < chunkMin)
+            chunkMin = value;
+         if (!Double.isNaN(value) && value > chunkMax)
+            chunkMax = value;
+      }
+
+      pyramidMin[0][chunk] = chunkMin;
+      pyramidMax[0][chunk] = chunkMax;
+   }
+
+   private static int getBlockShift(int level)
+   {
+      return MIN_MAX_CHUNK_SHIFT + PYRAMID_LEVEL_SHIFT * level;
+   }
+
+   private void updateLevelFromFinerLevel(int level, int startBlock, int endBlock)
+   {
+      double[] finerMin = pyramidMin[level - 1];
+      double[] finerMax = pyramidMax[level - 1];
+      double[] levelMin = pyramidMin[level];
+      double[] levelMax = pyramidMax[level];
+
+      for (int block = startBlock; block < endBlock; block++)
+      {
+         double blockMin = Double.POSITIVE_INFINITY;
+         double blockMax = Double.NEGATIVE_INFINITY;
+         int finerEnd = Math.min(finerMin.length, (block + 1) << PYRAMID_LEVEL_SHIFT);
+
+         for (int finerBlock = block << PYRAMID_LEVEL_SHIFT; finerBlock < finerEnd; finerBlock++)
+         {
+            if (finerMin[finerBlock] < blockMin)
+               blockMin = finerMin[finerBlock];
+            if (finerMax[finerBlock] > blockMax)
+               blockMax = finerMax[finerBlock];
+         }
+
+         levelMin[block] = blockMin;
+         levelMax[block] = blockMax;
+      }
+   }
+
+   /**
+    * Computes the min and max of the points from startIndex to endIndex, excluded, using the largest pyramid blocks that fit in the range.
+    * NaN points are ignored, if all the points are NaN the min is positive infinity and the max negative infinity.
+    */
+   public synchronized void computeMinMaxInRange(int startIndex, int endIndex, double[] minMaxToPack)
+   {
+      updateDirtyChunks();
+
+      double rangeMin = Double.POSITIVE_INFINITY;
+      double rangeMax = Double.NEGATIVE_INFINITY;
+
+      startIndex = Math.max(0, startIndex);
+      endIndex = Math.min(data.length, endIndex);
+      int i = startIndex;
+
+      while (i < endIndex)
+      {
+         int level = pyramidMin.length - 1;
+         while (level >= 0)
+         {
+            int blockSize = 1 << getBlockShift(level);
+            if (((i & (blockSize - 1)) == 0) && (i + blockSize <= endIndex))
+               break;
+            level--;
+         }
+
+         if (level < 0)
+         {
+            // Partial chunk, scan the points up to the end of the chunk or of the range
+            int scanEnd = Math.min(endIndex, ((i >> MIN_MAX_CHUNK_SHIFT) + 1) << MIN_MAX_CHUNK_SHIFT);
+            for (; i < scanEnd; i++)
+            {
+               double value = data[i];
+               if (!Double.isNaN(value) && value < rangeMin)
+                  rangeMin = value;
+               if (!Double.isNaN(value) && value > rangeMax)
+                  rangeMax = value;
+            }
+         }
+         else
+         {
+            int blockShift = getBlockShift(level);
+            int block = i >> blockShift;
+            if (pyramidMin[level][block] < rangeMin)
+               rangeMin = pyramidMin[level][block];
+            if (pyramidMax[level][block] > rangeMax)
+               rangeMax = pyramidMax[level][block];
+            i += 1 << blockShift;
+         }
+      }
+
+      minMaxToPack[0] = rangeMin;
+      minMaxToPack[1] = rangeMax;
+   }
+
    public double getMax()
    {
       if (minMaxStale)
          reCalcMinMax();
+      else
+         updateDirtyChunks();
 
       return this.max;
    }
@@ -371,6 +532,8 @@ public class DataBufferEntry implements DataEntry
    {
       if (minMaxStale)
          reCalcMinMax();
+      else
+         updateDirtyChunks();
 
       return this.min;
    }
@@ -389,16 +552,8 @@ public class DataBufferEntry implements DataEntry
    protected void setData(double data, int index)
    {
       this.data[index] = data;
-      if (data > max)
-      {
-         max = data;
-         setMinMaxChanged();
-      }
-      if (data < min)
-      {
-         min = data;
-         setMinMaxChanged();
-      }
+      dirtyChunks[index >> MIN_MAX_CHUNK_SHIFT] = true;
+      hasDirtyChunks = true;
    }
    
    public double computeAverage()
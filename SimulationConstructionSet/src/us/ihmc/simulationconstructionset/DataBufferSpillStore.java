@@ -0,0 +1,580 @@
+package us.ihmc.simulationconstructionset;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import us.ihmc.tools.thread.ThreadTools;
+
+/**
+ * Disk tier of a {@link DataBuffer}: ticks that are about to be overwritten in the in-memory ring buffer are appended here, in compressed chunk files.
+ * A chunk holds a few consecutive ticks of every entry. Every entry is compressed on its own, so that each variable compresses well and reading a few entries only
+ * decompresses those. The chunk file starts with the number of entries and ticks, followed by the offsets of the compressed entries and the end of the file.
+ *
+ * Ticks can be removed from the store, the chunks that lose ticks are rewritten and the chunks after them are renumbered.
+ *
+ * Chunks are compressed and written by a background thread. At most two chunks wait to be written, after that appending blocks until the writer catches up.
+ * The first chunk that could not be written is reported by the next call to {@link #append} or {@link #waitForPendingWrites()}, and by every call after that until the store is cleared.
+ */
+public class DataBufferSpillStore
+{
+   private static final int NUMBER_OF_CHUNK_BUFFERS = 2;
+   private static final int CHUNK_HEADER_SIZE = 8;
+
+   private final File directory;
+   private final int numberOfEntries;
+
+   private final ArrayList<Integer> chunkSizes = new ArrayList<Integer>();
+   private long numberOfTicks = 0;
+
+   private final ExecutorService writer = Executors.newSingleThreadExecutor(ThreadTools.getNamedThreadFactory(getClass().getSimpleName()));
+   private final ArrayBlockingQueue<double[]> unusedChunkBuffers = new ArrayBlockingQueue<double[]>(NUMBER_OF_CHUNK_BUFFERS);
+   /** The writer runs the chunks in order, so once the last one is done all of them are. */
+   private Future<?> lastWrite = null;
+   private volatile RuntimeException writeException = null;
+
+   // Used by writeChunk(), which runs on the writer thread, or on the calling thread after waiting for the writer.
+   private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+   private final ByteBuffer writeValueBytes;
+   private final DoubleBuffer writeValues;
+   private final ByteBuffer writeHeader;
+   private byte[] compressedWriteBytes;
+
+   private final Inflater inflater = new Inflater();
+   private final ByteBuffer readValueBytes;
+   private final DoubleBuffer readValues;
+   private final ByteBuffer readHeader;
+   private byte[] compressedReadBytes = new byte[0];
+
+   /** Holds the entries of chunkInReadBuffer that were loaded, entry after entry. */
+   private final double[] readBuffer;
+   private final boolean[] isEntryInReadBuffer;
+   private int chunkInReadBuffer = -1;
+   private final int[] allEntryIndices;
+
+   public DataBufferSpillStore(File directory, int numberOfEntries, int maximumTicksPerChunk)
+   {
+      if (!directory.isDirectory() && !directory.mkdirs())
+         throw new RuntimeException("Cannot create directory " + directory);
+
+      this.directory = directory;
+      this.numberOfEntries = numberOfEntries;
+
+      for (int i = 0; i < NUMBER_OF_CHUNK_BUFFERS; i++)
+         unusedChunkBuffers.add(new double[numberOfEntries * maximumTicksPerChunk]);
+
+      writeValueBytes = ByteBuffer.allocate(8 * maximumTicksPerChunk);
+      writeValues = writeValueBytes.asDoubleBuffer();
+      writeHeader = ByteBuffer.allocate(getChunkHeaderSize());
+      compressedWriteBytes = new byte[8 * maximumTicksPerChunk];
+
+      readValueBytes = ByteBuffer.allocate(8 * maximumTicksPerChunk);
+      readValues = readValueBytes.asDoubleBuffer();
+      readHeader = ByteBuffer.allocate(getChunkHeaderSize());
+
+      readBuffer = new double[numberOfEntries * maximumTicksPerChunk];
+      isEntryInReadBuffer = new boolean[numberOfEntries];
+      allEntryIndices = new int[numberOfEntries];
+      for (int i = 0; i < numberOfEntries; i++)
+         allEntryIndices[i] = i;
+   }
+
+   public int getNumberOfEntries()
+   {
+      return numberOfEntries;
+   }
+
+   public long getNumberOfTicks()
+   {
+      return numberOfTicks;
+   }
+
+   public int getNumberOfChunks()
+   {
+      return chunkSizes.size();
+   }
+
+   /**
+    * Copies numberOfTicks ticks of every entry, starting at startSlot and wrapping around the end of the entries data, into a new chunk.
+    */
+   public void append(List<DataBufferEntry> entries, int startSlot, int numberOfTicks)
+   {
+      checkNumberOfEntries(entries.size());
+      checkForWriteException();
+
+      if (numberOfTicks <= 0)
+         return;
+
+      final double[] chunkBuffer = takeUnusedChunkBuffer();
+
+      if (chunkBuffer.length < numberOfEntries * numberOfTicks)
+         throw new RuntimeException("Chunk of " + numberOfTicks + " ticks is larger than the maximum chunk size");
+
+      for (int i = 0; i < numberOfEntries; i++)
+      {
+         double[] data = entries.get(i).getData();
+         int offset = i * numberOfTicks;
+         int slot = startSlot;
+
+         for (int tick = 0; tick < numberOfTicks; tick++)
+         {
+            chunkBuffer[offset + tick] = data[slot];
+            slot++;
+            if (slot >= data.length)
+               slot = 0;
+         }
+      }
+
+      final int chunkIndex = chunkSizes.size();
+      final int chunkSize = numberOfTicks;
+      chunkSizes.add(chunkSize);
+      this.numberOfTicks += numberOfTicks;
+
+      lastWrite = writer.submit(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            try
+            {
+               writeChunk(chunkIndex, chunkBuffer, chunkSize);
+            }
+            catch (IOException e)
+            {
+               if (writeException == null)
+                  writeException = new RuntimeException("Could not write " + getChunkFile(chunkIndex), e);
+            }
+            finally
+            {
+               unusedChunkBuffers.add(chunkBuffer);
+            }
+         }
+      });
+   }
+
+   private double[] takeUnusedChunkBuffer()
+   {
+      try
+      {
+         return unusedChunkBuffers.take();
+      }
+      catch (InterruptedException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private void writeChunk(int chunkIndex, double[] chunkBuffer, int chunkSize) throws IOException
+   {
+      int headerSize = getChunkHeaderSize();
+      int compressedLength = 0;
+
+      for (int i = 0; i < numberOfEntries; i++)
+      {
+         writeHeader.putInt(CHUNK_HEADER_SIZE + 4 * i, headerSize + compressedLength);
+
+         writeValues.clear();
+         writeValues.put(chunkBuffer, i * chunkSize, chunkSize);
+
+         deflater.reset();
+         deflater.setInput(writeValueBytes.array(), 0, 8 * chunkSize);
+         deflater.finish();
+         while (!deflater.finished())
+         {
+            if (compressedLength == compressedWriteBytes.length)
+               compressedWriteBytes = Arrays.copyOf(compressedWriteBytes, 2 * compressedWriteBytes.length);
+
+            compressedLength += deflater.deflate(compressedWriteBytes, compressedLength, compressedWriteBytes.length - compressedLength);
+         }
+      }
+
+      writeHeader.putInt(0, numberOfEntries);
+      writeHeader.putInt(4, chunkSize);
+      writeHeader.putInt(CHUNK_HEADER_SIZE + 4 * numberOfEntries, headerSize + compressedLength);
+
+      FileOutputStream outputStream = new FileOutputStream(getChunkFile(chunkIndex));
+      try
+      {
+         outputStream.write(writeHeader.array());
+         outputStream.write(compressedWriteBytes, 0, compressedLength);
+      }
+      finally
+      {
+         outputStream.close();
+      }
+   }
+
+   /**
+    * Blocks until all the appended chunks are on disk.
+    * @throws RuntimeException if one of the chunks could not be written
+    */
+   public void waitForPendingWrites()
+   {
+      waitForWriter();
+      checkForWriteException();
+   }
+
+   private void waitForWriter()
+   {
+      if (lastWrite == null)
+         return;
+
+      try
+      {
+         lastWrite.get();
+      }
+      catch (InterruptedException e)
+      {
+         throw new RuntimeException(e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException(e.getCause());
+      }
+   }
+
+   private void checkForWriteException()
+   {
+      RuntimeException writeException = this.writeException;
+      if (writeException != null)
+         throw writeException;
+   }
+
+   /**
+    * Reads numberOfTicks ticks starting at firstTick into the data of the entries, starting at slot 0.
+    */
+   public void read(long firstTick, int numberOfTicks, List<DataBufferEntry> entries)
+   {
+      checkNumberOfEntries(entries.size());
+
+      int[] entryIndices = new int[numberOfEntries];
+      double[][] data = new double[numberOfEntries][];
+      for (int i = 0; i < numberOfEntries; i++)
+      {
+         entryIndices[i] = i;
+         data[i] = entries.get(i).getData();
+      }
+
+      read(firstTick, numberOfTicks, entryIndices, data);
+
+      for (int i = 0; i < numberOfEntries; i++)
+         entries.get(i).setData(data[i], data[i].length);
+   }
+
+   /**
+    * Reads numberOfTicks ticks starting at firstTick of the given entries.
+    * @param entryIndices indices of the entries to read, in the order of the entries of the DataBuffer
+    * @param dataToPack one array per requested entry, filled starting at index 0
+    */
+   public void read(long firstTick, int numberOfTicks, int[] entryIndices, double[][] dataToPack)
+   {
+      if (firstTick < 0 || firstTick + numberOfTicks > this.numberOfTicks)
+         throw new IndexOutOfBoundsException("Ticks " + firstTick + " to " + (firstTick + numberOfTicks) + " are not all in the store, it has " + this.numberOfTicks);
+
+      waitForPendingWrites();
+
+      long chunkStartTick = 0;
+      int ticksRead = 0;
+
+      for (int chunkIndex = 0; chunkIndex < chunkSizes.size() && ticksRead < numberOfTicks; chunkIndex++)
+      {
+         int chunkSize = chunkSizes.get(chunkIndex);
+         long chunkEndTick = chunkStartTick + chunkSize;
+         long nextTick = firstTick + ticksRead;
+
+         if (nextTick < chunkEndTick)
+         {
+            loadChunk(chunkIndex, chunkSize, entryIndices);
+
+            int startInChunk = (int) (nextTick - chunkStartTick);
+            int ticksFromChunk = Math.min(chunkSize - startInChunk, numberOfTicks - ticksRead);
+
+            for (int i = 0; i < entryIndices.length; i++)
+               System.arraycopy(readBuffer, entryIndices[i] * chunkSize + startInChunk, dataToPack[i], ticksRead, ticksFromChunk);
+
+            ticksRead += ticksFromChunk;
+         }
+
+         chunkStartTick = chunkEndTick;
+      }
+   }
+
+   /**
+    * Decompresses the given entries of the chunk into the read buffer, unless they are there already.
+    * The compressed entries from the first to the last requested one are read at once.
+    */
+   private void loadChunk(int chunkIndex, int chunkSize, int[] entryIndices)
+   {
+      if (chunkIndex != chunkInReadBuffer)
+      {
+         Arrays.fill(isEntryInReadBuffer, false);
+         chunkInReadBuffer = chunkIndex;
+      }
+
+      int firstEntry = numberOfEntries;
+      int lastEntry = -1;
+      for (int i = 0; i < entryIndices.length; i++)
+      {
+         int entry = entryIndices[i];
+         if (!isEntryInReadBuffer[entry])
+         {
+            firstEntry = Math.min(firstEntry, entry);
+            lastEntry = Math.max(lastEntry, entry);
+         }
+      }
+
+      if (lastEntry < 0)
+         return;
+
+      File chunkFile = getChunkFile(chunkIndex);
+      try
+      {
+         RandomAccessFile file = new RandomAccessFile(chunkFile, "r");
+         try
+         {
+            byte[] header = readHeader.array();
+            file.readFully(header, 0, CHUNK_HEADER_SIZE);
+            int numberOfEntriesInFile = readHeader.getInt(0);
+            int numberOfTicksInFile = readHeader.getInt(4);
+            if (numberOfEntriesInFile != numberOfEntries || numberOfTicksInFile != chunkSize)
+               throw new RuntimeException(chunkFile + " does not match the store, it holds " + numberOfTicksInFile + " ticks of " + numberOfEntriesInFile + " entries");
+
+            int firstOffsetPosition = CHUNK_HEADER_SIZE + 4 * firstEntry;
+            file.seek(firstOffsetPosition);
+            file.readFully(header, firstOffsetPosition, 4 * (lastEntry - firstEntry + 2));
+
+            int startOfCompressedEntries = readHeader.getInt(firstOffsetPosition);
+            int lengthOfCompressedEntries = readHeader.getInt(CHUNK_HEADER_SIZE + 4 * (lastEntry + 1)) - startOfCompressedEntries;
+            if (compressedReadBytes.length < lengthOfCompressedEntries)
+               compressedReadBytes = new byte[lengthOfCompressedEntries];
+
+            file.seek(startOfCompressedEntries);
+            file.readFully(compressedReadBytes, 0, lengthOfCompressedEntries);
+
+            for (int i = 0; i < entryIndices.length; i++)
+            {
+               int entry = entryIndices[i];
+               if (isEntryInReadBuffer[entry])
+                  continue;
+
+               int start = readHeader.getInt(CHUNK_HEADER_SIZE + 4 * entry);
+               int end = readHeader.getInt(CHUNK_HEADER_SIZE + 4 * (entry + 1));
+               inflate(start - startOfCompressedEntries, end - start, 8 * chunkSize);
+
+               readValues.clear();
+               readValues.get(readBuffer, entry * chunkSize, chunkSize);
+               isEntryInReadBuffer[entry] = true;
+            }
+         }
+         finally
+         {
+            file.close();
+         }
+      }
+      catch (IOException e)
+      {
+         chunkInReadBuffer = -1;
+         throw new RuntimeException("Could not read " + chunkFile, e);
+      }
+      catch (DataFormatException e)
+      {
+         chunkInReadBuffer = -1;
+         throw new RuntimeException("Could not read " + chunkFile, e);
+      }
+   }
+
+   private void inflate(int offset, int length, int numberOfBytes) throws DataFormatException
+   {
+      inflater.reset();
+      inflater.setInput(compressedReadBytes, offset, length);
+
+      int inflatedBytes = 0;
+      while (inflatedBytes < numberOfBytes)
+      {
+         int bytes = inflater.inflate(readValueBytes.array(), inflatedBytes, numberOfBytes - inflatedBytes);
+         if (bytes == 0 && (inflater.finished() || inflater.needsInput()))
+            throw new DataFormatException("Compressed entry holds " + inflatedBytes + " bytes instead of " + numberOfBytes);
+
+         inflatedBytes += bytes;
+      }
+   }
+
+   /**
+    * Removes numberOfTicks ticks starting at firstTick, the ticks after them move forward.
+    */
+   public void removeTicks(final long firstTick, final long numberOfTicks)
+   {
+      removeTicks(new TickFilter()
+      {
+         @Override
+         public boolean remove(long tick)
+         {
+            return tick >= firstTick && tick < firstTick + numberOfTicks;
+         }
+      });
+   }
+
+   /**
+    * Keeps the first tick and every nth tick after it.
+    */
+   public void keepEveryNthTick(final int n)
+   {
+      removeTicks(new TickFilter()
+      {
+         @Override
+         public boolean remove(long tick)
+         {
+            return tick % n != 0;
+         }
+      });
+   }
+
+   private interface TickFilter
+   {
+      public boolean remove(long tick);
+   }
+
+   /**
+    * Deletes the chunks that only hold removed ticks and rewrites the ones that hold some. The remaining chunks are renumbered, so they keep following each other.
+    */
+   private void removeTicks(TickFilter filter)
+   {
+      waitForPendingWrites();
+
+      ArrayList<Integer> remainingChunkSizes = new ArrayList<Integer>();
+      long remainingTicks = 0;
+      long chunkStartTick = 0;
+
+      for (int chunkIndex = 0; chunkIndex < chunkSizes.size(); chunkIndex++)
+      {
+         int chunkSize = chunkSizes.get(chunkIndex);
+         File chunkFile = getChunkFile(chunkIndex);
+         // The chunks before this one are renumbered already, the file of the new chunk index is free unless it is this chunk
+         int newChunkIndex = remainingChunkSizes.size();
+
+         int ticksToKeep = 0;
+         for (int tick = 0; tick < chunkSize; tick++)
+         {
+            if (!filter.remove(chunkStartTick + tick))
+               ticksToKeep++;
+         }
+
+         if (ticksToKeep == 0)
+         {
+            chunkFile.delete();
+         }
+         else if (ticksToKeep == chunkSize)
+         {
+            if (newChunkIndex != chunkIndex && !chunkFile.renameTo(getChunkFile(newChunkIndex)))
+               throw new RuntimeException("Could not rename " + chunkFile + " to " + getChunkFile(newChunkIndex));
+         }
+         else
+         {
+            loadChunk(chunkIndex, chunkSize, allEntryIndices);
+            chunkInReadBuffer = -1;
+
+            // Move the kept ticks to the front of each entry, the kept ticks of an entry never move past the ones that are not copied yet
+            for (int i = 0; i < numberOfEntries; i++)
+            {
+               int keptTick = 0;
+               for (int tick = 0; tick < chunkSize; tick++)
+               {
+                  if (!filter.remove(chunkStartTick + tick))
+                     readBuffer[i * ticksToKeep + keptTick++] = readBuffer[i * chunkSize + tick];
+               }
+            }
+
+            try
+            {
+               writeChunk(newChunkIndex, readBuffer, ticksToKeep);
+            }
+            catch (IOException e)
+            {
+               throw new RuntimeException("Could not write " + getChunkFile(newChunkIndex), e);
+            }
+
+            if (newChunkIndex != chunkIndex)
+               chunkFile.delete();
+         }
+
+         if (ticksToKeep > 0)
+         {
+            remainingChunkSizes.add(ticksToKeep);
+            remainingTicks += ticksToKeep;
+         }
+
+         chunkStartTick += chunkSize;
+      }
+
+      chunkSizes.clear();
+      chunkSizes.addAll(remainingChunkSizes);
+      this.numberOfTicks = remainingTicks;
+      chunkInReadBuffer = -1;
+   }
+
+   /**
+    * Removes the chunks after the first numberOfChunks ones.
+    */
+   public void truncate(int numberOfChunks)
+   {
+      waitForWriter();
+
+      while (chunkSizes.size() > numberOfChunks)
+      {
+         int chunkIndex = chunkSizes.size() - 1;
+         numberOfTicks -= chunkSizes.remove(chunkIndex);
+         getChunkFile(chunkIndex).delete();
+
+         if (chunkIndex == chunkInReadBuffer)
+            chunkInReadBuffer = -1;
+      }
+   }
+
+   public void clear()
+   {
+      truncate(0);
+      writeException = null;
+   }
+
+   /**
+    * Deletes all the chunk files and stops the writer thread.
+    */
+   public void close()
+   {
+      clear();
+      writer.shutdown();
+      deflater.end();
+      inflater.end();
+      directory.delete();
+   }
+
+   private int getChunkHeaderSize()
+   {
+      return CHUNK_HEADER_SIZE + 4 * (numberOfEntries + 1);
+   }
+
+   private File getChunkFile(int chunkIndex)
+   {
+      return new File(directory, String.format("chunk%06d.bin", chunkIndex));
+   }
+
+   private void checkNumberOfEntries(int numberOfEntries)
+   {
+      if (numberOfEntries != this.numberOfEntries)
+         throw new RuntimeException("The DataBuffer has " + numberOfEntries + " entries, but " + this.numberOfEntries + " were spilled to disk");
+   }
+}
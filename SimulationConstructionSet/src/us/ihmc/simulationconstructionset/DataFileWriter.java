@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.zip.GZIPOutputStream;
 
@@ -25,6 +26,8 @@ public class DataFileWriter
 {
    @SuppressWarnings("unused")
    private static final boolean DEBUG = true;
+   private static final int EXPORTED_TICKS_BLOCK_SIZE = 1024;
+   private static final long EXPORTED_VARIABLE_GROUP_SIZE_IN_BYTES = 64L * 1024L * 1024L;
 
    private final File outFile;
 
@@ -170,7 +173,7 @@ public class DataFileWriter
            throws IOException
    {
       String columnFormatted = "$COLUMN";
-      int bufferLength = dataBuffer.getBufferInOutLength();
+      int bufferLength = getNumberOfExportedTicks(dataBuffer);
 
       writeHeaderInformation(dataOutputStream, entries, model, columnFormatted, recordDT, bufferLength, vars, compress, robot);
    }
@@ -363,8 +366,9 @@ public class DataFileWriter
       {
          writer = new MatFileIncrementalWriter(outFile);
 
-         int bufferLength = dataBufferSortedByNamespace.getBufferInOutLength();
+         int bufferLength = getNumberOfExportedTicks(dataBufferSortedByNamespace);
          ArrayList<DataBufferEntry> entries = dataBufferSortedByNamespace.getEntries();
+         ExportedDataReader exportedDataReader = new ExportedDataReader(dataBufferSortedByNamespace, getEntryIndicesInEntryOrder(entries, vars));
          
          MLDouble dt = new MLDouble("DT", new double[][]{{recordDT}});
          writer.write(dt);
@@ -414,7 +418,7 @@ public class DataFileWriter
                }
 
                //store yo-variable as a new field
-               double[] data = entry.getWindowedData(dataBufferSortedByNamespace.getInPoint(), bufferLength);
+               double[] data = exportedDataReader.getNextData();
                MLDouble outArray = new MLDouble(variable.getName(), new int[] { 1, bufferLength });
                for (int j = 0; j < bufferLength; j++)
                {
@@ -446,7 +450,8 @@ public class DataFileWriter
          ArrayList<DataBufferEntry> entries = dataBuffer.getEntries();
          writeHeaderInformation(dataOutputStream, entries, model, recordDT, dataBuffer, vars, compress, robot);
 
-         int bufferLength = dataBuffer.getBufferInOutLength();
+         int bufferLength = getNumberOfExportedTicks(dataBuffer);
+         ExportedDataReader exportedDataReader = new ExportedDataReader(dataBuffer, getEntryIndicesInEntryOrder(entries, vars));
 
          // Write the binary data here:
 
@@ -457,7 +462,7 @@ public class DataFileWriter
 
             if (vars.contains(variable))
             {
-               double[] data = entry.getWindowedData(dataBuffer.getInPoint(), /* dataBuffer.getOutPoint(), */ bufferLength);
+               double[] data = exportedDataReader.getNextData();
 
                for (int j = 0; j < bufferLength; j++)
                {
@@ -493,13 +498,13 @@ public class DataFileWriter
          // DataOutputStream dataStream = new DataOutputStream(outStream);
 
          // Write the data here:
-         int bufferLength = dataBuffer.getBufferInOutLength();
+         int bufferLength = getNumberOfExportedTicks(dataBuffer);
 
          // Names of the variables
          String varnamesToWrite[] = new String[vars.size()];
 
-         // Data of the variables
-         double[][] dataToWrite = new double[vars.size()][];
+         // Entries of the variables
+         int[] entryIndices = new int[vars.size()];
 
 
 
@@ -515,11 +520,12 @@ public class DataFileWriter
                varnamesToWrite[vars.indexOf(variable)] = varnamesToWrite[vars.indexOf(variable)].replace("[", "");
                varnamesToWrite[vars.indexOf(variable)] = varnamesToWrite[vars.indexOf(variable)].replace("]", "");
 
-               double[] data = entry.getWindowedData(dataBuffer.getInPoint(), /* dataBuffer.getOutPoint(), */ bufferLength);
-               dataToWrite[vars.indexOf(variable)] = data;
+               entryIndices[vars.indexOf(variable)] = i;
             }
          }
 
+         ExportedDataReader exportedDataReader = new ExportedDataReader(dataBuffer, entryIndices);
+
          // Write the data
          printStream.println("DT = " + recordDT + ";");
 
@@ -527,10 +533,11 @@ public class DataFileWriter
          {
             printStream.print(varnamesToWrite[i] + " = [");
 
+            double[] data = exportedDataReader.getNextData();
             for (int j = 0; j < bufferLength; j++)
             {
                // dataStream.writeFloat(((float) data[j]));
-               double dataElement =dataToWrite[i][j];
+               double dataElement =data[j];
             	printStream.print( dataElement+ " ");
             }
 
@@ -562,13 +569,13 @@ public class DataFileWriter
          printStream = new PrintStream(new BufferedOutputStream(new FileOutputStream(outFile)));
 
          // Write the data here:
-         int bufferLength = dataBuffer.getBufferInOutLength();
+         long bufferLength = dataBuffer.getNumberOfExportedTicks();
 
          // Names of the variables
          String varnamesToWrite[] = new String[vars.size()];
 
-         // Data of the variables
-         double[][] dataToWrite = new double[vars.size()][];
+         // Entries of the variables
+         int[] entryIndices = new int[vars.size()];
 
          // Find the matching variables
          for (int i = 0; i < entries.size(); i++)
@@ -579,9 +586,7 @@ public class DataFileWriter
             if (vars.contains(variable))
             {
                varnamesToWrite[vars.indexOf(variable)] = entry.getVariable().getFullNameWithNameSpace();
-
-               double[] data = entry.getWindowedData(dataBuffer.getInPoint(), /* dataBuffer.getOutPoint(), */ bufferLength);
-               dataToWrite[vars.indexOf(variable)] = data;
+               entryIndices[vars.indexOf(variable)] = i;
             }
          }
 
@@ -598,22 +603,30 @@ public class DataFileWriter
                printStream.println("");
          }
 
-         // Write the data:
-         for (int j = 0; j < bufferLength; j++)
+         // Write the data a block of ticks at a time, the ticks that were spilled to disk come first:
+         double[][] dataToWrite = new double[vars.size()][EXPORTED_TICKS_BLOCK_SIZE];
+
+         for (long firstTick = 0; firstTick < bufferLength; firstTick += EXPORTED_TICKS_BLOCK_SIZE)
          {
-//          if (j == 0)
-//             printStream.print(recordDT + ",");
-//          else
-//             printStream.print(",");
+            int numberOfTicks = (int) Math.min(EXPORTED_TICKS_BLOCK_SIZE, bufferLength - firstTick);
+            dataBuffer.readExportedTicks(firstTick, numberOfTicks, entryIndices, dataToWrite);
 
-            for (int i = 0; i < dataToWrite.length; i++)
+            for (int j = 0; j < numberOfTicks; j++)
             {
-               double[] data = dataToWrite[i];
-               printStream.print(data[j]);
-               if (i < dataToWrite.length - 1)
-                  printStream.print(",");
-               else
-                  printStream.println("");
+//             if (j == 0)
+//                printStream.print(recordDT + ",");
+//             else
+//                printStream.print(",");
+
+               for (int i = 0; i < dataToWrite.length; i++)
+               {
+                  double[] data = dataToWrite[i];
+                  printStream.print(data[j]);
+                  if (i < dataToWrite.length - 1)
+                     printStream.print(",");
+                  else
+                     printStream.println("");
+               }
             }
          }
 
@@ -746,4 +759,89 @@ public class DataFileWriter
       {
       }
    }
+
+   private static int getNumberOfExportedTicks(DataBuffer dataBuffer)
+   {
+      long numberOfExportedTicks = dataBuffer.getNumberOfExportedTicks();
+      if (numberOfExportedTicks > Integer.MAX_VALUE)
+         throw new RuntimeException("Cannot export " + numberOfExportedTicks + " ticks to a single file");
+
+      return (int) numberOfExportedTicks;
+   }
+
+   private static int[] getEntryIndicesInEntryOrder(ArrayList<DataBufferEntry> entries, ArrayList<YoVariable<?>> vars)
+   {
+      int[] entryIndices = new int[entries.size()];
+      int numberOfEntryIndices = 0;
+
+      for (int i = 0; i < entries.size(); i++)
+      {
+         if (vars.contains(entries.get(i).getVariable()))
+            entryIndices[numberOfEntryIndices++] = i;
+      }
+
+      return Arrays.copyOf(entryIndices, numberOfEntryIndices);
+   }
+
+   /**
+    * Gives the exported ticks of one entry after the other. The data of an entry is only valid until the next call.
+    *
+    * Ticks that were spilled to disk are read for a group of entries at once, which bounds the memory used for the columns.
+    * The chunks on disk compress every entry on its own, so each group only decompresses its own entries and the whole export decompresses every chunk once.
+    */
+   private static class ExportedDataReader
+   {
+      private final DataBuffer dataBuffer;
+      private final int[] entryIndices;
+      private final int numberOfTicks;
+
+      private final int[] groupEntryIndices;
+      private final double[][] groupData;
+      private int groupStart = 0;
+      private int groupLength = 0;
+
+      private int nextEntry = 0;
+
+      public ExportedDataReader(DataBuffer dataBuffer, int[] entryIndices)
+      {
+         this.dataBuffer = dataBuffer;
+         this.entryIndices = entryIndices;
+         this.numberOfTicks = getNumberOfExportedTicks(dataBuffer);
+
+         if (dataBuffer.getNumberOfSpilledTicks() > 0)
+         {
+            int groupSize = (int) Math.max(1, Math.min(entryIndices.length, EXPORTED_VARIABLE_GROUP_SIZE_IN_BYTES / (8L * Math.max(1, numberOfTicks))));
+            groupEntryIndices = new int[groupSize];
+            groupData = new double[groupSize][numberOfTicks];
+         }
+         else
+         {
+            groupEntryIndices = null;
+            groupData = null;
+         }
+      }
+
+      public double[] getNextData()
+      {
+         int entry = nextEntry++;
+
+         if (groupData == null)
+            return dataBuffer.getEntries().get(entryIndices[entry]).getWindowedData(dataBuffer.getInPoint(), numberOfTicks);
+
+         if (entry >= groupStart + groupLength)
+         {
+            groupStart = entry;
+            groupLength = Math.min(groupData.length, entryIndices.length - groupStart);
+
+            int[] indices = groupEntryIndices;
+            if (groupLength < groupEntryIndices.length)
+               indices = new int[groupLength];
+            System.arraycopy(entryIndices, groupStart, indices, 0, groupLength);
+
+            dataBuffer.readExportedTicks(0, numberOfTicks, indices, groupData);
+         }
+
+         return groupData[entry - groupStart];
+      }
+   }
 }
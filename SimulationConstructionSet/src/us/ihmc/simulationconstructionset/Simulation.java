@@ -32,6 +32,7 @@ public class Simulation implements YoVariableHolder, Serializable // Runnable,
 
    private double SIMULATION_DT = 0.0004;
    private int RECORD_FREQ = 1;
+   private int numberOfThreadsForRobotDynamics = 1;
 
    private Robot[] robots;
 
@@ -87,6 +88,17 @@ public class Simulation implements YoVariableHolder, Serializable // Runnable,
       // recomputeTiming();
    }
 
+   /**
+    * @see Simulator#setNumberOfThreadsForRobotDynamics(int)
+    */
+   public void setNumberOfThreadsForRobotDynamics(int numberOfThreads)
+   {
+      numberOfThreadsForRobotDynamics = numberOfThreads;
+
+      if (mySimulator != null)
+         mySimulator.setNumberOfThreadsForRobotDynamics(numberOfThreads);
+   }
+
    public void setRecordDT(double recordDT)
    {
       RECORD_FREQ = (int) Math.round(recordDT / mySimulator.getDT());
@@ -211,6 +223,9 @@ public class Simulation implements YoVariableHolder, Serializable // Runnable,
    {
       myDataBuffer.closeAndDispose();
 
+      if (mySimulator != null)
+         mySimulator.closeAndDispose();
+
       myDataBuffer = null;
       mySimulator = null;
    }
@@ -223,7 +238,11 @@ public class Simulation implements YoVariableHolder, Serializable // Runnable,
       if (robots != null)
       {
          // Create a simulator:
+         if (mySimulator != null)
+            mySimulator.closeAndDispose();
+
          mySimulator = new Simulator(simulationSynchronizer, robots, SIMULATION_DT);
+         mySimulator.setNumberOfThreadsForRobotDynamics(numberOfThreadsForRobotDynamics);
 
          // Set the default DT
          this.setDT(SIMULATION_DT, RECORD_FREQ);
@@ -422,6 +422,11 @@ public class SimulationConstructionSet implements Runnable, YoVariableHolder, Ru
 
       setupVarGroup("all", new String[0], new String[] { ".*" });
 
+      if (parameters.getDataBufferSpillDirectory() != null)
+      {
+         enableDataBufferSpillToDisk(new File(parameters.getDataBufferSpillDirectory()), parameters.getDataBufferTicksPerSpilledChunk());
+      }
+
       recomputeTiming();
       this.robots = mySimulation.getRobots();
 
@@ -613,6 +618,17 @@ public class SimulationConstructionSet implements Runnable, YoVariableHolder, Ru
       recomputeTiming();
    }
 
+   /**
+    * Sets the number of threads used to integrate the dynamics of the robots of this simulation, one robot per thread. Defaults to 1.
+    * Only useful with several robots, which must not share state in their dynamics. Ground contact and collisions are still done in the simulation thread.
+    *
+    * @param numberOfThreads Number of threads integrating the robots.
+    */
+   public void setNumberOfThreadsForRobotDynamics(int numberOfThreads)
+   {
+      mySimulation.setNumberOfThreadsForRobotDynamics(numberOfThreads);
+   }
+
    /**
     * Retrieves the Robots used in this simulation.
     *
@@ -3114,6 +3130,50 @@ public class SimulationConstructionSet implements Runnable, YoVariableHolder, Ru
       myDataBuffer.setMaxBufferSize(maxBufferSize);
    }
 
+   /**
+    * Keeps the whole recorded history. Once the buffer is full, the oldest ticks are written to compressed files in the given directory instead of being overwritten.
+    * Stepping backward past the inPoint pages them back in, and exported data includes them. Cutting and thinning apply to the whole history, cropping drops the ticks that are only on disk.
+    *
+    * @param directory Directory for the spilled ticks, the files are deleted when the simulation is closed.
+    * @param ticksPerChunk Number of ticks written to disk at once.
+    */
+   public void enableDataBufferSpillToDisk(File directory, int ticksPerChunk)
+   {
+      myDataBuffer.enableSpillToDisk(directory, ticksPerChunk);
+   }
+
+   /**
+    * Replaces the data in the buffer with the recorded ticks starting at firstTick, counting from the first tick ever recorded. This has no effect unless ticks have been spilled to disk.
+    * Simulating or calling {@link #restoreNewestTicks()} brings the newest ticks back.
+    *
+    * @param firstTick First tick to show.
+    */
+   public void pageInSpilledTicks(long firstTick)
+   {
+      if (myDataBuffer.getNumberOfSpilledTicks() == 0)
+         return;
+
+      myDataBuffer.pageInSpilledTicks(firstTick);
+
+      if (myGUI != null)
+      {
+         myGUI.zoomFullView();
+      }
+   }
+
+   /**
+    * Brings the newest ticks back in the buffer after {@link #pageInSpilledTicks(long)}.
+    */
+   public void restoreNewestTicks()
+   {
+      myDataBuffer.restoreNewestTicks();
+
+      if (myGUI != null)
+      {
+         myGUI.zoomFullView();
+      }
+   }
+
    /**
     * Specifies the directory to which data will be exported. By default, this directory is the one in which this simulation's robot is defined.
     *
@@ -7,6 +7,8 @@ public class SimulationConstructionSetParameters
    private boolean showWindows = true;
    private int dataBufferSize = 8192;
    private boolean showYoGraphicObjects = true;
+   private String dataBufferSpillDirectory = null;
+   private int dataBufferTicksPerSpilledChunk = 1024;
   
 
    public SimulationConstructionSetParameters()
@@ -69,6 +71,19 @@ public class SimulationConstructionSetParameters
          Boolean showYoGraphicsObjects = Boolean.parseBoolean(property);
          setShowYoGraphicObjects(showYoGraphicsObjects);
       }      
+      
+      property = System.getProperty("scs.dataBuffer.spillDirectory");
+      if (property != null)
+      {
+         setDataBufferSpillDirectory(property);
+      }
+      
+      property = System.getProperty("scs.dataBuffer.ticksPerSpilledChunk");
+      if (property != null)
+      {
+         Integer ticksPerSpilledChunk = Integer.parseInt(property);
+         setDataBufferTicksPerSpilledChunk(ticksPerSpilledChunk);
+      }
    }
 
    public int getDataBufferSize()
@@ -121,6 +136,29 @@ public class SimulationConstructionSetParameters
       this.showYoGraphicObjects = showYoGraphicObjects;
    }
    
+   /**
+    * @return Directory to which the data buffer spills the ticks it would otherwise overwrite, or null if it does not spill to disk.
+    */
+   public String getDataBufferSpillDirectory()
+   {
+      return dataBufferSpillDirectory;
+   }
+
+   public void setDataBufferSpillDirectory(String dataBufferSpillDirectory)
+   {
+      this.dataBufferSpillDirectory = dataBufferSpillDirectory;
+   }
+
+   public int getDataBufferTicksPerSpilledChunk()
+   {
+      return dataBufferTicksPerSpilledChunk;
+   }
+
+   public void setDataBufferTicksPerSpilledChunk(int dataBufferTicksPerSpilledChunk)
+   {
+      this.dataBufferTicksPerSpilledChunk = dataBufferTicksPerSpilledChunk;
+   }
+   
    public String toString()
    {
       String st = "showSplashScreen: " + showSplashScreen + "\n";    
@@ -128,6 +166,8 @@ public class SimulationConstructionSetParameters
       st += "showWindows: " + showWindows + "\n";    
       st += "dataBufferSize: " + dataBufferSize + "\n";    
       st += "showYoGraphicObjects: " + showYoGraphicObjects + "\n";    
+      st += "dataBufferSpillDirectory: " + dataBufferSpillDirectory + "\n";    
+      st += "dataBufferTicksPerSpilledChunk: " + dataBufferTicksPerSpilledChunk + "\n";    
       return st;   
    }
 }
@@ -1,6 +1,8 @@
 package us.ihmc.simulationconstructionset;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import us.ihmc.simulationconstructionset.physics.ScsCollisionDetector;
 import us.ihmc.simulationconstructionset.physics.visualize.DefaultCollisionVisualize;
@@ -21,6 +23,10 @@ public class Simulator implements java.io.Serializable
    private DefaultCollisionVisualize collisionVisualize;
    protected ArrayList<WrenchContactPoint> forceSensor = new ArrayList<WrenchContactPoint>();
 
+   private transient ForkJoinPool robotDynamicsPool = null;
+   private transient RobotDynamicsTask[] robotDynamicsTasks = null;
+   private transient AllRobotsDynamicsTask allRobotsDynamicsTask = null;
+
    // private final YoVariable time;
 
    public Simulator(SimulationSynchronizer simulationSynchronizer, Robot[] robots, double dt)
@@ -127,10 +133,42 @@ public class Simulator implements java.io.Serializable
       }
    }
 
+   /**
+    * Integrates the dynamics of the robots on the given number of threads, one robot per task. Sequential by default.
+    * Only the dynamics are done in parallel: the ground contact models, scripts, and collision detection still run in the simulation thread, after all the
+    * robots are done. The robots must not share state in their dynamics, for instance through functions to integrate that act on several robots.
+    */
+   public void setNumberOfThreadsForRobotDynamics(int numberOfThreads)
+   {
+      if (robotDynamicsPool != null)
+         robotDynamicsPool.shutdown();
+
+      if (numberOfThreads > 1 && robots.length > 1)
+      {
+         robotDynamicsPool = new ForkJoinPool(Math.min(numberOfThreads, robots.length));
+         robotDynamicsTasks = new RobotDynamicsTask[robots.length];
+         for (int i = 0; i < robots.length; i++)
+            robotDynamicsTasks[i] = new RobotDynamicsTask(robots[i]);
+         allRobotsDynamicsTask = new AllRobotsDynamicsTask();
+      }
+      else
+      {
+         robotDynamicsPool = null;
+         robotDynamicsTasks = null;
+         allRobotsDynamicsTask = null;
+      }
+   }
+
    protected void doDynamicsAndIntegrate() throws UnreasonableAccelerationException
    {
       synchronized (simulationSynchronizer)
       {
+         if (robotDynamicsPool != null)
+         {
+            doDynamicsAndIntegrateInParallel();
+            return;
+         }
+
          for (int i = 0; i < robots.length; i++)
          {
             Robot robot = robots[i];
@@ -140,6 +178,69 @@ public class Simulator implements java.io.Serializable
       }
    }
 
+   private void doDynamicsAndIntegrateInParallel() throws UnreasonableAccelerationException
+   {
+      allRobotsDynamicsTask.reinitialize();
+      for (RobotDynamicsTask robotDynamicsTask : robotDynamicsTasks)
+         robotDynamicsTask.reinitialize();
+
+      // Returns once every robot is integrated, which is the barrier before the collisions and the data recording
+      robotDynamicsPool.invoke(allRobotsDynamicsTask);
+
+      // Report the exception of the first robot, to fail the same way whatever the order the tasks ran in
+      for (RobotDynamicsTask robotDynamicsTask : robotDynamicsTasks)
+      {
+         if (robotDynamicsTask.exception != null)
+            throw robotDynamicsTask.exception;
+      }
+   }
+
+   /**
+    * Shuts down the threads used to integrate the robots in parallel, if any.
+    */
+   public void closeAndDispose()
+   {
+      setNumberOfThreadsForRobotDynamics(1);
+   }
+
+   @SuppressWarnings("serial")
+   private class AllRobotsDynamicsTask extends RecursiveAction
+   {
+      @Override
+      protected void compute()
+      {
+         invokeAll(robotDynamicsTasks);
+      }
+   }
+
+   @SuppressWarnings("serial")
+   private class RobotDynamicsTask extends RecursiveAction
+   {
+      private final Robot robot;
+      private UnreasonableAccelerationException exception = null;
+
+      private RobotDynamicsTask(Robot robot)
+      {
+         this.robot = robot;
+      }
+
+      @Override
+      protected void compute()
+      {
+         exception = null;
+
+         try
+         {
+            robot.doDynamicsAndIntegrate(DT);
+            robot.updateIMUMountAccelerations();
+         }
+         catch (UnreasonableAccelerationException e)
+         {
+            exception = e;
+         }
+      }
+   }
+
    protected void forceClassLoading()
    {
       //
@@ -33,6 +33,8 @@ public interface DataEntry
 
    public abstract double getMin(int leftIndex, int rightIndex, int leftPlotIndex, int rightPlotIndex);
 
+   public abstract void computeMinMaxInRange(int startIndex, int endIndex, double[] minMaxToPack);
+
    public abstract void setManualScaling(double newMinVal, double newMaxVal);
 
    public abstract void enableAutoScale(boolean b);
@@ -46,6 +46,8 @@ public class YoGraph extends JPanel implements MouseListener, MouseMotionListene
    private static final int DONT_PLOT_BOTTOM_PIXELS = 25;
    private static final int PIXELS_PER_BOTTOM_ROW = 14;    // 16;
    private static final int DONT_PLOT_TIMELINE_BOTTOM_PIXELS = 16;
+   /** Above this many ticks per pixel the time plot draws the min/max envelope of each pixel column instead of every tick. */
+   private static final int DECIMATION_TICKS_PER_PIXEL = 2;
 
    private GraphConfiguration graphConfiguration = new GraphConfiguration("default");
 
@@ -78,6 +80,7 @@ public class YoGraph extends JPanel implements MouseListener, MouseMotionListene
    private double min = 0.0, max = 1.1;
 
    private int[] xData, yData;
+   private final double[] columnMinMax = new double[2];
 
    private final ArrayList<Integer> entryNamePaintWidths = new ArrayList<Integer>();
    private final ArrayList<Integer> entryNamePaintRows = new ArrayList<Integer>();
@@ -474,8 +477,11 @@ public class YoGraph extends JPanel implements MouseListener, MouseMotionListene
       }
    }
 
-   private void calcXYData(DataEntry entry, int nPoints, int[] xData, int[] yData, double min, double max, int width, int height, int offsetFromLeft,
-                           int offsetFromTop, int leftPlotIndex, int rightPlotIndex)
+   /**
+    * Computes the pixel coordinates of the points from firstIndex to firstIndex + nPoints, excluded.
+    */
+   private void calcXYData(DataEntry entry, int firstIndex, int nPoints, int[] xData, int[] yData, double min, double max, int width, int height,
+                           int offsetFromLeft, int offsetFromTop, int leftPlotIndex, int rightPlotIndex)
    {
       double[] data = entry.getData();
 
@@ -494,15 +500,75 @@ public class YoGraph extends JPanel implements MouseListener, MouseMotionListene
       {
          for (int i = 0; i < nPoints; i++)
          {
-            double dataAtTick = data[i];
+            int index = firstIndex + i;
+            double dataAtTick = data[index];
             
             if (inverted) dataAtTick = -dataAtTick;
-            xData[i] = ((i - leftPlotIndex) * width) / (rightPlotIndex - leftPlotIndex) + offsetFromLeft;
+            xData[i] = ((index - leftPlotIndex) * width) / (rightPlotIndex - leftPlotIndex) + offsetFromLeft;
             yData[i] = height - (int) ((dataAtTick - min) / (max - min) * height) + offsetFromTop;
          }
       }
    }
 
+   private void ensureXYDataCapacity(int nPoints)
+   {
+      if (xData.length < nPoints)
+      {
+         xData = new int[nPoints];
+         yData = new int[nPoints];
+      }
+   }
+
+   /**
+    * Computes a min/max envelope with one vertical segment per pixel column, for when there are many more ticks than pixels to plot.
+    * The min and max of each column come from the min/max pyramid of the entry, so the cost depends on the width of the graph rather than on the number of ticks.
+    *
+    * @return the number of points to draw
+    */
+   private int calcDecimatedXYData(DataEntry entry, int[] xData, int[] yData, double min, double max, int width, int height, int offsetFromLeft,
+                                   int offsetFromTop, int leftPlotIndex, int rightPlotIndex)
+   {
+      int dataLength = entry.getData().length;
+      boolean inverted = entry.getInverted();
+      long ticksToPlot = rightPlotIndex - leftPlotIndex;
+      int nPoints = 0;
+
+      for (int column = 0; column < width; column++)
+      {
+         int startIndex = leftPlotIndex + (int) ((column * ticksToPlot) / width);
+         int endIndex = leftPlotIndex + (int) (((column + 1) * ticksToPlot) / width);
+         startIndex = Math.max(0, startIndex);
+         endIndex = Math.min(dataLength, endIndex);
+
+         if (startIndex >= endIndex)
+            continue;
+
+         entry.computeMinMaxInRange(startIndex, endIndex, columnMinMax);
+         double columnMin = columnMinMax[0];
+         double columnMax = columnMinMax[1];
+
+         if (columnMin > columnMax)
+            continue;
+
+         if (inverted)
+         {
+            double temp = columnMax;
+            columnMax = -columnMin;
+            columnMin = -temp;
+         }
+
+         int x = column + offsetFromLeft;
+         xData[nPoints] = x;
+         yData[nPoints] = height - (int) ((columnMin - min) / (max - min) * height) + offsetFromTop;
+         nPoints++;
+         xData[nPoints] = x;
+         yData[nPoints] = height - (int) ((columnMax - min) / (max - min) * height) + offsetFromTop;
+         nPoints++;
+      }
+
+      return nPoints;
+   }
+
    private void calcScatterData(DataEntry entryX, DataEntry entryY, int nPoints, int[] xData, int[] yData, double minX, double maxX, double minY, double maxY,
                                 int width, int height, int offsetFromLeft, int offsetFromTop)
    {
@@ -983,24 +1049,31 @@ public class YoGraph extends JPanel implements MouseListener, MouseMotionListene
             maxVal = graphConfiguration.getManualScalingMax();
          }
 
-         int nPoints = data.length;
-         if ((xData.length != nPoints) || (yData.length != nPoints))
-         {
-            // System.out.println("Making new xData, yData!!!");
-            xData = new int[nPoints];
-            yData = new int[nPoints];
-         }
-
          int totalDontPlotBottomPixels = DONT_PLOT_BOTTOM_PIXELS + PIXELS_PER_BOTTOM_ROW * (totalEntryNamePaintRows - 1);
+         int plotWidth = graphWidth - 6;
+         int plotHeight = graphHeight - totalDontPlotBottomPixels;
+         int nPoints;
 
-         calcXYData(entry, nPoints, xData, yData, minVal, maxVal, (graphWidth - 6), graphHeight - totalDontPlotBottomPixels, 3, 5, leftPlotIndex,
-                    rightPlotIndex);
+         if ((plotWidth > 0) && (rightPlotIndex - leftPlotIndex > DECIMATION_TICKS_PER_PIXEL * plotWidth))
+         {
+            ensureXYDataCapacity(2 * plotWidth);
+            nPoints = calcDecimatedXYData(entry, xData, yData, minVal, maxVal, plotWidth, plotHeight, 3, 5, leftPlotIndex, rightPlotIndex);
+         }
+         else
+         {
+            // Only the visible points, plus one on each side so the lines reach the edges
+            int firstIndex = Math.max(0, Math.min(leftPlotIndex, rightPlotIndex) - 1);
+            int lastIndex = Math.min(data.length - 1, Math.max(leftPlotIndex, rightPlotIndex) + 1);
+            nPoints = Math.max(0, lastIndex - firstIndex + 1);
+            ensureXYDataCapacity(nPoints);
+            calcXYData(entry, firstIndex, nPoints, xData, yData, minVal, maxVal, plotWidth, plotHeight, 3, 5, leftPlotIndex, rightPlotIndex);
+         }
 
          graphics.setColor(colors[i % YoGraph.MAX_NUM_GRAPHS]);
 
          // Draw the data
          g2d.setStroke(normalStroke);
-         graphics.drawPolyline(xData, yData, xData.length);
+         graphics.drawPolyline(xData, yData, nPoints);
 
          if (graphConfiguration.getShowBaseLines())
          {
@@ -0,0 +1,765 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.vecmath.Point3d;
+import javax.vecmath.Vector3d;
+
+import us.ihmc.graphics3DAdapter.GPULidar;
+import us.ihmc.graphics3DAdapter.GPULidarListener;
+import us.ihmc.graphics3DAdapter.HeightMap;
+import us.ihmc.robotics.geometry.BoundingBox3d;
+import us.ihmc.robotics.geometry.Direction;
+import us.ihmc.robotics.geometry.RigidBodyTransform;
+import us.ihmc.robotics.geometry.shapes.Box3d;
+import us.ihmc.robotics.geometry.shapes.Cylinder3d;
+import us.ihmc.robotics.geometry.shapes.Shape3d;
+import us.ihmc.robotics.geometry.shapes.Sphere3d;
+import us.ihmc.robotics.lidar.LidarScanParameters;
+import us.ihmc.simulationconstructionset.Joint;
+import us.ihmc.simulationconstructionset.util.ground.BoxTerrainObject;
+import us.ihmc.simulationconstructionset.util.ground.CombinedTerrainObject3D;
+import us.ihmc.simulationconstructionset.util.ground.CylinderTerrainObject;
+import us.ihmc.simulationconstructionset.util.ground.FlatGroundProfile;
+import us.ihmc.simulationconstructionset.util.ground.RotatableBoxTerrainObject;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObject3D;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObjectBoundingBoxTree;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObjectBoundingBoxTree.RayHits;
+import us.ihmc.tools.io.printing.PrintTools;
+
+/**
+ * Lidar that casts its rays on the CPU against terrain objects and robot collision shapes, for simulations that run without a graphics context.
+ * The scans have the same layout as the ones of the GPU lidar: row after row of pointsPerSweep ranges, and a range of 0 where a ray hits nothing.
+ *
+ * The scans are started from {@link #setTransformFromWorld(RigidBodyTransform, double)} once per scan period and run in the background, the rays being split
+ * over a pool of threads. If a scan is still running when the next one is due, the next one is dropped and counted in {@link #getNumberOfDroppedScans()}.
+ *
+ * Boxes, cylinders and flat ground are intersected analytically. The other terrain objects are treated as height fields: rays are marched through their
+ * bounding box with a fixed step until they go below {@link HeightMap#heightAt(double, double, double)}, so features thinner than the step can be missed.
+ * The threads casting the rays only read the geometry of the terrain, they do not lock it. This requires heightAt of these other terrain objects to not use
+ * temporary variables, which holds for the terrain objects of this package.
+ */
+public class CPURayCastLidar implements GPULidar
+{
+   private static final double DEFAULT_SCAN_PERIOD = 0.025;
+   private static final double DEFAULT_RAY_MARCHING_STEP = 0.02;
+   private static final double SURFACE_TOLERANCE = 1.0e-3;
+
+   private final LidarScanParameters parameters;
+   private final int numberOfRays;
+   /** Unit direction of every ray in the lidar frame, stored as x0, y0, z0, x1, y1, z1, ... */
+   private final double[] rayDirections;
+
+   private final List<TerrainObject3D> terrainObjects = new ArrayList<TerrainObject3D>();
+   /** Shape of every terrain object, in the same order as the terrain objects. */
+   private final ArrayList<TerrainShape> terrainShapes = new ArrayList<TerrainShape>();
+   private final TerrainObjectBoundingBoxTree terrainTree = new TerrainObjectBoundingBoxTree();
+   private final ArrayList<RobotCollisionShape> robotCollisionShapes = new ArrayList<RobotCollisionShape>();
+
+   private final CopyOnWriteArrayList<GPULidarListener> listeners = new CopyOnWriteArrayList<GPULidarListener>();
+
+   private final ExecutorService scanExecutor;
+   private final ExecutorService rayCastingExecutor;
+   private final ArrayList<RayCaster> rayCasters = new ArrayList<RayCaster>();
+
+   private final AtomicBoolean isScanning = new AtomicBoolean(false);
+   private double nextScanTime = Double.NEGATIVE_INFINITY;
+   private int numberOfDroppedScans = 0;
+
+   private double scanPeriod;
+   private double rayMarchingStep = DEFAULT_RAY_MARCHING_STEP;
+
+   /**
+    * @param terrain terrain to cast the rays against. Combined terrain objects are split into the objects they are made of.
+    * @param numberOfThreads number of threads casting the rays of a scan
+    */
+   public CPURayCastLidar(String name, LidarScanParameters parameters, TerrainObject3D terrain, int numberOfThreads)
+   {
+      this.parameters = parameters;
+      this.numberOfRays = parameters.getPointsPerSweep() * parameters.getScanHeight();
+      this.rayDirections = computeRayDirections(parameters);
+      this.scanPeriod = parameters.getScanTime() > 0.0 ? parameters.getScanTime() : DEFAULT_SCAN_PERIOD;
+
+      if (terrain != null)
+         addTerrainObjects(terrain);
+      terrainTree.build(terrainObjects);
+
+      scanExecutor = Executors.newSingleThreadExecutor(createDaemonThreadFactory(name + "Scan"));
+      rayCastingExecutor = Executors.newFixedThreadPool(numberOfThreads, createDaemonThreadFactory(name + "RayCasting"));
+
+      int raysPerThread = (numberOfRays + numberOfThreads - 1) / numberOfThreads;
+      for (int start = 0; start < numberOfRays; start += raysPerThread)
+         rayCasters.add(new RayCaster(start, Math.min(start + raysPerThread, numberOfRays)));
+   }
+
+   private void addTerrainObjects(TerrainObject3D terrainObject)
+   {
+      if (terrainObject instanceof CombinedTerrainObject3D)
+      {
+         for (TerrainObject3D child : ((CombinedTerrainObject3D) terrainObject).getTerrainObjects())
+            addTerrainObjects(child);
+         return;
+      }
+
+      TerrainShape terrainShape = createTerrainShape(terrainObject);
+
+      if (terrainShape == null)
+      {
+         PrintTools.warn(this, terrainObject.getClass().getSimpleName() + " has no height map, the lidar does not see it.");
+         return;
+      }
+
+      terrainObjects.add(terrainObject);
+      terrainShapes.add(terrainShape);
+   }
+
+   private TerrainShape createTerrainShape(TerrainObject3D terrainObject)
+   {
+      RigidBodyTransform shapeToWorld = new RigidBodyTransform();
+      RayCastShape shape;
+
+      if (terrainObject instanceof BoxTerrainObject)
+      {
+         BoundingBox3d boundingBox = terrainObject.getBoundingBox();
+         shapeToWorld.setTranslation(0.5 * (boundingBox.getXMin() + boundingBox.getXMax()), 0.5 * (boundingBox.getYMin() + boundingBox.getYMax()),
+                                     0.5 * (boundingBox.getZMin() + boundingBox.getZMax()));
+         shape = new BoxShape(0.5 * (boundingBox.getXMax() - boundingBox.getXMin()), 0.5 * (boundingBox.getYMax() - boundingBox.getYMin()),
+                              0.5 * (boundingBox.getZMax() - boundingBox.getZMin()));
+      }
+      else if (terrainObject instanceof RotatableBoxTerrainObject)
+      {
+         shape = createShape(((RotatableBoxTerrainObject) terrainObject).getBox(), shapeToWorld);
+      }
+      else if (terrainObject instanceof CylinderTerrainObject)
+      {
+         shape = createShape(((CylinderTerrainObject) terrainObject).getCylinder(), shapeToWorld);
+      }
+      else if (terrainObject instanceof FlatGroundProfile)
+      {
+         shape = new HorizontalPlaneShape(terrainObject.getHeightMapIfAvailable().heightAt(0.0, 0.0, 0.0));
+      }
+      else if (terrainObject.getHeightMapIfAvailable() != null)
+      {
+         shape = new HeightFieldShape(terrainObject.getHeightMapIfAvailable());
+      }
+      else
+      {
+         return null;
+      }
+
+      return new TerrainShape(shape, shapeToWorld);
+   }
+
+   /**
+    * @param shapeToParentToPack transform from the frame in which the returned shape is expressed to the frame of the given shape
+    */
+   private static RayCastShape createShape(Shape3d shape, RigidBodyTransform shapeToParentToPack)
+   {
+      if (shape instanceof Box3d)
+      {
+         Box3d box = (Box3d) shape;
+         box.getTransform(shapeToParentToPack);
+         return new BoxShape(0.5 * box.getDimension(Direction.X), 0.5 * box.getDimension(Direction.Y), 0.5 * box.getDimension(Direction.Z));
+      }
+      else if (shape instanceof Cylinder3d)
+      {
+         Cylinder3d cylinder = (Cylinder3d) shape;
+         cylinder.getTransform(shapeToParentToPack);
+         return new CylinderShape(cylinder.getHeight(), cylinder.getRadius());
+      }
+      else if (shape instanceof Sphere3d)
+      {
+         Sphere3d sphere = (Sphere3d) shape;
+         Point3d center = new Point3d();
+         sphere.getCenter(center);
+         shapeToParentToPack.setTranslationAndIdentityRotation(new Vector3d(center));
+         return new SphereShape(sphere.getRadius());
+      }
+
+      throw new IllegalArgumentException("The lidar can only cast rays against boxes, cylinders and spheres, not " + shape.getClass().getSimpleName());
+   }
+
+   /**
+    * Same directions as {@link us.ihmc.robotics.lidar.LidarScan#getSweepTransform(int)}: yaw around z, then pitch around the yawed y axis.
+    */
+   private static double[] computeRayDirections(LidarScanParameters parameters)
+   {
+      int pointsPerSweep = parameters.getPointsPerSweep();
+      int scanHeight = parameters.getScanHeight();
+      double yawPerIndex = (parameters.sweepYawMax - parameters.sweepYawMin) / (pointsPerSweep - 1);
+      double pitchPerIndex = (parameters.heightPitchMax - parameters.heightPitchMin) / (scanHeight - 1);
+
+      double[] rayDirections = new double[3 * pointsPerSweep * scanHeight];
+
+      for (int i = 0; i < pointsPerSweep * scanHeight; i++)
+      {
+         double yaw = pointsPerSweep > 1 ? parameters.sweepYawMin + yawPerIndex * (i % pointsPerSweep) : 0.0;
+         double pitch = scanHeight > 1 ? parameters.heightPitchMin + pitchPerIndex * (i / pointsPerSweep) : 0.0;
+
+         rayDirections[3 * i] = Math.cos(yaw) * Math.cos(pitch);
+         rayDirections[3 * i + 1] = Math.sin(yaw) * Math.cos(pitch);
+         rayDirections[3 * i + 2] = -Math.sin(pitch);
+      }
+
+      return rayDirections;
+   }
+
+   private static ThreadFactory createDaemonThreadFactory(final String name)
+   {
+      return new ThreadFactory()
+      {
+         private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+         @Override
+         public Thread newThread(Runnable runnable)
+         {
+            Thread thread = new Thread(runnable, name + "-thread-" + threadNumber.getAndIncrement());
+            // Simulations are often not shut down explicitly, the lidar threads must not keep the JVM alive
+            thread.setDaemon(true);
+            return thread;
+         }
+      };
+   }
+
+   /**
+    * Adds a shape that moves with the given joint, for instance a link of the robot the lidar is mounted on. Has to be called before the first scan.
+    * Only boxes, cylinders and spheres are supported. Rays that start inside a shape go through it.
+    */
+   public void addRobotCollisionShape(Joint joint, Shape3d shapeInJointFrame)
+   {
+      RigidBodyTransform shapeToJoint = new RigidBodyTransform();
+      RayCastShape shape = createShape(shapeInJointFrame, shapeToJoint);
+      robotCollisionShapes.add(new RobotCollisionShape(joint, shape, shapeToJoint));
+   }
+
+   /**
+    * Simulation time between the start of two scans.
+    */
+   public void setScanPeriod(double scanPeriod)
+   {
+      this.scanPeriod = scanPeriod;
+   }
+
+   /**
+    * Distance between the points at which a ray is tested against a height field. The hit itself is then refined to {@value #SURFACE_TOLERANCE}m.
+    */
+   public void setRayMarchingStep(double rayMarchingStep)
+   {
+      this.rayMarchingStep = rayMarchingStep;
+   }
+
+   @Override
+   public void addGPULidarListener(GPULidarListener listener)
+   {
+      listeners.add(listener);
+   }
+
+   @Override
+   public void setTransformFromWorld(RigidBodyTransform transformToWorld, double time)
+   {
+      if (time < nextScanTime)
+         return;
+
+      nextScanTime = time + scanPeriod;
+
+      if (!isScanning.compareAndSet(false, true))
+      {
+         if (numberOfDroppedScans == 0)
+            PrintTools.warn(this, "The previous scan is still running at t = " + time + ", dropping the scans that are due until it is done.");
+         numberOfDroppedScans++;
+         return;
+      }
+
+      // Copy everything the scan needs now, the simulation keeps going while the scan runs and the listeners keep the transform
+      final RigidBodyTransform scanTransform = new RigidBodyTransform(transformToWorld);
+      final double scanTime = time;
+      updateRobotCollisionShapeTransforms();
+
+      scanExecutor.execute(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            float[] ranges;
+
+            try
+            {
+               ranges = castRays(scanTransform);
+            }
+            finally
+            {
+               isScanning.set(false);
+            }
+
+            for (int i = 0; i < listeners.size(); i++)
+               listeners.get(i).scan(ranges, scanTransform, scanTime);
+         }
+      });
+   }
+
+   /**
+    * @return the number of scans that were due while the previous scan was still running, and were not done
+    */
+   public int getNumberOfDroppedScans()
+   {
+      return numberOfDroppedScans;
+   }
+
+   /**
+    * Scans in the calling thread, with the robot collision shapes where their joints currently are. Waits for the background scan if one is running.
+    * @return the ranges, 0 where a ray hits nothing
+    */
+   public float[] scan(RigidBodyTransform lidarToWorld)
+   {
+      while (!isScanning.compareAndSet(false, true))
+         Thread.yield();
+
+      try
+      {
+         updateRobotCollisionShapeTransforms();
+         return castRays(lidarToWorld);
+      }
+      finally
+      {
+         isScanning.set(false);
+      }
+   }
+
+   private void updateRobotCollisionShapeTransforms()
+   {
+      for (int i = 0; i < robotCollisionShapes.size(); i++)
+         robotCollisionShapes.get(i).updateTransform();
+   }
+
+   private float[] castRays(RigidBodyTransform lidarToWorld)
+   {
+      float[] ranges = new float[numberOfRays];
+
+      for (int i = 0; i < rayCasters.size(); i++)
+         rayCasters.get(i).set(lidarToWorld, ranges);
+
+      try
+      {
+         List<Future<Void>> futures = rayCastingExecutor.invokeAll(rayCasters);
+         for (int i = 0; i < futures.size(); i++)
+            futures.get(i).get();
+      }
+      catch (InterruptedException e)
+      {
+         throw new RuntimeException("Interrupted while casting the rays", e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException("Ray casting failed", e.getCause());
+      }
+
+      return ranges;
+   }
+
+   /**
+    * Stops the threads of the lidar. Scans that are due afterwards are not done.
+    */
+   public void shutdown()
+   {
+      scanExecutor.shutdown();
+      rayCastingExecutor.shutdown();
+   }
+
+   public LidarScanParameters getLidarScanParameters()
+   {
+      return parameters;
+   }
+
+   private class RayCaster implements Callable<Void>
+   {
+      private final int firstRay;
+      private final int endRay;
+
+      private final RigidBodyTransform lidarToWorld = new RigidBodyTransform();
+      private float[] ranges;
+
+      private final Point3d origin = new Point3d();
+      private final Vector3d direction = new Vector3d();
+      private final RayHits rayHits = new RayHits();
+
+      private final Point3d localOrigin = new Point3d();
+      private final Vector3d localDirection = new Vector3d();
+
+      private RayCaster(int firstRay, int endRay)
+      {
+         this.firstRay = firstRay;
+         this.endRay = endRay;
+      }
+
+      private void set(RigidBodyTransform lidarToWorld, float[] ranges)
+      {
+         this.lidarToWorld.set(lidarToWorld);
+         this.ranges = ranges;
+      }
+
+      @Override
+      public Void call()
+      {
+         double minRange = parameters.getMinRange();
+         double maxRange = parameters.getMaxRange();
+
+         origin.set(0.0, 0.0, 0.0);
+         lidarToWorld.transform(origin);
+
+         for (int rayIndex = firstRay; rayIndex < endRay; rayIndex++)
+         {
+            direction.set(rayDirections[3 * rayIndex], rayDirections[3 * rayIndex + 1], rayDirections[3 * rayIndex + 2]);
+            lidarToWorld.transform(direction);
+
+            double closestHit = castRay(minRange, maxRange);
+            ranges[rayIndex] = Double.isNaN(closestHit) ? 0.0f : (float) closestHit;
+         }
+
+         return null;
+      }
+
+      /**
+       * @return the distance to the closest hit in [tMin, tMax], or NaN if the ray hits nothing
+       */
+      private double castRay(double tMin, double tMax)
+      {
+         double closestHit = Double.NaN;
+         double tEnd = tMax;
+
+         terrainTree.findRayHits(origin.getX(), origin.getY(), origin.getZ(), direction.getX(), direction.getY(), direction.getZ(), tMin, tMax, rayHits);
+
+         // The hits are sorted by entry distance, nothing past the closest hit found so far can be closer
+         for (int i = 0; i < rayHits.getNumberOfHits() && rayHits.getEntryDistance(i) <= tEnd; i++)
+         {
+            TerrainShape terrainShape = terrainShapes.get(rayHits.getObjectIndex(i));
+            terrainShape.worldToShape.transform(origin, localOrigin);
+            terrainShape.worldToShape.transform(direction, localDirection);
+
+            double hit = terrainShape.shape.intersect(localOrigin, localDirection, rayHits.getEntryDistance(i), Math.min(rayHits.getExitDistance(i), tEnd));
+
+            if (!Double.isNaN(hit))
+            {
+               closestHit = hit;
+               tEnd = hit;
+            }
+         }
+
+         for (int i = 0; i < robotCollisionShapes.size(); i++)
+         {
+            RobotCollisionShape robotCollisionShape = robotCollisionShapes.get(i);
+            robotCollisionShape.worldToShape.transform(origin, localOrigin);
+            robotCollisionShape.worldToShape.transform(direction, localDirection);
+
+            if (robotCollisionShape.shape.isInside(localOrigin.getX() + tMin * localDirection.getX(), localOrigin.getY() + tMin * localDirection.getY(),
+                                                   localOrigin.getZ() + tMin * localDirection.getZ()))
+               continue;
+
+            double hit = robotCollisionShape.shape.intersect(localOrigin, localDirection, tMin, tEnd);
+
+            if (!Double.isNaN(hit))
+            {
+               closestHit = hit;
+               tEnd = hit;
+            }
+         }
+
+         return closestHit;
+      }
+   }
+
+   /**
+    * Solid the rays are cast against. Implementations only read their fields, so that the threads casting the rays do not have to lock them.
+    */
+   private static abstract class RayCastShape
+   {
+      /**
+       * @param origin origin of the ray, in the frame of the shape
+       * @param direction unit direction of the ray, in the frame of the shape
+       * @return the smallest t in [tStart, tEnd] at which origin + t * direction is inside the shape, or NaN if there is none
+       */
+      abstract double intersect(Point3d origin, Vector3d direction, double tStart, double tEnd);
+
+      abstract boolean isInside(double x, double y, double z);
+   }
+
+   /**
+    * Box centered at the origin of its frame.
+    */
+   private static class BoxShape extends RayCastShape
+   {
+      private final double halfLengthX;
+      private final double halfLengthY;
+      private final double halfLengthZ;
+
+      private BoxShape(double halfLengthX, double halfLengthY, double halfLengthZ)
+      {
+         this.halfLengthX = halfLengthX;
+         this.halfLengthY = halfLengthY;
+         this.halfLengthZ = halfLengthZ;
+      }
+
+      @Override
+      double intersect(Point3d origin, Vector3d direction, double tStart, double tEnd)
+      {
+         double entry = Math.max(tStart, slabEntry(origin.getX(), direction.getX(), -halfLengthX, halfLengthX));
+         entry = Math.max(entry, slabEntry(origin.getY(), direction.getY(), -halfLengthY, halfLengthY));
+         entry = Math.max(entry, slabEntry(origin.getZ(), direction.getZ(), -halfLengthZ, halfLengthZ));
+
+         double exit = Math.min(tEnd, slabExit(origin.getX(), direction.getX(), -halfLengthX, halfLengthX));
+         exit = Math.min(exit, slabExit(origin.getY(), direction.getY(), -halfLengthY, halfLengthY));
+         exit = Math.min(exit, slabExit(origin.getZ(), direction.getZ(), -halfLengthZ, halfLengthZ));
+
+         return entry <= exit ? entry : Double.NaN;
+      }
+
+      @Override
+      boolean isInside(double x, double y, double z)
+      {
+         return Math.abs(x) <= halfLengthX && Math.abs(y) <= halfLengthY && Math.abs(z) <= halfLengthZ;
+      }
+   }
+
+   /**
+    * Cylinder along the z axis of its frame, from z = 0 to z = height, same as {@link Cylinder3d}.
+    */
+   private static class CylinderShape extends RayCastShape
+   {
+      private final double height;
+      private final double radius;
+
+      private CylinderShape(double height, double radius)
+      {
+         this.height = height;
+         this.radius = radius;
+      }
+
+      @Override
+      double intersect(Point3d origin, Vector3d direction, double tStart, double tEnd)
+      {
+         double entry = Math.max(tStart, slabEntry(origin.getZ(), direction.getZ(), 0.0, height));
+         double exit = Math.min(tEnd, slabExit(origin.getZ(), direction.getZ(), 0.0, height));
+
+         // Solve |(origin + t * direction)_xy|^2 = radius^2
+         double a = direction.getX() * direction.getX() + direction.getY() * direction.getY();
+         double halfB = origin.getX() * direction.getX() + origin.getY() * direction.getY();
+         double c = origin.getX() * origin.getX() + origin.getY() * origin.getY() - radius * radius;
+
+         if (a == 0.0)
+         {
+            // Parallel to the axis
+            if (c > 0.0)
+               return Double.NaN;
+         }
+         else
+         {
+            double discriminant = halfB * halfB - a * c;
+            if (discriminant < 0.0)
+               return Double.NaN;
+
+            double squareRoot = Math.sqrt(discriminant);
+            entry = Math.max(entry, (-halfB - squareRoot) / a);
+            exit = Math.min(exit, (-halfB + squareRoot) / a);
+         }
+
+         return entry <= exit ? entry : Double.NaN;
+      }
+
+      @Override
+      boolean isInside(double x, double y, double z)
+      {
+         return z >= 0.0 && z <= height && x * x + y * y <= radius * radius;
+      }
+   }
+
+   /**
+    * Sphere centered at the origin of its frame.
+    */
+   private static class SphereShape extends RayCastShape
+   {
+      private final double radius;
+
+      private SphereShape(double radius)
+      {
+         this.radius = radius;
+      }
+
+      @Override
+      double intersect(Point3d origin, Vector3d direction, double tStart, double tEnd)
+      {
+         // Solve |origin + t * direction|^2 = radius^2 for a unit direction
+         double halfB = origin.getX() * direction.getX() + origin.getY() * direction.getY() + origin.getZ() * direction.getZ();
+         double c = origin.getX() * origin.getX() + origin.getY() * origin.getY() + origin.getZ() * origin.getZ() - radius * radius;
+         double discriminant = halfB * halfB - c;
+
+         if (discriminant < 0.0)
+            return Double.NaN;
+
+         double squareRoot = Math.sqrt(discriminant);
+         double entry = Math.max(tStart, -halfB - squareRoot);
+         double exit = Math.min(tEnd, -halfB + squareRoot);
+
+         return entry <= exit ? entry : Double.NaN;
+      }
+
+      @Override
+      boolean isInside(double x, double y, double z)
+      {
+         return x * x + y * y + z * z <= radius * radius;
+      }
+   }
+
+   /**
+    * Everything below a horizontal plane, expressed in world.
+    */
+   private static class HorizontalPlaneShape extends RayCastShape
+   {
+      private final double height;
+
+      private HorizontalPlaneShape(double height)
+      {
+         this.height = height;
+      }
+
+      @Override
+      double intersect(Point3d origin, Vector3d direction, double tStart, double tEnd)
+      {
+         if (isInside(0.0, 0.0, origin.getZ() + tStart * direction.getZ()))
+            return tStart;
+
+         if (direction.getZ() >= 0.0)
+            return Double.NaN;
+
+         double t = (height - origin.getZ()) / direction.getZ();
+         return t <= tEnd ? t : Double.NaN;
+      }
+
+      @Override
+      boolean isInside(double x, double y, double z)
+      {
+         return z <= height;
+      }
+   }
+
+   /**
+    * Everything below a height map, expressed in world. There is no closed form, so the ray is marched and the hit refined by bisection.
+    */
+   private class HeightFieldShape extends RayCastShape
+   {
+      private final HeightMap heightMap;
+
+      private HeightFieldShape(HeightMap heightMap)
+      {
+         this.heightMap = heightMap;
+      }
+
+      @Override
+      double intersect(Point3d origin, Vector3d direction, double tStart, double tEnd)
+      {
+         if (isInside(origin, direction, tStart))
+            return tStart;
+
+         double tOutside = tStart;
+
+         while (tOutside < tEnd)
+         {
+            double t = Math.min(tOutside + rayMarchingStep, tEnd);
+
+            if (isInside(origin, direction, t))
+            {
+               // Bisect between the last point outside and the first point inside
+               double tInside = t;
+               while (tInside - tOutside > SURFACE_TOLERANCE)
+               {
+                  double tMiddle = 0.5 * (tOutside + tInside);
+                  if (isInside(origin, direction, tMiddle))
+                     tInside = tMiddle;
+                  else
+                     tOutside = tMiddle;
+               }
+               return tInside;
+            }
+
+            tOutside = t;
+         }
+
+         return Double.NaN;
+      }
+
+      private boolean isInside(Point3d origin, Vector3d direction, double t)
+      {
+         return isInside(origin.getX() + t * direction.getX(), origin.getY() + t * direction.getY(), origin.getZ() + t * direction.getZ());
+      }
+
+      @Override
+      boolean isInside(double x, double y, double z)
+      {
+         return z < heightMap.heightAt(x, y, z);
+      }
+   }
+
+   /**
+    * @return the distance at which the ray coordinate origin + t * direction enters [min, max]
+    */
+   private static double slabEntry(double origin, double direction, double min, double max)
+   {
+      if (direction == 0.0)
+         return (origin >= min && origin <= max) ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+
+      return Math.min((min - origin) / direction, (max - origin) / direction);
+   }
+
+   /**
+    * @return the distance at which the ray coordinate origin + t * direction leaves [min, max]
+    */
+   private static double slabExit(double origin, double direction, double min, double max)
+   {
+      if (direction == 0.0)
+         return (origin >= min && origin <= max) ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+
+      return Math.max((min - origin) / direction, (max - origin) / direction);
+   }
+
+   private static class TerrainShape
+   {
+      private final RayCastShape shape;
+      private final RigidBodyTransform worldToShape = new RigidBodyTransform();
+
+      private TerrainShape(RayCastShape shape, RigidBodyTransform shapeToWorld)
+      {
+         this.shape = shape;
+         worldToShape.invert(shapeToWorld);
+      }
+   }
+
+   private static class RobotCollisionShape
+   {
+      private final Joint joint;
+      private final RayCastShape shape;
+      private final RigidBodyTransform shapeToJoint;
+      private final RigidBodyTransform worldToShape = new RigidBodyTransform();
+
+      private RobotCollisionShape(Joint joint, RayCastShape shape, RigidBodyTransform shapeToJoint)
+      {
+         this.joint = joint;
+         this.shape = shape;
+         this.shapeToJoint = shapeToJoint;
+      }
+
+      private void updateTransform()
+      {
+         joint.getTransformToWorld(worldToShape);
+         worldToShape.multiply(shapeToJoint);
+         worldToShape.invert();
+      }
+   }
+}
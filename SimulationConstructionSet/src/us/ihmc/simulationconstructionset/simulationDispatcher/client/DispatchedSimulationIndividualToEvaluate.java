@@ -7,7 +7,7 @@ import us.ihmc.utilities.parameterOptimization.ListOfParametersToOptimize;
 
 public abstract class DispatchedSimulationIndividualToEvaluate extends IndividualToEvaluate
 {
-   private boolean evalDone = false;
+   private volatile boolean evalDone = false;
    private double fitness;
 
    private final String[] outputStateVariableNames;
@@ -47,6 +47,7 @@ public abstract class DispatchedSimulationIndividualToEvaluate extends Individua
 
             dispatchSim.setResultsString("fitness: " + fitness);
             evalDone = true;
+            notifyEvaluationDone();
          }
       };
 
@@ -19,7 +19,6 @@ public class BalanceBeamTerrainObject implements TerrainObject3D, HeightMapWithN
    private final Vector2d direction;
    private final double width;
 
-   private final Vector2d tempVector = new Vector2d();
    private final Graphics3DObject linkGraphics;
    private final double heightAboveGround;
 
@@ -70,13 +69,11 @@ public class BalanceBeamTerrainObject implements TerrainObject3D, HeightMapWithN
       double xFromOrigin = x - origin.getX();
       double yFromOrigin = y - origin.getY();
       
-      tempVector.set(xFromOrigin, yFromOrigin);
-      double componentAlongBalanceBeam = tempVector.dot(direction);
-      tempVector.set(direction);
-      tempVector.scale(componentAlongBalanceBeam);
-      tempVector.setX(xFromOrigin - tempVector.getX());
-      tempVector.setY(xFromOrigin - tempVector.getY());
-      double distanceFromCenterOfBalanceBeamSquared = tempVector.lengthSquared();
+      // No temporary variables, heightAt is called from several threads by the CPU ray casting lidar
+      double componentAlongBalanceBeam = xFromOrigin * direction.getX() + yFromOrigin * direction.getY();
+      double xFromCenterOfBalanceBeam = xFromOrigin - componentAlongBalanceBeam * direction.getX();
+      double yFromCenterOfBalanceBeam = yFromOrigin - componentAlongBalanceBeam * direction.getY();
+      double distanceFromCenterOfBalanceBeamSquared = xFromCenterOfBalanceBeam * xFromCenterOfBalanceBeam + yFromCenterOfBalanceBeam * yFromCenterOfBalanceBeam;
       if (distanceFromCenterOfBalanceBeamSquared < width * width / 4.0)
       {
          return heightAboveGround;
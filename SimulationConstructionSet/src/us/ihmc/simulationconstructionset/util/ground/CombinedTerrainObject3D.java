@@ -12,12 +12,29 @@ import us.ihmc.graphics3DAdapter.graphics.appearances.AppearanceDefinition;
 import us.ihmc.robotics.geometry.BoundingBox3d;
 import us.ihmc.robotics.geometry.shapes.Box3d;
 import us.ihmc.robotics.geometry.RigidBodyTransform;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObjectBoundingBoxTree.Candidates;
 
+/**
+ * heightAt() and heightAndNormalAt() can be called from several threads at the same time, as long as the terrain objects it
+ * combines are reentrant as well. checkIfInside() and adding terrain objects are not thread safe.
+ */
 public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNormals
 {
    private BoundingBox3d boundingBox = null;
 
    private ArrayList<TerrainObject3D> terrainObjects = new ArrayList<TerrainObject3D>();
+   private final TerrainObjectBoundingBoxTree boundingBoxTree = new TerrainObjectBoundingBoxTree();
+   private volatile boolean isBoundingBoxTreeUpToDate = false;
+
+   // Every thread querying the height map gets its own candidate buffer, so queries do not share mutable state
+   private final ThreadLocal<Candidates> candidates = new ThreadLocal<Candidates>()
+   {
+      @Override
+      public Candidates initialValue()
+      {
+         return new Candidates();
+      }
+   };
    private Graphics3DObject linkGraphics;
 
    private final String name;
@@ -129,6 +146,7 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    public void addTerrainObject(TerrainObject3D object)
    {
       terrainObjects.add(object);
+      isBoundingBoxTreeUpToDate = false;
       linkGraphics.combine(object.getLinkGraphics());
 
       if (boundingBox == null)
@@ -156,6 +174,30 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       return this.linkGraphics;
    }
 
+   /**
+    * The tree is rebuilt on the first query after objects have been added, either through {@link #addTerrainObject(TerrainObject3D)}
+    * or directly to the list returned by {@link #getTerrainObjects()}.
+    */
+   private Candidates findCandidates(double x, double y)
+   {
+      if (!isBoundingBoxTreeUpToDate || boundingBoxTree.getNumberOfObjects() != terrainObjects.size())
+         rebuildBoundingBoxTree();
+
+      Candidates candidates = this.candidates.get();
+      boundingBoxTree.findCandidates(x, y, candidates);
+      return candidates;
+   }
+
+   private synchronized void rebuildBoundingBoxTree()
+   {
+      // Another thread might have rebuilt the tree while this one was waiting
+      if (isBoundingBoxTreeUpToDate && boundingBoxTree.getNumberOfObjects() == terrainObjects.size())
+         return;
+
+      boundingBoxTree.build(terrainObjects);
+      isBoundingBoxTreeUpToDate = true;
+   }
+
    private final Point3d localIntersection = new Point3d();
    private final Vector3d localNormal = new Vector3d();
 
@@ -170,9 +212,11 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       intersectionToPack.set(x, y, 0.0);
       normalToPack.set(0.0, 0.0, 1.0);
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      Candidates candidates = findCandidates(x, y);
+
+      for (int i = 0; i < candidates.getNumberOfCandidates(); i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidates.getCandidate(i));
          if (terrainObject.isClose(x, y, z))
          {
             boolean localIsInside = terrainObject.checkIfInside(x, y, z, localIntersection, localNormal);
@@ -273,9 +317,11 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      Candidates candidates = findCandidates(x, y);
+
+      for (int i = 0; i < candidates.getNumberOfCandidates(); i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidates.getCandidate(i));
 
          if (terrainObject.isClose(x, y, z))
          {
@@ -298,9 +344,11 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      Candidates candidates = findCandidates(x, y);
+
+      for (int i = 0; i < candidates.getNumberOfCandidates(); i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidates.getCandidate(i));
 
          if (terrainObject.isClose(x, y, z))
          {
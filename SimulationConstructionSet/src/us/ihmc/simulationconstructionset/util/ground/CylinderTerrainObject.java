@@ -101,6 +101,14 @@ public class CylinderTerrainObject implements TerrainObject3D, HeightMapWithNorm
       return boundingBox;
    }
 
+   /**
+    * @return the cylinder of this terrain object, with its origin at the bottom face. It must not be modified.
+    */
+   public Cylinder3d getCylinder()
+   {
+      return cylinder;
+   }
+
    public double heightAndNormalAt(double x, double y, double z, Vector3d normalToPack)
    {
       double heightAt = heightAt(x, y, 1e9);
@@ -84,6 +84,14 @@ public class RotatableBoxTerrainObject implements TerrainObject3D, HeightMapWith
       return boundingBox;
    }
 
+   /**
+    * @return the box of this terrain object, which must not be modified
+    */
+   public Box3d getBox()
+   {
+      return box;
+   }
+
    public double heightAndNormalAt(double x, double y, double z, Vector3d normalToPack)
    {
       double heightAt = heightAt(x, y, z);
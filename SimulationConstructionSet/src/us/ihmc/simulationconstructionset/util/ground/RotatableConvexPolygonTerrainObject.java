@@ -24,6 +24,8 @@ public class RotatableConvexPolygonTerrainObject implements TerrainObject3D, Hei
    private final BoundingBox3d boundingBox;
    private final ConvexPolygon2d convexPolygon;
    private final Plane3d topPlane;
+   private final Point3d topPlaneCentroid;
+   private final Vector3d topPlaneNormal;
    private final List<Plane3d> sidePlanes = new ArrayList<Plane3d>();
 
    private final Graphics3DObject linkGraphics;
@@ -44,6 +46,8 @@ public class RotatableConvexPolygonTerrainObject implements TerrainObject3D, Hei
       this.convexPolygon = new ConvexPolygon2d(convexPolygon);
       Point3d centroid = new Point3d(convexPolygon.getCentroid().getX(), convexPolygon.getCentroid().getY(), centroidHeight);
       this.topPlane = new Plane3d(centroid, normal);
+      this.topPlaneCentroid = topPlane.getPointCopy();
+      this.topPlaneNormal = topPlane.getNormalCopy();
 
       BoundingBox2d polygonBoundingBox = convexPolygon.getBoundingBoxCopy();
       double highest = Double.NEGATIVE_INFINITY;
@@ -162,16 +166,12 @@ public class RotatableConvexPolygonTerrainObject implements TerrainObject3D, Hei
       return heightAt;
    }
    
-   private final Point3d tempPlaneCentroid = new Point3d();
-   private final Vector3d tempPlaneNormal = new Vector3d();
    public double heightAt(double x, double y, double z)
    {
+      // Only reads, heightAt is called from several threads by the CPU ray casting lidar
       if (convexPolygon.isPointInside(x, y, EPSILON))
       {
-         topPlane.getPoint(tempPlaneCentroid);
-         topPlane.getNormal(tempPlaneNormal);
-
-         return tempPlaneCentroid.getZ() - (tempPlaneNormal.getX() * (x - tempPlaneCentroid.getX()) + tempPlaneNormal.getY() * (y - tempPlaneCentroid.getY())) / tempPlaneNormal.getZ();
+         return topPlaneCentroid.getZ() - (topPlaneNormal.getX() * (x - topPlaneCentroid.getX()) + topPlaneNormal.getY() * (y - topPlaneCentroid.getY())) / topPlaneNormal.getZ();
       }
 
       return boundingBox.getZMin();
@@ -0,0 +1,494 @@
+package us.ihmc.simulationconstructionset.util.ground;
+
+import java.util.List;
+
+import us.ihmc.robotics.geometry.BoundingBox3d;
+
+/**
+ * Axis aligned bounding box tree over the bounding boxes of a list of terrain objects.
+ * Used by {@link CombinedTerrainObject3D} to find the objects that can be close to a query point without testing all of them, and by the CPU ray casting
+ * lidar to find the objects a ray can hit.
+ *
+ * Point queries only use the XY extent of the bounding boxes, since most terrain objects report being close to any point above or below their footprint.
+ * The candidates are returned sorted by their index in the list the tree was built from, so callers see them in the same order as a linear scan.
+ * Ray queries use the full 3D bounding boxes and return the objects sorted by the distance at which the ray enters their bounding box.
+ * Objects without a bounding box are always returned, by ray queries over the whole queried interval.
+ *
+ * Queries do not modify the tree, so several threads can query it at the same time as long as each of them packs its own {@link Candidates} or
+ * {@link RayHits}. Building the tree is not thread safe.
+ */
+public class TerrainObjectBoundingBoxTree
+{
+   private static final int MAX_OBJECTS_PER_LEAF = 4;
+
+   private int numberOfObjects = 0;
+
+   private double[] objectCenterX = new double[0];
+   private double[] objectCenterY = new double[0];
+   private double[] objectCenterZ = new double[0];
+   private BoundingBox3d[] objectBoundingBoxes = new BoundingBox3d[0];
+
+   /** Indices of the bounded objects, ordered such that every leaf refers to a contiguous range. */
+   private int[] sortedObjectIndices = new int[0];
+   private int[] unboundedObjectIndices = new int[0];
+   private int numberOfUnboundedObjects = 0;
+
+   private int numberOfNodes = 0;
+   private double[] nodeMinX = new double[0];
+   private double[] nodeMinY = new double[0];
+   private double[] nodeMinZ = new double[0];
+   private double[] nodeMaxX = new double[0];
+   private double[] nodeMaxY = new double[0];
+   private double[] nodeMaxZ = new double[0];
+   /** Index of the first child of the node, the second child is stored right after, -1 for a leaf. */
+   private int[] nodeFirstChild = new int[0];
+   private int[] nodeRangeStart = new int[0];
+   private int[] nodeRangeEnd = new int[0];
+
+   /**
+    * Rebuilds the tree from scratch. Building top-down with median splits keeps the tree balanced whatever the order the objects were added in.
+    */
+   public void build(List<? extends TerrainObject3D> terrainObjects)
+   {
+      numberOfObjects = terrainObjects.size();
+      ensureCapacity(numberOfObjects);
+
+      int numberOfBoundedObjects = 0;
+      numberOfUnboundedObjects = 0;
+
+      for (int i = 0; i < numberOfObjects; i++)
+      {
+         BoundingBox3d boundingBox = terrainObjects.get(i).getBoundingBox();
+         objectBoundingBoxes[i] = boundingBox;
+
+         if (boundingBox == null)
+         {
+            unboundedObjectIndices[numberOfUnboundedObjects++] = i;
+         }
+         else
+         {
+            objectCenterX[i] = 0.5 * (boundingBox.getXMin() + boundingBox.getXMax());
+            objectCenterY[i] = 0.5 * (boundingBox.getYMin() + boundingBox.getYMax());
+            objectCenterZ[i] = 0.5 * (boundingBox.getZMin() + boundingBox.getZMax());
+            sortedObjectIndices[numberOfBoundedObjects++] = i;
+         }
+      }
+
+      numberOfNodes = 0;
+      if (numberOfBoundedObjects > 0)
+      {
+         numberOfNodes = 1;
+         buildNode(0, 0, numberOfBoundedObjects);
+      }
+   }
+
+   private void buildNode(int nodeIndex, int rangeStart, int rangeEnd)
+   {
+      nodeRangeStart[nodeIndex] = rangeStart;
+      nodeRangeEnd[nodeIndex] = rangeEnd;
+      nodeFirstChild[nodeIndex] = -1;
+
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double minZ = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      double maxZ = Double.NEGATIVE_INFINITY;
+      double minCenterX = Double.POSITIVE_INFINITY;
+      double minCenterY = Double.POSITIVE_INFINITY;
+      double minCenterZ = Double.POSITIVE_INFINITY;
+      double maxCenterX = Double.NEGATIVE_INFINITY;
+      double maxCenterY = Double.NEGATIVE_INFINITY;
+      double maxCenterZ = Double.NEGATIVE_INFINITY;
+
+      for (int i = rangeStart; i < rangeEnd; i++)
+      {
+         int objectIndex = sortedObjectIndices[i];
+         BoundingBox3d boundingBox = objectBoundingBoxes[objectIndex];
+         minX = Math.min(minX, boundingBox.getXMin());
+         minY = Math.min(minY, boundingBox.getYMin());
+         minZ = Math.min(minZ, boundingBox.getZMin());
+         maxX = Math.max(maxX, boundingBox.getXMax());
+         maxY = Math.max(maxY, boundingBox.getYMax());
+         maxZ = Math.max(maxZ, boundingBox.getZMax());
+         minCenterX = Math.min(minCenterX, objectCenterX[objectIndex]);
+         minCenterY = Math.min(minCenterY, objectCenterY[objectIndex]);
+         minCenterZ = Math.min(minCenterZ, objectCenterZ[objectIndex]);
+         maxCenterX = Math.max(maxCenterX, objectCenterX[objectIndex]);
+         maxCenterY = Math.max(maxCenterY, objectCenterY[objectIndex]);
+         maxCenterZ = Math.max(maxCenterZ, objectCenterZ[objectIndex]);
+      }
+
+      nodeMinX[nodeIndex] = minX;
+      nodeMinY[nodeIndex] = minY;
+      nodeMinZ[nodeIndex] = minZ;
+      nodeMaxX[nodeIndex] = maxX;
+      nodeMaxY[nodeIndex] = maxY;
+      nodeMaxZ[nodeIndex] = maxZ;
+
+      if (rangeEnd - rangeStart <= MAX_OBJECTS_PER_LEAF)
+         return;
+
+      // Split at the median of the object centers along the axis where they are the most spread out
+      double spreadX = maxCenterX - minCenterX;
+      double spreadY = maxCenterY - minCenterY;
+      double spreadZ = maxCenterZ - minCenterZ;
+      double[] centers;
+      if (spreadX >= spreadY && spreadX >= spreadZ)
+         centers = objectCenterX;
+      else if (spreadY >= spreadZ)
+         centers = objectCenterY;
+      else
+         centers = objectCenterZ;
+
+      int rangeMiddle = (rangeStart + rangeEnd) / 2;
+      selectMedian(centers, rangeStart, rangeEnd - 1, rangeMiddle);
+
+      int firstChild = numberOfNodes;
+      numberOfNodes += 2;
+      nodeFirstChild[nodeIndex] = firstChild;
+      buildNode(firstChild, rangeStart, rangeMiddle);
+      buildNode(firstChild + 1, rangeMiddle, rangeEnd);
+   }
+
+   /**
+    * Partially sorts sortedObjectIndices[left..right] such that the element at nthIndex is the one that would be there if the range was sorted by center.
+    */
+   private void selectMedian(double[] centers, int left, int right, int nthIndex)
+   {
+      while (right > left)
+      {
+         double pivot = centers[sortedObjectIndices[(left + right) >>> 1]];
+         int i = left;
+         int j = right;
+
+         while (i <= j)
+         {
+            while (centers[sortedObjectIndices[i]] < pivot)
+               i++;
+            while (centers[sortedObjectIndices[j]] > pivot)
+               j--;
+
+            if (i <= j)
+            {
+               int temp = sortedObjectIndices[i];
+               sortedObjectIndices[i] = sortedObjectIndices[j];
+               sortedObjectIndices[j] = temp;
+               i++;
+               j--;
+            }
+         }
+
+         if (nthIndex <= j)
+            right = j;
+         else if (nthIndex >= i)
+            left = i;
+         else
+            return;
+      }
+   }
+
+   private void ensureCapacity(int numberOfObjects)
+   {
+      if (objectBoundingBoxes.length >= numberOfObjects)
+         return;
+
+      objectCenterX = new double[numberOfObjects];
+      objectCenterY = new double[numberOfObjects];
+      objectCenterZ = new double[numberOfObjects];
+      objectBoundingBoxes = new BoundingBox3d[numberOfObjects];
+      sortedObjectIndices = new int[numberOfObjects];
+      unboundedObjectIndices = new int[numberOfObjects];
+
+      // Leaves hold at least one object, so the tree has at most 2n - 1 nodes
+      int maxNumberOfNodes = 2 * numberOfObjects;
+      nodeMinX = new double[maxNumberOfNodes];
+      nodeMinY = new double[maxNumberOfNodes];
+      nodeMinZ = new double[maxNumberOfNodes];
+      nodeMaxX = new double[maxNumberOfNodes];
+      nodeMaxY = new double[maxNumberOfNodes];
+      nodeMaxZ = new double[maxNumberOfNodes];
+      nodeFirstChild = new int[maxNumberOfNodes];
+      nodeRangeStart = new int[maxNumberOfNodes];
+      nodeRangeEnd = new int[maxNumberOfNodes];
+   }
+
+   /**
+    * Finds the objects whose XY bounding box contains the given point, and the objects that do not have a bounding box.
+    */
+   public void findCandidates(double x, double y, Candidates candidatesToPack)
+   {
+      candidatesToPack.ensureCapacity(numberOfObjects, 2 * numberOfObjects);
+      int[] candidates = candidatesToPack.candidates;
+      int numberOfCandidates = 0;
+
+      for (int i = 0; i < numberOfUnboundedObjects; i++)
+         candidates[numberOfCandidates++] = unboundedObjectIndices[i];
+
+      if (numberOfNodes > 0)
+      {
+         int[] nodeStack = candidatesToPack.nodeStack;
+         int stackSize = 0;
+         nodeStack[stackSize++] = 0;
+
+         while (stackSize > 0)
+         {
+            int nodeIndex = nodeStack[--stackSize];
+
+            if (x < nodeMinX[nodeIndex] || x > nodeMaxX[nodeIndex] || y < nodeMinY[nodeIndex] || y > nodeMaxY[nodeIndex])
+               continue;
+
+            int firstChild = nodeFirstChild[nodeIndex];
+
+            if (firstChild >= 0)
+            {
+               nodeStack[stackSize++] = firstChild;
+               nodeStack[stackSize++] = firstChild + 1;
+            }
+            else
+            {
+               for (int i = nodeRangeStart[nodeIndex]; i < nodeRangeEnd[nodeIndex]; i++)
+               {
+                  int objectIndex = sortedObjectIndices[i];
+                  if (objectBoundingBoxes[objectIndex].isXYInside(x, y))
+                     candidates[numberOfCandidates++] = objectIndex;
+               }
+            }
+         }
+      }
+
+      // Insertion sort, there are only a few candidates
+      for (int i = 1; i < numberOfCandidates; i++)
+      {
+         int candidate = candidates[i];
+         int j = i - 1;
+         while (j >= 0 && candidates[j] > candidate)
+         {
+            candidates[j + 1] = candidates[j];
+            j--;
+         }
+         candidates[j + 1] = candidate;
+      }
+
+      candidatesToPack.numberOfCandidates = numberOfCandidates;
+   }
+
+   /**
+    * Finds the objects whose bounding box is crossed by the ray origin + t * direction for t in [tMin, tMax], and the objects that do not have a bounding box.
+    * The hits are sorted by the distance at which the ray enters the bounding box.
+    */
+   public void findRayHits(double originX, double originY, double originZ, double directionX, double directionY, double directionZ, double tMin,
+                           double tMax, RayHits hitsToPack)
+   {
+      hitsToPack.ensureCapacity(numberOfObjects, 2 * numberOfObjects);
+      hitsToPack.setRay(originX, originY, originZ, directionX, directionY, directionZ);
+      hitsToPack.numberOfHits = 0;
+
+      for (int i = 0; i < numberOfUnboundedObjects; i++)
+         hitsToPack.add(unboundedObjectIndices[i], tMin, tMax);
+
+      if (numberOfNodes > 0)
+      {
+         int[] nodeStack = hitsToPack.nodeStack;
+         int stackSize = 0;
+         nodeStack[stackSize++] = 0;
+
+         while (stackSize > 0)
+         {
+            int nodeIndex = nodeStack[--stackSize];
+
+            if (!hitsToPack.intersect(nodeMinX[nodeIndex], nodeMinY[nodeIndex], nodeMinZ[nodeIndex], nodeMaxX[nodeIndex], nodeMaxY[nodeIndex],
+                                      nodeMaxZ[nodeIndex], tMin, tMax))
+               continue;
+
+            int firstChild = nodeFirstChild[nodeIndex];
+
+            if (firstChild >= 0)
+            {
+               nodeStack[stackSize++] = firstChild;
+               nodeStack[stackSize++] = firstChild + 1;
+            }
+            else
+            {
+               for (int i = nodeRangeStart[nodeIndex]; i < nodeRangeEnd[nodeIndex]; i++)
+               {
+                  int objectIndex = sortedObjectIndices[i];
+                  BoundingBox3d boundingBox = objectBoundingBoxes[objectIndex];
+
+                  if (hitsToPack.intersect(boundingBox.getXMin(), boundingBox.getYMin(), boundingBox.getZMin(), boundingBox.getXMax(), boundingBox.getYMax(),
+                                           boundingBox.getZMax(), tMin, tMax))
+                     hitsToPack.add(objectIndex, hitsToPack.entryDistance, hitsToPack.exitDistance);
+               }
+            }
+         }
+      }
+
+      hitsToPack.sortByEntryDistance();
+   }
+
+   public int getNumberOfObjects()
+   {
+      return numberOfObjects;
+   }
+
+   /**
+    * Result of {@link TerrainObjectBoundingBoxTree#findCandidates}, and the working memory of the query.
+    */
+   public static class Candidates
+   {
+      private int[] candidates = new int[0];
+      private int numberOfCandidates = 0;
+
+      private int[] nodeStack = new int[0];
+
+      private void ensureCapacity(int numberOfObjects, int numberOfNodes)
+      {
+         if (candidates.length < numberOfObjects)
+            candidates = new int[numberOfObjects];
+
+         if (nodeStack.length < numberOfNodes)
+            nodeStack = new int[numberOfNodes];
+      }
+
+      public int getNumberOfCandidates()
+      {
+         return numberOfCandidates;
+      }
+
+      /**
+       * @return index of the candidate in the list the tree was built from
+       */
+      public int getCandidate(int i)
+      {
+         return candidates[i];
+      }
+   }
+
+   /**
+    * Result of {@link TerrainObjectBoundingBoxTree#findRayHits}, and the working memory of the query.
+    */
+   public static class RayHits
+   {
+      private int[] objectIndices = new int[0];
+      private double[] entryDistances = new double[0];
+      private double[] exitDistances = new double[0];
+      private int numberOfHits = 0;
+
+      private int[] nodeStack = new int[0];
+
+      private final double[] origin = new double[3];
+      private final double[] direction = new double[3];
+      private final double[] inverseDirection = new double[3];
+      private double entryDistance;
+      private double exitDistance;
+
+      private void ensureCapacity(int numberOfObjects, int numberOfNodes)
+      {
+         if (objectIndices.length < numberOfObjects)
+         {
+            objectIndices = new int[numberOfObjects];
+            entryDistances = new double[numberOfObjects];
+            exitDistances = new double[numberOfObjects];
+         }
+
+         if (nodeStack.length < numberOfNodes)
+            nodeStack = new int[numberOfNodes];
+      }
+
+      private void setRay(double originX, double originY, double originZ, double directionX, double directionY, double directionZ)
+      {
+         origin[0] = originX;
+         origin[1] = originY;
+         origin[2] = originZ;
+         direction[0] = directionX;
+         direction[1] = directionY;
+         direction[2] = directionZ;
+
+         for (int axis = 0; axis < 3; axis++)
+            inverseDirection[axis] = 1.0 / direction[axis];
+      }
+
+      private void add(int objectIndex, double entryDistance, double exitDistance)
+      {
+         objectIndices[numberOfHits] = objectIndex;
+         entryDistances[numberOfHits] = entryDistance;
+         exitDistances[numberOfHits] = exitDistance;
+         numberOfHits++;
+      }
+
+      /**
+       * Slab test of the ray against the given box. Sets the entry and exit distances if the box is crossed.
+       */
+      private boolean intersect(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, double tMin, double tMax)
+      {
+         entryDistance = tMin;
+         exitDistance = tMax;
+
+         return intersectSlab(0, minX, maxX) && intersectSlab(1, minY, maxY) && intersectSlab(2, minZ, maxZ);
+      }
+
+      private boolean intersectSlab(int axis, double min, double max)
+      {
+         if (direction[axis] == 0.0)
+         {
+            // Parallel to the slab, the inverse would give NaNs for an origin on the boundary
+            return origin[axis] >= min && origin[axis] <= max;
+         }
+
+         double t1 = (min - origin[axis]) * inverseDirection[axis];
+         double t2 = (max - origin[axis]) * inverseDirection[axis];
+
+         entryDistance = Math.max(entryDistance, Math.min(t1, t2));
+         exitDistance = Math.min(exitDistance, Math.max(t1, t2));
+
+         return entryDistance <= exitDistance;
+      }
+
+      private void sortByEntryDistance()
+      {
+         // Insertion sort, a ray crosses only a few bounding boxes
+         for (int i = 1; i < numberOfHits; i++)
+         {
+            int objectIndex = objectIndices[i];
+            double entry = entryDistances[i];
+            double exit = exitDistances[i];
+            int j = i - 1;
+
+            while (j >= 0 && entryDistances[j] > entry)
+            {
+               objectIndices[j + 1] = objectIndices[j];
+               entryDistances[j + 1] = entryDistances[j];
+               exitDistances[j + 1] = exitDistances[j];
+               j--;
+            }
+
+            objectIndices[j + 1] = objectIndex;
+            entryDistances[j + 1] = entry;
+            exitDistances[j + 1] = exit;
+         }
+      }
+
+      public int getNumberOfHits()
+      {
+         return numberOfHits;
+      }
+
+      /**
+       * @return index of the hit object in the list the tree was built from
+       */
+      public int getObjectIndex(int i)
+      {
+         return objectIndices[i];
+      }
+
+      public double getEntryDistance(int i)
+      {
+         return entryDistances[i];
+      }
+
+      public double getExitDistance(int i)
+      {
+         return exitDistances[i];
+      }
+   }
+}
@@ -0,0 +1,86 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+/**
+ * Outcome of one run of a {@link BatchSimulationRunner}.
+ */
+public class BatchSimulationResult<T>
+{
+   private final int runIndex;
+   private final T result;
+   private final boolean hasFailed;
+   private final boolean exceededMaximumClockRunTime;
+   private final Throwable exception;
+   private final double simulatedTime;
+   private final double clockRunTimeInSeconds;
+
+   public BatchSimulationResult(int runIndex, T result, boolean hasFailed, boolean exceededMaximumClockRunTime, Throwable exception, double simulatedTime,
+                                double clockRunTimeInSeconds)
+   {
+      this.runIndex = runIndex;
+      this.result = result;
+      this.hasFailed = hasFailed;
+      this.exceededMaximumClockRunTime = exceededMaximumClockRunTime;
+      this.exception = exception;
+      this.simulatedTime = simulatedTime;
+      this.clockRunTimeInSeconds = clockRunTimeInSeconds;
+   }
+
+   public int getRunIndex()
+   {
+      return runIndex;
+   }
+
+   /**
+    * @return the result of the scenario, null if the run threw an exception
+    */
+   public T getResult()
+   {
+      return result;
+   }
+
+   /**
+    * @return true if the failure criterion of the scenario stopped the run
+    */
+   public boolean hasFailed()
+   {
+      return hasFailed;
+   }
+
+   public boolean hasExceededMaximumClockRunTime()
+   {
+      return exceededMaximumClockRunTime;
+   }
+
+   /**
+    * @return the exception that stopped the run, for instance an {@link us.ihmc.simulationconstructionset.UnreasonableAccelerationException}, or null
+    */
+   public Throwable getException()
+   {
+      return exception;
+   }
+
+   /**
+    * @return true if the run was simulated for the whole requested time without failing
+    */
+   public boolean isSuccessful()
+   {
+      return !hasFailed && !exceededMaximumClockRunTime && exception == null;
+   }
+
+   public double getSimulatedTime()
+   {
+      return simulatedTime;
+   }
+
+   public double getClockRunTimeInSeconds()
+   {
+      return clockRunTimeInSeconds;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "Run " + runIndex + ": " + (isSuccessful() ? "succeeded" : "failed") + " after " + simulatedTime + "s of simulation, result = " + result
+            + (exception == null ? "" : ", exception = " + exception);
+   }
+}
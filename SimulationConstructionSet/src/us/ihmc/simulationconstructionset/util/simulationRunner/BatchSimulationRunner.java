@@ -0,0 +1,199 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.Simulation;
+import us.ihmc.simulationconstructionset.SimulationDoneCriterion;
+import us.ihmc.simulationconstructionset.UnreasonableAccelerationException;
+import us.ihmc.tools.thread.ThreadTools;
+
+/**
+ * Simulates many independent runs of a {@link BatchSimulationScenario} in one JVM, on a fixed pool of threads, for parameter sweeps and Monte Carlo tests.
+ *
+ * Every run gets its own robots and its own headless {@link Simulation}, and is simulated tick by tick in a single thread, without a GUI or polling.
+ * The results are returned in the order of the run indices, so a batch gives the same results whatever the number of threads, as long as the scenario does
+ * not share state between runs.
+ */
+public class BatchSimulationRunner
+{
+   private static final double CLOCK_CHECK_PERIOD_IN_SIMULATED_SECONDS = 0.1;
+
+   private final ExecutorService executor;
+
+   private int dataBufferSize = 16;
+   private double maximumClockRunTimeInSeconds = Double.POSITIVE_INFINITY;
+
+   public BatchSimulationRunner()
+   {
+      this(Runtime.getRuntime().availableProcessors());
+   }
+
+   public BatchSimulationRunner(int numberOfThreads)
+   {
+      executor = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.getNamedThreadFactory(getClass().getSimpleName()));
+   }
+
+   /**
+    * Size of the data buffer of every run. The runs do not need any history, so the default is small to keep the memory of large batches low.
+    */
+   public void setDataBufferSize(int dataBufferSize)
+   {
+      this.dataBufferSize = dataBufferSize;
+   }
+
+   /**
+    * Runs that take longer than this to simulate are stopped and reported as such. Not limited by default.
+    */
+   public void setMaximumClockRunTimeInSeconds(double maximumClockRunTimeInSeconds)
+   {
+      this.maximumClockRunTimeInSeconds = maximumClockRunTimeInSeconds;
+   }
+
+   /**
+    * Simulates numberOfRuns runs of the scenario and blocks until they are all done.
+    * @return one result per run, ordered by run index
+    */
+   public <T> List<BatchSimulationResult<T>> simulate(BatchSimulationScenario<T> scenario, int numberOfRuns, double dt, double simulationTime)
+   {
+      ArrayList<Callable<BatchSimulationResult<T>>> runs = new ArrayList<Callable<BatchSimulationResult<T>>>(numberOfRuns);
+      for (int runIndex = 0; runIndex < numberOfRuns; runIndex++)
+         runs.add(new Run<T>(scenario, runIndex, dt, simulationTime, dataBufferSize, maximumClockRunTimeInSeconds));
+
+      try
+      {
+         List<Future<BatchSimulationResult<T>>> futures = executor.invokeAll(runs);
+
+         ArrayList<BatchSimulationResult<T>> results = new ArrayList<BatchSimulationResult<T>>(numberOfRuns);
+         for (int runIndex = 0; runIndex < numberOfRuns; runIndex++)
+            results.add(futures.get(runIndex).get());
+
+         return results;
+      }
+      catch (InterruptedException e)
+      {
+         throw new RuntimeException("Interrupted while waiting for the runs", e);
+      }
+      catch (ExecutionException e)
+      {
+         // The runs catch their own exceptions, this is a bug in the runner
+         throw new RuntimeException(e.getCause());
+      }
+   }
+
+   /**
+    * Stops the threads of the runner once the batches being simulated are done.
+    */
+   public void shutdown()
+   {
+      executor.shutdown();
+   }
+
+   private static class Run<T> implements Callable<BatchSimulationResult<T>>
+   {
+      private final BatchSimulationScenario<T> scenario;
+      private final int runIndex;
+      private final double dt;
+      private final double simulationTime;
+      private final int dataBufferSize;
+      private final double maximumClockRunTimeInSeconds;
+
+      private Run(BatchSimulationScenario<T> scenario, int runIndex, double dt, double simulationTime, int dataBufferSize, double maximumClockRunTimeInSeconds)
+      {
+         this.scenario = scenario;
+         this.runIndex = runIndex;
+         this.dt = dt;
+         this.simulationTime = simulationTime;
+         this.dataBufferSize = dataBufferSize;
+         this.maximumClockRunTimeInSeconds = maximumClockRunTimeInSeconds;
+      }
+
+      @Override
+      public BatchSimulationResult<T> call()
+      {
+         long startTime = System.nanoTime();
+         Robot[] robots = null;
+         Simulation simulation = null;
+         boolean hasFailed = false;
+         boolean exceededMaximumClockRunTime = false;
+
+         try
+         {
+            robots = scenario.createRobots(runIndex);
+            final Robot[] robotsOfRun = robots;
+
+            simulation = new Simulation(robots, dataBufferSize);
+            simulation.setDT(dt, 1);
+            simulation.setSimulateDoneCriterion(new SimulationDoneCriterion()
+            {
+               @Override
+               public boolean isSimulationDone()
+               {
+                  return scenario.hasFailed(runIndex, robotsOfRun);
+               }
+            });
+
+            int numberOfTicks = (int) Math.round(simulationTime / dt);
+            int ticksPerClockCheck = Math.max(1, (int) Math.round(CLOCK_CHECK_PERIOD_IN_SIMULATED_SECONDS / dt));
+            int tick = 0;
+
+            while (tick < numberOfTicks)
+            {
+               int ticksToSimulate = Math.min(ticksPerClockCheck, numberOfTicks - tick);
+               simulation.simulate(ticksToSimulate);
+               tick += ticksToSimulate;
+
+               if (scenario.hasFailed(runIndex, robots))
+               {
+                  hasFailed = true;
+                  break;
+               }
+
+               if (getElapsedTimeInSeconds(startTime) > maximumClockRunTimeInSeconds)
+               {
+                  exceededMaximumClockRunTime = true;
+                  break;
+               }
+            }
+
+            T result = scenario.getResult(runIndex, robots);
+            return new BatchSimulationResult<T>(runIndex, result, hasFailed, exceededMaximumClockRunTime, null, getSimulatedTime(robots),
+                                                getElapsedTimeInSeconds(startTime));
+         }
+         catch (UnreasonableAccelerationException e)
+         {
+            return new BatchSimulationResult<T>(runIndex, null, hasFailed, exceededMaximumClockRunTime, e, getSimulatedTime(robots),
+                                                getElapsedTimeInSeconds(startTime));
+         }
+         catch (RuntimeException e)
+         {
+            return new BatchSimulationResult<T>(runIndex, null, hasFailed, exceededMaximumClockRunTime, e, getSimulatedTime(robots),
+                                                getElapsedTimeInSeconds(startTime));
+         }
+         finally
+         {
+            if (simulation != null)
+               simulation.closeAndDispose();
+         }
+      }
+
+      private static double getSimulatedTime(Robot[] robots)
+      {
+         if (robots == null || robots.length == 0)
+            return 0.0;
+
+         return robots[0].getTime();
+      }
+
+      private static double getElapsedTimeInSeconds(long startTime)
+      {
+         return (System.nanoTime() - startTime) * 1.0e-9;
+      }
+   }
+}
@@ -0,0 +1,28 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import us.ihmc.simulationconstructionset.Robot;
+
+/**
+ * Describes the runs simulated by a {@link BatchSimulationRunner}. The runs are simulated at the same time in different threads, so the methods are called
+ * concurrently for different run indices and must not share mutable state between runs.
+ *
+ * @param <T> type of the result of a run
+ */
+public interface BatchSimulationScenario<T>
+{
+   /**
+    * Creates the robots of a run, with their controllers and ground contact models. Every call must create new robots, controllers and registries.
+    * Randomness should be seeded from the run index, so that a run gives the same result whatever the thread it is simulated in.
+    */
+   public abstract Robot[] createRobots(int runIndex);
+
+   /**
+    * Checked after every tick, the run stops as soon as this returns true, for instance when the robot has fallen.
+    */
+   public abstract boolean hasFailed(int runIndex, Robot[] robots);
+
+   /**
+    * Called at the end of the run, also when it failed, but not when it threw an exception.
+    */
+   public abstract T getResult(int runIndex, Robot[] robots);
+}
@@ -656,5 +656,79 @@ public class DataBufferEntryTest
       assertEquals(oldMin, dataBufferEntry.getMin(350,0,350,450), 0);
       assertEquals(oldMin, dataBufferEntry.getMin(500,450,350,450), 0);
    }
-   
+
+	@DeployableTestMethod
+	@Test(timeout=300000)
+   public void testMinMaxAfterOverwritingExtremes()
+   {
+      int nPoints = 1000;
+      DoubleYoVariable doubleYoVariable = new DoubleYoVariable("doubleYoVariable", null);
+      DataBufferEntry dataBufferEntry = new DataBufferEntry(doubleYoVariable, nPoints);
+
+      for (int i = 0; i < nPoints; i++)
+      {
+         doubleYoVariable.set(i % 100);
+         dataBufferEntry.recordYoVariableValue(i);
+      }
+      doubleYoVariable.set(500.0);
+      dataBufferEntry.recordYoVariableValue(300);
+      doubleYoVariable.set(-500.0);
+      dataBufferEntry.recordYoVariableValue(700);
+
+      assertTrue(dataBufferEntry.minMaxChanged());
+      assertEquals(500.0, dataBufferEntry.getMax(), 0.0);
+      assertEquals(-500.0, dataBufferEntry.getMin(), 0.0);
+      dataBufferEntry.resetMinMaxChanged();
+
+      // Overwriting the extremes brings the min and max back to the rest of the data
+      doubleYoVariable.set(1.0);
+      dataBufferEntry.recordYoVariableValue(300);
+      dataBufferEntry.recordYoVariableValue(700);
+
+      assertTrue(dataBufferEntry.minMaxChanged());
+      assertEquals(99.0, dataBufferEntry.getMax(), 0.0);
+      assertEquals(0.0, dataBufferEntry.getMin(), 0.0);
+   }
+
+	@DeployableTestMethod
+	@Test(timeout=300000)
+   public void testComputeMinMaxInRange()
+   {
+      int nPoints = 5000;
+      Random random = new Random(1776L);
+      DoubleYoVariable doubleYoVariable = new DoubleYoVariable("doubleYoVariable", null);
+      DataBufferEntry dataBufferEntry = new DataBufferEntry(doubleYoVariable, nPoints);
+      double[] minMax = new double[2];
+
+      for (int iteration = 0; iteration < 3; iteration++)
+      {
+         // Record over part of the buffer, then compare against a brute force search
+         for (int i = 0; i < nPoints / 2; i++)
+         {
+            doubleYoVariable.set(random.nextDouble() * 1000.0 - 500.0);
+            dataBufferEntry.recordYoVariableValue(random.nextInt(nPoints));
+         }
+
+         double[] data = dataBufferEntry.getData();
+
+         for (int i = 0; i < 200; i++)
+         {
+            int startIndex = random.nextInt(nPoints);
+            int endIndex = startIndex + 1 + random.nextInt(nPoints - startIndex);
+
+            double expectedMin = Double.POSITIVE_INFINITY;
+            double expectedMax = Double.NEGATIVE_INFINITY;
+            for (int j = startIndex; j < endIndex; j++)
+            {
+               expectedMin = Math.min(expectedMin, data[j]);
+               expectedMax = Math.max(expectedMax, data[j]);
+            }
+
+            dataBufferEntry.computeMinMaxInRange(startIndex, endIndex, minMax);
+            assertEquals(expectedMin, minMax[0], 0.0);
+            assertEquals(expectedMax, minMax[1], 0.0);
+         }
+      }
+   }
+
 }
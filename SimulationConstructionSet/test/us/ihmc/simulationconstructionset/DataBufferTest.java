@@ -4,6 +4,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 
 import org.junit.After;
@@ -697,5 +700,301 @@ public class DataBufferTest
 //       assertTrue(resetVariables.size() == 0);
     }
 
+	@DeployableTestMethod
+	@Test(timeout=300000)
+   public void testSpillToDisk() throws IOException
+   {
+      int bufferSize = 100;
+      DataBuffer dataBuffer = new DataBuffer(bufferSize);
+      dataBuffer.setMaxBufferSize(bufferSize);
+      dataBuffer.addEntry(aBuffer);
+      dataBuffer.addEntry(bBuffer);
+
+      File spillDirectory = Files.createTempDirectory("dataBufferSpill").toFile();
+      dataBuffer.enableSpillToDisk(spillDirectory, 16);
+
+      // The value of a is the tick number, the first tick is the one already in the buffer
+      for (int tick = 1; tick < 1000; tick++)
+      {
+         a.set(tick);
+         b.set(-tick);
+         dataBuffer.tickAndUpdate();
+      }
+
+      assertEquals(900, dataBuffer.getNumberOfSpilledTicks());
+      assertEquals(bufferSize, dataBuffer.getBufferInOutLength());
+      assertEquals(999.0, aBuffer.getData()[dataBuffer.getOutPoint()], 0.0);
+
+      dataBuffer.pageInSpilledTicks(250);
+      assertTrue(dataBuffer.isShowingSpilledTicks());
+      assertEquals(250.0, a.getDoubleValue(), 0.0);
+      for (int i = 0; i < bufferSize; i++)
+      {
+         assertEquals(250.0 + i, aBuffer.getData()[i], 0.0);
+         assertEquals(-250.0 - i, bBuffer.getData()[i], 0.0);
+      }
+
+      dataBuffer.restoreNewestTicks();
+      assertFalse(dataBuffer.isShowingSpilledTicks());
+      assertEquals(900, dataBuffer.getNumberOfSpilledTicks());
+      for (int i = 0; i < bufferSize; i++)
+      {
+         assertEquals(900.0 + i, aBuffer.getData()[i], 0.0);
+      }
+
+      // Recording continues after the newest tick
+      for (int tick = 1000; tick < 1050; tick++)
+      {
+         a.set(tick);
+         b.set(-tick);
+         dataBuffer.tickAndUpdate();
+      }
+
+      assertEquals(950, dataBuffer.getNumberOfSpilledTicks());
+      dataBuffer.pageInSpilledTicks(940);
+      for (int i = 0; i < bufferSize; i++)
+      {
+         assertEquals(940.0 + i, aBuffer.getData()[i], 0.0);
+      }
+
+      // While older ticks are paged in, the whole history is exported from disk
+      assertEquals(1050, dataBuffer.getNumberOfExportedTicks());
+      double[][] exportedData = new double[1][10];
+      int[] entryIndices = new int[] { dataBuffer.getEntries().indexOf(bBuffer) };
+      dataBuffer.readExportedTicks(1040, 10, entryIndices, exportedData);
+      for (int i = 0; i < 10; i++)
+      {
+         assertEquals(-1040.0 - i, exportedData[0][i], 0.0);
+      }
+
+      // Otherwise the spilled ticks are followed by the ticks in the buffer
+      dataBuffer.restoreNewestTicks();
+      assertEquals(1050, dataBuffer.getNumberOfExportedTicks());
+      dataBuffer.readExportedTicks(945, 10, entryIndices, exportedData);
+      for (int i = 0; i < 10; i++)
+      {
+         assertEquals(-945.0 - i, exportedData[0][i], 0.0);
+      }
+
+      dataBuffer.disableSpillToDisk();
+      assertEquals(0, dataBuffer.getNumberOfSpilledTicks());
+      assertEquals(1049.0, aBuffer.getData()[dataBuffer.getOutPoint()], 0.0);
+      assertFalse(spillDirectory.exists());
+   }
+
+	@DeployableTestMethod
+	@Test(timeout=300000)
+   public void testSteppingThroughSpilledTicks() throws IOException
+   {
+      int bufferSize = 100;
+      DataBuffer dataBuffer = new DataBuffer(bufferSize);
+      dataBuffer.setMaxBufferSize(bufferSize);
+      dataBuffer.addEntry(aBuffer);
+
+      File spillDirectory = Files.createTempDirectory("dataBufferSpill").toFile();
+      dataBuffer.enableSpillToDisk(spillDirectory, 16);
+
+      for (int tick = 1; tick < 1000; tick++)
+      {
+         a.set(tick);
+         dataBuffer.tickAndUpdate();
+      }
+
+      // Stepping back past the in point pages in the older ticks
+      dataBuffer.gotoInPoint();
+      assertEquals(900.0, a.getDoubleValue(), 0.0);
+      assertFalse(dataBuffer.tick(-1));
+      assertTrue(dataBuffer.isShowingSpilledTicks());
+      assertEquals(899.0, a.getDoubleValue(), 0.0);
+
+      for (int tick = 898; tick >= 0; tick--)
+      {
+         assertFalse(dataBuffer.tick(-1));
+         assertEquals(tick, a.getDoubleValue(), 0.0);
+      }
+
+      // Before the first tick the index wraps around like it does without spilled ticks
+      assertTrue(dataBuffer.tick(-1));
+
+      dataBuffer.gotoInPoint();
+      assertEquals(0.0, a.getDoubleValue(), 0.0);
+      assertFalse(dataBuffer.tick(450));
+      assertEquals(450.0, a.getDoubleValue(), 0.0);
+
+      // Stepping forward into the newest ticks brings them back
+      for (int tick = 451; tick < 1000; tick++)
+      {
+         assertFalse(dataBuffer.tick(1));
+         assertEquals(tick, a.getDoubleValue(), 0.0);
+      }
+      assertFalse(dataBuffer.isShowingSpilledTicks());
+      assertEquals(900, dataBuffer.getNumberOfSpilledTicks());
+      assertTrue(dataBuffer.atOutPoint());
+
+      dataBuffer.disableSpillToDisk();
+   }
+
+	@DeployableTestMethod
+	@Test(timeout=300000)
+   public void testCroppingABufferWhoseStartIsOnDisk() throws IOException
+   {
+      int bufferSize = 100;
+      DataBuffer dataBuffer = new DataBuffer(bufferSize);
+      dataBuffer.setMaxBufferSize(bufferSize);
+      dataBuffer.addEntry(aBuffer);
+
+      File spillDirectory = Files.createTempDirectory("dataBufferSpill").toFile();
+      dataBuffer.enableSpillToDisk(spillDirectory, 16);
+
+      for (int tick = 1; tick < 1000; tick++)
+      {
+         a.set(tick);
+         dataBuffer.tickAndUpdate();
+      }
+
+      // The first ticks are paged in from disk, the cropped ticks are all in the buffer and the rest of the history is dropped
+      dataBuffer.pageInSpilledTicks(0);
+      dataBuffer.cropData(10, 39);
+      assertFalse(dataBuffer.isShowingSpilledTicks());
+      assertEquals(0, dataBuffer.getNumberOfSpilledTicks());
+      assertEquals(30, dataBuffer.getBufferSize());
+      assertEquals(30, dataBuffer.getNumberOfExportedTicks());
+      for (int i = 0; i < 30; i++)
+      {
+         assertEquals(10.0 + i, aBuffer.getData()[i], 0.0);
+      }
+
+      // Recording after the cropped ticks grows the buffer back to its maximum size and spills again
+      dataBuffer.gotoOutPoint();
+      for (int tick = 1000; tick < 1200; tick++)
+      {
+         a.set(tick);
+         dataBuffer.tickAndUpdate();
+      }
+
+      assertEquals(bufferSize, dataBuffer.getBufferSize());
+      assertEquals(130, dataBuffer.getNumberOfSpilledTicks());
+      assertEquals(230, dataBuffer.getNumberOfExportedTicks());
+      double[][] exportedData = new double[1][230];
+      dataBuffer.readExportedTicks(0, 230, new int[] { 0 }, exportedData);
+      for (int i = 0; i < 30; i++)
+      {
+         assertEquals(10.0 + i, exportedData[0][i], 0.0);
+      }
+      for (int i = 30; i < 230; i++)
+      {
+         assertEquals(970.0 + i, exportedData[0][i], 0.0);
+      }
+
+      dataBuffer.disableSpillToDisk();
+      assertFalse(spillDirectory.exists());
+   }
+
+	@DeployableTestMethod
+	@Test(timeout=300000)
+   public void testCuttingSpilledTicks() throws IOException
+   {
+      int bufferSize = 100;
+      DataBuffer dataBuffer = new DataBuffer(bufferSize);
+      dataBuffer.setMaxBufferSize(bufferSize);
+      dataBuffer.addEntry(aBuffer);
+      dataBuffer.addEntry(bBuffer);
+
+      File spillDirectory = Files.createTempDirectory("dataBufferSpill").toFile();
+      dataBuffer.enableSpillToDisk(spillDirectory, 16);
+
+      for (int tick = 1; tick < 1000; tick++)
+      {
+         a.set(tick);
+         b.set(-tick);
+         dataBuffer.tickAndUpdate();
+      }
+
+      // Cut ticks 260 to 309, they start and end in the middle of a chunk on disk
+      dataBuffer.pageInSpilledTicks(250);
+      dataBuffer.cutData(10, 59);
+
+      assertFalse(dataBuffer.isShowingSpilledTicks());
+      assertEquals(bufferSize, dataBuffer.getBufferSize());
+      assertEquals(950, dataBuffer.getNumberOfExportedTicks());
+      assertEquals(850, dataBuffer.getNumberOfSpilledTicks());
+      for (int i = 0; i < bufferSize; i++)
+      {
+         assertEquals(900.0 + i, aBuffer.getData()[i], 0.0);
+      }
+
+      double[][] exportedData = new double[2][950];
+      dataBuffer.readExportedTicks(0, 950, new int[] { 0, 1 }, exportedData);
+      for (int i = 0; i < 950; i++)
+      {
+         double expectedTick = i < 260 ? i : i + 50;
+         assertEquals(expectedTick, exportedData[0][i], 0.0);
+         assertEquals(-expectedTick, exportedData[1][i], 0.0);
+      }
+
+      // The tick before the cut is not in the buffer, the index is at the in point
+      assertEquals(900.0, a.getDoubleValue(), 0.0);
+
+      // Recording continues after the newest tick
+      dataBuffer.gotoOutPoint();
+      for (int tick = 1000; tick < 1050; tick++)
+      {
+         a.set(tick);
+         b.set(-tick);
+         dataBuffer.tickAndUpdate();
+      }
+
+      assertEquals(900, dataBuffer.getNumberOfSpilledTicks());
+      assertEquals(1000, dataBuffer.getNumberOfExportedTicks());
+      dataBuffer.readExportedTicks(940, 10, new int[] { 0 }, exportedData);
+      for (int i = 0; i < 10; i++)
+      {
+         assertEquals(990.0 + i, exportedData[0][i], 0.0);
+      }
+
+      dataBuffer.disableSpillToDisk();
+   }
+
+	@DeployableTestMethod
+	@Test(timeout=300000)
+   public void testThinningSpilledTicks() throws IOException
+   {
+      int bufferSize = 100;
+      DataBuffer dataBuffer = new DataBuffer(bufferSize);
+      dataBuffer.setMaxBufferSize(bufferSize);
+      dataBuffer.addEntry(aBuffer);
+
+      File spillDirectory = Files.createTempDirectory("dataBufferSpill").toFile();
+      dataBuffer.enableSpillToDisk(spillDirectory, 16);
+
+      for (int tick = 1; tick < 1000; tick++)
+      {
+         a.set(tick);
+         dataBuffer.tickAndUpdate();
+      }
+
+      // Every third tick of the whole history is kept, the buffer shows the newest ones
+      dataBuffer.thinData(3);
+      assertEquals(bufferSize, dataBuffer.getBufferSize());
+      assertEquals(334, dataBuffer.getNumberOfExportedTicks());
+      assertEquals(234, dataBuffer.getNumberOfSpilledTicks());
+      for (int i = 0; i < bufferSize; i++)
+      {
+         assertEquals(3.0 * (234 + i), aBuffer.getData()[i], 0.0);
+      }
+
+      double[][] exportedData = new double[1][334];
+      dataBuffer.readExportedTicks(0, 334, new int[] { 0 }, exportedData);
+      for (int i = 0; i < 334; i++)
+      {
+         assertEquals(3.0 * i, exportedData[0][i], 0.0);
+      }
+
+      // Stepping back pages in the thinned ticks
+      dataBuffer.gotoInPoint();
+      assertFalse(dataBuffer.tick(-1));
+      assertEquals(3.0 * 233, a.getDoubleValue(), 0.0);
 
+      dataBuffer.disableSpillToDisk();
+   }
 }
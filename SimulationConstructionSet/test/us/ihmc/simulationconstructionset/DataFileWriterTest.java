@@ -14,6 +14,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Random;
 
@@ -147,6 +148,65 @@ public class DataFileWriterTest
       assertTrue(dataIsEqual);
    }
 
+	@DeployableTestMethod
+	@Test(timeout=300000)
+   public void testExportIncludesSpilledTicks() throws IOException, RepeatDataBufferEntryException
+   {
+      int bufferSize = 100;
+      int numberOfTicks = 1000;
+
+      DataBuffer dataBuffer = new DataBuffer(bufferSize);
+      dataBuffer.setMaxBufferSize(bufferSize);
+
+      YoVariableRegistry rootRegistry = new YoVariableRegistry("rootRegistry");
+      DoubleYoVariable countUp = new DoubleYoVariable("countUp", rootRegistry);
+      DoubleYoVariable countDown = new DoubleYoVariable("countDown", rootRegistry);
+      dataBuffer.addVariable(countUp);
+      dataBuffer.addVariable(countDown);
+
+      File spillDirectory = Files.createTempDirectory("dataBufferSpill").toFile();
+      dataBuffer.enableSpillToDisk(spillDirectory, 16);
+
+      for (int i = 1; i < numberOfTicks; i++)
+      {
+         countUp.set(i);
+         countDown.set(-i);
+         dataBuffer.tickAndUpdate();
+      }
+
+      ArrayList<YoVariable<?>> allVariables = rootRegistry.getAllVariablesIncludingDescendants();
+
+      for (int format = 0; format < 4; format++)
+      {
+         // The whole history is exported both with the newest ticks in the buffer and with older ticks paged in
+         if (format == 2)
+            dataBuffer.pageInSpilledTicks(300);
+
+         File testFile = new File(TEST_DIRECTORY + "spilledTicks.data" + (format == 0 ? ".csv" : ""));
+         DataFileWriter dataFileWriter = new DataFileWriter(testFile);
+         if (format == 0)
+            dataFileWriter.writeSpreadsheetFormattedData(dataBuffer, allVariables);
+         else
+            dataFileWriter.writeData("model", 0.001, dataBuffer, allVariables, format % 2 == 0, false, null);
+
+         DataFileReader dataFileReader = new DataFileReader(testFile);
+         DataBuffer readBackBuffer = new DataBuffer(numberOfTicks);
+         dataFileReader.readData(new YoVariableList("newVars"), new YoVariableRegistry("rootRegistry"), readBackBuffer);
+
+         double[] readBackCountUp = readBackBuffer.getEntry("countUp").getData();
+         double[] readBackCountDown = readBackBuffer.getEntry("countDown").getData();
+         for (int i = 0; i < numberOfTicks; i++)
+         {
+            assertEquals(i, readBackCountUp[i], 0.0);
+            assertEquals(-i, readBackCountDown[i], 0.0);
+         }
+
+         testFile.delete();
+      }
+
+      dataBuffer.disableSpillToDisk();
+   }
+
    @SuppressWarnings("deprecation")
 
 	@DeployableTestMethod
@@ -0,0 +1,94 @@
+package us.ihmc.simulationconstructionset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.vecmath.Vector3d;
+
+import org.junit.Test;
+
+import us.ihmc.robotics.Axis;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class SimulatorTest
+{
+   private static final int NUMBER_OF_ROBOTS = 6;
+
+   @DeployableTestMethod(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testParallelRobotDynamicsGiveTheSameResultAsSequential() throws UnreasonableAccelerationException
+   {
+      Robot[] sequentialRobots = createPendulums();
+      Simulation sequentialSimulation = new Simulation(sequentialRobots, 16);
+      sequentialSimulation.setDT(0.0005, 1);
+      sequentialSimulation.simulate(2000);
+
+      Robot[] parallelRobots = createPendulums();
+      Simulation parallelSimulation = new Simulation(parallelRobots, 16);
+      parallelSimulation.setDT(0.0005, 1);
+      parallelSimulation.setNumberOfThreadsForRobotDynamics(4);
+      parallelSimulation.simulate(2000);
+
+      for (int i = 0; i < NUMBER_OF_ROBOTS; i++)
+      {
+         PinJoint sequentialJoint = (PinJoint) sequentialRobots[i].getRootJoints().get(0);
+         PinJoint parallelJoint = (PinJoint) parallelRobots[i].getRootJoints().get(0);
+
+         assertEquals(1.0, parallelRobots[i].getTime(), 1.0e-9);
+         assertEquals(sequentialJoint.getQ().getDoubleValue(), parallelJoint.getQ().getDoubleValue(), 0.0);
+         assertEquals(sequentialJoint.getQD().getDoubleValue(), parallelJoint.getQD().getDoubleValue(), 0.0);
+      }
+
+      sequentialSimulation.closeAndDispose();
+      parallelSimulation.closeAndDispose();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testUnreasonableAccelerationIsThrownFromParallelDynamics()
+   {
+      Robot[] robots = createPendulums();
+      PinJoint joint = (PinJoint) robots[3].getRootJoints().get(0);
+      joint.setTau(1.0e12);
+
+      Simulation simulation = new Simulation(robots, 16);
+      simulation.setDT(0.0005, 1);
+      simulation.setNumberOfThreadsForRobotDynamics(3);
+
+      boolean hasThrown = false;
+      try
+      {
+         simulation.simulate(100);
+      }
+      catch (UnreasonableAccelerationException e)
+      {
+         hasThrown = true;
+      }
+
+      assertTrue(hasThrown);
+      simulation.closeAndDispose();
+   }
+
+   private static Robot[] createPendulums()
+   {
+      Robot[] robots = new Robot[NUMBER_OF_ROBOTS];
+
+      for (int i = 0; i < NUMBER_OF_ROBOTS; i++)
+      {
+         Robot robot = new Robot("pendulum" + i);
+         PinJoint joint = new PinJoint("pin" + i, new Vector3d(2.0 * i, 0.0, 1.0), robot, Axis.Y);
+
+         Link link = new Link("link" + i);
+         link.setMass(1.0 + 0.1 * i);
+         link.setComOffset(0.0, 0.0, -0.5);
+         link.setMomentOfInertia(0.05, 0.05, 0.01);
+         joint.setLink(link);
+         robot.addRootJoint(joint);
+
+         joint.setQ(0.2 * (i + 1));
+         robots[i] = robot;
+      }
+
+      return robots;
+   }
+}
@@ -34,9 +34,11 @@ import us.ihmc.tools.testing.TestPlanTarget;
    us.ihmc.simulationconstructionset.screwTheory.CentroidalMomentumRateADotVTermSCSTest.class,
    us.ihmc.simulationconstructionset.screwTheory.CentroidalMomentumRateTermCalculatorSCSTest.class,
    us.ihmc.simulationconstructionset.scripts.TimeScriptTest.class,
+   us.ihmc.simulationconstructionset.simulatedSensors.CPURayCastLidarTest.class,
    us.ihmc.simulationconstructionset.simulatedSensors.GroundContactPointBasedWrenchCalculatorTest.class,
    us.ihmc.simulationconstructionset.simulatedSensors.SimulatedIMURawSensorReaderTest.class,
    us.ihmc.simulationconstructionset.SimulationConstructionSetProcessDataCallTest.class,
+   us.ihmc.simulationconstructionset.SimulatorTest.class,
    us.ihmc.simulationconstructionset.torqueSpeedCurve.TypicalTorqueSpeedCurveTest.class,
    us.ihmc.simulationconstructionset.util.dataProcessors.RobotAllJointsDataCheckerTest.class,
    us.ihmc.simulationconstructionset.util.dataProcessors.ValueDataCheckerParametersTest.class,
@@ -62,6 +64,7 @@ import us.ihmc.tools.testing.TestPlanTarget;
    us.ihmc.simulationconstructionset.util.inputdevices.SliderBoardUtilsTest.class,
    us.ihmc.simulationconstructionset.util.LinearStickSlipGroundContactModelTest.class,
    us.ihmc.simulationconstructionset.util.math.functionGenerator.YoFunctionGeneratorTest.class,
+   us.ihmc.simulationconstructionset.util.simulationRunner.BatchSimulationRunnerTest.class,
    us.ihmc.simulationconstructionset.util.simulationRunner.SimulationRewindabilityVerifierTest.class,
    us.ihmc.simulationconstructionset.util.simulationRunner.StateFileComparerTest.class,
    us.ihmc.simulationconstructionset.util.simulationRunner.VariablesThatShouldMatchListTest.class,
@@ -0,0 +1,252 @@
+package us.ihmc.simulationconstructionset.simulatedSensors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.vecmath.Vector3d;
+
+import org.junit.Test;
+
+import us.ihmc.graphics3DAdapter.GPULidarListener;
+import us.ihmc.graphics3DAdapter.GPULidarScanBuffer;
+import us.ihmc.graphics3DAdapter.graphics.appearances.YoAppearance;
+import us.ihmc.robotics.geometry.RigidBodyTransform;
+import us.ihmc.robotics.geometry.shapes.Sphere3d;
+import us.ihmc.robotics.lidar.LidarScan;
+import us.ihmc.robotics.lidar.LidarScanParameters;
+import us.ihmc.simulationconstructionset.FloatingJoint;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.util.ground.CombinedTerrainObject3D;
+import us.ihmc.simulationconstructionset.util.ground.RampTerrainObject;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class CPURayCastLidarTest
+{
+   private static final double EPSILON = 2.0e-3;
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRangesToAWall()
+   {
+      CombinedTerrainObject3D terrain = new CombinedTerrainObject3D("Wall");
+      terrain.addBox(2.0, -5.0, 3.0, 5.0, 0.0, 2.0);
+
+      LidarScanParameters parameters = new LidarScanParameters(101, -0.5, 0.5, 0.1, 10.0);
+      CPURayCastLidar lidar = new CPURayCastLidar("lidar", parameters, terrain, 4);
+
+      float[] ranges = lidar.scan(createLidarTransform(0.0, 0.0, 1.0));
+
+      for (int i = 0; i < ranges.length; i++)
+      {
+         double yaw = -0.5 + i * 1.0 / 100;
+         assertEquals(2.0 / Math.cos(yaw), ranges[i], EPSILON);
+      }
+
+      lidar.shutdown();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRangesToTheGroundAndMisses()
+   {
+      CombinedTerrainObject3D terrain = new CombinedTerrainObject3D("Ground");
+      terrain.addBox(-50.0, -50.0, 50.0, 50.0, -1.0, 0.0);
+
+      int pointsPerSweep = 20;
+      int scanHeight = 4;
+      LidarScanParameters parameters = new LidarScanParameters(pointsPerSweep, scanHeight, -1.0f, 1.0f, -0.2f, 0.6f, 0.0f, 0.1f, 30.0f, 0.0f, 0L);
+      CPURayCastLidar lidar = new CPURayCastLidar("lidar", parameters, terrain, 3);
+
+      float[] ranges = lidar.scan(createLidarTransform(1.0, -2.0, 1.5));
+
+      for (int i = 0; i < ranges.length; i++)
+      {
+         double pitch = parameters.heightPitchMin + (i / pointsPerSweep) * ((parameters.heightPitchMax - parameters.heightPitchMin) / (scanHeight - 1));
+
+         if (pitch < 0.0)
+            assertEquals("Ray " + i + " points up, it should not hit anything", 0.0, ranges[i], 0.0);
+         else
+            assertEquals(1.5 / Math.sin(pitch), ranges[i], EPSILON);
+      }
+
+      lidar.shutdown();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRangesToARotatedBoxAndACylinder()
+   {
+      CombinedTerrainObject3D terrain = new CombinedTerrainObject3D("BoxAndCylinder");
+
+      RigidBodyTransform boxPose = new RigidBodyTransform();
+      boxPose.rotZ(Math.PI / 4.0);
+      boxPose.setTranslation(new Vector3d(3.0, 0.0, 1.0));
+      terrain.addRotatableBox(boxPose, 1.0, 1.0, 1.0, YoAppearance.Gray());
+
+      RigidBodyTransform cylinderPose = new RigidBodyTransform();
+      cylinderPose.setTranslation(new Vector3d(0.0, 3.0, 1.0));
+      terrain.addCylinder(cylinderPose, 2.0, 0.5, YoAppearance.Gray());
+
+      LidarScanParameters parameters = new LidarScanParameters(3, 0.0, Math.PI / 2.0, 0.1, 10.0);
+      CPURayCastLidar lidar = new CPURayCastLidar("lidar", parameters, terrain, 2);
+
+      float[] ranges = lidar.scan(createLidarTransform(0.0, 0.0, 1.0));
+
+      // Straight at the vertical edge of the box, between both objects, and straight at the side of the cylinder
+      assertEquals(3.0 - Math.sqrt(2.0) / 2.0, ranges[0], EPSILON);
+      assertEquals(0.0, ranges[1], 0.0);
+      assertEquals(2.5, ranges[2], EPSILON);
+
+      lidar.shutdown();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRangesToAHeightField()
+   {
+      CombinedTerrainObject3D terrain = new CombinedTerrainObject3D("Ramp");
+      terrain.addRamp(2.0, -1.0, 4.0, 1.0, 1.0);
+
+      LidarScanParameters parameters = new LidarScanParameters(3, -0.1, 0.1, 0.1, 10.0);
+      CPURayCastLidar lidar = new CPURayCastLidar("lidar", parameters, terrain, 2);
+
+      float[] ranges = lidar.scan(createLidarTransform(0.0, 0.0, 0.5));
+
+      // The ramp is half way up at x = 3
+      for (int i = 0; i < ranges.length; i++)
+      {
+         double yaw = -0.1 + i * 0.1;
+         assertEquals(3.0 / Math.cos(yaw), ranges[i], EPSILON);
+      }
+
+      lidar.shutdown();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRobotCollisionShapeHidesTheTerrain()
+   {
+      CombinedTerrainObject3D terrain = new CombinedTerrainObject3D("Wall");
+      terrain.addBox(4.0, -5.0, 5.0, 5.0, 0.0, 2.0);
+
+      Robot robot = new Robot("robot");
+      FloatingJoint joint = new FloatingJoint("joint", new Vector3d(), robot);
+      robot.addRootJoint(joint);
+      joint.setPosition(2.0, 0.0, 1.0);
+      robot.update();
+
+      LidarScanParameters parameters = new LidarScanParameters(3, -0.5, 0.5, 0.1, 10.0);
+      CPURayCastLidar lidar = new CPURayCastLidar("lidar", parameters, terrain, 2);
+      lidar.addRobotCollisionShape(joint, new Sphere3d(0.5));
+
+      float[] ranges = lidar.scan(createLidarTransform(0.0, 0.0, 1.0));
+
+      assertEquals(4.0 / Math.cos(-0.5), ranges[0], EPSILON);
+      assertEquals(1.5, ranges[1], EPSILON);
+      assertEquals(4.0 / Math.cos(0.5), ranges[2], EPSILON);
+
+      lidar.shutdown();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testScansAreSentToTheListenersOncePerScanPeriod() throws InterruptedException
+   {
+      CombinedTerrainObject3D terrain = new CombinedTerrainObject3D("Wall");
+      terrain.addBox(2.0, -5.0, 3.0, 5.0, 0.0, 2.0);
+
+      LidarScanParameters parameters = new LidarScanParameters(11, -0.5, 0.5, 0.1, 10.0);
+      CPURayCastLidar lidar = new CPURayCastLidar("lidar", parameters, terrain, 2);
+      lidar.setScanPeriod(0.1);
+
+      GPULidarScanBuffer scanBuffer = new GPULidarScanBuffer(parameters);
+      lidar.addGPULidarListener(scanBuffer);
+
+      RigidBodyTransform lidarTransform = createLidarTransform(0.0, 0.0, 1.0);
+      lidar.setTransformFromWorld(lidarTransform, 0.0);
+
+      LidarScan scan = scanBuffer.poll(10, TimeUnit.SECONDS);
+      assertTrue(scan != null);
+      assertEquals(2.0, scan.getRange(5), EPSILON);
+
+      // Not due yet
+      lidar.setTransformFromWorld(lidarTransform, 0.05);
+      lidar.scan(lidarTransform);
+      assertTrue(scanBuffer.isEmpty());
+
+      lidar.setTransformFromWorld(lidarTransform, 0.1);
+      assertTrue(scanBuffer.poll(10, TimeUnit.SECONDS) != null);
+
+      lidar.shutdown();
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testScansDueWhileScanningAreDropped() throws InterruptedException
+   {
+      final CountDownLatch rayCastingBlocker = new CountDownLatch(1);
+      CombinedTerrainObject3D terrain = new CombinedTerrainObject3D("BlockingRamp");
+      terrain.addTerrainObject(new RampTerrainObject(2.0, -1.0, 4.0, 1.0, 1.0)
+      {
+         @Override
+         public double heightAt(double x, double y, double z)
+         {
+            try
+            {
+               rayCastingBlocker.await();
+            }
+            catch (InterruptedException e)
+            {
+               throw new RuntimeException(e);
+            }
+            return super.heightAt(x, y, z);
+         }
+      });
+
+      LidarScanParameters parameters = new LidarScanParameters(1, 0.0, 0.0, 0.1, 10.0);
+      CPURayCastLidar lidar = new CPURayCastLidar("lidar", parameters, terrain, 1);
+      lidar.setScanPeriod(0.1);
+
+      final LinkedBlockingQueue<RigidBodyTransform> scanTransforms = new LinkedBlockingQueue<>();
+      lidar.addGPULidarListener(new GPULidarListener()
+      {
+         @Override
+         public void scan(float[] scan, RigidBodyTransform currentTransform, double time)
+         {
+            scanTransforms.add(currentTransform);
+         }
+      });
+
+      RigidBodyTransform lidarTransform = createLidarTransform(0.0, 0.0, 0.5);
+      lidar.setTransformFromWorld(lidarTransform, 0.0);
+      lidarTransform.setTranslation(new Vector3d(1.0, 0.0, 0.5));
+      lidar.setTransformFromWorld(lidarTransform, 0.1);
+      assertEquals(1, lidar.getNumberOfDroppedScans());
+
+      rayCastingBlocker.countDown();
+      RigidBodyTransform firstScanTransform = scanTransforms.poll(10, TimeUnit.SECONDS);
+      assertTrue(firstScanTransform != null);
+
+      lidar.setTransformFromWorld(lidarTransform, 0.2);
+      assertTrue(scanTransforms.poll(10, TimeUnit.SECONDS) != null);
+      assertEquals(1, lidar.getNumberOfDroppedScans());
+
+      // The listeners keep the transform of their scan, later scans must not change it
+      Vector3d firstScanPosition = new Vector3d();
+      firstScanTransform.getTranslation(firstScanPosition);
+      assertEquals(0.0, firstScanPosition.getX(), 0.0);
+
+      lidar.shutdown();
+   }
+
+   private static RigidBodyTransform createLidarTransform(double x, double y, double z)
+   {
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setTranslation(new Vector3d(x, y, z));
+      return transform;
+   }
+}
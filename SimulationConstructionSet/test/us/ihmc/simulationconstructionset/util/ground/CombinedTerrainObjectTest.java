@@ -1,11 +1,22 @@
 package us.ihmc.simulationconstructionset.util.ground;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import javax.vecmath.Point3d;
 import javax.vecmath.Vector3d;
 
 import org.junit.Test;
 
 import us.ihmc.robotics.geometry.ConvexPolygon2d;
+import us.ihmc.robotics.random.RandomTools;
 import us.ihmc.tools.testing.JUnitTools;
 import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
 
@@ -37,6 +48,197 @@ public class CombinedTerrainObjectTest
       JUnitTools.assertTuple3dEquals(expectedNormal, resultNormal, 1e-4);
    }
 
+	@DeployableTestMethod(estimatedDuration = 0.1)
+	@Test(timeout=30000)
+   public void testQueriesMatchLinearSearchWithManyObjects()
+   {
+      Random random = new Random(1776L);
+      CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("Cinder Blocks");
+
+      for (int i = 0; i < 300; i++)
+      {
+         double x = RandomTools.generateRandomDouble(random, 10.0);
+         double y = RandomTools.generateRandomDouble(random, 10.0);
+         double xLength = RandomTools.generateRandomDouble(random, 0.1, 2.0);
+         double yLength = RandomTools.generateRandomDouble(random, 0.1, 2.0);
+         double height = RandomTools.generateRandomDouble(random, 0.05, 0.5);
+
+         switch (i % 3)
+         {
+         case 0:
+            combinedTerrainObject.addBox(x, y, x + xLength, y + yLength, height);
+            break;
+         case 1:
+            combinedTerrainObject.addRamp(x, y, x + xLength, y + yLength, height);
+            break;
+         default:
+            combinedTerrainObject.addCone(x, y, 0.5 * xLength, 0.25 * xLength, height);
+            break;
+         }
+
+         if (i == 150)
+            assertQueriesMatchLinearSearch(random, combinedTerrainObject);
+      }
+
+      assertQueriesMatchLinearSearch(random, combinedTerrainObject);
+
+      // Objects added directly to the list have to be found as well
+      combinedTerrainObject.getTerrainObjects().add(new BoxTerrainObject(-1.0, -1.0, 1.0, 1.0, 3.0));
+      assertQueriesMatchLinearSearch(random, combinedTerrainObject);
+   }
+
+	@DeployableTestMethod(estimatedDuration = 0.5)
+	@Test(timeout=30000)
+   public void testConcurrentHeightQueries() throws Exception
+   {
+      Random random = new Random(1492L);
+      final CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("Blocks and Ramps");
+
+      for (int i = 0; i < 200; i++)
+      {
+         double x = RandomTools.generateRandomDouble(random, 10.0);
+         double y = RandomTools.generateRandomDouble(random, 10.0);
+         double xLength = RandomTools.generateRandomDouble(random, 0.1, 2.0);
+         double yLength = RandomTools.generateRandomDouble(random, 0.1, 2.0);
+         double height = RandomTools.generateRandomDouble(random, 0.05, 0.5);
+
+         if (i % 2 == 0)
+            combinedTerrainObject.addBox(x, y, x + xLength, y + yLength, height);
+         else
+            combinedTerrainObject.addRamp(x, y, x + xLength, y + yLength, height);
+      }
+
+      int numberOfThreads = 4;
+      ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+      List<Future<Void>> futures = new ArrayList<>();
+
+      for (int thread = 0; thread < numberOfThreads; thread++)
+      {
+         final long seed = random.nextLong();
+         futures.add(executor.submit(new Callable<Void>()
+         {
+            @Override
+            public Void call()
+            {
+               Random random = new Random(seed);
+               Vector3d normal = new Vector3d();
+               Vector3d expectedNormal = new Vector3d();
+
+               for (int i = 0; i < 20000; i++)
+               {
+                  double x = RandomTools.generateRandomDouble(random, 12.0);
+                  double y = RandomTools.generateRandomDouble(random, 12.0);
+                  double z = RandomTools.generateRandomDouble(random, -0.1, 0.6);
+
+                  assertEquals(heightAtWithLinearSearch(combinedTerrainObject, x, y, z), combinedTerrainObject.heightAt(x, y, z), 0.0);
+
+                  double expectedHeight = heightAndNormalAtWithLinearSearch(combinedTerrainObject, x, y, z, expectedNormal);
+                  assertEquals(expectedHeight, combinedTerrainObject.heightAndNormalAt(x, y, z, normal), 0.0);
+                  if (expectedHeight > Double.NEGATIVE_INFINITY)
+                     JUnitTools.assertTuple3dEquals(expectedNormal, normal, 0.0);
+               }
+
+               return null;
+            }
+         }));
+      }
+
+      try
+      {
+         for (Future<Void> future : futures)
+            future.get();
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   private void assertQueriesMatchLinearSearch(Random random, CombinedTerrainObject3D combinedTerrainObject)
+   {
+      Point3d intersection = new Point3d();
+      Vector3d normal = new Vector3d();
+      Point3d expectedIntersection = new Point3d();
+      Vector3d expectedNormal = new Vector3d();
+
+      for (int i = 0; i < 2000; i++)
+      {
+         double x = RandomTools.generateRandomDouble(random, 12.0);
+         double y = RandomTools.generateRandomDouble(random, 12.0);
+         double z = RandomTools.generateRandomDouble(random, -0.1, 0.6);
+
+         assertEquals(heightAtWithLinearSearch(combinedTerrainObject, x, y, z), combinedTerrainObject.heightAt(x, y, z), 0.0);
+
+         double expectedHeight = heightAndNormalAtWithLinearSearch(combinedTerrainObject, x, y, z, expectedNormal);
+         assertEquals(expectedHeight, combinedTerrainObject.heightAndNormalAt(x, y, z, normal), 0.0);
+         if (expectedHeight > Double.NEGATIVE_INFINITY)
+            JUnitTools.assertTuple3dEquals(expectedNormal, normal, 0.0);
+
+         boolean expectedIsInside = checkIfInsideWithLinearSearch(combinedTerrainObject, x, y, z, expectedIntersection, expectedNormal);
+         assertEquals(expectedIsInside, combinedTerrainObject.checkIfInside(x, y, z, intersection, normal));
+         JUnitTools.assertTuple3dEquals(expectedIntersection, intersection, 0.0);
+         JUnitTools.assertTuple3dEquals(expectedNormal, normal, 0.0);
+      }
+   }
+
+   private static double heightAtWithLinearSearch(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z)
+   {
+      double heightAt = Double.NEGATIVE_INFINITY;
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject.isClose(x, y, z) && terrainObject.getHeightMapIfAvailable() != null)
+            heightAt = Math.max(heightAt, terrainObject.getHeightMapIfAvailable().heightAt(x, y, z));
+      }
+
+      return heightAt;
+   }
+
+   private static double heightAndNormalAtWithLinearSearch(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z, Vector3d normalToPack)
+   {
+      double heightAt = Double.NEGATIVE_INFINITY;
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject.isClose(x, y, z) && terrainObject.getHeightMapIfAvailable() != null)
+         {
+            if (terrainObject.getHeightMapIfAvailable().heightAt(x, y, z) > heightAt)
+               heightAt = terrainObject.getHeightMapIfAvailable().heightAndNormalAt(x, y, z, normalToPack);
+         }
+      }
+
+      return heightAt;
+   }
+
+   private static boolean checkIfInsideWithLinearSearch(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z, Point3d intersectionToPack,
+         Vector3d normalToPack)
+   {
+      Point3d pointToCheck = new Point3d(x, y, z);
+      Point3d localIntersection = new Point3d();
+      Vector3d localNormal = new Vector3d();
+      double smallestDistance = Double.MAX_VALUE;
+      boolean isInside = false;
+
+      intersectionToPack.set(x, y, 0.0);
+      normalToPack.set(0.0, 0.0, 1.0);
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject.isClose(x, y, z) && terrainObject.checkIfInside(x, y, z, localIntersection, localNormal))
+         {
+            if (pointToCheck.distance(localIntersection) < smallestDistance)
+            {
+               smallestDistance = pointToCheck.distance(localIntersection);
+               intersectionToPack.set(localIntersection);
+               normalToPack.set(localNormal);
+               isInside = true;
+            }
+         }
+      }
+
+      return isInside;
+   }
+
    private void setupTwoIntersectingBoxesMadeFromPolygons(CombinedTerrainObject3D combinedTerrainObject)
    {
       Vector3d normalVector = new Vector3d(0.0, 0.0, 1.0);
@@ -0,0 +1,144 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.vecmath.Vector3d;
+
+import org.junit.Test;
+
+import us.ihmc.robotics.Axis;
+import us.ihmc.simulationconstructionset.Link;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SliderJoint;
+import us.ihmc.tools.testing.TestPlanAnnotations.DeployableTestMethod;
+
+public class BatchSimulationRunnerTest
+{
+   private static final double GRAVITY = -9.81;
+   private static final double FAILURE_HEIGHT = -3.0;
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testBallisticSweep()
+   {
+      BatchSimulationRunner runner = new BatchSimulationRunner(3);
+      double simulationTime = 1.0;
+      int numberOfRuns = 6;
+
+      List<BatchSimulationResult<Double>> results = runner.simulate(new BallisticScenario(), numberOfRuns, 0.001, simulationTime);
+      runner.shutdown();
+
+      assertEquals(numberOfRuns, results.size());
+
+      for (int runIndex = 0; runIndex < numberOfRuns; runIndex++)
+      {
+         BatchSimulationResult<Double> result = results.get(runIndex);
+         assertEquals(runIndex, result.getRunIndex());
+         assertNull(result.getException());
+
+         double initialVelocity = runIndex;
+         double expectedHeight = initialVelocity * simulationTime + 0.5 * GRAVITY * simulationTime * simulationTime;
+
+         if (expectedHeight < FAILURE_HEIGHT)
+         {
+            assertTrue(result.hasFailed());
+            assertFalse(result.isSuccessful());
+            assertTrue(result.getSimulatedTime() < simulationTime);
+            assertTrue(result.getResult() < FAILURE_HEIGHT);
+         }
+         else
+         {
+            assertTrue(result.isSuccessful());
+            assertEquals(simulationTime, result.getSimulatedTime(), 1.0e-9);
+            assertEquals(expectedHeight, result.getResult(), 1.0e-6);
+         }
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testResultsDoNotDependOnTheNumberOfThreads()
+   {
+      BatchSimulationRunner singleThreadRunner = new BatchSimulationRunner(1);
+      List<BatchSimulationResult<Double>> singleThreadResults = singleThreadRunner.simulate(new BallisticScenario(), 8, 0.001, 0.5);
+      singleThreadRunner.shutdown();
+
+      BatchSimulationRunner multiThreadRunner = new BatchSimulationRunner(4);
+      List<BatchSimulationResult<Double>> multiThreadResults = multiThreadRunner.simulate(new BallisticScenario(), 8, 0.001, 0.5);
+      multiThreadRunner.shutdown();
+
+      for (int runIndex = 0; runIndex < 8; runIndex++)
+      {
+         assertEquals(singleThreadResults.get(runIndex).getResult(), multiThreadResults.get(runIndex).getResult());
+         assertEquals(singleThreadResults.get(runIndex).getSimulatedTime(), multiThreadResults.get(runIndex).getSimulatedTime(), 0.0);
+      }
+   }
+
+   @DeployableTestMethod(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testExceptionsAreReportedPerRun()
+   {
+      BatchSimulationRunner runner = new BatchSimulationRunner(2);
+
+      List<BatchSimulationResult<Double>> results = runner.simulate(new BallisticScenario()
+      {
+         @Override
+         public Robot[] createRobots(int runIndex)
+         {
+            if (runIndex == 1)
+               throw new RuntimeException("Could not create the robot");
+            return super.createRobots(runIndex);
+         }
+      }, 3, 0.001, 0.1);
+      runner.shutdown();
+
+      assertTrue(results.get(0).isSuccessful());
+      assertFalse(results.get(1).isSuccessful());
+      assertTrue(results.get(1).getException() instanceof RuntimeException);
+      assertNull(results.get(1).getResult());
+      assertTrue(results.get(2).isSuccessful());
+   }
+
+   private static class BallisticScenario implements BatchSimulationScenario<Double>
+   {
+      @Override
+      public Robot[] createRobots(int runIndex)
+      {
+         Robot robot = new Robot("ball");
+         robot.setGravity(GRAVITY);
+
+         SliderJoint joint = new SliderJoint("z", new Vector3d(), robot, Axis.Z);
+         Link link = new Link("ball");
+         link.setMass(1.0);
+         link.setMomentOfInertia(0.1, 0.1, 0.1);
+         joint.setLink(link);
+         robot.addRootJoint(joint);
+
+         joint.setQd(runIndex);
+
+         return new Robot[] {robot};
+      }
+
+      @Override
+      public boolean hasFailed(int runIndex, Robot[] robots)
+      {
+         return getHeight(robots) < FAILURE_HEIGHT;
+      }
+
+      @Override
+      public Double getResult(int runIndex, Robot[] robots)
+      {
+         return getHeight(robots);
+      }
+
+      private static double getHeight(Robot[] robots)
+      {
+         return ((SliderJoint) robots[0].getRootJoints().get(0)).getQ().getDoubleValue();
+      }
+   }
+}
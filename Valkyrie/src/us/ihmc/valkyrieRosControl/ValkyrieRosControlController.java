@@ -22,6 +22,7 @@ import us.ihmc.rosControl.wholeRobot.PositionJointHandle;
 import us.ihmc.rosControl.wholeRobot.ForceTorqueSensorHandle;
 import us.ihmc.rosControl.wholeRobot.IHMCWholeRobotControlJavaBridge;
 import us.ihmc.rosControl.wholeRobot.IMUHandle;
+import us.ihmc.sensorProcessing.communication.producers.RobotConfigurationDataCompressor;
 import us.ihmc.sensorProcessing.parameters.DRCRobotSensorInformation;
 import us.ihmc.sensorProcessing.stateEstimation.StateEstimatorParameters;
 import us.ihmc.tools.SettableTimestampProvider;
@@ -81,6 +82,7 @@ public class ValkyrieRosControlController extends IHMCWholeRobotControlJavaBridg
 
    public static final boolean INTEGRATE_ACCELERATIONS_AND_CONTROL_VELOCITIES = true;
    private static final boolean DO_SLOW_INTEGRATION_FOR_TORQUE_OFFSET = true;
+   private static final boolean COMPRESS_ROBOT_CONFIGURATION_DATA = true;
 
    private MultiThreadedRealTimeRobotController robotController;
    
@@ -234,6 +236,10 @@ public class ValkyrieRosControlController extends IHMCWholeRobotControlJavaBridg
       DRCEstimatorThread estimatorThread = new DRCEstimatorThread(robotModel.getSensorInformation(), robotModel.getContactPointParameters(), robotModel.getStateEstimatorParameters(),
            sensorReaderFactory, threadDataSynchronizer, new PeriodicRealtimeThreadScheduler(ValkyriePriorityParameters.POSECOMMUNICATOR_PRIORITY), dataProducer, yoVariableServer, gravity);
       estimatorThread.setExternalPelvisCorrectorSubscriber(externalPelvisPoseSubscriber);
+      if (COMPRESS_ROBOT_CONFIGURATION_DATA)
+      {
+         estimatorThread.enableRobotConfigurationDataCompression(RobotConfigurationDataCompressor.DEFAULT_KEYFRAME_INTERVAL);
+      }
       DRCControllerThread controllerThread = new DRCControllerThread(robotModel, robotModel.getSensorInformation(), controllerFactory, threadDataSynchronizer, drcOutputWriter, dataProducer,
             yoVariableServer, gravity, robotModel.getEstimatorDT());
 